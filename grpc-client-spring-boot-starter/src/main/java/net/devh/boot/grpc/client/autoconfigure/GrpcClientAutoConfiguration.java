@@ -29,16 +29,24 @@
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
 
 import io.grpc.CompressorRegistry;
 import io.grpc.DecompressorRegistry;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.LoadBalancerRegistry;
 import io.grpc.NameResolverProvider;
 import io.grpc.NameResolverRegistry;
 import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.cache.ClientRequestCoalescerRegistry;
+import net.devh.boot.grpc.client.cache.ClientResponseCacheRegistry;
+import net.devh.boot.grpc.client.cache.CoalescingClientInterceptor;
+import net.devh.boot.grpc.client.cache.ResponseCachingClientInterceptor;
 import net.devh.boot.grpc.client.channelfactory.GrpcChannelConfigurer;
 import net.devh.boot.grpc.client.channelfactory.GrpcChannelFactory;
 import net.devh.boot.grpc.client.channelfactory.InProcessChannelFactory;
 import net.devh.boot.grpc.client.channelfactory.InProcessOrAlternativeChannelFactory;
+import net.devh.boot.grpc.client.channelfactory.ManagedChannelPoolRegistry;
 import net.devh.boot.grpc.client.channelfactory.NettyChannelFactory;
 import net.devh.boot.grpc.client.channelfactory.ShadedNettyChannelFactory;
 import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
@@ -46,11 +54,23 @@
 import net.devh.boot.grpc.client.inject.GrpcClientConstructorInjectionBeanFactoryPostProcessor;
 import net.devh.boot.grpc.client.interceptor.AnnotationGlobalClientInterceptorConfigurer;
 import net.devh.boot.grpc.client.interceptor.GlobalClientInterceptorRegistry;
+import net.devh.boot.grpc.client.loadbalancer.EnvironmentZoneDetector;
+import net.devh.boot.grpc.client.loadbalancer.LeastRequestLoadBalancerProvider;
+import net.devh.boot.grpc.client.loadbalancer.LoadBalancerRegistration;
+import net.devh.boot.grpc.client.loadbalancer.PeakEwmaLoadBalancerProvider;
+import net.devh.boot.grpc.client.loadbalancer.SubchannelLoadRegistry;
+import net.devh.boot.grpc.client.loadbalancer.ZoneAwareLoadBalancerProvider;
+import net.devh.boot.grpc.client.loadbalancer.ZoneDetector;
 import net.devh.boot.grpc.client.nameresolver.NameResolverRegistration;
+import net.devh.boot.grpc.client.pipeline.ClientPipelineRegistry;
+import net.devh.boot.grpc.client.pipeline.PipelineClientInterceptor;
 import net.devh.boot.grpc.client.stubfactory.AsyncStubFactory;
 import net.devh.boot.grpc.client.stubfactory.BlockingStubFactory;
 import net.devh.boot.grpc.client.stubfactory.FutureStubFactory;
 import net.devh.boot.grpc.common.autoconfigure.GrpcCommonCodecAutoConfiguration;
+import net.devh.boot.grpc.common.security.CertificateReloaderRegistry;
+import net.devh.boot.grpc.common.transport.NettyEventLoopGroups;
+import net.devh.boot.grpc.common.transport.ShadedNettyEventLoopGroups;
 
 /**
  * The auto configuration used by Spring-Boot that contains all beans to create and inject grpc clients into beans.
@@ -137,6 +157,116 @@ GrpcChannelConfigurer decompressionChannelConfigurer(final DecompressorRegistry
         return (builder, name) -> builder.decompressorRegistry(registry);
     }
 
+    @ConditionalOnMissingBean
+    @Bean
+    ClientResponseCacheRegistry grpcClientResponseCacheRegistry(final GrpcChannelsProperties properties) {
+        return new ClientResponseCacheRegistry(properties);
+    }
+
+    /**
+     * Adds the response cache to all channels that have it enabled.
+     *
+     * @param caches The registry that holds the caches of the channels.
+     * @return The channel configurer that adds the response cache.
+     */
+    @Bean
+    GrpcChannelConfigurer responseCacheChannelConfigurer(final ClientResponseCacheRegistry caches) {
+        return (builder, name) -> caches.getCache(name)
+                .ifPresent(cache -> builder.intercept(
+                        new ResponseCachingClientInterceptor(cache, caches.getExecutor())));
+    }
+
+    @ConditionalOnMissingBean
+    @Bean
+    ClientRequestCoalescerRegistry grpcClientRequestCoalescerRegistry(final GrpcChannelsProperties properties) {
+        return new ClientRequestCoalescerRegistry(properties);
+    }
+
+    /**
+     * Adds request coalescing to all channels that have it enabled. The coalescing is applied after the response
+     * cache, so that only cache misses are coalesced.
+     *
+     * @param coalescers The registry that holds the coalescers of the channels.
+     * @return The channel configurer that adds the request coalescing.
+     */
+    @Bean
+    GrpcChannelConfigurer coalescingChannelConfigurer(final ClientRequestCoalescerRegistry coalescers) {
+        return (builder, name) -> coalescers.getCoalescer(name)
+                .ifPresent(coalescer -> builder.intercept(new CoalescingClientInterceptor(coalescer)));
+    }
+
+    @ConditionalOnMissingBean
+    @Bean
+    ClientPipelineRegistry grpcClientPipelineRegistry(final GrpcChannelsProperties properties) {
+        return new ClientPipelineRegistry(properties);
+    }
+
+    /**
+     * Sends the calls to the configured methods over the pipeline stream for all channels that have it enabled.
+     *
+     * @param pipelines The registry that holds the pipelines of the channels.
+     * @return The channel configurer that adds the pipelining.
+     */
+    @Bean
+    GrpcChannelConfigurer pipelineChannelConfigurer(final ClientPipelineRegistry pipelines) {
+        return (builder, name) -> pipelines.getPipeline(name)
+                .ifPresent(pipeline -> builder.intercept(new PipelineClientInterceptor(pipeline)));
+    }
+
+    @ConditionalOnMissingBean
+    @Bean
+    ManagedChannelPoolRegistry grpcChannelPoolRegistry() {
+        return new ManagedChannelPoolRegistry();
+    }
+
+    @ConditionalOnMissingBean
+    @Bean
+    SubchannelLoadRegistry grpcSubchannelLoadRegistry() {
+        return new SubchannelLoadRegistry();
+    }
+
+    @ConditionalOnMissingBean
+    @Bean
+    LeastRequestLoadBalancerProvider grpcLeastRequestLoadBalancerProvider(final SubchannelLoadRegistry loads) {
+        return new LeastRequestLoadBalancerProvider(loads);
+    }
+
+    @ConditionalOnMissingBean
+    @Bean
+    PeakEwmaLoadBalancerProvider grpcPeakEwmaLoadBalancerProvider(final SubchannelLoadRegistry loads) {
+        return new PeakEwmaLoadBalancerProvider(loads);
+    }
+
+    @ConditionalOnMissingBean
+    @Bean
+    ZoneDetector grpcZoneDetector(final Environment environment) {
+        return new EnvironmentZoneDetector(environment);
+    }
+
+    @ConditionalOnMissingBean
+    @Bean
+    ZoneAwareLoadBalancerProvider grpcZoneAwareLoadBalancerProvider(final SubchannelLoadRegistry loads,
+            final ZoneDetector zoneDetector) {
+        return new ZoneAwareLoadBalancerProvider(loads, zoneDetector.detectZone());
+    }
+
+    /**
+     * Creates a new LoadBalancerRegistration. This ensures that the LoadBalancerProvider's get unregistered when spring
+     * shuts down. This is mostly required for tests/when running multiple application contexts within the same JVM.
+     *
+     * @param loadBalancerProviders The spring managed providers to manage.
+     * @return The newly created LoadBalancerRegistration bean.
+     */
+    @ConditionalOnMissingBean
+    @Lazy
+    @Bean
+    LoadBalancerRegistration grpcLoadBalancerRegistration(
+            @Autowired(required = false) final List<LoadBalancerProvider> loadBalancerProviders) {
+        final LoadBalancerRegistration loadBalancerRegistration = new LoadBalancerRegistration(loadBalancerProviders);
+        loadBalancerRegistration.register(LoadBalancerRegistry.getDefaultRegistry());
+        return loadBalancerRegistration;
+    }
+
     @ConditionalOnMissingBean(GrpcChannelConfigurer.class)
     @Bean
     List<GrpcChannelConfigurer> defaultChannelConfigurers() {
@@ -152,11 +282,17 @@ List<GrpcChannelConfigurer> defaultChannelConfigurers() {
     GrpcChannelFactory inProcessOrShadedNettyGrpcChannelFactory(
             final GrpcChannelsProperties properties,
             final GlobalClientInterceptorRegistry globalClientInterceptorRegistry,
-            final List<GrpcChannelConfigurer> channelConfigurers) {
+            final List<GrpcChannelConfigurer> channelConfigurers,
+            @Autowired(required = false) final ShadedNettyEventLoopGroups eventLoopGroups,
+            @Autowired(required = false) final CertificateReloaderRegistry certificateReloaders,
+            final ManagedChannelPoolRegistry channelPools) {
 
         log.info("Detected grpc-netty-shaded: Creating ShadedNettyChannelFactory + InProcessChannelFactory");
         final ShadedNettyChannelFactory channelFactory =
                 new ShadedNettyChannelFactory(properties, globalClientInterceptorRegistry, channelConfigurers);
+        channelFactory.setEventLoopGroups(eventLoopGroups);
+        channelFactory.setCertificateReloaderRegistry(certificateReloaders);
+        channelFactory.setChannelPoolRegistry(channelPools);
         final InProcessChannelFactory inProcessChannelFactory =
                 new InProcessChannelFactory(properties, globalClientInterceptorRegistry, channelConfigurers);
         return new InProcessOrAlternativeChannelFactory(properties, inProcessChannelFactory, channelFactory);
@@ -171,11 +307,17 @@ GrpcChannelFactory inProcessOrShadedNettyGrpcChannelFactory(
     GrpcChannelFactory inProcessOrNettyGrpcChannelFactory(
             final GrpcChannelsProperties properties,
             final GlobalClientInterceptorRegistry globalClientInterceptorRegistry,
-            final List<GrpcChannelConfigurer> channelConfigurers) {
+            final List<GrpcChannelConfigurer> channelConfigurers,
+            @Autowired(required = false) final NettyEventLoopGroups eventLoopGroups,
+            @Autowired(required = false) final CertificateReloaderRegistry certificateReloaders,
+            final ManagedChannelPoolRegistry channelPools) {
 
         log.info("Detected grpc-netty: Creating NettyChannelFactory + InProcessChannelFactory");
         final NettyChannelFactory channelFactory =
                 new NettyChannelFactory(properties, globalClientInterceptorRegistry, channelConfigurers);
+        channelFactory.setEventLoopGroups(eventLoopGroups);
+        channelFactory.setCertificateReloaderRegistry(certificateReloaders);
+        channelFactory.setChannelPoolRegistry(channelPools);
         final InProcessChannelFactory inProcessChannelFactory =
                 new InProcessChannelFactory(properties, globalClientInterceptorRegistry, channelConfigurers);
         return new InProcessOrAlternativeChannelFactory(properties, inProcessChannelFactory, channelFactory);
@@ -190,10 +332,18 @@ GrpcChannelFactory inProcessOrNettyGrpcChannelFactory(
     GrpcChannelFactory shadedNettyGrpcChannelFactory(
             final GrpcChannelsProperties properties,
             final GlobalClientInterceptorRegistry globalClientInterceptorRegistry,
-            final List<GrpcChannelConfigurer> channelConfigurers) {
+            final List<GrpcChannelConfigurer> channelConfigurers,
+            @Autowired(required = false) final ShadedNettyEventLoopGroups eventLoopGroups,
+            @Autowired(required = false) final CertificateReloaderRegistry certificateReloaders,
+            final ManagedChannelPoolRegistry channelPools) {
 
         log.info("Detected grpc-netty-shaded: Creating ShadedNettyChannelFactory");
-        return new ShadedNettyChannelFactory(properties, globalClientInterceptorRegistry, channelConfigurers);
+        final ShadedNettyChannelFactory channelFactory =
+                new ShadedNettyChannelFactory(properties, globalClientInterceptorRegistry, channelConfigurers);
+        channelFactory.setEventLoopGroups(eventLoopGroups);
+        channelFactory.setCertificateReloaderRegistry(certificateReloaders);
+        channelFactory.setChannelPoolRegistry(channelPools);
+        return channelFactory;
     }
 
     // Then try the normal netty channel factory
@@ -204,10 +354,18 @@ GrpcChannelFactory shadedNettyGrpcChannelFactory(
     GrpcChannelFactory nettyGrpcChannelFactory(
             final GrpcChannelsProperties properties,
             final GlobalClientInterceptorRegistry globalClientInterceptorRegistry,
-            final List<GrpcChannelConfigurer> channelConfigurers) {
+            final List<GrpcChannelConfigurer> channelConfigurers,
+            @Autowired(required = false) final NettyEventLoopGroups eventLoopGroups,
+            @Autowired(required = false) final CertificateReloaderRegistry certificateReloaders,
+            final ManagedChannelPoolRegistry channelPools) {
 
         log.info("Detected grpc-netty: Creating NettyChannelFactory");
-        return new NettyChannelFactory(properties, globalClientInterceptorRegistry, channelConfigurers);
+        final NettyChannelFactory channelFactory =
+                new NettyChannelFactory(properties, globalClientInterceptorRegistry, channelConfigurers);
+        channelFactory.setEventLoopGroups(eventLoopGroups);
+        channelFactory.setCertificateReloaderRegistry(certificateReloaders);
+        channelFactory.setChannelPoolRegistry(channelPools);
+        return channelFactory;
     }
 
     // Finally try the in process channel factory
@@ -16,6 +16,9 @@
 
 package net.devh.boot.grpc.client.autoconfigure;
 
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
@@ -23,6 +26,7 @@
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 
@@ -30,9 +34,22 @@
 
 import io.grpc.ClientInterceptor;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import io.micrometer.core.instrument.binder.grpc.MetricCollectingClientInterceptor;
+import net.devh.boot.grpc.client.cache.ClientRequestCoalescerRegistry;
+import net.devh.boot.grpc.client.cache.ClientResponseCacheRegistry;
+import net.devh.boot.grpc.client.channelfactory.GrpcChannelConfigurer;
+import net.devh.boot.grpc.client.channelfactory.ManagedChannelPoolRegistry;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.MethodConfig;
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
 import net.devh.boot.grpc.client.interceptor.GrpcGlobalClientInterceptor;
+import net.devh.boot.grpc.client.loadbalancer.SubchannelLoadRegistry;
+import net.devh.boot.grpc.client.metrics.MetricsClientAttemptInterceptor;
+import net.devh.boot.grpc.client.metrics.MetricsClientChannelPoolBinder;
+import net.devh.boot.grpc.client.metrics.MetricsClientCoalescingBinder;
 import net.devh.boot.grpc.client.metrics.MetricsClientInterceptor;
+import net.devh.boot.grpc.client.metrics.MetricsClientLoadBalancerBinder;
+import net.devh.boot.grpc.client.metrics.MetricsClientResponseCacheBinder;
 import net.devh.boot.grpc.common.util.InterceptorOrder;
 
 /**
@@ -74,4 +91,70 @@ public MetricsClientInterceptor metricsClientInterceptor(final MeterRegistry reg
         return new MetricsClientInterceptor(registry, Stopwatch::createUnstarted);
     }
 
+    /**
+     * Creates a meter binder that exposes the hit ratio and the sizes of the client response caches.
+     *
+     * @param caches The registry of the caches to monitor.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcClientResponseCacheMeterBinder(final ObjectProvider<ClientResponseCacheRegistry> caches) {
+        return registry -> caches.ifAvailable(
+                cacheRegistry -> new MetricsClientResponseCacheBinder(cacheRegistry).bindTo(registry));
+    }
+
+    /**
+     * Creates a meter binder that monitors the request coalescers of the channels.
+     *
+     * @param coalescers The registry that holds the coalescers, if available.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcClientCoalescingMeterBinder(final ObjectProvider<ClientRequestCoalescerRegistry> coalescers) {
+        return registry -> coalescers.ifAvailable(
+                coalescerRegistry -> new MetricsClientCoalescingBinder(coalescerRegistry).bindTo(registry));
+    }
+
+    /**
+     * Creates a meter binder that monitors the size and utilization of the connection pools of the channels.
+     *
+     * @param pools The registry that holds the pools, if available.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcClientChannelPoolMeterBinder(final ObjectProvider<ManagedChannelPoolRegistry> pools) {
+        return registry -> pools.ifAvailable(
+                poolRegistry -> new MetricsClientChannelPoolBinder(poolRegistry).bindTo(registry));
+    }
+
+    /**
+     * Creates a meter binder that monitors the subchannels of the load aware load balancers.
+     *
+     * @param loads The registry that holds the subchannel loads, if available.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcClientLoadBalancerMeterBinder(final ObjectProvider<SubchannelLoadRegistry> loads) {
+        return registry -> loads.ifAvailable(
+                loadRegistry -> new MetricsClientLoadBalancerBinder(loadRegistry).bindTo(registry));
+    }
+
+    /**
+     * Adds the retry and hedging attempt metrics to all channels that have retry or hedging policies configured.
+     *
+     * @param registry The registry used to create the metrics.
+     * @param properties The properties of the channels.
+     * @return The channel configurer that adds the attempt metrics.
+     */
+    @Bean
+    GrpcChannelConfigurer attemptMetricsChannelConfigurer(final MeterRegistry registry,
+            final GrpcChannelsProperties properties) {
+        return (builder, name) -> {
+            final Map<String, MethodConfig> methodConfig = properties.getChannel(name).getMethodConfig();
+            if (!methodConfig.isEmpty()) {
+                builder.intercept(new MetricsClientAttemptInterceptor(registry, name, methodConfig));
+            }
+        };
+    }
+
 }
@@ -23,7 +23,9 @@
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
 import net.devh.boot.grpc.client.nameresolver.DiscoveryClientResolverFactory;
+import net.devh.boot.grpc.client.serviceconfig.ServiceConfigs;
 
 @Configuration(proxyBeanMethods = false)
 @ConditionalOnBean(DiscoveryClient.class)
@@ -32,8 +34,12 @@ public class GrpcDiscoveryClientAutoConfiguration {
     @ConditionalOnMissingBean
     @Lazy // Not needed for InProcessChannelFactories
     @Bean
-    DiscoveryClientResolverFactory grpcDiscoveryClientResolverFactory(final DiscoveryClient client) {
-        return new DiscoveryClientResolverFactory(client);
+    DiscoveryClientResolverFactory grpcDiscoveryClientResolverFactory(final DiscoveryClient client,
+            final GrpcChannelsProperties properties) {
+        final GrpcChannelsProperties.Discovery discovery = properties.getDiscovery();
+        return new DiscoveryClientResolverFactory(client,
+                serviceName -> ServiceConfigs.forDiscoveredService(properties, serviceName),
+                discovery.getHeartbeatDebounce(), discovery.getMaxConcurrentFetches(), discovery.getRefreshInterval());
     }
 
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.CallOptions;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import net.devh.boot.grpc.common.util.CacheKeyUtils;
+
+/**
+ * The key of a cached response or coalesced call, consisting of the method, the serialized request and optionally some
+ * qualifiers such as header values.
+ */
+final class CacheKey {
+
+    private final String methodName;
+    private final ByteString request;
+    private final List<?> qualifiers;
+    private final int hashCode;
+
+    CacheKey(final String methodName, final ByteString request, final List<?> qualifiers) {
+        this.methodName = methodName;
+        this.request = request;
+        this.qualifiers = qualifiers;
+        this.hashCode = 31 * (31 * methodName.hashCode() + request.hashCode()) + qualifiers.hashCode();
+    }
+
+    /**
+     * Creates the key for the given call. Calls with different credentials, authorities or key headers never share a
+     * key.
+     *
+     * @param <ReqT> The type of the request.
+     * @param method The called method.
+     * @param request The request of the call.
+     * @param keyHeaders The headers that have to match.
+     * @param headers The headers of the call.
+     * @param callOptions The options of the call.
+     * @return The newly created key.
+     */
+    static <ReqT> CacheKey of(final MethodDescriptor<ReqT, ?> method, final ReqT request,
+            final List<Metadata.Key<String>> keyHeaders, final Metadata headers, final CallOptions callOptions) {
+        final List<Object> qualifiers = new ArrayList<>(keyHeaders.size() + 2);
+        qualifiers.addAll(CacheKeyUtils.getHeaderValues(keyHeaders, headers));
+        qualifiers.add(callOptions.getAuthority());
+        qualifiers.add(callOptions.getCredentials());
+        return new CacheKey(method.getFullMethodName(), CacheKeyUtils.serialize(method, request), qualifiers);
+    }
+
+    String getMethodName() {
+        return this.methodName;
+    }
+
+    /**
+     * Gets the approximate number of bytes used by this key.
+     *
+     * @return The approximate size of the key.
+     */
+    int getSize() {
+        return this.methodName.length() + this.request.size();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CacheKey)) {
+            return false;
+        }
+        final CacheKey other = (CacheKey) obj;
+        return this.hashCode == other.hashCode
+                && this.methodName.equals(other.methodName)
+                && this.request.equals(other.request)
+                && this.qualifiers.equals(other.qualifiers);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+}
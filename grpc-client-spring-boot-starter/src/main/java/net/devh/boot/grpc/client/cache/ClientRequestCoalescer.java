@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.common.util.CacheKeyUtils;
+
+/**
+ * Tracks the calls of a single channel that are currently in flight, so that identical concurrent calls can share a
+ * single call to the server.
+ */
+@Slf4j
+public class ClientRequestCoalescer {
+
+    private final String name;
+    private final Set<String> methods;
+    private final List<Metadata.Key<String>> keyHeaders;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Boolean> coalescedByMethod = new ConcurrentHashMap<>();
+    private final ConcurrentMap<CacheKey, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder wireCalls = new LongAdder();
+    private final LongAdder savedCalls = new LongAdder();
+
+    /**
+     * Creates a new ClientRequestCoalescer.
+     *
+     * @param name The name of the channel this coalescer belongs to.
+     * @param options The options used to configure the coalescer.
+     * @param scheduler The scheduler used to enforce the deadlines of the individual callers.
+     */
+    public ClientRequestCoalescer(final String name, final GrpcChannelProperties.Coalescing options,
+            final ScheduledExecutorService scheduler) {
+        this.name = requireNonNull(name, "name");
+        requireNonNull(options, "options");
+        this.methods = new HashSet<>(options.getMethods());
+        this.keyHeaders = CacheKeyUtils.toHeaderKeys(options.getKeyHeaders());
+        this.scheduler = requireNonNull(scheduler, "scheduler");
+    }
+
+    /**
+     * Gets the name of the channel this coalescer belongs to.
+     *
+     * @return The name of the channel.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the total number of calls that have actually been sent to the server.
+     *
+     * @return The number of wire calls.
+     */
+    public long getWireCallCount() {
+        return this.wireCalls.sum();
+    }
+
+    /**
+     * Gets the total number of calls that have been attached to an identical call in flight, instead of being sent to
+     * the server.
+     *
+     * @return The number of saved calls.
+     */
+    public long getSavedCallCount() {
+        return this.savedCalls.sum();
+    }
+
+    /**
+     * Gets the number of distinct calls that are currently in flight.
+     *
+     * @return The number of calls in flight.
+     */
+    public int getInFlightCount() {
+        return this.flights.size();
+    }
+
+    ScheduledExecutorService getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * Checks whether the calls to the given method should be coalesced.
+     *
+     * @param method The method to check.
+     * @return True, if the calls should be coalesced. False otherwise.
+     */
+    boolean isCoalesced(final MethodDescriptor<?, ?> method) {
+        return this.coalescedByMethod.computeIfAbsent(method.getFullMethodName(), fullMethodName -> {
+            if (method.getType() != MethodType.UNARY) {
+                return false;
+            }
+            final String serviceName = method.getServiceName();
+            final boolean coalesced = this.methods.contains(fullMethodName)
+                    || serviceName != null && this.methods.contains(serviceName);
+            if (coalesced && !method.isSafe()) {
+                log.warn("Coalescing calls to {} on channel {}, which isn't marked as side effect free"
+                        + " (NO_SIDE_EFFECTS)", fullMethodName, this.name);
+            }
+            return coalesced;
+        });
+    }
+
+    /**
+     * Creates the key for the given call. Calls with different credentials or authorities never share a key.
+     *
+     * @param <ReqT> The type of the request.
+     * @param method The called method.
+     * @param request The request of the call.
+     * @param headers The headers of the call.
+     * @param callOptions The options of the call.
+     * @return The newly created key.
+     */
+    <ReqT> CacheKey newKey(final MethodDescriptor<ReqT, ?> method, final ReqT request, final Metadata headers,
+            final CallOptions callOptions) {
+        return CacheKey.of(method, request, this.keyHeaders, headers, callOptions);
+    }
+
+    /**
+     * Attaches the given caller to an identical call in flight or starts a new one, if there is none.
+     *
+     * @param key The key of the call.
+     * @param caller The caller to attach.
+     * @param starter The action that sends the actual call to the server, if a new flight has been started.
+     * @return The flight the caller has been attached to.
+     */
+    Flight join(final CacheKey key, final Participant caller, final Consumer<Flight> starter) {
+        for (;;) {
+            Flight flight = this.flights.get(key);
+            if (flight == null) {
+                final Flight created = new Flight(key);
+                created.add(caller);
+                flight = this.flights.putIfAbsent(key, created);
+                if (flight == null) {
+                    this.wireCalls.increment();
+                    starter.accept(created);
+                    return created;
+                }
+            }
+            if (flight.add(caller)) {
+                this.savedCalls.increment();
+                return flight;
+            }
+            // Already completed, but not yet removed
+            this.flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * A caller that waits for the result of a call in flight.
+     */
+    interface Participant {
+
+        /**
+         * Completes the caller with the result of the call.
+         *
+         * @param headers The headers received from the server or null, if there weren't any.
+         * @param response The response received from the server or null, if there wasn't any.
+         * @param status The status the call was closed with.
+         * @param trailers The trailers the call was closed with.
+         */
+        void onResult(@Nullable Metadata headers, @Nullable Object response, Status status, Metadata trailers);
+
+    }
+
+    /**
+     * A call that is currently in flight and the callers waiting for its result. The call is cancelled, once all
+     * callers left.
+     */
+    final class Flight extends ClientCall.Listener<Object> {
+
+        private final CacheKey key;
+        @GuardedBy("this")
+        private final List<Participant> participants = new ArrayList<>();
+        @GuardedBy("this")
+        private boolean finished;
+        @GuardedBy("this")
+        private boolean abandoned;
+        @GuardedBy("this")
+        private ClientCall<?, ?> wireCall;
+        private volatile Metadata headers;
+        private volatile Object response;
+
+        Flight(final CacheKey key) {
+            this.key = key;
+        }
+
+        synchronized boolean add(final Participant participant) {
+            if (this.finished) {
+                return false;
+            }
+            this.participants.add(participant);
+            return true;
+        }
+
+        /**
+         * Removes the given caller from this flight and cancels the call, if it was the last one.
+         *
+         * @param participant The caller that left.
+         */
+        void leave(final Participant participant) {
+            final ClientCall<?, ?> toCancel;
+            synchronized (this) {
+                if (!this.participants.remove(participant) || this.finished || !this.participants.isEmpty()) {
+                    return;
+                }
+                this.finished = true;
+                this.abandoned = true;
+                toCancel = this.wireCall;
+            }
+            ClientRequestCoalescer.this.flights.remove(this.key, this);
+            if (toCancel != null) {
+                toCancel.cancel("All coalesced callers left", null);
+            }
+        }
+
+        /**
+         * Sets the call that has been sent to the server.
+         *
+         * @param call The call sent to the server.
+         */
+        void setWireCall(final ClientCall<?, ?> call) {
+            synchronized (this) {
+                if (!this.abandoned) {
+                    this.wireCall = call;
+                    return;
+                }
+            }
+            call.cancel("All coalesced callers left", null);
+        }
+
+        @Override
+        public void onHeaders(final Metadata headers) {
+            this.headers = headers;
+        }
+
+        @Override
+        public void onMessage(final Object message) {
+            this.response = message;
+        }
+
+        @Override
+        public void onClose(final Status status, final Metadata trailers) {
+            final List<Participant> waiting;
+            synchronized (this) {
+                this.finished = true;
+                waiting = new ArrayList<>(this.participants);
+                this.participants.clear();
+                this.wireCall = null;
+            }
+            ClientRequestCoalescer.this.flights.remove(this.key, this);
+            for (final Participant participant : waiting) {
+                participant.onResult(this.headers, this.response, status, trailers);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.SharedResourceHolder;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
+
+/**
+ * Manages the {@link ClientRequestCoalescer}s of the individual channels. The coalescers are created on demand for all
+ * channels that have coalescing enabled.
+ */
+public class ClientRequestCoalescerRegistry implements AutoCloseable {
+
+    private final GrpcChannelsProperties properties;
+    private final Map<String, Optional<ClientRequestCoalescer>> coalescers = new HashMap<>();
+    private final List<Consumer<ClientRequestCoalescer>> listeners = new ArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new ClientRequestCoalescerRegistry.
+     *
+     * @param properties The properties used to configure the coalescers.
+     */
+    public ClientRequestCoalescerRegistry(final GrpcChannelsProperties properties) {
+        this.properties = requireNonNull(properties, "properties");
+    }
+
+    /**
+     * Gets the coalescer for the given channel, creating it if necessary.
+     *
+     * @param name The name of the channel.
+     * @return The coalescer of the channel or empty, if the channel has coalescing disabled.
+     */
+    public synchronized Optional<ClientRequestCoalescer> getCoalescer(final String name) {
+        return this.coalescers.computeIfAbsent(name, key -> {
+            final GrpcChannelProperties.Coalescing options = this.properties.getChannel(key).getCoalescing();
+            if (!options.isEnabled() || options.getMethods().isEmpty()) {
+                return Optional.empty();
+            }
+            if (this.scheduler == null) {
+                this.scheduler = SharedResourceHolder.get(GrpcUtil.TIMER_SERVICE);
+            }
+            final ClientRequestCoalescer coalescer = new ClientRequestCoalescer(key, options, this.scheduler);
+            for (final Consumer<ClientRequestCoalescer> listener : this.listeners) {
+                listener.accept(coalescer);
+            }
+            return Optional.of(coalescer);
+        });
+    }
+
+    /**
+     * Gets all coalescers that have been created so far.
+     *
+     * @return The coalescers of the channels.
+     */
+    public synchronized Collection<ClientRequestCoalescer> getCoalescers() {
+        final List<ClientRequestCoalescer> result = new ArrayList<>();
+        for (final Optional<ClientRequestCoalescer> coalescer : this.coalescers.values()) {
+            coalescer.ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * Adds a listener that is notified about every newly created coalescer. The listener is immediately notified about
+     * the coalescers that have already been created.
+     *
+     * @param listener The listener to notify.
+     */
+    public synchronized void addListener(final Consumer<ClientRequestCoalescer> listener) {
+        this.listeners.add(requireNonNull(listener, "listener"));
+        for (final ClientRequestCoalescer coalescer : getCoalescers()) {
+            listener.accept(coalescer);
+        }
+    }
+
+    /**
+     * Releases the timer used to enforce the deadlines of the coalesced calls.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.scheduler != null) {
+            this.scheduler = SharedResourceHolder.release(GrpcUtil.TIMER_SERVICE, this.scheduler);
+        }
+    }
+
+}
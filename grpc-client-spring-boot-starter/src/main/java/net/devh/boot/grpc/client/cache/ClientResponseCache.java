@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import com.google.common.base.Ticker;
+import com.google.protobuf.MessageLite;
+
+import io.grpc.CallOptions;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.common.util.CacheKeyUtils;
+
+/**
+ * A size bounded cache for the responses of a single channel. The entries expire after the configured or server
+ * provided max age, but can still be used for a while, if stale-while-revalidate is enabled. Once the cache is full,
+ * the least recently used entries are evicted.
+ */
+@Slf4j
+public class ClientResponseCache {
+
+    /**
+     * The estimated overhead of a cache entry in bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final String name;
+    private final long maxSize;
+    private final long staleWhileRevalidateNanos;
+    private final Map<String, Duration> configuredMaxAges;
+    private final List<Metadata.Key<String>> keyHeaders;
+    private final Map<String, Optional<Duration>> maxAgesByMethod = new ConcurrentHashMap<>();
+    private final Ticker ticker;
+
+    @GuardedBy("entries")
+    private final LinkedHashMap<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("entries")
+    private long weight;
+    private final LongAdder evictions = new LongAdder();
+
+    private final Map<String, MethodStats> statsByMethod = new ConcurrentHashMap<>();
+    private final List<Consumer<MethodStats>> statsListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a new ClientResponseCache.
+     *
+     * @param name The name of the channel this cache belongs to.
+     * @param options The options used to configure the cache.
+     * @param ticker The ticker used to determine the age of the entries.
+     */
+    public ClientResponseCache(final String name, final GrpcChannelProperties.ResponseCache options,
+            final Ticker ticker) {
+        this.name = requireNonNull(name, "name");
+        requireNonNull(options, "options");
+        this.maxSize = options.getMaxSize().toBytes();
+        this.staleWhileRevalidateNanos = options.getStaleWhileRevalidate().toNanos();
+        this.configuredMaxAges = options.getMethods();
+        this.keyHeaders = CacheKeyUtils.toHeaderKeys(options.getKeyHeaders());
+        this.ticker = requireNonNull(ticker, "ticker");
+    }
+
+    /**
+     * Gets the name of the channel this cache belongs to.
+     *
+     * @return The name of the channel.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of entries in this cache.
+     *
+     * @return The number of cached responses.
+     */
+    public long getSize() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * Gets the estimated number of bytes used by the entries of this cache.
+     *
+     * @return The size of the cached entries in bytes.
+     */
+    public long getWeight() {
+        synchronized (this.entries) {
+            return this.weight;
+        }
+    }
+
+    /**
+     * Gets the total number of entries that have been evicted, because the cache was full.
+     *
+     * @return The number of evicted entries.
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Gets the statistics of all methods that have been called through this cache.
+     *
+     * @return The statistics of the cached methods.
+     */
+    public Collection<MethodStats> getMethodStats() {
+        return new ArrayList<>(this.statsByMethod.values());
+    }
+
+    /**
+     * Adds a listener that is notified about every method, that is called through this cache, for the first time. The
+     * listener is immediately notified about the methods that have already been called.
+     *
+     * @param listener The listener to notify.
+     */
+    public synchronized void addMethodStatsListener(final Consumer<MethodStats> listener) {
+        this.statsListeners.add(requireNonNull(listener, "listener"));
+        for (final MethodStats stats : this.statsByMethod.values()) {
+            listener.accept(stats);
+        }
+    }
+
+    /**
+     * Invalidates all entries of this cache.
+     */
+    public void invalidateAll() {
+        synchronized (this.entries) {
+            this.entries.clear();
+            this.weight = 0;
+        }
+    }
+
+    /**
+     * Gets the configured max age for the responses of the given method.
+     *
+     * @param method The method to get the max age for.
+     * @return The configured max age or null, if the method should not be cached.
+     */
+    @Nullable
+    Duration getMaxAge(final MethodDescriptor<?, ?> method) {
+        return this.maxAgesByMethod.computeIfAbsent(method.getFullMethodName(), fullMethodName -> {
+            if (method.getType() != MethodType.UNARY) {
+                return Optional.empty();
+            }
+            Duration maxAge = this.configuredMaxAges.get(fullMethodName);
+            if (maxAge == null) {
+                final String serviceName = method.getServiceName();
+                maxAge = serviceName == null ? null : this.configuredMaxAges.get(serviceName);
+            }
+            if (maxAge != null && !method.isSafe()) {
+                log.warn("Caching responses of {} on channel {}, which isn't marked as side effect free"
+                        + " (NO_SIDE_EFFECTS)", fullMethodName, this.name);
+            }
+            return Optional.ofNullable(maxAge);
+        }).orElse(null);
+    }
+
+    /**
+     * Gets the statistics for the given method and creates them if necessary.
+     *
+     * @param fullMethodName The full name of the method.
+     * @return The statistics of the method.
+     */
+    MethodStats statsFor(final String fullMethodName) {
+        final MethodStats existing = this.statsByMethod.get(fullMethodName);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (this) {
+            return this.statsByMethod.computeIfAbsent(fullMethodName, methodName -> {
+                final MethodStats stats = new MethodStats(this.name, methodName);
+                for (final Consumer<MethodStats> listener : this.statsListeners) {
+                    listener.accept(stats);
+                }
+                return stats;
+            });
+        }
+    }
+
+    /**
+     * Creates the cache key for the given request. Calls with different credentials, authorities or key headers never
+     * share a cached response.
+     *
+     * @param <ReqT> The type of the request.
+     * @param method The called method.
+     * @param request The request of the call.
+     * @param headers The headers of the call.
+     * @param callOptions The options of the call.
+     * @return The newly created cache key.
+     */
+    <ReqT> CacheKey newKey(final MethodDescriptor<ReqT, ?> method, final ReqT request, final Metadata headers,
+            final CallOptions callOptions) {
+        return CacheKey.of(method, request, this.keyHeaders, headers, callOptions);
+    }
+
+    /**
+     * Gets the usable entry for the given key. The returned entry might be stale.
+     *
+     * @param key The key to get the entry for.
+     * @return The usable entry or null, if there is none.
+     */
+    @Nullable
+    Entry get(final CacheKey key) {
+        final long now = this.ticker.read();
+        synchronized (this.entries) {
+            final Entry entry = this.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (now - entry.staleUntil >= 0) {
+                this.entries.remove(key);
+                this.weight -= entry.weight;
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Stores the given response in the cache.
+     *
+     * @param key The key of the response.
+     * @param response The response to store.
+     * @param maxAge The time the response may be used.
+     */
+    void put(final CacheKey key, final Object response, final Duration maxAge) {
+        final long size = (long) ENTRY_OVERHEAD + key.getSize()
+                + (response instanceof MessageLite ? ((MessageLite) response).getSerializedSize() : 0);
+        if (size > this.maxSize || maxAge.isNegative() || maxAge.isZero()) {
+            return;
+        }
+        final long expiresAt = this.ticker.read() + maxAge.toNanos();
+        final Entry entry = new Entry(response, size, expiresAt, expiresAt + this.staleWhileRevalidateNanos);
+        synchronized (this.entries) {
+            final Entry previous = this.entries.put(key, entry);
+            if (previous != null) {
+                this.weight -= previous.weight;
+            }
+            this.weight += size;
+            final Iterator<Entry> it = this.entries.values().iterator();
+            while (this.weight > this.maxSize && it.hasNext()) {
+                this.weight -= it.next().weight;
+                it.remove();
+                this.evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Checks whether the given entry is still fresh.
+     *
+     * @param entry The entry to check.
+     * @return True, if the entry is fresh. False, if it is stale.
+     */
+    boolean isFresh(final Entry entry) {
+        return this.ticker.read() - entry.expiresAt < 0;
+    }
+
+    /**
+     * A cached response.
+     */
+    static final class Entry {
+
+        private final Object response;
+        private final long weight;
+        private final long expiresAt;
+        private final long staleUntil;
+        private final AtomicBoolean revalidating = new AtomicBoolean();
+
+        Entry(final Object response, final long weight, final long expiresAt, final long staleUntil) {
+            this.response = response;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+            this.staleUntil = staleUntil;
+        }
+
+        Object getResponse() {
+            return this.response;
+        }
+
+        /**
+         * Marks this entry as being revalidated.
+         *
+         * @return True, if the caller should revalidate the entry. False, if it is already being revalidated.
+         */
+        boolean startRevalidation() {
+            return this.revalidating.compareAndSet(false, true);
+        }
+
+        void finishRevalidation() {
+            this.revalidating.set(false);
+        }
+
+    }
+
+    /**
+     * The cache statistics of a single method.
+     */
+    public static final class MethodStats {
+
+        private final String cacheName;
+        private final String methodName;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder staleHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        MethodStats(final String cacheName, final String methodName) {
+            this.cacheName = cacheName;
+            this.methodName = methodName;
+        }
+
+        /**
+         * Gets the name of the cache the statistics belong to.
+         *
+         * @return The name of the cache.
+         */
+        public String getCacheName() {
+            return this.cacheName;
+        }
+
+        /**
+         * Gets the full name of the method the statistics belong to.
+         *
+         * @return The full name of the method.
+         */
+        public String getMethodName() {
+            return this.methodName;
+        }
+
+        /**
+         * Gets the number of calls that have been answered with a fresh response from the cache.
+         *
+         * @return The number of fresh cache hits.
+         */
+        public long getHitCount() {
+            return this.hits.sum();
+        }
+
+        /**
+         * Gets the number of calls that have been answered with a stale response from the cache, while it was
+         * refreshed in the background.
+         *
+         * @return The number of stale cache hits.
+         */
+        public long getStaleHitCount() {
+            return this.staleHits.sum();
+        }
+
+        /**
+         * Gets the number of calls that have been sent to the server.
+         *
+         * @return The number of cache misses.
+         */
+        public long getMissCount() {
+            return this.misses.sum();
+        }
+
+        /**
+         * Gets the ratio of calls that have been answered from the cache.
+         *
+         * @return The hit ratio between 0 and 1 or {@code NaN}, if there haven't been any calls yet.
+         */
+        public double getHitRatio() {
+            final long cached = getHitCount() + getStaleHitCount();
+            final long total = cached + getMissCount();
+            return total == 0 ? Double.NaN : (double) cached / total;
+        }
+
+        void recordHit() {
+            this.hits.increment();
+        }
+
+        void recordStaleHit() {
+            this.staleHits.increment();
+        }
+
+        void recordMiss() {
+            this.misses.increment();
+        }
+
+    }
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import com.google.common.base.Ticker;
+
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.SharedResourceHolder;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
+
+/**
+ * Manages the {@link ClientResponseCache}s of the individual channels. The caches are created on demand for all
+ * channels that have the response cache enabled.
+ */
+public class ClientResponseCacheRegistry implements AutoCloseable {
+
+    private final GrpcChannelsProperties properties;
+    private final Ticker ticker;
+    private final Map<String, Optional<ClientResponseCache>> caches = new HashMap<>();
+    private final List<Consumer<ClientResponseCache>> listeners = new ArrayList<>();
+    private Executor executor;
+
+    /**
+     * Creates a new ClientResponseCacheRegistry.
+     *
+     * @param properties The properties used to configure the caches.
+     */
+    public ClientResponseCacheRegistry(final GrpcChannelsProperties properties) {
+        this(properties, Ticker.systemTicker());
+    }
+
+    /**
+     * Creates a new ClientResponseCacheRegistry.
+     *
+     * @param properties The properties used to configure the caches.
+     * @param ticker The ticker used to determine the age of the entries.
+     */
+    public ClientResponseCacheRegistry(final GrpcChannelsProperties properties, final Ticker ticker) {
+        this.properties = requireNonNull(properties, "properties");
+        this.ticker = requireNonNull(ticker, "ticker");
+    }
+
+    /**
+     * Gets the cache for the given channel, creating it if necessary.
+     *
+     * @param name The name of the channel.
+     * @return The cache of the channel or empty, if the channel has the response cache disabled.
+     */
+    public synchronized Optional<ClientResponseCache> getCache(final String name) {
+        return this.caches.computeIfAbsent(name, key -> {
+            final GrpcChannelProperties.ResponseCache options = this.properties.getChannel(key).getResponseCache();
+            if (!options.isEnabled() || options.getMethods().isEmpty()) {
+                return Optional.empty();
+            }
+            final ClientResponseCache cache = new ClientResponseCache(key, options, this.ticker);
+            for (final Consumer<ClientResponseCache> listener : this.listeners) {
+                listener.accept(cache);
+            }
+            return Optional.of(cache);
+        });
+    }
+
+    /**
+     * Gets all caches that have been created so far.
+     *
+     * @return The caches of the channels.
+     */
+    public synchronized Collection<ClientResponseCache> getCaches() {
+        final List<ClientResponseCache> result = new ArrayList<>();
+        for (final Optional<ClientResponseCache> cache : this.caches.values()) {
+            cache.ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * Adds a listener that is notified about every newly created cache. The listener is immediately notified about the
+     * caches that have already been created.
+     *
+     * @param listener The listener to notify.
+     */
+    public synchronized void addListener(final Consumer<ClientResponseCache> listener) {
+        this.listeners.add(requireNonNull(listener, "listener"));
+        for (final ClientResponseCache cache : getCaches()) {
+            listener.accept(cache);
+        }
+    }
+
+    /**
+     * Gets the executor used to notify the listeners of cached calls, that don't have an executor of their own. This
+     * is gRPC's shared executor, which is the default executor of the channels. It is acquired once and released when
+     * this registry is closed.
+     *
+     * @return The executor used to deliver cached responses.
+     */
+    public synchronized Executor getExecutor() {
+        if (this.executor == null) {
+            this.executor = SharedResourceHolder.get(GrpcUtil.SHARED_CHANNEL_EXECUTOR);
+        }
+        return this.executor;
+    }
+
+    /**
+     * Invalidates all entries of all caches.
+     */
+    public void invalidateAll() {
+        for (final ClientResponseCache cache : getCaches()) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Releases the executor used to deliver cached responses.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.executor != null) {
+            this.executor = SharedResourceHolder.release(GrpcUtil.SHARED_CHANNEL_EXECUTOR, this.executor);
+        }
+    }
+
+}
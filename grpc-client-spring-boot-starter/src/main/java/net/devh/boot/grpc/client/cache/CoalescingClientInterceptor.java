@@ -0,0 +1,316 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+
+import javax.annotation.Nullable;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import net.devh.boot.grpc.client.cache.ClientRequestCoalescer.Flight;
+import net.devh.boot.grpc.client.cache.ClientRequestCoalescer.Participant;
+
+/**
+ * A client interceptor that lets identical concurrent calls to the configured unary methods share a single call to the
+ * server. Every caller keeps its own deadline and cancellation. The shared call is only cancelled, once all callers
+ * left.
+ */
+public class CoalescingClientInterceptor implements ClientInterceptor {
+
+    private final ClientRequestCoalescer coalescer;
+
+    /**
+     * Creates a new CoalescingClientInterceptor.
+     *
+     * @param coalescer The coalescer that tracks the calls in flight.
+     */
+    public CoalescingClientInterceptor(final ClientRequestCoalescer coalescer) {
+        this.coalescer = requireNonNull(coalescer, "coalescer");
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(final MethodDescriptor<ReqT, RespT> method,
+            final CallOptions callOptions, final Channel next) {
+        if (!this.coalescer.isCoalesced(method)) {
+            return next.newCall(method, callOptions);
+        }
+        return new CoalescingClientCall<>(this.coalescer, method, callOptions, next);
+    }
+
+    /**
+     * A client call that delays the start of the actual call, until the request is known, so that it can be attached
+     * to an identical call in flight instead.
+     */
+    private static final class CoalescingClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT>
+            implements Participant, Context.CancellationListener {
+
+        private final ClientRequestCoalescer coalescer;
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final CallOptions callOptions;
+        private final Channel next;
+
+        private Listener<RespT> listener;
+        private Metadata headers;
+        private int requested;
+        private Boolean messageCompression;
+        private ReqT request;
+        private ClientCall<ReqT, RespT> delegate;
+        private Flight flight;
+        private Context context;
+        private ScheduledFuture<?> deadlineTimer;
+        private boolean completed;
+
+        CoalescingClientCall(final ClientRequestCoalescer coalescer, final MethodDescriptor<ReqT, RespT> method,
+                final CallOptions callOptions, final Channel next) {
+            this.coalescer = coalescer;
+            this.method = method;
+            this.callOptions = callOptions;
+            this.next = next;
+        }
+
+        @Override
+        public void start(final Listener<RespT> responseListener, final Metadata headers) {
+            this.listener = responseListener;
+            this.headers = headers;
+        }
+
+        @Override
+        public void request(final int numMessages) {
+            if (this.delegate != null) {
+                this.delegate.request(numMessages);
+            } else {
+                this.requested += numMessages;
+            }
+        }
+
+        @Override
+        public void cancel(@Nullable final String message, @Nullable final Throwable cause) {
+            if (this.delegate != null) {
+                this.delegate.cancel(message, cause);
+            } else if (this.listener != null) {
+                leave(Status.CANCELLED.withDescription(message).withCause(cause));
+            }
+        }
+
+        @Override
+        public void halfClose() {
+            if (this.delegate != null) {
+                this.delegate.halfClose();
+                return;
+            }
+            if (this.request == null) {
+                startDelegate();
+                this.delegate.halfClose();
+                return;
+            }
+            synchronized (this) {
+                if (this.completed) {
+                    return;
+                }
+            }
+
+            this.context = Context.current();
+            if (this.context.isCancelled()) {
+                leave(Contexts.statusFromCancelled(this.context));
+                return;
+            }
+            final CacheKey key = this.coalescer.newKey(this.method, this.request, this.headers, this.callOptions);
+            final Flight joined = this.coalescer.join(key, this, this::startWireCall);
+            final Deadline deadline = this.callOptions.getDeadline();
+            synchronized (this) {
+                if (this.completed) {
+                    return;
+                }
+                this.flight = joined;
+                if (deadline != null) {
+                    this.deadlineTimer = deadline.runOnExpiration(
+                            () -> leave(Status.DEADLINE_EXCEEDED.withDescription("Deadline exceeded after "
+                                    + deadline + " while waiting for a coalesced call")),
+                            this.coalescer.getScheduler());
+                }
+                this.context.addListener(this, MoreExecutors.directExecutor());
+            }
+        }
+
+        @Override
+        public void sendMessage(final ReqT message) {
+            if (this.delegate != null) {
+                this.delegate.sendMessage(message);
+            } else if (this.request == null) {
+                this.request = message;
+            } else {
+                // Not a unary call after all
+                startDelegate();
+                this.delegate.sendMessage(this.request);
+                this.delegate.sendMessage(message);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return this.delegate == null ? this.request == null : this.delegate.isReady();
+        }
+
+        @Override
+        public void setMessageCompression(final boolean enabled) {
+            if (this.delegate != null) {
+                this.delegate.setMessageCompression(enabled);
+            } else {
+                this.messageCompression = enabled;
+            }
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return this.delegate == null ? Attributes.EMPTY : this.delegate.getAttributes();
+        }
+
+        @Override
+        public void cancelled(final Context context) {
+            leave(Contexts.statusFromCancelled(context));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onResult(@Nullable final Metadata responseHeaders, @Nullable final Object response,
+                final Status status, final Metadata trailers) {
+            if (!complete()) {
+                return;
+            }
+            final Listener<RespT> target = this.listener;
+            executor().execute(() -> {
+                if (responseHeaders != null) {
+                    target.onHeaders(copyOf(responseHeaders));
+                }
+                if (response != null) {
+                    target.onMessage((RespT) response);
+                }
+                target.onClose(status, copyOf(trailers));
+            });
+        }
+
+        /**
+         * Stops waiting for the shared call and closes this call with the given status.
+         *
+         * @param status The status to close this call with.
+         */
+        private void leave(final Status status) {
+            if (!complete()) {
+                return;
+            }
+            final Flight left;
+            synchronized (this) {
+                left = this.flight;
+            }
+            if (left != null) {
+                left.leave(this);
+            }
+            final Listener<RespT> target = this.listener;
+            executor().execute(() -> target.onClose(status, new Metadata()));
+        }
+
+        /**
+         * Marks this call as completed and releases the resources bound to the caller.
+         *
+         * @return True, if the call has been completed by this invocation. False, if it has already been completed.
+         */
+        private boolean complete() {
+            final ScheduledFuture<?> timer;
+            synchronized (this) {
+                if (this.completed) {
+                    return false;
+                }
+                this.completed = true;
+                timer = this.deadlineTimer;
+            }
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (this.context != null) {
+                this.context.removeListener(this);
+            }
+            return true;
+        }
+
+        /**
+         * Sends the shared call to the server. The shared call is neither bound to the deadline, nor the executor, nor
+         * the cancellation of the caller that started it.
+         *
+         * @param started The flight the call belongs to.
+         */
+        @SuppressWarnings("unchecked")
+        private void startWireCall(final Flight started) {
+            final Context forked = Context.current().fork();
+            final Context previous = forked.attach();
+            try {
+                final ClientCall<ReqT, RespT> call =
+                        this.next.newCall(this.method, this.callOptions.withDeadline(null).withExecutor(null));
+                call.start((Listener<RespT>) (Listener<?>) started, copyOf(this.headers));
+                if (this.messageCompression != null) {
+                    call.setMessageCompression(this.messageCompression);
+                }
+                call.request(2);
+                call.sendMessage(this.request);
+                call.halfClose();
+                started.setWireCall(call);
+            } catch (final RuntimeException e) {
+                started.onClose(Status.fromThrowable(e), new Metadata());
+            } finally {
+                forked.detach(previous);
+            }
+        }
+
+        private void startDelegate() {
+            this.delegate = this.next.newCall(this.method, this.callOptions);
+            this.delegate.start(this.listener, this.headers);
+            if (this.messageCompression != null) {
+                this.delegate.setMessageCompression(this.messageCompression);
+            }
+            if (this.requested > 0) {
+                this.delegate.request(this.requested);
+            }
+        }
+
+        private Executor executor() {
+            final Executor executor = this.callOptions.getExecutor();
+            return executor == null ? MoreExecutors.directExecutor() : executor;
+        }
+
+        private static Metadata copyOf(final Metadata metadata) {
+            final Metadata copy = new Metadata();
+            copy.merge(metadata);
+            return copy;
+        }
+
+    }
+
+}
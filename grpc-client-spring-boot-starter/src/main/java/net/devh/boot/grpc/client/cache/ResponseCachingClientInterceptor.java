@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+import javax.annotation.Nullable;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.internal.SerializingExecutor;
+import net.devh.boot.grpc.client.cache.ClientResponseCache.Entry;
+import net.devh.boot.grpc.client.cache.ClientResponseCache.MethodStats;
+
+/**
+ * A client interceptor that answers repeated calls to the configured unary methods from a {@link ClientResponseCache}.
+ * Cached calls never reach the server. Only successful responses are cached. The server can override the configured
+ * max age of a response using a {@code cache-control} header with a {@code max-age}, {@code no-cache} or
+ * {@code no-store} directive.
+ *
+ * <p>
+ * If stale-while-revalidate is enabled, then expired responses are still used for a while, but refreshed in the
+ * background, so that the callers don't have to wait for the server.
+ * </p>
+ */
+public class ResponseCachingClientInterceptor implements ClientInterceptor {
+
+    /**
+     * The header the server can use to control the caching of its responses.
+     */
+    public static final Metadata.Key<String> CACHE_CONTROL_KEY =
+            Metadata.Key.of("cache-control", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final ClientResponseCache cache;
+    private final Executor executor;
+
+    /**
+     * Creates a new ResponseCachingClientInterceptor.
+     *
+     * @param cache The cache to store the responses in.
+     * @param executor The executor used to notify the listeners of cached calls, that don't have an executor of their
+     *        own. Like a real call, a cached call never notifies its listener on the caller's thread.
+     */
+    public ResponseCachingClientInterceptor(final ClientResponseCache cache, final Executor executor) {
+        this.cache = requireNonNull(cache, "cache");
+        this.executor = requireNonNull(executor, "executor");
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(final MethodDescriptor<ReqT, RespT> method,
+            final CallOptions callOptions, final Channel next) {
+        final Duration maxAge = this.cache.getMaxAge(method);
+        if (maxAge == null) {
+            return next.newCall(method, callOptions);
+        }
+        return new CachingClientCall<>(this.cache, method, callOptions, next, maxAge, this.executor);
+    }
+
+    /**
+     * Parses the max age from the given {@code cache-control} header.
+     *
+     * @param headers The headers to get the max age from.
+     * @return The max age sent by the server, zero if the response must not be cached or null if the server didn't
+     *         send any directives.
+     */
+    @Nullable
+    static Duration parseMaxAge(final Metadata headers) {
+        final String cacheControl = headers.get(CACHE_CONTROL_KEY);
+        if (cacheControl == null) {
+            return null;
+        }
+        for (final String directive : cacheControl.split(",")) {
+            final String trimmed = directive.trim().toLowerCase(Locale.ROOT);
+            if (trimmed.equals("no-store") || trimmed.equals("no-cache")) {
+                return Duration.ZERO;
+            } else if (trimmed.startsWith("max-age=")) {
+                try {
+                    return Duration.ofSeconds(Long.parseLong(trimmed.substring("max-age=".length())));
+                } catch (final NumberFormatException e) {
+                    return Duration.ZERO;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A client call that delays the start of the actual call, until the request is known, so that it can be answered
+     * from the cache instead.
+     */
+    private static final class CachingClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        private final ClientResponseCache cache;
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final CallOptions callOptions;
+        private final Channel next;
+        private final Duration maxAge;
+        private final Executor executor;
+
+        private Listener<RespT> listener;
+        private Metadata headers;
+        private int requested;
+        private Boolean messageCompression;
+        private ReqT request;
+        private ClientCall<ReqT, RespT> delegate;
+        private CachedResponder<RespT> responder;
+        private boolean completed;
+
+        CachingClientCall(final ClientResponseCache cache, final MethodDescriptor<ReqT, RespT> method,
+                final CallOptions callOptions, final Channel next, final Duration maxAge, final Executor executor) {
+            this.cache = cache;
+            this.method = method;
+            this.callOptions = callOptions;
+            this.next = next;
+            this.maxAge = maxAge;
+            final Executor callExecutor = callOptions.getExecutor();
+            this.executor = callExecutor == null ? executor : callExecutor;
+        }
+
+        @Override
+        public void start(final Listener<RespT> responseListener, final Metadata headers) {
+            this.listener = responseListener;
+            this.headers = headers;
+        }
+
+        @Override
+        public void request(final int numMessages) {
+            if (this.delegate != null) {
+                this.delegate.request(numMessages);
+            } else if (this.responder != null) {
+                this.responder.request(numMessages);
+            } else {
+                this.requested += numMessages;
+            }
+        }
+
+        @Override
+        public void cancel(@Nullable final String message, @Nullable final Throwable cause) {
+            final Status status = Status.CANCELLED.withDescription(message).withCause(cause);
+            if (this.delegate != null) {
+                this.delegate.cancel(message, cause);
+            } else if (this.responder != null) {
+                this.responder.cancel(status);
+            } else if (!this.completed && this.listener != null) {
+                this.completed = true;
+                final Listener<RespT> target = this.listener;
+                this.executor.execute(() -> target.onClose(status, new Metadata()));
+            }
+        }
+
+        @Override
+        public void halfClose() {
+            if (this.delegate != null) {
+                this.delegate.halfClose();
+                return;
+            }
+            if (this.completed) {
+                return;
+            }
+            if (this.request == null) {
+                startDelegate(this.listener);
+                this.delegate.halfClose();
+                return;
+            }
+
+            final MethodStats stats = this.cache.statsFor(this.method.getFullMethodName());
+            final CacheKey key = this.cache.newKey(this.method, this.request, this.headers, this.callOptions);
+            final Entry entry = this.cache.get(key);
+            if (entry != null) {
+                if (this.cache.isFresh(entry)) {
+                    stats.recordHit();
+                } else {
+                    stats.recordStaleHit();
+                    revalidate(key, entry);
+                }
+                respond(entry.getResponse());
+                return;
+            }
+
+            stats.recordMiss();
+            startDelegate(new StoringListener<>(this.cache, this.listener, key, this.maxAge, null));
+            this.delegate.sendMessage(this.request);
+            this.delegate.halfClose();
+        }
+
+        @Override
+        public void sendMessage(final ReqT message) {
+            if (this.delegate != null) {
+                this.delegate.sendMessage(message);
+            } else if (this.request == null) {
+                this.request = message;
+            } else {
+                // Not a unary call after all
+                startDelegate(this.listener);
+                this.delegate.sendMessage(this.request);
+                this.delegate.sendMessage(message);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return this.delegate == null ? !this.completed : this.delegate.isReady();
+        }
+
+        @Override
+        public void setMessageCompression(final boolean enabled) {
+            if (this.delegate != null) {
+                this.delegate.setMessageCompression(enabled);
+            } else {
+                this.messageCompression = enabled;
+            }
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return this.delegate == null ? Attributes.EMPTY : this.delegate.getAttributes();
+        }
+
+        private void startDelegate(final Listener<RespT> responseListener) {
+            this.delegate = this.next.newCall(this.method, this.callOptions);
+            this.delegate.start(responseListener, this.headers);
+            if (this.messageCompression != null) {
+                this.delegate.setMessageCompression(this.messageCompression);
+            }
+            if (this.requested > 0) {
+                this.delegate.request(this.requested);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void respond(final Object response) {
+            this.completed = true;
+            this.responder = new CachedResponder<>(this.listener, (RespT) response, this.executor);
+            this.responder.start(this.requested);
+        }
+
+        /**
+         * Refreshes the given stale entry in the background. The refresh is neither bound to the caller's executor
+         * nor to its cancellation.
+         *
+         * @param key The key of the entry.
+         * @param entry The stale entry to refresh.
+         */
+        private void revalidate(final CacheKey key, final Entry entry) {
+            if (!entry.startRevalidation()) {
+                return;
+            }
+            final Metadata revalidationHeaders = new Metadata();
+            revalidationHeaders.merge(this.headers);
+            final Context context = Context.current().fork();
+            final Context previous = context.attach();
+            try {
+                final ClientCall<ReqT, RespT> call =
+                        this.next.newCall(this.method, this.callOptions.withExecutor(null));
+                call.start(new StoringListener<>(this.cache, new Listener<RespT>() {}, key, this.maxAge,
+                        entry::finishRevalidation), revalidationHeaders);
+                call.request(1);
+                call.sendMessage(this.request);
+                call.halfClose();
+            } catch (final RuntimeException e) {
+                entry.finishRevalidation();
+                throw e;
+            } finally {
+                context.detach(previous);
+            }
+        }
+
+    }
+
+    /**
+     * Replays a cached response to the listener of a call. Like a real call, the response is only delivered once the
+     * caller requested it and the listener is notified serially, but never on the caller's thread.
+     */
+    private static final class CachedResponder<RespT> {
+
+        private final ClientCall.Listener<RespT> listener;
+        private final RespT response;
+        private final Executor executor;
+
+        // Only accessed on the executor
+        private long demand;
+        private boolean closed;
+
+        CachedResponder(final ClientCall.Listener<RespT> listener, final RespT response, final Executor executor) {
+            this.listener = listener;
+            this.response = response;
+            this.executor = new SerializingExecutor(executor);
+        }
+
+        void start(final int requested) {
+            this.executor.execute(() -> {
+                this.listener.onHeaders(new Metadata());
+                this.demand += requested;
+                respondIfRequested();
+            });
+        }
+
+        void request(final int numMessages) {
+            this.executor.execute(() -> {
+                this.demand += numMessages;
+                respondIfRequested();
+            });
+        }
+
+        void cancel(final Status status) {
+            this.executor.execute(() -> {
+                if (!this.closed) {
+                    this.closed = true;
+                    this.listener.onClose(status, new Metadata());
+                }
+            });
+        }
+
+        private void respondIfRequested() {
+            if (this.closed || this.demand <= 0) {
+                return;
+            }
+            this.closed = true;
+            this.listener.onMessage(this.response);
+            this.listener.onClose(Status.OK, new Metadata());
+        }
+
+    }
+
+    /**
+     * A listener that stores successful responses in the cache.
+     */
+    private static final class StoringListener<RespT> extends SimpleForwardingClientCallListener<RespT> {
+
+        private final ClientResponseCache cache;
+        private final CacheKey key;
+        private final Duration configuredMaxAge;
+        @Nullable
+        private final Runnable onClose;
+        private Duration serverMaxAge;
+        private RespT response;
+
+        StoringListener(final ClientResponseCache cache, final ClientCall.Listener<RespT> delegate,
+                final CacheKey key, final Duration configuredMaxAge, @Nullable final Runnable onClose) {
+            super(delegate);
+            this.cache = cache;
+            this.key = key;
+            this.configuredMaxAge = configuredMaxAge;
+            this.onClose = onClose;
+        }
+
+        @Override
+        public void onHeaders(final Metadata headers) {
+            this.serverMaxAge = parseMaxAge(headers);
+            super.onHeaders(headers);
+        }
+
+        @Override
+        public void onMessage(final RespT message) {
+            this.response = message;
+            super.onMessage(message);
+        }
+
+        @Override
+        public void onClose(final Status status, final Metadata trailers) {
+            try {
+                if (status.isOk() && this.response != null) {
+                    Duration maxAge = this.serverMaxAge;
+                    if (maxAge == null) {
+                        maxAge = parseMaxAge(trailers);
+                    }
+                    this.cache.put(this.key, this.response, maxAge == null ? this.configuredMaxAge : maxAge);
+                }
+            } finally {
+                if (this.onClose != null) {
+                    this.onClose.run();
+                }
+            }
+            super.onClose(status, trailers);
+        }
+
+    }
+
+}
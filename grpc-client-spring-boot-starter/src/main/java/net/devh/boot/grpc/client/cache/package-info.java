@@ -0,0 +1,6 @@
+/**
+ * Contains the client side response cache that answers repeated calls to methods without side effects from memory and
+ * the request coalescing that lets identical concurrent calls share a single call to the server.
+ */
+
+package net.devh.boot.grpc.client.cache;
@@ -20,6 +20,9 @@
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -32,6 +35,7 @@
 
 import javax.annotation.concurrent.GuardedBy;
 
+import org.springframework.core.io.Resource;
 import org.springframework.util.unit.DataSize;
 
 import com.google.common.collect.Lists;
@@ -49,6 +53,12 @@
 import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
 import net.devh.boot.grpc.client.config.NegotiationType;
 import net.devh.boot.grpc.client.interceptor.GlobalClientInterceptorRegistry;
+import net.devh.boot.grpc.client.interceptor.ZeroCopyClientInterceptor;
+import net.devh.boot.grpc.client.serviceconfig.ServiceConfigs;
+import net.devh.boot.grpc.common.security.CertificateReloader;
+import net.devh.boot.grpc.common.security.CertificateReloader.KeyStoreLoader;
+import net.devh.boot.grpc.common.security.CertificateReloaderRegistry;
+import net.devh.boot.grpc.common.security.KeyStoreUtils;
 
 /**
  * This abstract channel factory contains some shared code for other {@link GrpcChannelFactory}s. This class utilizes
@@ -74,6 +84,9 @@
     private final Map<String, ManagedChannel> channels = new ConcurrentHashMap<>();
     private final Map<String, ConnectivityState> channelStates = new ConcurrentHashMap<>();
     private boolean shutdown = false;
+    private CertificateReloaderRegistry certificateReloaders;
+    private ManagedChannelPoolRegistry channelPools;
+    private final ZeroCopyClientInterceptor zeroCopyInterceptor = new ZeroCopyClientInterceptor();
 
     /**
      * Creates a new AbstractChannelFactory with eager initialized references.
@@ -126,17 +139,27 @@ public Channel createChannel(final String name, final List<ClientInterceptor> cu
     /**
      * Creates a new {@link ManagedChannel} for the given client name. The name will be used to determine the properties
      * for the new channel. The calling method is responsible for lifecycle management of the created channel.
-     * ManagedChannels should be reused if possible to allow connection reuse.
+     * ManagedChannels should be reused if possible to allow connection reuse. If the channel has a connection pool
+     * configured, the returned channel is a {@link ManagedChannelPool}.
      *
      * @param name The name to create the channel for.
      * @return The newly created channel.
+     * @see #buildManagedChannel(String)
      * @see #newChannelBuilder(String)
      * @see #configure(ManagedChannelBuilder, String)
      */
     protected ManagedChannel newManagedChannel(final String name) {
-        final T builder = newChannelBuilder(name);
-        configure(builder, name);
-        final ManagedChannel channel = builder.build();
+        final GrpcChannelProperties.Connections connections = getPropertiesFor(name).getConnections();
+        final ManagedChannel channel;
+        if (connections.isPooled()) {
+            final ManagedChannelPool pool = new ManagedChannelPool(name, connections, () -> buildManagedChannel(name));
+            if (this.channelPools != null) {
+                this.channelPools.register(pool);
+            }
+            channel = pool;
+        } else {
+            channel = buildManagedChannel(name);
+        }
         final Duration timeout = this.properties.getChannel(name).getImmediateConnectTimeout();
         if (!timeout.isZero()) {
             connectOnStartup(name, channel, timeout);
@@ -145,6 +168,19 @@ protected ManagedChannel newManagedChannel(final String name) {
         return channel;
     }
 
+    /**
+     * Creates and configures a single {@link ManagedChannel} for the given client name. If the channel uses a
+     * {@link GrpcChannelProperties#getConnections() connection pool}, this is called for every channel in the pool.
+     *
+     * @param name The name to create the channel for.
+     * @return The newly created channel.
+     */
+    protected ManagedChannel buildManagedChannel(final String name) {
+        final T builder = newChannelBuilder(name);
+        configure(builder, name);
+        return builder.build();
+    }
+
     /**
      * Gets the channel properties for the given client name.
      *
@@ -181,7 +217,10 @@ protected void configure(final T builder, final String name) {
         configureKeepAlive(builder, name);
         configureSecurity(builder, name);
         configureLimits(builder, name);
+        configureFlowControl(builder, name);
+        configureMarshalling(builder, name);
         configureUserAgent(builder, name);
+        configureServiceConfig(builder, name);
         for (final GrpcChannelConfigurer channelConfigurer : this.channelConfigurers) {
             channelConfigurer.accept(builder, name);
         }
@@ -222,6 +261,93 @@ protected void configureSecurity(final T builder, final String name) {
         }
     }
 
+    /**
+     * Creates a new {@link CertificateReloader} for the given client that watches the configured certificate files
+     * for changes. The key material is only loaded if client authentication is enabled. The trust material is only
+     * loaded if a trust cert collection or trust store is configured, otherwise the system's default trust material
+     * should be used.
+     *
+     * @param name The name of the client to create the reloader for.
+     * @param security The security configuration to use.
+     * @return The newly created certificate reloader.
+     * @throws IllegalArgumentException If the configured resources could not be loaded or watched.
+     */
+    protected CertificateReloader newCertificateReloader(final String name, final Security security) {
+        final List<Resource> resources = new ArrayList<>();
+        KeyStoreLoader keyStoreLoader = null;
+        String keyPassword = null;
+        if (security.isClientAuthEnabled()) {
+            final Resource privateKey = security.getPrivateKey();
+            final Resource keyStore = security.getKeyStore();
+            if (privateKey != null) {
+                final Resource certificateChain = requireNonNull(security.getCertificateChain(), "certificateChain");
+                final String privateKeyPassword = security.getPrivateKeyPassword();
+                keyStoreLoader =
+                        () -> KeyStoreUtils.loadPemKeyStore(certificateChain, privateKey, privateKeyPassword);
+                keyPassword = privateKeyPassword;
+                resources.add(certificateChain);
+                resources.add(privateKey);
+            } else if (keyStore != null) {
+                final String keyStorePassword = security.getKeyStorePassword();
+                keyStoreLoader = KeyStoreLoader.ofKeyStore(security.getKeyStoreFormat(), keyStore, keyStorePassword);
+                keyPassword = keyStorePassword;
+                resources.add(keyStore);
+            } else {
+                throw new IllegalStateException("Neither privateKey nor keyStore configured");
+            }
+        }
+
+        KeyStoreLoader trustStoreLoader = null;
+        final Resource trustCertCollection = security.getTrustCertCollection();
+        final Resource trustStore = security.getTrustStore();
+        if (trustCertCollection != null) {
+            trustStoreLoader = () -> KeyStoreUtils.loadPemTrustStore(trustCertCollection);
+            resources.add(trustCertCollection);
+        } else if (trustStore != null) {
+            trustStoreLoader = KeyStoreLoader.ofKeyStore(security.getTrustStoreFormat(), trustStore,
+                    security.getTrustStorePassword());
+            resources.add(trustStore);
+        }
+
+        final String reloaderName = "client:" + name;
+        try {
+            final List<Path> files = new ArrayList<>(resources.size());
+            for (final Resource resource : resources) {
+                files.add(resource.getFile().toPath());
+            }
+            final CertificateReloader reloader =
+                    new CertificateReloader(reloaderName, keyStoreLoader, keyPassword, trustStoreLoader);
+            reloader.watch(files, security.getReloadDelay());
+            if (this.certificateReloaders != null) {
+                this.certificateReloaders.register(reloader);
+            }
+            return reloader;
+        } catch (final IOException | GeneralSecurityException e) {
+            throw new IllegalArgumentException("Failed to create reloadable SSLContext for " + reloaderName
+                    + " (Reloading requires file based resources)", e);
+        }
+    }
+
+    /**
+     * Sets the registry the certificate reloaders should be registered to, so that they can be monitored and closed. If
+     * not set ({@code null}), then the reloaders will keep watching the files until the application exits.
+     *
+     * @param certificateReloaders The registry to use or null.
+     */
+    public void setCertificateReloaderRegistry(final CertificateReloaderRegistry certificateReloaders) {
+        this.certificateReloaders = certificateReloaders;
+    }
+
+    /**
+     * Sets the registry the connection pools should be registered to, so that they can be monitored. If not set
+     * ({@code null}), then the pools are still used, but not registered anywhere.
+     *
+     * @param channelPools The registry to use or null.
+     */
+    public void setChannelPoolRegistry(final ManagedChannelPoolRegistry channelPools) {
+        this.channelPools = channelPools;
+    }
+
     /**
      * Checks whether the given value is non null and non blank.
      *
@@ -250,6 +376,29 @@ protected void configureLimits(final T builder, final String name) {
         }
     }
 
+    /**
+     * Configures the HTTP/2 flow control and socket buffer options that should be used by the channel. These are only
+     * supported by the netty based channels, so this implementation does nothing.
+     *
+     * @param builder The channel builder to configure.
+     * @param name The name of the client to configure.
+     */
+    protected void configureFlowControl(final T builder, final String name) {
+        // Not supported by generic implementations
+    }
+
+    /**
+     * Configures the marshalling of the messages, that are sent and received by the channel.
+     *
+     * @param builder The channel builder to configure.
+     * @param name The name of the client to configure.
+     */
+    protected void configureMarshalling(final T builder, final String name) {
+        if (getPropertiesFor(name).isZeroCopyEnabled()) {
+            builder.intercept(this.zeroCopyInterceptor);
+        }
+    }
+
     /**
      * Configures custom User-Agent for the channel.
      *
@@ -264,6 +413,27 @@ protected void configureUserAgent(final T builder, final String name) {
         }
     }
 
+    /**
+     * Configures the retry and hedging policies and the retry throttling of the channel. The policies are used as the
+     * channel's default service config, which is merged with the discovered service config by the
+     * {@link net.devh.boot.grpc.client.nameresolver.DiscoveryClientNameResolver DiscoveryClientNameResolver}.
+     *
+     * @param builder The channel builder to configure.
+     * @param name The name of the client to configure.
+     */
+    protected void configureServiceConfig(final T builder, final String name) {
+        final GrpcChannelProperties properties = getPropertiesFor(name);
+        final Map<String, ?> serviceConfig = ServiceConfigs.fromProperties(properties);
+        if (serviceConfig != null) {
+            // Only raise grpc-java's default limit of 5 attempts, so that discovered policies aren't capped
+            final int maxAttempts = Math.max(5, ServiceConfigs.getMaxAttempts(properties));
+            builder.defaultServiceConfig(serviceConfig)
+                    .enableRetry()
+                    .maxRetryAttempts(maxAttempts)
+                    .maxHedgedAttempts(maxAttempts);
+        }
+    }
+
     @Override
     public Map<String, ConnectivityState> getConnectivityState() {
         return Collections.unmodifiableMap(this.channelStates);
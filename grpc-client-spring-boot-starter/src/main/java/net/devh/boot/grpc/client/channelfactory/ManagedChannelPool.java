@@ -0,0 +1,624 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.channelfactory;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ConnectivityState;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.SharedResourceHolder;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+
+/**
+ * A {@link ManagedChannel} that spreads its calls over a pool of underlying channels, each with its own connections.
+ * Every call is sent over the channel with the fewest calls in flight. If all channels have reached the
+ * {@link GrpcChannelProperties.Connections#getMaxStreamsPerConnection() maxStreamsPerConnection}, the pool adds another
+ * channel in the background, up to its {@link GrpcChannelProperties.Connections#getMaxSize() maxSize}. The additional
+ * channels are shut down again by a periodic check, after they have been idle for the
+ * {@link GrpcChannelProperties.Connections#getIdleTimeout() idleTimeout}.
+ */
+@Slf4j
+public class ManagedChannelPool extends ManagedChannel {
+
+    /**
+     * The in flight count of a retired member. Selecting it results in a negative count.
+     */
+    private static final int RETIRED = Integer.MIN_VALUE / 2;
+
+    private final String name;
+    private final Supplier<ManagedChannel> channelFactory;
+    private final int size;
+    private final int maxSize;
+    private final int maxStreamsPerConnection;
+    private final long idleTimeoutNanos;
+    private final List<Member> members = new CopyOnWriteArrayList<>();
+    private final List<ManagedChannel> retired = new CopyOnWriteArrayList<>();
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicBoolean growing = new AtomicBoolean();
+    private final boolean sharedExecutor;
+    @GuardedBy("this")
+    private Executor executor;
+    @GuardedBy("this")
+    private ScheduledExecutorService scheduler;
+    @GuardedBy("this")
+    private ScheduledFuture<?> idleCheck;
+    @GuardedBy("this")
+    private boolean shutdown;
+
+    /**
+     * Creates a new ManagedChannelPool and the underlying channels that are always kept in the pool. The additional
+     * channels are created using gRPC's shared executor.
+     *
+     * @param name The name of the channel.
+     * @param options The options of the pool.
+     * @param channelFactory The factory used to create the underlying channels.
+     */
+    public ManagedChannelPool(final String name, final GrpcChannelProperties.Connections options,
+            final Supplier<ManagedChannel> channelFactory) {
+        this(name, options, channelFactory, null);
+    }
+
+    /**
+     * Creates a new ManagedChannelPool and the underlying channels that are always kept in the pool.
+     *
+     * @param name The name of the channel.
+     * @param options The options of the pool.
+     * @param channelFactory The factory used to create the underlying channels.
+     * @param executor The executor used to create the additional channels, so that the calls never have to wait for
+     *        it, or null to use gRPC's shared executor.
+     */
+    public ManagedChannelPool(final String name, final GrpcChannelProperties.Connections options,
+            final Supplier<ManagedChannel> channelFactory, @Nullable final Executor executor) {
+        this.name = requireNonNull(name, "name");
+        this.channelFactory = requireNonNull(channelFactory, "channelFactory");
+        this.size = options.getSize();
+        this.maxSize = options.getMaxSize();
+        this.maxStreamsPerConnection = options.getMaxStreamsPerConnection();
+        this.idleTimeoutNanos = options.getIdleTimeout().toNanos();
+        this.sharedExecutor = executor == null;
+        for (int i = 0; i < this.size; i++) {
+            this.members.add(new Member(channelFactory.get(), true));
+        }
+        if (this.maxSize > this.size) {
+            this.executor = this.sharedExecutor ? SharedResourceHolder.get(GrpcUtil.SHARED_CHANNEL_EXECUTOR) : executor;
+            this.scheduler = SharedResourceHolder.get(GrpcUtil.TIMER_SERVICE);
+            final long checkIntervalNanos = Math.max(this.idleTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(1));
+            this.idleCheck = this.scheduler.scheduleWithFixedDelay(this::retireIdle,
+                    checkIntervalNanos, checkIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Gets the name of the channel this pool belongs to.
+     *
+     * @return The name of the channel.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the current number of underlying channels in the pool.
+     *
+     * @return The current size of the pool.
+     */
+    public int getSize() {
+        return this.members.size();
+    }
+
+    /**
+     * Gets the maximum number of underlying channels in the pool.
+     *
+     * @return The maximum size of the pool.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Gets the number of calls that are currently in flight on all underlying channels.
+     *
+     * @return The number of calls in flight.
+     */
+    public int getInFlightCount() {
+        int total = 0;
+        for (final Member member : this.members) {
+            total += Math.max(0, member.inFlight.get());
+        }
+        return total;
+    }
+
+    /**
+     * Gets the utilization of the pool, which is the ratio of calls in flight to the
+     * {@link GrpcChannelProperties.Connections#getMaxStreamsPerConnection() maxStreamsPerConnection} of all underlying
+     * channels.
+     *
+     * @return The utilization of the pool. Might exceed 1, if the pool can't grow any further.
+     */
+    public double getUtilization() {
+        return (double) getInFlightCount() / ((long) getSize() * this.maxStreamsPerConnection);
+    }
+
+    /**
+     * Creates a new call, that selects the underlying channel once it is started. Calls that are never started don't
+     * reserve any capacity.
+     */
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(final MethodDescriptor<ReqT, RespT> method,
+            final CallOptions callOptions) {
+        return new PooledClientCall<>(this, method, callOptions);
+    }
+
+    @Override
+    public String authority() {
+        return this.members.get(0).channel.authority();
+    }
+
+    /**
+     * Selects the member with the fewest calls in flight and reserves a call on it. Ties are broken in a round robin
+     * fashion, so that idle members are used evenly. If all members are saturated, the pool grows in the background,
+     * while the call is sent over the least busy existing member.
+     *
+     * @return The member to send the next call over.
+     */
+    private Member acquire() {
+        while (true) {
+            final Member[] current = this.members.toArray(new Member[0]);
+            final int count = current.length;
+            final int start = Math.floorMod(this.nextIndex.getAndIncrement(), count);
+            Member best = null;
+            int bestInFlight = Integer.MAX_VALUE;
+            for (int i = 0; i < count; i++) {
+                final Member member = current[(start + i) % count];
+                final int inFlight = member.inFlight.get();
+                if (inFlight >= 0 && inFlight < bestInFlight) {
+                    best = member;
+                    bestInFlight = inFlight;
+                }
+            }
+            if (bestInFlight >= this.maxStreamsPerConnection && count < this.maxSize) {
+                growAsync();
+            }
+            if (best != null && best.inFlight.incrementAndGet() > 0) {
+                return best;
+            }
+            // The member has been retired in the meantime
+            if (best != null) {
+                best.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Adds another member to the pool in the background, unless one is already being added.
+     */
+    private void growAsync() {
+        if (!this.growing.compareAndSet(false, true)) {
+            return;
+        }
+        final Executor localExecutor;
+        synchronized (this) {
+            localExecutor = this.shutdown ? null : this.executor;
+        }
+        if (localExecutor == null) {
+            this.growing.set(false);
+            return;
+        }
+        try {
+            localExecutor.execute(this::grow);
+        } catch (final RejectedExecutionException e) {
+            this.growing.set(false);
+            log.warn("Failed to add channel to pool '{}'", this.name, e);
+        }
+    }
+
+    private void grow() {
+        try {
+            final ManagedChannel channel = this.channelFactory.get();
+            synchronized (this) {
+                if (this.shutdown || this.members.size() >= this.maxSize) {
+                    channel.shutdown();
+                    return;
+                }
+                this.members.add(new Member(channel, false));
+            }
+            log.debug("Added channel to pool '{}', now {} channels", this.name, this.members.size());
+        } catch (final RuntimeException e) {
+            log.warn("Failed to add channel to pool '{}'", this.name, e);
+        } finally {
+            this.growing.set(false);
+        }
+    }
+
+    /**
+     * Shuts down the additional members that have been idle for longer than the idle timeout. Called periodically by
+     * the scheduler, so that idle members are retired, even if no more calls are made.
+     */
+    private synchronized void retireIdle() {
+        final long now = System.nanoTime();
+        this.retired.removeIf(ManagedChannel::isTerminated);
+        for (final Member member : this.members) {
+            if (this.members.size() <= this.size) {
+                return;
+            }
+            if (!member.core && now - member.idleSinceNanos >= this.idleTimeoutNanos
+                    && member.inFlight.compareAndSet(0, RETIRED)) {
+                this.members.remove(member);
+                this.retired.add(member.channel);
+                member.channel.shutdown();
+                log.debug("Removed idle channel from pool '{}', now {} channels", this.name, this.members.size());
+            }
+        }
+    }
+
+    /**
+     * Stops the idle check and releases the shared resources used to grow and shrink the pool.
+     */
+    @GuardedBy("this")
+    private void releaseResources() {
+        if (this.idleCheck != null) {
+            this.idleCheck.cancel(false);
+            this.idleCheck = null;
+        }
+        if (this.scheduler != null) {
+            this.scheduler = SharedResourceHolder.release(GrpcUtil.TIMER_SERVICE, this.scheduler);
+        }
+        if (this.executor != null) {
+            if (this.sharedExecutor) {
+                SharedResourceHolder.release(GrpcUtil.SHARED_CHANNEL_EXECUTOR, this.executor);
+            }
+            this.executor = null;
+        }
+    }
+
+    @Override
+    public ManagedChannel shutdown() {
+        synchronized (this) {
+            this.shutdown = true;
+            releaseResources();
+        }
+        for (final Member member : this.members) {
+            member.channel.shutdown();
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        for (final Member member : this.members) {
+            if (!member.channel.isTerminated()) {
+                return false;
+            }
+        }
+        this.retired.removeIf(ManagedChannel::isTerminated);
+        return this.retired.isEmpty();
+    }
+
+    /**
+     * Gets the number of channels that have been removed from the pool, but haven't terminated yet.
+     *
+     * @return The number of retired channels.
+     */
+    int getRetiredCount() {
+        this.retired.removeIf(ManagedChannel::isTerminated);
+        return this.retired.size();
+    }
+
+    @Override
+    public ManagedChannel shutdownNow() {
+        synchronized (this) {
+            this.shutdown = true;
+            releaseResources();
+        }
+        for (final Member member : this.members) {
+            member.channel.shutdownNow();
+        }
+        for (final ManagedChannel channel : this.retired) {
+            channel.shutdownNow();
+        }
+        return this;
+    }
+
+    @Override
+    public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (final Member member : this.members) {
+            if (!member.channel.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        for (final ManagedChannel channel : this.retired) {
+            if (!channel.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the combined state of the underlying channels. The pool is {@link ConnectivityState#READY READY}, if any of
+     * its channels is ready.
+     */
+    @Override
+    public ConnectivityState getState(final boolean requestConnection) {
+        boolean connecting = false;
+        boolean failure = false;
+        boolean idle = false;
+        for (final Member member : this.members) {
+            switch (member.channel.getState(requestConnection)) {
+                case READY:
+                    return ConnectivityState.READY;
+                case CONNECTING:
+                    connecting = true;
+                    break;
+                case TRANSIENT_FAILURE:
+                    failure = true;
+                    break;
+                case IDLE:
+                    idle = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (connecting) {
+            return ConnectivityState.CONNECTING;
+        } else if (failure) {
+            return ConnectivityState.TRANSIENT_FAILURE;
+        } else if (idle) {
+            return ConnectivityState.IDLE;
+        }
+        return ConnectivityState.SHUTDOWN;
+    }
+
+    @Override
+    public void notifyWhenStateChanged(final ConnectivityState source, final Runnable callback) {
+        final AtomicBoolean notified = new AtomicBoolean();
+        for (final Member member : this.members) {
+            // Only the core members stay in the pool until it is shut down
+            if (member.core) {
+                watchState(member.channel, source, callback, notified);
+            }
+        }
+    }
+
+    private void watchState(final ManagedChannel channel, final ConnectivityState source, final Runnable callback,
+            final AtomicBoolean notified) {
+        final ConnectivityState channelState = channel.getState(false);
+        channel.notifyWhenStateChanged(channelState, () -> {
+            if (notified.get()) {
+                return;
+            }
+            if (getState(false) != source) {
+                if (notified.compareAndSet(false, true)) {
+                    callback.run();
+                }
+            } else if (channel.getState(false) != ConnectivityState.SHUTDOWN) {
+                watchState(channel, source, callback, notified);
+            }
+        });
+    }
+
+    @Override
+    public void resetConnectBackoff() {
+        for (final Member member : this.members) {
+            member.channel.resetConnectBackoff();
+        }
+    }
+
+    @Override
+    public void enterIdle() {
+        for (final Member member : this.members) {
+            member.channel.enterIdle();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ManagedChannelPool [name=" + this.name + ", size=" + getSize() + ", maxSize=" + this.maxSize + "]";
+    }
+
+    /**
+     * An underlying channel of the pool and the number of calls in flight on it.
+     */
+    private static final class Member {
+
+        private final ManagedChannel channel;
+        private final boolean core;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile long idleSinceNanos = System.nanoTime();
+
+        Member(final ManagedChannel channel, final boolean core) {
+            this.channel = channel;
+            this.core = core;
+        }
+
+        void release() {
+            if (this.inFlight.decrementAndGet() == 0) {
+                this.idleSinceNanos = System.nanoTime();
+            }
+        }
+
+    }
+
+    /**
+     * A client call that reserves a call on the member with the fewest calls in flight, once it is started, and
+     * releases the reservation, once it has been closed.
+     */
+    private static final class PooledClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+
+        private final ManagedChannelPool pool;
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final CallOptions callOptions;
+        private final AtomicBoolean released = new AtomicBoolean();
+        @GuardedBy("this")
+        private ClientCall<ReqT, RespT> delegate;
+        @GuardedBy("this")
+        private Member member;
+        @GuardedBy("this")
+        private boolean cancelled;
+        @GuardedBy("this")
+        private String cancelMessage;
+        @GuardedBy("this")
+        private Throwable cancelCause;
+
+        PooledClientCall(final ManagedChannelPool pool, final MethodDescriptor<ReqT, RespT> method,
+                final CallOptions callOptions) {
+            this.pool = pool;
+            this.method = method;
+            this.callOptions = callOptions;
+        }
+
+        @Override
+        public void start(final Listener<RespT> responseListener, final Metadata headers) {
+            final Member selected = this.pool.acquire();
+            final ClientCall<ReqT, RespT> call;
+            final boolean cancelledBeforeStart;
+            final String message;
+            final Throwable cause;
+            try {
+                call = selected.channel.newCall(this.method, this.callOptions);
+                synchronized (this) {
+                    this.member = selected;
+                    this.delegate = call;
+                    cancelledBeforeStart = this.cancelled;
+                    message = this.cancelMessage;
+                    cause = this.cancelCause;
+                }
+                call.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
+
+                    @Override
+                    public void onClose(final Status status, final Metadata trailers) {
+                        release();
+                        super.onClose(status, trailers);
+                    }
+
+                }, headers);
+            } catch (final RuntimeException e) {
+                if (this.released.compareAndSet(false, true)) {
+                    selected.release();
+                }
+                throw e;
+            }
+            if (cancelledBeforeStart) {
+                // Closes the call and thus releases the reservation
+                call.cancel(message, cause);
+            }
+        }
+
+        @Override
+        public void cancel(@Nullable final String message, @Nullable final Throwable cause) {
+            final ClientCall<ReqT, RespT> call;
+            synchronized (this) {
+                call = this.delegate;
+                if (call == null) {
+                    // Calls that are never started don't need to be cancelled on the channel
+                    this.cancelled = true;
+                    this.cancelMessage = message;
+                    this.cancelCause = cause;
+                    return;
+                }
+            }
+            call.cancel(message, cause);
+        }
+
+        @Override
+        public void halfClose() {
+            delegate().halfClose();
+        }
+
+        @Override
+        public void request(final int numMessages) {
+            delegate().request(numMessages);
+        }
+
+        @Override
+        public void sendMessage(final ReqT message) {
+            delegate().sendMessage(message);
+        }
+
+        @Override
+        public boolean isReady() {
+            final ClientCall<ReqT, RespT> call;
+            synchronized (this) {
+                call = this.delegate;
+            }
+            return call != null && call.isReady();
+        }
+
+        @Override
+        public void setMessageCompression(final boolean enabled) {
+            delegate().setMessageCompression(enabled);
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            final ClientCall<ReqT, RespT> call;
+            synchronized (this) {
+                call = this.delegate;
+            }
+            return call == null ? Attributes.EMPTY : call.getAttributes();
+        }
+
+        private synchronized ClientCall<ReqT, RespT> delegate() {
+            if (this.delegate == null) {
+                throw new IllegalStateException("Not started");
+            }
+            return this.delegate;
+        }
+
+        private void release() {
+            final Member current;
+            synchronized (this) {
+                current = this.member;
+            }
+            if (this.released.compareAndSet(false, true)) {
+                current.release();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.channelfactory;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of all {@link ManagedChannelPool}s created by the channel factories, so that they can be monitored.
+ */
+public class ManagedChannelPoolRegistry {
+
+    private final List<ManagedChannelPool> pools = new ArrayList<>();
+    private final List<Consumer<ManagedChannelPool>> listeners = new ArrayList<>();
+
+    /**
+     * Registers the given pool and notifies all listeners.
+     *
+     * @param pool The pool to register.
+     * @return The registered pool.
+     */
+    public ManagedChannelPool register(final ManagedChannelPool pool) {
+        requireNonNull(pool, "pool");
+        final List<Consumer<ManagedChannelPool>> localListeners;
+        synchronized (this) {
+            this.pools.add(pool);
+            localListeners = new ArrayList<>(this.listeners);
+        }
+        for (final Consumer<ManagedChannelPool> listener : localListeners) {
+            listener.accept(pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Adds a listener that will be notified about all registered pools, including those that have been registered in
+     * the past.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(final Consumer<ManagedChannelPool> listener) {
+        requireNonNull(listener, "listener");
+        final List<ManagedChannelPool> localPools;
+        synchronized (this) {
+            this.listeners.add(listener);
+            localPools = new ArrayList<>(this.pools);
+        }
+        for (final ManagedChannelPool pool : localPools) {
+            listener.accept(pool);
+        }
+    }
+
+    /**
+     * Gets all registered pools.
+     *
+     * @return The registered pools.
+     */
+    public synchronized List<ManagedChannelPool> getPools() {
+        return new ArrayList<>(this.pools);
+    }
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,25 +22,37 @@
 import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.TrustManagerFactory;
 
 import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
 
 import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.WriteBufferWaterMark;
 import io.grpc.netty.shaded.io.netty.channel.epoll.EpollDomainSocketChannel;
 import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
 import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSsl;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
+import io.grpc.netty.shaded.io.netty.util.ReferenceCountUtil;
 import net.devh.boot.grpc.client.config.GrpcChannelProperties;
 import net.devh.boot.grpc.client.config.GrpcChannelProperties.Security;
 import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
 import net.devh.boot.grpc.client.config.NegotiationType;
 import net.devh.boot.grpc.client.interceptor.GlobalClientInterceptorRegistry;
+import net.devh.boot.grpc.common.security.CertificateReloader;
 import net.devh.boot.grpc.common.security.KeyStoreUtils;
+import net.devh.boot.grpc.common.security.SslProvider;
+import net.devh.boot.grpc.common.transport.ShadedNettyEventLoopGroups;
+import net.devh.boot.grpc.common.transport.WriteBufferWaterMarks;
 import net.devh.boot.grpc.common.util.GrpcUtils;
 
 /**
@@ -55,6 +67,9 @@
 // Keep this file in sync with NettyChannelFactory
 public class ShadedNettyChannelFactory extends AbstractChannelFactory<NettyChannelBuilder> {
 
+    private ShadedNettyEventLoopGroups eventLoopGroups;
+    private final Map<String, SslContext> sslContexts = new ConcurrentHashMap<>();
+
     /**
      * Creates a new GrpcChannelFactory for shaded netty with the given options.
      *
@@ -68,6 +83,15 @@ public ShadedNettyChannelFactory(final GrpcChannelsProperties properties,
         super(properties, globalClientInterceptorRegistry, channelConfigurers);
     }
 
+    /**
+     * Sets the shared event loop groups that should be used by the channels. If absent, netty's defaults will be used.
+     *
+     * @param eventLoopGroups The event loop groups to use or null. Their lifecycle is not managed by this factory.
+     */
+    public void setEventLoopGroups(final ShadedNettyEventLoopGroups eventLoopGroups) {
+        this.eventLoopGroups = eventLoopGroups;
+    }
+
     @Override
     protected NettyChannelBuilder newChannelBuilder(final String name) {
         final GrpcChannelProperties properties = getPropertiesFor(name);
@@ -82,16 +106,51 @@ protected NettyChannelBuilder newChannelBuilder(final String name) {
         }
         if (DOMAIN_SOCKET_ADDRESS_SCHEME.equals(address.getScheme())) {
             final String path = GrpcUtils.extractDomainSocketAddressPath(address.toString());
-            return NettyChannelBuilder.forAddress(new DomainSocketAddress(path))
-                    .channelType(EpollDomainSocketChannel.class)
+            final NettyChannelBuilder builder = NettyChannelBuilder.forAddress(new DomainSocketAddress(path));
+            if (this.eventLoopGroups != null) {
+                this.eventLoopGroups.configureDomainSocketClient(builder);
+                return builder;
+            }
+            return builder.channelType(EpollDomainSocketChannel.class)
                     .eventLoopGroup(new EpollEventLoopGroup());
         } else {
-            return NettyChannelBuilder.forTarget(address.toString())
+            final NettyChannelBuilder builder = NettyChannelBuilder.forTarget(address.toString())
                     .defaultLoadBalancingPolicy(properties.getDefaultLoadBalancingPolicy());
+            if (this.eventLoopGroups != null) {
+                this.eventLoopGroups.configureClient(builder);
+            }
+            return builder;
         }
     }
 
 
+    @Override
+    // Keep this in sync with NettyChannelFactory#configureFlowControl
+    protected void configureFlowControl(final NettyChannelBuilder builder, final String name) {
+        final GrpcChannelProperties properties = getPropertiesFor(name);
+        final DataSize flowControlWindow = properties.getFlowControlWindow();
+        if (properties.isAutoFlowControl()) {
+            if (flowControlWindow != null) {
+                builder.initialFlowControlWindow((int) flowControlWindow.toBytes());
+            }
+        } else {
+            builder.flowControlWindow(flowControlWindow == null ? NettyChannelBuilder.DEFAULT_FLOW_CONTROL_WINDOW
+                    : (int) flowControlWindow.toBytes());
+        }
+        final WriteBufferWaterMark waterMark = WriteBufferWaterMarks.resolve("grpc.client." + name,
+                properties.getWriteBufferLowWaterMark(), properties.getWriteBufferHighWaterMark(),
+                WriteBufferWaterMark.DEFAULT.low(), WriteBufferWaterMark.DEFAULT.high(), WriteBufferWaterMark::new);
+        if (waterMark != null) {
+            builder.withOption(ChannelOption.WRITE_BUFFER_WATER_MARK, waterMark);
+        }
+        if (properties.getSendBufferSize() != null) {
+            builder.withOption(ChannelOption.SO_SNDBUF, (int) properties.getSendBufferSize().toBytes());
+        }
+        if (properties.getReceiveBufferSize() != null) {
+            builder.withOption(ChannelOption.SO_RCVBUF, (int) properties.getReceiveBufferSize().toBytes());
+        }
+    }
+
     @Override
     // Keep this in sync with NettyChannelFactory#configureSecurity
     protected void configureSecurity(final NettyChannelBuilder builder, final String name) {
@@ -108,26 +167,66 @@ protected void configureSecurity(final NettyChannelBuilder builder, final String
                 builder.overrideAuthority(authorityOverwrite);
             }
 
-            final SslContextBuilder sslContextBuilder = GrpcSslContexts.forClient();
+            builder.sslContext(this.sslContexts.computeIfAbsent(name, key -> newSslContext(key, security)));
+        }
+    }
+
+    /**
+     * Creates the ssl context for the given client. The ssl context and its certificate reloader, if any, are shared
+     * by all channels of the client, e.g. the channels of a connection pool.
+     *
+     * @param name The name of the client to create the ssl context for.
+     * @param security The security configuration to use.
+     * @return The newly created ssl context.
+     */
+    // Keep this in sync with NettyChannelFactory#newSslContext
+    protected SslContext newSslContext(final String name, final Security security) {
+        final SslContextBuilder sslContextBuilder = GrpcSslContexts.forClient();
+        if (security.isReloadEnabled()) {
+            final CertificateReloader reloader = newCertificateReloader(name, security);
+            if (reloader.getKeyManager() != null) {
+                sslContextBuilder.keyManager(reloader.getKeyManager());
+            }
+            if (reloader.getTrustManager() != null) {
+                sslContextBuilder.trustManager(reloader.getTrustManager());
+            }
+        } else {
             configureProvidedClientCertificate(security, sslContextBuilder);
             configureAcceptedServerCertificates(security, sslContextBuilder);
+        }
 
-            if (security.getCiphers() != null && !security.getCiphers().isEmpty()) {
-                sslContextBuilder.ciphers(security.getCiphers());
-            }
+        configureSslProvider(security.getProvider(), sslContextBuilder);
+        configureSessionResumption(security, sslContextBuilder);
 
-            if (security.getProtocols() != null && security.getProtocols().length > 0) {
-                sslContextBuilder.protocols(security.getProtocols());
-            }
+        if (security.getCiphers() != null && !security.getCiphers().isEmpty()) {
+            sslContextBuilder.ciphers(security.getCiphers());
+        }
 
-            try {
-                builder.sslContext(sslContextBuilder.build());
-            } catch (final SSLException e) {
-                throw new IllegalStateException("Failed to create ssl context for grpc client", e);
-            }
+        if (security.getProtocols() != null && security.getProtocols().length > 0) {
+            sslContextBuilder.protocols(security.getProtocols());
+        }
+
+        try {
+            return sslContextBuilder.build();
+        } catch (final SSLException e) {
+            throw new IllegalStateException("Failed to create ssl context for grpc client", e);
         }
     }
 
+    /**
+     * Closes this channel factory and its channels and releases the shared ssl contexts afterwards. Reference counted
+     * ({@link SslProvider#OPENSSL_REFCNT OPENSSL_REFCNT}) contexts hold native memory until they are released.
+     */
+    @Override
+    // Keep this in sync with NettyChannelFactory#close
+    public synchronized void close() {
+        super.close();
+        for (final SslContext sslContext : this.sslContexts.values()) {
+            ReferenceCountUtil.release(sslContext);
+        }
+        this.sslContexts.clear();
+    }
+
     /**
      * Configures the client certificate provided by the ssl context.
      *
@@ -196,6 +295,65 @@ protected static void configureAcceptedServerCertificates(final Security securit
         }
     }
 
+    /**
+     * Configures the ssl provider that should be used by the ssl context. This also configures the ciphers and
+     * application protocols required by grpc.
+     *
+     * @param provider The ssl provider to use or null to auto detect it.
+     * @param sslContextBuilder The ssl context builder to configure.
+     */
+    // Keep this in sync with NettyChannelFactory#configureSslProvider
+    protected static void configureSslProvider(final SslProvider provider, final SslContextBuilder sslContextBuilder) {
+        if (provider == null) {
+            return; // Auto detected by GrpcSslContexts
+        }
+        if (provider != SslProvider.JDK && !OpenSsl.isAvailable()) {
+            throw new IllegalStateException("SslProvider " + provider + " requires netty-tcnative",
+                    OpenSsl.unavailabilityCause());
+        }
+        // GrpcSslContexts only knows about the non reference counted variant
+        final SslProvider baseProvider = provider == SslProvider.JDK ? SslProvider.JDK : SslProvider.OPENSSL;
+        GrpcSslContexts.configure(sslContextBuilder, of(baseProvider));
+        sslContextBuilder.sslProvider(of(provider));
+    }
+
+    /**
+     * Configures the session cache used for session resumption.
+     *
+     * @param security The security configuration to use.
+     * @param sslContextBuilder The ssl context builder to configure.
+     */
+    // Keep this in sync with NettyChannelFactory#configureSessionResumption
+    protected static void configureSessionResumption(final Security security,
+            final SslContextBuilder sslContextBuilder) {
+        if (security.getSessionCacheSize() > 0) {
+            sslContextBuilder.sessionCacheSize(security.getSessionCacheSize());
+        }
+        if (security.getSessionTimeout() != null) {
+            sslContextBuilder.sessionTimeout(security.getSessionTimeout().getSeconds());
+        }
+    }
+
+    /**
+     * Converts the given ssl provider to netty's ssl provider.
+     *
+     * @param provider The ssl provider to convert.
+     * @return The converted ssl provider.
+     */
+    // Keep this in sync with NettyChannelFactory#of
+    protected static io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider of(final SslProvider provider) {
+        switch (provider) {
+            case JDK:
+                return io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider.JDK;
+            case OPENSSL:
+                return io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider.OPENSSL;
+            case OPENSSL_REFCNT:
+                return io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider.OPENSSL_REFCNT;
+            default:
+                throw new IllegalArgumentException("Unsupported SslProvider: " + provider);
+        }
+    }
+
     /**
      * Converts the given negotiation type to netty's negotiation type.
      *
@@ -23,7 +23,9 @@
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import org.springframework.boot.convert.DataSizeUnit;
@@ -36,12 +38,14 @@
 import io.grpc.LoadBalancerRegistry;
 import io.grpc.ManagedChannelBuilder;
 import io.grpc.NameResolverProvider;
+import io.grpc.Status;
 import io.grpc.internal.GrpcUtil;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
 import net.devh.boot.grpc.common.security.KeyStoreUtils;
+import net.devh.boot.grpc.common.security.SslProvider;
 
 /**
  * The channel properties for a single named gRPC channel or service reference.
@@ -170,7 +174,10 @@ public String getDefaultLoadBalancingPolicy() {
      * Sets the default load balancing policy for this channel. This config might be overwritten by the service config
      * received from the target address. The names have to be resolvable from the {@link LoadBalancerRegistry}. By
      * default this the {@code round_robin} policy. Please note that this policy is different from the normal grpc-java
-     * default policy {@code pick_first}.
+     * default policy {@code pick_first}. Besides the policies of grpc-java, this library provides the load aware
+     * {@code least_request} and {@code peak_ewma} policies (see {@link #getLoadBalancing()}) and the
+     * {@code zone_aware} policy (see {@link #getZoneAware()}). The options of grpc-java's
+     * {@code weighted_round_robin} policy can be configured via {@link #getWeightedRoundRobin()}.
      *
      * @param defaultLoadBalancingPolicy The default load balancing policy to use or null to use the fallback.
      */
@@ -400,6 +407,199 @@ public void setMaxInboundMetadataSize(DataSize maxInboundMetadataSize) {
             throw new IllegalArgumentException("Unsupported maxInboundMetadataSize: " + maxInboundMetadataSize);
         }
     }
+
+    // --------------------------------------------------
+    // Flow Control
+    // --------------------------------------------------
+
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize flowControlWindow = null;
+
+    /**
+     * Gets the initial HTTP/2 flow control window of each stream.
+     *
+     * @return The initial flow control window or null if the default should be used.
+     *
+     * @see #setFlowControlWindow(DataSize)
+     */
+    public DataSize getFlowControlWindow() {
+        return this.flowControlWindow;
+    }
+
+    /**
+     * Sets the initial HTTP/2 flow control window of each stream. If not set ({@code null}) then
+     * {@link NettyChannelBuilder#DEFAULT_FLOW_CONTROL_WINDOW netty's default} (1MiB) will be used. If
+     * {@link #setAutoFlowControl(Boolean) auto flow control} is enabled, then the window will be adjusted based on the
+     * bandwidth-delay product (BDP) of the connection. Only supported by the netty based channels.
+     *
+     * @param flowControlWindow The initial flow control window. Null to use the default.
+     *
+     * @see NettyChannelBuilder#initialFlowControlWindow(int)
+     * @see NettyChannelBuilder#flowControlWindow(int)
+     */
+    public void setFlowControlWindow(final DataSize flowControlWindow) {
+        this.flowControlWindow = flowControlWindow;
+    }
+
+    // --------------------------------------------------
+
+    private Boolean autoFlowControl;
+    private static final boolean DEFAULT_AUTO_FLOW_CONTROL = true;
+
+    /**
+     * Gets whether the flow control window should be automatically tuned.
+     *
+     * @return True, if the flow control window will be automatically tuned. False otherwise.
+     *
+     * @see #setAutoFlowControl(Boolean)
+     */
+    public boolean isAutoFlowControl() {
+        return this.autoFlowControl == null ? DEFAULT_AUTO_FLOW_CONTROL : this.autoFlowControl;
+    }
+
+    /**
+     * Sets whether the flow control window should be automatically tuned based on the bandwidth-delay product (BDP) of
+     * the connection. If disabled, the {@link #setFlowControlWindow(DataSize) flow control window} is fixed. Defaults
+     * to {@code true}.
+     *
+     * @param autoFlowControl Whether the flow control window should be automatically tuned or null to use the
+     *        fallback.
+     */
+    public void setAutoFlowControl(final Boolean autoFlowControl) {
+        this.autoFlowControl = autoFlowControl;
+    }
+
+    // --------------------------------------------------
+
+    private Boolean zeroCopyEnabled;
+    private static final boolean DEFAULT_ZERO_COPY_ENABLED = false;
+
+    /**
+     * Gets whether the inbound protobuf messages should be parsed directly from the transport's buffers.
+     *
+     * @return True, if the messages will be parsed directly from the transport's buffers. False otherwise.
+     *
+     * @see #setZeroCopyEnabled(Boolean)
+     */
+    public boolean isZeroCopyEnabled() {
+        return this.zeroCopyEnabled == null ? DEFAULT_ZERO_COPY_ENABLED : this.zeroCopyEnabled;
+    }
+
+    /**
+     * Sets whether the inbound protobuf messages should be parsed directly from the transport's buffers, instead of
+     * copying them into an intermediate heap array first. This reduces the allocations for large messages. Defaults
+     * to {@code false}.
+     *
+     * @param zeroCopyEnabled Whether the messages should be parsed directly from the transport's buffers or null to
+     *        use the fallback.
+     */
+    public void setZeroCopyEnabled(final Boolean zeroCopyEnabled) {
+        this.zeroCopyEnabled = zeroCopyEnabled;
+    }
+
+    // --------------------------------------------------
+
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize writeBufferLowWaterMark = null;
+
+    /**
+     * Gets the number of pending outbound bytes at which the connection becomes writable again.
+     *
+     * @return The low water mark of the write buffer or null if the default should be used.
+     *
+     * @see #setWriteBufferLowWaterMark(DataSize)
+     */
+    public DataSize getWriteBufferLowWaterMark() {
+        return this.writeBufferLowWaterMark;
+    }
+
+    /**
+     * Sets the number of pending outbound bytes of a connection at which it becomes writable again after it exceeded
+     * the {@link #setWriteBufferHighWaterMark(DataSize) high water mark}. If not set ({@code null}) then netty's
+     * default (32KiB) will be used, unless it exceeds the high water mark. Must not exceed the high water mark. Only
+     * supported by the netty based channels.
+     *
+     * @param writeBufferLowWaterMark The low water mark of the write buffer. Null to use the default.
+     */
+    public void setWriteBufferLowWaterMark(final DataSize writeBufferLowWaterMark) {
+        this.writeBufferLowWaterMark = writeBufferLowWaterMark;
+    }
+
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize writeBufferHighWaterMark = null;
+
+    /**
+     * Gets the number of pending outbound bytes at which the connection stops being writable.
+     *
+     * @return The high water mark of the write buffer or null if the default should be used.
+     *
+     * @see #setWriteBufferHighWaterMark(DataSize)
+     */
+    public DataSize getWriteBufferHighWaterMark() {
+        return this.writeBufferHighWaterMark;
+    }
+
+    /**
+     * Sets the number of pending outbound bytes of a connection at which it stops being writable. If not set
+     * ({@code null}) then netty's default (64KiB) will be used, unless it is below the low water mark. Only supported
+     * by the netty based channels.
+     *
+     * @param writeBufferHighWaterMark The high water mark of the write buffer. Null to use the default.
+     */
+    public void setWriteBufferHighWaterMark(final DataSize writeBufferHighWaterMark) {
+        this.writeBufferHighWaterMark = writeBufferHighWaterMark;
+    }
+
+    // --------------------------------------------------
+
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize sendBufferSize = null;
+
+    /**
+     * Gets the size of the socket send buffer.
+     *
+     * @return The size of the socket send buffer or null if the default should be used.
+     *
+     * @see #setSendBufferSize(DataSize)
+     */
+    public DataSize getSendBufferSize() {
+        return this.sendBufferSize;
+    }
+
+    /**
+     * Sets the size of the socket send buffer ({@code SO_SNDBUF}). If not set ({@code null}) then the operating
+     * system's default will be used. Only supported by the netty based channels.
+     *
+     * @param sendBufferSize The size of the socket send buffer. Null to use the default.
+     */
+    public void setSendBufferSize(final DataSize sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+    }
+
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize receiveBufferSize = null;
+
+    /**
+     * Gets the size of the socket receive buffer.
+     *
+     * @return The size of the socket receive buffer or null if the default should be used.
+     *
+     * @see #setReceiveBufferSize(DataSize)
+     */
+    public DataSize getReceiveBufferSize() {
+        return this.receiveBufferSize;
+    }
+
+    /**
+     * Sets the size of the socket receive buffer ({@code SO_RCVBUF}). If not set ({@code null}) then the operating
+     * system's default will be used. Only supported by the netty based channels.
+     *
+     * @param receiveBufferSize The size of the socket receive buffer. Null to use the default.
+     */
+    public void setReceiveBufferSize(final DataSize receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+    }
+
     // --------------------------------------------------
 
     private NegotiationType negotiationType;
@@ -427,126 +627,1661 @@ public void setNegotiationType(final NegotiationType negotiationType) {
         this.negotiationType = negotiationType;
     }
 
-    // --------------------------------------------------
+    // --------------------------------------------------
+
+    private Duration immediateConnectTimeout;
+    private static final Duration DEFAULT_IMMEDIATE_CONNECT = Duration.ZERO;
+
+    /**
+     * Get the connection timeout at application startup.
+     *
+     * @return connection timeout at application startup.
+     *
+     * @see #setImmediateConnectTimeout(Duration)
+     */
+    public Duration getImmediateConnectTimeout() {
+        return this.immediateConnectTimeout == null ? DEFAULT_IMMEDIATE_CONNECT : this.immediateConnectTimeout;
+    }
+
+    /**
+     * If set to a positive duration instructs the client to connect to the gRPC endpoint when the GRPC stub is created.
+     * As a result the application startup will be slightly slower due to connection process being executed
+     * synchronously up to the maximum to connection timeout. If the connection fails, the stub will fail to create with
+     * an exception which in turn causes the application context startup to fail. Defaults to {@code 0}.
+     *
+     * @param immediateConnectTimeout Connection timeout at application startup.
+     */
+    public void setImmediateConnectTimeout(final Duration immediateConnectTimeout) {
+        if (immediateConnectTimeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout can't be negative");
+        }
+        this.immediateConnectTimeout = immediateConnectTimeout;
+    }
+
+    // --------------------------------------------------
+
+    private String userAgent = null;
+
+    /**
+     * Get custom User-Agent for the channel.
+     *
+     * @return custom User-Agent for the channel.
+     *
+     * @see #setUserAgent(String)
+     */
+    public String getUserAgent() {
+        return this.userAgent;
+    }
+
+    /**
+     * Sets custom User-Agent HTTP header.
+     *
+     * @param userAgent Custom User-Agent.
+     *
+     * @see ManagedChannelBuilder#userAgent(String)
+     */
+    public void setUserAgent(final String userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    // --------------------------------------------------
+
+    private final ResponseCache responseCache = new ResponseCache();
+
+    /**
+     * Gets the options for the client side response cache.
+     *
+     * @return The options for the response cache.
+     */
+    public ResponseCache getResponseCache() {
+        return this.responseCache;
+    }
+
+    // --------------------------------------------------
+
+    private final Coalescing coalescing = new Coalescing();
+
+    /**
+     * Gets the options for coalescing identical concurrent calls.
+     *
+     * @return The options for the request coalescing.
+     */
+    public Coalescing getCoalescing() {
+        return this.coalescing;
+    }
+
+    // --------------------------------------------------
+
+    private Map<String, MethodConfig> methodConfig;
+
+    /**
+     * Gets the retry and hedging policies by method or service.
+     *
+     * @return The retry and hedging policies by method or service.
+     *
+     * @see #setMethodConfig(Map)
+     */
+    public Map<String, MethodConfig> getMethodConfig() {
+        return this.methodConfig == null ? Collections.emptyMap() : this.methodConfig;
+    }
+
+    /**
+     * Sets the retry and hedging policies by method or service. The keys are either full method names
+     * ({@code my.package.MyService/MyMethod}), service names ({@code my.package.MyService}) or {@code *} for all
+     * methods. The policies are sent to grpc-java as the channel's default service config, which is merged with the
+     * service config found via service discovery, if any. Defaults to none.
+     *
+     * @param methodConfig The retry and hedging policies by method or service or null to use the fallback.
+     */
+    public void setMethodConfig(final Map<String, MethodConfig> methodConfig) {
+        this.methodConfig = methodConfig;
+    }
+
+    // --------------------------------------------------
+
+    private final RetryThrottling retryThrottling = new RetryThrottling();
+
+    /**
+     * Gets the options for the retry throttling, that limits the retry and hedging attempts of the channel.
+     *
+     * @return The options for the retry throttling.
+     */
+    public RetryThrottling getRetryThrottling() {
+        return this.retryThrottling;
+    }
+
+    // --------------------------------------------------
+
+    private final Pipeline pipeline = new Pipeline();
+
+    /**
+     * Gets the options for multiplexing unary calls over a single pipeline stream.
+     *
+     * @return The options for the pipeline.
+     */
+    public Pipeline getPipeline() {
+        return this.pipeline;
+    }
+
+    // --------------------------------------------------
+
+    private final Connections connections = new Connections();
+
+    /**
+     * Gets the options for the pool of connections of the channel.
+     *
+     * @return The options for the connection pool.
+     */
+    public Connections getConnections() {
+        return this.connections;
+    }
+
+    // --------------------------------------------------
+
+    private final LoadBalancing loadBalancing = new LoadBalancing();
+
+    /**
+     * Gets the options for the load aware load balancing policies {@code least_request} and {@code peak_ewma}.
+     *
+     * @return The options for the load balancing.
+     */
+    public LoadBalancing getLoadBalancing() {
+        return this.loadBalancing;
+    }
+
+    // --------------------------------------------------
+
+    private final WeightedRoundRobin weightedRoundRobin = new WeightedRoundRobin();
+
+    /**
+     * Gets the options for the {@code weighted_round_robin} load balancing policy.
+     *
+     * @return The options for the weighted round robin policy.
+     */
+    public WeightedRoundRobin getWeightedRoundRobin() {
+        return this.weightedRoundRobin;
+    }
+
+    // --------------------------------------------------
+
+    private final ZoneAware zoneAware = new ZoneAware();
+
+    /**
+     * Gets the options for the {@code zone_aware} load balancing policy.
+     *
+     * @return The options for the zone aware policy.
+     */
+    public ZoneAware getZoneAware() {
+        return this.zoneAware;
+    }
+
+    // --------------------------------------------------
+
+    private final Security security = new Security();
+
+    /**
+     * Gets the options for transport security.
+     *
+     * @return The options for transport security.
+     */
+    public Security getSecurity() {
+        return this.security;
+    }
+
+    /**
+     * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please note
+     * that the getters might return fallback values instead.
+     *
+     * @param config The config to copy the defaults from.
+     */
+    public void copyDefaultsFrom(final GrpcChannelProperties config) {
+        if (this == config) {
+            return;
+        }
+        if (this.address == null) {
+            this.address = config.address;
+        }
+        if (this.defaultRequestTimeout == null) {
+            this.defaultRequestTimeout = config.defaultRequestTimeout;
+        }
+        if (this.defaultLoadBalancingPolicy == null) {
+            this.defaultLoadBalancingPolicy = config.defaultLoadBalancingPolicy;
+        }
+        if (this.enableKeepAlive == null) {
+            this.enableKeepAlive = config.enableKeepAlive;
+        }
+        if (this.keepAliveTime == null) {
+            this.keepAliveTime = config.keepAliveTime;
+        }
+        if (this.keepAliveTimeout == null) {
+            this.keepAliveTimeout = config.keepAliveTimeout;
+        }
+        if (this.keepAliveWithoutCalls == null) {
+            this.keepAliveWithoutCalls = config.keepAliveWithoutCalls;
+        }
+        if (this.shutdownGracePeriod == null) {
+            this.shutdownGracePeriod = config.shutdownGracePeriod;
+        }
+        if (this.maxInboundMessageSize == null) {
+            this.maxInboundMessageSize = config.maxInboundMessageSize;
+        }
+        if (this.maxInboundMetadataSize == null) {
+            this.maxInboundMetadataSize = config.maxInboundMetadataSize;
+        }
+        if (this.flowControlWindow == null) {
+            this.flowControlWindow = config.flowControlWindow;
+        }
+        if (this.autoFlowControl == null) {
+            this.autoFlowControl = config.autoFlowControl;
+        }
+        if (this.zeroCopyEnabled == null) {
+            this.zeroCopyEnabled = config.zeroCopyEnabled;
+        }
+        if (this.writeBufferLowWaterMark == null) {
+            this.writeBufferLowWaterMark = config.writeBufferLowWaterMark;
+        }
+        if (this.writeBufferHighWaterMark == null) {
+            this.writeBufferHighWaterMark = config.writeBufferHighWaterMark;
+        }
+        if (this.sendBufferSize == null) {
+            this.sendBufferSize = config.sendBufferSize;
+        }
+        if (this.receiveBufferSize == null) {
+            this.receiveBufferSize = config.receiveBufferSize;
+        }
+        if (this.negotiationType == null) {
+            this.negotiationType = config.negotiationType;
+        }
+        if (this.immediateConnectTimeout == null) {
+            this.immediateConnectTimeout = config.immediateConnectTimeout;
+        }
+        if (this.userAgent == null) {
+            this.userAgent = config.userAgent;
+        }
+        this.responseCache.copyDefaultsFrom(config.responseCache);
+        this.coalescing.copyDefaultsFrom(config.coalescing);
+        if (this.methodConfig == null) {
+            this.methodConfig = config.methodConfig;
+        }
+        this.retryThrottling.copyDefaultsFrom(config.retryThrottling);
+        this.pipeline.copyDefaultsFrom(config.pipeline);
+        this.connections.copyDefaultsFrom(config.connections);
+        this.loadBalancing.copyDefaultsFrom(config.loadBalancing);
+        this.weightedRoundRobin.copyDefaultsFrom(config.weightedRoundRobin);
+        this.zoneAware.copyDefaultsFrom(config.zoneAware);
+        this.security.copyDefaultsFrom(config.security);
+    }
+
+    /**
+     * A container with options for the channel's client side response cache.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class ResponseCache {
+
+        private Boolean enabled;
+        private static final boolean DEFAULT_ENABLED = false;
+
+        /**
+         * Gets whether the responses of the configured methods should be cached.
+         *
+         * @return True, if the responses should be cached. False otherwise.
+         *
+         * @see #setEnabled(Boolean)
+         */
+        public boolean isEnabled() {
+            return this.enabled == null ? DEFAULT_ENABLED : this.enabled;
+        }
+
+        /**
+         * Sets whether the responses of the configured {@link #setMethods(Map) methods} should be cached, so that
+         * repeated calls with the same request are answered without contacting the server. Defaults to {@code false}.
+         *
+         * @param enabled Whether the responses should be cached or null to use the fallback.
+         */
+        public void setEnabled(final Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        // --------------------------------------------------
+
+        @DataSizeUnit(DataUnit.BYTES)
+        private DataSize maxSize;
+        private static final DataSize DEFAULT_MAX_SIZE = DataSize.ofMegabytes(10);
+
+        /**
+         * Gets the maximum size of the cached requests and responses.
+         *
+         * @return The maximum size of the cache.
+         *
+         * @see #setMaxSize(DataSize)
+         */
+        public DataSize getMaxSize() {
+            return this.maxSize == null ? DEFAULT_MAX_SIZE : this.maxSize;
+        }
+
+        /**
+         * Sets the maximum size of the cached requests and responses based on their serialized size. Once the cache
+         * is full, the least recently used entries are evicted. Defaults to {@code 10MB}.
+         *
+         * @param maxSize The maximum size of the cache or null to use the fallback.
+         */
+        public void setMaxSize(final DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        // --------------------------------------------------
+
+        private Duration staleWhileRevalidate;
+        private static final Duration DEFAULT_STALE_WHILE_REVALIDATE = Duration.ZERO;
+
+        /**
+         * Gets the time an expired response may still be used, while it is refreshed in the background.
+         *
+         * @return The time an expired response may still be used.
+         *
+         * @see #setStaleWhileRevalidate(Duration)
+         */
+        public Duration getStaleWhileRevalidate() {
+            return this.staleWhileRevalidate == null ? DEFAULT_STALE_WHILE_REVALIDATE : this.staleWhileRevalidate;
+        }
+
+        /**
+         * Sets the time an expired response may still be used, while it is refreshed in the background. This avoids
+         * latency spikes when frequently used entries expire. Defaults to {@code 0s}, which disables the background
+         * refresh.
+         *
+         * @param staleWhileRevalidate The time an expired response may still be used or null to use the fallback.
+         */
+        public void setStaleWhileRevalidate(final Duration staleWhileRevalidate) {
+            this.staleWhileRevalidate = staleWhileRevalidate;
+        }
+
+        // --------------------------------------------------
+
+        private Map<String, Duration> methods;
+
+        /**
+         * Gets the maximum age of the cached responses by method or service.
+         *
+         * @return The maximum age of the cached responses by method or service.
+         *
+         * @see #setMethods(Map)
+         */
+        public Map<String, Duration> getMethods() {
+            return this.methods == null ? Collections.emptyMap() : this.methods;
+        }
+
+        /**
+         * Sets the methods, whose responses should be cached, and the maximum age of their responses. The keys are
+         * either full method names ({@code my.package.MyService/MyMethod}) or service names
+         * ({@code my.package.MyService}). Only unary methods without side effects should be cached. If the server
+         * sends a {@code cache-control} header with a {@code max-age} or {@code no-store} directive, then that
+         * overrides the configured age.
+         *
+         * @param methods The maximum age of the cached responses by method or service or null to use the fallback.
+         */
+        public void setMethods(final Map<String, Duration> methods) {
+            this.methods = methods;
+        }
+
+        // --------------------------------------------------
+
+        private List<String> keyHeaders;
+
+        /**
+         * Gets the names of the request headers that have to match for a cached response to be used.
+         *
+         * @return The names of the headers that have to match.
+         *
+         * @see #setKeyHeaders(List)
+         */
+        public List<String> getKeyHeaders() {
+            return this.keyHeaders == null ? Collections.emptyList() : this.keyHeaders;
+        }
+
+        /**
+         * Sets the names of the (ASCII) request headers that have to match in addition to the method and the request
+         * for a cached response to be used. Calls with different call credentials or authorities never share a
+         * cached response. Defaults to none.
+         *
+         * @param keyHeaders The names of the headers that have to match or null to use the fallback.
+         */
+        public void setKeyHeaders(final List<String> keyHeaders) {
+            this.keyHeaders = keyHeaders;
+        }
+
+        // --------------------------------------------------
+
+        /**
+         * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please
+         * note that the getters might return fallback values instead.
+         *
+         * @param config The config to copy the defaults from.
+         */
+        public void copyDefaultsFrom(final ResponseCache config) {
+            if (this == config) {
+                return;
+            }
+            if (this.enabled == null) {
+                this.enabled = config.enabled;
+            }
+            if (this.maxSize == null) {
+                this.maxSize = config.maxSize;
+            }
+            if (this.staleWhileRevalidate == null) {
+                this.staleWhileRevalidate = config.staleWhileRevalidate;
+            }
+            if (this.methods == null) {
+                this.methods = config.methods;
+            }
+            if (this.keyHeaders == null) {
+                this.keyHeaders = config.keyHeaders;
+            }
+        }
+
+    }
+
+    /**
+     * A container with options for coalescing identical concurrent calls of the channel.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class Coalescing {
+
+        private Boolean enabled;
+        private static final boolean DEFAULT_ENABLED = false;
+
+        /**
+         * Gets whether identical concurrent calls to the configured methods should be coalesced.
+         *
+         * @return True, if identical concurrent calls should be coalesced. False otherwise.
+         *
+         * @see #setEnabled(Boolean)
+         */
+        public boolean isEnabled() {
+            return this.enabled == null ? DEFAULT_ENABLED : this.enabled;
+        }
+
+        /**
+         * Sets whether identical concurrent calls to the configured {@link #setMethods(List) methods} should be
+         * coalesced into a single call to the server, whose result is delivered to all callers. Defaults to
+         * {@code false}.
+         *
+         * @param enabled Whether identical concurrent calls should be coalesced or null to use the fallback.
+         */
+        public void setEnabled(final Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        // --------------------------------------------------
+
+        private List<String> methods;
+
+        /**
+         * Gets the methods or services whose calls should be coalesced.
+         *
+         * @return The methods or services whose calls should be coalesced.
+         *
+         * @see #setMethods(List)
+         */
+        public List<String> getMethods() {
+            return this.methods == null ? Collections.emptyList() : this.methods;
+        }
+
+        /**
+         * Sets the methods or services whose calls should be coalesced. The entries are either full method names
+         * ({@code my.package.MyService/MyMethod}) or service names ({@code my.package.MyService}). Only unary methods
+         * without side effects should be coalesced.
+         *
+         * @param methods The methods or services whose calls should be coalesced or null to use the fallback.
+         */
+        public void setMethods(final List<String> methods) {
+            this.methods = methods;
+        }
+
+        // --------------------------------------------------
+
+        private List<String> keyHeaders;
+
+        /**
+         * Gets the names of the request headers that have to match for calls to be coalesced.
+         *
+         * @return The names of the headers that have to match.
+         *
+         * @see #setKeyHeaders(List)
+         */
+        public List<String> getKeyHeaders() {
+            return this.keyHeaders == null ? Collections.emptyList() : this.keyHeaders;
+        }
+
+        /**
+         * Sets the names of the (ASCII) request headers that have to match in addition to the method and the request
+         * for calls to be coalesced. Calls with different call credentials are never coalesced. Defaults to none.
+         *
+         * @param keyHeaders The names of the headers that have to match or null to use the fallback.
+         */
+        public void setKeyHeaders(final List<String> keyHeaders) {
+            this.keyHeaders = keyHeaders;
+        }
+
+        // --------------------------------------------------
+
+        /**
+         * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please
+         * note that the getters might return fallback values instead.
+         *
+         * @param config The config to copy the defaults from.
+         */
+        public void copyDefaultsFrom(final Coalescing config) {
+            if (this == config) {
+                return;
+            }
+            if (this.enabled == null) {
+                this.enabled = config.enabled;
+            }
+            if (this.methods == null) {
+                this.methods = config.methods;
+            }
+            if (this.keyHeaders == null) {
+                this.keyHeaders = config.keyHeaders;
+            }
+        }
+
+    }
+
+    /**
+     * A container with the retry and hedging policy of a method or service. At most one of the two policies may be
+     * enabled.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class MethodConfig {
+
+        private final RetryPolicy retry = new RetryPolicy();
+
+        /**
+         * Gets the policy for retrying failed calls.
+         *
+         * @return The retry policy.
+         */
+        public RetryPolicy getRetry() {
+            return this.retry;
+        }
+
+        // --------------------------------------------------
+
+        private final HedgingPolicy hedging = new HedgingPolicy();
+
+        /**
+         * Gets the policy for sending additional attempts, if the server doesn't respond in time.
+         *
+         * @return The hedging policy.
+         */
+        public HedgingPolicy getHedging() {
+            return this.hedging;
+        }
+
+    }
+
+    /**
+     * A container with options for retrying failed calls. Retried calls are sent again after a failure with one of the
+     * retryable status codes, waiting a randomized exponential backoff in between.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class RetryPolicy {
+
+        private Boolean enabled;
+        private static final boolean DEFAULT_ENABLED = false;
+
+        /**
+         * Gets whether failed calls should be retried.
+         *
+         * @return True, if failed calls should be retried. False otherwise.
+         *
+         * @see #setEnabled(Boolean)
+         */
+        public boolean isEnabled() {
+            return this.enabled == null ? DEFAULT_ENABLED : this.enabled;
+        }
+
+        /**
+         * Sets whether failed calls should be retried. Defaults to {@code false}.
+         *
+         * @param enabled Whether failed calls should be retried or null to use the fallback.
+         */
+        public void setEnabled(final Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        // --------------------------------------------------
+
+        private Integer maxAttempts;
+        private static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+        /**
+         * Gets the maximum number of attempts, including the original call.
+         *
+         * @return The maximum number of attempts.
+         *
+         * @see #setMaxAttempts(Integer)
+         */
+        public int getMaxAttempts() {
+            return this.maxAttempts == null ? DEFAULT_MAX_ATTEMPTS : this.maxAttempts;
+        }
+
+        /**
+         * Sets the maximum number of attempts, including the original call. Must be greater than 1. Defaults to
+         * {@code 3}.
+         *
+         * @param maxAttempts The maximum number of attempts or null to use the fallback.
+         */
+        public void setMaxAttempts(final Integer maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration initialBackoff;
+        private static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(100);
+
+        /**
+         * Gets the upper bound of the backoff before the first retry.
+         *
+         * @return The initial backoff.
+         *
+         * @see #setInitialBackoff(Duration)
+         */
+        public Duration getInitialBackoff() {
+            return this.initialBackoff == null ? DEFAULT_INITIAL_BACKOFF : this.initialBackoff;
+        }
+
+        /**
+         * Sets the upper bound of the backoff before the first retry. The actual backoff is chosen randomly between
+         * zero and the current bound. If no unit is specified, milliseconds will be used. Defaults to {@code 100ms}.
+         *
+         * @param initialBackoff The initial backoff or null to use the fallback.
+         */
+        public void setInitialBackoff(final Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration maxBackoff;
+        private static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(1);
+
+        /**
+         * Gets the maximum upper bound of the backoff between two attempts.
+         *
+         * @return The maximum backoff.
+         *
+         * @see #setMaxBackoff(Duration)
+         */
+        public Duration getMaxBackoff() {
+            return this.maxBackoff == null ? DEFAULT_MAX_BACKOFF : this.maxBackoff;
+        }
+
+        /**
+         * Sets the maximum upper bound of the backoff between two attempts. If no unit is specified, milliseconds will
+         * be used. Defaults to {@code 1s}.
+         *
+         * @param maxBackoff The maximum backoff or null to use the fallback.
+         */
+        public void setMaxBackoff(final Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        // --------------------------------------------------
+
+        private Double backoffMultiplier;
+        private static final double DEFAULT_BACKOFF_MULTIPLIER = 2.0;
+
+        /**
+         * Gets the factor the upper bound of the backoff is multiplied with after each attempt.
+         *
+         * @return The backoff multiplier.
+         *
+         * @see #setBackoffMultiplier(Double)
+         */
+        public double getBackoffMultiplier() {
+            return this.backoffMultiplier == null ? DEFAULT_BACKOFF_MULTIPLIER : this.backoffMultiplier;
+        }
+
+        /**
+         * Sets the factor the upper bound of the backoff is multiplied with after each attempt. Must be greater than
+         * zero. Defaults to {@code 2.0}.
+         *
+         * @param backoffMultiplier The backoff multiplier or null to use the fallback.
+         */
+        public void setBackoffMultiplier(final Double backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+        }
+
+        // --------------------------------------------------
+
+        private List<Status.Code> retryableStatusCodes;
+        private static final List<Status.Code> DEFAULT_RETRYABLE_STATUS_CODES =
+                Collections.singletonList(Status.Code.UNAVAILABLE);
+
+        /**
+         * Gets the status codes that cause a call to be retried.
+         *
+         * @return The retryable status codes.
+         *
+         * @see #setRetryableStatusCodes(List)
+         */
+        public List<Status.Code> getRetryableStatusCodes() {
+            return this.retryableStatusCodes == null ? DEFAULT_RETRYABLE_STATUS_CODES : this.retryableStatusCodes;
+        }
+
+        /**
+         * Sets the status codes that cause a call to be retried. Must not be empty. Defaults to {@code UNAVAILABLE}.
+         *
+         * @param retryableStatusCodes The retryable status codes or null to use the fallback.
+         */
+        public void setRetryableStatusCodes(final List<Status.Code> retryableStatusCodes) {
+            this.retryableStatusCodes = retryableStatusCodes;
+        }
+
+    }
+
+    /**
+     * A container with options for hedging calls. Hedged calls are sent to another server, if the previous attempt
+     * didn't respond within the hedging delay. The first response wins and the other attempts are cancelled.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class HedgingPolicy {
+
+        private Boolean enabled;
+        private static final boolean DEFAULT_ENABLED = false;
+
+        /**
+         * Gets whether slow calls should be hedged.
+         *
+         * @return True, if slow calls should be hedged. False otherwise.
+         *
+         * @see #setEnabled(Boolean)
+         */
+        public boolean isEnabled() {
+            return this.enabled == null ? DEFAULT_ENABLED : this.enabled;
+        }
+
+        /**
+         * Sets whether slow calls should be hedged. Only methods without side effects should be hedged. Defaults to
+         * {@code false}.
+         *
+         * @param enabled Whether slow calls should be hedged or null to use the fallback.
+         */
+        public void setEnabled(final Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        // --------------------------------------------------
+
+        private Integer maxAttempts;
+        private static final int DEFAULT_MAX_ATTEMPTS = 2;
+
+        /**
+         * Gets the maximum number of attempts, including the original call.
+         *
+         * @return The maximum number of attempts.
+         *
+         * @see #setMaxAttempts(Integer)
+         */
+        public int getMaxAttempts() {
+            return this.maxAttempts == null ? DEFAULT_MAX_ATTEMPTS : this.maxAttempts;
+        }
+
+        /**
+         * Sets the maximum number of attempts, including the original call. Must be greater than 1. Defaults to
+         * {@code 2}.
+         *
+         * @param maxAttempts The maximum number of attempts or null to use the fallback.
+         */
+        public void setMaxAttempts(final Integer maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration delay;
+        private static final Duration DEFAULT_DELAY = Duration.ZERO;
+
+        /**
+         * Gets the delay after which the next attempt is sent, if there is no response yet.
+         *
+         * @return The hedging delay.
+         *
+         * @see #setDelay(Duration)
+         */
+        public Duration getDelay() {
+            return this.delay == null ? DEFAULT_DELAY : this.delay;
+        }
+
+        /**
+         * Sets the delay after which the next attempt is sent, if there is no response yet. A value slightly above the
+         * method's usual p95 latency is a good start. If no unit is specified, milliseconds will be used. Defaults to
+         * {@code 0}, which sends all attempts at once.
+         *
+         * @param delay The hedging delay or null to use the fallback.
+         */
+        public void setDelay(final Duration delay) {
+            this.delay = delay;
+        }
+
+        // --------------------------------------------------
+
+        private List<Status.Code> nonFatalStatusCodes;
+
+        /**
+         * Gets the status codes that don't abort the other outstanding attempts.
+         *
+         * @return The non fatal status codes.
+         *
+         * @see #setNonFatalStatusCodes(List)
+         */
+        public List<Status.Code> getNonFatalStatusCodes() {
+            return this.nonFatalStatusCodes == null ? Collections.emptyList() : this.nonFatalStatusCodes;
+        }
+
+        /**
+         * Sets the status codes that don't abort the other outstanding attempts and immediately trigger the next
+         * attempt instead. Defaults to none.
+         *
+         * @param nonFatalStatusCodes The non fatal status codes or null to use the fallback.
+         */
+        public void setNonFatalStatusCodes(final List<Status.Code> nonFatalStatusCodes) {
+            this.nonFatalStatusCodes = nonFatalStatusCodes;
+        }
+
+    }
+
+    /**
+     * A container with options for the retry throttling of the channel. The throttling acts as a retry budget: Each
+     * failed call removes a token and each successful call adds {@link #getTokenRatio() tokenRatio} tokens. Once less
+     * than half of the tokens are left, no retry or hedging attempts are sent anymore.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class RetryThrottling {
+
+        private Integer maxTokens;
+
+        /**
+         * Gets the maximum number of tokens in the retry budget.
+         *
+         * @return The maximum number of tokens or null, if retries aren't throttled.
+         *
+         * @see #setMaxTokens(Integer)
+         */
+        public Integer getMaxTokens() {
+            return this.maxTokens;
+        }
+
+        /**
+         * Sets the maximum number of tokens in the retry budget. Must be between 1 and 1000. Defaults to {@code null},
+         * which disables the throttling.
+         *
+         * @param maxTokens The maximum number of tokens or null to use the fallback.
+         */
+        public void setMaxTokens(final Integer maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+        // --------------------------------------------------
+
+        private Double tokenRatio;
+        private static final double DEFAULT_TOKEN_RATIO = 0.1;
+
+        /**
+         * Gets the number of tokens each successful call adds to the retry budget.
+         *
+         * @return The token ratio.
+         *
+         * @see #setTokenRatio(Double)
+         */
+        public double getTokenRatio() {
+            return this.tokenRatio == null ? DEFAULT_TOKEN_RATIO : this.tokenRatio;
+        }
+
+        /**
+         * Sets the number of tokens each successful call adds to the retry budget. E.g. a ratio of {@code 0.1} allows
+         * roughly one retry per ten successful calls in the long run. Defaults to {@code 0.1}.
+         *
+         * @param tokenRatio The token ratio or null to use the fallback.
+         */
+        public void setTokenRatio(final Double tokenRatio) {
+            this.tokenRatio = tokenRatio;
+        }
+
+        // --------------------------------------------------
+
+        /**
+         * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please
+         * note that the getters might return fallback values instead.
+         *
+         * @param config The config to copy the defaults from.
+         */
+        public void copyDefaultsFrom(final RetryThrottling config) {
+            if (this == config) {
+                return;
+            }
+            if (this.maxTokens == null) {
+                this.maxTokens = config.maxTokens;
+            }
+            if (this.tokenRatio == null) {
+                this.tokenRatio = config.tokenRatio;
+            }
+        }
+
+    }
+
+    /**
+     * A container with options for multiplexing many small unary calls over a single long-lived bidi stream of the
+     * channel. Requires a server with the pipeline service enabled.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class Pipeline {
+
+        private Boolean enabled;
+        private static final boolean DEFAULT_ENABLED = false;
+
+        /**
+         * Gets whether the calls to the configured methods should be sent over the pipeline stream.
+         *
+         * @return True, if the calls should be pipelined. False otherwise.
+         *
+         * @see #setEnabled(Boolean)
+         */
+        public boolean isEnabled() {
+            return this.enabled == null ? DEFAULT_ENABLED : this.enabled;
+        }
+
+        /**
+         * Sets whether the calls to the configured {@link #setMethods(List) methods} should be sent as logical calls
+         * over a single long-lived bidi stream instead of as individual calls. This saves the per call HTTP/2 header
+         * and stream setup for chatty services with tiny messages. If the server doesn't support pipelining, the calls
+         * are sent as usual. Defaults to {@code false}.
+         *
+         * @param enabled Whether the calls should be pipelined or null to use the fallback.
+         */
+        public void setEnabled(final Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        // --------------------------------------------------
+
+        private List<String> methods;
+
+        /**
+         * Gets the methods or services whose calls should be pipelined.
+         *
+         * @return The methods or services whose calls should be pipelined.
+         *
+         * @see #setMethods(List)
+         */
+        public List<String> getMethods() {
+            return this.methods == null ? Collections.emptyList() : this.methods;
+        }
+
+        /**
+         * Sets the methods or services whose calls should be pipelined. The entries are either full method names
+         * ({@code my.package.MyService/MyMethod}) or service names ({@code my.package.MyService}). Only unary methods
+         * are pipelined.
+         *
+         * @param methods The methods or services whose calls should be pipelined or null to use the fallback.
+         */
+        public void setMethods(final List<String> methods) {
+            this.methods = methods;
+        }
+
+        // --------------------------------------------------
+
+        private Integer maxConcurrentCalls;
+        private static final int DEFAULT_MAX_CONCURRENT_CALLS = 100;
+
+        /**
+         * Gets the maximum number of logical calls that are sent over the pipeline stream concurrently.
+         *
+         * @return The maximum number of concurrent logical calls.
+         *
+         * @see #setMaxConcurrentCalls(Integer)
+         */
+        public int getMaxConcurrentCalls() {
+            return this.maxConcurrentCalls == null ? DEFAULT_MAX_CONCURRENT_CALLS : this.maxConcurrentCalls;
+        }
+
+        /**
+         * Sets the maximum number of logical calls that are sent over the pipeline stream concurrently. Additional
+         * calls wait on the client, until one of the calls completes. Defaults to {@code 100}.
+         *
+         * @param maxConcurrentCalls The maximum number of concurrent logical calls or null to use the fallback.
+         */
+        public void setMaxConcurrentCalls(final Integer maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration retryUnsupportedAfter;
+        private static final Duration DEFAULT_RETRY_UNSUPPORTED_AFTER = Duration.ofMinutes(1);
+
+        /**
+         * Gets the delay after which the pipeline is tried again, once the server rejected it.
+         *
+         * @return The delay after which the pipeline is tried again.
+         *
+         * @see #setRetryUnsupportedAfter(Duration)
+         */
+        public Duration getRetryUnsupportedAfter() {
+            return this.retryUnsupportedAfter == null ? DEFAULT_RETRY_UNSUPPORTED_AFTER : this.retryUnsupportedAfter;
+        }
+
+        /**
+         * Sets the delay after which the pipeline is tried again, once the server rejected it as unsupported. Until
+         * then, all calls are sent directly. This allows the client to pick up the pipeline, once the servers have
+         * been (re-)deployed with the pipeline service enabled. Defaults to {@code 1min}. Default unit
+         * {@link ChronoUnit#SECONDS SECONDS}.
+         *
+         * @param retryUnsupportedAfter The delay after which the pipeline is tried again or null to use the fallback.
+         */
+        public void setRetryUnsupportedAfter(final Duration retryUnsupportedAfter) {
+            this.retryUnsupportedAfter = retryUnsupportedAfter;
+        }
+
+        // --------------------------------------------------
+
+        /**
+         * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please
+         * note that the getters might return fallback values instead.
+         *
+         * @param config The config to copy the defaults from.
+         */
+        public void copyDefaultsFrom(final Pipeline config) {
+            if (this == config) {
+                return;
+            }
+            if (this.enabled == null) {
+                this.enabled = config.enabled;
+            }
+            if (this.methods == null) {
+                this.methods = config.methods;
+            }
+            if (this.maxConcurrentCalls == null) {
+                this.maxConcurrentCalls = config.maxConcurrentCalls;
+            }
+            if (this.retryUnsupportedAfter == null) {
+                this.retryUnsupportedAfter = config.retryUnsupportedAfter;
+            }
+        }
+
+    }
+
+    /**
+     * A container with options for the pool of connections of the channel. A single HTTP/2 connection only allows a
+     * limited number of concurrent streams and is served by a single event loop thread. A pool spreads the calls over
+     * several underlying channels, each with its own connections.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class Connections {
+
+        private Integer size;
+        private static final int DEFAULT_SIZE = 1;
+
+        /**
+         * Gets the number of underlying channels that are always kept in the pool.
+         *
+         * @return The minimum size of the pool.
+         *
+         * @see #setSize(Integer)
+         */
+        public int getSize() {
+            return this.size == null ? DEFAULT_SIZE : Math.max(1, this.size);
+        }
+
+        /**
+         * Sets the number of underlying channels that are always kept in the pool. If {@link #setMaxSize(Integer)
+         * maxSize} isn't set, the pool has a fixed size. Defaults to {@code 1}, which disables the pool.
+         *
+         * @param size The minimum size of the pool or null to use the fallback.
+         */
+        public void setSize(final Integer size) {
+            this.size = size;
+        }
+
+        // --------------------------------------------------
+
+        private Integer maxSize;
+
+        /**
+         * Gets the maximum number of underlying channels in the pool.
+         *
+         * @return The maximum size of the pool.
+         *
+         * @see #setMaxSize(Integer)
+         */
+        public int getMaxSize() {
+            return this.maxSize == null ? getSize() : Math.max(getSize(), this.maxSize);
+        }
+
+        /**
+         * Sets the maximum number of underlying channels in the pool. If this is larger than the
+         * {@link #setSize(Integer) size}, the pool adds channels, once all channels have
+         * {@link #setMaxStreamsPerConnection(Integer) maxStreamsPerConnection} calls in flight, and removes them again,
+         * after they have been idle for the {@link #setIdleTimeout(Duration) idleTimeout}. Defaults to the size, which
+         * results in a fixed size pool.
+         *
+         * @param maxSize The maximum size of the pool or null to use the fallback.
+         */
+        public void setMaxSize(final Integer maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        // --------------------------------------------------
+
+        private Integer maxStreamsPerConnection;
+        private static final int DEFAULT_MAX_STREAMS_PER_CONNECTION = 100;
+
+        /**
+         * Gets the number of calls in flight per channel at which the pool grows.
+         *
+         * @return The number of calls in flight per channel.
+         *
+         * @see #setMaxStreamsPerConnection(Integer)
+         */
+        public int getMaxStreamsPerConnection() {
+            return this.maxStreamsPerConnection == null ? DEFAULT_MAX_STREAMS_PER_CONNECTION
+                    : Math.max(1, this.maxStreamsPerConnection);
+        }
+
+        /**
+         * Sets the number of calls in flight per channel at which the pool grows. This should match the
+         * {@code MAX_CONCURRENT_STREAMS} setting of the server. It's also used as the capacity to calculate the
+         * utilization of the pool. Defaults to {@code 100}.
+         *
+         * @param maxStreamsPerConnection The number of calls in flight per channel or null to use the fallback.
+         */
+        public void setMaxStreamsPerConnection(final Integer maxStreamsPerConnection) {
+            this.maxStreamsPerConnection = maxStreamsPerConnection;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration idleTimeout;
+        private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(1);
+
+        /**
+         * Gets the time after which idle channels that exceed the size of the pool are removed.
+         *
+         * @return The idle timeout.
+         *
+         * @see #setIdleTimeout(Duration)
+         */
+        public Duration getIdleTimeout() {
+            return this.idleTimeout == null ? DEFAULT_IDLE_TIMEOUT : this.idleTimeout;
+        }
+
+        /**
+         * Sets the time after which idle channels that exceed the {@link #setSize(Integer) size} of the pool are shut
+         * down and removed. Defaults to {@code 60s}. If no unit is specified, seconds are used.
+         *
+         * @param idleTimeout The idle timeout or null to use the fallback.
+         */
+        public void setIdleTimeout(final Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        // --------------------------------------------------
+
+        /**
+         * Checks whether these options result in a pool with more than one channel.
+         *
+         * @return True, if a pool should be used. False otherwise.
+         */
+        public boolean isPooled() {
+            return getMaxSize() > 1;
+        }
+
+        /**
+         * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please
+         * note that the getters might return fallback values instead.
+         *
+         * @param config The config to copy the defaults from.
+         */
+        public void copyDefaultsFrom(final Connections config) {
+            if (this == config) {
+                return;
+            }
+            if (this.size == null) {
+                this.size = config.size;
+            }
+            if (this.maxSize == null) {
+                this.maxSize = config.maxSize;
+            }
+            if (this.maxStreamsPerConnection == null) {
+                this.maxStreamsPerConnection = config.maxStreamsPerConnection;
+            }
+            if (this.idleTimeout == null) {
+                this.idleTimeout = config.idleTimeout;
+            }
+        }
+
+    }
+
+    /**
+     * A container with options for the load aware load balancing policies {@code least_request} and
+     * {@code peak_ewma}. These options are only used, if one of these policies is selected as
+     * {@link GrpcChannelProperties#setDefaultLoadBalancingPolicy(String) defaultLoadBalancingPolicy}.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class LoadBalancing {
+
+        private Integer choiceCount;
+        private static final int DEFAULT_CHOICE_COUNT = 2;
+
+        /**
+         * Gets the number of randomly sampled backends, from which the least loaded one is picked.
+         *
+         * @return The number of sampled backends.
+         *
+         * @see #setChoiceCount(Integer)
+         */
+        public int getChoiceCount() {
+            return this.choiceCount == null ? DEFAULT_CHOICE_COUNT : this.choiceCount;
+        }
+
+        /**
+         * Sets the number of randomly sampled backends, from which the least loaded one is picked for each call. The
+         * default power of two choices avoids that all clients pile onto the same backend, while still avoiding the
+         * most loaded ones. Must be at least {@code 2}. Defaults to {@code 2}.
+         *
+         * @param choiceCount The number of sampled backends or null to use the fallback.
+         */
+        public void setChoiceCount(final Integer choiceCount) {
+            this.choiceCount = choiceCount;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration decayTime;
+        private static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+
+        /**
+         * Gets the time after which the observed latency peaks of the {@code peak_ewma} policy have mostly decayed.
+         *
+         * @return The decay time.
+         *
+         * @see #setDecayTime(Duration)
+         */
+        public Duration getDecayTime() {
+            return this.decayTime == null ? DEFAULT_DECAY_TIME : this.decayTime;
+        }
+
+        /**
+         * Sets the time after which the observed latency peaks of the {@code peak_ewma} policy have mostly decayed.
+         * Short decay times react quickly to recovered backends, long decay times avoid flapping. Defaults to
+         * {@code 10s}. If no unit is specified, seconds are used.
+         *
+         * @param decayTime The decay time or null to use the fallback.
+         */
+        public void setDecayTime(final Duration decayTime) {
+            this.decayTime = decayTime;
+        }
+
+        // --------------------------------------------------
+
+        /**
+         * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please
+         * note that the getters might return fallback values instead.
+         *
+         * @param config The config to copy the defaults from.
+         */
+        public void copyDefaultsFrom(final LoadBalancing config) {
+            if (this == config) {
+                return;
+            }
+            if (this.choiceCount == null) {
+                this.choiceCount = config.choiceCount;
+            }
+            if (this.decayTime == null) {
+                this.decayTime = config.decayTime;
+            }
+        }
+
+    }
+
+    /**
+     * A container with options for the {@code weighted_round_robin} load balancing policy of grpc-java, that weights
+     * the backends by the load they report using the ORCA protocol. These options are only used, if this policy is
+     * selected as {@link GrpcChannelProperties#setDefaultLoadBalancingPolicy(String) defaultLoadBalancingPolicy}.
+     * Requires {@code io.grpc:grpc-xds}.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class WeightedRoundRobin {
+
+        private Boolean enableOobLoadReport;
+        private static final boolean DEFAULT_ENABLE_OOB_LOAD_REPORT = false;
+
+        /**
+         * Gets whether the load reports are received out-of-band instead of with every call.
+         *
+         * @return True, if the load reports are received out-of-band. False otherwise.
+         *
+         * @see #setEnableOobLoadReport(Boolean)
+         */
+        public boolean isEnableOobLoadReport() {
+            return this.enableOobLoadReport == null ? DEFAULT_ENABLE_OOB_LOAD_REPORT : this.enableOobLoadReport;
+        }
+
+        /**
+         * Sets whether the load reports are received out-of-band via a separate stream to every backend instead of
+         * with the trailers of every call. Out-of-band reports also work for backends that receive few calls, but
+         * require the ORCA service on the server. Defaults to {@code false}.
+         *
+         * @param enableOobLoadReport Whether the load reports are received out-of-band or null to use the fallback.
+         */
+        public void setEnableOobLoadReport(final Boolean enableOobLoadReport) {
+            this.enableOobLoadReport = enableOobLoadReport;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration oobReportingPeriod;
+        private static final Duration DEFAULT_OOB_REPORTING_PERIOD = Duration.ofSeconds(10);
+
+        /**
+         * Gets the interval in which the backends send their out-of-band load reports.
+         *
+         * @return The interval of the out-of-band load reports.
+         *
+         * @see #setOobReportingPeriod(Duration)
+         */
+        public Duration getOobReportingPeriod() {
+            return this.oobReportingPeriod == null ? DEFAULT_OOB_REPORTING_PERIOD : this.oobReportingPeriod;
+        }
+
+        /**
+         * Sets the interval in which the backends send their out-of-band load reports. The servers may send them less
+         * often. Defaults to {@code 10s}. If no unit is specified, seconds are used.
+         *
+         * @param oobReportingPeriod The interval of the out-of-band load reports or null to use the fallback.
+         */
+        public void setOobReportingPeriod(final Duration oobReportingPeriod) {
+            this.oobReportingPeriod = oobReportingPeriod;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration blackoutPeriod;
+        private static final Duration DEFAULT_BLACKOUT_PERIOD = Duration.ofSeconds(10);
+
+        /**
+         * Gets the time a backend has to report its load, before its weight is used.
+         *
+         * @return The blackout period.
+         *
+         * @see #setBlackoutPeriod(Duration)
+         */
+        public Duration getBlackoutPeriod() {
+            return this.blackoutPeriod == null ? DEFAULT_BLACKOUT_PERIOD : this.blackoutPeriod;
+        }
+
+        /**
+         * Sets the time a backend has to report its load, before its weight is used. Until then, the backend gets the
+         * mean weight of all backends, so that the weight of new or recovered backends doesn't fluctuate. Defaults to
+         * {@code 10s}. If no unit is specified, seconds are used.
+         *
+         * @param blackoutPeriod The blackout period or null to use the fallback.
+         */
+        public void setBlackoutPeriod(final Duration blackoutPeriod) {
+            this.blackoutPeriod = blackoutPeriod;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration weightExpirationPeriod;
+        private static final Duration DEFAULT_WEIGHT_EXPIRATION_PERIOD = Duration.ofMinutes(3);
+
+        /**
+         * Gets the time after which the weight of a backend, that didn't report its load, expires.
+         *
+         * @return The weight expiration period.
+         *
+         * @see #setWeightExpirationPeriod(Duration)
+         */
+        public Duration getWeightExpirationPeriod() {
+            return this.weightExpirationPeriod == null ? DEFAULT_WEIGHT_EXPIRATION_PERIOD
+                    : this.weightExpirationPeriod;
+        }
+
+        /**
+         * Sets the time after which the weight of a backend, that didn't report its load, expires. Backends with
+         * expired weights get the mean weight of all backends. Defaults to {@code 3m}. If no unit is specified,
+         * seconds are used.
+         *
+         * @param weightExpirationPeriod The weight expiration period or null to use the fallback.
+         */
+        public void setWeightExpirationPeriod(final Duration weightExpirationPeriod) {
+            this.weightExpirationPeriod = weightExpirationPeriod;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration weightUpdatePeriod;
+        private static final Duration DEFAULT_WEIGHT_UPDATE_PERIOD = Duration.ofSeconds(1);
+
+        /**
+         * Gets the interval in which the weights are recalculated from the load reports.
+         *
+         * @return The weight update period.
+         *
+         * @see #setWeightUpdatePeriod(Duration)
+         */
+        public Duration getWeightUpdatePeriod() {
+            return this.weightUpdatePeriod == null ? DEFAULT_WEIGHT_UPDATE_PERIOD : this.weightUpdatePeriod;
+        }
+
+        /**
+         * Sets the interval in which the weights are recalculated from the load reports. Values below {@code 100ms}
+         * are raised to {@code 100ms}. Defaults to {@code 1s}. If no unit is specified, seconds are used.
+         *
+         * @param weightUpdatePeriod The weight update period or null to use the fallback.
+         */
+        public void setWeightUpdatePeriod(final Duration weightUpdatePeriod) {
+            this.weightUpdatePeriod = weightUpdatePeriod;
+        }
+
+        // --------------------------------------------------
 
-    private Duration immediateConnectTimeout;
-    private static final Duration DEFAULT_IMMEDIATE_CONNECT = Duration.ZERO;
+        private Double errorUtilizationPenalty;
+        private static final double DEFAULT_ERROR_UTILIZATION_PENALTY = 1.0;
 
-    /**
-     * Get the connection timeout at application startup.
-     *
-     * @return connection timeout at application startup.
-     *
-     * @see #setImmediateConnectTimeout(Duration)
-     */
-    public Duration getImmediateConnectTimeout() {
-        return this.immediateConnectTimeout == null ? DEFAULT_IMMEDIATE_CONNECT : this.immediateConnectTimeout;
-    }
+        /**
+         * Gets the multiplier for the rate of errors, that is added to the reported utilization of a backend.
+         *
+         * @return The error utilization penalty.
+         *
+         * @see #setErrorUtilizationPenalty(Double)
+         */
+        public double getErrorUtilizationPenalty() {
+            return this.errorUtilizationPenalty == null ? DEFAULT_ERROR_UTILIZATION_PENALTY
+                    : this.errorUtilizationPenalty;
+        }
 
-    /**
-     * If set to a positive duration instructs the client to connect to the gRPC endpoint when the GRPC stub is created.
-     * As a result the application startup will be slightly slower due to connection process being executed
-     * synchronously up to the maximum to connection timeout. If the connection fails, the stub will fail to create with
-     * an exception which in turn causes the application context startup to fail. Defaults to {@code 0}.
-     *
-     * @param immediateConnectTimeout Connection timeout at application startup.
-     */
-    public void setImmediateConnectTimeout(final Duration immediateConnectTimeout) {
-        if (immediateConnectTimeout.isNegative()) {
-            throw new IllegalArgumentException("Timeout can't be negative");
+        /**
+         * Sets the multiplier for the rate of errors relative to the rate of calls, that is added to the reported
+         * utilization of a backend. This avoids that backends that fail fast attract more calls. Defaults to
+         * {@code 1.0}.
+         *
+         * @param errorUtilizationPenalty The error utilization penalty or null to use the fallback.
+         */
+        public void setErrorUtilizationPenalty(final Double errorUtilizationPenalty) {
+            this.errorUtilizationPenalty = errorUtilizationPenalty;
         }
-        this.immediateConnectTimeout = immediateConnectTimeout;
-    }
 
-    // --------------------------------------------------
+        // --------------------------------------------------
 
-    private String userAgent = null;
+        /**
+         * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please
+         * note that the getters might return fallback values instead.
+         *
+         * @param config The config to copy the defaults from.
+         */
+        public void copyDefaultsFrom(final WeightedRoundRobin config) {
+            if (this == config) {
+                return;
+            }
+            if (this.enableOobLoadReport == null) {
+                this.enableOobLoadReport = config.enableOobLoadReport;
+            }
+            if (this.oobReportingPeriod == null) {
+                this.oobReportingPeriod = config.oobReportingPeriod;
+            }
+            if (this.blackoutPeriod == null) {
+                this.blackoutPeriod = config.blackoutPeriod;
+            }
+            if (this.weightExpirationPeriod == null) {
+                this.weightExpirationPeriod = config.weightExpirationPeriod;
+            }
+            if (this.weightUpdatePeriod == null) {
+                this.weightUpdatePeriod = config.weightUpdatePeriod;
+            }
+            if (this.errorUtilizationPenalty == null) {
+                this.errorUtilizationPenalty = config.errorUtilizationPenalty;
+            }
+        }
 
-    /**
-     * Get custom User-Agent for the channel.
-     *
-     * @return custom User-Agent for the channel.
-     *
-     * @see #setUserAgent(String)
-     */
-    public String getUserAgent() {
-        return this.userAgent;
     }
 
     /**
-     * Sets custom User-Agent HTTP header.
-     *
-     * @param userAgent Custom User-Agent.
-     *
-     * @see ManagedChannelBuilder#userAgent(String)
+     * A container with options for the {@code zone_aware} load balancing policy, that prefers the backends in the
+     * same zone as the client. These options are only used, if this policy is selected as
+     * {@link GrpcChannelProperties#setDefaultLoadBalancingPolicy(String) defaultLoadBalancingPolicy}. The number of
+     * compared backends is configured via {@link GrpcChannelProperties#getLoadBalancing()}.
      */
-    public void setUserAgent(final String userAgent) {
-        this.userAgent = userAgent;
-    }
-
-    // --------------------------------------------------
-
-    private final Security security = new Security();
+    @ToString
+    @EqualsAndHashCode
+    public static class ZoneAware {
 
-    /**
-     * Gets the options for transport security.
-     *
-     * @return The options for transport security.
-     */
-    public Security getSecurity() {
-        return this.security;
-    }
+        private String localZone;
 
-    /**
-     * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please note
-     * that the getters might return fallback values instead.
-     *
-     * @param config The config to copy the defaults from.
-     */
-    public void copyDefaultsFrom(final GrpcChannelProperties config) {
-        if (this == config) {
-            return;
-        }
-        if (this.address == null) {
-            this.address = config.address;
-        }
-        if (this.defaultRequestTimeout == null) {
-            this.defaultRequestTimeout = config.defaultRequestTimeout;
-        }
-        if (this.defaultLoadBalancingPolicy == null) {
-            this.defaultLoadBalancingPolicy = config.defaultLoadBalancingPolicy;
-        }
-        if (this.enableKeepAlive == null) {
-            this.enableKeepAlive = config.enableKeepAlive;
-        }
-        if (this.keepAliveTime == null) {
-            this.keepAliveTime = config.keepAliveTime;
-        }
-        if (this.keepAliveTimeout == null) {
-            this.keepAliveTimeout = config.keepAliveTimeout;
-        }
-        if (this.keepAliveWithoutCalls == null) {
-            this.keepAliveWithoutCalls = config.keepAliveWithoutCalls;
+        /**
+         * Gets the zone of the client.
+         *
+         * @return The zone of the client or null, if it should be detected.
+         *
+         * @see #setLocalZone(String)
+         */
+        public String getLocalZone() {
+            return this.localZone;
         }
-        if (this.shutdownGracePeriod == null) {
-            this.shutdownGracePeriod = config.shutdownGracePeriod;
+
+        /**
+         * Sets the zone of the client. The zones of the backends are read from the discovery metadata. If not set, the
+         * zone is detected by the {@code ZoneDetector} bean, which by default reads the common spring cloud zone
+         * properties such as {@code spring.cloud.loadbalancer.zone}.
+         *
+         * @param localZone The zone of the client or null to detect it.
+         */
+        public void setLocalZone(final String localZone) {
+            this.localZone = localZone;
         }
-        if (this.maxInboundMessageSize == null) {
-            this.maxInboundMessageSize = config.maxInboundMessageSize;
+
+        // --------------------------------------------------
+
+        private Double minHealthyRatio;
+        private static final double DEFAULT_MIN_HEALTHY_RATIO = 0.7;
+
+        /**
+         * Gets the ratio of the local backends that have to be healthy, to prefer them over the other zones.
+         *
+         * @return The minimum ratio of healthy local backends.
+         *
+         * @see #setMinHealthyRatio(Double)
+         */
+        public double getMinHealthyRatio() {
+            return this.minHealthyRatio == null ? DEFAULT_MIN_HEALTHY_RATIO : this.minHealthyRatio;
         }
-        if (this.maxInboundMetadataSize == null) {
-            this.maxInboundMetadataSize = config.maxInboundMetadataSize;
+
+        /**
+         * Sets the ratio of the local backends that have to be healthy, to prefer them over the other zones. If fewer
+         * local backends are ready, the calls are spread across all zones, so that the remaining local backends aren't
+         * overloaded. Must be between {@code 0} and {@code 1}. Defaults to {@code 0.7}.
+         *
+         * @param minHealthyRatio The minimum ratio of healthy local backends or null to use the fallback.
+         */
+        public void setMinHealthyRatio(final Double minHealthyRatio) {
+            this.minHealthyRatio = minHealthyRatio;
         }
-        if (this.negotiationType == null) {
-            this.negotiationType = config.negotiationType;
+
+        // --------------------------------------------------
+
+        private Integer maxInFlightPerBackend;
+        private static final int DEFAULT_MAX_IN_FLIGHT_PER_BACKEND = 0;
+
+        /**
+         * Gets the number of calls in flight on a local backend, after which calls spill over to the other zones.
+         *
+         * @return The maximum number of calls in flight per local backend.
+         *
+         * @see #setMaxInFlightPerBackend(Integer)
+         */
+        public int getMaxInFlightPerBackend() {
+            return this.maxInFlightPerBackend == null ? DEFAULT_MAX_IN_FLIGHT_PER_BACKEND : this.maxInFlightPerBackend;
         }
-        if (this.immediateConnectTimeout == null) {
-            this.immediateConnectTimeout = config.immediateConnectTimeout;
+
+        /**
+         * Sets the number of calls in flight on a local backend, after which calls spill over to the other zones. If
+         * even the least loaded local backend reaches this limit, the call is sent to the least loaded backend of all
+         * zones instead. Defaults to {@code 0}, which disables the limit.
+         *
+         * @param maxInFlightPerBackend The maximum number of calls in flight per local backend or null to use the
+         *        fallback.
+         */
+        public void setMaxInFlightPerBackend(final Integer maxInFlightPerBackend) {
+            this.maxInFlightPerBackend = maxInFlightPerBackend;
         }
-        if (this.userAgent == null) {
-            this.userAgent = config.userAgent;
+
+        // --------------------------------------------------
+
+        /**
+         * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please
+         * note that the getters might return fallback values instead.
+         *
+         * @param config The config to copy the defaults from.
+         */
+        public void copyDefaultsFrom(final ZoneAware config) {
+            if (this == config) {
+                return;
+            }
+            if (this.localZone == null) {
+                this.localZone = config.localZone;
+            }
+            if (this.minHealthyRatio == null) {
+                this.minHealthyRatio = config.minHealthyRatio;
+            }
+            if (this.maxInFlightPerBackend == null) {
+                this.maxInFlightPerBackend = config.maxInFlightPerBackend;
+            }
         }
-        this.security.copyDefaultsFrom(config.security);
+
     }
 
     /**
@@ -951,6 +2686,141 @@ public void setProtocols(final String protocols) {
 
         // --------------------------------------------------
 
+        private SslProvider provider = null;
+
+        /**
+         * Gets the implementation that should be used for the TLS handshakes and encryption.
+         *
+         * @return The TLS implementation to use or null to auto detect it.
+         *
+         * @see #setProvider(SslProvider)
+         */
+        public SslProvider getProvider() {
+            return this.provider;
+        }
+
+        /**
+         * Sets the implementation that should be used for the TLS handshakes and encryption. If {@code null}, then
+         * OpenSSL will be used if {@code netty-tcnative} is available, otherwise the JDK's implementation.
+         *
+         * @param provider The TLS implementation to use or null to auto detect it.
+         *
+         * @see SslContextBuilder#sslProvider(io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider)
+         */
+        public void setProvider(final SslProvider provider) {
+            this.provider = provider;
+        }
+
+        // --------------------------------------------------
+
+        private Long sessionCacheSize;
+        private static final long DEFAULT_SESSION_CACHE_SIZE = 0;
+
+        /**
+         * Gets the maximum number of TLS sessions that are cached for session resumption.
+         *
+         * @return The maximum number of cached sessions or {@code 0} to use the provider's default.
+         *
+         * @see #setSessionCacheSize(Long)
+         */
+        public long getSessionCacheSize() {
+            return this.sessionCacheSize == null ? DEFAULT_SESSION_CACHE_SIZE : this.sessionCacheSize;
+        }
+
+        /**
+         * Sets the maximum number of TLS sessions that are cached for session resumption. Resumed sessions skip the
+         * expensive key exchange when reconnecting to the same server. If set to {@code 0}, then the provider's
+         * default will be used. Defaults to {@code 0}.
+         *
+         * @param sessionCacheSize The maximum number of cached sessions or null to use the fallback.
+         *
+         * @see SslContextBuilder#sessionCacheSize(long)
+         */
+        public void setSessionCacheSize(final Long sessionCacheSize) {
+            this.sessionCacheSize = sessionCacheSize;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration sessionTimeout;
+
+        /**
+         * Gets the time after which cached TLS sessions expire and can no longer be resumed.
+         *
+         * @return The time after which cached sessions expire or null to use the provider's default.
+         *
+         * @see #setSessionTimeout(Duration)
+         */
+        public Duration getSessionTimeout() {
+            return this.sessionTimeout;
+        }
+
+        /**
+         * Sets the time after which cached TLS sessions expire and can no longer be resumed. If {@code null}, then the
+         * provider's default will be used.
+         *
+         * @param sessionTimeout The time after which cached sessions expire or null to use the provider's default.
+         *
+         * @see SslContextBuilder#sessionTimeout(long)
+         */
+        public void setSessionTimeout(final Duration sessionTimeout) {
+            this.sessionTimeout = sessionTimeout;
+        }
+
+        // --------------------------------------------------
+
+        private Boolean reloadEnabled;
+        private static final boolean DEFAULT_RELOAD_ENABLED = false;
+
+        /**
+         * Gets whether the certificates and keys should be reloaded, when the underlying files change.
+         *
+         * @return True, if the certificates should be reloaded. False otherwise.
+         */
+        public boolean isReloadEnabled() {
+            return this.reloadEnabled == null ? DEFAULT_RELOAD_ENABLED : this.reloadEnabled;
+        }
+
+        /**
+         * Sets whether the certificates and keys should be reloaded, when the underlying files change. New connections
+         * will use the new material, existing connections are not affected. This requires file based resources.
+         * Defaults to {@code false}.
+         *
+         * @param reloadEnabled Whether the certificates should be reloaded or null to use the fallback.
+         */
+        public void setReloadEnabled(final Boolean reloadEnabled) {
+            this.reloadEnabled = reloadEnabled;
+        }
+
+        // --------------------------------------------------
+
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration reloadDelay;
+        private static final Duration DEFAULT_RELOAD_DELAY = Duration.ofSeconds(1);
+
+        /**
+         * Gets the time to wait for further file changes before the certificates are reloaded.
+         *
+         * @return The time to wait before reloading.
+         */
+        public Duration getReloadDelay() {
+            return this.reloadDelay == null ? DEFAULT_RELOAD_DELAY : this.reloadDelay;
+        }
+
+        /**
+         * Sets the time to wait for further file changes before the certificates are reloaded. This avoids loading
+         * partially written files, if the certificate and the key are updated one after the other. Defaults to
+         * {@code 1s}.
+         *
+         * @param reloadDelay The time to wait before reloading or null to use the fallback.
+         */
+        public void setReloadDelay(final Duration reloadDelay) {
+            this.reloadDelay = reloadDelay;
+        }
+
+        // --------------------------------------------------
+
         /**
          * Copies the defaults from the given configuration. Values are considered "default" if they are null. Please
          * note that the getters might return fallback values instead.
@@ -1003,6 +2873,21 @@ public void copyDefaultsFrom(final Security config) {
             if (this.protocols == null) {
                 this.protocols = config.protocols;
             }
+            if (this.provider == null) {
+                this.provider = config.provider;
+            }
+            if (this.sessionCacheSize == null) {
+                this.sessionCacheSize = config.sessionCacheSize;
+            }
+            if (this.sessionTimeout == null) {
+                this.sessionTimeout = config.sessionTimeout;
+            }
+            if (this.reloadEnabled == null) {
+                this.reloadEnabled = config.reloadEnabled;
+            }
+            if (this.reloadDelay == null) {
+                this.reloadDelay = config.reloadDelay;
+            }
         }
 
     }
@@ -16,10 +16,13 @@
 
 package net.devh.boot.grpc.client.config;
 
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
 
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
@@ -113,4 +116,95 @@ public void setDefaultScheme(String defaultScheme) {
         this.defaultScheme = defaultScheme;
     }
 
+    private final Discovery discovery = new Discovery();
+
+    /**
+     * Gets the options for the refresh of the {@code discovery} name resolvers.
+     *
+     * @return The options for the discovery name resolvers.
+     */
+    public Discovery getDiscovery() {
+        return this.discovery;
+    }
+
+    /**
+     * A container with options for the refresh of the {@code discovery} name resolvers, that are shared by all
+     * channels.
+     */
+    @ToString
+    @EqualsAndHashCode
+    public static class Discovery {
+
+        private Duration heartbeatDebounce = Duration.ofSeconds(1);
+
+        /**
+         * Gets the time to wait for further heartbeats before refreshing the resolvers.
+         *
+         * @return The heartbeat debounce.
+         * @see #setHeartbeatDebounce(Duration)
+         */
+        public Duration getHeartbeatDebounce() {
+            return this.heartbeatDebounce;
+        }
+
+        /**
+         * Sets the time to wait for further heartbeats before refreshing the resolvers. All changed heartbeats within
+         * this time only trigger a single refresh. Use {@code 0} to refresh the resolvers immediately. Defaults to
+         * {@code 1s}. If no unit is specified, milliseconds are used.
+         *
+         * @param heartbeatDebounce The heartbeat debounce.
+         */
+        public void setHeartbeatDebounce(final Duration heartbeatDebounce) {
+            this.heartbeatDebounce = heartbeatDebounce;
+        }
+
+        private int maxConcurrentFetches = 8;
+
+        /**
+         * Gets the maximum number of services that are fetched from the discovery client at the same time.
+         *
+         * @return The maximum number of concurrent fetches.
+         * @see #setMaxConcurrentFetches(int)
+         */
+        public int getMaxConcurrentFetches() {
+            return this.maxConcurrentFetches;
+        }
+
+        /**
+         * Sets the maximum number of services that are fetched from the discovery client at the same time. Channels for
+         * the same service always share a single fetch. Defaults to {@code 8}.
+         *
+         * @param maxConcurrentFetches The maximum number of concurrent fetches.
+         */
+        public void setMaxConcurrentFetches(final int maxConcurrentFetches) {
+            this.maxConcurrentFetches = maxConcurrentFetches;
+        }
+
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration refreshInterval = Duration.ofSeconds(60);
+
+        /**
+         * Gets the interval in which the resolvers are refreshed, even if there are no heartbeats.
+         *
+         * @return The refresh interval.
+         * @see #setRefreshInterval(Duration)
+         */
+        public Duration getRefreshInterval() {
+            return this.refreshInterval;
+        }
+
+        /**
+         * Sets the interval in which the resolvers are refreshed, even if there are no heartbeats. This covers
+         * discovery clients that don't emit heartbeats. The actual interval varies by up to 20%, so that the
+         * applications don't query the registry at the same time. Use {@code 0} to disable the periodic refresh.
+         * Defaults to {@code 60s}. If no unit is specified, seconds are used.
+         *
+         * @param refreshInterval The refresh interval.
+         */
+        public void setRefreshInterval(final Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+
+    }
+
 }
@@ -46,6 +46,7 @@
 import io.grpc.stub.AbstractStub;
 import jakarta.annotation.PostConstruct;
 import net.devh.boot.grpc.client.channelfactory.GrpcChannelFactory;
+import net.devh.boot.grpc.client.loadbalancer.LoadBalancerRegistration;
 import net.devh.boot.grpc.client.nameresolver.NameResolverRegistration;
 import net.devh.boot.grpc.client.stubfactory.FallbackStubFactory;
 import net.devh.boot.grpc.client.stubfactory.StubFactory;
@@ -234,6 +235,8 @@ private GrpcChannelFactory getChannelFactory() {
         if (this.channelFactory == null) {
             // Ensure that the NameResolverProviders have been registered
             this.applicationContext.getBean(NameResolverRegistration.class);
+            // Ensure that the LoadBalancerProviders have been registered
+            this.applicationContext.getBean(LoadBalancerRegistration.class);
             final GrpcChannelFactory factory = this.applicationContext.getBean(GrpcChannelFactory.class);
             this.channelFactory = factory;
             return factory;
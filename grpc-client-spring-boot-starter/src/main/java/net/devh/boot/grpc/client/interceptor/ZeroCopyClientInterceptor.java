@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.interceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+import net.devh.boot.grpc.common.marshaller.ZeroCopyProtoMarshaller;
+
+/**
+ * A client interceptor that replaces the protobuf marshallers of the called methods with
+ * {@link ZeroCopyProtoMarshaller}s, so that the responses are parsed directly from the transport's buffers. The stubs
+ * use the generated method descriptors, so they cannot be rewritten in advance.
+ */
+public class ZeroCopyClientInterceptor implements ClientInterceptor {
+
+    private final Map<MethodDescriptor<?, ?>, MethodDescriptor<?, ?>> methods = new ConcurrentHashMap<>();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(final MethodDescriptor<ReqT, RespT> method,
+            final CallOptions callOptions, final Channel next) {
+        final MethodDescriptor<ReqT, RespT> wrapped =
+                (MethodDescriptor<ReqT, RespT>) this.methods.computeIfAbsent(method, ZeroCopyProtoMarshaller::wrap);
+        return next.newCall(wrapped, callOptions);
+    }
+
+}
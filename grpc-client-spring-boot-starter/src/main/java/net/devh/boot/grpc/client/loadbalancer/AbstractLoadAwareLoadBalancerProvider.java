@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancer.Helper;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.LoadBalancerProvider;
+import io.grpc.NameResolver.ConfigOrError;
+import io.grpc.Status;
+import io.grpc.internal.JsonUtil;
+import net.devh.boot.grpc.client.loadbalancer.LoadAwareLoadBalancer.Entry;
+import net.devh.boot.grpc.client.loadbalancer.LoadAwareLoadBalancer.LoadPicker;
+
+/**
+ * Base class for load balancer providers that pick the least loaded of n randomly chosen subchannels. Implementations
+ * only have to define the {@link #getCost(SubchannelLoad, long) cost} of a subchannel. The policies support the
+ * following options in their {@code loadBalancingConfig}:
+ *
+ * <ul>
+ * <li>{@code choiceCount}: The number of randomly chosen subchannels to compare for each call (defaults to 2).</li>
+ * <li>{@code decayTime}: The time after which old latency observations lose most of their influence (defaults to
+ * 10s).</li>
+ * </ul>
+ */
+public abstract class AbstractLoadAwareLoadBalancerProvider extends LoadBalancerProvider {
+
+    private static final int DEFAULT_CHOICE_COUNT = 2;
+    private static final Duration DEFAULT_DECAY_TIME = Duration.ofSeconds(10);
+
+    private final SubchannelLoadRegistry registry;
+
+    /**
+     * Creates a new load aware load balancer provider.
+     *
+     * @param registry The registry to report the subchannel loads to or null, if they should not be reported.
+     */
+    protected AbstractLoadAwareLoadBalancerProvider(final SubchannelLoadRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(final Helper helper) {
+        return new LoadAwareLoadBalancer(helper, this);
+    }
+
+    @Override
+    public ConfigOrError parseLoadBalancingPolicyConfig(final Map<String, ?> rawConfig) {
+        try {
+            final Integer choiceCount = JsonUtil.getNumberAsInteger(rawConfig, "choiceCount");
+            if (choiceCount != null && choiceCount < 2) {
+                throw new IllegalArgumentException("choiceCount must be at least 2, but was " + choiceCount);
+            }
+            final Long decayNanos = JsonUtil.getStringAsDuration(rawConfig, "decayTime");
+            if (decayNanos != null && decayNanos <= 0) {
+                throw new IllegalArgumentException("decayTime must be positive, but was " + decayNanos + "ns");
+            }
+            return ConfigOrError.fromConfig(newConfig(rawConfig,
+                    choiceCount == null ? DEFAULT_CHOICE_COUNT : choiceCount,
+                    decayNanos == null ? DEFAULT_DECAY_TIME : Duration.ofNanos(decayNanos)));
+        } catch (final RuntimeException e) {
+            return ConfigOrError.fromError(Status.UNAVAILABLE.withCause(e)
+                    .withDescription("Failed to parse " + getPolicyName() + " config: " + rawConfig));
+        }
+    }
+
+    /**
+     * Gets the cost of sending another call to the given subchannel. The subchannel with the lowest cost will be
+     * picked.
+     *
+     * @param load The load of the subchannel.
+     * @param nowNanos The current time as returned by {@link System#nanoTime()}.
+     * @return The cost of another call.
+     */
+    protected abstract double getCost(SubchannelLoad load, long nowNanos);
+
+    Config getDefaultConfig() {
+        return newConfig(Collections.emptyMap(), DEFAULT_CHOICE_COUNT, DEFAULT_DECAY_TIME);
+    }
+
+    /**
+     * Creates the config of the policy. Implementations with additional options can parse them from the given raw
+     * config.
+     *
+     * @param rawConfig The raw config to parse additional options from.
+     * @param choiceCount The number of randomly chosen subchannels to compare for each call.
+     * @param decayTime The time after which old latency observations lose most of their influence.
+     * @return The newly created config.
+     * @throws IllegalArgumentException If the raw config contains invalid options.
+     */
+    Config newConfig(final Map<String, ?> rawConfig, final int choiceCount, final Duration decayTime) {
+        return new Config(choiceCount, decayTime);
+    }
+
+    /**
+     * Creates the picker that is used while at least one subchannel is ready.
+     *
+     * @param ready The ready subchannels.
+     * @param all All subchannels, including those that aren't ready.
+     * @param config The config of the policy.
+     * @return The newly created picker.
+     */
+    SubchannelPicker newPicker(final List<Entry> ready, final Collection<Entry> all, final Config config) {
+        return new LoadPicker(ready, this, config.getChoiceCount());
+    }
+
+    /**
+     * Gets the zone of the client, that is used to determine the locality of the subchannels.
+     *
+     * @param config The config of the policy.
+     * @return The zone of the client or null, if the policy isn't zone aware.
+     */
+    @Nullable
+    String getLocalZone(final Config config) {
+        return null;
+    }
+
+    void register(final SubchannelLoad load) {
+        if (this.registry != null) {
+            this.registry.register(load);
+        }
+    }
+
+    void unregister(final SubchannelLoad load) {
+        if (this.registry != null) {
+            this.registry.unregister(load);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [" + getPolicyName() + "]";
+    }
+
+    /**
+     * The parsed options of a load aware load balancing policy.
+     */
+    static class Config {
+
+        private final int choiceCount;
+        private final Duration decayTime;
+
+        Config(final int choiceCount, final Duration decayTime) {
+            this.choiceCount = choiceCount;
+            this.decayTime = requireNonNull(decayTime, "decayTime");
+        }
+
+        /**
+         * Gets the number of randomly chosen subchannels to compare for each call.
+         *
+         * @return The number of choices.
+         */
+        int getChoiceCount() {
+            return this.choiceCount;
+        }
+
+        /**
+         * Gets the time after which old latency observations lose most of their influence.
+         *
+         * @return The decay time.
+         */
+        Duration getDecayTime() {
+            return this.decayTime;
+        }
+
+        @Override
+        public String toString() {
+            return "Config [choiceCount=" + this.choiceCount + ", decayTime=" + this.decayTime + "]";
+        }
+
+    }
+
+}
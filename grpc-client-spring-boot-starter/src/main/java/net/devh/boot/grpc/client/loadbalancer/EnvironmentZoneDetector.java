@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+
+import org.springframework.core.env.Environment;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link ZoneDetector} that reads the zone from the properties, that are commonly used by the spring cloud discovery
+ * clients to publish the zone of the application. The first property that is set wins:
+ *
+ * <ol>
+ * <li>{@code spring.cloud.loadbalancer.zone}</li>
+ * <li>{@code eureka.instance.metadata-map.zone}</li>
+ * <li>{@code spring.cloud.consul.discovery.instance-zone}</li>
+ * <li>{@code spring.cloud.nacos.discovery.metadata.zone}</li>
+ * <li>{@code ZONE} (e.g. an environment variable)</li>
+ * </ol>
+ */
+@Slf4j
+public class EnvironmentZoneDetector implements ZoneDetector {
+
+    private static final List<String> ZONE_PROPERTIES = List.of(
+            "spring.cloud.loadbalancer.zone",
+            "eureka.instance.metadata-map.zone",
+            "spring.cloud.consul.discovery.instance-zone",
+            "spring.cloud.nacos.discovery.metadata.zone",
+            "ZONE");
+
+    private final Environment environment;
+
+    /**
+     * Creates a new zone detector that reads the zone from the given environment.
+     *
+     * @param environment The environment to read the zone from.
+     */
+    public EnvironmentZoneDetector(final Environment environment) {
+        this.environment = requireNonNull(environment, "environment");
+    }
+
+    @Override
+    public String detectZone() {
+        for (final String property : ZONE_PROPERTIES) {
+            final String zone = this.environment.getProperty(property);
+            if (zone != null && !zone.isEmpty()) {
+                log.debug("Detected zone '{}' from '{}'", zone, property);
+                return zone;
+            }
+        }
+        log.debug("Could not detect the zone of the application");
+        return null;
+    }
+
+}
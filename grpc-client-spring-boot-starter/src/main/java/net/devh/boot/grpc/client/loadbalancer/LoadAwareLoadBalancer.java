@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import static io.grpc.ConnectivityState.CONNECTING;
+import static io.grpc.ConnectivityState.IDLE;
+import static io.grpc.ConnectivityState.READY;
+import static io.grpc.ConnectivityState.SHUTDOWN;
+import static io.grpc.ConnectivityState.TRANSIENT_FAILURE;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Status;
+import net.devh.boot.grpc.client.loadbalancer.AbstractLoadAwareLoadBalancerProvider.Config;
+import net.devh.boot.grpc.client.nameresolver.DiscoveryClientResolverFactory;
+
+/**
+ * A load balancer that connects to all resolved addresses and sends every call to the least loaded of
+ * {@link Config#getChoiceCount() n} randomly chosen ready subchannels ("power of n choices"). The load of a subchannel
+ * is determined by the {@link AbstractLoadAwareLoadBalancerProvider provider}.
+ */
+final class LoadAwareLoadBalancer extends LoadBalancer {
+
+    private final Helper helper;
+    private final AbstractLoadAwareLoadBalancerProvider provider;
+    private final Map<EquivalentAddressGroup, Entry> subchannels = new HashMap<>();
+    private Config config;
+    private ConnectivityState currentState;
+    private SubchannelPicker currentPicker;
+
+    LoadAwareLoadBalancer(final Helper helper, final AbstractLoadAwareLoadBalancerProvider provider) {
+        this.helper = requireNonNull(helper, "helper");
+        this.provider = requireNonNull(provider, "provider");
+        this.config = provider.getDefaultConfig();
+    }
+
+    @Override
+    public Status acceptResolvedAddresses(final ResolvedAddresses resolvedAddresses) {
+        final List<EquivalentAddressGroup> addresses = resolvedAddresses.getAddresses();
+        if (addresses.isEmpty()) {
+            final Status status = Status.UNAVAILABLE.withDescription(
+                    "NameResolver returned no usable address. attrs=" + resolvedAddresses.getAttributes());
+            handleNameResolutionError(status);
+            return status;
+        }
+        final Object parsedConfig = resolvedAddresses.getLoadBalancingPolicyConfig();
+        if (parsedConfig instanceof Config) {
+            this.config = (Config) parsedConfig;
+        }
+
+        final Map<EquivalentAddressGroup, Entry> removed = new HashMap<>(this.subchannels);
+        for (final EquivalentAddressGroup address : addresses) {
+            // Attributes may change without the address changing
+            final EquivalentAddressGroup key = new EquivalentAddressGroup(address.getAddresses());
+            final Entry existing = removed.remove(key);
+            if (existing != null) {
+                existing.subchannel.updateAddresses(List.of(address));
+                existing.load.setDecayNanos(this.config.getDecayTime().toNanos());
+                continue;
+            }
+            final Subchannel subchannel = this.helper.createSubchannel(CreateSubchannelArgs.newBuilder()
+                    .setAddresses(address)
+                    .build());
+            final String zone = address.getAttributes().get(DiscoveryClientResolverFactory.DISCOVERY_ZONE_KEY);
+            final SubchannelLoad load = new SubchannelLoad(this.provider.getPolicyName(), this.helper.getAuthority(),
+                    key.getAddresses().toString(), zone, getLocality(zone), this.config.getDecayTime().toNanos());
+            final Entry entry = new Entry(subchannel, load, zone);
+            this.subchannels.put(key, entry);
+            this.provider.register(load);
+            subchannel.start(stateInfo -> processSubchannelState(entry, stateInfo));
+            subchannel.requestConnection();
+        }
+        for (final Map.Entry<EquivalentAddressGroup, Entry> entry : removed.entrySet()) {
+            this.subchannels.remove(entry.getKey());
+            shutdown(entry.getValue());
+        }
+        updateBalancingState();
+        return Status.OK;
+    }
+
+    @Override
+    public void handleNameResolutionError(final Status error) {
+        if (this.currentState != READY) {
+            updateState(TRANSIENT_FAILURE, new ErrorPicker(error));
+        }
+    }
+
+    @Override
+    public void requestConnection() {
+        for (final Entry entry : this.subchannels.values()) {
+            if (entry.state.getState() == IDLE) {
+                entry.subchannel.requestConnection();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        for (final Entry entry : this.subchannels.values()) {
+            shutdown(entry);
+        }
+        this.subchannels.clear();
+    }
+
+    private void shutdown(final Entry entry) {
+        entry.subchannel.shutdown();
+        entry.state = ConnectivityStateInfo.forNonError(SHUTDOWN);
+        this.provider.unregister(entry.load);
+    }
+
+    private String getLocality(final String zone) {
+        final String localZone = this.provider.getLocalZone(this.config);
+        if (localZone == null || zone == null) {
+            return SubchannelLoad.LOCALITY_UNKNOWN;
+        }
+        return localZone.equals(zone) ? SubchannelLoad.LOCALITY_LOCAL : SubchannelLoad.LOCALITY_CROSS_ZONE;
+    }
+
+    private void processSubchannelState(final Entry entry, final ConnectivityStateInfo stateInfo) {
+        if (entry.state.getState() == SHUTDOWN) {
+            return;
+        }
+        if (stateInfo.getState() == IDLE) {
+            entry.subchannel.requestConnection();
+        }
+        // Keep reporting the failure until the subchannel is ready again, instead of flapping between the states
+        if (entry.state.getState() == TRANSIENT_FAILURE
+                && (stateInfo.getState() == CONNECTING || stateInfo.getState() == IDLE)) {
+            return;
+        }
+        entry.state = stateInfo;
+        updateBalancingState();
+    }
+
+    private void updateBalancingState() {
+        final List<Entry> ready = new ArrayList<>();
+        boolean connecting = false;
+        Status failure = null;
+        for (final Entry entry : this.subchannels.values()) {
+            final ConnectivityStateInfo state = entry.state;
+            if (state.getState() == READY) {
+                ready.add(entry);
+            } else if (state.getState() == CONNECTING || state.getState() == IDLE) {
+                connecting = true;
+            } else if (state.getState() == TRANSIENT_FAILURE) {
+                failure = state.getStatus();
+            }
+        }
+        if (!ready.isEmpty()) {
+            updateState(READY, this.provider.newPicker(ready, this.subchannels.values(), this.config));
+        } else if (connecting) {
+            updateState(CONNECTING, new QueuePicker());
+        } else if (failure != null) {
+            updateState(TRANSIENT_FAILURE, new ErrorPicker(failure));
+        }
+    }
+
+    private void updateState(final ConnectivityState state, final SubchannelPicker picker) {
+        if (state == this.currentState && state != READY && state != TRANSIENT_FAILURE) {
+            return;
+        }
+        this.currentState = state;
+        this.currentPicker = picker;
+        this.helper.updateBalancingState(state, picker);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[policy=" + this.provider.getPolicyName() + ", state=" + this.currentState
+                + ", picker=" + this.currentPicker + "]";
+    }
+
+    /**
+     * A subchannel together with its last known state and load.
+     */
+    static final class Entry {
+
+        final Subchannel subchannel;
+        final SubchannelLoad load;
+        final String zone;
+        volatile ConnectivityStateInfo state = ConnectivityStateInfo.forNonError(IDLE);
+
+        Entry(final Subchannel subchannel, final SubchannelLoad load, final String zone) {
+            this.subchannel = subchannel;
+            this.load = load;
+            this.zone = zone;
+        }
+
+        boolean isReady() {
+            return this.state.getState() == READY;
+        }
+
+    }
+
+    /**
+     * Picks the least loaded of n randomly chosen ready subchannels.
+     */
+    static final class LoadPicker extends SubchannelPicker {
+
+        private final Entry[] ready;
+        private final AbstractLoadAwareLoadBalancerProvider provider;
+        private final int choiceCount;
+
+        LoadPicker(final List<Entry> ready, final AbstractLoadAwareLoadBalancerProvider provider,
+                final int choiceCount) {
+            this.ready = ready.toArray(new Entry[0]);
+            this.provider = provider;
+            this.choiceCount = choiceCount;
+        }
+
+        @Override
+        public PickResult pickSubchannel(final PickSubchannelArgs args) {
+            return pick(select());
+        }
+
+        /**
+         * Selects the least loaded of n randomly chosen subchannels, without picking it yet.
+         *
+         * @return The selected subchannel.
+         */
+        Entry select() {
+            return this.choiceCount >= this.ready.length ? pickFromAll() : pickFromSample();
+        }
+
+        /**
+         * Picks the given subchannel for a call and tracks its load.
+         *
+         * @param picked The subchannel to send the call to.
+         * @return The pick result for the subchannel.
+         */
+        static PickResult pick(final Entry picked) {
+            picked.load.onPick();
+            return PickResult.withSubchannel(picked.subchannel, picked.load.getTracerFactory());
+        }
+
+        private Entry pickFromAll() {
+            final long now = System.nanoTime();
+            // Start at a random position, so that ties don't always favor the same subchannel
+            final int offset = ThreadLocalRandom.current().nextInt(this.ready.length);
+            Entry best = null;
+            double bestCost = Double.MAX_VALUE;
+            for (int i = 0; i < this.ready.length; i++) {
+                final Entry candidate = this.ready[(offset + i) % this.ready.length];
+                final double cost = this.provider.getCost(candidate.load, now);
+                if (best == null || cost < bestCost) {
+                    best = candidate;
+                    bestCost = cost;
+                }
+            }
+            return best;
+        }
+
+        private Entry pickFromSample() {
+            final long now = System.nanoTime();
+            final ThreadLocalRandom random = ThreadLocalRandom.current();
+            final int length = this.ready.length;
+            final int[] chosen = new int[this.choiceCount];
+            Entry best = null;
+            double bestCost = Double.MAX_VALUE;
+            for (int i = 0; i < this.choiceCount; i++) {
+                // Draw distinct indices by skipping over the ones that have already been chosen (kept sorted)
+                int index = random.nextInt(length - i);
+                for (int j = 0; j < i; j++) {
+                    if (index >= chosen[j]) {
+                        index++;
+                    }
+                }
+                chosen[i] = index;
+                Arrays.sort(chosen, 0, i + 1);
+                final Entry candidate = this.ready[index];
+                final double cost = this.provider.getCost(candidate.load, now);
+                if (best == null || cost < bestCost) {
+                    best = candidate;
+                    bestCost = cost;
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public String toString() {
+            return "LoadPicker [ready=" + this.ready.length + ", choiceCount=" + this.choiceCount + "]";
+        }
+
+    }
+
+    /**
+     * Queues all calls until a subchannel becomes ready.
+     */
+    private static final class QueuePicker extends SubchannelPicker {
+
+        @Override
+        public PickResult pickSubchannel(final PickSubchannelArgs args) {
+            return PickResult.withNoResult();
+        }
+
+        @Override
+        public String toString() {
+            return "QueuePicker";
+        }
+
+    }
+
+    /**
+     * Fails all calls with the given status.
+     */
+    private static final class ErrorPicker extends SubchannelPicker {
+
+        private final PickResult result;
+
+        ErrorPicker(final Status status) {
+            this.result = PickResult.withError(status);
+        }
+
+        @Override
+        public PickResult pickSubchannel(final PickSubchannelArgs args) {
+            return this.result;
+        }
+
+        @Override
+        public String toString() {
+            return "ErrorPicker [" + this.result + "]";
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import com.google.common.collect.ImmutableList;
+
+import io.grpc.LoadBalancerProvider;
+import io.grpc.LoadBalancerRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The LoadBalancerRegistration manages the registration and de-registration of Spring managed load balancer providers.
+ */
+@Slf4j
+public class LoadBalancerRegistration implements DisposableBean {
+
+    private final List<LoadBalancerRegistry> registries = new ArrayList<>(1);
+    private final List<LoadBalancerProvider> providers;
+
+    /**
+     * Creates a new LoadBalancerRegistration with the given list of providers.
+     *
+     * @param providers The providers that should be managed.
+     */
+    public LoadBalancerRegistration(final List<LoadBalancerProvider> providers) {
+        this.providers = providers == null ? ImmutableList.of() : ImmutableList.copyOf(providers);
+    }
+
+    /**
+     * Register all LoadBalancerProviders in the given registry and store a reference to it for later de-registration.
+     *
+     * @param registry The registry to add the providers to.
+     */
+    public void register(final LoadBalancerRegistry registry) {
+        this.registries.add(registry);
+        for (final LoadBalancerProvider provider : this.providers) {
+            registry.register(provider);
+            log.debug("{} was added to the LoadBalancerRegistry", provider);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        for (final LoadBalancerRegistry registry : this.registries) {
+            for (final LoadBalancerProvider provider : this.providers) {
+                registry.deregister(provider);
+                log.debug("{} was removed from the LoadBalancerRegistry", provider);
+            }
+        }
+        this.registries.clear();
+    }
+
+}
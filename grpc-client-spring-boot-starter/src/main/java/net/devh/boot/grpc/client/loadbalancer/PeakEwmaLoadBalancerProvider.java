@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+/**
+ * Provides the {@code peak_ewma} load balancing policy, which sends every call to the subchannel with the lowest
+ * latency weighted by its calls in flight out of n randomly chosen ones. The latency is tracked as a peak
+ * exponentially weighted moving average, so slow backends are avoided as soon as they become slow.
+ */
+public class PeakEwmaLoadBalancerProvider extends AbstractLoadAwareLoadBalancerProvider {
+
+    /**
+     * The name of the policy.
+     */
+    public static final String POLICY_NAME = "peak_ewma";
+
+    /**
+     * Creates a new peak EWMA load balancer provider that doesn't report the subchannel loads.
+     */
+    public PeakEwmaLoadBalancerProvider() {
+        this(null);
+    }
+
+    /**
+     * Creates a new peak EWMA load balancer provider.
+     *
+     * @param registry The registry to report the subchannel loads to or null, if they should not be reported.
+     */
+    public PeakEwmaLoadBalancerProvider(final SubchannelLoadRegistry registry) {
+        super(registry);
+    }
+
+    @Override
+    public String getPolicyName() {
+        return POLICY_NAME;
+    }
+
+    @Override
+    protected double getCost(final SubchannelLoad load, final long nowNanos) {
+        return load.getPeakEwmaCost(nowNanos);
+    }
+
+}
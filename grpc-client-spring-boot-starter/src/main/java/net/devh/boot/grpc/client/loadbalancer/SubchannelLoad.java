@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+/**
+ * Tracks the load of a single subchannel of a load aware load balancer: the number of calls in flight and the peak
+ * exponentially weighted moving average (peak EWMA) of the call latency. The peak EWMA immediately jumps to higher
+ * latencies, but only slowly decays towards lower ones, so that a backend that became slow is avoided right away.
+ */
+public final class SubchannelLoad {
+
+    /**
+     * The locality of a subchannel in the same zone as the client.
+     */
+    public static final String LOCALITY_LOCAL = "local";
+    /**
+     * The locality of a subchannel in a different zone than the client.
+     */
+    public static final String LOCALITY_CROSS_ZONE = "cross_zone";
+    /**
+     * The locality of a subchannel, if the zone of the client or the backend is unknown.
+     */
+    public static final String LOCALITY_UNKNOWN = "unknown";
+
+    /**
+     * The cost of a subchannel that has calls in flight, but no latency observations yet.
+     */
+    private static final double PENALTY = Long.MAX_VALUE >> 16;
+
+    private final String policy;
+    private final String target;
+    private final String address;
+    private final String zone;
+    private final String locality;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong picks = new AtomicLong();
+    private final ClientStreamTracer.Factory tracerFactory = new TracerFactory();
+    private volatile long decayNanos;
+    @GuardedBy("this")
+    private double latencyNanos;
+    @GuardedBy("this")
+    private long stampNanos = System.nanoTime();
+
+    SubchannelLoad(final String policy, final String target, final String address, @Nullable final String zone,
+            final String locality, final long decayNanos) {
+        this.policy = requireNonNull(policy, "policy");
+        this.target = requireNonNull(target, "target");
+        this.address = requireNonNull(address, "address");
+        this.zone = zone;
+        this.locality = requireNonNull(locality, "locality");
+        this.decayNanos = decayNanos;
+    }
+
+    /**
+     * Gets the name of the load balancing policy that uses this subchannel.
+     *
+     * @return The name of the policy.
+     */
+    public String getPolicy() {
+        return this.policy;
+    }
+
+    /**
+     * Gets the authority of the channel this subchannel belongs to.
+     *
+     * @return The authority of the channel.
+     */
+    public String getTarget() {
+        return this.target;
+    }
+
+    /**
+     * Gets the address of the backend this subchannel connects to.
+     *
+     * @return The address of the backend.
+     */
+    public String getAddress() {
+        return this.address;
+    }
+
+    /**
+     * Gets the zone of the backend this subchannel connects to.
+     *
+     * @return The zone of the backend or null, if it is unknown.
+     */
+    @Nullable
+    public String getZone() {
+        return this.zone;
+    }
+
+    /**
+     * Gets whether the backend is in the same zone as the client.
+     *
+     * @return {@link #LOCALITY_LOCAL}, {@link #LOCALITY_CROSS_ZONE} or {@link #LOCALITY_UNKNOWN}, if the zone of the
+     *         client or the backend is unknown.
+     */
+    public String getLocality() {
+        return this.locality;
+    }
+
+    /**
+     * Gets the number of calls that are currently in flight on this subchannel.
+     *
+     * @return The number of calls in flight.
+     */
+    public int getInFlightCount() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * Gets the number of times this subchannel has been picked for a call.
+     *
+     * @return The number of picks.
+     */
+    public long getPickCount() {
+        return this.picks.get();
+    }
+
+    /**
+     * Gets the current peak EWMA of the call latency of this subchannel.
+     *
+     * @return The latency in seconds.
+     */
+    public synchronized double getLatencySeconds() {
+        return this.latencyNanos / 1e9;
+    }
+
+    void setDecayNanos(final long decayNanos) {
+        this.decayNanos = decayNanos;
+    }
+
+    ClientStreamTracer.Factory getTracerFactory() {
+        return this.tracerFactory;
+    }
+
+    void onPick() {
+        this.picks.incrementAndGet();
+    }
+
+    /**
+     * Gets the cost of sending another call over this subchannel, which is the latency weighted by the number of calls
+     * in flight. The latency decays towards zero while there are no observations, so that idle backends get another
+     * chance eventually.
+     *
+     * @param nowNanos The current time in nanoseconds.
+     * @return The cost of another call.
+     */
+    double getPeakEwmaCost(final long nowNanos) {
+        final int pending = this.inFlight.get();
+        final double latency;
+        synchronized (this) {
+            observe(nowNanos, 0);
+            latency = this.latencyNanos;
+        }
+        if (latency == 0 && pending != 0) {
+            return PENALTY + pending;
+        }
+        return latency * (pending + 1);
+    }
+
+    @GuardedBy("this")
+    private void observe(final long nowNanos, final double rttNanos) {
+        final long elapsed = Math.max(nowNanos - this.stampNanos, 0);
+        this.stampNanos = nowNanos;
+        if (rttNanos > this.latencyNanos) {
+            this.latencyNanos = rttNanos;
+        } else {
+            final double weight = Math.exp(-(double) elapsed / this.decayNanos);
+            this.latencyNanos = this.latencyNanos * weight + rttNanos * (1 - weight);
+        }
+    }
+
+    private synchronized void onCallCompleted(final long startNanos) {
+        final long now = System.nanoTime();
+        observe(now, now - startNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "SubchannelLoad [policy=" + this.policy + ", target=" + this.target + ", address=" + this.address
+                + ", zone=" + this.zone + ", inFlight=" + this.inFlight + "]";
+    }
+
+    /**
+     * Creates a tracer for every stream of this subchannel, that tracks the calls in flight and their latency.
+     */
+    private final class TracerFactory extends ClientStreamTracer.Factory {
+
+        @Override
+        public ClientStreamTracer newClientStreamTracer(final ClientStreamTracer.StreamInfo info,
+                final Metadata headers) {
+            SubchannelLoad.this.inFlight.incrementAndGet();
+            final long startNanos = System.nanoTime();
+            return new ClientStreamTracer() {
+
+                @Override
+                public void streamClosed(final Status status) {
+                    SubchannelLoad.this.inFlight.decrementAndGet();
+                    onCallCompleted(startNanos);
+                }
+
+            };
+        }
+
+    }
+
+}
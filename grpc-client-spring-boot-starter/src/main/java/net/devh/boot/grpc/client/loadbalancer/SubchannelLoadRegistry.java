@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps track of the {@link SubchannelLoad}s of all load aware load balancers, so that they can be monitored.
+ */
+public class SubchannelLoadRegistry {
+
+    private final List<SubchannelLoad> loads = new ArrayList<>();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    /**
+     * Registers the given load and notifies all listeners.
+     *
+     * @param load The load to register.
+     */
+    public void register(final SubchannelLoad load) {
+        requireNonNull(load, "load");
+        final List<Listener> localListeners;
+        synchronized (this) {
+            this.loads.add(load);
+            localListeners = new ArrayList<>(this.listeners);
+        }
+        for (final Listener listener : localListeners) {
+            listener.onAdded(load);
+        }
+    }
+
+    /**
+     * Removes the given load, because its subchannel has been shut down, and notifies all listeners.
+     *
+     * @param load The load to remove.
+     */
+    public void unregister(final SubchannelLoad load) {
+        final List<Listener> localListeners;
+        synchronized (this) {
+            if (!this.loads.remove(load)) {
+                return;
+            }
+            localListeners = new ArrayList<>(this.listeners);
+        }
+        for (final Listener listener : localListeners) {
+            listener.onRemoved(load);
+        }
+    }
+
+    /**
+     * Adds a listener that will be notified about all registered loads, including those that have been registered in
+     * the past.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(final Listener listener) {
+        requireNonNull(listener, "listener");
+        final List<SubchannelLoad> localLoads;
+        synchronized (this) {
+            this.listeners.add(listener);
+            localLoads = new ArrayList<>(this.loads);
+        }
+        for (final SubchannelLoad load : localLoads) {
+            listener.onAdded(load);
+        }
+    }
+
+    /**
+     * Gets all registered loads.
+     *
+     * @return The registered loads.
+     */
+    public synchronized List<SubchannelLoad> getLoads() {
+        return new ArrayList<>(this.loads);
+    }
+
+    /**
+     * A listener that is notified about added and removed subchannels.
+     */
+    public interface Listener {
+
+        /**
+         * Called when a subchannel has been added to a load balancer.
+         *
+         * @param load The load of the added subchannel.
+         */
+        void onAdded(SubchannelLoad load);
+
+        /**
+         * Called when a subchannel has been removed from a load balancer.
+         *
+         * @param load The load of the removed subchannel.
+         */
+        void onRemoved(SubchannelLoad load);
+
+    }
+
+}
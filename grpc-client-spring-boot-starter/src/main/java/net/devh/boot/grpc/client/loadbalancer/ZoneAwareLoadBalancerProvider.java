@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import io.grpc.LoadBalancer.PickResult;
+import io.grpc.LoadBalancer.PickSubchannelArgs;
+import io.grpc.LoadBalancer.SubchannelPicker;
+import io.grpc.internal.JsonUtil;
+import net.devh.boot.grpc.client.loadbalancer.LoadAwareLoadBalancer.Entry;
+import net.devh.boot.grpc.client.loadbalancer.LoadAwareLoadBalancer.LoadPicker;
+import net.devh.boot.grpc.client.nameresolver.DiscoveryClientResolverFactory;
+
+/**
+ * Provides the {@code zone_aware} load balancing policy, which prefers the subchannels in the same zone as the client
+ * and only spills over to the other zones, if the local zone doesn't have enough healthy or free capacity. Within the
+ * selected subchannels, every call is sent to the one with the fewest calls in flight out of n randomly chosen ones.
+ * The zone of the subchannels is read from the {@link DiscoveryClientResolverFactory#DISCOVERY_ZONE_KEY address
+ * attributes}. In addition to the options of the {@link AbstractLoadAwareLoadBalancerProvider base class}, the policy
+ * supports the following options in its {@code loadBalancingConfig}:
+ *
+ * <ul>
+ * <li>{@code localZone}: The zone of the client (defaults to the detected zone).</li>
+ * <li>{@code minHealthyRatio}: The ratio of the subchannels in the local zone that have to be ready, to prefer them
+ * over the other zones (defaults to 0.7).</li>
+ * <li>{@code maxInFlightPerSubchannel}: The number of calls in flight on a local subchannel, after which calls spill
+ * over to the other zones (defaults to 0, which disables the limit).</li>
+ * </ul>
+ */
+public class ZoneAwareLoadBalancerProvider extends AbstractLoadAwareLoadBalancerProvider {
+
+    /**
+     * The name of the policy.
+     */
+    public static final String POLICY_NAME = "zone_aware";
+
+    private static final double DEFAULT_MIN_HEALTHY_RATIO = 0.7;
+    private static final int DEFAULT_MAX_IN_FLIGHT_PER_SUBCHANNEL = 0;
+
+    private final String detectedZone;
+
+    /**
+     * Creates a new zone aware load balancer provider that doesn't report the subchannel loads and only uses the zone
+     * from the {@code loadBalancingConfig}.
+     */
+    public ZoneAwareLoadBalancerProvider() {
+        this(null, null);
+    }
+
+    /**
+     * Creates a new zone aware load balancer provider.
+     *
+     * @param registry The registry to report the subchannel loads to or null, if they should not be reported.
+     * @param detectedZone The zone of the client, that is used if the {@code loadBalancingConfig} doesn't specify it,
+     *        or null, if it is unknown.
+     */
+    public ZoneAwareLoadBalancerProvider(final SubchannelLoadRegistry registry, @Nullable final String detectedZone) {
+        super(registry);
+        this.detectedZone = detectedZone;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return POLICY_NAME;
+    }
+
+    @Override
+    protected double getCost(final SubchannelLoad load, final long nowNanos) {
+        return load.getInFlightCount();
+    }
+
+    @Override
+    Config newConfig(final Map<String, ?> rawConfig, final int choiceCount, final Duration decayTime) {
+        String localZone = JsonUtil.getString(rawConfig, "localZone");
+        if (localZone == null || localZone.isEmpty()) {
+            localZone = this.detectedZone;
+        }
+        final Double minHealthyRatio = JsonUtil.getNumberAsDouble(rawConfig, "minHealthyRatio");
+        if (minHealthyRatio != null && (minHealthyRatio < 0 || minHealthyRatio > 1)) {
+            throw new IllegalArgumentException("minHealthyRatio must be between 0 and 1, but was " + minHealthyRatio);
+        }
+        final Integer maxInFlight = JsonUtil.getNumberAsInteger(rawConfig, "maxInFlightPerSubchannel");
+        if (maxInFlight != null && maxInFlight < 0) {
+            throw new IllegalArgumentException("maxInFlightPerSubchannel must not be negative, but was " + maxInFlight);
+        }
+        return new ZoneConfig(choiceCount, decayTime, localZone,
+                minHealthyRatio == null ? DEFAULT_MIN_HEALTHY_RATIO : minHealthyRatio,
+                maxInFlight == null ? DEFAULT_MAX_IN_FLIGHT_PER_SUBCHANNEL : maxInFlight);
+    }
+
+    @Override
+    SubchannelPicker newPicker(final List<Entry> ready, final Collection<Entry> all, final Config config) {
+        final ZoneConfig zoneConfig = (ZoneConfig) config;
+        final LoadPicker allPicker = new LoadPicker(ready, this, config.getChoiceCount());
+        final String localZone = zoneConfig.getLocalZone();
+        if (localZone == null) {
+            return allPicker;
+        }
+        final List<Entry> readyLocal = new ArrayList<>();
+        for (final Entry entry : ready) {
+            if (localZone.equals(entry.zone)) {
+                readyLocal.add(entry);
+            }
+        }
+        if (readyLocal.isEmpty()) {
+            return allPicker;
+        }
+        int totalLocal = 0;
+        for (final Entry entry : all) {
+            if (localZone.equals(entry.zone)) {
+                totalLocal++;
+            }
+        }
+        if (readyLocal.size() < zoneConfig.getMinHealthyRatio() * totalLocal) {
+            // Not enough healthy capacity left in the local zone
+            return allPicker;
+        }
+        final LoadPicker localPicker = new LoadPicker(readyLocal, this, config.getChoiceCount());
+        return new ZoneAwarePicker(localPicker, allPicker, zoneConfig.getMaxInFlightPerSubchannel());
+    }
+
+    @Override
+    String getLocalZone(final Config config) {
+        return ((ZoneConfig) config).getLocalZone();
+    }
+
+    /**
+     * The parsed config of the zone aware policy.
+     */
+    static final class ZoneConfig extends Config {
+
+        private final String localZone;
+        private final double minHealthyRatio;
+        private final int maxInFlightPerSubchannel;
+
+        ZoneConfig(final int choiceCount, final Duration decayTime, @Nullable final String localZone,
+                final double minHealthyRatio, final int maxInFlightPerSubchannel) {
+            super(choiceCount, decayTime);
+            this.localZone = localZone;
+            this.minHealthyRatio = minHealthyRatio;
+            this.maxInFlightPerSubchannel = maxInFlightPerSubchannel;
+        }
+
+        @Nullable
+        String getLocalZone() {
+            return this.localZone;
+        }
+
+        double getMinHealthyRatio() {
+            return this.minHealthyRatio;
+        }
+
+        int getMaxInFlightPerSubchannel() {
+            return this.maxInFlightPerSubchannel;
+        }
+
+        @Override
+        public String toString() {
+            return "ZoneConfig [choiceCount=" + getChoiceCount() + ", decayTime=" + getDecayTime() + ", localZone="
+                    + this.localZone + ", minHealthyRatio=" + this.minHealthyRatio + ", maxInFlightPerSubchannel="
+                    + this.maxInFlightPerSubchannel + "]";
+        }
+
+    }
+
+    /**
+     * Picks the least loaded local subchannel and spills over to all zones, if that subchannel is saturated.
+     */
+    private static final class ZoneAwarePicker extends SubchannelPicker {
+
+        private final LoadPicker localPicker;
+        private final LoadPicker allPicker;
+        private final int maxInFlightPerSubchannel;
+
+        ZoneAwarePicker(final LoadPicker localPicker, final LoadPicker allPicker, final int maxInFlightPerSubchannel) {
+            this.localPicker = localPicker;
+            this.allPicker = allPicker;
+            this.maxInFlightPerSubchannel = maxInFlightPerSubchannel;
+        }
+
+        @Override
+        public PickResult pickSubchannel(final PickSubchannelArgs args) {
+            final Entry local = this.localPicker.select();
+            if (this.maxInFlightPerSubchannel > 0
+                    && local.load.getInFlightCount() >= this.maxInFlightPerSubchannel) {
+                return this.allPicker.pickSubchannel(args);
+            }
+            return LoadPicker.pick(local);
+        }
+
+        @Override
+        public String toString() {
+            return "ZoneAwarePicker [local=" + this.localPicker + ", all=" + this.allPicker
+                    + ", maxInFlightPerSubchannel=" + this.maxInFlightPerSubchannel + "]";
+        }
+
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Detects the zone the application is running in, which is used by the {@link ZoneAwareLoadBalancerProvider zone
+ * aware} load balancing policy to prefer backends in the same zone.
+ */
+@FunctionalInterface
+public interface ZoneDetector {
+
+    /**
+     * Detects the zone of the application.
+     *
+     * @return The zone of the application or null, if it is unknown.
+     */
+    @Nullable
+    String detectZone();
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains the load aware load balancing policies {@code least_request}, {@code peak_ewma} and {@code zone_aware}.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientStreamTracer;
+import io.grpc.ForwardingClientCall.SimpleForwardingClientCall;
+import io.grpc.ForwardingClientCallListener.SimpleForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.MethodConfig;
+import net.devh.boot.grpc.client.serviceconfig.ServiceConfigs;
+
+/**
+ * A client interceptor that records the retry and hedging attempts of the calls to the methods with a configured retry
+ * or hedging policy, as well as the attempt whose response was used in the end.
+ */
+public class MetricsClientAttemptInterceptor implements ClientInterceptor {
+
+    private static final String POLICY_NONE = "";
+
+    private final MeterRegistry registry;
+    private final String channelName;
+    private final Map<String, MethodConfig> methodConfig;
+    private final Map<String, String> policies = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new MetricsClientAttemptInterceptor.
+     *
+     * @param registry The registry to record the metrics in.
+     * @param channelName The name of the channel, that is used to tag the metrics.
+     * @param methodConfig The configured retry and hedging policies by method or service.
+     */
+    public MetricsClientAttemptInterceptor(final MeterRegistry registry, final String channelName,
+            final Map<String, MethodConfig> methodConfig) {
+        this.registry = requireNonNull(registry, "registry");
+        this.channelName = requireNonNull(channelName, "channelName");
+        this.methodConfig = requireNonNull(methodConfig, "methodConfig");
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(final MethodDescriptor<ReqT, RespT> method,
+            final CallOptions callOptions, final Channel next) {
+        final String policy = this.policies.computeIfAbsent(method.getFullMethodName(), name -> findPolicy(method));
+        if (POLICY_NONE.equals(policy)) {
+            return next.newCall(method, callOptions);
+        }
+        final AttemptTracerFactory tracerFactory = new AttemptTracerFactory(method.getFullMethodName(), policy);
+        return new SimpleForwardingClientCall<ReqT, RespT>(
+                next.newCall(method, callOptions.withStreamTracerFactory(tracerFactory))) {
+
+            @Override
+            public void start(final Listener<RespT> responseListener, final Metadata headers) {
+                super.start(new SimpleForwardingClientCallListener<RespT>(responseListener) {
+
+                    @Override
+                    public void onClose(final Status status, final Metadata trailers) {
+                        tracerFactory.recordWinner();
+                        super.onClose(status, trailers);
+                    }
+
+                }, headers);
+            }
+
+        };
+    }
+
+    /**
+     * Finds the policy that applies to the given method.
+     *
+     * @param method The method to find the policy for.
+     * @return The name of the policy ({@code retry} or {@code hedge}) or an empty string, if there is none.
+     */
+    private String findPolicy(final MethodDescriptor<?, ?> method) {
+        MethodConfig config = this.methodConfig.get(method.getFullMethodName());
+        if (config == null && method.getServiceName() != null) {
+            config = this.methodConfig.get(method.getServiceName());
+        }
+        if (config == null) {
+            config = this.methodConfig.get(ServiceConfigs.ALL_METHODS);
+        }
+        if (config == null) {
+            return POLICY_NONE;
+        } else if (config.getRetry().isEnabled()) {
+            return "retry";
+        } else if (config.getHedging().isEnabled()) {
+            return "hedge";
+        }
+        return POLICY_NONE;
+    }
+
+    private Counter attemptCounter(final String methodName, final String attempt) {
+        return Counter.builder("grpc.client.attempts")
+                .description("The total number of attempts sent to the server by type")
+                .baseUnit("attempts")
+                .tag("channel", this.channelName)
+                .tag("method", methodName)
+                .tag("attempt", attempt)
+                .register(this.registry);
+    }
+
+    private Counter winnerCounter(final String methodName, final int attempt) {
+        return Counter.builder("grpc.client.attempts.won")
+                .description("The total number of calls by the attempt whose response was used")
+                .baseUnit("calls")
+                .tag("channel", this.channelName)
+                .tag("method", methodName)
+                .tag("attempt", Integer.toString(attempt))
+                .register(this.registry);
+    }
+
+    /**
+     * Creates the tracers for the attempts of a single call and keeps track of the attempt that won. With both retries
+     * and hedging the call is committed to the first attempt that receives headers from the server, or to the last
+     * attempt, if none did.
+     */
+    private final class AttemptTracerFactory extends ClientStreamTracer.Factory {
+
+        private final String methodName;
+        private final String policy;
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final AtomicInteger winner = new AtomicInteger();
+
+        AttemptTracerFactory(final String methodName, final String policy) {
+            this.methodName = methodName;
+            this.policy = policy;
+        }
+
+        @Override
+        public ClientStreamTracer newClientStreamTracer(final ClientStreamTracer.StreamInfo info,
+                final Metadata headers) {
+            final int attempt = info.getPreviousAttempts() + 1;
+            this.attempts.accumulateAndGet(attempt, Math::max);
+            final String type;
+            if (info.isTransparentRetry()) {
+                type = "transparent";
+            } else if (info.getPreviousAttempts() == 0) {
+                type = "initial";
+            } else {
+                type = this.policy;
+            }
+            attemptCounter(this.methodName, type).increment();
+            return new ClientStreamTracer() {
+
+                @Override
+                public void inboundHeaders() {
+                    AttemptTracerFactory.this.winner.compareAndSet(0, attempt);
+                }
+
+            };
+        }
+
+        void recordWinner() {
+            final int attempt = this.winner.get();
+            final int lastAttempt = this.attempts.get();
+            if (attempt > 0) {
+                winnerCounter(this.methodName, attempt).increment();
+            } else if (lastAttempt > 0) {
+                winnerCounter(this.methodName, lastAttempt).increment();
+            }
+        }
+
+    }
+
+}
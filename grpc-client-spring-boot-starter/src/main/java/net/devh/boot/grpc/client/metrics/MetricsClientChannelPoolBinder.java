@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.client.channelfactory.ManagedChannelPool;
+import net.devh.boot.grpc.client.channelfactory.ManagedChannelPoolRegistry;
+
+/**
+ * Binds the size and utilization of the connection pools of the channels to a {@link MeterRegistry}. The pools are
+ * bound as soon as their channel has been created.
+ */
+public class MetricsClientChannelPoolBinder implements MeterBinder {
+
+    private final ManagedChannelPoolRegistry pools;
+
+    /**
+     * Creates a new MetricsClientChannelPoolBinder.
+     *
+     * @param pools The registry of the pools to monitor.
+     */
+    public MetricsClientChannelPoolBinder(final ManagedChannelPoolRegistry pools) {
+        this.pools = requireNonNull(pools, "pools");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        this.pools.addListener(pool -> bindTo(registry, pool));
+    }
+
+    /**
+     * Binds the metrics of the given pool to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param pool The pool to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final ManagedChannelPool pool) {
+        Gauge.builder("grpc.client.pool.connections", pool, ManagedChannelPool::getSize)
+                .description("The number of underlying channels in the connection pool")
+                .tag("channel", pool.getName())
+                .register(registry);
+        Gauge.builder("grpc.client.pool.connections.max", pool, ManagedChannelPool::getMaxSize)
+                .description("The maximum number of underlying channels in the connection pool")
+                .tag("channel", pool.getName())
+                .register(registry);
+        Gauge.builder("grpc.client.pool.inflight", pool, ManagedChannelPool::getInFlightCount)
+                .description("The number of calls in flight on all channels of the connection pool")
+                .tag("channel", pool.getName())
+                .register(registry);
+        Gauge.builder("grpc.client.pool.utilization", pool, ManagedChannelPool::getUtilization)
+                .description("The ratio of calls in flight to the stream capacity of the connection pool")
+                .tag("channel", pool.getName())
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.client.cache.ClientRequestCoalescer;
+import net.devh.boot.grpc.client.cache.ClientRequestCoalescerRegistry;
+
+/**
+ * Binds the metrics of the client request coalescers to a {@link MeterRegistry}. The coalescers are bound as soon as
+ * they are used for the first time.
+ */
+public class MetricsClientCoalescingBinder implements MeterBinder {
+
+    private final ClientRequestCoalescerRegistry coalescers;
+
+    /**
+     * Creates a new MetricsClientCoalescingBinder.
+     *
+     * @param coalescers The registry of the coalescers to monitor.
+     */
+    public MetricsClientCoalescingBinder(final ClientRequestCoalescerRegistry coalescers) {
+        this.coalescers = requireNonNull(coalescers, "coalescers");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        this.coalescers.addListener(coalescer -> bindTo(registry, coalescer));
+    }
+
+    /**
+     * Binds the metrics of the given coalescer to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param coalescer The coalescer to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final ClientRequestCoalescer coalescer) {
+        FunctionCounter.builder("grpc.client.coalescing.calls", coalescer, ClientRequestCoalescer::getWireCallCount)
+                .description("The total number of coalescable calls by whether they were sent to the server")
+                .baseUnit("calls")
+                .tag("channel", coalescer.getName())
+                .tag("result", "wire")
+                .register(registry);
+        FunctionCounter.builder("grpc.client.coalescing.calls", coalescer, ClientRequestCoalescer::getSavedCallCount)
+                .description("The total number of coalescable calls by whether they were sent to the server")
+                .baseUnit("calls")
+                .tag("channel", coalescer.getName())
+                .tag("result", "saved")
+                .register(registry);
+        Gauge.builder("grpc.client.coalescing.inflight", coalescer, ClientRequestCoalescer::getInFlightCount)
+                .description("The number of distinct calls that are currently in flight")
+                .tag("channel", coalescer.getName())
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.client.loadbalancer.SubchannelLoad;
+import net.devh.boot.grpc.client.loadbalancer.SubchannelLoadRegistry;
+
+/**
+ * Binds the load of the subchannels of the load aware load balancers to a {@link MeterRegistry}. The meters are
+ * removed again, once the subchannel has been removed from its load balancer. The meters are tagged with the zone of
+ * the backend and whether it is in the same zone as the client ({@code locality}), so that the ratio of cross zone
+ * calls can be derived from the {@code grpc.client.lb.picks} counter.
+ */
+public class MetricsClientLoadBalancerBinder implements MeterBinder {
+
+    private final SubchannelLoadRegistry loads;
+
+    /**
+     * Creates a new MetricsClientLoadBalancerBinder.
+     *
+     * @param loads The registry of the subchannel loads to monitor.
+     */
+    public MetricsClientLoadBalancerBinder(final SubchannelLoadRegistry loads) {
+        this.loads = requireNonNull(loads, "loads");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        final Map<SubchannelLoad, List<Meter>> meters = new ConcurrentHashMap<>();
+        this.loads.addListener(new SubchannelLoadRegistry.Listener() {
+
+            @Override
+            public void onAdded(final SubchannelLoad load) {
+                meters.put(load, bindTo(registry, load));
+            }
+
+            @Override
+            public void onRemoved(final SubchannelLoad load) {
+                final List<Meter> removed = meters.remove(load);
+                if (removed != null) {
+                    removed.forEach(registry::remove);
+                }
+            }
+
+        });
+    }
+
+    /**
+     * Binds the metrics of the given subchannel load to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param load The subchannel load to monitor.
+     * @return The registered meters.
+     */
+    public static List<Meter> bindTo(final MeterRegistry registry, final SubchannelLoad load) {
+        final String zone = load.getZone() == null ? SubchannelLoad.LOCALITY_UNKNOWN : load.getZone();
+        final Tags tags = Tags.of("policy", load.getPolicy(), "target", load.getTarget(), "address", load.getAddress(),
+                "zone", zone, "locality", load.getLocality());
+        return List.of(
+                Gauge.builder("grpc.client.lb.inflight", load, SubchannelLoad::getInFlightCount)
+                        .description("The number of calls in flight on the subchannel")
+                        .tags(tags)
+                        .register(registry),
+                Gauge.builder("grpc.client.lb.latency", load, SubchannelLoad::getLatencySeconds)
+                        .description("The peak EWMA of the call latency of the subchannel")
+                        .baseUnit("seconds")
+                        .tags(tags)
+                        .register(registry),
+                FunctionCounter.builder("grpc.client.lb.picks", load, SubchannelLoad::getPickCount)
+                        .description("The number of calls the load balancer sent to the subchannel")
+                        .tags(tags)
+                        .register(registry));
+    }
+
+}
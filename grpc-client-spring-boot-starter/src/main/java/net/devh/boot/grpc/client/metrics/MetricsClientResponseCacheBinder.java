@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.client.cache.ClientResponseCache;
+import net.devh.boot.grpc.client.cache.ClientResponseCache.MethodStats;
+import net.devh.boot.grpc.client.cache.ClientResponseCacheRegistry;
+
+/**
+ * Binds the metrics of the client response caches to a {@link MeterRegistry}. The caches and methods are bound as soon
+ * as they are used for the first time.
+ */
+public class MetricsClientResponseCacheBinder implements MeterBinder {
+
+    private final ClientResponseCacheRegistry caches;
+
+    /**
+     * Creates a new MetricsClientResponseCacheBinder.
+     *
+     * @param caches The registry of the caches to monitor.
+     */
+    public MetricsClientResponseCacheBinder(final ClientResponseCacheRegistry caches) {
+        this.caches = requireNonNull(caches, "caches");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        this.caches.addListener(cache -> bindTo(registry, cache));
+    }
+
+    /**
+     * Binds the metrics of the given cache and its methods to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param cache The cache to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final ClientResponseCache cache) {
+        Gauge.builder("grpc.client.cache.size", cache, ClientResponseCache::getSize)
+                .description("The number of responses that are currently cached")
+                .tag("channel", cache.getName())
+                .register(registry);
+        Gauge.builder("grpc.client.cache.weight", cache, ClientResponseCache::getWeight)
+                .description("The estimated size of the responses that are currently cached")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("channel", cache.getName())
+                .register(registry);
+        FunctionCounter.builder("grpc.client.cache.evictions", cache, ClientResponseCache::getEvictionCount)
+                .description("The total number of responses that have been evicted, because the cache was full")
+                .tag("channel", cache.getName())
+                .register(registry);
+        cache.addMethodStatsListener(stats -> bindTo(registry, stats));
+    }
+
+    private static void bindTo(final MeterRegistry registry, final MethodStats stats) {
+        FunctionCounter.builder("grpc.client.cache.requests", stats, MethodStats::getHitCount)
+                .description("The total number of cacheable calls by result")
+                .baseUnit("calls")
+                .tag("channel", stats.getCacheName())
+                .tag("method", stats.getMethodName())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("grpc.client.cache.requests", stats, MethodStats::getStaleHitCount)
+                .description("The total number of cacheable calls by result")
+                .baseUnit("calls")
+                .tag("channel", stats.getCacheName())
+                .tag("method", stats.getMethodName())
+                .tag("result", "stale")
+                .register(registry);
+        FunctionCounter.builder("grpc.client.cache.requests", stats, MethodStats::getMissCount)
+                .description("The total number of cacheable calls by result")
+                .baseUnit("calls")
+                .tag("channel", stats.getCacheName())
+                .tag("method", stats.getMethodName())
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("grpc.client.cache.hit.ratio", stats, MethodStats::getHitRatio)
+                .description("The ratio of calls that have been answered from the cache")
+                .tag("channel", stats.getCacheName())
+                .tag("method", stats.getMethodName())
+                .register(registry);
+    }
+
+}
@@ -21,21 +21,28 @@
 import static java.util.Objects.requireNonNull;
 import static net.devh.boot.grpc.client.nameresolver.DiscoveryClientResolverFactory.DISCOVERY_INSTANCE_ID_KEY;
 import static net.devh.boot.grpc.client.nameresolver.DiscoveryClientResolverFactory.DISCOVERY_SERVICE_NAME_KEY;
+import static net.devh.boot.grpc.client.nameresolver.DiscoveryClientResolverFactory.DISCOVERY_ZONE_KEY;
 import static net.devh.boot.grpc.common.util.GrpcUtils.CLOUD_DISCOVERY_METADATA_PORT;
 import static net.devh.boot.grpc.common.util.GrpcUtils.CLOUD_DISCOVERY_METADATA_SERVICE_CONFIG;
+import static net.devh.boot.grpc.common.util.GrpcUtils.CLOUD_DISCOVERY_METADATA_ZONE;
 
 import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import javax.annotation.Nullable;
+
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 import org.springframework.util.CollectionUtils;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 
@@ -47,6 +54,7 @@
 import io.grpc.SynchronizationContext;
 import io.grpc.internal.SharedResourceHolder;
 import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.serviceconfig.ServiceConfigs;
 
 /**
  * The DiscoveryClientNameResolver resolves the service hosts and their associated gRPC port using the channel's name
@@ -60,6 +68,11 @@ public class DiscoveryClientNameResolver extends NameResolver {
 
     @Deprecated
     private static final String LEGACY_CLOUD_DISCOVERY_METADATA_PORT = "gRPC.port";
+    /**
+     * The metadata keys that are commonly used by the discovery services to store the zone of an instance.
+     */
+    private static final List<String> ZONE_METADATA_KEYS = List.of(CLOUD_DISCOVERY_METADATA_ZONE,
+            "availability-zone", "topology.kubernetes.io/zone");
     private static final List<ServiceInstance> KEEP_PREVIOUS = null;
     private static final Gson GSON = new Gson();
 
@@ -70,6 +83,7 @@ public class DiscoveryClientNameResolver extends NameResolver {
     private final SharedResourceHolder.Resource<Executor> executorResource;
     private final boolean usingExecutorResource;
     private final ServiceConfigParser serviceConfigParser;
+    private final Map<String, ?> configuredServiceConfig;
 
     // The field must be accessed from syncContext, although the methods on an Listener2 can be called
     // from any thread.
@@ -78,6 +92,10 @@ public class DiscoveryClientNameResolver extends NameResolver {
     private Executor executor;
     private boolean resolving;
     private List<ServiceInstance> instanceList = Lists.newArrayList();
+    private Set<InstanceKey> instanceKeys = Set.of();
+    // Following fields are only accessed by the resolve task, which never runs concurrently
+    private String parsedServiceConfigSource;
+    private ConfigOrError parsedServiceConfig;
 
     /**
      * Creates a new DiscoveryClientNameResolver.
@@ -91,6 +109,24 @@ public class DiscoveryClientNameResolver extends NameResolver {
     public DiscoveryClientNameResolver(final String name, final DiscoveryClient client, final Args args,
             final SharedResourceHolder.Resource<Executor> executorResource,
             final Consumer<DiscoveryClientNameResolver> shutdownHook) {
+        this(name, client, args, executorResource, shutdownHook, null);
+    }
+
+    /**
+     * Creates a new DiscoveryClientNameResolver.
+     *
+     * @param name The name of the service to look up.
+     * @param client The client used to look up the service addresses.
+     * @param args The name resolver args.
+     * @param executorResource The executor resource.
+     * @param shutdownHook The optional cleaner used during {@link #shutdown()}
+     * @param configuredServiceConfig The optional service config of the channel, that is merged with the service
+     *        config found in the instance metadata.
+     */
+    public DiscoveryClientNameResolver(final String name, final DiscoveryClient client, final Args args,
+            final SharedResourceHolder.Resource<Executor> executorResource,
+            final Consumer<DiscoveryClientNameResolver> shutdownHook,
+            @Nullable final Map<String, ?> configuredServiceConfig) {
         this.name = name;
         this.client = client;
         this.syncContext = requireNonNull(args.getSynchronizationContext(), "syncContext");
@@ -99,6 +135,7 @@ public DiscoveryClientNameResolver(final String name, final DiscoveryClient clie
         this.usingExecutorResource = this.executor == null;
         this.executorResource = executorResource;
         this.serviceConfigParser = args.getServiceConfigParser();
+        this.configuredServiceConfig = configuredServiceConfig;
     }
 
     /**
@@ -194,7 +231,10 @@ protected int getGrpcPort(final ServiceInstance instance) {
     }
 
     /**
-     * Extracts and parse gRPC service config from the given service instances.
+     * Extracts and parse gRPC service config from the given service instances. The config is merged with the
+     * configured service config of the channel, if any. If the instances don't have a service config, then the
+     * channel's default service config is used instead. The parsed config is reused as long as the instances report
+     * the same service config.
      *
      * @param instances The list of instances to extract the service config from.
      * @return Parsed gRPC service config or null.
@@ -204,6 +244,22 @@ private ConfigOrError resolveServiceConfig(List<ServiceInstance> instances) {
         if (serviceConfig == null) {
             return null;
         }
+        if (!serviceConfig.equals(this.parsedServiceConfigSource)) {
+            this.parsedServiceConfig = parseServiceConfig(serviceConfig);
+            this.parsedServiceConfigSource = serviceConfig;
+        } else {
+            log.debug("Service config for {} is unchanged", getName());
+        }
+        return this.parsedServiceConfig;
+    }
+
+    /**
+     * Parses the given gRPC service config and merges it with the configured service config of the channel, if any.
+     *
+     * @param serviceConfig The service config to parse.
+     * @return Parsed gRPC service config.
+     */
+    private ConfigOrError parseServiceConfig(final String serviceConfig) {
         log.debug("Found service config for {}", getName());
         if (log.isTraceEnabled()) {
             // This is to avoid blowing log into several lines if newlines present in service config string.
@@ -213,6 +269,9 @@ private ConfigOrError resolveServiceConfig(List<ServiceInstance> instances) {
         try {
             @SuppressWarnings("unchecked")
             Map<String, ?> parsedServiceConfig = GSON.fromJson(serviceConfig, Map.class);
+            if (this.configuredServiceConfig != null) {
+                parsedServiceConfig = ServiceConfigs.merge(parsedServiceConfig, this.configuredServiceConfig);
+            }
             return serviceConfigParser.parseServiceConfig(parsedServiceConfig);
         } catch (JsonSyntaxException e) {
             return ConfigOrError.fromError(
@@ -253,11 +312,38 @@ protected Attributes getAttributes(final ServiceInstance serviceInstance) {
         final Builder builder = Attributes.newBuilder();
         builder.set(DISCOVERY_SERVICE_NAME_KEY, this.name);
         builder.set(DISCOVERY_INSTANCE_ID_KEY, serviceInstance.getInstanceId());
+        final String zone = getZone(serviceInstance);
+        if (zone != null) {
+            builder.set(DISCOVERY_ZONE_KEY, zone);
+        }
         return builder.build();
     }
 
     /**
-     * Checks whether this instance should update its connections.
+     * Extracts the zone of the given service instance from its metadata. Can be overwritten to support custom metadata
+     * keys.
+     *
+     * @param serviceInstance The service instance to get the zone from.
+     * @return The zone of the given instance or null, if it is unknown.
+     */
+    protected String getZone(final ServiceInstance serviceInstance) {
+        final Map<String, String> metadata = serviceInstance.getMetadata();
+        if (metadata == null || metadata.isEmpty()) {
+            return null;
+        }
+        for (final String key : ZONE_METADATA_KEYS) {
+            final String zone = metadata.get(key);
+            if (zone != null && !zone.isEmpty()) {
+                return zone;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether this instance should update its connections. The instances are compared by their host, gRPC
+     * port, zone and service config using a hash set, so that the check stays cheap for services with thousands of
+     * instances.
      *
      * @param newInstanceList The new instances that should be compared to the stored ones.
      * @return True, if the given instance list contains different entries than the stored ones.
@@ -266,21 +352,24 @@ protected boolean needsToUpdateConnections(final List<ServiceInstance> newInstan
         if (this.instanceList.size() != newInstanceList.size()) {
             return true;
         }
-        for (final ServiceInstance instance : this.instanceList) {
-            final int port = getGrpcPort(instance);
-            boolean isSame = false;
-            for (final ServiceInstance newInstance : newInstanceList) {
-                final int newPort = getGrpcPort(newInstance);
-                if (newInstance.getHost().equals(instance.getHost()) && port == newPort) {
-                    isSame = true;
-                    break;
-                }
-            }
-            if (!isSame) {
-                return true;
-            }
+        return !this.instanceKeys.equals(toInstanceKeys(newInstanceList));
+    }
+
+    /**
+     * Extracts the parts of the given instances, that affect the resolved addresses or the service config.
+     *
+     * @param instances The instances to extract the keys from.
+     * @return The keys of the given instances.
+     */
+    private Set<InstanceKey> toInstanceKeys(final List<ServiceInstance> instances) {
+        final Set<InstanceKey> keys = Sets.newHashSetWithExpectedSize(instances.size());
+        for (final ServiceInstance instance : instances) {
+            final Map<String, String> metadata = instance.getMetadata();
+            final String serviceConfig =
+                    metadata == null ? null : metadata.get(CLOUD_DISCOVERY_METADATA_SERVICE_CONFIG);
+            keys.add(new InstanceKey(instance.getHost(), getGrpcPort(instance), getZone(instance), serviceConfig));
         }
-        return false;
+        return keys;
     }
 
     private void resolve() {
@@ -299,6 +388,7 @@ public void shutdown() {
             this.executor = SharedResourceHolder.release(this.executorResource, this.executor);
         }
         this.instanceList = Lists.newArrayList();
+        this.instanceKeys = Set.of();
         if (this.shutdownHook != null) {
             this.shutdownHook.accept(this);
         }
@@ -329,8 +419,14 @@ private final class Resolve implements Runnable {
         @Override
         public void run() {
             final AtomicReference<List<ServiceInstance>> resultContainer = new AtomicReference<>(KEEP_PREVIOUS);
+            final AtomicReference<Set<InstanceKey>> keysContainer = new AtomicReference<>(Set.of());
             try {
-                resultContainer.set(resolveInternal());
+                final List<ServiceInstance> result = resolveInternal();
+                if (result != KEEP_PREVIOUS) {
+                    // The ports have already been validated while building the targets
+                    keysContainer.set(toInstanceKeys(result));
+                }
+                resultContainer.set(result);
             } catch (final Exception e) {
                 this.savedListener.onError(Status.UNAVAILABLE.withCause(e)
                         .withDescription("Failed to update server list for " + getName()));
@@ -341,6 +437,7 @@ public void run() {
                     final List<ServiceInstance> result = resultContainer.get();
                     if (result != KEEP_PREVIOUS && isActive()) {
                         DiscoveryClientNameResolver.this.instanceList = result;
+                        DiscoveryClientNameResolver.this.instanceKeys = keysContainer.get();
                     }
                 });
             }
@@ -397,4 +494,43 @@ private EquivalentAddressGroup toTarget(final ServiceInstance instance) {
 
     }
 
+    /**
+     * The parts of a service instance, that are relevant to decide whether the connections have to be updated.
+     */
+    private static final class InstanceKey {
+
+        private final String host;
+        private final int port;
+        private final String zone;
+        private final String serviceConfig;
+
+        InstanceKey(final String host, final int port, final String zone, final String serviceConfig) {
+            this.host = host;
+            this.port = port;
+            this.zone = zone;
+            this.serviceConfig = serviceConfig;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof InstanceKey)) {
+                return false;
+            }
+            final InstanceKey other = (InstanceKey) obj;
+            return this.port == other.port
+                    && Objects.equals(this.host, other.host)
+                    && Objects.equals(this.zone, other.zone)
+                    && Objects.equals(this.serviceConfig, other.serviceConfig);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.host, this.port, this.zone, this.serviceConfig);
+        }
+
+    }
+
 }
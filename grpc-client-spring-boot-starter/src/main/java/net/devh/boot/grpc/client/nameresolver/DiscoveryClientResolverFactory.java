@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,8 +19,16 @@
 import static java.util.Objects.requireNonNull;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 import javax.annotation.Nullable;
 
@@ -34,10 +42,16 @@
 import io.grpc.NameResolver;
 import io.grpc.NameResolverProvider;
 import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.SharedResourceHolder;
 import jakarta.annotation.PreDestroy;
 
 /**
- * A name resolver factory that will create a {@link DiscoveryClientNameResolver} based on the target uri.
+ * A name resolver factory that will create a {@link DiscoveryClientNameResolver} based on the target uri. The
+ * resolvers are refreshed after changed {@link HeartbeatEvent}s, which are debounced, so that a burst of heartbeats
+ * only triggers a single refresh. Registries that don't emit heartbeats are covered by a jittered periodic refresh,
+ * which only runs while there are active resolvers. Resolvers for the same service share a single fetch from the
+ * {@link DiscoveryClient} and the number of concurrent fetches is limited, so that many channels don't overwhelm the
+ * registry.
  *
  * @author Michael (yidongnan@gmail.com)
  */
@@ -56,11 +70,34 @@ public class DiscoveryClientResolverFactory extends NameResolverProvider {
      * A key for the {@link ServiceInstance#getInstanceId() instance id}.
      */
     public static final Key<String> DISCOVERY_INSTANCE_ID_KEY = Key.create("instanceId");
+    /**
+     * A key for the zone of the {@link ServiceInstance}, if it is known.
+     *
+     * @see DiscoveryClientNameResolver#getZone(ServiceInstance)
+     */
+    public static final Key<String> DISCOVERY_ZONE_KEY = Key.create("zone");
+
+    /**
+     * The maximum deviation of the periodic refresh from the configured interval.
+     */
+    private static final double REFRESH_JITTER = 0.2;
 
     private final Set<DiscoveryClientNameResolver> discoveryClientNameResolvers = ConcurrentHashMap.newKeySet();
     private final HeartbeatMonitor monitor = new HeartbeatMonitor();
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
 
     private final DiscoveryClient client;
+    private final Function<String, Map<String, ?>> serviceConfigs;
+    private final Duration heartbeatDebounce;
+    private final Duration refreshInterval;
+    private final SharedResourceHolder.Resource<ScheduledExecutorService> schedulerResource;
+
+    // Following fields must be accessed while holding the lock on this
+    private ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> periodicRefresh;
+    // Incremented whenever the periodic refresh is stopped, so that a running refresh doesn't reschedule itself
+    private long refreshGeneration;
+    private boolean destroyed;
 
     /**
      * Creates a new discovery client based name resolver factory.
@@ -68,7 +105,65 @@ public class DiscoveryClientResolverFactory extends NameResolverProvider {
      * @param client The client to use for the address discovery.
      */
     public DiscoveryClientResolverFactory(final DiscoveryClient client) {
-        this.client = requireNonNull(client, "client");
+        this(client, serviceName -> null);
+    }
+
+    /**
+     * Creates a new discovery client based name resolver factory, that refreshes the resolvers immediately after every
+     * changed heartbeat and doesn't limit the number of concurrent fetches.
+     *
+     * @param client The client to use for the address discovery.
+     * @param serviceConfigs The function used to look up the configured service config by service name. The function
+     *        may return null, if there is no such config.
+     */
+    public DiscoveryClientResolverFactory(final DiscoveryClient client,
+            final Function<String, Map<String, ?>> serviceConfigs) {
+        this(client, serviceConfigs, Duration.ZERO, Integer.MAX_VALUE, Duration.ZERO);
+    }
+
+    /**
+     * Creates a new discovery client based name resolver factory.
+     *
+     * @param client The client to use for the address discovery.
+     * @param serviceConfigs The function used to look up the configured service config by service name. The function
+     *        may return null, if there is no such config.
+     * @param heartbeatDebounce The time to wait for further heartbeats before refreshing the resolvers or zero to
+     *        refresh them immediately.
+     * @param maxConcurrentFetches The maximum number of services that are fetched from the client at the same time.
+     *        Further fetches wait on the executors of their resolvers, until another fetch has completed.
+     * @param refreshInterval The average interval in which the resolvers are refreshed, even if there are no
+     *        heartbeats, or zero to disable the periodic refresh.
+     */
+    public DiscoveryClientResolverFactory(final DiscoveryClient client,
+            final Function<String, Map<String, ?>> serviceConfigs, final Duration heartbeatDebounce,
+            final int maxConcurrentFetches, final Duration refreshInterval) {
+        this(client, serviceConfigs, heartbeatDebounce, maxConcurrentFetches, refreshInterval, GrpcUtil.TIMER_SERVICE);
+    }
+
+    /**
+     * Creates a new discovery client based name resolver factory.
+     *
+     * @param client The client to use for the address discovery.
+     * @param serviceConfigs The function used to look up the configured service config by service name. The function
+     *        may return null, if there is no such config.
+     * @param heartbeatDebounce The time to wait for further heartbeats before refreshing the resolvers or zero to
+     *        refresh them immediately.
+     * @param maxConcurrentFetches The maximum number of services that are fetched from the client at the same time.
+     *        Further fetches wait on the executors of their resolvers, until another fetch has completed.
+     * @param refreshInterval The average interval in which the resolvers are refreshed, even if there are no
+     *        heartbeats, or zero to disable the periodic refresh.
+     * @param schedulerResource The scheduler resource used to debounce the heartbeats and to schedule the periodic
+     *        refresh.
+     */
+    public DiscoveryClientResolverFactory(final DiscoveryClient client,
+            final Function<String, Map<String, ?>> serviceConfigs, final Duration heartbeatDebounce,
+            final int maxConcurrentFetches, final Duration refreshInterval,
+            final SharedResourceHolder.Resource<ScheduledExecutorService> schedulerResource) {
+        this.client = new SharedFetchDiscoveryClient(requireNonNull(client, "client"), maxConcurrentFetches);
+        this.serviceConfigs = requireNonNull(serviceConfigs, "serviceConfigs");
+        this.heartbeatDebounce = requireNonNull(heartbeatDebounce, "heartbeatDebounce");
+        this.refreshInterval = requireNonNull(refreshInterval, "refreshInterval");
+        this.schedulerResource = requireNonNull(schedulerResource, "schedulerResource");
     }
 
     @Nullable
@@ -83,6 +178,7 @@ public NameResolver newNameResolver(final URI targetUri, final NameResolver.Args
             }
             final DiscoveryClientNameResolver nameResolver = newNameResolver(serviceName.substring(1), args);
             this.discoveryClientNameResolvers.add(nameResolver);
+            startPeriodicRefresh();
             return nameResolver;
         }
         return null;
@@ -97,7 +193,8 @@ public NameResolver newNameResolver(final URI targetUri, final NameResolver.Args
      */
     protected DiscoveryClientNameResolver newNameResolver(final String serviceName, final NameResolver.Args args) {
         return new DiscoveryClientNameResolver(serviceName, this.client, args,
-                GrpcUtil.SHARED_CHANNEL_EXECUTOR, this.discoveryClientNameResolvers::remove);
+                GrpcUtil.SHARED_CHANNEL_EXECUTOR, this::onResolverShutdown,
+                this.serviceConfigs.apply(serviceName));
     }
 
     @Override
@@ -116,24 +213,108 @@ protected int priority() {
     }
 
     /**
-     * Triggers a refresh of the registered name resolvers.
+     * Triggers a refresh of the registered name resolvers. The refresh is delayed by the heartbeat debounce, so that
+     * further heartbeats within that time don't trigger additional refreshes.
      *
      * @param event The event that triggered the update.
      */
     @EventListener(HeartbeatEvent.class)
     public void heartbeat(final HeartbeatEvent event) {
-        if (this.monitor.update(event.getValue())) {
-            for (final DiscoveryClientNameResolver discoveryClientNameResolver : this.discoveryClientNameResolvers) {
-                discoveryClientNameResolver.refreshFromExternal();
+        if (!this.monitor.update(event.getValue())) {
+            return;
+        }
+        if (this.heartbeatDebounce.isZero() || this.heartbeatDebounce.isNegative()) {
+            refreshAll();
+        } else if (this.refreshPending.compareAndSet(false, true)) {
+            if (!schedule(() -> {
+                this.refreshPending.set(false);
+                refreshAll();
+            }, this.heartbeatDebounce.toNanos())) {
+                this.refreshPending.set(false);
             }
         }
     }
 
+    private void onResolverShutdown(final DiscoveryClientNameResolver resolver) {
+        this.discoveryClientNameResolvers.remove(resolver);
+        synchronized (this) {
+            if (this.discoveryClientNameResolvers.isEmpty()) {
+                // Nothing left to refresh, the next resolver starts it again
+                stopPeriodicRefresh();
+            }
+        }
+    }
+
+    private void refreshAll() {
+        for (final DiscoveryClientNameResolver discoveryClientNameResolver : this.discoveryClientNameResolvers) {
+            discoveryClientNameResolver.refreshFromExternal();
+        }
+    }
+
+    private synchronized void startPeriodicRefresh() {
+        if (this.periodicRefresh == null && !this.refreshInterval.isZero() && !this.refreshInterval.isNegative()) {
+            schedulePeriodicRefresh(this.refreshGeneration);
+        }
+    }
+
+    private synchronized void stopPeriodicRefresh() {
+        this.refreshGeneration++;
+        if (this.periodicRefresh != null) {
+            this.periodicRefresh.cancel(false);
+            this.periodicRefresh = null;
+        }
+    }
+
+    private synchronized void schedulePeriodicRefresh(final long generation) {
+        if (generation != this.refreshGeneration) {
+            // Stopped while refreshing
+            return;
+        }
+        this.periodicRefresh = null;
+        if (this.discoveryClientNameResolvers.isEmpty()) {
+            return;
+        }
+        // Spread the refreshes of the different applications, so that they don't query the registry at the same time
+        final double jitter = 1 + REFRESH_JITTER * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        final long delay = (long) (this.refreshInterval.toNanos() * jitter);
+        final ScheduledExecutorService scheduler = getScheduler();
+        if (scheduler != null) {
+            this.periodicRefresh = scheduler.schedule(() -> {
+                refreshAll();
+                schedulePeriodicRefresh(generation);
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized boolean schedule(final Runnable task, final long delayNanos) {
+        final ScheduledExecutorService scheduler = getScheduler();
+        if (scheduler == null) {
+            return false;
+        }
+        scheduler.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+        return true;
+    }
+
+    private synchronized ScheduledExecutorService getScheduler() {
+        if (this.destroyed) {
+            return null;
+        }
+        if (this.scheduler == null) {
+            this.scheduler = SharedResourceHolder.get(this.schedulerResource);
+        }
+        return this.scheduler;
+    }
+
     /**
-     * Cleans up the name resolvers.
+     * Cleans up the name resolvers and stops the periodic refresh.
      */
     @PreDestroy
-    public void destroy() {
+    public synchronized void destroy() {
+        this.destroyed = true;
+        stopPeriodicRefresh();
+        if (this.scheduler != null) {
+            this.scheduler = SharedResourceHolder.release(this.schedulerResource, this.scheduler);
+        }
         this.discoveryClientNameResolvers.clear();
     }
 
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.nameresolver;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+/**
+ * A {@link DiscoveryClient} that shares a single fetch between all concurrent lookups of the same service and limits
+ * the number of concurrent fetches from the delegate. This avoids that every channel queries the registry on its own,
+ * if many channels refresh at the same time.
+ *
+ * <p>
+ * <b>Note:</b> {@link #getInstances(String)} blocks while the maximum number of fetches are running or another lookup
+ * is fetching the same service. The {@link DiscoveryClientNameResolver}s only call it from their (offload) executor,
+ * never from the channel's synchronization context, so a saturated registry delays the resolution instead of failing
+ * it. Failing fast isn't an option, because a failed resolution clears the addresses of the channel.
+ * </p>
+ */
+class SharedFetchDiscoveryClient implements DiscoveryClient {
+
+    private final DiscoveryClient delegate;
+    private final Semaphore permits;
+    private final ConcurrentMap<String, CompletableFuture<List<ServiceInstance>>> fetches = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new SharedFetchDiscoveryClient.
+     *
+     * @param delegate The client to fetch the instances from.
+     * @param maxConcurrentFetches The maximum number of concurrent fetches from the delegate.
+     */
+    SharedFetchDiscoveryClient(final DiscoveryClient delegate, final int maxConcurrentFetches) {
+        if (maxConcurrentFetches < 1) {
+            throw new IllegalArgumentException(
+                    "maxConcurrentFetches must be positive, but was " + maxConcurrentFetches);
+        }
+        this.delegate = requireNonNull(delegate, "delegate");
+        this.permits = new Semaphore(maxConcurrentFetches);
+    }
+
+    @Override
+    public String description() {
+        return this.delegate.description();
+    }
+
+    /**
+     * Gets the instances of the given service, joining a fetch of the same service that is already running. This
+     * blocks until a fetch permit is available and the fetch has completed, so it must not be called from threads that
+     * must not block.
+     */
+    @Override
+    public List<ServiceInstance> getInstances(final String serviceId) {
+        final CompletableFuture<List<ServiceInstance>> fetch = new CompletableFuture<>();
+        final CompletableFuture<List<ServiceInstance>> existing = this.fetches.putIfAbsent(serviceId, fetch);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            this.permits.acquire();
+            try {
+                fetch.complete(this.delegate.getInstances(serviceId));
+            } finally {
+                this.permits.release();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fetch.completeExceptionally(e);
+        } catch (final RuntimeException | Error e) {
+            // Don't leave the other lookups waiting
+            fetch.completeExceptionally(e);
+        } finally {
+            // Later lookups have to fetch the instances again, so that they see the latest changes
+            this.fetches.remove(serviceId, fetch);
+        }
+        return join(fetch);
+    }
+
+    @Override
+    public List<String> getServices() {
+        return this.delegate.getServices();
+    }
+
+    @Override
+    public int getOrder() {
+        return this.delegate.getOrder();
+    }
+
+    private static List<ServiceInstance> join(final CompletableFuture<List<ServiceInstance>> fetch) {
+        try {
+            return fetch.join();
+        } catch (final CompletionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Failed to fetch the service instances", cause);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SharedFetchDiscoveryClient [delegate=" + this.delegate + ", fetches=" + this.fetches.keySet() + "]";
+    }
+
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.pipeline;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.common.pipeline.PipelineFrame;
+import net.devh.boot.grpc.common.pipeline.PipelineProtocol;
+
+/**
+ * The pipeline of a single channel. It keeps a long-lived bidi stream to the server and sends the logical calls as
+ * frames over it, correlated by their call id. At most {@link GrpcChannelProperties.Pipeline#getMaxConcurrentCalls()
+ * maxConcurrentCalls} logical calls are sent concurrently, the remaining calls wait on the client. If the server
+ * doesn't support pipelining, all calls are sent directly, until the pipeline is tried again after
+ * {@link GrpcChannelProperties.Pipeline#getRetryUnsupportedAfter() retryUnsupportedAfter}.
+ */
+@Slf4j
+public class ClientPipeline {
+
+    private final String name;
+    private final Set<String> methods;
+    private final int maxConcurrentCalls;
+    private final long retryUnsupportedAfterNanos;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong nextCallId = new AtomicLong();
+    private final Map<String, Boolean> pipelinedByMethod = new ConcurrentHashMap<>();
+
+    @GuardedBy("this")
+    private Connection connection;
+    private volatile boolean unsupported;
+    // Only valid while unsupported
+    private volatile long unsupportedUntilNanos;
+
+    /**
+     * Creates a new ClientPipeline.
+     *
+     * @param name The name of the channel.
+     * @param options The pipeline options of the channel.
+     * @param scheduler The scheduler used to enforce the deadlines of the logical calls.
+     */
+    public ClientPipeline(final String name, final GrpcChannelProperties.Pipeline options,
+            final ScheduledExecutorService scheduler) {
+        this.name = requireNonNull(name, "name");
+        this.methods = Set.copyOf(options.getMethods());
+        this.maxConcurrentCalls = Math.max(1, options.getMaxConcurrentCalls());
+        this.retryUnsupportedAfterNanos = options.getRetryUnsupportedAfter().toNanos();
+        this.scheduler = requireNonNull(scheduler, "scheduler");
+    }
+
+    /**
+     * Gets the name of the channel this pipeline belongs to.
+     *
+     * @return The name of the channel.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets whether the server of the channel supports pipelining. This returns false after a pipeline stream has been
+     * rejected by the server, until the pipeline is tried again.
+     *
+     * @return True, if the calls are pipelined. False, if they are sent directly.
+     */
+    public boolean isSupported() {
+        if (this.unsupported && System.nanoTime() - this.unsupportedUntilNanos >= 0) {
+            // Give the server another chance, e.g. after it has been redeployed
+            this.unsupported = false;
+        }
+        return !this.unsupported;
+    }
+
+    /**
+     * Gets the number of logical calls that are currently sent over the pipeline stream or wait for it.
+     *
+     * @return The number of logical calls in flight.
+     */
+    public synchronized int getInFlightCount() {
+        return this.connection == null ? 0 : this.connection.getInFlightCount();
+    }
+
+    /**
+     * Closes the current pipeline stream, after all logical calls on it have completed. New calls will open a new
+     * stream.
+     */
+    public synchronized void shutdown() {
+        if (this.connection != null) {
+            this.connection.shutdown();
+            this.connection = null;
+        }
+    }
+
+    ScheduledExecutorService getScheduler() {
+        return this.scheduler;
+    }
+
+    long nextCallId() {
+        return this.nextCallId.incrementAndGet();
+    }
+
+    /**
+     * Checks whether the calls to the given method should be sent over the pipeline.
+     *
+     * @param method The method to check.
+     * @return True, if the calls should be pipelined. False otherwise.
+     */
+    boolean isPipelined(final MethodDescriptor<?, ?> method) {
+        if (!isSupported() || method.getType() != MethodType.UNARY) {
+            return false;
+        }
+        return this.pipelinedByMethod.computeIfAbsent(method.getFullMethodName(),
+                key -> this.methods.contains(key) || this.methods.contains(method.getServiceName()));
+    }
+
+    /**
+     * Submits the given logical call to the pipeline stream, opening the stream if necessary. If the server doesn't
+     * support pipelining, the call is sent directly instead.
+     *
+     * @param call The call to submit.
+     * @param next The channel used to open the pipeline stream.
+     */
+    void submit(final LogicalCall call, final Channel next) {
+        if (!isSupported()) {
+            call.fallback();
+            return;
+        }
+        while (true) {
+            final Connection current;
+            synchronized (this) {
+                if (this.connection == null || this.connection.isClosed()) {
+                    this.connection = new Connection();
+                    this.connection.open(next);
+                }
+                current = this.connection;
+            }
+            if (current.submit(call)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the given call, cancelling it on the server if it has already been sent.
+     *
+     * @param call The call to cancel.
+     */
+    void cancel(final LogicalCall call) {
+        final Connection current = call.getConnection();
+        if (current != null) {
+            current.cancel(call);
+        }
+    }
+
+    private synchronized void onConnectionClosed(final Connection closed, final Status status) {
+        if (status.getCode() == Status.Code.UNIMPLEMENTED) {
+            log.info("Server of channel '{}' doesn't support pipelined calls, sending them directly for {}ms",
+                    this.name, TimeUnit.NANOSECONDS.toMillis(this.retryUnsupportedAfterNanos));
+            this.unsupportedUntilNanos = System.nanoTime() + this.retryUnsupportedAfterNanos;
+            this.unsupported = true;
+        } else if (!status.isOk()) {
+            log.debug("Pipeline stream of channel '{}' closed with {}", this.name, status);
+        }
+        if (this.connection == closed) {
+            this.connection = null;
+        }
+    }
+
+    /**
+     * A logical call that is sent over the pipeline stream.
+     */
+    interface LogicalCall {
+
+        /**
+         * Creates the request frame of this call. The timeout is calculated when the call is actually sent.
+         *
+         * @return The newly created request frame.
+         */
+        PipelineFrame newRequestFrame();
+
+        long getCallId();
+
+        @Nullable
+        Connection getConnection();
+
+        /**
+         * Binds this call to the given stream.
+         *
+         * @param connection The stream the call is sent over.
+         * @return True, if the call has been bound. False, if the call has already been completed.
+         */
+        boolean attach(Connection connection);
+
+        void onResponse(Metadata headers, byte[] response);
+
+        void onClose(Status status, Metadata trailers);
+
+        /**
+         * Sends this call directly instead, because the server doesn't support pipelining.
+         */
+        void fallback();
+
+    }
+
+    /**
+     * A single pipeline stream and the logical calls sent over it.
+     */
+    final class Connection extends ClientCall.Listener<PipelineFrame> {
+
+        private final Map<Long, LogicalCall> active = new HashMap<>();
+        private final Deque<LogicalCall> waiting = new ArrayDeque<>();
+        private final Deque<PipelineFrame> outbound = new ArrayDeque<>();
+        private ClientCall<PipelineFrame, PipelineFrame> stream;
+        private boolean closed;
+        private boolean shutdown;
+        private boolean halfClosed;
+
+        /**
+         * Opens the stream. The stream is neither bound to the deadline nor the cancellation of the call that
+         * triggered it.
+         *
+         * @param next The channel to open the stream on.
+         */
+        void open(final Channel next) {
+            final Context forked = Context.ROOT.fork();
+            final Context previous = forked.attach();
+            try {
+                final ClientCall<PipelineFrame, PipelineFrame> call =
+                        next.newCall(PipelineProtocol.EXCHANGE_METHOD, CallOptions.DEFAULT);
+                synchronized (this) {
+                    this.stream = call;
+                    call.start(this, new Metadata());
+                    call.request(1);
+                }
+            } finally {
+                forked.detach(previous);
+            }
+        }
+
+        synchronized boolean isClosed() {
+            return this.closed || this.shutdown;
+        }
+
+        synchronized int getInFlightCount() {
+            return this.active.size() + this.waiting.size();
+        }
+
+        /**
+         * Adds the given call to this stream.
+         *
+         * @param call The call to add.
+         * @return True, if the call has been added. False, if this stream is already closed.
+         */
+        synchronized boolean submit(final LogicalCall call) {
+            if (isClosed()) {
+                return false;
+            }
+            if (!call.attach(this)) {
+                return true;
+            }
+            if (this.active.size() < ClientPipeline.this.maxConcurrentCalls) {
+                send(call);
+            } else {
+                this.waiting.add(call);
+            }
+            return true;
+        }
+
+        void cancel(final LogicalCall call) {
+            synchronized (this) {
+                if (this.waiting.remove(call)) {
+                    return;
+                }
+                if (this.active.remove(call.getCallId()) == null) {
+                    return;
+                }
+                if (!this.closed) {
+                    enqueue(PipelineFrame.cancel(call.getCallId()));
+                    sendWaiting();
+                }
+            }
+            closeIfDone();
+        }
+
+        synchronized void shutdown() {
+            this.shutdown = true;
+            closeIfDone();
+        }
+
+        @Override
+        public void onMessage(final PipelineFrame frame) {
+            final LogicalCall call;
+            synchronized (this) {
+                if (frame.getType() == PipelineFrame.Type.CLOSE) {
+                    call = this.active.remove(frame.getCallId());
+                    if (!this.closed) {
+                        sendWaiting();
+                    }
+                } else {
+                    call = this.active.get(frame.getCallId());
+                }
+                if (!this.closed) {
+                    this.stream.request(1);
+                }
+            }
+            if (call != null) {
+                if (frame.getType() == PipelineFrame.Type.RESPONSE) {
+                    call.onResponse(frame.getMetadata(), frame.getPayload());
+                } else if (frame.getType() == PipelineFrame.Type.CLOSE) {
+                    call.onClose(frame.getStatus(), frame.getMetadata());
+                }
+            }
+            closeIfDone();
+        }
+
+        @Override
+        public synchronized void onReady() {
+            flush();
+        }
+
+        @Override
+        public void onClose(final Status status, final Metadata trailers) {
+            final List<LogicalCall> sent;
+            final List<LogicalCall> pending;
+            synchronized (this) {
+                this.closed = true;
+                sent = new ArrayList<>(this.active.values());
+                pending = new ArrayList<>(this.waiting);
+                this.active.clear();
+                this.waiting.clear();
+                this.outbound.clear();
+            }
+            onConnectionClosed(this, status);
+            if (status.getCode() == Status.Code.UNIMPLEMENTED) {
+                sent.forEach(LogicalCall::fallback);
+            } else {
+                final Status failure = status.isOk()
+                        ? Status.UNAVAILABLE.withDescription("Pipeline stream closed unexpectedly")
+                        : Status.UNAVAILABLE.withDescription("Pipeline stream failed").withCause(status.asException());
+                for (final LogicalCall call : sent) {
+                    call.onClose(failure, new Metadata());
+                }
+            }
+            // The waiting calls have never been sent, so they can safely be sent directly instead
+            pending.forEach(LogicalCall::fallback);
+        }
+
+        @GuardedBy("this")
+        private void send(final LogicalCall call) {
+            this.active.put(call.getCallId(), call);
+            enqueue(call.newRequestFrame());
+        }
+
+        @GuardedBy("this")
+        private void sendWaiting() {
+            while (this.active.size() < ClientPipeline.this.maxConcurrentCalls && !this.waiting.isEmpty()) {
+                send(this.waiting.poll());
+            }
+        }
+
+        @GuardedBy("this")
+        private void enqueue(final PipelineFrame frame) {
+            this.outbound.add(frame);
+            flush();
+        }
+
+        @GuardedBy("this")
+        private void flush() {
+            while (!this.closed && !this.outbound.isEmpty() && this.stream.isReady()) {
+                this.stream.sendMessage(this.outbound.poll());
+            }
+        }
+
+        private synchronized void closeIfDone() {
+            if (this.shutdown && !this.closed && !this.halfClosed && this.active.isEmpty() && this.waiting.isEmpty()) {
+                this.halfClosed = true;
+                // Remaining cancel frames are sent before the half close
+                this.outbound.forEach(this.stream::sendMessage);
+                this.outbound.clear();
+                this.stream.halfClose();
+            }
+        }
+
+    }
+
+}
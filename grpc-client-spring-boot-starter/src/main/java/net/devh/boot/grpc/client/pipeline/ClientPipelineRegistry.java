@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.pipeline;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.SharedResourceHolder;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
+
+/**
+ * Manages the {@link ClientPipeline}s of the individual channels. The pipelines are created on demand for all channels
+ * that have pipelining enabled.
+ */
+public class ClientPipelineRegistry implements AutoCloseable {
+
+    private final GrpcChannelsProperties properties;
+    private final Map<String, Optional<ClientPipeline>> pipelines = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates a new ClientPipelineRegistry.
+     *
+     * @param properties The properties used to configure the pipelines.
+     */
+    public ClientPipelineRegistry(final GrpcChannelsProperties properties) {
+        this.properties = requireNonNull(properties, "properties");
+    }
+
+    /**
+     * Gets the pipeline for the given channel, creating it if necessary.
+     *
+     * @param name The name of the channel.
+     * @return The pipeline of the channel or empty, if the channel has pipelining disabled.
+     */
+    public synchronized Optional<ClientPipeline> getPipeline(final String name) {
+        return this.pipelines.computeIfAbsent(name, key -> {
+            final GrpcChannelProperties.Pipeline options = this.properties.getChannel(key).getPipeline();
+            if (!options.isEnabled() || options.getMethods().isEmpty()) {
+                return Optional.empty();
+            }
+            if (this.scheduler == null) {
+                this.scheduler = SharedResourceHolder.get(GrpcUtil.TIMER_SERVICE);
+            }
+            return Optional.of(new ClientPipeline(key, options, this.scheduler));
+        });
+    }
+
+    /**
+     * Gets all pipelines that have been created so far.
+     *
+     * @return The pipelines of the channels.
+     */
+    public synchronized Collection<ClientPipeline> getPipelines() {
+        final List<ClientPipeline> result = new ArrayList<>();
+        for (final Optional<ClientPipeline> pipeline : this.pipelines.values()) {
+            pipeline.ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * Shuts down the pipeline streams and releases the timer used to enforce the deadlines of the pipelined calls.
+     */
+    @Override
+    public synchronized void close() {
+        for (final ClientPipeline pipeline : getPipelines()) {
+            pipeline.shutdown();
+        }
+        if (this.scheduler != null) {
+            this.scheduler = SharedResourceHolder.release(GrpcUtil.TIMER_SERVICE, this.scheduler);
+        }
+    }
+
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.pipeline;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import net.devh.boot.grpc.client.pipeline.ClientPipeline.Connection;
+import net.devh.boot.grpc.client.pipeline.ClientPipeline.LogicalCall;
+import net.devh.boot.grpc.common.pipeline.PipelineFrame;
+import net.devh.boot.grpc.common.pipeline.PipelineProtocol;
+
+/**
+ * A client interceptor that sends the calls to the configured unary methods as logical calls over the pipeline stream
+ * of the channel. Every logical call keeps its own deadline, cancellation and flow control. Calls that use call
+ * credentials are always sent directly, because the credentials are applied per stream.
+ */
+public class PipelineClientInterceptor implements ClientInterceptor {
+
+    private final ClientPipeline pipeline;
+
+    /**
+     * Creates a new PipelineClientInterceptor.
+     *
+     * @param pipeline The pipeline of the channel.
+     */
+    public PipelineClientInterceptor(final ClientPipeline pipeline) {
+        this.pipeline = requireNonNull(pipeline, "pipeline");
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(final MethodDescriptor<ReqT, RespT> method,
+            final CallOptions callOptions, final Channel next) {
+        if (callOptions.getCredentials() != null || !this.pipeline.isPipelined(method)) {
+            return next.newCall(method, callOptions);
+        }
+        return new PipelinedClientCall<>(this.pipeline, method, callOptions, next);
+    }
+
+    /**
+     * A client call that delays the start of the actual call, until the request is known, so that it can be sent as a
+     * single frame over the pipeline stream.
+     */
+    private static final class PipelinedClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT>
+            implements LogicalCall, Context.CancellationListener {
+
+        private final ClientPipeline pipeline;
+        private final MethodDescriptor<ReqT, RespT> method;
+        private final CallOptions callOptions;
+        private final Channel next;
+
+        private Listener<RespT> listener;
+        private Metadata headers;
+        private int requested;
+        private Boolean messageCompression;
+        private ReqT request;
+        private byte[] serializedRequest;
+        private long callId;
+        private Deadline deadline;
+        private Context context;
+        private volatile ClientCall<ReqT, RespT> delegate;
+        private Connection connection;
+        private ScheduledFuture<?> deadlineTimer;
+        private Metadata responseHeaders;
+        private byte[] response;
+        private Status closeStatus;
+        private Metadata closeTrailers;
+        private boolean responseDelivered;
+        private boolean completed;
+
+        PipelinedClientCall(final ClientPipeline pipeline, final MethodDescriptor<ReqT, RespT> method,
+                final CallOptions callOptions, final Channel next) {
+            this.pipeline = pipeline;
+            this.method = method;
+            this.callOptions = callOptions;
+            this.next = next;
+        }
+
+        @Override
+        public void start(final Listener<RespT> responseListener, final Metadata headers) {
+            this.listener = responseListener;
+            this.headers = headers;
+        }
+
+        @Override
+        public void request(final int numMessages) {
+            final ClientCall<ReqT, RespT> current;
+            synchronized (this) {
+                current = this.delegate;
+                if (current == null) {
+                    this.requested += numMessages;
+                }
+            }
+            if (current != null) {
+                current.request(numMessages);
+            } else {
+                deliverResponse();
+            }
+        }
+
+        @Override
+        public void cancel(@Nullable final String message, @Nullable final Throwable cause) {
+            final ClientCall<ReqT, RespT> current = this.delegate;
+            if (current != null) {
+                current.cancel(message, cause);
+            } else if (this.listener != null) {
+                abort(Status.CANCELLED.withDescription(message).withCause(cause));
+            }
+        }
+
+        @Override
+        public void halfClose() {
+            if (this.delegate != null) {
+                this.delegate.halfClose();
+                return;
+            }
+            if (this.request == null) {
+                startDelegate();
+                this.delegate.halfClose();
+                return;
+            }
+
+            this.context = Context.current();
+            if (this.context.isCancelled()) {
+                abort(Contexts.statusFromCancelled(this.context));
+                return;
+            }
+            this.serializedRequest = PipelineProtocol.toBytes(this.method.getRequestMarshaller(), this.request);
+            this.callId = this.pipeline.nextCallId();
+            this.deadline = min(this.callOptions.getDeadline(), this.context.getDeadline());
+            synchronized (this) {
+                if (this.completed) {
+                    return;
+                }
+                if (this.deadline != null) {
+                    final Deadline expiring = this.deadline;
+                    this.deadlineTimer = expiring.runOnExpiration(
+                            () -> abort(Status.DEADLINE_EXCEEDED
+                                    .withDescription("Deadline exceeded after " + expiring + " for a pipelined call")),
+                            this.pipeline.getScheduler());
+                }
+                this.context.addListener(this, MoreExecutors.directExecutor());
+            }
+            this.pipeline.submit(this, this.next);
+        }
+
+        @Override
+        public void sendMessage(final ReqT message) {
+            if (this.delegate != null) {
+                this.delegate.sendMessage(message);
+            } else if (this.request == null) {
+                this.request = message;
+            } else {
+                // Not a unary call after all
+                startDelegate();
+                this.delegate.sendMessage(this.request);
+                this.delegate.sendMessage(message);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            final ClientCall<ReqT, RespT> current = this.delegate;
+            return current == null ? this.request == null : current.isReady();
+        }
+
+        @Override
+        public void setMessageCompression(final boolean enabled) {
+            if (this.delegate != null) {
+                this.delegate.setMessageCompression(enabled);
+            } else {
+                this.messageCompression = enabled;
+            }
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            final ClientCall<ReqT, RespT> current = this.delegate;
+            return current == null ? Attributes.EMPTY : current.getAttributes();
+        }
+
+        @Override
+        public void cancelled(final Context context) {
+            abort(Contexts.statusFromCancelled(context));
+        }
+
+        // LogicalCall
+
+        @Override
+        public PipelineFrame newRequestFrame() {
+            final long timeoutNanos = this.deadline == null ? 0 : Math.max(1, this.deadline.timeRemaining(
+                    TimeUnit.NANOSECONDS));
+            return PipelineFrame.request(this.callId, this.method.getFullMethodName(), timeoutNanos, this.headers,
+                    this.serializedRequest);
+        }
+
+        @Override
+        public long getCallId() {
+            return this.callId;
+        }
+
+        @Override
+        public synchronized Connection getConnection() {
+            return this.connection;
+        }
+
+        @Override
+        public synchronized boolean attach(final Connection connection) {
+            if (this.completed || this.delegate != null) {
+                return false;
+            }
+            this.connection = connection;
+            return true;
+        }
+
+        @Override
+        public synchronized void onResponse(final Metadata headers, final byte[] response) {
+            if (this.completed) {
+                return;
+            }
+            this.responseHeaders = headers;
+            this.response = response;
+        }
+
+        @Override
+        public void onClose(final Status status, final Metadata trailers) {
+            if (!complete()) {
+                return;
+            }
+            synchronized (this) {
+                this.closeStatus = status;
+                this.closeTrailers = trailers;
+            }
+            deliverResponse();
+        }
+
+        @Override
+        public void fallback() {
+            synchronized (this) {
+                if (this.completed || this.delegate != null) {
+                    return;
+                }
+                releaseCaller();
+                // Bind the direct call to the deadline and cancellation of the caller again
+                final Context previous = this.context.attach();
+                try {
+                    startDelegate();
+                } finally {
+                    this.context.detach(previous);
+                }
+            }
+            this.delegate.sendMessage(this.request);
+            this.delegate.halfClose();
+        }
+
+        /**
+         * Delivers the result of this call, once it has been closed and the response, if any, has been requested by
+         * the caller.
+         */
+        private void deliverResponse() {
+            final Metadata receivedHeaders;
+            final RespT message;
+            final Status status;
+            final Metadata trailers;
+            synchronized (this) {
+                if (this.closeStatus == null || this.responseDelivered) {
+                    return;
+                }
+                if (this.response != null && this.requested <= 0) {
+                    return;
+                }
+                this.responseDelivered = true;
+                receivedHeaders = this.responseHeaders;
+                status = this.closeStatus;
+                trailers = this.closeTrailers;
+                message = this.response == null ? null
+                        : PipelineProtocol.fromBytes(this.method.getResponseMarshaller(), this.response);
+            }
+            final Listener<RespT> target = this.listener;
+            executor().execute(() -> {
+                if (receivedHeaders != null) {
+                    target.onHeaders(receivedHeaders);
+                }
+                if (message != null) {
+                    target.onMessage(message);
+                }
+                target.onClose(status, trailers);
+            });
+        }
+
+        /**
+         * Stops the logical call, cancelling it on the server if necessary, and closes it with the given status.
+         *
+         * @param status The status to close this call with.
+         */
+        private void abort(final Status status) {
+            if (!complete()) {
+                return;
+            }
+            this.pipeline.cancel(this);
+            synchronized (this) {
+                this.closeStatus = status;
+                this.closeTrailers = new Metadata();
+                this.response = null;
+                this.responseHeaders = null;
+            }
+            deliverResponse();
+        }
+
+        /**
+         * Marks this call as completed and releases the resources bound to the caller.
+         *
+         * @return True, if the call has been completed by this invocation. False, if it has already been completed.
+         */
+        private boolean complete() {
+            synchronized (this) {
+                if (this.completed || this.delegate != null) {
+                    return false;
+                }
+                this.completed = true;
+            }
+            releaseCaller();
+            return true;
+        }
+
+        private void releaseCaller() {
+            final ScheduledFuture<?> timer;
+            synchronized (this) {
+                timer = this.deadlineTimer;
+                this.deadlineTimer = null;
+            }
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (this.context != null) {
+                this.context.removeListener(this);
+            }
+        }
+
+        private synchronized void startDelegate() {
+            final ClientCall<ReqT, RespT> call = this.next.newCall(this.method, this.callOptions);
+            call.start(this.listener, this.headers);
+            if (this.messageCompression != null) {
+                call.setMessageCompression(this.messageCompression);
+            }
+            if (this.requested > 0) {
+                call.request(this.requested);
+            }
+            this.delegate = call;
+        }
+
+        private Executor executor() {
+            final Executor executor = this.callOptions.getExecutor();
+            return executor == null ? MoreExecutors.directExecutor() : executor;
+        }
+
+        @Nullable
+        private static Deadline min(@Nullable final Deadline first, @Nullable final Deadline second) {
+            if (first == null) {
+                return second;
+            }
+            return second == null ? first : first.minimum(second);
+        }
+
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains classes for multiplexing many small unary calls over a single long-lived bidi stream per channel.
+ */
+
+package net.devh.boot.grpc.client.pipeline;
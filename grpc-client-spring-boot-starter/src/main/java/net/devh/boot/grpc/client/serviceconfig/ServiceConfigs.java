@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.serviceconfig;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import io.grpc.Status;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.HedgingPolicy;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.LoadBalancing;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.MethodConfig;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.RetryPolicy;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.RetryThrottling;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.WeightedRoundRobin;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.ZoneAware;
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
+import net.devh.boot.grpc.client.loadbalancer.LeastRequestLoadBalancerProvider;
+import net.devh.boot.grpc.client.loadbalancer.PeakEwmaLoadBalancerProvider;
+import net.devh.boot.grpc.client.loadbalancer.ZoneAwareLoadBalancerProvider;
+import net.devh.boot.grpc.client.nameresolver.DiscoveryClientResolverFactory;
+
+/**
+ * Helper methods to generate the gRPC service config from the {@link GrpcChannelProperties} and to merge it with
+ * service configs from other sources. The generated config uses the JSON like structure expected by
+ * {@link io.grpc.ManagedChannelBuilder#defaultServiceConfig(Map)}.
+ */
+public final class ServiceConfigs {
+
+    private static final String METHOD_CONFIG = "methodConfig";
+    private static final String RETRY_THROTTLING = "retryThrottling";
+    private static final String NAME = "name";
+    private static final String RETRY_POLICY = "retryPolicy";
+    private static final String HEDGING_POLICY = "hedgingPolicy";
+    private static final String LOAD_BALANCING_CONFIG = "loadBalancingConfig";
+    private static final String LOAD_BALANCING_POLICY = "loadBalancingPolicy";
+    private static final String WEIGHTED_ROUND_ROBIN = "weighted_round_robin";
+
+    /**
+     * The key that can be used to configure the policies for all methods of the channel.
+     */
+    public static final String ALL_METHODS = "*";
+
+    private ServiceConfigs() {}
+
+    /**
+     * Generates the service config for the retry and hedging policies, the retry throttling and the options of the
+     * configurable load balancing policies of the given channel.
+     *
+     * @param properties The properties of the channel.
+     * @return The generated service config or null, if the channel has no such policies configured.
+     * @throws IllegalArgumentException If both a retry and a hedging policy are enabled for the same method.
+     */
+    @Nullable
+    public static Map<String, Object> fromProperties(final GrpcChannelProperties properties) {
+        final List<Object> methodConfigs = new ArrayList<>();
+        for (final Entry<String, MethodConfig> entry : properties.getMethodConfig().entrySet()) {
+            final Map<String, Object> methodConfig = toMethodConfig(entry.getKey(), entry.getValue());
+            if (methodConfig != null) {
+                methodConfigs.add(methodConfig);
+            }
+        }
+        final RetryThrottling throttling = properties.getRetryThrottling();
+        final List<Object> loadBalancingConfig = toLoadBalancingConfig(properties);
+        if (methodConfigs.isEmpty() && throttling.getMaxTokens() == null && loadBalancingConfig == null) {
+            return null;
+        }
+        final Map<String, Object> serviceConfig = new LinkedHashMap<>();
+        if (!methodConfigs.isEmpty()) {
+            serviceConfig.put(METHOD_CONFIG, methodConfigs);
+        }
+        if (throttling.getMaxTokens() != null) {
+            final Map<String, Object> retryThrottling = new LinkedHashMap<>();
+            retryThrottling.put("maxTokens", throttling.getMaxTokens().doubleValue());
+            retryThrottling.put("tokenRatio", throttling.getTokenRatio());
+            serviceConfig.put(RETRY_THROTTLING, retryThrottling);
+        }
+        if (loadBalancingConfig != null) {
+            serviceConfig.put(LOAD_BALANCING_CONFIG, loadBalancingConfig);
+        }
+        return serviceConfig;
+    }
+
+    /**
+     * Gets the highest number of attempts of all enabled retry and hedging policies of the given channel.
+     *
+     * @param properties The properties of the channel.
+     * @return The highest number of attempts or 1, if there are no such policies.
+     */
+    public static int getMaxAttempts(final GrpcChannelProperties properties) {
+        int maxAttempts = 1;
+        for (final MethodConfig methodConfig : properties.getMethodConfig().values()) {
+            if (methodConfig.getRetry().isEnabled()) {
+                maxAttempts = Math.max(maxAttempts, methodConfig.getRetry().getMaxAttempts());
+            }
+            if (methodConfig.getHedging().isEnabled()) {
+                maxAttempts = Math.max(maxAttempts, methodConfig.getHedging().getMaxAttempts());
+            }
+        }
+        return maxAttempts;
+    }
+
+    /**
+     * Merges the given service configs. The discovered config takes precedence: The configured retry and hedging
+     * policies are only used for methods that have neither of them in the discovered config. The same applies to the
+     * retry throttling and the load balancing config, which is only used if the discovered config doesn't select a
+     * load balancing policy. All other entries of the discovered config are kept as is.
+     *
+     * @param discovered The service config that was found via service discovery.
+     * @param configured The service config that was generated from the properties.
+     * @return The merged service config.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> merge(final Map<String, ?> discovered, final Map<String, ?> configured) {
+        final Map<String, Object> merged = new LinkedHashMap<>(discovered);
+        final List<Map<String, ?>> methodConfigs = new ArrayList<>();
+        final Object discoveredMethodConfigs = discovered.get(METHOD_CONFIG);
+        if (discoveredMethodConfigs instanceof List) {
+            for (final Object methodConfig : (List<?>) discoveredMethodConfigs) {
+                if (methodConfig instanceof Map) {
+                    methodConfigs.add((Map<String, ?>) methodConfig);
+                }
+            }
+        }
+
+        final Object configuredMethodConfigs = configured.get(METHOD_CONFIG);
+        if (configuredMethodConfigs instanceof List) {
+            for (final Object methodConfig : (List<?>) configuredMethodConfigs) {
+                mergeMethodConfig(methodConfigs, (Map<String, ?>) methodConfig);
+            }
+        }
+        if (!methodConfigs.isEmpty()) {
+            merged.put(METHOD_CONFIG, methodConfigs);
+        }
+
+        if (!merged.containsKey(RETRY_THROTTLING) && configured.containsKey(RETRY_THROTTLING)) {
+            merged.put(RETRY_THROTTLING, configured.get(RETRY_THROTTLING));
+        }
+        if (!merged.containsKey(LOAD_BALANCING_CONFIG) && !merged.containsKey(LOAD_BALANCING_POLICY)
+                && configured.containsKey(LOAD_BALANCING_CONFIG)) {
+            merged.put(LOAD_BALANCING_CONFIG, configured.get(LOAD_BALANCING_CONFIG));
+        }
+        return merged;
+    }
+
+    /**
+     * Gets the configured service config for the channel that resolves the given service via service discovery. These
+     * are the properties of the channel with the same name and no explicit address or the properties of the channel
+     * whose address points to the service.
+     *
+     * @param properties The properties of all channels.
+     * @param serviceName The name of the discovered service.
+     * @return The configured service config or null, if there is none.
+     */
+    @Nullable
+    public static Map<String, Object> forDiscoveredService(final GrpcChannelsProperties properties,
+            final String serviceName) {
+        final GrpcChannelProperties byName = properties.getClient().get(serviceName);
+        if (byName != null && byName.getAddress() == null) {
+            return fromProperties(properties.getChannel(serviceName));
+        }
+        for (final Entry<String, GrpcChannelProperties> entry : properties.getClient().entrySet()) {
+            final URI address = entry.getValue().getAddress();
+            if (address != null && DiscoveryClientResolverFactory.DISCOVERY_SCHEME.equals(address.getScheme())
+                    && ("/" + serviceName).equals(address.getPath())) {
+                return fromProperties(properties.getChannel(entry.getKey()));
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static Map<String, Object> toMethodConfig(final String name, final MethodConfig config) {
+        final RetryPolicy retry = config.getRetry();
+        final HedgingPolicy hedging = config.getHedging();
+        if (retry.isEnabled() && hedging.isEnabled()) {
+            throw new IllegalArgumentException("Both a retry and a hedging policy are enabled for: " + name);
+        }
+        final Map<String, Object> methodConfig = new LinkedHashMap<>();
+        methodConfig.put(NAME, Collections.singletonList(toName(name)));
+        if (retry.isEnabled()) {
+            final Map<String, Object> retryPolicy = new LinkedHashMap<>();
+            retryPolicy.put("maxAttempts", (double) retry.getMaxAttempts());
+            retryPolicy.put("initialBackoff", toDuration(retry.getInitialBackoff()));
+            retryPolicy.put("maxBackoff", toDuration(retry.getMaxBackoff()));
+            retryPolicy.put("backoffMultiplier", retry.getBackoffMultiplier());
+            retryPolicy.put("retryableStatusCodes", toCodes(retry.getRetryableStatusCodes()));
+            methodConfig.put(RETRY_POLICY, retryPolicy);
+        } else if (hedging.isEnabled()) {
+            final Map<String, Object> hedgingPolicy = new LinkedHashMap<>();
+            hedgingPolicy.put("maxAttempts", (double) hedging.getMaxAttempts());
+            hedgingPolicy.put("hedgingDelay", toDuration(hedging.getDelay()));
+            hedgingPolicy.put("nonFatalStatusCodes", toCodes(hedging.getNonFatalStatusCodes()));
+            methodConfig.put(HEDGING_POLICY, hedgingPolicy);
+        } else {
+            return null;
+        }
+        return methodConfig;
+    }
+
+    /**
+     * Generates the load balancing config that passes the configured options to the load aware, the zone aware and the
+     * weighted round robin load balancing policies. Other policies are selected via
+     * {@link io.grpc.ManagedChannelBuilder#defaultLoadBalancingPolicy(String)} and don't need a config.
+     *
+     * @param properties The properties of the channel.
+     * @return The load balancing config or null, if the channel doesn't use a configurable policy.
+     */
+    @Nullable
+    private static List<Object> toLoadBalancingConfig(final GrpcChannelProperties properties) {
+        final String policy = properties.getDefaultLoadBalancingPolicy();
+        final Map<String, Object> options = new LinkedHashMap<>();
+        if (LeastRequestLoadBalancerProvider.POLICY_NAME.equals(policy)
+                || PeakEwmaLoadBalancerProvider.POLICY_NAME.equals(policy)) {
+            final LoadBalancing loadBalancing = properties.getLoadBalancing();
+            options.put("choiceCount", (double) loadBalancing.getChoiceCount());
+            options.put("decayTime", toDuration(loadBalancing.getDecayTime()));
+        } else if (WEIGHTED_ROUND_ROBIN.equals(policy)) {
+            final WeightedRoundRobin weightedRoundRobin = properties.getWeightedRoundRobin();
+            options.put("enableOobLoadReport", weightedRoundRobin.isEnableOobLoadReport());
+            options.put("oobReportingPeriod", toDuration(weightedRoundRobin.getOobReportingPeriod()));
+            options.put("blackoutPeriod", toDuration(weightedRoundRobin.getBlackoutPeriod()));
+            options.put("weightExpirationPeriod", toDuration(weightedRoundRobin.getWeightExpirationPeriod()));
+            options.put("weightUpdatePeriod", toDuration(weightedRoundRobin.getWeightUpdatePeriod()));
+            options.put("errorUtilizationPenalty", weightedRoundRobin.getErrorUtilizationPenalty());
+        } else if (ZoneAwareLoadBalancerProvider.POLICY_NAME.equals(policy)) {
+            final ZoneAware zoneAware = properties.getZoneAware();
+            options.put("choiceCount", (double) properties.getLoadBalancing().getChoiceCount());
+            if (zoneAware.getLocalZone() != null) {
+                options.put("localZone", zoneAware.getLocalZone());
+            }
+            options.put("minHealthyRatio", zoneAware.getMinHealthyRatio());
+            options.put("maxInFlightPerSubchannel", (double) zoneAware.getMaxInFlightPerBackend());
+        } else {
+            return null;
+        }
+        return Collections.singletonList(Collections.singletonMap(policy, options));
+    }
+
+    private static Map<String, Object> toName(final String name) {
+        final Map<String, Object> result = new LinkedHashMap<>();
+        if (ALL_METHODS.equals(name)) {
+            return result;
+        }
+        final int index = name.lastIndexOf('/');
+        if (index < 0) {
+            result.put("service", name);
+        } else {
+            result.put("service", name.substring(0, index));
+            result.put("method", name.substring(index + 1));
+        }
+        return result;
+    }
+
+    private static String toDuration(final Duration duration) {
+        return BigDecimal.valueOf(duration.getSeconds())
+                .add(BigDecimal.valueOf(duration.getNano(), 9))
+                .stripTrailingZeros()
+                .toPlainString() + "s";
+    }
+
+    private static List<Object> toCodes(final List<Status.Code> codes) {
+        final List<Object> result = new ArrayList<>(codes.size());
+        for (final Status.Code code : codes) {
+            result.add(code.name());
+        }
+        return result;
+    }
+
+    /**
+     * Adds the policy of the given configured method config to the matching discovered method config or adds it as
+     * new method config, if there is no matching one. Discovered policies are never replaced.
+     *
+     * @param methodConfigs The method configs to merge the configured one into.
+     * @param configured The configured method config with a single name.
+     */
+    private static void mergeMethodConfig(final List<Map<String, ?>> methodConfigs, final Map<String, ?> configured) {
+        final Object name = ((List<?>) configured.get(NAME)).get(0);
+        for (int i = 0; i < methodConfigs.size(); i++) {
+            final Map<String, ?> methodConfig = methodConfigs.get(i);
+            final Object names = methodConfig.get(NAME);
+            if (!(names instanceof List) || !containsName((List<?>) names, name)) {
+                continue;
+            }
+            if (methodConfig.containsKey(RETRY_POLICY) || methodConfig.containsKey(HEDGING_POLICY)) {
+                return;
+            }
+            // Split the name off, so that the policy only applies to the configured method
+            final List<Object> remainingNames = new ArrayList<>((List<?>) names);
+            remainingNames.removeIf(candidate -> Objects.equals(normalizeName(candidate), normalizeName(name)));
+            final Map<String, Object> withPolicy = new LinkedHashMap<>(methodConfig);
+            withPolicy.putAll(configured);
+            if (remainingNames.isEmpty()) {
+                methodConfigs.set(i, withPolicy);
+            } else {
+                final Map<String, Object> remaining = new LinkedHashMap<>(methodConfig);
+                remaining.put(NAME, remainingNames);
+                methodConfigs.set(i, remaining);
+                methodConfigs.add(withPolicy);
+            }
+            return;
+        }
+        methodConfigs.add(configured);
+    }
+
+    private static boolean containsName(final List<?> names, final Object name) {
+        for (final Object candidate : names) {
+            if (Objects.equals(normalizeName(candidate), normalizeName(name))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Normalizes the given name, so that names parsed from JSON and generated names can be compared.
+     *
+     * @param name The name to normalize.
+     * @return The normalized name.
+     */
+    private static Object normalizeName(final Object name) {
+        if (!(name instanceof Map)) {
+            return name;
+        }
+        final Map<Object, Object> normalized = new LinkedHashMap<>();
+        for (final Entry<?, ?> entry : ((Map<?, ?>) name).entrySet()) {
+            final Object value = entry.getValue();
+            if (value != null && !"".equals(value)) {
+                normalized.put(entry.getKey(), value);
+            }
+        }
+        return normalized;
+    }
+
+}
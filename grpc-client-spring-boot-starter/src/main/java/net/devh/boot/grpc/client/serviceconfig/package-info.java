@@ -0,0 +1,6 @@
+/**
+ * Contains the classes that generate the gRPC service config, e.g. the retry and hedging policies, from the channel
+ * properties and merge it with the service config found via service discovery.
+ */
+
+package net.devh.boot.grpc.client.serviceconfig;
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+
+/**
+ * Tests for {@link CoalescingClientInterceptor} and {@link ClientRequestCoalescer}.
+ */
+class CoalescingClientInterceptorTest {
+
+    private static final MethodDescriptor<StringValue, StringValue> GET_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Lookup", "Get"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setSafe(true)
+                    .build();
+
+    private static final StringValue FIRST = StringValue.of("first");
+    private static final StringValue SECOND = StringValue.of("second");
+
+    private final AtomicInteger serverCalls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void afterEach() {
+        this.release.countDown();
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+        this.scheduler.shutdownNow();
+        this.serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testIdenticalCallsShareOneServerCall() throws Exception {
+        final ClientRequestCoalescer coalescer = newCoalescer();
+        final Channel coalescingChannel = start(coalescer);
+
+        final ListenableFuture<StringValue> first = call(coalescingChannel, FIRST, CallOptions.DEFAULT);
+        final ListenableFuture<StringValue> second = call(coalescingChannel, FIRST, CallOptions.DEFAULT);
+        final ListenableFuture<StringValue> other = call(coalescingChannel, SECOND, CallOptions.DEFAULT);
+        awaitCondition(() -> this.serverCalls.get() == 2);
+
+        this.release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS).getValue().startsWith("first:"));
+        assertEquals(first.get().getValue(), second.get(5, TimeUnit.SECONDS).getValue());
+        assertTrue(other.get(5, TimeUnit.SECONDS).getValue().startsWith("second:"));
+
+        assertEquals(2, this.serverCalls.get());
+        assertEquals(2, coalescer.getWireCallCount());
+        assertEquals(1, coalescer.getSavedCallCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    void testFollowerKeepsItsOwnDeadline() throws Exception {
+        final ClientRequestCoalescer coalescer = newCoalescer();
+        final Channel coalescingChannel = start(coalescer);
+
+        final ListenableFuture<StringValue> leader = call(coalescingChannel, FIRST, CallOptions.DEFAULT);
+        awaitCondition(() -> this.serverCalls.get() == 1);
+        final ListenableFuture<StringValue> follower = call(coalescingChannel, FIRST,
+                CallOptions.DEFAULT.withDeadlineAfter(50, TimeUnit.MILLISECONDS));
+
+        final ExecutionException error = assertThrows(ExecutionException.class,
+                () -> follower.get(5, TimeUnit.SECONDS));
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, Status.fromThrowable(error.getCause()).getCode());
+
+        this.release.countDown();
+        assertEquals("first:1", leader.get(5, TimeUnit.SECONDS).getValue());
+        assertEquals(1, this.serverCalls.get());
+        assertEquals(1, coalescer.getSavedCallCount());
+    }
+
+    @Test
+    void testCancellingAllCallersCancelsServerCall() throws Exception {
+        final ClientRequestCoalescer coalescer = newCoalescer();
+        final Channel coalescingChannel = start(coalescer);
+
+        final ListenableFuture<StringValue> first = call(coalescingChannel, FIRST, CallOptions.DEFAULT);
+        final ListenableFuture<StringValue> second = call(coalescingChannel, FIRST, CallOptions.DEFAULT);
+        awaitCondition(() -> this.serverCalls.get() == 1 && coalescer.getSavedCallCount() == 1);
+
+        first.cancel(true);
+        assertEquals(1, coalescer.getInFlightCount());
+        second.cancel(true);
+        assertEquals(0, coalescer.getInFlightCount());
+
+        this.release.countDown();
+        assertEquals("first:2", call(coalescingChannel, FIRST, CallOptions.DEFAULT)
+                .get(5, TimeUnit.SECONDS).getValue());
+    }
+
+    private ClientRequestCoalescer newCoalescer() {
+        final GrpcChannelProperties.Coalescing options = new GrpcChannelProperties.Coalescing();
+        options.setEnabled(true);
+        options.setMethods(Collections.singletonList("test.Lookup"));
+        return new ClientRequestCoalescer("test", options, this.scheduler);
+    }
+
+    private Channel start(final ClientRequestCoalescer coalescer) throws IOException {
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("test.Lookup")
+                .addMethod(GET_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    final int count = this.serverCalls.incrementAndGet();
+                    try {
+                        this.release.await(5, TimeUnit.SECONDS);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    responseObserver.onNext(StringValue.of(request.getValue() + ":" + count));
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final String name = InProcessServerBuilder.generateName();
+        this.server = InProcessServerBuilder.forName(name)
+                .executor(this.serverExecutor)
+                .addService(service)
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        return ClientInterceptors.intercept(this.channel, new CoalescingClientInterceptor(coalescer));
+    }
+
+    private static ListenableFuture<StringValue> call(final Channel channel, final StringValue request,
+            final CallOptions callOptions) {
+        return ClientCalls.futureUnaryCall(channel.newCall(GET_METHOD, callOptions), request);
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Ticker;
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptors;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.ServerCalls;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+
+/**
+ * Tests for {@link ResponseCachingClientInterceptor} and {@link ClientResponseCache}.
+ */
+class ResponseCachingClientInterceptorTest {
+
+    private static final MethodDescriptor<StringValue, StringValue> GET_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Lookup", "Get"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setSafe(true)
+                    .build();
+
+    private static final StringValue FIRST = StringValue.of("first");
+    private static final StringValue SECOND = StringValue.of("second");
+    private static final Metadata.Key<String> TENANT_KEY =
+            Metadata.Key.of("x-tenant-id", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final AtomicInteger serverCalls = new AtomicInteger();
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker() {
+
+        @Override
+        public long read() {
+            return ResponseCachingClientInterceptorTest.this.nanos.get();
+        }
+
+    };
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void afterEach() {
+        this.executor.shutdownNow();
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCachedResponsesBypassServer() throws IOException {
+        final ClientResponseCache cache = newCache(Duration.ZERO);
+        final Channel cachingChannel = start(cache);
+
+        assertEquals("first:1", call(cachingChannel, FIRST));
+        assertEquals("first:1", call(cachingChannel, FIRST));
+        assertEquals("second:2", call(cachingChannel, SECOND));
+        assertEquals(2, this.serverCalls.get());
+
+        final ClientResponseCache.MethodStats stats = cache.getMethodStats().iterator().next();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1.0 / 3, stats.getHitRatio(), 0.001);
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    void testExpiredResponsesAreRevalidated() throws IOException {
+        final ClientResponseCache cache = newCache(Duration.ofSeconds(30));
+        final Channel cachingChannel = start(cache);
+
+        assertEquals("first:1", call(cachingChannel, FIRST));
+
+        // Stale, but still usable while it is refreshed
+        advance(15);
+        assertEquals("first:1", call(cachingChannel, FIRST));
+        assertEquals(2, this.serverCalls.get());
+        assertEquals("first:2", call(cachingChannel, FIRST));
+
+        // Too old to be used at all
+        advance(100);
+        assertEquals("first:3", call(cachingChannel, FIRST));
+
+        final ClientResponseCache.MethodStats stats = cache.getMethodStats().iterator().next();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getStaleHitCount());
+        assertEquals(2, stats.getMissCount());
+    }
+
+    @Test
+    void testServerCanPreventCaching() throws IOException {
+        final ClientResponseCache cache = newCache(Duration.ZERO);
+        final Channel cachingChannel = start(cache, new ServerInterceptor() {
+
+            @Override
+            public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                    final Metadata headers, final ServerCallHandler<ReqT, RespT> next) {
+                return next.startCall(new SimpleForwardingServerCall<ReqT, RespT>(call) {
+
+                    @Override
+                    public void sendHeaders(final Metadata responseHeaders) {
+                        responseHeaders.put(ResponseCachingClientInterceptor.CACHE_CONTROL_KEY, "no-store");
+                        super.sendHeaders(responseHeaders);
+                    }
+
+                }, headers);
+            }
+
+        });
+
+        assertEquals("first:1", call(cachingChannel, FIRST));
+        assertEquals("first:2", call(cachingChannel, FIRST));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void testCallsOfDifferentCallersDontShareResponses() throws IOException {
+        final GrpcChannelProperties.ResponseCache options = newOptions(Duration.ZERO);
+        options.setKeyHeaders(Collections.singletonList(TENANT_KEY.name()));
+        final ClientResponseCache cache = new ClientResponseCache("test", options, this.ticker);
+        final Channel cachingChannel = start(cache);
+
+        assertEquals("first:1", call(cachingChannel, FIRST));
+        assertEquals("first:1", call(cachingChannel, FIRST));
+        assertEquals("first:2", call(withTenant(cachingChannel, "a"), FIRST));
+        assertEquals("first:2", call(withTenant(cachingChannel, "a"), FIRST));
+        assertEquals("first:3", call(withTenant(cachingChannel, "b"), FIRST));
+        assertEquals("first:4", call(cachingChannel, FIRST, CallOptions.DEFAULT.withAuthority("other")));
+        assertEquals(4, this.serverCalls.get());
+        assertEquals(4, cache.getSize());
+    }
+
+    @Test
+    void testCachedResponsesAreNotDeliveredOnCallerThread() throws Exception {
+        final ClientResponseCache cache = newCache(Duration.ZERO);
+        final Channel cachingChannel = start(cache);
+        assertEquals("first:1", call(cachingChannel, FIRST));
+
+        // Without an executor in the call options
+        final AtomicReference<Thread> listenerThread = new AtomicReference<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+        final ClientCall<StringValue, StringValue> call = cachingChannel.newCall(GET_METHOD, CallOptions.DEFAULT);
+        call.start(new ClientCall.Listener<StringValue>() {
+
+            @Override
+            public void onClose(final Status status, final Metadata trailers) {
+                listenerThread.set(Thread.currentThread());
+                closed.countDown();
+            }
+
+        }, new Metadata());
+        call.request(1);
+        call.sendMessage(FIRST);
+        call.halfClose();
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), listenerThread.get());
+        assertEquals(1, this.serverCalls.get());
+    }
+
+    @Test
+    void testCachedResponsesHonorFlowControl() throws Exception {
+        final ClientResponseCache cache = newCache(Duration.ZERO);
+        final Channel cachingChannel = start(cache);
+        assertEquals("first:1", call(cachingChannel, FIRST));
+
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        final ClientCall<StringValue, StringValue> call = cachingChannel.newCall(GET_METHOD, CallOptions.DEFAULT);
+        call.start(new ClientCall.Listener<StringValue>() {
+
+            @Override
+            public void onHeaders(final Metadata headers) {
+                events.add("headers");
+            }
+
+            @Override
+            public void onMessage(final StringValue message) {
+                events.add(message.getValue());
+            }
+
+            @Override
+            public void onClose(final Status status, final Metadata trailers) {
+                events.add(status.getCode().name());
+            }
+
+        }, new Metadata());
+        call.sendMessage(FIRST);
+        call.halfClose();
+
+        // Nothing is delivered beyond the headers until the response is requested
+        assertEquals("headers", events.poll(5, TimeUnit.SECONDS));
+        assertNull(events.poll(100, TimeUnit.MILLISECONDS));
+        assertFalse(call.isReady());
+
+        call.request(1);
+        assertEquals("first:1", events.poll(5, TimeUnit.SECONDS));
+        assertEquals("OK", events.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, this.serverCalls.get());
+    }
+
+    private ClientResponseCache newCache(final Duration staleWhileRevalidate) {
+        return new ClientResponseCache("test", newOptions(staleWhileRevalidate), this.ticker);
+    }
+
+    private static GrpcChannelProperties.ResponseCache newOptions(final Duration staleWhileRevalidate) {
+        final GrpcChannelProperties.ResponseCache options = new GrpcChannelProperties.ResponseCache();
+        options.setEnabled(true);
+        options.setStaleWhileRevalidate(staleWhileRevalidate);
+        options.setMethods(Collections.singletonMap("test.Lookup", Duration.ofSeconds(10)));
+        return options;
+    }
+
+    private Channel start(final ClientResponseCache cache, final ServerInterceptor... interceptors)
+            throws IOException {
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("test.Lookup")
+                .addMethod(GET_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    final int count = this.serverCalls.incrementAndGet();
+                    responseObserver.onNext(StringValue.of(request.getValue() + ":" + count));
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final String name = InProcessServerBuilder.generateName();
+        this.server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(service, interceptors))
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        return ClientInterceptors.intercept(this.channel, new ResponseCachingClientInterceptor(cache, this.executor));
+    }
+
+    private void advance(final long seconds) {
+        this.nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    private static Channel withTenant(final Channel channel, final String tenant) {
+        final Metadata headers = new Metadata();
+        headers.put(TENANT_KEY, tenant);
+        return ClientInterceptors.intercept(channel, MetadataUtils.newAttachHeadersInterceptor(headers));
+    }
+
+    private static String call(final Channel channel, final StringValue request) {
+        return call(channel, request, CallOptions.DEFAULT);
+    }
+
+    private static String call(final Channel channel, final StringValue request, final CallOptions callOptions) {
+        return ClientCalls.blockingUnaryCall(channel, GET_METHOD, callOptions, request).getValue();
+    }
+
+}
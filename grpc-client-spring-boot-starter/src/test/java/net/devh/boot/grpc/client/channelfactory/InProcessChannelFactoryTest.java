@@ -73,6 +73,12 @@ void setupMocks() {
         Mockito.doReturn(channelProperties)
                 .when(channelsProperties)
                 .getChannel(CHANNEL_NAME);
+        Mockito.doReturn(new GrpcChannelProperties.RetryThrottling())
+                .when(channelProperties)
+                .getRetryThrottling();
+        Mockito.doReturn(new GrpcChannelProperties.Connections())
+                .when(channelProperties)
+                .getConnections();
     }
 
     @Test
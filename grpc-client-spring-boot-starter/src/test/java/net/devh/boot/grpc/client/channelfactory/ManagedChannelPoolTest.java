@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.channelfactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.ServerCalls;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+
+/**
+ * Tests for {@link ManagedChannelPool}.
+ */
+class ManagedChannelPoolTest {
+
+    private static final MethodDescriptor<StringValue, StringValue> GET_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Lookup", "Get"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .build();
+
+    private static final Metadata.Key<String> MEMBER_KEY =
+            Metadata.Key.of("member", Metadata.ASCII_STRING_MARSHALLER);
+    private static final Context.Key<String> MEMBER_CONTEXT_KEY = Context.key("member");
+
+    private final Map<String, AtomicInteger> callsPerMember = new ConcurrentHashMap<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger createdChannels = new AtomicInteger();
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+    private Server server;
+    private ManagedChannelPool pool;
+
+    @AfterEach
+    void afterEach() {
+        this.release.countDown();
+        if (this.pool != null) {
+            this.pool.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+        this.serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testCallsAreSpreadByCallsInFlight() throws Exception {
+        start(3, null, 100, Duration.ofMinutes(1));
+        assertEquals(3, this.pool.getSize());
+
+        final List<ListenableFuture<StringValue>> calls = call(6);
+        awaitCondition(() -> serverCalls() == 6);
+
+        assertEquals(6, this.pool.getInFlightCount());
+        assertEquals(0.02, this.pool.getUtilization(), 0.0001);
+        assertEquals(3, this.callsPerMember.size());
+        for (final AtomicInteger count : this.callsPerMember.values()) {
+            assertEquals(2, count.get());
+        }
+
+        this.release.countDown();
+        Futures.allAsList(calls).get(5, TimeUnit.SECONDS);
+        assertEquals(0, this.pool.getInFlightCount());
+        assertEquals(3, this.createdChannels.get());
+    }
+
+    @Test
+    void testPoolGrowsAndShrinks() throws Exception {
+        start(1, 3, 2, Duration.ofMillis(20), Runnable::run);
+        assertEquals(1, this.pool.getSize());
+
+        // The call that saturates the pool is still sent over an existing channel
+        final List<ListenableFuture<StringValue>> calls = call(5);
+        awaitCondition(() -> serverCalls() == 5);
+        assertEquals(2, this.pool.getSize());
+        assertEquals(5, this.pool.getInFlightCount());
+        assertEquals(List.of(2, 3), sortedCountsPerMember());
+
+        // The pool doesn't grow beyond its max size
+        calls.addAll(call(3));
+        awaitCondition(() -> serverCalls() == 8);
+        assertEquals(3, this.pool.getSize());
+        assertEquals(List.of(2, 3, 3), sortedCountsPerMember());
+
+        // The idle channels are retired without any further calls
+        this.release.countDown();
+        Futures.allAsList(calls).get(5, TimeUnit.SECONDS);
+        awaitCondition(() -> this.pool.getSize() == 1);
+        assertEquals(3, this.createdChannels.get());
+        // The retired channels are forgotten once they terminated
+        awaitCondition(() -> this.pool.getRetiredCount() == 0);
+
+        this.pool.shutdown();
+        assertTrue(this.pool.isShutdown());
+        assertTrue(this.pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(this.pool.isTerminated());
+    }
+
+    @Test
+    void testChannelsAreAddedInBackground() throws Exception {
+        final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+        start(1, 2, 1, Duration.ofMinutes(1), tasks::add);
+
+        // The calls don't wait for the new channel
+        call(3);
+        awaitCondition(() -> serverCalls() == 3);
+        assertEquals(1, this.pool.getSize());
+        assertEquals(1, this.createdChannels.get());
+        // Only one channel is added at a time
+        assertEquals(1, tasks.size());
+
+        tasks.take().run();
+        assertEquals(2, this.pool.getSize());
+        call(1);
+        awaitCondition(() -> serverCalls() == 4);
+        assertEquals(List.of(1, 3), sortedCountsPerMember());
+    }
+
+    @Test
+    void testOnlyStartedCallsReserveCapacity() throws Exception {
+        start(1, null, 100, Duration.ofMinutes(1));
+
+        final ClientCall<StringValue, StringValue> unstarted = this.pool.newCall(GET_METHOD, CallOptions.DEFAULT);
+        this.pool.newCall(GET_METHOD, CallOptions.DEFAULT);
+        assertEquals(0, this.pool.getInFlightCount());
+
+        // Cancelled before it is started
+        unstarted.cancel("Test", null);
+        final AtomicReference<Status> closeStatus = new AtomicReference<>();
+        unstarted.start(new ClientCall.Listener<StringValue>() {
+
+            @Override
+            public void onClose(final Status status, final Metadata trailers) {
+                closeStatus.set(status);
+            }
+
+        }, new Metadata());
+        awaitCondition(() -> closeStatus.get() != null);
+        assertEquals(Status.Code.CANCELLED, closeStatus.get().getCode());
+        assertEquals(0, this.pool.getInFlightCount());
+    }
+
+    private void start(final int size, final Integer maxSize, final int maxStreamsPerConnection,
+            final Duration idleTimeout) throws IOException {
+        start(size, maxSize, maxStreamsPerConnection, idleTimeout, null);
+    }
+
+    private void start(final int size, final Integer maxSize, final int maxStreamsPerConnection,
+            final Duration idleTimeout, final Executor executor) throws IOException {
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("test.Lookup")
+                .addMethod(GET_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    this.callsPerMember.computeIfAbsent(MEMBER_CONTEXT_KEY.get(), key -> new AtomicInteger())
+                            .incrementAndGet();
+                    try {
+                        this.release.await(5, TimeUnit.SECONDS);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    responseObserver.onNext(request);
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final String name = InProcessServerBuilder.generateName();
+        this.server = InProcessServerBuilder.forName(name)
+                .executor(this.serverExecutor)
+                .addService(ServerInterceptors.intercept(service, (call, headers, next) -> Contexts.interceptCall(
+                        Context.current().withValue(MEMBER_CONTEXT_KEY, headers.get(MEMBER_KEY)), call, headers,
+                        next)))
+                .build()
+                .start();
+
+        final GrpcChannelProperties.Connections options = new GrpcChannelProperties.Connections();
+        options.setSize(size);
+        options.setMaxSize(maxSize);
+        options.setMaxStreamsPerConnection(maxStreamsPerConnection);
+        options.setIdleTimeout(idleTimeout);
+        this.pool = new ManagedChannelPool("test", options, () -> {
+            final Metadata headers = new Metadata();
+            headers.put(MEMBER_KEY, Integer.toString(this.createdChannels.getAndIncrement()));
+            return InProcessChannelBuilder.forName(name)
+                    .directExecutor()
+                    .intercept(MetadataUtils.newAttachHeadersInterceptor(headers))
+                    .build();
+        }, executor);
+    }
+
+    private List<ListenableFuture<StringValue>> call(final int count) {
+        final List<ListenableFuture<StringValue>> calls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            calls.add(ClientCalls.futureUnaryCall(this.pool.newCall(GET_METHOD, CallOptions.DEFAULT),
+                    StringValue.of("request")));
+        }
+        return calls;
+    }
+
+    private int serverCalls() {
+        return this.callsPerMember.values().stream().mapToInt(AtomicInteger::get).sum();
+    }
+
+    private List<Integer> sortedCountsPerMember() {
+        return this.callsPerMember.values().stream().map(AtomicInteger::get).sorted().collect(Collectors.toList());
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+}
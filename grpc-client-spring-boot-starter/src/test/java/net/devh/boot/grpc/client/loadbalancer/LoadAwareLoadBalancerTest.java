@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.gson.Gson;
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.inprocess.InProcessSocketAddress;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+
+/**
+ * Tests for the {@link LeastRequestLoadBalancerProvider least_request} and {@link PeakEwmaLoadBalancerProvider
+ * peak_ewma} load balancing policies.
+ */
+class LoadAwareLoadBalancerTest {
+
+    private static final MethodDescriptor<StringValue, StringValue> GET_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Lookup", "Get"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .build();
+
+    private final SubchannelLoadRegistry loads = new SubchannelLoadRegistry();
+    private final LeastRequestLoadBalancerProvider leastRequest = new LeastRequestLoadBalancerProvider(this.loads);
+    private final PeakEwmaLoadBalancerProvider peakEwma = new PeakEwmaLoadBalancerProvider(this.loads);
+    private final TestNameResolverProvider resolver = new TestNameResolverProvider();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+    private final AtomicInteger fastCalls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private final List<Server> servers = new ArrayList<>();
+
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void beforeEach() {
+        NameResolverRegistry.getDefaultRegistry().register(this.resolver);
+        LoadBalancerRegistry.getDefaultRegistry().register(this.leastRequest);
+        LoadBalancerRegistry.getDefaultRegistry().register(this.peakEwma);
+    }
+
+    @AfterEach
+    void afterEach() {
+        this.release.countDown();
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        for (final Server server : this.servers) {
+            server.shutdownNow();
+        }
+        this.serverExecutor.shutdownNow();
+        NameResolverRegistry.getDefaultRegistry().deregister(this.resolver);
+        LoadBalancerRegistry.getDefaultRegistry().deregister(this.leastRequest);
+        LoadBalancerRegistry.getDefaultRegistry().deregister(this.peakEwma);
+    }
+
+    @Test
+    void testLeastRequestAvoidsBusyServer() throws Exception {
+        // The slow server holds all calls until the end of the test
+        start("least_request", null, () -> {
+            try {
+                this.release.await(5, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 20; i++) {
+            final int slowBefore = this.slowCalls.get();
+            final ListenableFuture<StringValue> call = call();
+            awaitCondition(() -> call.isDone() || this.slowCalls.get() > slowBefore);
+        }
+
+        // round_robin would have sent half of the calls to the slow server
+        assertTrue(this.slowCalls.get() <= 1, "slowCalls=" + this.slowCalls.get());
+        assertEquals(20, this.slowCalls.get() + this.fastCalls.get());
+    }
+
+    @Test
+    void testPeakEwmaAvoidsSlowServer() throws Exception {
+        start("peak_ewma", "{'loadBalancingConfig': [{'peak_ewma': {'choiceCount': 2, 'decayTime': '10s'}}]}",
+                () -> {
+                    try {
+                        Thread.sleep(30);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+
+        for (int i = 0; i < 40; i++) {
+            call().get(5, TimeUnit.SECONDS);
+        }
+
+        assertTrue(this.slowCalls.get() <= 2, "slowCalls=" + this.slowCalls.get());
+        assertEquals(40, this.slowCalls.get() + this.fastCalls.get());
+    }
+
+    @Test
+    void testLoadsAreRegistered() throws Exception {
+        start("least_request", null, () -> {});
+        call().get(5, TimeUnit.SECONDS);
+
+        final List<SubchannelLoad> registered = this.loads.getLoads();
+        assertEquals(2, registered.size());
+        long picks = 0;
+        for (final SubchannelLoad load : registered) {
+            assertEquals("least_request", load.getPolicy());
+            assertEquals(0, load.getInFlightCount());
+            picks += load.getPickCount();
+        }
+        assertEquals(1, picks);
+
+        this.channel.shutdownNow();
+        assertTrue(this.channel.awaitTermination(5, TimeUnit.SECONDS));
+        awaitCondition(() -> this.loads.getLoads().isEmpty());
+    }
+
+    private void start(final String policy, final String serviceConfig, final Runnable slowBehavior)
+            throws IOException {
+        final List<EquivalentAddressGroup> addresses = new ArrayList<>();
+        addresses.add(startServer(this.slowCalls, slowBehavior));
+        addresses.add(startServer(this.fastCalls, () -> {}));
+        this.resolver.addresses = addresses;
+
+        final InProcessChannelBuilder builder =
+                InProcessChannelBuilder.forTarget(TestNameResolverProvider.SCHEME + ":///test")
+                        .defaultLoadBalancingPolicy(policy);
+        if (serviceConfig != null) {
+            @SuppressWarnings("unchecked")
+            final Map<String, ?> parsed = new Gson().fromJson(serviceConfig, Map.class);
+            builder.defaultServiceConfig(parsed);
+        }
+        this.channel = builder.build();
+    }
+
+    private EquivalentAddressGroup startServer(final AtomicInteger counter, final Runnable behavior)
+            throws IOException {
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("test.Lookup")
+                .addMethod(GET_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    counter.incrementAndGet();
+                    behavior.run();
+                    responseObserver.onNext(request);
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final String name = InProcessServerBuilder.generateName();
+        this.servers.add(InProcessServerBuilder.forName(name)
+                .executor(this.serverExecutor)
+                .addService(service)
+                .build()
+                .start());
+        return new EquivalentAddressGroup(new InProcessSocketAddress(name));
+    }
+
+    private ListenableFuture<StringValue> call() {
+        return ClientCalls.futureUnaryCall(this.channel.newCall(GET_METHOD, CallOptions.DEFAULT),
+                StringValue.of("request"));
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import java.net.SocketAddress;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.inprocess.InProcessSocketAddress;
+
+/**
+ * Resolves the test scheme to the addresses of the started servers.
+ */
+class TestNameResolverProvider extends NameResolverProvider {
+
+    static final String SCHEME = "lbtest";
+
+    volatile List<EquivalentAddressGroup> addresses = Collections.emptyList();
+
+    @Override
+    protected boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    protected int priority() {
+        return 5;
+    }
+
+    @Override
+    public String getDefaultScheme() {
+        return SCHEME;
+    }
+
+    @Override
+    public NameResolver newNameResolver(final URI targetUri, final NameResolver.Args args) {
+        if (!SCHEME.equals(targetUri.getScheme())) {
+            return null;
+        }
+        return new NameResolver() {
+
+            @Override
+            public String getServiceAuthority() {
+                return "test";
+            }
+
+            @Override
+            public void start(final Listener2 listener) {
+                listener.onResult(ResolutionResult.newBuilder()
+                        .setAddresses(TestNameResolverProvider.this.addresses)
+                        .build());
+            }
+
+            @Override
+            public void shutdown() {}
+
+        };
+    }
+
+    @Override
+    protected Collection<Class<? extends SocketAddress>> getProducedSocketAddressTypes() {
+        return Collections.singleton(InProcessSocketAddress.class);
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.loadbalancer;
+
+import static net.devh.boot.grpc.client.nameresolver.DiscoveryClientResolverFactory.DISCOVERY_ZONE_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.gson.Gson;
+import com.google.protobuf.StringValue;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.NameResolverRegistry;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.inprocess.InProcessSocketAddress;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+
+/**
+ * Tests for the {@link ZoneAwareLoadBalancerProvider zone_aware} load balancing policy.
+ */
+class ZoneAwareLoadBalancerTest {
+
+    private static final String HOLD = "hold";
+
+    private static final MethodDescriptor<StringValue, StringValue> GET_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Lookup", "Get"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .build();
+
+    private final SubchannelLoadRegistry loads = new SubchannelLoadRegistry();
+    // The detected zone is only used if the config doesn't specify one
+    private final ZoneAwareLoadBalancerProvider zoneAware = new ZoneAwareLoadBalancerProvider(this.loads, "eu-1a");
+    private final TestNameResolverProvider resolver = new TestNameResolverProvider();
+    private final AtomicInteger localCalls = new AtomicInteger();
+    private final AtomicInteger remoteCalls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+    private final List<Server> servers = new ArrayList<>();
+
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void beforeEach() {
+        NameResolverRegistry.getDefaultRegistry().register(this.resolver);
+        LoadBalancerRegistry.getDefaultRegistry().register(this.zoneAware);
+    }
+
+    @AfterEach
+    void afterEach() {
+        this.release.countDown();
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        for (final Server server : this.servers) {
+            server.shutdownNow();
+        }
+        this.serverExecutor.shutdownNow();
+        NameResolverRegistry.getDefaultRegistry().deregister(this.resolver);
+        LoadBalancerRegistry.getDefaultRegistry().deregister(this.zoneAware);
+    }
+
+    @Test
+    void testPrefersLocalZone() throws Exception {
+        final List<EquivalentAddressGroup> addresses = new ArrayList<>();
+        addresses.add(startServer(this.localCalls, "eu-1a"));
+        addresses.add(startServer(this.remoteCalls, "eu-1b"));
+        addresses.add(startServer(this.remoteCalls, "eu-1c"));
+        start(addresses, "{}");
+        awaitLocalReady();
+
+        final int remoteBefore = this.remoteCalls.get();
+        for (int i = 0; i < 20; i++) {
+            call("request").get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(remoteBefore, this.remoteCalls.get());
+        for (final SubchannelLoad load : this.loads.getLoads()) {
+            assertEquals("eu-1a".equals(load.getZone()) ? SubchannelLoad.LOCALITY_LOCAL
+                    : SubchannelLoad.LOCALITY_CROSS_ZONE, load.getLocality());
+        }
+    }
+
+    @Test
+    void testSpillsOverIfLocalZoneIsUnhealthy() throws Exception {
+        final List<EquivalentAddressGroup> addresses = new ArrayList<>();
+        addresses.add(startServer(this.localCalls, "eu-1b"));
+        // Nobody listens on this address, so only half of the local zone is healthy
+        addresses.add(new EquivalentAddressGroup(new InProcessSocketAddress(InProcessServerBuilder.generateName()),
+                Attributes.newBuilder().set(DISCOVERY_ZONE_KEY, "eu-1b").build()));
+        addresses.add(startServer(this.remoteCalls, "eu-1a"));
+        start(addresses, "{'localZone': 'eu-1b', 'minHealthyRatio': 0.7}");
+
+        for (int i = 0; i < 40; i++) {
+            call("request").get(5, TimeUnit.SECONDS);
+        }
+
+        assertTrue(this.remoteCalls.get() > 0, "remoteCalls=" + this.remoteCalls.get());
+        assertTrue(this.localCalls.get() > 0, "localCalls=" + this.localCalls.get());
+    }
+
+    @Test
+    void testSpillsOverIfLocalZoneIsSaturated() throws Exception {
+        final List<EquivalentAddressGroup> addresses = new ArrayList<>();
+        addresses.add(startServer(this.localCalls, "eu-1a"));
+        addresses.add(startServer(this.remoteCalls, "eu-1b"));
+        start(addresses, "{'maxInFlightPerSubchannel': 1}");
+        awaitLocalReady();
+
+        // Occupies the only local subchannel until the end of the test
+        final int localBefore = this.localCalls.get();
+        call(HOLD);
+        awaitCondition(() -> this.localCalls.get() > localBefore);
+
+        final int remoteBefore = this.remoteCalls.get();
+        for (int i = 0; i < 5; i++) {
+            call("request").get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(remoteBefore + 5, this.remoteCalls.get());
+        assertEquals(localBefore + 1, this.localCalls.get());
+    }
+
+    private void start(final List<EquivalentAddressGroup> addresses, final String policyConfig) {
+        this.resolver.addresses = addresses;
+        @SuppressWarnings("unchecked")
+        final Map<String, ?> serviceConfig = new Gson().fromJson(
+                "{'loadBalancingConfig': [{'zone_aware': " + policyConfig + "}]}", Map.class);
+        this.channel = InProcessChannelBuilder.forTarget(TestNameResolverProvider.SCHEME + ":///test")
+                .defaultServiceConfig(serviceConfig)
+                .build();
+    }
+
+    /**
+     * Sends calls until the local subchannel is ready, because calls are sent to the other zones until then.
+     */
+    private void awaitLocalReady() throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (this.localCalls.get() == 0 && System.nanoTime() < deadline) {
+            call("warmup").get(5, TimeUnit.SECONDS);
+        }
+        assertTrue(this.localCalls.get() > 0);
+    }
+
+    private EquivalentAddressGroup startServer(final AtomicInteger counter, final String zone) throws IOException {
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("test.Lookup")
+                .addMethod(GET_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    counter.incrementAndGet();
+                    if (HOLD.equals(request.getValue())) {
+                        try {
+                            this.release.await(5, TimeUnit.SECONDS);
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    responseObserver.onNext(request);
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final String name = InProcessServerBuilder.generateName();
+        this.servers.add(InProcessServerBuilder.forName(name)
+                .executor(this.serverExecutor)
+                .addService(service)
+                .build()
+                .start());
+        return new EquivalentAddressGroup(new InProcessSocketAddress(name),
+                Attributes.newBuilder().set(DISCOVERY_ZONE_KEY, zone).build());
+    }
+
+    private ListenableFuture<StringValue> call(final String value) {
+        return ClientCalls.futureUnaryCall(this.channel.newCall(GET_METHOD, CallOptions.DEFAULT),
+                StringValue.of(value));
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+}
@@ -27,6 +27,7 @@
 import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClient;
 import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
 
+import io.grpc.Attributes;
 import io.grpc.NameResolver;
 import io.grpc.Status;
 import io.grpc.SynchronizationContext;
@@ -95,13 +96,81 @@ void testBrokenServiceConfig() {
         assertThat(serviceConf.getError()).extracting(Status::getCode).isEqualTo(Status.Code.UNKNOWN);
     }
 
+    @Test
+    void testZoneAttribute() {
+        TestableListener listener = resolveServiceAndVerify("test3", null, Map.of("availability-zone", "eu-1a"));
+        Attributes attributes = listener.getResult().getAddresses().get(0).getAttributes();
+        assertThat(attributes.get(DiscoveryClientResolverFactory.DISCOVERY_ZONE_KEY)).isEqualTo("eu-1a");
+
+        listener = resolveServiceAndVerify("test4", null, Map.of());
+        attributes = listener.getResult().getAddresses().get(0).getAttributes();
+        assertThat(attributes.get(DiscoveryClientResolverFactory.DISCOVERY_ZONE_KEY)).isNull();
+    }
+
+    @Test
+    void testOnlyUpdatesOnRelevantChanges() {
+        String serviceConfig = "{\"loadBalancingConfig\": [{\"round_robin\": {}}]}";
+        SimpleDiscoveryProperties props = new SimpleDiscoveryProperties();
+        props.setInstances(Map.of("test5", List.of(
+                newInstance("test5", "10.0.0.1", 6688, serviceConfig),
+                newInstance("test5", "10.0.0.2", 6688, serviceConfig))));
+        DiscoveryClientNameResolver dcnr =
+                new DiscoveryClientNameResolver("test5", new SimpleDiscoveryClient(props), args, null, null);
+        TestableListener listener = new TestableListener();
+        dcnr.start(listener);
+        assertThat(listener.getResultCount()).isEqualTo(1);
+        NameResolver.ConfigOrError parsedServiceConfig = listener.getResult().getServiceConfig();
+
+        // Same instances in a different order
+        props.setInstances(Map.of("test5", List.of(
+                newInstance("test5", "10.0.0.2", 6688, serviceConfig),
+                newInstance("test5", "10.0.0.1", 6688, serviceConfig))));
+        dcnr.refresh();
+        assertThat(listener.getResultCount()).isEqualTo(1);
+
+        // Moved to another port, but the service config is parsed only once
+        props.setInstances(Map.of("test5", List.of(
+                newInstance("test5", "10.0.0.2", 6688, serviceConfig),
+                newInstance("test5", "10.0.0.1", 6689, serviceConfig))));
+        dcnr.refresh();
+        assertThat(listener.getResultCount()).isEqualTo(2);
+        assertThat(listener.getResult().getServiceConfig()).isSameAs(parsedServiceConfig);
+
+        // Changed service config
+        String changedServiceConfig = "{\"loadBalancingConfig\": [{\"pick_first\": {}}]}";
+        props.setInstances(Map.of("test5", List.of(
+                newInstance("test5", "10.0.0.2", 6688, changedServiceConfig),
+                newInstance("test5", "10.0.0.1", 6689, changedServiceConfig))));
+        dcnr.refresh();
+        assertThat(listener.getResultCount()).isEqualTo(3);
+        assertThat(listener.getResult().getServiceConfig()).isNotSameAs(parsedServiceConfig);
+        dcnr.shutdown();
+    }
+
+    private static DefaultServiceInstance newInstance(String serviceName, String host, int port,
+            String serviceConfig) {
+        DefaultServiceInstance service = new DefaultServiceInstance(
+                serviceName + "-" + host, serviceName, host, 3322, false);
+        service.getMetadata().put(GrpcUtils.CLOUD_DISCOVERY_METADATA_PORT, Integer.toString(port));
+        service.getMetadata().put(GrpcUtils.CLOUD_DISCOVERY_METADATA_SERVICE_CONFIG, serviceConfig);
+        return service;
+    }
+
     private TestableListener resolveServiceAndVerify(String serviceName, String serviceConfig) {
+        return resolveServiceAndVerify(serviceName, serviceConfig, Map.of());
+    }
+
+    private TestableListener resolveServiceAndVerify(String serviceName, String serviceConfig,
+            Map<String, String> metadata) {
         SimpleDiscoveryProperties props = new SimpleDiscoveryProperties();
         DefaultServiceInstance service = new DefaultServiceInstance(
                 serviceName + "-1", serviceName, "127.0.0.1", 3322, false);
         Map<String, String> meta = service.getMetadata();
         meta.put(GrpcUtils.CLOUD_DISCOVERY_METADATA_PORT, "6688");
-        meta.put(GrpcUtils.CLOUD_DISCOVERY_METADATA_SERVICE_CONFIG, serviceConfig);
+        if (serviceConfig != null) {
+            meta.put(GrpcUtils.CLOUD_DISCOVERY_METADATA_SERVICE_CONFIG, serviceConfig);
+        }
+        meta.putAll(metadata);
         props.setInstances(Map.of(serviceName, List.of(service)));
         SimpleDiscoveryClient disco = new SimpleDiscoveryClient(props);
         DiscoveryClientNameResolver dcnr = new DiscoveryClientNameResolver(serviceName, disco, args, null, null);
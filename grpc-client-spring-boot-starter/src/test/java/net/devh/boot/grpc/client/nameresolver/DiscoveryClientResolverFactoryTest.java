@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.nameresolver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+
+import io.grpc.NameResolver;
+import io.grpc.SynchronizationContext;
+import io.grpc.internal.AutoConfiguredLoadBalancerFactory;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.ScParser;
+import io.grpc.internal.SharedResourceHolder;
+import net.devh.boot.grpc.common.util.GrpcUtils;
+
+/**
+ * Tests for {@link DiscoveryClientResolverFactory}. The scheduled refreshes are run manually and each resolve runs on
+ * its own thread, so that the tests neither depend on the timing of the scheduler nor on that of the fetches.
+ */
+class DiscoveryClientResolverFactoryTest {
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+    private final Executor executor = task -> {
+        final Thread thread = new Thread(task, "resolve-" + this.threads.size());
+        thread.setDaemon(true);
+        this.threads.add(thread);
+        thread.start();
+    };
+    private final NameResolver.Args args = NameResolver.Args.newBuilder()
+            .setDefaultPort(1212)
+            .setProxyDetector(GrpcUtil.DEFAULT_PROXY_DETECTOR)
+            .setSynchronizationContext(
+                    new SynchronizationContext((t, e) -> {
+                        throw new AssertionError(e);
+                    }))
+            .setServiceConfigParser(new ScParser(true, 10, 10, new AutoConfiguredLoadBalancerFactory("pick_first")))
+            .setOffloadExecutor(this.executor)
+            .build();
+    private final Queue<ScheduledTask> scheduledTasks = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final SharedResourceHolder.Resource<ScheduledExecutorService> schedulerResource =
+            new SharedResourceHolder.Resource<ScheduledExecutorService>() {
+
+                @Override
+                public ScheduledExecutorService create() {
+                    return DiscoveryClientResolverFactoryTest.this.scheduler;
+                }
+
+                @Override
+                public void close(final ScheduledExecutorService instance) {
+                    // Nothing to do
+                }
+
+            };
+    private final CountingDiscoveryClient client = new CountingDiscoveryClient();
+    private final List<NameResolver> resolvers = new ArrayList<>();
+
+    private DiscoveryClientResolverFactory factory;
+
+    @BeforeEach
+    void beforeEach() {
+        when(this.scheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            final long delay = invocation.getArgument(1);
+            final TimeUnit unit = invocation.getArgument(2);
+            final ScheduledTask task = new ScheduledTask(invocation.getArgument(0), unit.toNanos(delay));
+            this.scheduledTasks.add(task);
+            return task;
+        });
+    }
+
+    @AfterEach
+    void afterEach() {
+        this.client.release.countDown();
+        for (final NameResolver resolver : this.resolvers) {
+            resolver.shutdown();
+        }
+        if (this.factory != null) {
+            this.factory.destroy();
+        }
+    }
+
+    @Test
+    void testHeartbeatsAreDebouncedAndFetchesShared() throws InterruptedException {
+        this.factory = newFactory(Duration.ofMillis(100), Duration.ZERO);
+        final List<TestableListener> listeners = new ArrayList<>();
+        for (final String serviceName : List.of("blocking", "blocking", "blocking", "other")) {
+            listeners.add(start(serviceName));
+        }
+        awaitCondition(() -> listeners.stream().allMatch(TestableListener::isResultWasSet));
+        awaitResolved();
+        this.client.fetches.clear();
+
+        this.client.blocking = true;
+        for (int i = 0; i < 5; i++) {
+            this.factory.heartbeat(new HeartbeatEvent(this, i));
+        }
+        // The burst of heartbeats only results in a single delayed refresh
+        assertThat(this.scheduledTasks).hasSize(1);
+        assertThat(this.scheduledTasks.peek().getDelay(TimeUnit.MILLISECONDS)).isEqualTo(100);
+        runNextTask();
+
+        // All resolvers of the blocking service wait for the same fetch
+        awaitCondition(() -> count("other") == 1 && waitingThreads() == 3);
+        assertThat(count("blocking")).isEqualTo(1);
+        this.client.release.countDown();
+
+        awaitResolved();
+        assertThat(count("blocking")).isEqualTo(1);
+        assertThat(count("other")).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentFetchesAreLimited() throws InterruptedException {
+        final SharedFetchDiscoveryClient sharedClient = new SharedFetchDiscoveryClient(this.client, 1);
+        this.client.blocking = true;
+        this.executor.execute(() -> sharedClient.getInstances("blocking"));
+        awaitCondition(() -> count("blocking") == 1);
+
+        this.executor.execute(() -> sharedClient.getInstances("other"));
+        // The only permit is taken by the blocked fetch
+        awaitCondition(() -> waitingThreads() == 2);
+        assertThat(count("other")).isZero();
+
+        this.client.release.countDown();
+        awaitCondition(() -> count("other") == 1);
+    }
+
+    @Test
+    void testPeriodicRefresh() throws InterruptedException {
+        this.factory = newFactory(Duration.ZERO, Duration.ofMillis(100));
+        final TestableListener listener = start("other");
+        awaitCondition(listener::isResultWasSet);
+        awaitResolved();
+
+        for (int i = 1; i <= 3; i++) {
+            // Each refresh schedules the next one with some jitter
+            assertThat(this.scheduledTasks).hasSize(1);
+            assertThat(this.scheduledTasks.peek().getDelay(TimeUnit.MILLISECONDS)).isBetween(80L, 120L);
+            runNextTask();
+            awaitResolved();
+            assertThat(count("other")).isEqualTo(1 + i);
+        }
+    }
+
+    @Test
+    void testPeriodicRefreshStopsWithoutResolvers() throws InterruptedException {
+        this.factory = newFactory(Duration.ZERO, Duration.ofMillis(100));
+        final TestableListener listener = start("other");
+        awaitCondition(listener::isResultWasSet);
+        awaitResolved();
+
+        final ScheduledTask refresh = this.scheduledTasks.poll();
+        final NameResolver resolver = this.resolvers.remove(0);
+        this.args.getSynchronizationContext().execute(resolver::shutdown);
+        assertThat(refresh.isCancelled()).isTrue();
+        // A refresh that is already running doesn't reschedule itself
+        refresh.run();
+        assertThat(this.scheduledTasks).isEmpty();
+        assertThat(count("other")).isEqualTo(1);
+
+        // The next resolver starts it again
+        final TestableListener restarted = start("other");
+        awaitCondition(restarted::isResultWasSet);
+        awaitResolved();
+        runNextTask();
+        awaitResolved();
+        assertThat(count("other")).isEqualTo(3);
+        assertThat(this.scheduledTasks).hasSize(1);
+    }
+
+    private DiscoveryClientResolverFactory newFactory(final Duration heartbeatDebounce,
+            final Duration refreshInterval) {
+        return new DiscoveryClientResolverFactory(this.client, serviceName -> null, heartbeatDebounce, 8,
+                refreshInterval, this.schedulerResource);
+    }
+
+    private TestableListener start(final String serviceName) {
+        final NameResolver resolver =
+                this.factory.newNameResolver(URI.create("discovery:///" + serviceName), this.args);
+        this.resolvers.add(resolver);
+        final TestableListener listener = new TestableListener();
+        this.args.getSynchronizationContext().execute(() -> resolver.start(listener));
+        return listener;
+    }
+
+    private void runNextTask() {
+        final ScheduledTask task = this.scheduledTasks.poll();
+        assertThat(task).isNotNull();
+        assertThat(task.isCancelled()).isFalse();
+        task.run();
+    }
+
+    private int count(final String serviceName) {
+        final AtomicInteger count = this.client.fetches.get(serviceName);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Gets the number of resolve threads that are blocked, either by the client, a running fetch or the fetch permits.
+     *
+     * @return The number of waiting threads.
+     */
+    private long waitingThreads() {
+        return this.threads.stream()
+                .map(Thread::getState)
+                .filter(state -> state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING)
+                .count();
+    }
+
+    private void awaitResolved() throws InterruptedException {
+        for (final Thread thread : this.threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+            assertThat(thread.isAlive()).isFalse();
+        }
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    /**
+     * A task of the scheduler, that is run manually by the tests.
+     */
+    private static final class ScheduledTask implements ScheduledFuture<Object> {
+
+        private final Runnable task;
+        private final long delayNanos;
+        private volatile boolean cancelled;
+
+        ScheduledTask(final Runnable task, final long delayNanos) {
+            this.task = task;
+            this.delayNanos = delayNanos;
+        }
+
+        void run() {
+            this.task.run();
+        }
+
+        @Override
+        public long getDelay(final TimeUnit unit) {
+            return unit.convert(this.delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(final Delayed other) {
+            return Long.compare(this.delayNanos, other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            this.cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.cancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(final long timeout, final TimeUnit unit) {
+            return null;
+        }
+
+    }
+
+    /**
+     * Counts the fetches per service and blocks the fetches of the {@code blocking} service, if requested.
+     */
+    private static final class CountingDiscoveryClient implements DiscoveryClient {
+
+        private final Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blocking;
+
+        @Override
+        public String description() {
+            return "counting";
+        }
+
+        @Override
+        public List<ServiceInstance> getInstances(final String serviceId) {
+            this.fetches.computeIfAbsent(serviceId, key -> new AtomicInteger()).incrementAndGet();
+            if (this.blocking && "blocking".equals(serviceId)) {
+                try {
+                    this.release.await(5, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            final DefaultServiceInstance instance =
+                    new DefaultServiceInstance(serviceId + "-1", serviceId, "127.0.0.1", 3322, false);
+            instance.getMetadata().put(GrpcUtils.CLOUD_DISCOVERY_METADATA_PORT, "6688");
+            return List.of(instance);
+        }
+
+        @Override
+        public List<String> getServices() {
+            return List.of("blocking", "other");
+        }
+
+    }
+
+}
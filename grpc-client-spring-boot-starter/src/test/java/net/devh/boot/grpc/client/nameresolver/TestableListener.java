@@ -26,12 +26,14 @@ public class TestableListener extends NameResolver.Listener2 {
     private NameResolver.ResolutionResult result;
     private Status error;
     private boolean resultWasSet = false;
+    private int resultCount = 0;
     private boolean errorWasSet = false;
 
     @Override
     public void onResult(NameResolver.ResolutionResult resolutionResult) {
         this.result = resolutionResult;
         resultWasSet = true;
+        resultCount++;
     }
 
     @Override
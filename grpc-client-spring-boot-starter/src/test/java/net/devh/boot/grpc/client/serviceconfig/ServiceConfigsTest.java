@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.client.serviceconfig;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties.MethodConfig;
+import net.devh.boot.grpc.client.metrics.MetricsClientAttemptInterceptor;
+
+/**
+ * Tests for {@link ServiceConfigs}.
+ */
+class ServiceConfigsTest {
+
+    private static final Gson GSON = new Gson();
+
+    private static final MethodDescriptor<StringValue, StringValue> GET_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Storage", "Get"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setSafe(true)
+                    .build();
+
+    private final AtomicInteger serverCalls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void afterEach() {
+        this.release.countDown();
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+        this.serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testGeneratedRetryPolicy() {
+        final GrpcChannelProperties properties = new GrpcChannelProperties();
+        final MethodConfig config = new MethodConfig();
+        config.getRetry().setEnabled(true);
+        config.getRetry().setMaxAttempts(4);
+        config.getRetry().setInitialBackoff(Duration.ofMillis(50));
+        config.getRetry().setRetryableStatusCodes(Arrays.asList(Status.Code.UNAVAILABLE, Status.Code.ABORTED));
+        properties.setMethodConfig(Collections.singletonMap("test.Storage/Get", config));
+        properties.getRetryThrottling().setMaxTokens(10);
+
+        assertEquals(GSON.fromJson("{'methodConfig': [{"
+                + "'name': [{'service': 'test.Storage', 'method': 'Get'}],"
+                + "'retryPolicy': {'maxAttempts': 4, 'initialBackoff': '0.05s', 'maxBackoff': '1s',"
+                + "  'backoffMultiplier': 2, 'retryableStatusCodes': ['UNAVAILABLE', 'ABORTED']}}],"
+                + "'retryThrottling': {'maxTokens': 10, 'tokenRatio': 0.1}}", Map.class),
+                ServiceConfigs.fromProperties(properties));
+        assertEquals(4, ServiceConfigs.getMaxAttempts(properties));
+    }
+
+    @Test
+    void testNoPolicies() {
+        final GrpcChannelProperties properties = new GrpcChannelProperties();
+        assertNull(ServiceConfigs.fromProperties(properties));
+
+        final MethodConfig config = new MethodConfig();
+        config.getRetry().setEnabled(true);
+        config.getHedging().setEnabled(true);
+        properties.setMethodConfig(Collections.singletonMap("test.Storage", config));
+        assertThrows(IllegalArgumentException.class, () -> ServiceConfigs.fromProperties(properties));
+    }
+
+    @Test
+    void testMergeKeepsDiscoveredPolicies() {
+        @SuppressWarnings("unchecked")
+        final Map<String, ?> discovered = GSON.fromJson("{'loadBalancingConfig': [{'round_robin': {}}],"
+                + "'methodConfig': [{'name': [{'service': 'test.Storage', 'method': 'Get'},"
+                + "  {'service': 'test.Storage', 'method': 'List'}], 'timeout': '1s'},"
+                + "  {'name': [{'service': 'test.Other'}], 'retryPolicy': {'maxAttempts': 2}}]}", Map.class);
+        @SuppressWarnings("unchecked")
+        final Map<String, ?> configured = GSON.fromJson("{'methodConfig': ["
+                + "  {'name': [{'service': 'test.Storage', 'method': 'Get'}], 'hedgingPolicy': {'maxAttempts': 3}},"
+                + "  {'name': [{'service': 'test.Other'}], 'hedgingPolicy': {'maxAttempts': 3}},"
+                + "  {'name': [{}], 'retryPolicy': {'maxAttempts': 3}}],"
+                + "'retryThrottling': {'maxTokens': 10, 'tokenRatio': 0.1}}", Map.class);
+
+        assertEquals(GSON.fromJson("{'loadBalancingConfig': [{'round_robin': {}}],"
+                + "'methodConfig': [{'name': [{'service': 'test.Storage', 'method': 'List'}], 'timeout': '1s'},"
+                + "  {'name': [{'service': 'test.Other'}], 'retryPolicy': {'maxAttempts': 2}},"
+                + "  {'name': [{'service': 'test.Storage', 'method': 'Get'}], 'timeout': '1s',"
+                + "    'hedgingPolicy': {'maxAttempts': 3}},"
+                + "  {'name': [{}], 'retryPolicy': {'maxAttempts': 3}}],"
+                + "'retryThrottling': {'maxTokens': 10, 'tokenRatio': 0.1}}", Map.class),
+                ServiceConfigs.merge(discovered, configured));
+    }
+
+    @Test
+    void testGeneratedLoadBalancingConfig() {
+        final GrpcChannelProperties properties = new GrpcChannelProperties();
+        properties.setDefaultLoadBalancingPolicy("peak_ewma");
+        properties.getLoadBalancing().setChoiceCount(3);
+        properties.getLoadBalancing().setDecayTime(Duration.ofMillis(2500));
+
+        final Map<String, Object> configured = ServiceConfigs.fromProperties(properties);
+        assertEquals(GSON.fromJson("{'loadBalancingConfig': [{'peak_ewma': {'choiceCount': 3, 'decayTime': '2.5s'}}]}",
+                Map.class), configured);
+
+        // Only used if the discovered config doesn't select a policy itself
+        @SuppressWarnings("unchecked")
+        final Map<String, ?> withPolicy = GSON.fromJson("{'loadBalancingPolicy': 'round_robin'}", Map.class);
+        assertEquals(withPolicy, ServiceConfigs.merge(withPolicy, configured));
+        assertEquals(configured, ServiceConfigs.merge(Collections.emptyMap(), configured));
+
+        properties.setDefaultLoadBalancingPolicy("zone_aware");
+        properties.getZoneAware().setLocalZone("eu-1a");
+        properties.getZoneAware().setMaxInFlightPerBackend(50);
+        assertEquals(GSON.fromJson("{'loadBalancingConfig': [{'zone_aware': {'choiceCount': 3, 'localZone': 'eu-1a',"
+                + "  'minHealthyRatio': 0.7, 'maxInFlightPerSubchannel': 50}}]}", Map.class),
+                ServiceConfigs.fromProperties(properties));
+
+        properties.setDefaultLoadBalancingPolicy("round_robin");
+        assertNull(ServiceConfigs.fromProperties(properties));
+    }
+
+    @Test
+    void testHedgingAvoidsSlowAttempt() throws IOException {
+        final GrpcChannelProperties properties = new GrpcChannelProperties();
+        final MethodConfig config = new MethodConfig();
+        config.getHedging().setEnabled(true);
+        config.getHedging().setMaxAttempts(3);
+        config.getHedging().setDelay(Duration.ofMillis(50));
+        properties.setMethodConfig(Collections.singletonMap("test.Storage", config));
+        final MeterRegistry registry = new SimpleMeterRegistry();
+        start(properties, registry);
+
+        final StringValue response = ClientCalls.blockingUnaryCall(this.channel, GET_METHOD,
+                CallOptions.DEFAULT.withDeadlineAfter(5, TimeUnit.SECONDS), StringValue.of("key"));
+
+        assertEquals("key:2", response.getValue());
+        assertEquals(1, registry.get("grpc.client.attempts").tag("attempt", "initial").counter().count());
+        assertEquals(1, registry.get("grpc.client.attempts").tag("attempt", "hedge").counter().count());
+        assertEquals(1, registry.get("grpc.client.attempts.won").tag("attempt", "2").counter().count());
+    }
+
+    private void start(final GrpcChannelProperties properties, final MeterRegistry registry) throws IOException {
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("test.Storage")
+                .addMethod(GET_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    final int count = this.serverCalls.incrementAndGet();
+                    if (count == 1) {
+                        // A slow replica
+                        try {
+                            this.release.await(5, TimeUnit.SECONDS);
+                        } catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    responseObserver.onNext(StringValue.of(request.getValue() + ":" + count));
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final String name = InProcessServerBuilder.generateName();
+        this.server = InProcessServerBuilder.forName(name)
+                .executor(this.serverExecutor)
+                .addService(service)
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name)
+                .defaultServiceConfig(ServiceConfigs.fromProperties(properties))
+                .enableRetry()
+                .intercept(new MetricsClientAttemptInterceptor(registry, "test", properties.getMethodConfig()))
+                .build();
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.autoconfigure;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.common.metrics.MetricsCertificateReloaderBinder;
+import net.devh.boot.grpc.common.security.CertificateReloaderRegistry;
+
+/**
+ * The auto configuration used by Spring-Boot that contains the security related beans shared by clients/servers.
+ */
+@Configuration(proxyBeanMethods = false)
+public class GrpcCommonSecurityAutoConfiguration {
+
+    /**
+     * Creates the registry for the reloaders of the TLS material used by the clients and servers.
+     *
+     * @return The newly created registry.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public CertificateReloaderRegistry certificateReloaderRegistry() {
+        return new CertificateReloaderRegistry();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class CertificateReloaderMetricsConfiguration {
+
+        /**
+         * Creates a meter binder that exposes the expiry and the number of reloads of the TLS material.
+         *
+         * @param registry The registry containing the reloaders.
+         * @return The newly created meter binder.
+         */
+        @Bean
+        MeterBinder grpcCertificateReloaderMeterBinder(final CertificateReloaderRegistry registry) {
+            return new MetricsCertificateReloaderBinder(registry);
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.autoconfigure;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import net.devh.boot.grpc.common.transport.GrpcTransportProperties;
+import net.devh.boot.grpc.common.transport.NettyEventLoopGroups;
+import net.devh.boot.grpc.common.transport.ShadedNettyEventLoopGroups;
+
+/**
+ * The auto configuration used by Spring-Boot that contains the netty event loop groups shared by clients/servers. The
+ * event loop groups are only created if they are actually used.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties
+public class GrpcCommonTransportAutoConfiguration {
+
+    @ConditionalOnMissingBean
+    @Bean
+    public GrpcTransportProperties grpcTransportProperties() {
+        return new GrpcTransportProperties();
+    }
+
+    @ConditionalOnClass(name = {"io.grpc.netty.shaded.io.netty.channel.Channel",
+            "io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder"})
+    @ConditionalOnMissingBean
+    @Lazy
+    @Bean
+    public ShadedNettyEventLoopGroups shadedNettyEventLoopGroups(final GrpcTransportProperties properties) {
+        return new ShadedNettyEventLoopGroups(properties);
+    }
+
+    @ConditionalOnClass(name = {"io.netty.channel.Channel", "io.grpc.netty.NettyServerBuilder"})
+    @ConditionalOnMissingBean
+    @Lazy
+    @Bean
+    public NettyEventLoopGroups nettyEventLoopGroups(final GrpcTransportProperties properties) {
+        return new NettyEventLoopGroups(properties);
+    }
+
+}
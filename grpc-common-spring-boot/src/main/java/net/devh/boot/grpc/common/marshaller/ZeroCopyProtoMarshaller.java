@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.marshaller;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.ExtensionRegistryLite;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import com.google.protobuf.UnsafeByteOperations;
+
+import io.grpc.Detachable;
+import io.grpc.HasByteBuffer;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.MethodDescriptor.PrototypeMarshaller;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.ServiceDescriptor;
+import io.grpc.Status;
+
+/**
+ * A protobuf marshaller that parses the messages directly from the transport's buffers, instead of copying them into an
+ * intermediate heap array first. The buffers are detached from the transport, parsed and released again, so the parsed
+ * messages never alias the (pooled) buffers. Outbound messages are still serialized by the original marshaller, which
+ * already writes them directly into the transport's pooled buffers.
+ *
+ * <p>
+ * If the transport doesn't provide its buffers (e.g. the in-process transport), then the original marshaller is used.
+ * </p>
+ *
+ * @param <T> The type of the protobuf message.
+ */
+public final class ZeroCopyProtoMarshaller<T extends MessageLite> implements PrototypeMarshaller<T> {
+
+    private final PrototypeMarshaller<T> delegate;
+    private final Parser<T> parser;
+
+    @SuppressWarnings("unchecked")
+    private ZeroCopyProtoMarshaller(final PrototypeMarshaller<T> delegate, final T prototype) {
+        this.delegate = requireNonNull(delegate, "delegate");
+        this.parser = (Parser<T>) prototype.getParserForType();
+    }
+
+    /**
+     * Wraps the given marshaller, if it is a protobuf marshaller.
+     *
+     * @param <T> The type of the message.
+     * @param marshaller The marshaller to wrap.
+     * @return The zero copy marshaller or the given marshaller, if it cannot be wrapped.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T> Marshaller<T> wrap(final Marshaller<T> marshaller) {
+        if (marshaller instanceof ZeroCopyProtoMarshaller || !(marshaller instanceof PrototypeMarshaller)) {
+            return marshaller;
+        }
+        final Object prototype = ((PrototypeMarshaller<T>) marshaller).getMessagePrototype();
+        if (prototype instanceof MessageLite) {
+            return new ZeroCopyProtoMarshaller((PrototypeMarshaller) marshaller, (MessageLite) prototype);
+        }
+        return marshaller;
+    }
+
+    /**
+     * Creates a copy of the given method that uses zero copy marshallers for its protobuf messages.
+     *
+     * @param <ReqT> The type of the request messages.
+     * @param <RespT> The type of the response messages.
+     * @param method The method to wrap.
+     * @return The wrapped method or the given method, if none of its marshallers can be wrapped.
+     */
+    public static <ReqT, RespT> MethodDescriptor<ReqT, RespT> wrap(final MethodDescriptor<ReqT, RespT> method) {
+        final Marshaller<ReqT> requestMarshaller = wrap(method.getRequestMarshaller());
+        final Marshaller<RespT> responseMarshaller = wrap(method.getResponseMarshaller());
+        if (requestMarshaller == method.getRequestMarshaller()
+                && responseMarshaller == method.getResponseMarshaller()) {
+            return method;
+        }
+        return method.toBuilder(requestMarshaller, responseMarshaller).build();
+    }
+
+    /**
+     * Creates a copy of the given service definition that uses zero copy marshallers for all of its protobuf methods.
+     * The schema descriptor of the service is retained, so that the reflection service continues to work.
+     *
+     * @param definition The service definition to wrap.
+     * @return The newly created service definition.
+     */
+    public static ServerServiceDefinition wrap(final ServerServiceDefinition definition) {
+        final ServiceDescriptor service = definition.getServiceDescriptor();
+        final ServiceDescriptor.Builder serviceBuilder = ServiceDescriptor.newBuilder(service.getName())
+                .setSchemaDescriptor(service.getSchemaDescriptor());
+        final List<ServerMethodDefinition<?, ?>> methods = new ArrayList<>();
+        for (final ServerMethodDefinition<?, ?> method : definition.getMethods()) {
+            final ServerMethodDefinition<?, ?> wrapped = wrapMethod(method);
+            serviceBuilder.addMethod(wrapped.getMethodDescriptor());
+            methods.add(wrapped);
+        }
+        final ServerServiceDefinition.Builder builder = ServerServiceDefinition.builder(serviceBuilder.build());
+        for (final ServerMethodDefinition<?, ?> method : methods) {
+            builder.addMethod(method);
+        }
+        return builder.build();
+    }
+
+    private static <ReqT, RespT> ServerMethodDefinition<ReqT, RespT> wrapMethod(
+            final ServerMethodDefinition<ReqT, RespT> method) {
+        return ServerMethodDefinition.create(wrap(method.getMethodDescriptor()), method.getServerCallHandler());
+    }
+
+    @Override
+    public Class<T> getMessageClass() {
+        return this.delegate.getMessageClass();
+    }
+
+    @Override
+    public T getMessagePrototype() {
+        return this.delegate.getMessagePrototype();
+    }
+
+    @Override
+    public InputStream stream(final T value) {
+        return this.delegate.stream(value);
+    }
+
+    @Override
+    public T parse(final InputStream stream) {
+        if (!(stream instanceof Detachable) || !(stream instanceof HasByteBuffer)
+                || !((HasByteBuffer) stream).byteBufferSupported()) {
+            return this.delegate.parse(stream);
+        }
+        try (InputStream detached = ((Detachable) stream).detach()) {
+            final CodedInputStream input = readBuffers(detached).newCodedInput();
+            // The size has already been limited by the transport
+            input.setSizeLimit(Integer.MAX_VALUE);
+            final T message = this.parser.parseFrom(input, ExtensionRegistryLite.getEmptyRegistry());
+            input.checkLastTagWas(0);
+            return message;
+        } catch (final InvalidProtocolBufferException e) {
+            throw Status.INTERNAL.withDescription("Invalid protobuf byte sequence").withCause(e).asRuntimeException();
+        } catch (final IOException e) {
+            throw Status.INTERNAL.withDescription("Failed to read message").withCause(e).asRuntimeException();
+        }
+    }
+
+    /**
+     * Wraps the buffers of the given stream without copying them. The returned data is only valid until the stream is
+     * closed.
+     *
+     * @param stream The stream to read the buffers from.
+     * @return The data of the stream.
+     * @throws IOException If the stream cannot be read.
+     */
+    private static ByteString readBuffers(final InputStream stream) throws IOException {
+        ByteString data = ByteString.EMPTY;
+        while (stream.available() > 0) {
+            final ByteBuffer buffer = stream instanceof HasByteBuffer ? ((HasByteBuffer) stream).getByteBuffer() : null;
+            if (buffer == null) {
+                // Copy the remaining data that isn't backed by a buffer
+                return data.concat(ByteString.readFrom(stream));
+            }
+            final int size = buffer.remaining();
+            data = data.concat(UnsafeByteOperations.unsafeWrap(buffer));
+            stream.skip(size);
+        }
+        return data;
+    }
+
+}
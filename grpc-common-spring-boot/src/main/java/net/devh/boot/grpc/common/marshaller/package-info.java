@@ -0,0 +1,5 @@
+/**
+ * Contains the marshallers that reduce the allocations when (de-)serializing messages.
+ */
+
+package net.devh.boot.grpc.common.marshaller;
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.common.security.CertificateReloader;
+import net.devh.boot.grpc.common.security.CertificateReloaderRegistry;
+
+/**
+ * Binds the metrics of the {@link CertificateReloader}s to a {@link MeterRegistry}. Reloaders that are registered
+ * later, e.g. when the server starts, are bound as well.
+ */
+public class MetricsCertificateReloaderBinder implements MeterBinder {
+
+    private final CertificateReloaderRegistry reloaders;
+
+    /**
+     * Creates a new MetricsCertificateReloaderBinder.
+     *
+     * @param reloaders The registry containing the reloaders to monitor.
+     */
+    public MetricsCertificateReloaderBinder(final CertificateReloaderRegistry reloaders) {
+        this.reloaders = requireNonNull(reloaders, "reloaders");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        this.reloaders.addListener(reloader -> bindTo(registry, reloader));
+    }
+
+    /**
+     * Binds the metrics of the given reloader to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param reloader The reloader to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final CertificateReloader reloader) {
+        Gauge.builder("grpc.tls.certificate.expiry", reloader, MetricsCertificateReloaderBinder::secondsUntilExpiry)
+                .description("The time until the current certificate expires")
+                .baseUnit("seconds")
+                .tag("name", reloader.getName())
+                .register(registry);
+        FunctionCounter.builder("grpc.tls.certificate.reloads", reloader, CertificateReloader::getReloadCount)
+                .description("The number of times the TLS material has been reloaded")
+                .tag("name", reloader.getName())
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("grpc.tls.certificate.reloads", reloader, CertificateReloader::getFailureCount)
+                .description("The number of times the TLS material has been reloaded")
+                .tag("name", reloader.getName())
+                .tag("result", "failure")
+                .register(registry);
+    }
+
+    private static double secondsUntilExpiry(final CertificateReloader reloader) {
+        final Instant expiry = reloader.getExpiry();
+        return expiry == null ? Double.NaN : Duration.between(Instant.now(), expiry).getSeconds();
+    }
+
+}
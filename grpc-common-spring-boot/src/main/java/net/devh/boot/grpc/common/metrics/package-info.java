@@ -0,0 +1,5 @@
+/**
+ * Contains the metrics shared by the clients and servers.
+ */
+
+package net.devh.boot.grpc.common.metrics;
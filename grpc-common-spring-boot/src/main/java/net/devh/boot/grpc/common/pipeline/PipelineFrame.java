@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.pipeline;
+
+import static java.util.Objects.requireNonNull;
+
+import javax.annotation.Nullable;
+
+import io.grpc.InternalMetadata;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+/**
+ * A single frame sent over a pipeline stream. Each frame belongs to a logical call, that is identified by its call id.
+ * The client sends {@link Type#REQUEST REQUEST} and {@link Type#CANCEL CANCEL} frames, the server answers with
+ * {@link Type#RESPONSE RESPONSE} and {@link Type#CLOSE CLOSE} frames.
+ */
+public final class PipelineFrame {
+
+    private static final byte[][] NO_METADATA = new byte[0][];
+
+    /**
+     * The types of frames.
+     */
+    public enum Type {
+
+        /**
+         * Starts a logical call with the request message and headers.
+         */
+        REQUEST,
+
+        /**
+         * Contains the response message and headers of a logical call.
+         */
+        RESPONSE,
+
+        /**
+         * Completes a logical call with its status and trailers.
+         */
+        CLOSE,
+
+        /**
+         * Cancels a logical call.
+         */
+        CANCEL;
+
+    }
+
+    private final Type type;
+    private final long callId;
+    @Nullable
+    private final String methodName;
+    private final long timeoutNanos;
+    private final byte[][] metadata;
+    @Nullable
+    private final byte[] payload;
+    private final int statusCode;
+    @Nullable
+    private final String statusDescription;
+
+    PipelineFrame(final Type type, final long callId, @Nullable final String methodName, final long timeoutNanos,
+            final byte[][] metadata, @Nullable final byte[] payload, final int statusCode,
+            @Nullable final String statusDescription) {
+        this.type = requireNonNull(type, "type");
+        this.callId = callId;
+        this.methodName = methodName;
+        this.timeoutNanos = timeoutNanos;
+        this.metadata = requireNonNull(metadata, "metadata");
+        this.payload = payload;
+        this.statusCode = statusCode;
+        this.statusDescription = statusDescription;
+    }
+
+    /**
+     * Creates a new frame that starts a logical call.
+     *
+     * @param callId The id of the logical call.
+     * @param methodName The full name of the called method.
+     * @param timeoutNanos The time left until the deadline of the call in nanoseconds or zero, if there is none.
+     * @param headers The headers of the call.
+     * @param request The serialized request message.
+     * @return The newly created frame.
+     */
+    public static PipelineFrame request(final long callId, final String methodName, final long timeoutNanos,
+            final Metadata headers, final byte[] request) {
+        return new PipelineFrame(Type.REQUEST, callId, requireNonNull(methodName, "methodName"), timeoutNanos,
+                InternalMetadata.serialize(headers), requireNonNull(request, "request"), 0, null);
+    }
+
+    /**
+     * Creates a new frame that contains the response of a logical call.
+     *
+     * @param callId The id of the logical call.
+     * @param headers The response headers of the call.
+     * @param response The serialized response message.
+     * @return The newly created frame.
+     */
+    public static PipelineFrame response(final long callId, final Metadata headers, final byte[] response) {
+        return new PipelineFrame(Type.RESPONSE, callId, null, 0, InternalMetadata.serialize(headers),
+                requireNonNull(response, "response"), 0, null);
+    }
+
+    /**
+     * Creates a new frame that completes a logical call.
+     *
+     * @param callId The id of the logical call.
+     * @param status The status of the call.
+     * @param trailers The trailers of the call.
+     * @return The newly created frame.
+     */
+    public static PipelineFrame close(final long callId, final Status status, final Metadata trailers) {
+        return new PipelineFrame(Type.CLOSE, callId, null, 0, InternalMetadata.serialize(trailers), null,
+                status.getCode().value(), status.getDescription());
+    }
+
+    /**
+     * Creates a new frame that cancels a logical call.
+     *
+     * @param callId The id of the logical call.
+     * @return The newly created frame.
+     */
+    public static PipelineFrame cancel(final long callId) {
+        return new PipelineFrame(Type.CANCEL, callId, null, 0, NO_METADATA, null, 0, null);
+    }
+
+    /**
+     * Gets the type of this frame.
+     *
+     * @return The type of the frame.
+     */
+    public Type getType() {
+        return this.type;
+    }
+
+    /**
+     * Gets the id of the logical call this frame belongs to.
+     *
+     * @return The id of the call.
+     */
+    public long getCallId() {
+        return this.callId;
+    }
+
+    /**
+     * Gets the full name of the called method. Only present on {@link Type#REQUEST REQUEST} frames.
+     *
+     * @return The full name of the called method or null.
+     */
+    @Nullable
+    public String getMethodName() {
+        return this.methodName;
+    }
+
+    /**
+     * Gets the time left until the deadline of the call. Only present on {@link Type#REQUEST REQUEST} frames.
+     *
+     * @return The time left in nanoseconds or zero, if the call has no deadline.
+     */
+    public long getTimeoutNanos() {
+        return this.timeoutNanos;
+    }
+
+    /**
+     * Gets the headers or trailers contained in this frame.
+     *
+     * @return The newly created metadata instance.
+     */
+    public Metadata getMetadata() {
+        return InternalMetadata.newMetadata(this.metadata);
+    }
+
+    byte[][] getSerializedMetadata() {
+        return this.metadata;
+    }
+
+    /**
+     * Gets the serialized message of this frame. Only present on {@link Type#REQUEST REQUEST} and
+     * {@link Type#RESPONSE RESPONSE} frames.
+     *
+     * @return The serialized message or null.
+     */
+    @Nullable
+    public byte[] getPayload() {
+        return this.payload;
+    }
+
+    /**
+     * Gets the status of the call. Only meaningful on {@link Type#CLOSE CLOSE} frames.
+     *
+     * @return The status of the call.
+     */
+    public Status getStatus() {
+        return Status.fromCodeValue(this.statusCode).withDescription(this.statusDescription);
+    }
+
+    int getStatusCode() {
+        return this.statusCode;
+    }
+
+    @Nullable
+    String getStatusDescription() {
+        return this.statusDescription;
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineFrame [type=" + this.type + ", callId=" + this.callId + ", methodName=" + this.methodName
+                + "]";
+    }
+
+}
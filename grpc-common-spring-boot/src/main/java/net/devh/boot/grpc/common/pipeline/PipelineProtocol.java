@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.pipeline;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.annotation.Nullable;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Status;
+
+/**
+ * The protocol used to multiplex many small unary calls over a single long-lived bidi stream. Each logical call is sent
+ * as a {@link PipelineFrame} with a call id, that is used to correlate the responses. The server dispatches the
+ * logical calls to the regular service implementations.
+ */
+public final class PipelineProtocol {
+
+    /**
+     * The name of the service that accepts the pipeline streams.
+     */
+    public static final String SERVICE_NAME = "grpc.spring.pipeline.Pipeline";
+
+    /**
+     * The bidi streaming method that carries the frames of the logical calls.
+     */
+    public static final MethodDescriptor<PipelineFrame, PipelineFrame> EXCHANGE_METHOD =
+            MethodDescriptor.<PipelineFrame, PipelineFrame>newBuilder()
+                    .setType(MethodType.BIDI_STREAMING)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName(SERVICE_NAME, "Exchange"))
+                    .setRequestMarshaller(FrameMarshaller.INSTANCE)
+                    .setResponseMarshaller(FrameMarshaller.INSTANCE)
+                    .build();
+
+    private static final int VERSION = 1;
+
+    private PipelineProtocol() {}
+
+    /**
+     * Serializes the given message using the given marshaller.
+     *
+     * @param <T> The type of the message.
+     * @param marshaller The marshaller used to serialize the message.
+     * @param message The message to serialize.
+     * @return The serialized message.
+     */
+    public static <T> byte[] toBytes(final Marshaller<T> marshaller, final T message) {
+        try (InputStream stream = marshaller.stream(message)) {
+            return stream.readAllBytes();
+        } catch (final IOException e) {
+            throw Status.INTERNAL.withDescription("Failed to serialize message").withCause(e).asRuntimeException();
+        }
+    }
+
+    /**
+     * Parses the given serialized message using the given marshaller.
+     *
+     * @param <T> The type of the message.
+     * @param marshaller The marshaller used to parse the message.
+     * @param bytes The serialized message.
+     * @return The parsed message.
+     */
+    public static <T> T fromBytes(final Marshaller<T> marshaller, final byte[] bytes) {
+        return marshaller.parse(new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * The marshaller for the {@link PipelineFrame}s.
+     */
+    private static final class FrameMarshaller implements Marshaller<PipelineFrame> {
+
+        static final FrameMarshaller INSTANCE = new FrameMarshaller();
+
+        @Override
+        public InputStream stream(final PipelineFrame frame) {
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream(estimateSize(frame));
+            try (DataOutputStream out = new DataOutputStream(buffer)) {
+                out.writeByte(VERSION);
+                out.writeByte(frame.getType().ordinal());
+                out.writeLong(frame.getCallId());
+                writeString(out, frame.getMethodName());
+                out.writeLong(frame.getTimeoutNanos());
+                final byte[][] metadata = frame.getSerializedMetadata();
+                out.writeInt(metadata.length);
+                for (final byte[] entry : metadata) {
+                    writeBytes(out, entry);
+                }
+                writeBytes(out, frame.getPayload());
+                out.writeInt(frame.getStatusCode());
+                writeString(out, frame.getStatusDescription());
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new ByteArrayInputStream(buffer.toByteArray());
+        }
+
+        @Override
+        public PipelineFrame parse(final InputStream stream) {
+            try (DataInputStream in = new DataInputStream(stream)) {
+                final int version = in.readUnsignedByte();
+                if (version != VERSION) {
+                    throw Status.INTERNAL.withDescription("Unsupported pipeline protocol version: " + version)
+                            .asRuntimeException();
+                }
+                final PipelineFrame.Type type = PipelineFrame.Type.values()[in.readUnsignedByte()];
+                final long callId = in.readLong();
+                final String methodName = readString(in);
+                final long timeoutNanos = in.readLong();
+                final byte[][] metadata = new byte[in.readInt()][];
+                for (int i = 0; i < metadata.length; i++) {
+                    metadata[i] = readBytes(in);
+                }
+                final byte[] payload = readBytes(in);
+                final int statusCode = in.readInt();
+                final String statusDescription = readString(in);
+                return new PipelineFrame(type, callId, methodName, timeoutNanos, metadata, payload, statusCode,
+                        statusDescription);
+            } catch (final IOException | RuntimeException e) {
+                throw Status.INTERNAL.withDescription("Failed to parse pipeline frame").withCause(e)
+                        .asRuntimeException();
+            }
+        }
+
+        private static int estimateSize(final PipelineFrame frame) {
+            final byte[] payload = frame.getPayload();
+            return 64 + (payload == null ? 0 : payload.length);
+        }
+
+        private static void writeBytes(final DataOutputStream out, @Nullable final byte[] bytes) throws IOException {
+            if (bytes == null) {
+                out.writeInt(-1);
+            } else {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+        @Nullable
+        private static byte[] readBytes(final DataInputStream in) throws IOException {
+            final int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return bytes;
+        }
+
+        private static void writeString(final DataOutputStream out, @Nullable final String value)
+                throws IOException {
+            writeBytes(out, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Nullable
+        private static String readString(final DataInputStream in) throws IOException {
+            final byte[] bytes = readBytes(in);
+            return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+        }
+
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains the protocol used to multiplex many small unary calls over a single long-lived bidi stream.
+ */
+
+package net.devh.boot.grpc.common.pipeline;
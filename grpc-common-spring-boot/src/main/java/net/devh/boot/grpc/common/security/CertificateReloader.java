@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.security;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedKeyManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+
+import org.springframework.boot.ssl.jks.JksSslStoreBundle;
+import org.springframework.boot.ssl.jks.JksSslStoreDetails;
+import org.springframework.core.io.Resource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads the key and trust material for TLS connections and reloads it, once the underlying files change. The material
+ * is provided through {@link ReloadingX509KeyManager swappable key} and {@link ReloadingX509TrustManager trust
+ * managers}, so that new handshakes pick up the new material, while existing connections stay open.
+ *
+ * <p>
+ * The files are watched using a {@link WatchService} on their parent directories. This also detects the symlink swaps
+ * used by kubernetes to update mounted secrets. If the reload fails, e.g. because the files are only partially
+ * written, then the previous material stays in use until the next change.
+ * </p>
+ */
+@Slf4j
+public class CertificateReloader implements Closeable {
+
+    /**
+     * Loads a {@link KeyStore}.
+     */
+    @FunctionalInterface
+    public interface KeyStoreLoader {
+
+        /**
+         * Loads the key store.
+         *
+         * @return The newly loaded key store.
+         * @throws IOException If the key store could not be read.
+         * @throws GeneralSecurityException If the key store could not be loaded.
+         */
+        KeyStore load() throws IOException, GeneralSecurityException;
+
+        /**
+         * Creates a loader for the given key store resource, that is loaded by Spring Boot's
+         * {@link JksSslStoreBundle}.
+         *
+         * @param format The format of the key store, see {@link KeyStoreUtils#detectFormat(String, String)}.
+         * @param keyStore The resource containing the key store.
+         * @param password The password for the key store. May be empty or null.
+         * @return The newly created loader.
+         */
+        static KeyStoreLoader ofKeyStore(final String format, final Resource keyStore,
+                @Nullable final String password) {
+            requireNonNull(format, "format");
+            requireNonNull(keyStore, "keyStore");
+            return () -> {
+                final String type = KeyStoreUtils.detectFormat(format, keyStore.getFilename());
+                final JksSslStoreDetails details =
+                        new JksSslStoreDetails(type, null, keyStore.getURL().toExternalForm(), password);
+                try {
+                    return new JksSslStoreBundle(details, null).getKeyStore();
+                } catch (final IllegalStateException e) {
+                    throw new KeyStoreException("Failed to load " + keyStore.getDescription(), e);
+                }
+            };
+        }
+
+    }
+
+    private final String name;
+    private final KeyStoreLoader keyStoreLoader;
+    private final char[] keyPassword;
+    private final KeyStoreLoader trustStoreLoader;
+    private final ReloadingX509KeyManager keyManager;
+    private final ReloadingX509TrustManager trustManager;
+
+    private final LongAdder reloadCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+    private volatile Instant expiry;
+
+    private WatchService watchService;
+    private List<Path> watchedFiles;
+    private List<String> fingerprint;
+
+    /**
+     * Creates a new CertificateReloader and loads the initial material.
+     *
+     * @param name The name used to identify this reloader in logs and metrics.
+     * @param keyStoreLoader The loader for the key store containing the private key and certificate chain. Null, if
+     *        there is no key material.
+     * @param keyPassword The password for the key entries. May be empty or null.
+     * @param trustStoreLoader The loader for the key store containing the trusted certificates. Null, if the system's
+     *        default trust material should be used.
+     * @throws IOException If the initial material could not be read.
+     * @throws GeneralSecurityException If the initial material could not be loaded.
+     */
+    public CertificateReloader(final String name, @Nullable final KeyStoreLoader keyStoreLoader,
+            @Nullable final String keyPassword, @Nullable final KeyStoreLoader trustStoreLoader)
+            throws IOException, GeneralSecurityException {
+        this.name = requireNonNull(name, "name");
+        this.keyStoreLoader = keyStoreLoader;
+        this.keyPassword = keyPassword == null ? new char[0] : keyPassword.toCharArray();
+        this.trustStoreLoader = trustStoreLoader;
+        if (keyStoreLoader != null) {
+            final KeyStore keyStore = keyStoreLoader.load();
+            this.keyManager = new ReloadingX509KeyManager(createKeyManager(keyStore));
+            this.expiry = findExpiry(keyStore);
+        } else {
+            this.keyManager = null;
+        }
+        this.trustManager = trustStoreLoader == null ? null
+                : new ReloadingX509TrustManager(createTrustManager(trustStoreLoader.load()));
+    }
+
+    /**
+     * Reloads the key and trust material. The material is only replaced, if it could be loaded completely.
+     *
+     * @throws IOException If the material could not be read.
+     * @throws GeneralSecurityException If the material could not be loaded.
+     */
+    public synchronized void reload() throws IOException, GeneralSecurityException {
+        KeyStore keyStore = null;
+        X509ExtendedKeyManager newKeyManager = null;
+        X509ExtendedTrustManager newTrustManager = null;
+        if (this.keyManager != null) {
+            keyStore = this.keyStoreLoader.load();
+            newKeyManager = createKeyManager(keyStore);
+        }
+        if (this.trustManager != null) {
+            newTrustManager = createTrustManager(this.trustStoreLoader.load());
+        }
+        // Only swap once everything has been loaded successfully
+        if (newKeyManager != null) {
+            this.keyManager.setDelegate(newKeyManager);
+            this.expiry = findExpiry(keyStore);
+        }
+        if (newTrustManager != null) {
+            this.trustManager.setDelegate(newTrustManager);
+        }
+        this.reloadCount.increment();
+        log.info("Reloaded TLS material for '{}', certificate expires at {}", this.name, this.expiry);
+    }
+
+    /**
+     * Starts watching the given files for changes and reloads the material after a change.
+     *
+     * @param files The files to watch.
+     * @param delay The time to wait for further changes, before the material is reloaded.
+     * @throws IOException If the files cannot be watched.
+     * @throws IllegalStateException If this reloader is already watching.
+     */
+    public synchronized void watch(final Collection<Path> files, final Duration delay) throws IOException {
+        if (this.watchService != null) {
+            throw new IllegalStateException("Already watching");
+        }
+        this.watchedFiles = new ArrayList<>(files);
+        this.fingerprint = fingerprint();
+        final WatchService localWatchService = FileSystems.getDefault().newWatchService();
+        final Set<Path> directories = new LinkedHashSet<>();
+        for (final Path file : this.watchedFiles) {
+            directories.add(file.toAbsolutePath().getParent());
+            // Also watch the target's directory in case the file is a symlink
+            directories.add(file.toRealPath().getParent());
+        }
+        for (final Path directory : directories) {
+            directory.register(localWatchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+        this.watchService = localWatchService;
+
+        final Thread thread = new Thread(() -> watchLoop(localWatchService, delay.toMillis()));
+        thread.setName("grpc-certificate-reloader-" + this.name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watchLoop(final WatchService localWatchService, final long delayMillis) {
+        try {
+            while (true) {
+                drain(localWatchService.take());
+                // Wait until the writers are done
+                WatchKey next;
+                while ((next = localWatchService.poll(delayMillis, TimeUnit.MILLISECONDS)) != null) {
+                    drain(next);
+                }
+                reloadIfChanged();
+            }
+        } catch (final ClosedWatchServiceException e) {
+            log.debug("Stopped watching TLS material for '{}'", this.name);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void drain(final WatchKey key) {
+        key.pollEvents();
+        key.reset();
+    }
+
+    private synchronized void reloadIfChanged() {
+        final List<String> newFingerprint = fingerprint();
+        if (newFingerprint.equals(this.fingerprint)) {
+            return;
+        }
+        try {
+            reload();
+            this.fingerprint = newFingerprint;
+        } catch (final IOException | GeneralSecurityException | RuntimeException e) {
+            this.failureCount.increment();
+            log.warn("Failed to reload TLS material for '{}', keeping the previous material", this.name, e);
+        }
+    }
+
+    private List<String> fingerprint() {
+        final List<String> result = new ArrayList<>(this.watchedFiles.size());
+        for (final Path file : this.watchedFiles) {
+            try {
+                result.add(Files.getLastModifiedTime(file) + "/" + Files.size(file));
+            } catch (final IOException e) {
+                result.add("missing");
+            }
+        }
+        return result;
+    }
+
+    private X509ExtendedKeyManager createKeyManager(final KeyStore keyStore) throws GeneralSecurityException {
+        final KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        factory.init(keyStore, this.keyPassword);
+        for (final KeyManager manager : factory.getKeyManagers()) {
+            if (manager instanceof X509ExtendedKeyManager) {
+                return (X509ExtendedKeyManager) manager;
+            }
+        }
+        throw new KeyStoreException("No X509ExtendedKeyManager available for '" + this.name + "'");
+    }
+
+    private X509ExtendedTrustManager createTrustManager(final KeyStore trustStore) throws GeneralSecurityException {
+        final TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init(trustStore);
+        for (final TrustManager manager : factory.getTrustManagers()) {
+            if (manager instanceof X509ExtendedTrustManager) {
+                return (X509ExtendedTrustManager) manager;
+            }
+        }
+        throw new KeyStoreException("No X509ExtendedTrustManager available for '" + this.name + "'");
+    }
+
+    private static Instant findExpiry(final KeyStore keyStore) throws KeyStoreException {
+        Instant result = null;
+        final Enumeration<String> aliases = keyStore.aliases();
+        while (aliases.hasMoreElements()) {
+            final String alias = aliases.nextElement();
+            final Certificate[] chain = keyStore.isKeyEntry(alias) ? keyStore.getCertificateChain(alias) : null;
+            if (chain != null && chain.length > 0 && chain[0] instanceof X509Certificate) {
+                final Instant notAfter = ((X509Certificate) chain[0]).getNotAfter().toInstant();
+                if (result == null || notAfter.isBefore(result)) {
+                    result = notAfter;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the name of this reloader.
+     *
+     * @return The name of the reloader.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the key manager that provides the current key material.
+     *
+     * @return The key manager or null, if there is no key material.
+     */
+    @Nullable
+    public ReloadingX509KeyManager getKeyManager() {
+        return this.keyManager;
+    }
+
+    /**
+     * Gets the trust manager that provides the current trust material.
+     *
+     * @return The trust manager or null, if the system's default trust material should be used.
+     */
+    @Nullable
+    public ReloadingX509TrustManager getTrustManager() {
+        return this.trustManager;
+    }
+
+    /**
+     * Gets the time at which the current certificate expires. If there are multiple certificates, then the earliest
+     * expiry is returned.
+     *
+     * @return The expiry of the current certificate or null, if there is no key material.
+     */
+    @Nullable
+    public Instant getExpiry() {
+        return this.expiry;
+    }
+
+    /**
+     * Gets the number of successful reloads.
+     *
+     * @return The number of successful reloads.
+     */
+    public long getReloadCount() {
+        return this.reloadCount.sum();
+    }
+
+    /**
+     * Gets the number of failed reloads.
+     *
+     * @return The number of failed reloads.
+     */
+    public long getFailureCount() {
+        return this.failureCount.sum();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.watchService != null) {
+            this.watchService.close();
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.security;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps track of all {@link CertificateReloader}s used by the application, so that they can be monitored and closed
+ * together. Reloaders for the same certificate set can be {@link #acquire(Object, Supplier) shared}, so that each set
+ * is only watched once.
+ */
+@Slf4j
+public class CertificateReloaderRegistry implements AutoCloseable {
+
+    private final List<CertificateReloader> reloaders = new ArrayList<>();
+    private final List<Consumer<CertificateReloader>> listeners = new ArrayList<>();
+    private final Map<Object, SharedReloader> sharedReloaders = new HashMap<>();
+
+    /**
+     * Registers the given reloader and notifies all listeners.
+     *
+     * @param reloader The reloader to register.
+     * @return The registered reloader.
+     */
+    public CertificateReloader register(final CertificateReloader reloader) {
+        requireNonNull(reloader, "reloader");
+        final List<Consumer<CertificateReloader>> localListeners;
+        synchronized (this) {
+            this.reloaders.add(reloader);
+            localListeners = new ArrayList<>(this.listeners);
+        }
+        for (final Consumer<CertificateReloader> listener : localListeners) {
+            listener.accept(reloader);
+        }
+        return reloader;
+    }
+
+    /**
+     * Gets the shared reloader for the given certificate set or creates and registers a new one. Every call has to be
+     * paired with a call to {@link #release(CertificateReloader)}.
+     *
+     * @param key The key identifying the certificate set, e.g. the list of the watched files.
+     * @param factory The factory used to create the reloader, if there is none for the certificate set yet.
+     * @return The shared reloader.
+     */
+    public CertificateReloader acquire(final Object key, final Supplier<CertificateReloader> factory) {
+        requireNonNull(key, "key");
+        requireNonNull(factory, "factory");
+        final CertificateReloader reloader;
+        synchronized (this) {
+            final SharedReloader existing = this.sharedReloaders.get(key);
+            if (existing != null) {
+                existing.references++;
+                return existing.reloader;
+            }
+            reloader = requireNonNull(factory.get(), "reloader");
+            this.sharedReloaders.put(key, new SharedReloader(reloader));
+        }
+        return register(reloader);
+    }
+
+    /**
+     * Releases the given reloader. Shared reloaders are only closed, once all users have released them.
+     *
+     * @param reloader The reloader to release.
+     */
+    public void release(final CertificateReloader reloader) {
+        requireNonNull(reloader, "reloader");
+        synchronized (this) {
+            final Iterator<Entry<Object, SharedReloader>> it = this.sharedReloaders.entrySet().iterator();
+            while (it.hasNext()) {
+                final SharedReloader shared = it.next().getValue();
+                if (shared.reloader == reloader) {
+                    if (--shared.references > 0) {
+                        return;
+                    }
+                    it.remove();
+                    break;
+                }
+            }
+            this.reloaders.remove(reloader);
+        }
+        close(reloader);
+    }
+
+    /**
+     * Adds a listener that will be notified about all registered reloaders, including those that have been registered
+     * in the past.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(final Consumer<CertificateReloader> listener) {
+        requireNonNull(listener, "listener");
+        final List<CertificateReloader> localReloaders;
+        synchronized (this) {
+            this.listeners.add(listener);
+            localReloaders = new ArrayList<>(this.reloaders);
+        }
+        for (final CertificateReloader reloader : localReloaders) {
+            listener.accept(reloader);
+        }
+    }
+
+    /**
+     * Gets all registered reloaders.
+     *
+     * @return The registered reloaders.
+     */
+    public synchronized List<CertificateReloader> getReloaders() {
+        return new ArrayList<>(this.reloaders);
+    }
+
+    @Override
+    public void close() {
+        for (final CertificateReloader reloader : getReloaders()) {
+            close(reloader);
+        }
+    }
+
+    private static void close(final CertificateReloader reloader) {
+        try {
+            reloader.close();
+        } catch (final IOException e) {
+            log.warn("Failed to close certificate reloader '{}'", reloader.getName(), e);
+        }
+    }
+
+    /**
+     * A reloader and the number of its users.
+     */
+    private static final class SharedReloader {
+
+        private final CertificateReloader reloader;
+        private int references = 1;
+
+        SharedReloader(final CertificateReloader reloader) {
+            this.reloader = reloader;
+        }
+
+    }
+
+}
@@ -20,16 +20,23 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
 import java.security.UnrecoverableKeyException;
+import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.List;
 import java.util.Map;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.TrustManagerFactory;
 
+import org.springframework.boot.ssl.pem.PemContent;
 import org.springframework.core.io.Resource;
 
 import com.google.common.collect.ImmutableMap;
@@ -49,6 +56,12 @@ public final class KeyStoreUtils {
      * The fallback keystore format to use.
      */
     public static final String FORMAT_FALLBACK = KeyStore.getDefaultType();
+    /**
+     * The alias of the key entry in key stores created from PEM files.
+     *
+     * @see #loadPemKeyStore(Resource, Resource, String)
+     */
+    public static final String PEM_KEY_ALIAS = "key";
     private static final Map<String, String> FORMAT_MAPPING = ImmutableMap.<String, String>builder()
             .put("jks", "JKS")
             .put("p12", "PKCS12")
@@ -137,6 +150,89 @@ public static TrustManagerFactory loadTrustManagerFactory(
         return trustManagerFactory;
     }
 
+    /**
+     * Loads a {@link KeyStore} from the given PEM encoded certificate chain and private key. The key entry is protected
+     * using the given password. The private key is parsed by Spring Boot's {@link PemContent}, which supports PKCS#8
+     * (optionally encrypted), PKCS#1 RSA and SEC 1 EC keys.
+     *
+     * @param certificateChain The resource containing the PEM encoded certificate chain.
+     * @param privateKey The resource containing the PEM encoded private key.
+     * @param privateKeyPassword The password for the private key. May be empty or null.
+     * @return The newly created KeyStore.
+     * @throws IOException If the resources could not be read.
+     * @throws GeneralSecurityException If the certificates or the private key could not be loaded.
+     */
+    public static KeyStore loadPemKeyStore(
+            final Resource certificateChain,
+            final Resource privateKey,
+            final String privateKeyPassword)
+            throws IOException, GeneralSecurityException {
+
+        requireNonNull(certificateChain, "certificateChain");
+        requireNonNull(privateKey, "privateKey");
+        final Certificate[] certificates = readCertificates(certificateChain).toArray(new Certificate[0]);
+        final KeyStore ks = KeyStore.getInstance(FORMAT_FALLBACK);
+        ks.load(null, null);
+        ks.setKeyEntry(PEM_KEY_ALIAS, readPrivateKey(privateKey, privateKeyPassword),
+                keystorePassword(privateKeyPassword), certificates);
+        return ks;
+    }
+
+    /**
+     * Loads a trust {@link KeyStore} from the given PEM encoded certificate collection.
+     *
+     * @param trustCertCollection The resource containing the PEM encoded trusted certificates.
+     * @return The newly created KeyStore.
+     * @throws IOException If the resource could not be read.
+     * @throws GeneralSecurityException If the certificates could not be loaded.
+     */
+    public static KeyStore loadPemTrustStore(final Resource trustCertCollection)
+            throws IOException, GeneralSecurityException {
+
+        requireNonNull(trustCertCollection, "trustCertCollection");
+        final KeyStore ks = KeyStore.getInstance(FORMAT_FALLBACK);
+        ks.load(null, null);
+        int index = 0;
+        for (final Certificate certificate : readCertificates(trustCertCollection)) {
+            ks.setCertificateEntry("cert-" + index++, certificate);
+        }
+        return ks;
+    }
+
+    private static List<X509Certificate> readCertificates(final Resource resource)
+            throws IOException, CertificateException {
+        final List<X509Certificate> certificates;
+        try {
+            certificates = readPem(resource).getCertificates();
+        } catch (final IllegalStateException e) {
+            throw new CertificateException("Failed to parse the certificates in " + resource.getDescription(), e);
+        }
+        if (certificates.isEmpty()) {
+            throw new CertificateException("No certificates found in " + resource.getDescription());
+        }
+        return certificates;
+    }
+
+    private static PrivateKey readPrivateKey(final Resource resource, final String password)
+            throws IOException, KeyStoreException {
+        final PrivateKey privateKey;
+        try {
+            privateKey = readPem(resource).getPrivateKey(password);
+        } catch (final IllegalStateException e) {
+            throw new KeyStoreException("Failed to parse the private key in " + resource.getDescription(), e);
+        }
+        if (privateKey == null) {
+            throw new KeyStoreException("No private key found in " + resource.getDescription());
+        }
+        return privateKey;
+    }
+
+    private static PemContent readPem(final Resource resource) throws IOException {
+        try (InputStream stream = resource.getInputStream()) {
+            return PemContent.of(new String(stream.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+    }
+
     /**
      * Loads the {@link KeyStore} from the given {@link Resource}.
      *
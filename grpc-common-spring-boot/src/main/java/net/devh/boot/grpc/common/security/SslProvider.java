@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.security;
+
+/**
+ * The implementations that can be used to perform TLS handshakes and encryption. Most of the time the OpenSSL based
+ * implementations are considerably faster, especially during the handshakes, but require {@code netty-tcnative}
+ * (included in {@code grpc-netty-shaded}).
+ */
+public enum SslProvider {
+
+    /**
+     * Use the JDK's TLS implementation.
+     */
+    JDK,
+
+    /**
+     * Use OpenSSL/BoringSSL via {@code netty-tcnative}. The native resources are released by finalizers.
+     */
+    OPENSSL,
+
+    /**
+     * Use OpenSSL/BoringSSL via {@code netty-tcnative}, but release the native resources using reference counting
+     * instead of finalizers. This reduces the GC pressure for high connection churn.
+     */
+    OPENSSL_REFCNT;
+
+}
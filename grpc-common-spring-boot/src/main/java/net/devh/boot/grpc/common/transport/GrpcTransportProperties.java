@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.transport;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * The properties for the netty transport and its event loop groups. These are shared by the gRPC server and all gRPC
+ * clients of the application.
+ */
+@Data
+@ConfigurationProperties("grpc.transport")
+@SuppressWarnings("javadoc")
+public class GrpcTransportProperties {
+
+    /**
+     * The transport that should be used for TCP connections. Defaults to {@link TransportType#AUTO AUTO}.
+     *
+     * @param type The transport that should be used.
+     * @return AUTO, NIO, EPOLL or IO_URING.
+     */
+    private TransportType type = TransportType.AUTO;
+
+    /**
+     * The number of threads that accept new connections. Only used by the server. Defaults to {@code 1}.
+     *
+     * @param bossThreads The number of boss threads.
+     * @return The number of boss threads.
+     */
+    private int bossThreads = 1;
+
+    /**
+     * The number of threads that handle the I/O of the connections. If set to {@code 0}, netty's default (twice the
+     * number of available processors) will be used. Defaults to {@code 0}.
+     *
+     * @param workerThreads The number of worker threads.
+     * @return The number of worker threads.
+     */
+    private int workerThreads = 0;
+
+    /**
+     * The number of sockets the server should use to accept new connections. Values greater than {@code 1} require
+     * {@code SO_REUSEPORT} and thus the {@link TransportType#EPOLL EPOLL} or {@link TransportType#IO_URING IO_URING}
+     * transport. The {@link #bossThreads} should be at least as high as this value. Defaults to {@code 1}.
+     *
+     * @param acceptors The number of sockets accepting new connections.
+     * @return The number of sockets accepting new connections.
+     */
+    private int acceptors = 1;
+
+}
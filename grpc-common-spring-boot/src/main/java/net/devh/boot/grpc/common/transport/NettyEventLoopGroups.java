@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.transport;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.SocketAddress;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.util.ClassUtils;
+
+import io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.NettyServerBuilder;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The netty event loop groups that are shared by the netty based gRPC server and all netty based gRPC clients.
+ *
+ * <p>
+ * This class owns the event loop groups and thus needs to be {@link #close() closed} after usage.
+ * </p>
+ */
+// Keep this file in sync with ShadedNettyEventLoopGroups
+@Slf4j
+public class NettyEventLoopGroups implements AutoCloseable {
+
+    private static final String EPOLL_CLASS = "io.netty.channel.epoll.Epoll";
+    private static final String IO_URING_PACKAGE = "io.netty.incubator.channel.uring.";
+
+    private final TransportType type;
+    private final int workerThreads;
+    private final int acceptors;
+    private final EventLoopGroup bossGroup;
+    private final EventLoopGroup workerGroup;
+    private final Class<? extends ServerChannel> serverChannelType;
+    private final Class<? extends Channel> channelType;
+    private final ChannelOption<Boolean> reusePortOption;
+    // Guarded by this
+    private EventLoopGroup domainSocketGroup;
+
+    /**
+     * Creates the event loop groups based on the given properties.
+     *
+     * @param properties The properties used to configure the event loop groups.
+     * @throws IllegalStateException If the configured transport is not available.
+     */
+    public NettyEventLoopGroups(final GrpcTransportProperties properties) {
+        requireNonNull(properties, "properties");
+        this.type = resolveType(properties.getType());
+        this.workerThreads = properties.getWorkerThreads();
+        this.acceptors = properties.getAcceptors();
+        final int bossThreads = Math.max(properties.getBossThreads(), this.acceptors);
+        switch (this.type) {
+            case NIO:
+                this.bossGroup = new NioEventLoopGroup(bossThreads, newThreadFactory("grpc-nio-boss"));
+                this.workerGroup = new NioEventLoopGroup(this.workerThreads, newThreadFactory("grpc-nio-worker"));
+                this.serverChannelType = NioServerSocketChannel.class;
+                this.channelType = NioSocketChannel.class;
+                this.reusePortOption = null;
+                break;
+            case EPOLL:
+                Epoll.ensureAvailability();
+                this.bossGroup = new EpollEventLoopGroup(bossThreads, newThreadFactory("grpc-epoll-boss"));
+                this.workerGroup =
+                        new EpollEventLoopGroup(this.workerThreads, newThreadFactory("grpc-epoll-worker"));
+                this.serverChannelType = EpollServerSocketChannel.class;
+                this.channelType = EpollSocketChannel.class;
+                this.reusePortOption = EpollChannelOption.SO_REUSEPORT;
+                break;
+            case IO_URING:
+                invokeIoUring("IOUring", "ensureAvailability");
+                this.bossGroup = newIoUringEventLoopGroup(bossThreads, "grpc-io-uring-boss");
+                this.workerGroup = newIoUringEventLoopGroup(this.workerThreads, "grpc-io-uring-worker");
+                this.serverChannelType = loadIoUringClass("IOUringServerSocketChannel").asSubclass(ServerChannel.class);
+                this.channelType = loadIoUringClass("IOUringSocketChannel").asSubclass(Channel.class);
+                this.reusePortOption = loadIoUringReusePortOption();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported TransportType: " + this.type);
+        }
+        if (this.acceptors > 1 && this.reusePortOption == null) {
+            throw new IllegalStateException("Multiple acceptors require SO_REUSEPORT, which isn't supported by the "
+                    + this.type + " transport");
+        }
+        log.info("Using {} transport for gRPC (boss threads: {}, worker threads: {}, acceptors: {})",
+                this.type, bossThreads, this.workerThreads == 0 ? "default" : this.workerThreads, this.acceptors);
+    }
+
+    private static TransportType resolveType(final TransportType type) {
+        if (type == TransportType.AUTO) {
+            return ClassUtils.isPresent(EPOLL_CLASS, null) && Epoll.isAvailable() ? TransportType.EPOLL
+                    : TransportType.NIO;
+        }
+        return type;
+    }
+
+    private static ThreadFactory newThreadFactory(final String name) {
+        return new DefaultThreadFactory(name, true);
+    }
+
+    private static Class<?> loadIoUringClass(final String name) {
+        try {
+            return ClassUtils.forName(IO_URING_PACKAGE + name, null);
+        } catch (final ClassNotFoundException | LinkageError e) {
+            throw new IllegalStateException(
+                    "The io_uring transport requires netty-incubator-transport-native-io_uring", e);
+        }
+    }
+
+    private static Object invokeIoUring(final String className, final String method) {
+        try {
+            return loadIoUringClass(className).getMethod(method).invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("The io_uring transport is not available", e);
+        }
+    }
+
+    private static EventLoopGroup newIoUringEventLoopGroup(final int threads, final String name) {
+        try {
+            return (EventLoopGroup) loadIoUringClass("IOUringEventLoopGroup")
+                    .getConstructor(int.class, ThreadFactory.class)
+                    .newInstance(threads, newThreadFactory(name));
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create io_uring event loop group", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChannelOption<Boolean> loadIoUringReusePortOption() {
+        try {
+            return (ChannelOption<Boolean>) loadIoUringClass("IOUringChannelOption").getField("SO_REUSEPORT").get(null);
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to load io_uring SO_REUSEPORT option", e);
+        }
+    }
+
+    /**
+     * Gets the transport that is actually used for TCP connections.
+     *
+     * @return The resolved transport type. Never {@link TransportType#AUTO AUTO}.
+     */
+    public TransportType getType() {
+        return this.type;
+    }
+
+    /**
+     * Gets the event loop group that accepts new connections.
+     *
+     * @return The boss event loop group.
+     */
+    public EventLoopGroup getBossGroup() {
+        return this.bossGroup;
+    }
+
+    /**
+     * Gets the event loop group that handles the I/O of the connections.
+     *
+     * @return The worker event loop group.
+     */
+    public EventLoopGroup getWorkerGroup() {
+        return this.workerGroup;
+    }
+
+    /**
+     * Gets the event loop group for domain socket connections. Domain sockets always require epoll, so this is the
+     * {@link #getWorkerGroup() worker group} for the {@link TransportType#EPOLL EPOLL} transport and a lazily created
+     * shared epoll event loop group otherwise.
+     *
+     * @return The domain socket event loop group.
+     */
+    public synchronized EventLoopGroup getDomainSocketGroup() {
+        if (this.type == TransportType.EPOLL) {
+            return this.workerGroup;
+        }
+        if (this.domainSocketGroup == null) {
+            this.domainSocketGroup = new EpollEventLoopGroup(this.workerThreads, newThreadFactory("grpc-epoll-uds"));
+        }
+        return this.domainSocketGroup;
+    }
+
+    /**
+     * Configures the given server builder to use the shared event loop groups for the given TCP address. If multiple
+     * acceptors are configured, then the address will be bound multiple times using {@code SO_REUSEPORT}.
+     *
+     * @param builder The server builder to configure.
+     * @param address The address the server will listen on.
+     */
+    public void configureServer(final NettyServerBuilder builder, final SocketAddress address) {
+        builder.channelType(this.serverChannelType)
+                .bossEventLoopGroup(this.bossGroup)
+                .workerEventLoopGroup(this.workerGroup);
+        if (this.acceptors > 1) {
+            builder.withOption(this.reusePortOption, true);
+            for (int i = 1; i < this.acceptors; i++) {
+                builder.addListenAddress(address);
+            }
+        }
+    }
+
+    /**
+     * Configures the given server builder to use the shared event loop group for domain sockets.
+     *
+     * @param builder The server builder to configure.
+     */
+    public void configureDomainSocketServer(final NettyServerBuilder builder) {
+        final EventLoopGroup group = getDomainSocketGroup();
+        builder.channelType(EpollServerDomainSocketChannel.class)
+                .bossEventLoopGroup(group)
+                .workerEventLoopGroup(group);
+    }
+
+    /**
+     * Configures the given channel builder to use the shared event loop group for TCP connections.
+     *
+     * @param builder The channel builder to configure.
+     */
+    public void configureClient(final NettyChannelBuilder builder) {
+        builder.channelType(this.channelType)
+                .eventLoopGroup(this.workerGroup);
+    }
+
+    /**
+     * Configures the given channel builder to use the shared event loop group for domain sockets.
+     *
+     * @param builder The channel builder to configure.
+     */
+    public void configureDomainSocketClient(final NettyChannelBuilder builder) {
+        builder.channelType(EpollDomainSocketChannel.class)
+                .eventLoopGroup(getDomainSocketGroup());
+    }
+
+    /**
+     * Shuts down the event loop groups. This should only be called after all servers and channels using them have
+     * been shut down.
+     */
+    @Override
+    public synchronized void close() {
+        this.bossGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        this.workerGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        if (this.domainSocketGroup != null) {
+            this.domainSocketGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.common.transport;
+
+/**
+ * Enum to specify the netty transport that should be used for TCP connections.
+ */
+public enum TransportType {
+    /**
+     * Uses {@link #EPOLL} if it is available and falls back to {@link #NIO} otherwise.
+     */
+    AUTO,
+    /**
+     * Uses the portable java NIO transport.
+     */
+    NIO,
+    /**
+     * Uses the native epoll transport. Only available on linux.
+     */
+    EPOLL,
+    /**
+     * Uses the native io_uring transport. Only available on recent linux kernels and requires {@code grpc-netty} and
+     * {@code netty-incubator-transport-native-io_uring}.
+     */
+    IO_URING
+}
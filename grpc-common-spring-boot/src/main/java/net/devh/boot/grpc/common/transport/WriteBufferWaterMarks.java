@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package net.devh.boot.grpc.common.transport;
+
+import java.util.function.BiFunction;
+
+import javax.annotation.Nullable;
+
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Utility class that resolves the configured write buffer water marks of the netty based servers and channels. It is
+ * independent of the netty flavor, so that the shaded and non-shaded factories share the same validation.
+ */
+public final class WriteBufferWaterMarks {
+
+    /**
+     * Resolves the write buffer water marks from the given configuration. Netty requires the low water mark to not
+     * exceed the high water mark, so a missing bound is derived from the configured one, if netty's default would
+     * conflict with it.
+     *
+     * @param <T> The type of the water marks.
+     * @param prefix The prefix of the properties, used in the error message, e.g. {@code grpc.server}.
+     * @param lowWaterMark The configured low water mark or null to use the default.
+     * @param highWaterMark The configured high water mark or null to use the default.
+     * @param defaultLow The default low water mark of netty.
+     * @param defaultHigh The default high water mark of netty.
+     * @param factory The factory used to create the water marks from the low and high water mark.
+     * @return The newly created water marks or null, if neither water mark is configured.
+     * @throws IllegalArgumentException If the configured low water mark exceeds the configured high water mark.
+     */
+    @Nullable
+    public static <T> T resolve(final String prefix, @Nullable final DataSize lowWaterMark,
+            @Nullable final DataSize highWaterMark, final int defaultLow, final int defaultHigh,
+            final BiFunction<Integer, Integer, T> factory) {
+        if (lowWaterMark == null && highWaterMark == null) {
+            return null;
+        }
+        final int low;
+        final int high;
+        if (lowWaterMark == null) {
+            high = toBytes(highWaterMark);
+            low = Math.min(defaultLow, high);
+        } else if (highWaterMark == null) {
+            low = toBytes(lowWaterMark);
+            high = Math.max(defaultHigh, low);
+        } else {
+            low = toBytes(lowWaterMark);
+            high = toBytes(highWaterMark);
+            if (low > high) {
+                throw new IllegalArgumentException(prefix + ".write-buffer-low-water-mark (" + lowWaterMark
+                        + ") must not exceed " + prefix + ".write-buffer-high-water-mark (" + highWaterMark + ")");
+            }
+        }
+        return factory.apply(low, high);
+    }
+
+    private static int toBytes(final DataSize size) {
+        return (int) Math.min(Integer.MAX_VALUE, size.toBytes());
+    }
+
+    private WriteBufferWaterMarks() {}
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Classes related to the netty transport shared by both the server and the client.
+ */
+
+package net.devh.boot.grpc.common.transport;
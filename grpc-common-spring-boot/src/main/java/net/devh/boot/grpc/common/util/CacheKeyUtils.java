@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package net.devh.boot.grpc.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.MessageLite;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * Utility class that contains the methods shared by the server and client side response caches and request coalescers
+ * to build the keys of their entries.
+ */
+public final class CacheKeyUtils {
+
+    /**
+     * Serializes the given request, so that equal requests result in equal keys.
+     *
+     * @param <ReqT> The type of the request.
+     * @param method The method used to serialize the request.
+     * @param request The request to serialize.
+     * @return The serialized request.
+     * @throws io.grpc.StatusRuntimeException If the request could not be serialized.
+     */
+    public static <ReqT> ByteString serialize(final MethodDescriptor<ReqT, ?> method, final ReqT request) {
+        if (request instanceof MessageLite) {
+            return ((MessageLite) request).toByteString();
+        }
+        try (InputStream stream = method.streamRequest(request)) {
+            return ByteString.readFrom(stream);
+        } catch (final IOException e) {
+            throw Status.INTERNAL.withDescription("Failed to serialize request").withCause(e).asRuntimeException();
+        }
+    }
+
+    /**
+     * Converts the given header names to ASCII header keys.
+     *
+     * @param names The names of the headers.
+     * @return The unmodifiable list of header keys.
+     */
+    public static List<Metadata.Key<String>> toHeaderKeys(final List<String> names) {
+        final List<Metadata.Key<String>> keys = new ArrayList<>(names.size());
+        for (final String name : names) {
+            keys.add(Metadata.Key.of(name, Metadata.ASCII_STRING_MARSHALLER));
+        }
+        return Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * Gets the values of the given headers. Missing headers are represented by null.
+     *
+     * @param keys The keys of the headers.
+     * @param headers The headers to get the values from.
+     * @return The values of the headers in the same order as the keys.
+     */
+    public static List<String> getHeaderValues(final List<Metadata.Key<String>> keys, final Metadata headers) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<String> values = new ArrayList<>(keys.size());
+        for (final Metadata.Key<String> key : keys) {
+            values.add(headers.get(key));
+        }
+        return values;
+    }
+
+    private CacheKeyUtils() {}
+
+}
@@ -35,6 +35,16 @@ public final class GrpcUtils {
      */
     public static final String DOMAIN_SOCKET_ADDRESS_PREFIX = DOMAIN_SOCKET_ADDRESS_SCHEME + ":";
 
+    /**
+     * A constant that defines, the scheme of an in-process address.
+     */
+    public static final String IN_PROCESS_ADDRESS_SCHEME = "in-process";
+
+    /**
+     * A constant that defines, the scheme prefix of an in-process address.
+     */
+    public static final String IN_PROCESS_ADDRESS_PREFIX = IN_PROCESS_ADDRESS_SCHEME + ":";
+
     /**
      * The cloud discovery metadata key used to identify the grpc port.
      */
@@ -45,6 +55,11 @@ public final class GrpcUtils {
      */
     public static final String CLOUD_DISCOVERY_METADATA_SERVICE_CONFIG = "gRPC_service_config";
 
+    /**
+     * The cloud discovery metadata key used to identify the zone of an instance.
+     */
+    public static final String CLOUD_DISCOVERY_METADATA_ZONE = "zone";
+
     /**
      * The constant for the grpc server port, -1 represents don't start an inter process server.
      */
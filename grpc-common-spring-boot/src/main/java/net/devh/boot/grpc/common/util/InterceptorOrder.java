@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,6 +31,12 @@
  * A utility class with constants that can be used to configure the order of interceptors.
  *
  * <p>
+ * The constants are listed in the order in which the interceptors are executed. The load shedding interceptors are
+ * executed before anything else (except the request scope), so that rejected calls are as cheap as possible. The
+ * inbound memory budget comes first, so that calls rejected because of it never take a concurrency slot.
+ * </p>
+ *
+ * <p>
  * <b>Note:</b> The order constants provided by this class are just a suggestion to simplify the interoperability of
  * multiple libraries and may be overridden. This library will use them for their own interceptors though.
  * </p>
@@ -42,6 +48,15 @@ public final class InterceptorOrder {
      * {@link Ordered#HIGHEST_PRECEDENCE}.
      */
     public static final int ORDER_FIRST = Ordered.HIGHEST_PRECEDENCE;
+    /**
+     * The order value for interceptors that limit the memory used by inbound messages.
+     */
+    public static final int ORDER_MEMORY_LIMITING = -2000;
+    /**
+     * The order value for interceptors that limit the number of concurrent calls. These are executed after the memory
+     * limits, so that calls rejected because of the memory usage neither take a slot nor count as a latency sample.
+     */
+    public static final int ORDER_CONCURRENCY_LIMITING = -1000;
     /**
      * The order value for global exception handling interceptors.
      */
@@ -62,6 +77,21 @@ public final class InterceptorOrder {
      * The order value for security interceptors related to authorization checks.
      */
     public static final int ORDER_SECURITY_AUTHORISATION = 5200;
+    /**
+     * The order value for rate limiting interceptors. These are executed after the authentication, so that they can
+     * limit each principal individually.
+     */
+    public static final int ORDER_RATE_LIMITING = 5300;
+    /**
+     * The order value for response caching interceptors. These are executed after the authorization checks and rate
+     * limits, so that only permitted calls are served from the cache.
+     */
+    public static final int ORDER_RESPONSE_CACHE = 5400;
+    /**
+     * The order value for request coalescing interceptors. These are executed after the response cache, so that only
+     * cache misses are coalesced.
+     */
+    public static final int ORDER_REQUEST_COALESCING = 5500;
     /**
      * The order value for interceptors that should be executed last. This is equivalent to
      * {@link Ordered#LOWEST_PRECEDENCE}. This is the default for interceptors without specified priority.
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.autoconfigure;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.serviceregistry.AbstractAutoServiceRegistration;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent.Phase;
+
+/**
+ * Configuration class that deregisters the application from the discovery service, once the grpc server starts to
+ * drain. This way the clients stop sending new calls to this instance, before the server stops accepting them.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(AbstractAutoServiceRegistration.class)
+@ConditionalOnProperty(prefix = "grpc.server.drain", name = "deregistration-enabled", matchIfMissing = true)
+public class GrpcDiscoveryDrainConfiguration {
+
+    @Bean
+    DeregistrationDrainListener grpcDeregistrationDrainListener(
+            final ObjectProvider<AbstractAutoServiceRegistration<?>> registrations) {
+        return new DeregistrationDrainListener(registrations);
+    }
+
+    /**
+     * Stops the automatic service registrations during the {@link Phase#DEREGISTER DEREGISTER} phase.
+     */
+    static class DeregistrationDrainListener implements ApplicationListener<GrpcServerDrainEvent> {
+
+        private final ObjectProvider<AbstractAutoServiceRegistration<?>> registrations;
+
+        DeregistrationDrainListener(final ObjectProvider<AbstractAutoServiceRegistration<?>> registrations) {
+            this.registrations = registrations;
+        }
+
+        @Override
+        public void onApplicationEvent(final GrpcServerDrainEvent event) {
+            if (event.getPhase() == Phase.DEREGISTER) {
+                this.registrations.forEach(registration -> {
+                    log.debug("Deregistering from discovery service: {}", registration);
+                    registration.stop();
+                });
+            }
+        }
+
+    }
+
+}
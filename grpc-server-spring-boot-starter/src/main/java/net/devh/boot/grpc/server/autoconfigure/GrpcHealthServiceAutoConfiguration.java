@@ -29,6 +29,7 @@
 import io.grpc.BindableService;
 import io.grpc.protobuf.services.HealthStatusManager;
 import net.devh.boot.grpc.server.health.ActuatorGrpcHealth;
+import net.devh.boot.grpc.server.health.HealthStatusDrainListener;
 import net.devh.boot.grpc.server.service.GrpcService;
 
 /**
@@ -64,6 +65,19 @@ BindableService grpcHealthService(final HealthStatusManager healthStatusManager)
         return healthStatusManager.getHealthService();
     }
 
+    /**
+     * Creates a listener that sets the health status to {@code NOT_SERVING}, once the server starts to drain.
+     *
+     * @param healthStatusManager The health status manager to update.
+     * @return The newly created bean.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "grpc.server", name = "health-service.type", havingValue = "GRPC",
+            matchIfMissing = true)
+    HealthStatusDrainListener grpcHealthStatusDrainListener(final HealthStatusManager healthStatusManager) {
+        return new HealthStatusDrainListener(healthStatusManager);
+    }
+
     @Bean
     @GrpcService
     @ConditionalOnProperty(prefix = "grpc.server", name = "health-service.type", havingValue = "ACTUATOR")
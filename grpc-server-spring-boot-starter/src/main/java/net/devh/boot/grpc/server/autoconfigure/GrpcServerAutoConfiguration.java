@@ -16,27 +16,49 @@
 
 package net.devh.boot.grpc.server.autoconfigure;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.context.LifecycleProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
 
 import io.grpc.CompressorRegistry;
 import io.grpc.DecompressorRegistry;
 import io.grpc.Server;
 import net.devh.boot.grpc.common.autoconfigure.GrpcCommonCodecAutoConfiguration;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.cache.CoalescingServerInterceptor;
+import net.devh.boot.grpc.server.condition.ConditionalOnServerExecutor;
 import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.config.WarmUpOptions;
+import net.devh.boot.grpc.server.executor.GrpcExecutors;
+import net.devh.boot.grpc.server.executor.GrpcServiceExecutorRegistry;
+import net.devh.boot.grpc.server.executor.InstrumentedExecutor;
 import net.devh.boot.grpc.server.interceptor.AnnotationGlobalServerInterceptorConfigurer;
 import net.devh.boot.grpc.server.interceptor.GlobalServerInterceptorRegistry;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+import net.devh.boot.grpc.server.limit.ConcurrencyLimitingServerInterceptor;
+import net.devh.boot.grpc.server.limit.InboundMemoryLimitingServerInterceptor;
+import net.devh.boot.grpc.server.limit.RateLimitingServerInterceptor;
 import net.devh.boot.grpc.server.nameresolver.SelfNameResolverFactory;
 import net.devh.boot.grpc.server.scope.GrpcRequestScope;
 import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
@@ -44,6 +66,9 @@
 import net.devh.boot.grpc.server.serverfactory.GrpcServerLifecycle;
 import net.devh.boot.grpc.server.service.AnnotationGrpcServiceDiscoverer;
 import net.devh.boot.grpc.server.service.GrpcServiceDiscoverer;
+import net.devh.boot.grpc.server.warmup.GrpcServerWarmUp;
+import net.devh.boot.grpc.server.warmup.PropertiesWarmUpRequestSupplier;
+import net.devh.boot.grpc.server.warmup.WarmUpRequestSupplier;
 
 /**
  * The auto configuration used by Spring-Boot that contains all beans to run a grpc server/service.
@@ -106,6 +131,140 @@ public GrpcServiceDiscoverer defaultGrpcServiceDiscoverer() {
         return new AnnotationGrpcServiceDiscoverer();
     }
 
+    /**
+     * Creates the executor that will be used to execute the gRPC calls, if the configured
+     * {@link GrpcServerProperties#getExecutor() executor type} requires one.
+     *
+     * @param properties The properties used to configure the executor.
+     * @param environment The environment used to check whether virtual threads are enabled.
+     * @return The newly created executor bean.
+     */
+    @ConditionalOnMissingBean(name = "grpcServerExecutor")
+    @Conditional(ConditionalOnServerExecutor.class)
+    @Bean
+    public InstrumentedExecutor grpcServerExecutor(final GrpcServerProperties properties,
+            final Environment environment) {
+        return GrpcExecutors.newExecutor("grpc-server", properties.getExecutor(),
+                Threading.VIRTUAL.isActive(environment));
+    }
+
+    /**
+     * Creates the registry for the dedicated executors that can be referenced by individual services.
+     *
+     * @param applicationContext The application context to fetch the executor beans from.
+     * @param properties The properties used to configure the named executors.
+     * @param environment The environment used to check whether virtual threads are enabled.
+     * @return The newly created executor registry bean.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public GrpcServiceExecutorRegistry grpcServiceExecutorRegistry(final ApplicationContext applicationContext,
+            final GrpcServerProperties properties, final Environment environment) {
+        return new GrpcServiceExecutorRegistry(applicationContext, properties.getExecutors(),
+                Threading.VIRTUAL.isActive(environment));
+    }
+
+    /**
+     * Creates the interceptor that limits the number of concurrent calls based on the observed latency.
+     *
+     * @param properties The properties used to configure the limiters.
+     * @return The newly created interceptor.
+     */
+    @ConditionalOnProperty(prefix = "grpc.server.concurrency-limit", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_CONCURRENCY_LIMITING)
+    public ConcurrencyLimitingServerInterceptor concurrencyLimitingServerInterceptor(
+            final GrpcServerProperties properties) {
+        return new ConcurrencyLimitingServerInterceptor(properties.getConcurrencyLimit());
+    }
+
+    /**
+     * Creates the interceptor that enforces the configured rate limits.
+     *
+     * @param properties The properties used to configure the limiters.
+     * @param principalResolver The resolver used to determine the principal for per principal limits.
+     * @return The newly created interceptor.
+     */
+    @ConditionalOnProperty(prefix = "grpc.server.rate-limits", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_RATE_LIMITING)
+    public RateLimitingServerInterceptor rateLimitingServerInterceptor(final GrpcServerProperties properties,
+            final ObjectProvider<PrincipalResolver> principalResolver) {
+        return new RateLimitingServerInterceptor(properties.getRateLimits(),
+                principalResolver.getIfAvailable(() -> PrincipalResolver.ANONYMOUS));
+    }
+
+    /**
+     * Creates the interceptor that coalesces identical concurrent calls.
+     *
+     * @param properties The properties used to configure the coalescers.
+     * @param principalResolver The resolver used to determine the principal of per principal coalescers.
+     * @param executor The executor of the server, used to invoke the service if a coalesced call has been cancelled.
+     * @return The newly created interceptor.
+     */
+    @ConditionalOnProperty(prefix = "grpc.server.coalescing", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_REQUEST_COALESCING)
+    public CoalescingServerInterceptor coalescingServerInterceptor(final GrpcServerProperties properties,
+            final ObjectProvider<PrincipalResolver> principalResolver,
+            @Qualifier("grpcServerExecutor") final ObjectProvider<Executor> executor) {
+        return new CoalescingServerInterceptor(properties.getCoalescing(),
+                principalResolver.getIfAvailable(() -> PrincipalResolver.ANONYMOUS),
+                executor.getIfAvailable());
+    }
+
+    /**
+     * Creates the interceptor that enforces the inbound memory budgets.
+     *
+     * @param properties The properties used to configure the budgets.
+     * @return The newly created interceptor.
+     */
+    @ConditionalOnProperty(prefix = "grpc.server.inbound-memory-budget", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_MEMORY_LIMITING)
+    public InboundMemoryLimitingServerInterceptor inboundMemoryLimitingServerInterceptor(
+            final GrpcServerProperties properties) {
+        return new InboundMemoryLimitingServerInterceptor(properties.getInboundMemoryBudget());
+    }
+
+    /**
+     * Registers the stream tracer that tracks the inbound bytes for the inbound memory budgets.
+     *
+     * @param interceptor The interceptor that enforces the budgets.
+     * @return The newly created server configurer.
+     */
+    @ConditionalOnProperty(prefix = "grpc.server.inbound-memory-budget", name = "enabled", havingValue = "true")
+    @Bean
+    public GrpcServerConfigurer inboundMemoryBudgetServerConfigurer(
+            final InboundMemoryLimitingServerInterceptor interceptor) {
+        return builder -> builder.addStreamTracerFactory(interceptor.getStreamTracerFactory());
+    }
+
+    /**
+     * Creates the warm-up that replays the sample requests against the services, before the server starts.
+     *
+     * @param properties The properties used to configure the warm-up.
+     * @param serviceDiscoverer The discoverer used to find the services to warm up.
+     * @param requestSuppliers The additional suppliers for the sample requests.
+     * @return The newly created warm-up bean.
+     */
+    @ConditionalOnProperty(prefix = "grpc.server.warm-up", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    @Bean
+    public GrpcServerWarmUp grpcServerWarmUp(final GrpcServerProperties properties,
+            final GrpcServiceDiscoverer serviceDiscoverer,
+            final ObjectProvider<WarmUpRequestSupplier> requestSuppliers) {
+        final WarmUpOptions options = properties.getWarmUp();
+        final List<WarmUpRequestSupplier> suppliers = new ArrayList<>();
+        suppliers.add(new PropertiesWarmUpRequestSupplier(options.getRequests()));
+        requestSuppliers.orderedStream().forEach(suppliers::add);
+        return new GrpcServerWarmUp(serviceDiscoverer, options, suppliers);
+    }
+
     @ConditionalOnBean(CompressorRegistry.class)
     @Bean
     public GrpcServerConfigurer compressionServerConfigurer(final CompressorRegistry registry) {
@@ -130,8 +289,12 @@ public List<GrpcServerConfigurer> defaultServerConfigurers() {
     public GrpcServerLifecycle grpcServerLifecycle(
             final GrpcServerFactory factory,
             final GrpcServerProperties properties,
-            final ApplicationEventPublisher eventPublisher) {
-        return new GrpcServerLifecycle(factory, properties.getShutdownGracePeriod(), eventPublisher);
+            final ApplicationEventPublisher eventPublisher,
+            final ObjectProvider<LifecycleProperties> lifecycleProperties) {
+        final GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(Collections.singletonList(factory),
+                properties.getShutdownGracePeriod(), properties.getDrain().getPropagationDelay(), eventPublisher);
+        lifecycle.setShutdownPhaseTimeout(GrpcServerFactoryAutoConfiguration.shutdownPhaseTimeout(lifecycleProperties));
+        return lifecycle;
     }
 
 }
@@ -16,21 +16,37 @@
 
 package net.devh.boot.grpc.server.autoconfigure;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.context.LifecycleProperties;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
 
 import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.security.CertificateReloaderRegistry;
+import net.devh.boot.grpc.common.transport.NettyEventLoopGroups;
+import net.devh.boot.grpc.common.transport.ShadedNettyEventLoopGroups;
+import net.devh.boot.grpc.common.util.GrpcUtils;
 import net.devh.boot.grpc.server.condition.ConditionalOnInterprocessServer;
 import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.config.ListenerOptions;
+import net.devh.boot.grpc.server.serverfactory.AbstractGrpcServerFactory;
 import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
 import net.devh.boot.grpc.server.serverfactory.GrpcServerFactory;
 import net.devh.boot.grpc.server.serverfactory.GrpcServerLifecycle;
@@ -59,6 +75,9 @@ public class GrpcServerFactoryAutoConfiguration {
      * @param properties The properties used to configure the server.
      * @param serviceDiscoverer The discoverer used to identify the services that should be served.
      * @param serverConfigurers The server configurers that contain additional configuration for the server.
+     * @param executor The executor used to execute the calls, if any.
+     * @param eventLoopGroups The shared event loop groups, if any.
+     * @param certificateReloaders The registry for the certificate reloaders, if any.
      * @return The shadedNettyGrpcServerFactory bean.
      */
     @ConditionalOnClass(name = {"io.grpc.netty.shaded.io.netty.channel.Channel",
@@ -68,10 +87,16 @@ public class GrpcServerFactoryAutoConfiguration {
     public ShadedNettyGrpcServerFactory shadedNettyGrpcServerFactory(
             final GrpcServerProperties properties,
             final GrpcServiceDiscoverer serviceDiscoverer,
-            final List<GrpcServerConfigurer> serverConfigurers) {
+            final List<GrpcServerConfigurer> serverConfigurers,
+            @Qualifier("grpcServerExecutor") final ObjectProvider<Executor> executor,
+            @Autowired(required = false) final ShadedNettyEventLoopGroups eventLoopGroups,
+            @Autowired(required = false) final CertificateReloaderRegistry certificateReloaders) {
 
         log.info("Detected grpc-netty-shaded: Creating ShadedNettyGrpcServerFactory");
         final ShadedNettyGrpcServerFactory factory = new ShadedNettyGrpcServerFactory(properties, serverConfigurers);
+        factory.setExecutor(executor.getIfAvailable());
+        factory.setEventLoopGroups(eventLoopGroups);
+        factory.setCertificateReloaderRegistry(certificateReloaders);
         for (final GrpcServiceDefinition service : serviceDiscoverer.findGrpcServices()) {
             factory.addService(service);
         }
@@ -79,11 +104,17 @@ public ShadedNettyGrpcServerFactory shadedNettyGrpcServerFactory(
     }
 
     /**
-     * The server lifecycle bean for a shaded netty based server.
+     * The server lifecycle bean for a shaded netty based server and its additional listeners.
      *
      * @param factory The factory used to create the lifecycle.
      * @param properties The server properties to use.
+     * @param serviceDiscoverer The discoverer used to identify the services that should be served by the listeners.
+     * @param serverConfigurers The server configurers that contain additional configuration for the listeners.
+     * @param executor The executor used to execute the calls, if any.
+     * @param eventLoopGroups The shared event loop groups, if any.
+     * @param certificateReloaders The registry for the certificate reloaders, if any.
      * @param eventPublisher The event publisher to use.
+     * @param lifecycleProperties The lifecycle properties, that limit the time spring waits for the drain.
      * @return The inter-process server lifecycle bean.
      */
     @ConditionalOnBean(ShadedNettyGrpcServerFactory.class)
@@ -91,9 +122,26 @@ public ShadedNettyGrpcServerFactory shadedNettyGrpcServerFactory(
     public GrpcServerLifecycle shadedNettyGrpcServerLifecycle(
             final ShadedNettyGrpcServerFactory factory,
             final GrpcServerProperties properties,
-            ApplicationEventPublisher eventPublisher) {
+            final GrpcServiceDiscoverer serviceDiscoverer,
+            final List<GrpcServerConfigurer> serverConfigurers,
+            @Qualifier("grpcServerExecutor") final ObjectProvider<Executor> executor,
+            @Autowired(required = false) final ShadedNettyEventLoopGroups eventLoopGroups,
+            @Autowired(required = false) final CertificateReloaderRegistry certificateReloaders,
+            ApplicationEventPublisher eventPublisher,
+            final ObjectProvider<LifecycleProperties> lifecycleProperties) {
 
-        return new GrpcServerLifecycle(factory, properties.getShutdownGracePeriod(), eventPublisher);
+        final List<GrpcServerFactory> factories = withListeners(factory, properties, serviceDiscoverer,
+                serverConfigurers, executor.getIfAvailable(), listenerProperties -> {
+                    final ShadedNettyGrpcServerFactory listenerFactory =
+                            new ShadedNettyGrpcServerFactory(listenerProperties, serverConfigurers);
+                    listenerFactory.setEventLoopGroups(eventLoopGroups);
+                    listenerFactory.setCertificateReloaderRegistry(certificateReloaders);
+                    return listenerFactory;
+                });
+        final GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(factories, properties.getShutdownGracePeriod(),
+                properties.getDrain().getPropagationDelay(), eventPublisher);
+        lifecycle.setShutdownPhaseTimeout(shutdownPhaseTimeout(lifecycleProperties));
+        return lifecycle;
     }
 
     // Then try the normal netty server
@@ -103,6 +151,9 @@ public GrpcServerLifecycle shadedNettyGrpcServerLifecycle(
      * @param properties The properties used to configure the server.
      * @param serviceDiscoverer The discoverer used to identify the services that should be served.
      * @param serverConfigurers The server configurers that contain additional configuration for the server.
+     * @param executor The executor used to execute the calls, if any.
+     * @param eventLoopGroups The shared event loop groups, if any.
+     * @param certificateReloaders The registry for the certificate reloaders, if any.
      * @return The shadedNettyGrpcServerFactory bean.
      */
     @ConditionalOnMissingBean(ShadedNettyGrpcServerFactory.class)
@@ -112,10 +163,16 @@ public GrpcServerLifecycle shadedNettyGrpcServerLifecycle(
     public NettyGrpcServerFactory nettyGrpcServerFactory(
             final GrpcServerProperties properties,
             final GrpcServiceDiscoverer serviceDiscoverer,
-            final List<GrpcServerConfigurer> serverConfigurers) {
+            final List<GrpcServerConfigurer> serverConfigurers,
+            @Qualifier("grpcServerExecutor") final ObjectProvider<Executor> executor,
+            @Autowired(required = false) final NettyEventLoopGroups eventLoopGroups,
+            @Autowired(required = false) final CertificateReloaderRegistry certificateReloaders) {
 
         log.info("Detected grpc-netty: Creating NettyGrpcServerFactory");
         final NettyGrpcServerFactory factory = new NettyGrpcServerFactory(properties, serverConfigurers);
+        factory.setExecutor(executor.getIfAvailable());
+        factory.setEventLoopGroups(eventLoopGroups);
+        factory.setCertificateReloaderRegistry(certificateReloaders);
         for (final GrpcServiceDefinition service : serviceDiscoverer.findGrpcServices()) {
             factory.addService(service);
         }
@@ -123,11 +180,17 @@ public NettyGrpcServerFactory nettyGrpcServerFactory(
     }
 
     /**
-     * The server lifecycle bean for netty based server.
+     * The server lifecycle bean for netty based server and its additional listeners.
      *
      * @param factory The factory used to create the lifecycle.
      * @param properties The server properties to use.
+     * @param serviceDiscoverer The discoverer used to identify the services that should be served by the listeners.
+     * @param serverConfigurers The server configurers that contain additional configuration for the listeners.
+     * @param executor The executor used to execute the calls, if any.
+     * @param eventLoopGroups The shared event loop groups, if any.
+     * @param certificateReloaders The registry for the certificate reloaders, if any.
      * @param eventPublisher The event publisher to use.
+     * @param lifecycleProperties The lifecycle properties, that limit the time spring waits for the drain.
      * @return The inter-process server lifecycle bean.
      */
     @ConditionalOnBean(NettyGrpcServerFactory.class)
@@ -135,9 +198,26 @@ public NettyGrpcServerFactory nettyGrpcServerFactory(
     public GrpcServerLifecycle nettyGrpcServerLifecycle(
             final NettyGrpcServerFactory factory,
             final GrpcServerProperties properties,
-            ApplicationEventPublisher eventPublisher) {
+            final GrpcServiceDiscoverer serviceDiscoverer,
+            final List<GrpcServerConfigurer> serverConfigurers,
+            @Qualifier("grpcServerExecutor") final ObjectProvider<Executor> executor,
+            @Autowired(required = false) final NettyEventLoopGroups eventLoopGroups,
+            @Autowired(required = false) final CertificateReloaderRegistry certificateReloaders,
+            ApplicationEventPublisher eventPublisher,
+            final ObjectProvider<LifecycleProperties> lifecycleProperties) {
 
-        return new GrpcServerLifecycle(factory, properties.getShutdownGracePeriod(), eventPublisher);
+        final List<GrpcServerFactory> factories = withListeners(factory, properties, serviceDiscoverer,
+                serverConfigurers, executor.getIfAvailable(), listenerProperties -> {
+                    final NettyGrpcServerFactory listenerFactory =
+                            new NettyGrpcServerFactory(listenerProperties, serverConfigurers);
+                    listenerFactory.setEventLoopGroups(eventLoopGroups);
+                    listenerFactory.setCertificateReloaderRegistry(certificateReloaders);
+                    return listenerFactory;
+                });
+        final GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(factories, properties.getShutdownGracePeriod(),
+                properties.getDrain().getPropagationDelay(), eventPublisher);
+        lifecycle.setShutdownPhaseTimeout(shutdownPhaseTimeout(lifecycleProperties));
+        return lifecycle;
     }
 
     /**
@@ -145,6 +225,8 @@ public GrpcServerLifecycle nettyGrpcServerLifecycle(
      *
      * @param properties The properties used to configure the server.
      * @param serviceDiscoverer The discoverer used to identify the services that should be served.
+     * @param serverConfigurers The server configurers that contain additional configuration for the server.
+     * @param executor The executor used to execute the calls, if any.
      * @return The shadedNettyGrpcServerFactory bean.
      */
     @ConditionalOnProperty(prefix = "grpc.server", name = "in-process-name")
@@ -152,10 +234,12 @@ public GrpcServerLifecycle nettyGrpcServerLifecycle(
     public InProcessGrpcServerFactory inProcessGrpcServerFactory(
             final GrpcServerProperties properties,
             final GrpcServiceDiscoverer serviceDiscoverer,
-            final List<GrpcServerConfigurer> serverConfigurers) {
+            final List<GrpcServerConfigurer> serverConfigurers,
+            @Qualifier("grpcServerExecutor") final ObjectProvider<Executor> executor) {
 
         log.info("'grpc.server.in-process-name' is set: Creating InProcessGrpcServerFactory");
         final InProcessGrpcServerFactory factory = new InProcessGrpcServerFactory(properties, serverConfigurers);
+        factory.setExecutor(executor.getIfAvailable());
         for (final GrpcServiceDefinition service : serviceDiscoverer.findGrpcServices()) {
             factory.addService(service);
         }
@@ -163,11 +247,14 @@ public InProcessGrpcServerFactory inProcessGrpcServerFactory(
     }
 
     /**
-     * The server lifecycle bean for the in-process-server.
+     * The server lifecycle bean for the in-process-server. The additional listeners are only served alongside a netty
+     * based server, so they are ignored with a warning, if the in-process-server is the only server.
      *
      * @param factory The factory used to create the lifecycle.
      * @param properties The server properties to use.
+     * @param serverFactories All server factories, used to check whether the listeners are served by another server.
      * @param eventPublisher The event publisher to use.
+     * @param lifecycleProperties The lifecycle properties, that limit the time spring waits for the drain.
      * @return The in-process server lifecycle bean.
      */
     @ConditionalOnBean(InProcessGrpcServerFactory.class)
@@ -175,9 +262,72 @@ public InProcessGrpcServerFactory inProcessGrpcServerFactory(
     public GrpcServerLifecycle inProcessGrpcServerLifecycle(
             final InProcessGrpcServerFactory factory,
             final GrpcServerProperties properties,
-            ApplicationEventPublisher eventPublisher) {
+            final ObjectProvider<GrpcServerFactory> serverFactories,
+            ApplicationEventPublisher eventPublisher,
+            final ObjectProvider<LifecycleProperties> lifecycleProperties) {
+
+        if (!properties.getListeners().isEmpty()
+                && serverFactories.stream().allMatch(InProcessGrpcServerFactory.class::isInstance)) {
+            log.warn("Ignoring the additional gRPC server listeners {}, because they require a netty based server,"
+                    + " but only the in-process server is running", properties.getListeners().keySet());
+        }
+        final GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(Collections.singletonList(factory),
+                properties.getShutdownGracePeriod(), properties.getDrain().getPropagationDelay(), eventPublisher);
+        lifecycle.setShutdownPhaseTimeout(shutdownPhaseTimeout(lifecycleProperties));
+        return lifecycle;
+    }
 
-        return new GrpcServerLifecycle(factory, properties.getShutdownGracePeriod(), eventPublisher);
+    /**
+     * Gets the time spring waits for each shutdown phase, and thus for the drain of the servers.
+     *
+     * @param lifecycleProperties The lifecycle properties, if any.
+     * @return The shutdown phase timeout.
+     */
+    static Duration shutdownPhaseTimeout(final ObjectProvider<LifecycleProperties> lifecycleProperties) {
+        // Spring uses the same default, if the properties aren't present
+        return lifecycleProperties.getIfAvailable(LifecycleProperties::new).getTimeoutPerShutdownPhase();
+    }
+
+    /**
+     * Creates the factories for the main server and its additional listeners. The listeners serve the same services
+     * using the same executor as the main server.
+     *
+     * @param factory The factory for the main server.
+     * @param properties The properties containing the listeners.
+     * @param serviceDiscoverer The discoverer used to identify the services that should be served.
+     * @param serverConfigurers The server configurers that contain additional configuration for the listeners.
+     * @param executor The executor used to execute the calls, if any.
+     * @param networkFactory The function used to create the factories for non in-process listeners.
+     * @return The factories for the main server and its listeners.
+     */
+    private static List<GrpcServerFactory> withListeners(
+            final GrpcServerFactory factory,
+            final GrpcServerProperties properties,
+            final GrpcServiceDiscoverer serviceDiscoverer,
+            final List<GrpcServerConfigurer> serverConfigurers,
+            final Executor executor,
+            final Function<GrpcServerProperties, AbstractGrpcServerFactory<?>> networkFactory) {
+
+        final List<GrpcServerFactory> factories = new ArrayList<>();
+        factories.add(factory);
+        for (final Entry<String, ListenerOptions> entry : properties.getListeners().entrySet()) {
+            final GrpcServerProperties listenerProperties = properties.forListener(entry.getValue());
+            final String address = listenerProperties.getAddress();
+            final AbstractGrpcServerFactory<?> listenerFactory;
+            if (address.startsWith(GrpcUtils.IN_PROCESS_ADDRESS_PREFIX)) {
+                final String name = address.substring(GrpcUtils.IN_PROCESS_ADDRESS_PREFIX.length());
+                listenerFactory = new InProcessGrpcServerFactory(name, listenerProperties, serverConfigurers);
+            } else {
+                listenerFactory = networkFactory.apply(listenerProperties);
+            }
+            log.info("Creating additional gRPC server listener '{}' on {}", entry.getKey(), address);
+            listenerFactory.setExecutor(executor);
+            for (final GrpcServiceDefinition service : serviceDiscoverer.findGrpcServices()) {
+                listenerFactory.addService(service);
+            }
+            factories.add(listenerFactory);
+        }
+        return factories;
     }
 
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import io.grpc.BindableService;
+import io.grpc.xds.orca.OrcaMetricReportingServerInterceptor;
+import io.grpc.xds.orca.OrcaServiceImpl;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.config.LoadReportingOptions;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import net.devh.boot.grpc.server.loadreport.CpuUtilizationSource;
+import net.devh.boot.grpc.server.loadreport.LoadReporter;
+import net.devh.boot.grpc.server.loadreport.LoadReportingServerInterceptor;
+import net.devh.boot.grpc.server.loadreport.UtilizationSource;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+/**
+ * Auto configuration that reports the server's load to the clients using the ORCA protocol, so that they can use the
+ * {@code weighted_round_robin} load balancing policy.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "grpc.server.load-reporting", name = "enabled", havingValue = "true")
+@ConditionalOnClass(OrcaMetricReportingServerInterceptor.class)
+@AutoConfigureAfter(GrpcServerAutoConfiguration.class)
+@AutoConfigureBefore(GrpcServerFactoryAutoConfiguration.class)
+public class GrpcServerLoadReportingAutoConfiguration {
+
+    /**
+     * Creates the reporter that collects the load of the server.
+     *
+     * @param properties The properties used to configure the reporter.
+     * @param utilizationSources The additional sources for the reported utilization.
+     * @return The newly created reporter.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    LoadReporter grpcLoadReporter(final GrpcServerProperties properties,
+            final ObjectProvider<UtilizationSource> utilizationSources) {
+        final LoadReportingOptions options = properties.getLoadReporting();
+        final List<UtilizationSource> sources = new ArrayList<>();
+        if (options.isCpuEnabled()) {
+            sources.add(new CpuUtilizationSource());
+        }
+        utilizationSources.orderedStream().forEach(sources::add);
+        return new LoadReporter(sources, options.getMaxInFlightCalls(), options.getRefreshInterval());
+    }
+
+    /**
+     * Creates the interceptor that attaches the server's load to the trailers of every call.
+     *
+     * @param reporter The reporter that holds the server's load.
+     * @return The newly created interceptor.
+     */
+    @ConditionalOnMissingBean
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_TRACING_METRICS)
+    LoadReportingServerInterceptor loadReportingServerInterceptor(final LoadReporter reporter) {
+        return new LoadReportingServerInterceptor(reporter);
+    }
+
+    /**
+     * Creates the out-of-band ORCA service, that periodically streams the server's load to the clients. The service
+     * uses the scheduler of the reporter, which releases it once the reporter bean is destroyed.
+     *
+     * @param properties The properties used to configure the service.
+     * @param reporter The reporter that holds the server's load.
+     * @return The newly created service.
+     */
+    @ConditionalOnProperty(prefix = "grpc.server.load-reporting", name = "out-of-band", havingValue = "true",
+            matchIfMissing = true)
+    @Bean
+    @GrpcService
+    BindableService grpcOrcaService(final GrpcServerProperties properties, final LoadReporter reporter) {
+        return OrcaServiceImpl.createService(reporter.getScheduler(),
+                reporter.getMetricRecorder(), properties.getLoadReporting().getMinReportingInterval().toNanos(),
+                TimeUnit.NANOSECONDS);
+    }
+
+}
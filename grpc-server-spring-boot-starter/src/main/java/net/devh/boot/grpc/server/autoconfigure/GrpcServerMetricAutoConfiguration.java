@@ -34,6 +34,7 @@
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -45,13 +46,32 @@
 import io.grpc.MethodDescriptor;
 import io.grpc.ServiceDescriptor;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import io.micrometer.core.instrument.binder.grpc.MetricCollectingServerInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.cache.CoalescingServerInterceptor;
+import net.devh.boot.grpc.server.cache.RequestCoalescer;
 import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.executor.GrpcServiceExecutorRegistry;
+import net.devh.boot.grpc.server.executor.InstrumentedExecutor;
 import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import net.devh.boot.grpc.server.limit.ConcurrencyLimiter;
+import net.devh.boot.grpc.server.limit.ConcurrencyLimitingServerInterceptor;
+import net.devh.boot.grpc.server.limit.InboundMemoryBudget;
+import net.devh.boot.grpc.server.limit.InboundMemoryLimitingServerInterceptor;
+import net.devh.boot.grpc.server.limit.RateLimiter;
+import net.devh.boot.grpc.server.limit.RateLimitingServerInterceptor;
+import net.devh.boot.grpc.server.metrics.MetricsServerCoalescingBinder;
+import net.devh.boot.grpc.server.metrics.MetricsServerConcurrencyLimitBinder;
+import net.devh.boot.grpc.server.metrics.MetricsServerDrainListener;
+import net.devh.boot.grpc.server.metrics.MetricsServerExecutorBinder;
+import net.devh.boot.grpc.server.metrics.MetricsServerInboundMemoryBinder;
+import net.devh.boot.grpc.server.metrics.MetricsServerRateLimitBinder;
 import net.devh.boot.grpc.server.metrics.MetricsServerStreamTracers;
+import net.devh.boot.grpc.server.metrics.MetricsServerWarmUpBinder;
 import net.devh.boot.grpc.server.serverfactory.GrpcServerConfigurer;
+import net.devh.boot.grpc.server.warmup.GrpcServerWarmUp;
 
 /**
  * Auto configuration class for Spring-Boot. This allows zero config server metrics for gRPC services.
@@ -89,6 +109,114 @@ public GrpcServerConfigurer streamTracerFactoryConfigurer(final MeterRegistry re
                 .addStreamTracerFactory(metricsServerStreamTracers.getMetricsServerTracerFactory(registry));
     }
 
+    /**
+     * Creates a meter binder that exposes the saturation metrics of the gRPC server executors, including the dedicated
+     * executors of individual services.
+     *
+     * @param applicationContext The application context to get the executors from.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcServerExecutorMeterBinder(final ApplicationContext applicationContext) {
+        return new MetricsServerExecutorBinder(() -> {
+            final Map<String, InstrumentedExecutor> executors =
+                    new LinkedHashMap<>(applicationContext.getBeansOfType(InstrumentedExecutor.class));
+            applicationContext.getBeanProvider(GrpcServiceExecutorRegistry.class)
+                    .ifAvailable(registry -> executors.putAll(registry.getExecutors()));
+            return executors;
+        });
+    }
+
+    /**
+     * Creates a meter binder that exposes the current limit, the number of calls in flight and the number of rejected
+     * calls of the adaptive concurrency limiters.
+     *
+     * @param applicationContext The application context to get the limiters from.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcServerConcurrencyLimitMeterBinder(final ApplicationContext applicationContext) {
+        return new MetricsServerConcurrencyLimitBinder(() -> {
+            final List<ConcurrencyLimiter> limiters = new ArrayList<>();
+            applicationContext.getBeanProvider(ConcurrencyLimitingServerInterceptor.class)
+                    .ifAvailable(interceptor -> limiters.addAll(interceptor.getLimiters()));
+            return limiters;
+        });
+    }
+
+    /**
+     * Creates a meter binder that exposes the number of rejected calls and principal specific buckets of the rate
+     * limiters.
+     *
+     * @param applicationContext The application context to get the limiters from.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcServerRateLimitMeterBinder(final ApplicationContext applicationContext) {
+        return new MetricsServerRateLimitBinder(() -> {
+            final List<RateLimiter> limiters = new ArrayList<>();
+            applicationContext.getBeanProvider(RateLimitingServerInterceptor.class)
+                    .ifAvailable(interceptor -> limiters.addAll(interceptor.getLimiters()));
+            return limiters;
+        });
+    }
+
+    /**
+     * Creates a meter binder that exposes the executed and coalesced calls of the request coalescers.
+     *
+     * @param applicationContext The application context to get the coalescers from.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcServerCoalescingMeterBinder(final ApplicationContext applicationContext) {
+        return new MetricsServerCoalescingBinder(() -> {
+            final List<RequestCoalescer> coalescers = new ArrayList<>();
+            applicationContext.getBeanProvider(CoalescingServerInterceptor.class)
+                    .ifAvailable(interceptor -> coalescers.addAll(interceptor.getCoalescers()));
+            return coalescers;
+        });
+    }
+
+    /**
+     * Creates a meter binder that exposes the used and maximum bytes, the deferred reads and the number of rejected
+     * calls of the inbound memory budgets.
+     *
+     * @param applicationContext The application context to get the budgets from.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcServerInboundMemoryMeterBinder(final ApplicationContext applicationContext) {
+        return new MetricsServerInboundMemoryBinder(() -> {
+            final List<InboundMemoryBudget> budgets = new ArrayList<>();
+            applicationContext.getBeanProvider(InboundMemoryLimitingServerInterceptor.class)
+                    .ifAvailable(interceptor -> budgets.addAll(interceptor.getBudgets()));
+            return budgets;
+        });
+    }
+
+    /**
+     * Creates a listener that records the duration of the individual phases of the server drain.
+     *
+     * @param registry The registry to record the durations in.
+     * @return The newly created listener.
+     */
+    @Bean
+    MetricsServerDrainListener grpcServerDrainMetricsListener(final MeterRegistry registry) {
+        return new MetricsServerDrainListener(registry);
+    }
+
+    /**
+     * Creates a meter binder that exposes the duration and the number of calls of the warm-up.
+     *
+     * @param applicationContext The application context to get the warm-up from.
+     * @return The newly created meter binder.
+     */
+    @Bean
+    MeterBinder grpcServerWarmUpMeterBinder(final ApplicationContext applicationContext) {
+        return new MetricsServerWarmUpBinder(
+                () -> applicationContext.getBeanProvider(GrpcServerWarmUp.class).getIfAvailable());
+    }
+
     @Bean
     @Lazy
     InfoContributor grpcInfoContributor(final GrpcServerProperties properties,
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.autoconfigure;
+
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.pipeline.PipelineService;
+import net.devh.boot.grpc.server.service.GrpcService;
+import net.devh.boot.grpc.server.service.GrpcServiceDiscoverer;
+
+/**
+ * Auto configuration that sets up the pipeline service, that accepts many small unary calls multiplexed over a single
+ * bidi stream.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "grpc.server.pipeline", name = "enabled", havingValue = "true")
+@AutoConfigureAfter(GrpcServerAutoConfiguration.class)
+@AutoConfigureBefore(GrpcServerFactoryAutoConfiguration.class)
+public class GrpcServerPipelineAutoConfiguration {
+
+    /**
+     * Creates the pipeline service, that dispatches the logical calls to the other services of the server.
+     *
+     * @param properties The properties used to configure the pipeline service.
+     * @param serviceDiscoverer The discoverer used to find the services the logical calls are dispatched to.
+     * @param executor The executor used to process the logical calls, if any.
+     * @return The newly created pipeline service.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    @GrpcService
+    PipelineService grpcPipelineService(final GrpcServerProperties properties,
+            final ObjectProvider<GrpcServiceDiscoverer> serviceDiscoverer,
+            @Qualifier("grpcServerExecutor") final ObjectProvider<Executor> executor) {
+        return new PipelineService(() -> serviceDiscoverer.getObject().findGrpcServices(), executor.getIfAvailable(),
+                properties.getPipeline().getMaxConcurrentCalls());
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.autoconfigure;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.cache.ResponseCachingServerInterceptor;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.interceptor.GrpcGlobalServerInterceptor;
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+import net.devh.boot.grpc.server.metrics.MetricsServerResponseCacheBinder;
+
+/**
+ * Auto configuration class for the response cache of the grpc server. Requires caffeine on the classpath.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(Caffeine.class)
+@ConditionalOnProperty(prefix = "grpc.server.response-cache", name = "enabled", havingValue = "true")
+@AutoConfigureAfter(GrpcServerSecurityAutoConfiguration.class)
+public class GrpcServerResponseCacheAutoConfiguration {
+
+    /**
+     * Creates the interceptor that serves cached responses.
+     *
+     * @param properties The properties used to configure the caches.
+     * @param principalResolver The resolver used to determine the principal of per principal caches.
+     * @return The newly created interceptor.
+     */
+    @ConditionalOnMissingBean
+    @GrpcGlobalServerInterceptor
+    @Order(InterceptorOrder.ORDER_RESPONSE_CACHE)
+    public ResponseCachingServerInterceptor responseCachingServerInterceptor(final GrpcServerProperties properties,
+            final ObjectProvider<PrincipalResolver> principalResolver) {
+        return new ResponseCachingServerInterceptor(properties.getResponseCache(),
+                principalResolver.getIfAvailable(() -> PrincipalResolver.ANONYMOUS));
+    }
+
+    /**
+     * The metrics of the response caches.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class ResponseCacheMetricConfiguration {
+
+        /**
+         * Creates a meter binder that exposes the hits, misses, evictions and sizes of the response caches.
+         *
+         * @param interceptor The interceptor to get the caches from.
+         * @return The newly created meter binder.
+         */
+        @Bean
+        MeterBinder grpcServerResponseCacheMeterBinder(final ResponseCachingServerInterceptor interceptor) {
+            return new MetricsServerResponseCacheBinder(interceptor::getCaches);
+        }
+
+    }
+
+}
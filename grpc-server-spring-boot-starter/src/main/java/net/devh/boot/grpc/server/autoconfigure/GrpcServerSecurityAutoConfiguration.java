@@ -27,6 +27,8 @@
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.AuthenticationException;
 
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+import net.devh.boot.grpc.server.security.AuthenticationPrincipalResolver;
 import net.devh.boot.grpc.server.security.authentication.GrpcAuthenticationReader;
 import net.devh.boot.grpc.server.security.check.GrpcSecurityMetadataSource;
 import net.devh.boot.grpc.server.security.interceptors.AuthenticatingServerInterceptor;
@@ -106,4 +108,16 @@ public AuthorizationCheckingServerInterceptor authorizationCheckingServerInterce
         return new AuthorizationCheckingServerInterceptor(accessDecisionManager, securityMetadataSource);
     }
 
+    /**
+     * The resolver that uses the authenticated principal for the per principal rate limits, response caches and request
+     * coalescers.
+     *
+     * @return The principalResolver bean.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public PrincipalResolver principalResolver() {
+        return new AuthenticationPrincipalResolver();
+    }
+
 }
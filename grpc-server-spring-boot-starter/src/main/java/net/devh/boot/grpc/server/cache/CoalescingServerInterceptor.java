@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.Nullable;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.grpc.Context;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.SharedResourceHolder;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.cache.RequestCoalescer.Flight;
+import net.devh.boot.grpc.server.cache.RequestCoalescer.Follower;
+import net.devh.boot.grpc.server.config.CoalescingMethodOptions;
+import net.devh.boot.grpc.server.config.CoalescingOptions;
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+
+/**
+ * A server interceptor that coalesces identical concurrent calls to the configured unary methods (single-flight). Only
+ * the first call invokes the service, the identical calls, that arrive while it is in flight, receive the same
+ * response or status without invoking the service again.
+ *
+ * <p>
+ * Each caller keeps its own deadline and may cancel its call without affecting the others. If the call that invokes
+ * the service is cancelled, then one of the waiting calls invokes the service instead and the others keep waiting.
+ * </p>
+ *
+ * <p>
+ * <b>Note:</b> Only methods without side effects should be coalesced. The interceptor should be executed after the
+ * authentication and authorization ({@link InterceptorOrder#ORDER_REQUEST_COALESCING ORDER_REQUEST_COALESCING}).
+ * </p>
+ */
+@Slf4j
+public class CoalescingServerInterceptor implements ServerInterceptor, AutoCloseable {
+
+    private final Map<String, RequestCoalescer> configuredCoalescers;
+    private final Map<String, Optional<RequestCoalescer>> coalescersByMethod = new ConcurrentHashMap<>();
+    private final PrincipalResolver principalResolver;
+    private final Executor executor;
+    private final boolean sharedExecutor;
+
+    /**
+     * Creates a new CoalescingServerInterceptor, that uses gRPC's shared executor to invoke the service for waiting
+     * calls, if the leader has been cancelled.
+     *
+     * @param options The options used to configure the coalescers.
+     * @param principalResolver The resolver used to determine the principal of per principal coalescers.
+     */
+    public CoalescingServerInterceptor(final CoalescingOptions options,
+            final PrincipalResolver principalResolver) {
+        this(options, principalResolver, null);
+    }
+
+    /**
+     * Creates a new CoalescingServerInterceptor. Unless configured otherwise, the coalescers only coalesce calls of the
+     * same principal, if the given principal resolver isn't {@link PrincipalResolver#ANONYMOUS ANONYMOUS}.
+     *
+     * @param options The options used to configure the coalescers.
+     * @param principalResolver The resolver used to determine the principal of per principal coalescers.
+     * @param executor The executor used to invoke the service for a waiting call, if the leader has been cancelled.
+     *        This should be the executor of the server. If null, gRPC's shared executor will be used.
+     */
+    public CoalescingServerInterceptor(final CoalescingOptions options,
+            final PrincipalResolver principalResolver, @Nullable final Executor executor) {
+        requireNonNull(options, "options");
+        this.principalResolver = requireNonNull(principalResolver, "principalResolver");
+        this.sharedExecutor = executor == null;
+        this.executor = executor == null ? SharedResourceHolder.get(GrpcUtil.SHARED_CHANNEL_EXECUTOR) : executor;
+        final Map<String, RequestCoalescer> coalescers = new LinkedHashMap<>();
+        for (final Entry<String, CoalescingMethodOptions> entry : options.getMethods().entrySet()) {
+            coalescers.put(entry.getKey(), new RequestCoalescer(entry.getKey(), entry.getValue(),
+                    this.principalResolver != PrincipalResolver.ANONYMOUS));
+        }
+        this.configuredCoalescers = coalescers;
+    }
+
+    /**
+     * Gets all coalescers used by this interceptor.
+     *
+     * @return The coalescers used by this interceptor.
+     */
+    public Collection<RequestCoalescer> getCoalescers() {
+        return new ArrayList<>(this.configuredCoalescers.values());
+    }
+
+    @Override
+    public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call, final Metadata headers,
+            final ServerCallHandler<ReqT, RespT> next) {
+        final RequestCoalescer coalescer = getCoalescer(call.getMethodDescriptor()).orElse(null);
+        if (coalescer == null) {
+            return next.startCall(call, headers);
+        }
+        final String principal =
+                coalescer.isPerPrincipal() ? this.principalResolver.resolvePrincipal(call, headers) : null;
+        final CoalescingServerCall<ReqT, RespT> coalescingCall = new CoalescingServerCall<>(call);
+        return new CoalescingListener<>(next.startCall(coalescingCall, headers), coalescingCall, coalescer, headers,
+                principal, this.executor);
+    }
+
+    /**
+     * Releases gRPC's shared executor, if it is used by this interceptor.
+     */
+    @Override
+    public void close() {
+        if (this.sharedExecutor) {
+            SharedResourceHolder.release(GrpcUtil.SHARED_CHANNEL_EXECUTOR, this.executor);
+        }
+    }
+
+    private Optional<RequestCoalescer> getCoalescer(final MethodDescriptor<?, ?> method) {
+        return this.coalescersByMethod.computeIfAbsent(method.getFullMethodName(), fullMethodName -> {
+            if (method.getType() != MethodType.UNARY) {
+                return Optional.empty();
+            }
+            RequestCoalescer coalescer = this.configuredCoalescers.get(fullMethodName);
+            if (coalescer == null) {
+                final String serviceName = method.getServiceName();
+                coalescer = serviceName == null ? null : this.configuredCoalescers.get(serviceName);
+            }
+            if (coalescer != null && !method.isSafe()) {
+                log.warn("Coalescing calls to {}, which isn't marked as side effect free (NO_SIDE_EFFECTS)",
+                        fullMethodName);
+            }
+            return Optional.ofNullable(coalescer);
+        });
+    }
+
+    private static Metadata copyOf(@Nullable final Metadata metadata) {
+        final Metadata copy = new Metadata();
+        if (metadata != null) {
+            copy.merge(metadata);
+        }
+        return copy;
+    }
+
+    /**
+     * A server call that passes the result of the leader to the waiting calls.
+     */
+    private static final class CoalescingServerCall<ReqT, RespT> extends SimpleForwardingServerCall<ReqT, RespT> {
+
+        private volatile Flight flight;
+        private volatile Follower owner;
+        private volatile Metadata responseHeaders;
+        private volatile RespT response;
+
+        CoalescingServerCall(final ServerCall<ReqT, RespT> delegate) {
+            super(delegate);
+        }
+
+        void setFlight(final Flight flight, final Follower owner) {
+            this.owner = owner;
+            this.flight = flight;
+        }
+
+        @Override
+        public void sendHeaders(final Metadata headers) {
+            if (this.flight != null) {
+                this.responseHeaders = copyOf(headers);
+            }
+            super.sendHeaders(headers);
+        }
+
+        @Override
+        public void sendMessage(final RespT message) {
+            this.response = message;
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void close(final Status status, final Metadata trailers) {
+            final Flight currentFlight = this.flight;
+            if (currentFlight != null) {
+                currentFlight.complete(this.owner, this.responseHeaders, this.response, status, copyOf(trailers));
+            }
+            super.close(status, trailers);
+        }
+
+        /**
+         * Completes this call with the result of the leader, without invoking the service.
+         */
+        @SuppressWarnings("unchecked")
+        void completeWith(@Nullable final Metadata headers, @Nullable final Object result, final Status status,
+                final Metadata trailers) {
+            final ServerCall<ReqT, RespT> target = delegate();
+            target.sendHeaders(copyOf(headers));
+            if (result != null) {
+                target.sendMessage((RespT) result);
+            }
+            target.close(status, copyOf(trailers));
+        }
+
+    }
+
+    /**
+     * A listener that only passes the call to the service, if there is no identical call in flight.
+     *
+     * <p>
+     * If the leader is cancelled, one of the waiting calls is promoted and invokes the service on the given executor.
+     * All events are passed to the service using a serializing executor, so that the promoted invocation can't race
+     * with the events of the call itself.
+     * </p>
+     */
+    private static final class CoalescingListener<ReqT, RespT> extends SimpleForwardingServerCallListener<ReqT>
+            implements Follower {
+
+        private final CoalescingServerCall<ReqT, RespT> call;
+        private final RequestCoalescer coalescer;
+        private final Metadata headers;
+        private final String principal;
+        private final Context context;
+        private final Executor executor;
+        private final Executor serializer = MoreExecutors.newSequentialExecutor(MoreExecutors.directExecutor());
+        private ReqT request;
+        private Flight flight;
+        private boolean leader;
+        private boolean done;
+
+        CoalescingListener(final Listener<ReqT> delegate, final CoalescingServerCall<ReqT, RespT> call,
+                final RequestCoalescer coalescer, final Metadata headers, final String principal,
+                final Executor executor) {
+            super(delegate);
+            this.call = call;
+            this.coalescer = coalescer;
+            this.headers = headers;
+            this.principal = principal;
+            this.context = Context.current();
+            this.executor = executor;
+            // Don't wait for onCancel, which is only delivered after the service returned
+            this.context.addListener(cancelledContext -> abortIfLeader(), MoreExecutors.directExecutor());
+        }
+
+        @Override
+        public void onMessage(final ReqT message) {
+            this.serializer.execute(() -> {
+                this.request = message;
+                super.onMessage(message);
+            });
+        }
+
+        @Override
+        public void onHalfClose() {
+            this.serializer.execute(this::halfClose);
+        }
+
+        private void halfClose() {
+            if (this.request == null) {
+                super.onHalfClose();
+                return;
+            }
+            final ResponseCacheKey key =
+                    this.coalescer.newKey(this.call.getMethodDescriptor(), this.request, this.headers, this.principal);
+            final Flight joined = this.coalescer.join(key, this);
+            synchronized (this) {
+                this.flight = joined;
+                this.leader = joined.isLeader(this);
+                if (!this.leader) {
+                    // Wait for the leader
+                    return;
+                }
+            }
+            this.call.setFlight(joined, this);
+            super.onHalfClose();
+        }
+
+        @Override
+        public void onCancel() {
+            this.serializer.execute(this::cancel);
+        }
+
+        private void cancel() {
+            final Flight currentFlight;
+            final boolean currentLeader;
+            synchronized (this) {
+                this.done = true;
+                currentFlight = this.flight;
+                currentLeader = this.leader;
+            }
+            if (currentFlight != null) {
+                if (currentLeader) {
+                    currentFlight.abort(this);
+                } else {
+                    currentFlight.removeFollower(this);
+                }
+            }
+            super.onCancel();
+        }
+
+        private void abortIfLeader() {
+            final Flight currentFlight;
+            synchronized (this) {
+                if (!this.leader) {
+                    return;
+                }
+                currentFlight = this.flight;
+            }
+            if (currentFlight != null) {
+                currentFlight.abort(this);
+            }
+        }
+
+        @Override
+        public void complete(@Nullable final Metadata responseHeaders, @Nullable final Object response,
+                final Status status, final Metadata trailers) {
+            synchronized (this) {
+                if (this.done) {
+                    return;
+                }
+                this.done = true;
+            }
+            this.call.completeWith(responseHeaders, response, status, trailers);
+        }
+
+        @Override
+        public void onComplete() {
+            this.serializer.execute(super::onComplete);
+        }
+
+        @Override
+        public void onReady() {
+            this.serializer.execute(super::onReady);
+        }
+
+        @Override
+        public boolean promote(final Flight newFlight) {
+            synchronized (this) {
+                if (this.done) {
+                    return false;
+                }
+                this.flight = newFlight;
+                this.leader = true;
+            }
+            try {
+                this.executor.execute(() -> this.serializer.execute(() -> {
+                    synchronized (this) {
+                        if (this.done) {
+                            // Cancelled in the meantime, the next one has already been promoted
+                            return;
+                        }
+                    }
+                    this.call.setFlight(newFlight, this);
+                    this.context.run(super::onHalfClose);
+                }));
+            } catch (final RejectedExecutionException e) {
+                // Pass the error to the remaining calls as well
+                this.serializer.execute(() -> {
+                    this.call.setFlight(newFlight, this);
+                    this.call.close(Status.RESOURCE_EXHAUSTED.withDescription("Executor is saturated"), new Metadata());
+                });
+            }
+            return true;
+        }
+
+    }
+
+}
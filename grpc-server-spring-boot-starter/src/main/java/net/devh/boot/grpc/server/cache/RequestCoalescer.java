@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import net.devh.boot.grpc.common.util.CacheKeyUtils;
+import net.devh.boot.grpc.server.config.CoalescingMethodOptions;
+
+/**
+ * Tracks the calls of a method or service that are currently in flight, so that identical concurrent calls can share
+ * the response of a single invocation of the service.
+ */
+public class RequestCoalescer {
+
+    private final String name;
+    private final List<Metadata.Key<String>> keyHeaders;
+    private final boolean perPrincipal;
+    private final ConcurrentMap<ResponseCacheKey, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Creates a new RequestCoalescer, that coalesces the calls of all principals, unless configured otherwise.
+     *
+     * @param name The name of the coalescer.
+     * @param options The options used to configure the coalescer.
+     */
+    public RequestCoalescer(final String name, final CoalescingMethodOptions options) {
+        this(name, options, false);
+    }
+
+    /**
+     * Creates a new RequestCoalescer.
+     *
+     * @param name The name of the coalescer.
+     * @param options The options used to configure the coalescer.
+     * @param perPrincipalByDefault Whether only calls of the same principal are coalesced, unless configured otherwise.
+     */
+    public RequestCoalescer(final String name, final CoalescingMethodOptions options,
+            final boolean perPrincipalByDefault) {
+        this.name = requireNonNull(name, "name");
+        requireNonNull(options, "options");
+        this.keyHeaders = CacheKeyUtils.toHeaderKeys(options.getKeyHeaders());
+        final Boolean configuredPerPrincipal = options.getPerPrincipal();
+        this.perPrincipal = configuredPerPrincipal == null ? perPrincipalByDefault : configuredPerPrincipal;
+    }
+
+    /**
+     * Gets the name of this coalescer.
+     *
+     * @return The name of the coalescer.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets whether only calls of the same principal are coalesced.
+     *
+     * @return True, if only calls of the same principal are coalesced. False otherwise.
+     */
+    public boolean isPerPrincipal() {
+        return this.perPrincipal;
+    }
+
+    /**
+     * Gets the total number of calls that actually invoked the service.
+     *
+     * @return The number of executed calls.
+     */
+    public long getExecutedCount() {
+        return this.executed.sum();
+    }
+
+    /**
+     * Gets the total number of calls that have been attached to an identical call in flight.
+     *
+     * @return The number of coalesced calls.
+     */
+    public long getCoalescedCount() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * Gets the ratio of calls that have been attached to an identical call in flight.
+     *
+     * @return The coalescing ratio between 0 and 1 or {@code NaN}, if there haven't been any calls yet.
+     */
+    public double getCoalescingRatio() {
+        final long coalescedCalls = getCoalescedCount();
+        final long total = coalescedCalls + getExecutedCount();
+        return total == 0 ? Double.NaN : (double) coalescedCalls / total;
+    }
+
+    /**
+     * Gets the number of distinct calls that are currently in flight.
+     *
+     * @return The number of calls in flight.
+     */
+    public int getInFlightCount() {
+        return this.flights.size();
+    }
+
+    /**
+     * Creates the key for the given call.
+     *
+     * @param <ReqT> The type of the request.
+     * @param method The called method.
+     * @param request The request of the call.
+     * @param headers The headers of the call.
+     * @param principal The principal of the call or null, if this coalescer isn't per principal.
+     * @return The newly created key.
+     */
+    <ReqT> ResponseCacheKey newKey(final MethodDescriptor<ReqT, ?> method, final ReqT request,
+            final Metadata headers, @Nullable final String principal) {
+        return ResponseCacheKey.of(method, request, this.keyHeaders, headers, this.perPrincipal ? principal : null);
+    }
+
+    /**
+     * Attaches the given call to an identical call in flight or starts a new flight, if there is none.
+     *
+     * @param key The key of the call.
+     * @param caller The call to attach.
+     * @return The flight the call belongs to. The caller has to invoke the service, if it is the
+     *         {@link Flight#isLeader(Follower) leader} of the flight.
+     */
+    Flight join(final ResponseCacheKey key, final Follower caller) {
+        for (;;) {
+            Flight flight = this.flights.get(key);
+            if (flight == null) {
+                final Flight created = new Flight(key, caller);
+                flight = this.flights.putIfAbsent(key, created);
+                if (flight == null) {
+                    this.executed.increment();
+                    return created;
+                }
+            }
+            if (flight.addFollower(caller)) {
+                this.coalesced.increment();
+                return flight;
+            }
+            // Already completed, but not yet removed
+            this.flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * A call that waits for the result of another call.
+     */
+    interface Follower {
+
+        /**
+         * Completes the call with the result of the leader.
+         *
+         * @param headers The headers sent by the leader or null, if it didn't send any.
+         * @param response The response sent by the leader or null, if it didn't send any.
+         * @param status The status the leader was closed with.
+         * @param trailers The trailers the leader was closed with.
+         */
+        void complete(@Nullable Metadata headers, @Nullable Object response, Status status, Metadata trailers);
+
+        /**
+         * Promotes the call to the leader of the given flight, so that it invokes the service on its own, because the
+         * previous leader has been cancelled. The remaining calls keep waiting for the new leader.
+         *
+         * @param flight The flight the call should lead.
+         * @return True, if the call has been promoted. False, if the call has already been completed or cancelled.
+         */
+        boolean promote(Flight flight);
+
+    }
+
+    /**
+     * A call that is currently in flight and the identical calls waiting for its result.
+     */
+    final class Flight {
+
+        private final ResponseCacheKey key;
+        @GuardedBy("this")
+        private Follower leader;
+        @GuardedBy("this")
+        private final List<Follower> followers = new ArrayList<>();
+        @GuardedBy("this")
+        private boolean finished;
+
+        Flight(final ResponseCacheKey key, final Follower leader) {
+            this.key = key;
+            this.leader = leader;
+        }
+
+        synchronized boolean isLeader(final Follower caller) {
+            return this.leader == caller;
+        }
+
+        synchronized boolean addFollower(final Follower follower) {
+            if (this.finished) {
+                return false;
+            }
+            this.followers.add(follower);
+            return true;
+        }
+
+        synchronized void removeFollower(final Follower follower) {
+            this.followers.remove(follower);
+        }
+
+        /**
+         * Completes all followers with the result of the leader.
+         *
+         * @param caller The call that completed. Results of calls that are no longer the leader are ignored.
+         * @param headers The headers sent by the leader or null, if it didn't send any.
+         * @param response The response sent by the leader or null, if it didn't send any.
+         * @param status The status the leader was closed with.
+         * @param trailers The trailers the leader was closed with.
+         */
+        void complete(final Follower caller, @Nullable final Metadata headers, @Nullable final Object response,
+                final Status status, final Metadata trailers) {
+            for (final Follower follower : finish(caller)) {
+                follower.complete(headers, response, status, trailers);
+            }
+        }
+
+        /**
+         * Promotes the next follower to the leader of this flight, because the leader has been cancelled. Only a single
+         * follower invokes the service at a time, the others keep waiting for its result.
+         *
+         * @param caller The cancelled call. Calls that are no longer the leader are ignored.
+         */
+        void abort(final Follower caller) {
+            Follower current = caller;
+            for (;;) {
+                final Follower next;
+                synchronized (this) {
+                    if (this.finished || this.leader != current) {
+                        return;
+                    }
+                    if (this.followers.isEmpty()) {
+                        this.finished = true;
+                        next = null;
+                    } else {
+                        next = this.followers.remove(0);
+                        this.leader = next;
+                    }
+                }
+                if (next == null) {
+                    RequestCoalescer.this.flights.remove(this.key, this);
+                    return;
+                }
+                if (next.promote(this)) {
+                    RequestCoalescer.this.coalesced.decrement();
+                    RequestCoalescer.this.executed.increment();
+                    return;
+                }
+                // Already cancelled, try the next one
+                current = next;
+            }
+        }
+
+        private List<Follower> finish(final Follower caller) {
+            final List<Follower> result;
+            synchronized (this) {
+                if (this.finished || this.leader != caller) {
+                    return new ArrayList<>();
+                }
+                this.finished = true;
+                result = new ArrayList<>(this.followers);
+                this.followers.clear();
+            }
+            RequestCoalescer.this.flights.remove(this.key, this);
+            return result;
+        }
+
+    }
+
+}
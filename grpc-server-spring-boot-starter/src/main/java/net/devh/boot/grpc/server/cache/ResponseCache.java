@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Policy.Eviction;
+import com.google.protobuf.MessageLite;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import net.devh.boot.grpc.common.util.CacheKeyUtils;
+import net.devh.boot.grpc.server.config.ResponseCacheMethodOptions;
+
+/**
+ * A size and time bounded cache for the responses of a method or service. The cache uses caffeine's W-TinyLFU eviction
+ * policy, so that frequently requested responses are kept, even if they haven't been requested recently. The size of
+ * the entries is estimated based on their serialized size.
+ */
+public class ResponseCache {
+
+    /**
+     * The estimated overhead of a cache entry in bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final String name;
+    private final List<Metadata.Key<String>> keyHeaders;
+    private final boolean perPrincipal;
+    private final Cache<ResponseCacheKey, CachedResponse> cache;
+
+    /**
+     * Creates a new ResponseCache, that shares the entries between all principals, unless configured otherwise.
+     *
+     * @param name The name of the cache.
+     * @param options The options used to configure the cache.
+     */
+    public ResponseCache(final String name, final ResponseCacheMethodOptions options) {
+        this(name, options, false);
+    }
+
+    /**
+     * Creates a new ResponseCache.
+     *
+     * @param name The name of the cache.
+     * @param options The options used to configure the cache.
+     * @param perPrincipalByDefault Whether each principal gets its own cache entries, unless configured otherwise.
+     */
+    public ResponseCache(final String name, final ResponseCacheMethodOptions options,
+            final boolean perPrincipalByDefault) {
+        this.name = requireNonNull(name, "name");
+        requireNonNull(options, "options");
+        this.keyHeaders = CacheKeyUtils.toHeaderKeys(options.getKeyHeaders());
+        final Boolean configuredPerPrincipal = options.getPerPrincipal();
+        this.perPrincipal = configuredPerPrincipal == null ? perPrincipalByDefault : configuredPerPrincipal;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(options.getMaxSize().toBytes())
+                .<ResponseCacheKey, CachedResponse>weigher((key, response) -> weigh(key, response))
+                .expireAfterWrite(options.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Gets the name of this cache.
+     *
+     * @return The name of the cache.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets whether each principal gets its own cache entries.
+     *
+     * @return True, if each principal gets its own entries. False otherwise.
+     */
+    public boolean isPerPrincipal() {
+        return this.perPrincipal;
+    }
+
+    /**
+     * Gets the total number of calls that have been served from this cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHitCount() {
+        return this.cache.stats().hitCount();
+    }
+
+    /**
+     * Gets the total number of calls that could not be served from this cache.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMissCount() {
+        return this.cache.stats().missCount();
+    }
+
+    /**
+     * Gets the total number of entries that have been evicted from this cache, because it was full or the entries
+     * expired.
+     *
+     * @return The number of evicted entries.
+     */
+    public long getEvictionCount() {
+        return this.cache.stats().evictionCount();
+    }
+
+    /**
+     * Gets the approximate number of entries in this cache.
+     *
+     * @return The number of cached entries.
+     */
+    public long getSize() {
+        return this.cache.estimatedSize();
+    }
+
+    /**
+     * Gets the approximate number of bytes used by the entries of this cache.
+     *
+     * @return The size of the cached entries in bytes.
+     */
+    public long getWeight() {
+        return this.cache.policy().eviction().flatMap(Eviction::weightedSize).orElse(0L);
+    }
+
+    /**
+     * Invalidates all entries of this cache.
+     */
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    /**
+     * Creates the cache key for the given call.
+     *
+     * @param <ReqT> The type of the request.
+     * @param method The called method.
+     * @param request The request of the call.
+     * @param headers The headers of the call.
+     * @param principal The principal of the call or null, if this cache isn't per principal.
+     * @return The newly created cache key.
+     */
+    <ReqT> ResponseCacheKey newKey(final MethodDescriptor<ReqT, ?> method, final ReqT request,
+            final Metadata headers, @Nullable final String principal) {
+        return ResponseCacheKey.of(method, request, this.keyHeaders, headers, this.perPrincipal ? principal : null);
+    }
+
+    @Nullable
+    CachedResponse get(final ResponseCacheKey key) {
+        return this.cache.getIfPresent(key);
+    }
+
+    void put(final ResponseCacheKey key, final CachedResponse response) {
+        this.cache.put(key, response);
+    }
+
+    /**
+     * Invalidates all entries with a matching key.
+     *
+     * @param predicate The predicate used to select the keys to invalidate.
+     */
+    void invalidate(final Predicate<ResponseCacheKey> predicate) {
+        this.cache.asMap().keySet().removeIf(predicate);
+    }
+
+    private static int weigh(final ResponseCacheKey key, final CachedResponse response) {
+        final Object message = response.message;
+        final long size = (long) ENTRY_OVERHEAD + key.getSize()
+                + (message instanceof MessageLite ? ((MessageLite) message).getSerializedSize() : 0)
+                + sizeOf(response.headers) + sizeOf(response.trailers);
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    private static long sizeOf(final Metadata metadata) {
+        long size = 0;
+        for (final String name : metadata.keys()) {
+            size += name.length();
+            if (name.endsWith(Metadata.BINARY_HEADER_SUFFIX)) {
+                for (final byte[] value : metadata.getAll(Metadata.Key.of(name, Metadata.BINARY_BYTE_MARSHALLER))) {
+                    size += value.length;
+                }
+            } else {
+                for (final String value : metadata.getAll(Metadata.Key.of(name, Metadata.ASCII_STRING_MARSHALLER))) {
+                    size += value.length();
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * A cached response along with the headers and trailers it was sent with.
+     */
+    static final class CachedResponse {
+
+        private final Metadata headers;
+        private final Object message;
+        private final Metadata trailers;
+
+        CachedResponse(@Nullable final Metadata headers, final Object message, final Metadata trailers) {
+            this.headers = copyOf(headers);
+            this.message = requireNonNull(message, "message");
+            this.trailers = copyOf(trailers);
+        }
+
+        /**
+         * Gets a copy of the cached headers, because the transport may modify them.
+         *
+         * @return The headers to send.
+         */
+        Metadata getHeaders() {
+            return copyOf(this.headers);
+        }
+
+        Object getMessage() {
+            return this.message;
+        }
+
+        /**
+         * Gets a copy of the cached trailers, because the transport may modify them.
+         *
+         * @return The trailers to send.
+         */
+        Metadata getTrailers() {
+            return copyOf(this.trailers);
+        }
+
+        private static Metadata copyOf(@Nullable final Metadata metadata) {
+            final Metadata copy = new Metadata();
+            if (metadata != null) {
+                copy.merge(metadata);
+            }
+            return copy;
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.cache;
+
+import java.util.List;
+import java.util.Objects;
+
+import javax.annotation.Nullable;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import net.devh.boot.grpc.common.util.CacheKeyUtils;
+
+/**
+ * The key of a cached response or coalesced call, consisting of the method, the serialized request and optionally some
+ * headers and the principal.
+ */
+final class ResponseCacheKey {
+
+    private final String methodName;
+    private final ByteString request;
+    private final List<String> headers;
+    @Nullable
+    private final String principal;
+    private final int hashCode;
+
+    ResponseCacheKey(final String methodName, final ByteString request, final List<String> headers,
+            @Nullable final String principal) {
+        this.methodName = methodName;
+        this.request = request;
+        this.headers = headers;
+        this.principal = principal;
+        this.hashCode = Objects.hash(methodName, request, headers, principal);
+    }
+
+    /**
+     * Creates the key for the given call.
+     *
+     * @param <ReqT> The type of the request.
+     * @param method The called method.
+     * @param request The request of the call.
+     * @param keyHeaders The headers that are part of the key.
+     * @param headers The headers of the call.
+     * @param principal The principal of the call or null, if the principal isn't part of the key.
+     * @return The newly created key.
+     */
+    static <ReqT> ResponseCacheKey of(final MethodDescriptor<ReqT, ?> method, final ReqT request,
+            final List<Metadata.Key<String>> keyHeaders, final Metadata headers, @Nullable final String principal) {
+        return new ResponseCacheKey(method.getFullMethodName(), CacheKeyUtils.serialize(method, request),
+                CacheKeyUtils.getHeaderValues(keyHeaders, headers), principal);
+    }
+
+    String getMethodName() {
+        return this.methodName;
+    }
+
+    ByteString getRequest() {
+        return this.request;
+    }
+
+    /**
+     * Gets the approximate number of bytes used by this key.
+     *
+     * @return The approximate size of the key.
+     */
+    int getSize() {
+        int size = this.request.size() + this.methodName.length();
+        for (final String header : this.headers) {
+            size += header == null ? 0 : header.length();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ResponseCacheKey)) {
+            return false;
+        }
+        final ResponseCacheKey other = (ResponseCacheKey) obj;
+        return this.hashCode == other.hashCode
+                && this.methodName.equals(other.methodName)
+                && this.request.equals(other.request)
+                && this.headers.equals(other.headers)
+                && Objects.equals(this.principal, other.principal);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+}
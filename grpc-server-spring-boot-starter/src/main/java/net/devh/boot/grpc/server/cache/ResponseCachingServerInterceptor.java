@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.protobuf.ByteString;
+
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.util.CacheKeyUtils;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.cache.ResponseCache.CachedResponse;
+import net.devh.boot.grpc.server.config.ResponseCacheMethodOptions;
+import net.devh.boot.grpc.server.config.ResponseCacheOptions;
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+
+/**
+ * A server interceptor that serves repeated calls to configured unary methods from a {@link ResponseCache}. If a
+ * response is cached, then the service won't be invoked at all. Only successful responses are cached, along with
+ * their headers and trailers.
+ *
+ * <p>
+ * <b>Note:</b> Only methods without side effects should be cached, because cached calls never reach the service. The
+ * interceptor should be executed after the authentication and authorization
+ * ({@link InterceptorOrder#ORDER_RESPONSE_CACHE ORDER_RESPONSE_CACHE}), so that unauthorized calls are never served
+ * from the cache.
+ * </p>
+ */
+@Slf4j
+public class ResponseCachingServerInterceptor implements ServerInterceptor {
+
+    private final Map<String, ResponseCache> configuredCaches;
+    private final Map<String, Optional<ResponseCache>> cachesByMethod = new ConcurrentHashMap<>();
+    private final PrincipalResolver principalResolver;
+
+    /**
+     * Creates a new ResponseCachingServerInterceptor. Unless configured otherwise, each principal gets its own cache
+     * entries, if the given principal resolver isn't {@link PrincipalResolver#ANONYMOUS ANONYMOUS}.
+     *
+     * @param options The options used to configure the caches.
+     * @param principalResolver The resolver used to determine the principal of per principal caches.
+     */
+    public ResponseCachingServerInterceptor(final ResponseCacheOptions options,
+            final PrincipalResolver principalResolver) {
+        requireNonNull(options, "options");
+        this.principalResolver = requireNonNull(principalResolver, "principalResolver");
+        final Map<String, ResponseCache> caches = new LinkedHashMap<>();
+        for (final Entry<String, ResponseCacheMethodOptions> entry : options.getMethods().entrySet()) {
+            caches.put(entry.getKey(), new ResponseCache(entry.getKey(), entry.getValue(),
+                    this.principalResolver != PrincipalResolver.ANONYMOUS));
+        }
+        this.configuredCaches = caches;
+    }
+
+    /**
+     * Gets all caches used by this interceptor.
+     *
+     * @return The caches used by this interceptor.
+     */
+    public Collection<ResponseCache> getCaches() {
+        return new ArrayList<>(this.configuredCaches.values());
+    }
+
+    /**
+     * Invalidates all cached responses.
+     */
+    public void invalidateAll() {
+        for (final ResponseCache cache : this.configuredCaches.values()) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Invalidates all cached responses of the given method.
+     *
+     * @param fullMethodName The full name of the method to invalidate the responses for.
+     */
+    public void invalidate(final String fullMethodName) {
+        requireNonNull(fullMethodName, "fullMethodName");
+        for (final ResponseCache cache : this.configuredCaches.values()) {
+            cache.invalidate(key -> key.getMethodName().equals(fullMethodName));
+        }
+    }
+
+    /**
+     * Invalidates all cached responses of the given method for the given request regardless of the headers or
+     * principals they were cached for.
+     *
+     * @param <ReqT> The type of the request.
+     * @param method The method to invalidate the responses for.
+     * @param request The request to invalidate the responses for.
+     */
+    public <ReqT> void invalidate(final MethodDescriptor<ReqT, ?> method, final ReqT request) {
+        final String fullMethodName = method.getFullMethodName();
+        final ByteString serialized = CacheKeyUtils.serialize(method, request);
+        for (final ResponseCache cache : this.configuredCaches.values()) {
+            cache.invalidate(key -> key.getMethodName().equals(fullMethodName)
+                    && key.getRequest().equals(serialized));
+        }
+    }
+
+    @Override
+    public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call, final Metadata headers,
+            final ServerCallHandler<ReqT, RespT> next) {
+        final ResponseCache cache = getCache(call.getMethodDescriptor()).orElse(null);
+        if (cache == null) {
+            return next.startCall(call, headers);
+        }
+        final String principal = cache.isPerPrincipal() ? this.principalResolver.resolvePrincipal(call, headers) : null;
+        final CachingServerCall<ReqT, RespT> cachingCall = new CachingServerCall<>(call, cache);
+        return new CachingListener<>(next.startCall(cachingCall, headers), cachingCall, cache, headers, principal);
+    }
+
+    private Optional<ResponseCache> getCache(final MethodDescriptor<?, ?> method) {
+        return this.cachesByMethod.computeIfAbsent(method.getFullMethodName(), fullMethodName -> {
+            if (method.getType() != MethodType.UNARY) {
+                return Optional.empty();
+            }
+            ResponseCache cache = this.configuredCaches.get(fullMethodName);
+            if (cache == null) {
+                final String serviceName = method.getServiceName();
+                cache = serviceName == null ? null : this.configuredCaches.get(serviceName);
+            }
+            if (cache != null && !method.isSafe()) {
+                log.warn("Caching responses of {}, which isn't marked as side effect free (NO_SIDE_EFFECTS)",
+                        fullMethodName);
+            }
+            return Optional.ofNullable(cache);
+        });
+    }
+
+    /**
+     * A server call that stores the response along with its headers and trailers in the cache, once the call completes
+     * successfully.
+     */
+    private static final class CachingServerCall<ReqT, RespT> extends SimpleForwardingServerCall<ReqT, RespT> {
+
+        private final ResponseCache cache;
+        private volatile ResponseCacheKey key;
+        private volatile Metadata responseHeaders;
+        private volatile RespT response;
+
+        CachingServerCall(final ServerCall<ReqT, RespT> delegate, final ResponseCache cache) {
+            super(delegate);
+            this.cache = cache;
+        }
+
+        void setKey(final ResponseCacheKey key) {
+            this.key = key;
+        }
+
+        /**
+         * Completes the call with the given cached response without storing it again.
+         *
+         * @param cached The cached response to send.
+         */
+        @SuppressWarnings("unchecked")
+        void sendCached(final CachedResponse cached) {
+            final ServerCall<ReqT, RespT> target = delegate();
+            target.sendHeaders(cached.getHeaders());
+            target.sendMessage((RespT) cached.getMessage());
+            target.close(Status.OK, cached.getTrailers());
+        }
+
+        @Override
+        public void sendHeaders(final Metadata headers) {
+            if (this.key != null) {
+                // The transport adds its own headers
+                final Metadata copy = new Metadata();
+                copy.merge(headers);
+                this.responseHeaders = copy;
+            }
+            super.sendHeaders(headers);
+        }
+
+        @Override
+        public void sendMessage(final RespT message) {
+            this.response = message;
+            super.sendMessage(message);
+        }
+
+        @Override
+        public void close(final Status status, final Metadata trailers) {
+            final ResponseCacheKey currentKey = this.key;
+            final RespT currentResponse = this.response;
+            if (status.isOk() && currentKey != null && currentResponse != null) {
+                this.cache.put(currentKey, new CachedResponse(this.responseHeaders, currentResponse, trailers));
+            }
+            super.close(status, trailers);
+        }
+
+    }
+
+    /**
+     * A listener that serves the call from the cache, if possible, instead of passing it to the service.
+     */
+    private static final class CachingListener<ReqT, RespT> extends SimpleForwardingServerCallListener<ReqT> {
+
+        private final CachingServerCall<ReqT, RespT> call;
+        private final ResponseCache cache;
+        private final Metadata headers;
+        private final String principal;
+        private ReqT request;
+
+        CachingListener(final Listener<ReqT> delegate, final CachingServerCall<ReqT, RespT> call,
+                final ResponseCache cache, final Metadata headers, final String principal) {
+            super(delegate);
+            this.call = call;
+            this.cache = cache;
+            this.headers = headers;
+            this.principal = principal;
+        }
+
+        @Override
+        public void onMessage(final ReqT message) {
+            this.request = message;
+            super.onMessage(message);
+        }
+
+        @Override
+        public void onHalfClose() {
+            if (this.request != null) {
+                final ResponseCacheKey key =
+                        this.cache.newKey(this.call.getMethodDescriptor(), this.request, this.headers, this.principal);
+                final CachedResponse cached = this.cache.get(key);
+                if (cached != null) {
+                    // Bypass the service, the delegate listener will be notified via onComplete
+                    this.call.sendCached(cached);
+                    return;
+                }
+                this.call.setKey(key);
+            }
+            super.onHalfClose();
+        }
+
+    }
+
+}
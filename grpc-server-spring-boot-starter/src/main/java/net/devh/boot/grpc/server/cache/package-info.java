@@ -0,0 +1,6 @@
+/**
+ * Contains the response cache and the request coalescing, that avoid invoking methods without side effects repeatedly
+ * for identical requests.
+ */
+
+package net.devh.boot.grpc.server.cache;
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.condition;
+
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+
+/**
+ * A condition that matches if the {@code grpc.server.executor.type} requires a dedicated executor. This is the case for
+ * {@code BOUNDED} and {@code VIRTUAL} executors and for {@code AUTO}, if {@code spring.threads.virtual.enabled} is set.
+ */
+public class ConditionalOnServerExecutor extends AnyNestedCondition {
+
+    ConditionalOnServerExecutor() {
+        super(ConfigurationPhase.REGISTER_BEAN);
+    }
+
+    @ConditionalOnProperty(name = "grpc.server.executor.type", havingValue = "BOUNDED")
+    static class BoundedExecutorCondition {
+    }
+
+    @ConditionalOnProperty(name = "grpc.server.executor.type", havingValue = "VIRTUAL")
+    static class VirtualExecutorCondition {
+    }
+
+    @ConditionalOnProperty(name = "grpc.server.executor.type", havingValue = "AUTO", matchIfMissing = true)
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    static class AutoVirtualExecutorCondition {
+    }
+
+}
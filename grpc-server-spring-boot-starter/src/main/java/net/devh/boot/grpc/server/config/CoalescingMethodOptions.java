@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * The request coalescing options of a method or service.
+ */
+@Data
+public class CoalescingMethodOptions {
+
+    /**
+     * The names of the (ASCII) request headers, that have to match in addition to the request for calls to be
+     * coalesced. Defaults to none.
+     *
+     * @param keyHeaders The names of the headers that have to match.
+     * @return The names of the headers that have to match.
+     */
+    private List<String> keyHeaders = new ArrayList<>();
+
+    /**
+     * Whether only calls of the same principal are coalesced. The principal is resolved the same way as for the rate
+     * limits. Defaults to {@code true}, if a {@code PrincipalResolver} is present (e.g. if spring security is
+     * configured), so that the responses of authenticated calls are never shared between principals. Defaults to
+     * {@code false} otherwise.
+     *
+     * @param perPrincipal Whether only calls of the same principal are coalesced or null to use the default.
+     * @return True, if only calls of the same principal are coalesced. False, if not. Null, if the default is used.
+     */
+    private Boolean perPrincipal = null;
+
+}
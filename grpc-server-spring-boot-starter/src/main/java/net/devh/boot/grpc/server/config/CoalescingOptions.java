@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * GRPC request coalescing options.
+ */
+@Data
+public class CoalescingOptions {
+
+    /**
+     * Whether identical concurrent calls to the configured methods should be coalesced. Defaults to {@code false}.
+     *
+     * @param enabled Whether the request coalescing is enabled.
+     * @return True, if the request coalescing is enabled. False otherwise.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The coalescing options for individual methods ({@code package.Service/Method}) or services
+     * ({@code package.Service}). Method specific options take precedence over service specific ones. Only unary
+     * methods are coalesced, methods without options are never coalesced.
+     *
+     * @param methods The coalescing options for the methods.
+     * @return The coalescing options for the methods.
+     */
+    private Map<String, CoalescingMethodOptions> methods = new LinkedHashMap<>();
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+/**
+ * Enum to specify the algorithm that is used to adapt the concurrency limit based on the observed latency.
+ */
+public enum ConcurrencyLimitAlgorithm {
+    /**
+     * Compares the short term latency with the long term latency and reduces the limit proportionally if the latency
+     * increases (queueing). Grows the limit by roughly the square root of the current limit otherwise.
+     *
+     * @see net.devh.boot.grpc.server.limit.GradientLimit
+     */
+    GRADIENT,
+    /**
+     * Additive increase, multiplicative decrease. Increases the limit by one for each successful call and reduces it by
+     * the backoff ratio if a call exceeds the latency threshold or is dropped.
+     *
+     * @see net.devh.boot.grpc.server.limit.AimdLimit
+     */
+    AIMD
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationUnit;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+
+/**
+ * GRPC adaptive concurrency limit options. The options inherited from {@link ConcurrencyLimiterOptions} configure the
+ * limiter that is shared by all methods without a dedicated limiter.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+public class ConcurrencyLimitOptions extends ConcurrencyLimiterOptions {
+
+    /**
+     * Whether the server should limit the number of concurrent calls based on the observed latency. Defaults to
+     * {@code false}.
+     *
+     * @param enabled Whether the concurrency limit is enabled.
+     * @return True, if the concurrency limit is enabled. False otherwise.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The time after which clients should retry rejected calls. This is sent to the clients using the
+     * {@code grpc-retry-pushback-ms} trailer. If set to a negative value, then the clients are told not to retry. If
+     * not set ({@code null}), then no trailer will be sent. Defaults to {@code 100ms}. Default unit
+     * {@link ChronoUnit#MILLIS MILLIS}.
+     *
+     * @param retryPushback The time after which clients should retry rejected calls.
+     * @return The time after which clients should retry rejected calls or null.
+     */
+    @DurationUnit(ChronoUnit.MILLIS)
+    private Duration retryPushback = Duration.ofMillis(100);
+
+    /**
+     * Dedicated limiters for individual methods ({@code package.Service/Method}) or services ({@code package.Service}).
+     * Method specific limiters take precedence over service specific ones. Unspecified options use their defaults.
+     *
+     * @param methods The options for the dedicated limiters.
+     * @return The options for the dedicated limiters.
+     */
+    private Map<String, ConcurrencyLimiterOptions> methods = new LinkedHashMap<>();
+
+}
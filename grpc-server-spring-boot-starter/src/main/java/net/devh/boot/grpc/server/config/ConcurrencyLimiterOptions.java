@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.boot.convert.DurationUnit;
+
+import lombok.Data;
+
+/**
+ * The options of a single adaptive concurrency limiter.
+ */
+@Data
+public class ConcurrencyLimiterOptions {
+
+    /**
+     * The algorithm used to adapt the limit. Defaults to {@link ConcurrencyLimitAlgorithm#GRADIENT GRADIENT}.
+     *
+     * @param algorithm The algorithm used to adapt the limit.
+     * @return GRADIENT or AIMD.
+     */
+    private ConcurrencyLimitAlgorithm algorithm = ConcurrencyLimitAlgorithm.GRADIENT;
+
+    /**
+     * The number of concurrent calls that are permitted before any latency has been observed. Defaults to {@code 20}.
+     *
+     * @param initialLimit The initial limit.
+     * @return The initial limit.
+     */
+    private int initialLimit = 20;
+
+    /**
+     * The lower bound for the limit. Defaults to {@code 1}.
+     *
+     * @param minLimit The minimum limit.
+     * @return The minimum limit.
+     */
+    private int minLimit = 1;
+
+    /**
+     * The upper bound for the limit. Defaults to {@code 1000}.
+     *
+     * @param maxLimit The maximum limit.
+     * @return The maximum limit.
+     */
+    private int maxLimit = 1000;
+
+    /**
+     * The factor by which the current latency may exceed the long term latency before the
+     * {@link ConcurrencyLimitAlgorithm#GRADIENT GRADIENT} algorithm reduces the limit. Defaults to {@code 1.5}.
+     *
+     * @param tolerance The latency tolerance.
+     * @return The latency tolerance.
+     */
+    private double tolerance = 1.5;
+
+    /**
+     * The weight of new limit estimates of the {@link ConcurrencyLimitAlgorithm#GRADIENT GRADIENT} algorithm, between
+     * {@code 0} (never change) and {@code 1} (no smoothing). Defaults to {@code 0.2}.
+     *
+     * @param smoothing The smoothing factor.
+     * @return The smoothing factor.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * The latency above which the {@link ConcurrencyLimitAlgorithm#AIMD AIMD} algorithm treats a call as dropped and
+     * reduces the limit. Defaults to {@code 1s}. Default unit {@link ChronoUnit#MILLIS MILLIS}.
+     *
+     * @param latencyThreshold The latency threshold.
+     * @return The latency threshold.
+     */
+    @DurationUnit(ChronoUnit.MILLIS)
+    private Duration latencyThreshold = Duration.ofSeconds(1);
+
+    /**
+     * The factor the {@link ConcurrencyLimitAlgorithm#AIMD AIMD} algorithm multiplies the limit with, if a call was
+     * dropped. Defaults to {@code 0.9}.
+     *
+     * @param backoffRatio The backoff ratio.
+     * @return The backoff ratio.
+     */
+    private double backoffRatio = 0.9;
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.boot.convert.DurationUnit;
+
+import lombok.Data;
+
+/**
+ * GRPC server drain options, that control how the server is taken out of service during shutdown.
+ */
+@Data
+public class DrainOptions {
+
+    /**
+     * Whether the server should deregister itself from the discovery service, before it stops accepting new calls.
+     * Requires a spring-cloud {@code ServiceRegistry} and {@code Registration}. Defaults to {@code true}.
+     *
+     * @param deregistrationEnabled Whether the server should deregister itself.
+     * @return True, if the server should deregister itself. False otherwise.
+     */
+    private boolean deregistrationEnabled = true;
+
+    /**
+     * The time to wait after the health status has been set to {@code NOT_SERVING} and the server has been
+     * deregistered, before the server stops accepting new calls. This gives the clients and load balancers time to
+     * notice the changes and stop sending new calls to this instance. Defaults to {@code 0s}. Default unit
+     * {@link ChronoUnit#SECONDS SECONDS}.
+     *
+     * @param propagationDelay The time to wait for the changes to propagate.
+     * @return The time to wait for the changes to propagate.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration propagationDelay = Duration.ZERO;
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.boot.convert.DurationUnit;
+
+import lombok.Data;
+
+/**
+ * GRPC executor options.
+ */
+@Data
+public class ExecutorOptions {
+
+    /**
+     * The type of executor that should be used. Defaults to {@link ExecutorType#AUTO AUTO}.
+     *
+     * @param type The type of executor to use.
+     * @return AUTO, CACHED, BOUNDED, VIRTUAL or DIRECT.
+     */
+    private ExecutorType type = ExecutorType.AUTO;
+
+    /**
+     * The number of threads to keep in the pool, even if they are idle. Only used by {@link ExecutorType#BOUNDED
+     * BOUNDED} executors. Defaults to {@code 16}.
+     *
+     * @param corePoolSize The number of core threads.
+     * @return The number of core threads.
+     */
+    private int corePoolSize = 16;
+
+    /**
+     * The maximum number of threads in the pool. Additional threads will only be started if the queue is full. Only
+     * used by {@link ExecutorType#BOUNDED BOUNDED} executors. Defaults to {@code 200}.
+     *
+     * @param maxPoolSize The maximum number of threads.
+     * @return The maximum number of threads.
+     */
+    private int maxPoolSize = 200;
+
+    /**
+     * The maximum number of tasks that wait for a thread. If set to {@code 0}, tasks will be handed off directly to a
+     * thread. Only used by {@link ExecutorType#BOUNDED BOUNDED} executors. Defaults to {@code 1000}.
+     *
+     * @param queueCapacity The capacity of the task queue.
+     * @return The capacity of the task queue.
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * The time after which idle non-core threads will be terminated. Only used by {@link ExecutorType#BOUNDED BOUNDED}
+     * executors. Defaults to {@code 60s}. Default unit {@link ChronoUnit#SECONDS SECONDS}.
+     *
+     * @param keepAlive The time idle threads are kept alive.
+     * @return The time idle threads are kept alive.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration keepAlive = Duration.of(60, ChronoUnit.SECONDS);
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+/**
+ * Enum to specify the type of executor that should be used to execute the gRPC calls.
+ */
+public enum ExecutorType {
+    /**
+     * Uses {@link #VIRTUAL virtual threads} if {@code spring.threads.virtual.enabled} is set and the JVM supports them.
+     * Otherwise this is equivalent to {@link #CACHED}.
+     */
+    AUTO,
+    /**
+     * Uses gRPC's default executor, an unbounded cached thread pool.
+     */
+    CACHED,
+    /**
+     * Uses a thread pool with a fixed number of core threads, an upper bound for the number of threads and a bounded
+     * queue. Calls that exceed the queue capacity will be rejected with {@code RESOURCE_EXHAUSTED}.
+     *
+     * @see net.devh.boot.grpc.server.executor.BoundedExecutor
+     */
+    BOUNDED,
+    /**
+     * Uses a new virtual thread for each task. Requires Java 21 or higher.
+     *
+     * @see net.devh.boot.grpc.server.executor.VirtualThreadExecutor
+     */
+    VIRTUAL,
+    /**
+     * Executes the calls directly on the transport threads. Only use this if none of your services block.
+     *
+     * @see io.grpc.ServerBuilder#directExecutor()
+     */
+    DIRECT
+}
@@ -24,9 +24,12 @@
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.convert.DataSizeUnit;
 import org.springframework.boot.convert.DurationUnit;
@@ -41,6 +44,7 @@
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
 import lombok.Data;
 import net.devh.boot.grpc.common.security.KeyStoreUtils;
+import net.devh.boot.grpc.common.security.SslProvider;
 import net.devh.boot.grpc.common.util.GrpcUtils;
 import net.devh.boot.grpc.common.util.SocketUtils;
 
@@ -99,6 +103,16 @@ public class GrpcServerProperties {
      */
     private String inProcessName;
 
+    /**
+     * Additional listeners that serve the same services as this server, e.g. a domain socket for local sidecars
+     * alongside the tcp port for remote clients. Each listener has its own address, security and limits and is started
+     * and stopped together with the main server. Only supported by the netty based servers.
+     *
+     * @param listeners The options for the additional listeners by their name.
+     * @return The options for the additional listeners by their name.
+     */
+    private Map<String, ListenerOptions> listeners = new LinkedHashMap<>();
+
     /**
      * The time to wait for the server to gracefully shutdown (completing all requests after the server started to
      * shutdown). If set to a negative value, the server waits forever. If set to {@code 0} the server will force
@@ -110,6 +124,24 @@ public class GrpcServerProperties {
     @DurationUnit(ChronoUnit.SECONDS)
     private Duration shutdownGracePeriod = Duration.of(30, ChronoUnit.SECONDS);
 
+    /**
+     * The options for the phased drain on shutdown. Before the server stops accepting new calls, its health status is
+     * set to {@code NOT_SERVING} and it is deregistered from the discovery service.
+     *
+     * @param drain The options for the drain on shutdown.
+     * @return The options for the drain on shutdown.
+     */
+    private DrainOptions drain = new DrainOptions();
+
+    /**
+     * The options for the warm-up, that replays sample calls against the services before the server starts accepting
+     * calls. This gives the JIT compiler the chance to optimize the hot paths, before the first client calls arrive.
+     *
+     * @param warmUp The options for the warm-up.
+     * @return The options for the warm-up.
+     */
+    private WarmUpOptions warmUp = new WarmUpOptions();
+
     /**
      * Setting to enable keepAlive. Default to {@code false}.
      *
@@ -220,6 +252,93 @@ public class GrpcServerProperties {
     @DataSizeUnit(DataUnit.BYTES)
     private DataSize maxInboundMetadataSize = null;
 
+    /**
+     * Whether the inbound protobuf messages should be parsed directly from the transport's buffers, instead of copying
+     * them into an intermediate heap array first. This reduces the allocations for large messages. Defaults to
+     * {@code false}.
+     *
+     * @param zeroCopyEnabled Whether the messages should be parsed directly from the transport's buffers.
+     * @return True, if the messages should be parsed directly from the transport's buffers. False otherwise.
+     */
+    private boolean zeroCopyEnabled = false;
+
+    /**
+     * The initial HTTP/2 flow control window of each stream. If not set ({@code null}) then
+     * {@link NettyServerBuilder#DEFAULT_FLOW_CONTROL_WINDOW netty's default} (1MiB) will be used. If
+     * {@link #autoFlowControl} is enabled, then the window will be adjusted based on the bandwidth-delay product (BDP)
+     * of the connection. Only supported by the netty based servers.
+     *
+     * @see NettyServerBuilder#initialFlowControlWindow(int)
+     * @see NettyServerBuilder#flowControlWindow(int)
+     *
+     * @param flowControlWindow The initial flow control window.
+     * @return The initial flow control window or null.
+     */
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize flowControlWindow = null;
+
+    /**
+     * Whether the flow control window should be automatically tuned based on the bandwidth-delay product (BDP) of the
+     * connection. If disabled, the {@link #flowControlWindow} is fixed. Defaults to {@code true}.
+     *
+     * @param autoFlowControl Whether the flow control window should be automatically tuned.
+     * @return True, if the flow control window will be automatically tuned. False otherwise.
+     */
+    private boolean autoFlowControl = true;
+
+    /**
+     * The maximum number of concurrent calls (HTTP/2 streams) permitted for each incoming connection. If not set
+     * ({@code null}) then the number of calls is unlimited. Only supported by the netty based servers.
+     *
+     * @see NettyServerBuilder#maxConcurrentCallsPerConnection(int)
+     *
+     * @param maxConcurrentCallsPerConnection The maximum number of concurrent calls per connection.
+     * @return The maximum number of concurrent calls per connection or null.
+     */
+    private Integer maxConcurrentCallsPerConnection = null;
+
+    /**
+     * The number of pending outbound bytes of a connection at which it becomes writable again after it exceeded the
+     * {@link #writeBufferHighWaterMark}. If not set ({@code null}) then netty's default (32KiB) will be used, unless
+     * it exceeds the high water mark. Must not exceed the high water mark. Only supported by the netty based servers.
+     *
+     * @param writeBufferLowWaterMark The low water mark of the write buffer.
+     * @return The low water mark of the write buffer or null.
+     */
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize writeBufferLowWaterMark = null;
+
+    /**
+     * The number of pending outbound bytes of a connection at which it stops being writable. If not set
+     * ({@code null}) then netty's default (64KiB) will be used, unless it is below the low water mark. Only supported
+     * by the netty based servers.
+     *
+     * @param writeBufferHighWaterMark The high water mark of the write buffer.
+     * @return The high water mark of the write buffer or null.
+     */
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize writeBufferHighWaterMark = null;
+
+    /**
+     * The size of the socket send buffer ({@code SO_SNDBUF}) of each connection. If not set ({@code null}) then the
+     * operating system's default will be used. Only supported by the netty based servers.
+     *
+     * @param sendBufferSize The size of the socket send buffer.
+     * @return The size of the socket send buffer or null.
+     */
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize sendBufferSize = null;
+
+    /**
+     * The size of the socket receive buffer ({@code SO_RCVBUF}) of each connection. If not set ({@code null}) then the
+     * operating system's default will be used. Only supported by the netty based servers.
+     *
+     * @param receiveBufferSize The size of the socket receive buffer.
+     * @return The size of the socket receive buffer or null.
+     */
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize receiveBufferSize = null;
+
     /**
      * Whether gRPC health service is enabled or not. Defaults to {@code true}.
      *
@@ -246,9 +365,94 @@ public class GrpcServerProperties {
      */
     private boolean reflectionServiceEnabled = true;
 
+    /**
+     * The executor that should be used to execute the gRPC calls. Defaults the type to {@link ExecutorType#AUTO AUTO}.
+     *
+     * @param executor The options for the executor.
+     * @return The options for the executor.
+     */
+    private ExecutorOptions executor = new ExecutorOptions();
+
+    /**
+     * Named executors that can be used to isolate individual services from each other. They can be referenced via
+     * {@link net.devh.boot.grpc.server.service.GrpcService#executor() GrpcService#executor}. The type
+     * {@link ExecutorType#AUTO AUTO} falls back to {@link ExecutorType#BOUNDED BOUNDED}, if virtual threads are
+     * disabled.
+     *
+     * @param executors The options for the named executors.
+     * @return The options for the named executors.
+     */
+    private Map<String, ExecutorOptions> executors = new LinkedHashMap<>();
+
+    /**
+     * The adaptive concurrency limit that rejects excess calls with {@link io.grpc.Status#RESOURCE_EXHAUSTED
+     * RESOURCE_EXHAUSTED} once the latency increases. Defaults to disabled.
+     *
+     * @param concurrencyLimit The options for the concurrency limit.
+     * @return The options for the concurrency limit.
+     */
+    private ConcurrencyLimitOptions concurrencyLimit = new ConcurrencyLimitOptions();
+
+    /**
+     * The token bucket based rate limits for individual methods or services, optionally per authenticated principal.
+     * Calls that exceed the limit are rejected with {@link io.grpc.Status#RESOURCE_EXHAUSTED RESOURCE_EXHAUSTED}.
+     * Defaults to disabled.
+     *
+     * @param rateLimits The options for the rate limits.
+     * @return The options for the rate limits.
+     */
+    private RateLimitOptions rateLimits = new RateLimitOptions();
+
+    /**
+     * The budgets for the inbound bytes, that have been received across all calls, but have not yet been processed by
+     * the services. While a budget is exhausted, new calls are rejected with {@link io.grpc.Status#RESOURCE_EXHAUSTED
+     * RESOURCE_EXHAUSTED} and running calls stop reading further messages. Defaults to disabled.
+     *
+     * @param inboundMemoryBudget The options for the inbound memory budgets.
+     * @return The options for the inbound memory budgets.
+     */
+    private InboundMemoryBudgetOptions inboundMemoryBudget = new InboundMemoryBudgetOptions();
+
+    /**
+     * The caches for the responses of individual unary methods or services, that don't have any side effects. Cached
+     * responses are served without invoking the service. Defaults to disabled.
+     *
+     * @param responseCache The options for the response caches.
+     * @return The options for the response caches.
+     */
+    private ResponseCacheOptions responseCache = new ResponseCacheOptions();
+
+    /**
+     * The options for coalescing identical concurrent calls to individual unary methods or services, so that the
+     * service is only invoked once for all of them. Defaults to disabled.
+     *
+     * @param coalescing The options for the request coalescing.
+     * @return The options for the request coalescing.
+     */
+    private CoalescingOptions coalescing = new CoalescingOptions();
+
+    /**
+     * The options for the pipeline service, that accepts many small unary calls multiplexed over a single bidi stream.
+     * Defaults to disabled.
+     *
+     * @param pipeline The options for the pipeline service.
+     * @return The options for the pipeline service.
+     */
+    private PipelineOptions pipeline = new PipelineOptions();
+
+    /**
+     * The options for reporting the server's load to the clients, so that they can send more calls to less loaded
+     * servers. Defaults to disabled.
+     *
+     * @param loadReporting The options for the load reporting.
+     * @return The options for the load reporting.
+     */
+    private LoadReportingOptions loadReporting = new LoadReportingOptions();
+
     /**
      * Security options for transport security. Defaults to disabled. We strongly recommend to enable this though.
      *
+     * @param security The security options for transport security.
      * @return The security options for transport security.
      */
     private final Security security = new Security();
@@ -422,6 +626,67 @@ public void setProtocols(final String protocols) {
             this.protocols = protocols.split("[ :,]");
         }
 
+        /**
+         * Whether the key and trust material should be reloaded, once the underlying files change. New handshakes use
+         * the new material, while existing connections stay open. Requires file based resources. Defaults to
+         * {@code false}.
+         *
+         * @param reloadEnabled Whether the key and trust material should be reloaded on changes.
+         * @return True, if the key and trust material should be reloaded on changes. False otherwise.
+         */
+        private boolean reloadEnabled = false;
+
+        /**
+         * The time to wait for further changes to the files, before the material is reloaded. Defaults to {@code 1s}.
+         * Default unit {@link ChronoUnit#MILLIS MILLIS}.
+         *
+         * @param reloadDelay The time to wait for further changes.
+         * @return The time to wait for further changes.
+         */
+        @DurationUnit(ChronoUnit.MILLIS)
+        private Duration reloadDelay = Duration.ofSeconds(1);
+
+        /**
+         * The implementation that should be used for the TLS handshakes and encryption. If {@code null}, then OpenSSL
+         * will be used if {@code netty-tcnative} is available, otherwise the JDK's implementation. Using
+         * {@link SslProvider#OPENSSL OPENSSL} or {@link SslProvider#OPENSSL_REFCNT OPENSSL_REFCNT} without
+         * {@code netty-tcnative} will fail the server startup.
+         *
+         * @param provider The TLS implementation to use or null to auto detect it.
+         * @return The TLS implementation to use or null to auto detect it.
+         */
+        private SslProvider provider = null;
+
+        /**
+         * The maximum number of TLS sessions that are cached for session resumption. Resumed sessions skip the
+         * expensive key exchange. If {@code 0}, then the provider's default will be used.
+         *
+         * @param sessionCacheSize The maximum number of cached sessions.
+         * @return The maximum number of cached sessions.
+         */
+        private long sessionCacheSize = 0;
+
+        /**
+         * The time after which cached TLS sessions expire and can no longer be resumed. If {@code null}, then the
+         * provider's default will be used. Default unit {@link ChronoUnit#SECONDS SECONDS}.
+         *
+         * @param sessionTimeout The time after which cached sessions expire.
+         * @return The time after which cached sessions expire or null.
+         */
+        @DurationUnit(ChronoUnit.SECONDS)
+        private Duration sessionTimeout = null;
+
+        /**
+         * Whether TLS session tickets (RFC 5077) should be issued to the clients, so that they can resume their
+         * sessions without a server side session cache. Only supported by the OpenSSL based providers, the JDK
+         * implementation is controlled by the {@code jdk.tls.server.enableSessionTicketExtension} system property.
+         * Defaults to {@code false}.
+         *
+         * @param sessionTicketsEnabled Whether session tickets should be issued.
+         * @return True, if session tickets should be issued. False otherwise.
+         */
+        private boolean sessionTicketsEnabled = false;
+
 
     }
 
@@ -440,6 +705,31 @@ public int getPort() {
         return this.port;
     }
 
+    /**
+     * Creates the properties for the given additional listener. The returned properties are a copy of these properties
+     * with the address, port, security and limits of the listener.
+     *
+     * @param listener The listener to create the properties for.
+     * @return The newly created properties for the listener.
+     */
+    public GrpcServerProperties forListener(final ListenerOptions listener) {
+        final GrpcServerProperties copy = new GrpcServerProperties();
+        BeanUtils.copyProperties(this, copy, "port", "inProcessName", "listeners", "security");
+        copy.setAddress(listener.getAddress());
+        copy.setPort(listener.getPort());
+        BeanUtils.copyProperties(listener.getSecurity(), copy.getSecurity());
+        if (listener.getMaxInboundMessageSize() != null) {
+            copy.setMaxInboundMessageSize(listener.getMaxInboundMessageSize());
+        }
+        if (listener.getMaxInboundMetadataSize() != null) {
+            copy.setMaxInboundMetadataSize(listener.getMaxInboundMetadataSize());
+        }
+        if (listener.getMaxConcurrentCallsPerConnection() != null) {
+            copy.setMaxConcurrentCallsPerConnection(listener.getMaxConcurrentCallsPerConnection());
+        }
+        return copy;
+    }
+
     /**
      * Sets the maximum message size allowed to be received by the server. If not set ({@code null}) then it will
      * default to {@link GrpcUtil#DEFAULT_MAX_MESSAGE_SIZE gRPC's default}. If set to {@code -1} then it will use the
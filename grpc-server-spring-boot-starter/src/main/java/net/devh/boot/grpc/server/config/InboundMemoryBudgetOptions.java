@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.convert.DataSizeUnit;
+import org.springframework.util.unit.DataSize;
+import org.springframework.util.unit.DataUnit;
+
+import lombok.Data;
+
+/**
+ * GRPC inbound memory budget options, that limit the number of bytes that have been received, but have not yet been
+ * processed by the services.
+ */
+@Data
+public class InboundMemoryBudgetOptions {
+
+    /**
+     * Whether the server should enforce the inbound memory budgets. Defaults to {@code false}.
+     *
+     * @param enabled Whether the inbound memory budgets are enabled.
+     * @return True, if the inbound memory budgets are enabled. False otherwise.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The number of bytes that may be buffered across all calls. If not set ({@code null}), then a quarter of the
+     * maximum heap size is used. Default unit {@link DataUnit#BYTES BYTES}.
+     *
+     * @param maxSize The number of bytes that may be buffered across all calls.
+     * @return The number of bytes that may be buffered across all calls or null.
+     */
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize maxSize = null;
+
+    /**
+     * The additional budgets for individual methods ({@code package.Service/Method}) or services
+     * ({@code package.Service}). Method specific budgets take precedence over service specific ones. Calls always count
+     * against the server wide budget as well. Default unit {@link DataUnit#BYTES BYTES}.
+     *
+     * @param methods The budgets for individual methods or services.
+     * @return The budgets for individual methods or services.
+     */
+    @DataSizeUnit(DataUnit.BYTES)
+    private Map<String, DataSize> methods = new LinkedHashMap<>();
+
+}
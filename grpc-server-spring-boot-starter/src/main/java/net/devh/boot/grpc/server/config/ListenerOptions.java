@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+import net.devh.boot.grpc.common.util.GrpcUtils;
+
+/**
+ * The options of an additional listener of the gRPC server. Each listener serves the same services as the main server,
+ * but uses its own address, security and limits. Unset limits are inherited from the main server.
+ */
+@Data
+public class ListenerOptions {
+
+    /**
+     * The address the listener binds to. Defaults to {@link GrpcServerProperties#ANY_IP_ADDRESS "*"}. Besides ip
+     * addresses this also supports domain socket addresses ({@link GrpcUtils#DOMAIN_SOCKET_ADDRESS_PREFIX unix:}) and
+     * in-process names ({@link GrpcUtils#IN_PROCESS_ADDRESS_PREFIX in-process:}).
+     *
+     * @param address The address to bind to.
+     * @return The address the listener should bind to.
+     */
+    private String address = GrpcServerProperties.ANY_IP_ADDRESS;
+
+    /**
+     * The port the listener binds to. Only used for ip addresses. If set to {@code 0} a random available port will be
+     * selected and used. Defaults to {@code 0}.
+     *
+     * @param port The port the listener should listen on.
+     * @return The port the listener will listen on.
+     */
+    private int port = 0;
+
+    /**
+     * The transport security of the listener. Defaults to disabled, regardless of the main server's security.
+     *
+     * @param security The security configuration of the listener.
+     * @return The security configuration of the listener.
+     */
+    private GrpcServerProperties.Security security = new GrpcServerProperties.Security();
+
+    /**
+     * The maximum message size allowed to be received by the listener. If not set ({@code null}) then the main server's
+     * limit will be used.
+     *
+     * @param maxInboundMessageSize The maximum size allowed for incoming messages or null.
+     * @return The maximum size allowed for incoming messages or null.
+     */
+    private DataSize maxInboundMessageSize;
+
+    /**
+     * The maximum metadata size allowed to be received by the listener. If not set ({@code null}) then the main
+     * server's limit will be used.
+     *
+     * @param maxInboundMetadataSize The maximum size allowed for incoming metadata or null.
+     * @return The maximum size allowed for incoming metadata or null.
+     */
+    private DataSize maxInboundMetadataSize;
+
+    /**
+     * The maximum number of concurrent calls per connection. If not set ({@code null}) then the main server's limit
+     * will be used.
+     *
+     * @param maxConcurrentCallsPerConnection The maximum number of concurrent calls per connection or null.
+     * @return The maximum number of concurrent calls per connection or null.
+     */
+    private Integer maxConcurrentCallsPerConnection;
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.boot.convert.DurationUnit;
+
+import lombok.Data;
+
+/**
+ * GRPC backend load reporting options, that control how the server reports its utilization to the clients using the
+ * Open Request Cost Aggregation (ORCA) protocol. Requires {@code io.grpc:grpc-xds}.
+ */
+@Data
+public class LoadReportingOptions {
+
+    /**
+     * Whether the server should report its load to the clients. The load is attached to the trailers of every call and
+     * is also available via the out-of-band ORCA service, if that is enabled. Clients can use it with the
+     * {@code weighted_round_robin} load balancing policy. Defaults to {@code false}.
+     *
+     * @param enabled Whether the load reporting is enabled.
+     * @return True, if the load reporting is enabled. False otherwise.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Whether the server should provide the out-of-band ORCA service, that periodically streams the load reports to
+     * the clients, without attaching them to every call. Defaults to {@code true}.
+     *
+     * @param outOfBand Whether the out-of-band ORCA service is enabled.
+     * @return True, if the out-of-band ORCA service is enabled. False otherwise.
+     */
+    private boolean outOfBand = true;
+
+    /**
+     * The minimum interval between two out-of-band reports. Clients that request a shorter interval will receive the
+     * reports at this interval instead. Defaults to {@code 1s}. Default unit {@link ChronoUnit#SECONDS SECONDS}.
+     *
+     * @param minReportingInterval The minimum interval between two out-of-band reports.
+     * @return The minimum interval between two out-of-band reports.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration minReportingInterval = Duration.ofSeconds(1);
+
+    /**
+     * The interval in which the utilization sources are polled and the rate of calls and errors are calculated.
+     * Defaults to {@code 1s}. Default unit {@link ChronoUnit#SECONDS SECONDS}.
+     *
+     * @param refreshInterval The interval in which the reported load is updated.
+     * @return The interval in which the reported load is updated.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration refreshInterval = Duration.ofSeconds(1);
+
+    /**
+     * The number of concurrent calls at which the server is considered to be fully utilized. Used to report the calls
+     * in flight as {@code inflight} utilization. Set to {@code 0} to not report the calls in flight. Defaults to
+     * {@code 100}.
+     *
+     * @param maxInFlightCalls The number of concurrent calls that fully utilize the server.
+     * @return The number of concurrent calls that fully utilize the server.
+     */
+    private int maxInFlightCalls = 100;
+
+    /**
+     * Whether the process's CPU load should be reported as {@code cpu} utilization. Defaults to {@code true}.
+     *
+     * @param cpuEnabled Whether the CPU load should be reported.
+     * @return True, if the CPU load should be reported. False otherwise.
+     */
+    private boolean cpuEnabled = true;
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import lombok.Data;
+
+/**
+ * GRPC pipeline options.
+ */
+@Data
+public class PipelineOptions {
+
+    /**
+     * Whether the server should accept pipeline streams, that multiplex many small unary calls over a single bidi
+     * stream. The logical calls are dispatched to the regular service implementations. Defaults to {@code false}.
+     *
+     * @param enabled Whether the pipeline service is enabled.
+     * @return True, if the pipeline service is enabled. False otherwise.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The maximum number of logical calls that are processed concurrently per pipeline stream. Additional requests are
+     * not read from the stream until one of the calls completes, so that the client is slowed down by the stream's
+     * flow control. Defaults to {@code 100}.
+     *
+     * @param maxConcurrentCalls The maximum number of concurrent logical calls per stream.
+     * @return The maximum number of concurrent logical calls per stream.
+     */
+    private int maxConcurrentCalls = 100;
+
+}
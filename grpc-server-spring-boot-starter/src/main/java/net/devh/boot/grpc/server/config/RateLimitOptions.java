@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationUnit;
+
+import lombok.Data;
+
+/**
+ * GRPC rate limit options.
+ */
+@Data
+public class RateLimitOptions {
+
+    /**
+     * Whether the server should enforce the configured rate limits. Defaults to {@code false}.
+     *
+     * @param enabled Whether the rate limits are enabled.
+     * @return True, if the rate limits are enabled. False otherwise.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The maximum number of principal specific buckets per limiter. If exceeded, then idle buckets are discarded first,
+     * followed by arbitrary ones, so that high-cardinality principals cannot exhaust the memory. Defaults to
+     * {@code 10000}.
+     *
+     * @param maxPrincipals The maximum number of principal specific buckets per limiter.
+     * @return The maximum number of principal specific buckets per limiter.
+     */
+    private int maxPrincipals = 10000;
+
+    /**
+     * The time after which clients should retry rejected calls. This is sent to the clients using the
+     * {@code grpc-retry-pushback-ms} trailer. If not set ({@code null}), then the time until the next permit becomes
+     * available is used. Default unit {@link ChronoUnit#MILLIS MILLIS}.
+     *
+     * @param retryPushback The time after which clients should retry rejected calls.
+     * @return The time after which clients should retry rejected calls or null.
+     */
+    @DurationUnit(ChronoUnit.MILLIS)
+    private Duration retryPushback;
+
+    /**
+     * The rate limits for individual methods ({@code package.Service/Method}) or services ({@code package.Service}).
+     * Method specific limits take precedence over service specific ones. Methods without a limit are not limited.
+     *
+     * @param methods The options for the rate limiters.
+     * @return The options for the rate limiters.
+     */
+    private Map<String, RateLimiterOptions> methods = new LinkedHashMap<>();
+
+}
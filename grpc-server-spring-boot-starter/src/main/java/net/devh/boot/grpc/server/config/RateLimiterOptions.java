@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import lombok.Data;
+
+/**
+ * The options of a single token bucket based rate limiter.
+ */
+@Data
+public class RateLimiterOptions {
+
+    /**
+     * The number of calls per second that are permitted on average. Must be greater than zero.
+     *
+     * @param permitsPerSecond The number of permits per second.
+     * @return The number of permits per second.
+     */
+    private double permitsPerSecond;
+
+    /**
+     * The maximum number of calls that may be permitted at once, if the limiter has been idle for a while. If not set
+     * ({@code null}), then the limiter permits up to one second worth of calls at once.
+     *
+     * @param burst The maximum burst size.
+     * @return The maximum burst size or null.
+     */
+    private Integer burst;
+
+    /**
+     * Whether each authenticated principal gets its own bucket. The principal is obtained from the
+     * {@link net.devh.boot.grpc.server.security.interceptors.AuthenticatingServerInterceptor#AUTHENTICATION_CONTEXT_KEY
+     * authentication} of the call. All unauthenticated calls share a single bucket. Defaults to {@code false}.
+     *
+     * @param perPrincipal Whether the limit applies to each principal individually.
+     * @return True, if the limit applies to each principal individually. False otherwise.
+     */
+    private boolean perPrincipal = false;
+
+}
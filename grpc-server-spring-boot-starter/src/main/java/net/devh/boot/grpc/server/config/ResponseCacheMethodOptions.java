@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.convert.DataSizeUnit;
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.util.unit.DataSize;
+import org.springframework.util.unit.DataUnit;
+
+import lombok.Data;
+
+/**
+ * The options for the response cache of a method or service.
+ */
+@Data
+public class ResponseCacheMethodOptions {
+
+    /**
+     * The maximum size of the serialized requests and responses in the cache. If exceeded, then the least valuable
+     * entries are evicted, based on their recent access frequency. Defaults to {@code 10MB}. Default unit
+     * {@link DataUnit#BYTES BYTES}.
+     *
+     * @param maxSize The maximum size of the cache.
+     * @return The maximum size of the cache.
+     */
+    @DataSizeUnit(DataUnit.BYTES)
+    private DataSize maxSize = DataSize.ofMegabytes(10);
+
+    /**
+     * The time after which cached responses expire. Defaults to {@code 60s}. Default unit
+     * {@link ChronoUnit#SECONDS SECONDS}.
+     *
+     * @param ttl The time after which cached responses expire.
+     * @return The time after which cached responses expire.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration ttl = Duration.ofSeconds(60);
+
+    /**
+     * The names of the (ASCII) request headers, that are part of the cache key in addition to the request. Defaults to
+     * none.
+     *
+     * @param keyHeaders The names of the headers that are part of the cache key.
+     * @return The names of the headers that are part of the cache key.
+     */
+    private List<String> keyHeaders = new ArrayList<>();
+
+    /**
+     * Whether each principal gets its own cache entries. The principal is resolved the same way as for the rate
+     * limits. Defaults to {@code true}, if a {@code PrincipalResolver} is present (e.g. if spring security is
+     * configured), so that the responses of authenticated calls are never shared between principals. Defaults to
+     * {@code false} otherwise.
+     *
+     * @param perPrincipal Whether each principal gets its own cache entries or null to use the default.
+     * @return True, if each principal gets its own cache entries. False, if not. Null, if the default is used.
+     */
+    private Boolean perPrincipal = null;
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import lombok.Data;
+
+/**
+ * GRPC response cache options.
+ */
+@Data
+public class ResponseCacheOptions {
+
+    /**
+     * Whether the server should cache the responses of the configured methods. Requires caffeine on the classpath.
+     * Defaults to {@code false}.
+     *
+     * @param enabled Whether the response cache is enabled.
+     * @return True, if the response cache is enabled. False otherwise.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The caches for individual methods ({@code package.Service/Method}) or services ({@code package.Service}). Method
+     * specific caches take precedence over service specific ones. Only unary methods are cached, methods without a
+     * cache are not cached.
+     *
+     * @param methods The options for the caches.
+     * @return The options for the caches.
+     */
+    private Map<String, ResponseCacheMethodOptions> methods = new LinkedHashMap<>();
+
+}
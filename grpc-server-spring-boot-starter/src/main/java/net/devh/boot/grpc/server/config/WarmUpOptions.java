@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.config;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.convert.DurationUnit;
+
+import lombok.Data;
+
+/**
+ * GRPC server warm-up options, that control the sample calls that are replayed against the services, before the
+ * server starts accepting calls.
+ */
+@Data
+public class WarmUpOptions {
+
+    /**
+     * Whether the services should be warmed up before the server starts. Defaults to {@code false}.
+     *
+     * @param enabled Whether the services should be warmed up.
+     * @return True, if the services should be warmed up. False otherwise.
+     */
+    private boolean enabled = false;
+
+    /**
+     * The maximum time that may be spent warming up the services. The remaining calls are skipped once the budget has
+     * been exhausted. Defaults to {@code 10s}. Default unit {@link ChronoUnit#SECONDS SECONDS}.
+     *
+     * @param timeBudget The maximum time to spend warming up.
+     * @return The maximum time to spend warming up.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration timeBudget = Duration.ofSeconds(10);
+
+    /**
+     * The number of times the sample requests of each method are replayed. Defaults to {@code 1000}.
+     *
+     * @param iterations The number of times the sample requests are replayed.
+     * @return The number of times the sample requests are replayed.
+     */
+    private int iterations = 1000;
+
+    /**
+     * The sample requests in the protobuf text format, keyed by the full method name (e.g.
+     * {@code [my.package.MyService/MyMethod]}). Methods without samples are only warmed up, if a
+     * {@code WarmUpRequestSupplier} provides samples for them.
+     *
+     * @param requests The sample requests per method.
+     * @return The sample requests per method.
+     */
+    private Map<String, List<String>> requests = new LinkedHashMap<>();
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.event;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Clock;
+
+import io.grpc.Server;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerLifecycle;
+
+/**
+ * This event will be fired at the start of each phase of the drain, that takes the server out of service during
+ * shutdown. The phases are executed in the order they are declared in {@link Phase}. The event is fired once per
+ * phase for the main server, but the phases apply to all listeners of the server. The listeners for this event are
+ * executed as part of the phase, so the next phase starts once all listeners have completed.
+ */
+public class GrpcServerDrainEvent extends GrpcServerLifecycleEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The phases of the drain.
+     */
+    public enum Phase {
+
+        /**
+         * The health status of the server is set to {@code NOT_SERVING}.
+         */
+        NOT_SERVING,
+
+        /**
+         * The server is deregistered from the discovery service.
+         */
+        DEREGISTER,
+
+        /**
+         * The server waits for the health status and the deregistration to propagate to the clients.
+         */
+        PROPAGATION_DELAY,
+
+        /**
+         * The server stops accepting new calls and sends {@code GOAWAY} to the clients.
+         *
+         * @see Server#shutdown()
+         */
+        GOAWAY,
+
+        /**
+         * The server waits for the calls that are in flight to complete.
+         *
+         * @see Server#awaitTermination()
+         */
+        AWAIT_CALLS,
+
+        /**
+         * The server cancels all remaining calls and closes the connections.
+         *
+         * @see Server#shutdownNow()
+         */
+        FORCE_STOP;
+
+    }
+
+    private final Phase phase;
+
+    /**
+     * Creates a new GrpcServerDrainEvent.
+     *
+     * @param lifecyle The lifecycle that caused this event.
+     * @param clock The clock used to determine the timestamp.
+     * @param server The server related to this event.
+     * @param phase The phase that starts.
+     */
+    public GrpcServerDrainEvent(
+            final GrpcServerLifecycle lifecyle,
+            final Clock clock,
+            final Server server,
+            final Phase phase) {
+
+        super(lifecyle, clock, server);
+        this.phase = requireNonNull(phase, "phase");
+    }
+
+    /**
+     * Creates a new GrpcServerDrainEvent.
+     *
+     * @param lifecyle The lifecycle that caused this event.
+     * @param server The server related to this event.
+     * @param phase The phase that starts.
+     */
+    public GrpcServerDrainEvent(
+            final GrpcServerLifecycle lifecyle,
+            final Server server,
+            final Phase phase) {
+
+        super(lifecyle, server);
+        this.phase = requireNonNull(phase, "phase");
+    }
+
+    /**
+     * Gets the phase of the drain that starts.
+     *
+     * @return The phase that starts.
+     */
+    public Phase getPhase() {
+        return this.phase;
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.executor;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * A {@link ThreadPoolExecutor} with a bounded number of threads and a bounded queue. Tasks that exceed the capacity of
+ * this executor will be rejected with a {@link RejectedExecutionException}.
+ */
+public class BoundedExecutor extends ThreadPoolExecutor implements InstrumentedExecutor {
+
+    private final String name;
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Creates a new bounded executor.
+     *
+     * @param name The name of the executor. Used as prefix for the thread names.
+     * @param corePoolSize The number of threads to keep in the pool, even if they are idle.
+     * @param maxPoolSize The maximum number of threads in the pool.
+     * @param queueCapacity The maximum number of tasks that wait for a thread. {@code 0} to hand off tasks directly.
+     * @param keepAlive The time after which idle non-core threads will be terminated.
+     */
+    public BoundedExecutor(final String name, final int corePoolSize, final int maxPoolSize,
+            final int queueCapacity, final Duration keepAlive) {
+        super(corePoolSize, maxPoolSize, keepAlive.toNanos(), TimeUnit.NANOSECONDS, newQueue(queueCapacity),
+                new CustomizableThreadFactory(name + "-"));
+        this.name = name;
+        setRejectedExecutionHandler((task, executor) -> {
+            this.rejectedCount.increment();
+            throw new RejectedExecutionException("Executor '" + name + "' is saturated");
+        });
+    }
+
+    /**
+     * Gets the name of this executor.
+     *
+     * @return The name of this executor.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    private static BlockingQueue<Runnable> newQueue(final int queueCapacity) {
+        if (queueCapacity > 0) {
+            return new LinkedBlockingQueue<>(queueCapacity);
+        } else {
+            return new SynchronousQueue<>();
+        }
+    }
+
+    @Override
+    public int getQueueSize() {
+        return getQueue().size();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return this.rejectedCount.sum();
+    }
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.executor;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.grpc.Context;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A server interceptor that executes the remainder of the call on a dedicated executor. This isolates services that
+ * use blocking operations from the other services in the same server (bulkhead).
+ *
+ * <p>
+ * Calls will be closed with {@link Status#RESOURCE_EXHAUSTED}, if the executor rejects their start or any of their
+ * later events. The listeners are never executed on the calling (transport) thread. Calls whose listener throws an
+ * exception will be closed with {@link Status#UNKNOWN}, like gRPC does for its own executor.
+ * </p>
+ *
+ * <p>
+ * <b>Note:</b> This interceptor should be the first interceptor of the call, so that all other interceptors are
+ * executed on the dedicated executor as well.
+ * </p>
+ */
+@Slf4j
+public class DispatchingServerInterceptor implements ServerInterceptor {
+
+    private final String name;
+    private final Executor executor;
+
+    /**
+     * Creates a new DispatchingServerInterceptor.
+     *
+     * @param name The name of the executor. Used for logging and error messages.
+     * @param executor The executor that should be used to execute the calls.
+     */
+    public DispatchingServerInterceptor(final String name, final Executor executor) {
+        this.name = requireNonNull(name, "name");
+        this.executor = requireNonNull(executor, "executor");
+    }
+
+    @Override
+    public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call, final Metadata headers,
+            final ServerCallHandler<ReqT, RespT> next) {
+        final SerializedServerCall<ReqT, RespT> serializedCall = new SerializedServerCall<>(call);
+        final DispatchingListener<ReqT> listener =
+                new DispatchingListener<>(this.name, this.executor, serializedCall, Context.current());
+        listener.start(() -> next.startCall(serializedCall, headers));
+        return listener;
+    }
+
+    /**
+     * A listener that forwards all events in order to the delegate listener using a sequential executor.
+     *
+     * @param <ReqT> The type of the request.
+     */
+    private static final class DispatchingListener<ReqT> extends Listener<ReqT> {
+
+        private final String name;
+        private final Executor sequentialExecutor;
+        private final SerializedServerCall<ReqT, ?> call;
+        private final Context context;
+        // Only accessed from within the sequential executor
+        private Listener<ReqT> delegate = new Listener<ReqT>() {};
+
+        DispatchingListener(final String name, final Executor executor, final SerializedServerCall<ReqT, ?> call,
+                final Context context) {
+            this.name = name;
+            this.sequentialExecutor = MoreExecutors.newSequentialExecutor(executor);
+            this.call = call;
+            this.context = context;
+        }
+
+        void start(final Supplier<Listener<ReqT>> starter) {
+            execute(() -> this.delegate = starter.get(), true);
+        }
+
+        private void dispatch(final Consumer<Listener<ReqT>> event, final boolean closeIfRejected) {
+            execute(() -> event.accept(this.delegate), closeIfRejected);
+        }
+
+        private void execute(final Runnable task, final boolean closeIfRejected) {
+            final Runnable wrapped = this.context.wrap(() -> {
+                try {
+                    task.run();
+                } catch (final RuntimeException e) {
+                    log.warn("Application error processing {}", this.call.getMethodDescriptor().getFullMethodName(),
+                            e);
+                    this.delegate = new Listener<ReqT>() {};
+                    this.call.closeOnce(
+                            Status.UNKNOWN.withDescription("Application error processing RPC").withCause(e));
+                }
+            });
+            try {
+                this.sequentialExecutor.execute(wrapped);
+            } catch (final RejectedExecutionException e) {
+                // The sequential executor only rejects tasks while it is idle, so this can't race with the listener
+                log.debug("Rejected call to {}: Executor '{}' is saturated",
+                        this.call.getMethodDescriptor().getFullMethodName(), this.name);
+                if (closeIfRejected) {
+                    this.call.closeOnce(
+                            Status.RESOURCE_EXHAUSTED.withDescription("Executor '" + this.name + "' is saturated"));
+                }
+                // The delegate learns about the closed call from its cancelled context
+            }
+        }
+
+        @Override
+        public void onMessage(final ReqT message) {
+            dispatch(listener -> listener.onMessage(message), true);
+        }
+
+        @Override
+        public void onHalfClose() {
+            dispatch(Listener::onHalfClose, true);
+        }
+
+        @Override
+        public void onCancel() {
+            // The call has already been terminated
+            this.call.markClosed();
+            dispatch(Listener::onCancel, false);
+        }
+
+        @Override
+        public void onComplete() {
+            this.call.markClosed();
+            dispatch(Listener::onComplete, false);
+        }
+
+        @Override
+        public void onReady() {
+            dispatch(Listener::onReady, true);
+        }
+
+    }
+
+    /**
+     * A server call that serializes all outbound operations, so that the interceptor can close the call from the
+     * transport thread while the application might be using it from another thread. The call is closed at most once.
+     *
+     * @param <ReqT> The type of the request.
+     * @param <RespT> The type of the response.
+     */
+    private static final class SerializedServerCall<ReqT, RespT> extends SimpleForwardingServerCall<ReqT, RespT> {
+
+        private final Object lock = new Object();
+        private boolean closed = false;
+
+        SerializedServerCall(final ServerCall<ReqT, RespT> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public void request(final int numMessages) {
+            synchronized (this.lock) {
+                super.request(numMessages);
+            }
+        }
+
+        @Override
+        public void sendHeaders(final Metadata headers) {
+            synchronized (this.lock) {
+                if (!this.closed) {
+                    super.sendHeaders(headers);
+                }
+            }
+        }
+
+        @Override
+        public void sendMessage(final RespT message) {
+            synchronized (this.lock) {
+                if (!this.closed) {
+                    super.sendMessage(message);
+                }
+            }
+        }
+
+        @Override
+        public void setMessageCompression(final boolean enabled) {
+            synchronized (this.lock) {
+                super.setMessageCompression(enabled);
+            }
+        }
+
+        @Override
+        public void setCompression(final String compressor) {
+            synchronized (this.lock) {
+                super.setCompression(compressor);
+            }
+        }
+
+        @Override
+        public void close(final Status status, final Metadata trailers) {
+            synchronized (this.lock) {
+                if (!this.closed) {
+                    this.closed = true;
+                    super.close(status, trailers);
+                }
+            }
+        }
+
+        void closeOnce(final Status status) {
+            close(status, new Metadata());
+        }
+
+        void markClosed() {
+            synchronized (this.lock) {
+                this.closed = true;
+            }
+        }
+
+    }
+
+}
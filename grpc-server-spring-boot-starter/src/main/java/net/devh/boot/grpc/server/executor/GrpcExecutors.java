@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.executor;
+
+import net.devh.boot.grpc.server.config.ExecutorOptions;
+import net.devh.boot.grpc.server.config.ExecutorType;
+
+/**
+ * Utility class that creates executors from their {@link ExecutorOptions}.
+ */
+public final class GrpcExecutors {
+
+    /**
+     * Creates a new executor based on the given options.
+     *
+     * @param name The name of the executor. Used as prefix for the thread names.
+     * @param options The options used to configure the executor.
+     * @param virtualThreads Whether virtual threads are enabled ({@code spring.threads.virtual.enabled}).
+     * @return The newly created executor or null, if gRPC's default or a direct executor should be used.
+     */
+    public static InstrumentedExecutor newExecutor(final String name, final ExecutorOptions options,
+            final boolean virtualThreads) {
+        final ExecutorType type = options.getType();
+        switch (type) {
+            case AUTO:
+                return virtualThreads ? new VirtualThreadExecutor(name) : null;
+            case BOUNDED:
+                if (options.getMaxPoolSize() < options.getCorePoolSize()) {
+                    throw new IllegalArgumentException("The maxPoolSize (" + options.getMaxPoolSize()
+                            + ") of executor '" + name + "' must not be smaller than its corePoolSize ("
+                            + options.getCorePoolSize() + ")");
+                }
+                return new BoundedExecutor(name, options.getCorePoolSize(), options.getMaxPoolSize(),
+                        options.getQueueCapacity(), options.getKeepAlive());
+            case VIRTUAL:
+                return new VirtualThreadExecutor(name);
+            case CACHED:
+            case DIRECT:
+                return null;
+            default:
+                throw new IllegalArgumentException("Unsupported ExecutorType: " + type);
+        }
+    }
+
+    /**
+     * Creates a new dedicated executor based on the given options. Unlike {@link #newExecutor(String, ExecutorOptions,
+     * boolean)} this method always creates an executor. {@link ExecutorType#AUTO AUTO} falls back to a
+     * {@link ExecutorType#BOUNDED BOUNDED} executor, if virtual threads are disabled.
+     *
+     * @param name The name of the executor. Used as prefix for the thread names.
+     * @param options The options used to configure the executor.
+     * @param virtualThreads Whether virtual threads are enabled ({@code spring.threads.virtual.enabled}).
+     * @return The newly created executor.
+     * @throws IllegalArgumentException If the configured type does not support dedicated executors.
+     */
+    public static InstrumentedExecutor newDedicatedExecutor(final String name, final ExecutorOptions options,
+            final boolean virtualThreads) {
+        final ExecutorType type = options.getType();
+        if (type == ExecutorType.CACHED || type == ExecutorType.DIRECT) {
+            throw new IllegalArgumentException(
+                    "ExecutorType " + type + " is not supported for the dedicated executor '" + name + "'");
+        }
+        if (type == ExecutorType.AUTO && !virtualThreads) {
+            final ExecutorOptions bounded = new ExecutorOptions();
+            bounded.setType(ExecutorType.BOUNDED);
+            bounded.setCorePoolSize(options.getCorePoolSize());
+            bounded.setMaxPoolSize(options.getMaxPoolSize());
+            bounded.setQueueCapacity(options.getQueueCapacity());
+            bounded.setKeepAlive(options.getKeepAlive());
+            return newExecutor(name, bounded, false);
+        }
+        return newExecutor(name, options, virtualThreads);
+    }
+
+    private GrpcExecutors() {}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.executor;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.context.ApplicationContext;
+
+import net.devh.boot.grpc.server.config.ExecutorOptions;
+import net.devh.boot.grpc.server.service.GrpcService;
+
+/**
+ * The registry for the dedicated executors that can be referenced via {@link GrpcService#executor()}. The executors
+ * that are configured via {@code grpc.server.executors.<name>} are created and owned by this registry. All other names
+ * are resolved to {@link Executor} beans.
+ */
+public class GrpcServiceExecutorRegistry implements DisposableBean {
+
+    private final ApplicationContext applicationContext;
+    private final Map<String, InstrumentedExecutor> executors = new LinkedHashMap<>();
+
+    /**
+     * Creates a new GrpcServiceExecutorRegistry.
+     *
+     * @param applicationContext The application context to fetch the executor beans from.
+     * @param executorOptions The options for the named executors, keyed by their name.
+     * @param virtualThreads Whether virtual threads are enabled ({@code spring.threads.virtual.enabled}).
+     */
+    public GrpcServiceExecutorRegistry(final ApplicationContext applicationContext,
+            final Map<String, ExecutorOptions> executorOptions, final boolean virtualThreads) {
+        this.applicationContext = requireNonNull(applicationContext, "applicationContext");
+        for (final Entry<String, ExecutorOptions> entry : executorOptions.entrySet()) {
+            final String name = entry.getKey();
+            this.executors.put(name, GrpcExecutors.newDedicatedExecutor("grpc-" + name, entry.getValue(),
+                    virtualThreads));
+        }
+    }
+
+    /**
+     * Gets the executor with the given name. Executors configured via properties take precedence over beans.
+     *
+     * @param name The name of the executor.
+     * @return The executor with the given name.
+     * @throws NoSuchBeanDefinitionException If there is no such executor.
+     */
+    public Executor getExecutor(final String name) {
+        final Executor executor = this.executors.get(name);
+        if (executor != null) {
+            return executor;
+        }
+        if (!this.applicationContext.containsBean(name)) {
+            throw new NoSuchBeanDefinitionException(name,
+                    "Neither 'grpc.server.executors." + name + "' nor an executor bean with that name exists");
+        }
+        return this.applicationContext.getBean(name, Executor.class);
+    }
+
+    /**
+     * Gets the executors that are owned by this registry, keyed by their name.
+     *
+     * @return An unmodifiable view of the executors.
+     */
+    public Map<String, InstrumentedExecutor> getExecutors() {
+        return Collections.unmodifiableMap(this.executors);
+    }
+
+    @Override
+    public void destroy() {
+        for (final InstrumentedExecutor executor : this.executors.values()) {
+            if (executor instanceof ExecutorService) {
+                ((ExecutorService) executor).shutdown();
+            }
+        }
+    }
+
+}
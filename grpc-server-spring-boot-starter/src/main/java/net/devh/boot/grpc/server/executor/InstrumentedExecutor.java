@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.executor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link Executor} that exposes some statistics about its saturation. These can be used to size the executors.
+ */
+public interface InstrumentedExecutor extends Executor {
+
+    /**
+     * Gets the approximate number of threads that are actively executing tasks.
+     *
+     * @return The number of active threads.
+     */
+    int getActiveCount();
+
+    /**
+     * Gets the approximate number of tasks that wait for a thread.
+     *
+     * @return The number of queued tasks.
+     */
+    int getQueueSize();
+
+    /**
+     * Gets the number of tasks that have been rejected by this executor.
+     *
+     * @return The number of rejected tasks.
+     */
+    long getRejectedCount();
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * An executor that executes each task in a new virtual thread. Requires Java 21 or higher.
+ */
+public class VirtualThreadExecutor implements InstrumentedExecutor {
+
+    private final VirtualThreadTaskExecutor delegate;
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Creates a new virtual thread executor.
+     *
+     * @param name The name of the executor. Used as prefix for the thread names.
+     * @throws IllegalStateException If the JVM does not support virtual threads.
+     */
+    public VirtualThreadExecutor(final String name) {
+        try {
+            this.delegate = new VirtualThreadTaskExecutor(name + "-");
+        } catch (final UnsupportedOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or higher", e);
+        }
+    }
+
+    @Override
+    public void execute(final Runnable command) {
+        try {
+            this.delegate.execute(() -> {
+                this.activeCount.incrementAndGet();
+                try {
+                    command.run();
+                } finally {
+                    this.activeCount.decrementAndGet();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            this.rejectedCount.increment();
+            throw e;
+        }
+    }
+
+    @Override
+    public int getActiveCount() {
+        return this.activeCount.get();
+    }
+
+    @Override
+    public int getQueueSize() {
+        return 0;
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return this.rejectedCount.sum();
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains the executors that can be used to execute gRPC calls.
+ */
+
+package net.devh.boot.grpc.server.executor;
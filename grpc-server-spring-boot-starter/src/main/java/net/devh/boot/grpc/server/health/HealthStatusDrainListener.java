@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.health;
+
+import static java.util.Objects.requireNonNull;
+
+import org.springframework.context.ApplicationListener;
+
+import io.grpc.protobuf.services.HealthStatusManager;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent.Phase;
+
+/**
+ * Sets the health status of all services to {@code NOT_SERVING}, once the server starts to drain. Afterwards the status
+ * can no longer be changed.
+ *
+ * @see HealthStatusManager#enterTerminalState()
+ */
+public class HealthStatusDrainListener implements ApplicationListener<GrpcServerDrainEvent> {
+
+    private final HealthStatusManager healthStatusManager;
+
+    /**
+     * Creates a new HealthStatusDrainListener.
+     *
+     * @param healthStatusManager The health status manager to update.
+     */
+    public HealthStatusDrainListener(final HealthStatusManager healthStatusManager) {
+        this.healthStatusManager = requireNonNull(healthStatusManager, "healthStatusManager");
+    }
+
+    @Override
+    public void onApplicationEvent(final GrpcServerDrainEvent event) {
+        if (event.getPhase() == Phase.NOT_SERVING) {
+            this.healthStatusManager.enterTerminalState();
+        }
+    }
+
+}
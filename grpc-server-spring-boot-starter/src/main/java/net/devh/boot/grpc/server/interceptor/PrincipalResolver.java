@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.interceptor;
+
+import javax.annotation.Nullable;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+
+/**
+ * Resolves the principal of a call for the interceptors that treat each principal individually, such as the per
+ * principal rate limits, response caches and request coalescers.
+ */
+@FunctionalInterface
+public interface PrincipalResolver {
+
+    /**
+     * A resolver that treats all calls as anonymous.
+     */
+    PrincipalResolver ANONYMOUS = (call, headers) -> null;
+
+    /**
+     * Resolves the principal of the given call. This method is called in the context of the call.
+     *
+     * @param call The call to get the principal for.
+     * @param headers The headers of the call.
+     * @return The name of the principal or null, if the call is anonymous.
+     */
+    @Nullable
+    String resolvePrincipal(ServerCall<?, ?> call, Metadata headers);
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import java.time.Duration;
+
+/**
+ * A limit algorithm that increases the limit by one for each successful call (additive increase) and multiplies it with
+ * the backoff ratio for each call that was dropped or exceeded the latency threshold (multiplicative decrease).
+ */
+public class AimdLimit implements LimitAlgorithm {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private volatile int limit;
+
+    /**
+     * Creates a new AimdLimit.
+     *
+     * @param initialLimit The initial limit.
+     * @param minLimit The lower bound for the limit.
+     * @param maxLimit The upper bound for the limit.
+     * @param latencyThreshold The latency above which a call is treated as dropped.
+     * @param backoffRatio The factor the limit is multiplied with, if a call was dropped.
+     */
+    public AimdLimit(final int initialLimit, final int minLimit, final int maxLimit, final Duration latencyThreshold,
+            final double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1 (exclusive): " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return this.limit;
+    }
+
+    @Override
+    public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+        if (dropped || rttNanos > this.latencyThresholdNanos) {
+            this.limit = Math.max(this.minLimit, (int) (this.limit * this.backoffRatio));
+        } else if (inFlight * 2 >= this.limit) {
+            // Only grow the limit, if the calls actually use it
+            this.limit = Math.min(this.maxLimit, this.limit + 1);
+        }
+    }
+
+}
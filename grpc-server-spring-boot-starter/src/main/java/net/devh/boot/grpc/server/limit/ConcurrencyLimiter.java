@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.devh.boot.grpc.server.config.ConcurrencyLimiterOptions;
+
+/**
+ * Limits the number of concurrent calls to the limit calculated by a {@link LimitAlgorithm}. Calls exceeding the limit
+ * are rejected immediately instead of being queued.
+ */
+public class ConcurrencyLimiter {
+
+    private final String name;
+    private final LimitAlgorithm algorithm;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder shedCount = new LongAdder();
+
+    /**
+     * Creates a new ConcurrencyLimiter with the given algorithm.
+     *
+     * @param name The name of the limiter. Used for logging and metrics.
+     * @param algorithm The algorithm used to calculate the limit.
+     */
+    public ConcurrencyLimiter(final String name, final LimitAlgorithm algorithm) {
+        this.name = requireNonNull(name, "name");
+        this.algorithm = requireNonNull(algorithm, "algorithm");
+    }
+
+    /**
+     * Creates a new ConcurrencyLimiter using the given options.
+     *
+     * @param name The name of the limiter. Used for logging and metrics.
+     * @param options The options used to create the limit algorithm.
+     * @return The newly created limiter.
+     * @throws IllegalArgumentException If the options are invalid.
+     */
+    public static ConcurrencyLimiter of(final String name, final ConcurrencyLimiterOptions options) {
+        final int minLimit = options.getMinLimit();
+        final int maxLimit = options.getMaxLimit();
+        final int initialLimit = options.getInitialLimit();
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limiter '" + name
+                    + "' requires 1 <= minLimit <= initialLimit <= maxLimit, but was " + minLimit + " <= "
+                    + initialLimit + " <= " + maxLimit);
+        }
+        switch (options.getAlgorithm()) {
+            case GRADIENT:
+                return new ConcurrencyLimiter(name, new GradientLimit(initialLimit, minLimit, maxLimit,
+                        options.getTolerance(), options.getSmoothing()));
+            case AIMD:
+                return new ConcurrencyLimiter(name, new AimdLimit(initialLimit, minLimit, maxLimit,
+                        options.getLatencyThreshold(), options.getBackoffRatio()));
+            default:
+                throw new IllegalArgumentException("Unsupported ConcurrencyLimitAlgorithm: " + options.getAlgorithm());
+        }
+    }
+
+    /**
+     * Tries to acquire a permit for a new call. If successful, the caller has to {@link #release(long, boolean)
+     * release} the permit after the call completed.
+     *
+     * @return True, if the call may proceed. False, if the limit has been reached.
+     */
+    public boolean tryAcquire() {
+        final int limit = this.algorithm.getLimit();
+        int current;
+        do {
+            current = this.inFlight.get();
+            if (current >= limit) {
+                this.shedCount.increment();
+                return false;
+            }
+        } while (!this.inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Releases a permit and updates the limit based on the outcome of the call.
+     *
+     * @param rttNanos The time the call took in nanoseconds.
+     * @param dropped Whether the call was dropped, because it timed out or was rejected further downstream.
+     */
+    public void release(final long rttNanos, final boolean dropped) {
+        final int inFlightBefore = this.inFlight.getAndDecrement();
+        this.algorithm.onSample(rttNanos, inFlightBefore, dropped);
+    }
+
+    /**
+     * Gets the name of this limiter.
+     *
+     * @return The name of the limiter.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the current number of permitted concurrent calls.
+     *
+     * @return The current limit.
+     */
+    public int getLimit() {
+        return this.algorithm.getLimit();
+    }
+
+    /**
+     * Gets the number of calls that are currently in flight.
+     *
+     * @return The number of calls in flight.
+     */
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    /**
+     * Gets the total number of calls that have been rejected by this limiter.
+     *
+     * @return The number of rejected calls.
+     */
+    public long getShedCount() {
+        return this.shedCount.sum();
+    }
+
+}
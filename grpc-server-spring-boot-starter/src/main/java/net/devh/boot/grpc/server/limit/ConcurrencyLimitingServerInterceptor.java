@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.grpc.Status.Code;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.config.ConcurrencyLimitOptions;
+import net.devh.boot.grpc.server.config.ConcurrencyLimiterOptions;
+
+/**
+ * A server interceptor that adapts the number of concurrent calls to the observed latency and rejects excess calls
+ * immediately with {@link Status#RESOURCE_EXHAUSTED} (load shedding). Rejected calls contain a
+ * {@code grpc-retry-pushback-ms} trailer that tells the clients when to retry.
+ *
+ * <p>
+ * Calls that are cancelled or fail with {@link Code#DEADLINE_EXCEEDED DEADLINE_EXCEEDED},
+ * {@link Code#RESOURCE_EXHAUSTED RESOURCE_EXHAUSTED} or {@link Code#UNAVAILABLE UNAVAILABLE} are treated as dropped and
+ * reduce the limit.
+ * </p>
+ *
+ * <p>
+ * <b>Note:</b> This interceptor should be the first interceptor ({@link InterceptorOrder#ORDER_FIRST ORDER_FIRST}), so
+ * that rejected calls don't cause any unnecessary work.
+ * </p>
+ */
+@Slf4j
+public class ConcurrencyLimitingServerInterceptor implements ServerInterceptor {
+
+    /**
+     * The name of the limiter that is shared by all methods without a dedicated limiter.
+     */
+    public static final String GLOBAL_LIMITER_NAME = "global";
+
+    private static final Metadata.Key<String> RETRY_PUSHBACK_KEY =
+            Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final ConcurrencyLimiter globalLimiter;
+    private final Map<String, ConcurrencyLimiter> configuredLimiters;
+    private final Map<String, ConcurrencyLimiter> limitersByMethod = new ConcurrentHashMap<>();
+    private final String retryPushback;
+
+    /**
+     * Creates a new ConcurrencyLimitingServerInterceptor.
+     *
+     * @param options The options used to create the limiters.
+     */
+    public ConcurrencyLimitingServerInterceptor(final ConcurrencyLimitOptions options) {
+        requireNonNull(options, "options");
+        this.globalLimiter = ConcurrencyLimiter.of(GLOBAL_LIMITER_NAME, options);
+        final Map<String, ConcurrencyLimiter> limiters = new LinkedHashMap<>();
+        for (final Entry<String, ConcurrencyLimiterOptions> entry : options.getMethods().entrySet()) {
+            limiters.put(entry.getKey(), ConcurrencyLimiter.of(entry.getKey(), entry.getValue()));
+        }
+        this.configuredLimiters = Collections.unmodifiableMap(limiters);
+        final Duration pushback = options.getRetryPushback();
+        this.retryPushback = pushback == null ? null : Long.toString(pushback.toMillis());
+    }
+
+    /**
+     * Gets all limiters used by this interceptor, starting with the {@link #GLOBAL_LIMITER_NAME global} one.
+     *
+     * @return The limiters used by this interceptor.
+     */
+    public Collection<ConcurrencyLimiter> getLimiters() {
+        final List<ConcurrencyLimiter> limiters = new ArrayList<>(this.configuredLimiters.size() + 1);
+        limiters.add(this.globalLimiter);
+        limiters.addAll(this.configuredLimiters.values());
+        return limiters;
+    }
+
+    @Override
+    public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call, final Metadata headers,
+            final ServerCallHandler<ReqT, RespT> next) {
+        final ConcurrencyLimiter limiter = getLimiter(call.getMethodDescriptor());
+        if (!limiter.tryAcquire()) {
+            log.debug("Rejected call to {}: Concurrency limit '{}' of {} exceeded",
+                    call.getMethodDescriptor().getFullMethodName(), limiter.getName(), limiter.getLimit());
+            final Metadata trailers = new Metadata();
+            if (this.retryPushback != null) {
+                trailers.put(RETRY_PUSHBACK_KEY, this.retryPushback);
+            }
+            call.close(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Concurrency limit '" + limiter.getName() + "' exceeded"), trailers);
+            return new Listener<ReqT>() {};
+        }
+
+        final LimitedServerCall<ReqT, RespT> limitedCall = new LimitedServerCall<>(call, limiter);
+        try {
+            return new LimitedServerCallListener<>(next.startCall(limitedCall, headers), limitedCall);
+        } catch (final RuntimeException e) {
+            limitedCall.release(true);
+            throw e;
+        }
+    }
+
+    private ConcurrencyLimiter getLimiter(final MethodDescriptor<?, ?> method) {
+        return this.limitersByMethod.computeIfAbsent(method.getFullMethodName(), fullMethodName -> {
+            final ConcurrencyLimiter methodLimiter = this.configuredLimiters.get(fullMethodName);
+            if (methodLimiter != null) {
+                return methodLimiter;
+            }
+            final String serviceName = method.getServiceName();
+            return serviceName == null ? this.globalLimiter
+                    : this.configuredLimiters.getOrDefault(serviceName, this.globalLimiter);
+        });
+    }
+
+    private static boolean isDropped(final Code code) {
+        return code == Code.DEADLINE_EXCEEDED || code == Code.RESOURCE_EXHAUSTED || code == Code.UNAVAILABLE;
+    }
+
+    /**
+     * A server call that releases its permit once it has been closed.
+     *
+     * @param <ReqT> The type of the request.
+     * @param <RespT> The type of the response.
+     */
+    private static final class LimitedServerCall<ReqT, RespT> extends SimpleForwardingServerCall<ReqT, RespT> {
+
+        private final ConcurrencyLimiter limiter;
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        LimitedServerCall(final ServerCall<ReqT, RespT> delegate, final ConcurrencyLimiter limiter) {
+            super(delegate);
+            this.limiter = limiter;
+        }
+
+        @Override
+        public void close(final Status status, final Metadata trailers) {
+            try {
+                super.close(status, trailers);
+            } finally {
+                release(isDropped(status.getCode()));
+            }
+        }
+
+        void release(final boolean dropped) {
+            if (this.released.compareAndSet(false, true)) {
+                this.limiter.release(System.nanoTime() - this.startNanos, dropped);
+            }
+        }
+
+    }
+
+    /**
+     * A server call listener that releases the permit of the call, if the call was cancelled.
+     *
+     * @param <ReqT> The type of the request.
+     */
+    private static final class LimitedServerCallListener<ReqT> extends SimpleForwardingServerCallListener<ReqT> {
+
+        private final LimitedServerCall<ReqT, ?> call;
+
+        LimitedServerCallListener(final Listener<ReqT> delegate, final LimitedServerCall<ReqT, ?> call) {
+            super(delegate);
+            this.call = call;
+        }
+
+        @Override
+        public void onCancel() {
+            this.call.release(true);
+            super.onCancel();
+        }
+
+        @Override
+        public void onComplete() {
+            this.call.release(false);
+            super.onComplete();
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+/**
+ * A limit algorithm that compares the latency of each call with the long term average latency. If the latency
+ * increases beyond the tolerance, then requests are queueing up and the limit is reduced proportionally. Otherwise the
+ * limit grows by roughly the square root of the current limit, which allows for some queueing.
+ */
+public class GradientLimit implements LimitAlgorithm {
+
+    private static final int LONG_WINDOW = 600;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    // Guarded by this
+    private double estimatedLimit;
+    // Guarded by this
+    private double longRttNanos;
+    private volatile int limit;
+
+    /**
+     * Creates a new GradientLimit.
+     *
+     * @param initialLimit The initial limit.
+     * @param minLimit The lower bound for the limit.
+     * @param maxLimit The upper bound for the limit.
+     * @param tolerance The factor by which the latency may exceed the long term latency before the limit is reduced.
+     * @param smoothing The weight of new limit estimates between {@code 0} (exclusive) and {@code 1}.
+     */
+    public GradientLimit(final int initialLimit, final int minLimit, final int maxLimit, final double tolerance,
+            final double smoothing) {
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("tolerance must be at least 1: " + tolerance);
+        }
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("smoothing must be between 0 (exclusive) and 1: " + smoothing);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return this.limit;
+    }
+
+    @Override
+    public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+        final double rtt = Math.max(1, rttNanos);
+        if (this.longRttNanos == 0) {
+            this.longRttNanos = rtt;
+        } else {
+            this.longRttNanos += (rtt - this.longRttNanos) / LONG_WINDOW;
+        }
+        // Recover quickly, if the latency decreased significantly (e.g. after an overload)
+        if (this.longRttNanos / rtt > 2) {
+            this.longRttNanos *= 0.95;
+        }
+
+        // Only grow the limit, if the calls actually use it
+        if (!dropped && inFlight * 2 < this.estimatedLimit) {
+            return;
+        }
+
+        final double gradient = dropped ? MIN_GRADIENT
+                : Math.max(MIN_GRADIENT, Math.min(1.0, this.tolerance * this.longRttNanos / rtt));
+        final double queueSize = Math.sqrt(this.estimatedLimit);
+        final double newLimit = this.estimatedLimit * gradient + queueSize;
+        this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit,
+                this.estimatedLimit * (1 - this.smoothing) + newLimit * this.smoothing));
+        this.limit = (int) this.estimatedLimit;
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A budget for the inbound bytes, that have been received, but have not yet been processed. The budget is a soft
+ * limit: Reservations always succeed, but while the budget is {@link #isExhausted() exhausted} new calls should be
+ * rejected and further reads should be {@link #runWhenAvailable(Runnable) deferred} until enough bytes have been
+ * released again.
+ */
+public class InboundMemoryBudget {
+
+    private final String name;
+    private final long maxBytes;
+
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final Queue<Runnable> paused = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new InboundMemoryBudget.
+     *
+     * @param name The name of the budget.
+     * @param maxBytes The number of bytes that may be used.
+     */
+    public InboundMemoryBudget(final String name, final long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException(
+                    "Inbound memory budget '" + name + "' requires maxSize >= 1, but was " + maxBytes);
+        }
+        this.name = requireNonNull(name, "name");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Gets the name of this budget.
+     *
+     * @return The name of the budget.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of bytes that may be used.
+     *
+     * @return The maximum number of bytes.
+     */
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    /**
+     * Gets the number of bytes that are currently used.
+     *
+     * @return The number of used bytes.
+     */
+    public long getUsedBytes() {
+        return this.usedBytes.get();
+    }
+
+    /**
+     * Gets the total number of calls that have been rejected, because this budget was exhausted.
+     *
+     * @return The number of rejected calls.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.sum();
+    }
+
+    /**
+     * Gets the number of reads that are currently deferred, because this budget is exhausted.
+     *
+     * @return The number of deferred reads.
+     */
+    public int getPausedCount() {
+        return this.paused.size();
+    }
+
+    /**
+     * Checks whether all bytes of this budget are in use.
+     *
+     * @return True, if the budget is exhausted. False otherwise.
+     */
+    public boolean isExhausted() {
+        return this.usedBytes.get() >= this.maxBytes;
+    }
+
+    /**
+     * Reserves the given number of bytes.
+     *
+     * @param bytes The number of bytes to reserve.
+     */
+    public void reserve(final long bytes) {
+        this.usedBytes.addAndGet(bytes);
+    }
+
+    /**
+     * Releases the given number of bytes and resumes the deferred reads, if the budget is no longer exhausted.
+     *
+     * @param bytes The number of bytes to release.
+     */
+    public void release(final long bytes) {
+        this.usedBytes.addAndGet(-bytes);
+        resumePaused();
+    }
+
+    /**
+     * Records a call that has been rejected, because this budget was exhausted.
+     */
+    public void recordRejected() {
+        this.rejectedCount.increment();
+    }
+
+    /**
+     * Runs the given read immediately, if this budget is not exhausted. Otherwise it will be run once enough bytes have
+     * been released.
+     *
+     * @param read The read to run.
+     */
+    public void runWhenAvailable(final Runnable read) {
+        if (!isExhausted()) {
+            read.run();
+            return;
+        }
+        this.paused.add(read);
+        // The bytes might have been released concurrently
+        resumePaused();
+    }
+
+    private void resumePaused() {
+        while (!isExhausted()) {
+            final Runnable read = this.paused.poll();
+            if (read == null) {
+                return;
+            }
+            read.run();
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.springframework.util.unit.DataSize;
+
+import io.grpc.Context;
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.config.InboundMemoryBudgetOptions;
+
+/**
+ * A server interceptor that limits the number of inbound bytes, that have been received, but have not yet been
+ * processed by the services. The bytes are reserved by the {@link #getStreamTracerFactory() stream tracer} once a
+ * message has been read from the wire and released once the message has been delivered to the service. While a budget
+ * is exhausted, new calls are rejected with {@link Status#RESOURCE_EXHAUSTED} and running calls stop requesting further
+ * messages, so that the transport's flow control pushes back on the clients.
+ *
+ * <p>
+ * <b>Note:</b> The stream tracer factory has to be registered at the server as well, otherwise the calls aren't
+ * limited. The budgets are based on the wire size of the messages, which might be smaller than their size in memory,
+ * if they are compressed.
+ * </p>
+ */
+@Slf4j
+public class InboundMemoryLimitingServerInterceptor implements ServerInterceptor {
+
+    /**
+     * The name of the server wide budget.
+     */
+    public static final String GLOBAL_BUDGET = "global";
+
+    private static final Context.Key<MemoryAccount> ACCOUNT_KEY = Context.key("grpc-inbound-memory-account");
+
+    private final InboundMemoryBudget globalBudget;
+    private final Map<String, InboundMemoryBudget> configuredBudgets;
+    private final Map<String, List<InboundMemoryBudget>> budgetsByMethod = new ConcurrentHashMap<>();
+    private final ServerStreamTracer.Factory streamTracerFactory = new ServerStreamTracer.Factory() {
+
+        @Override
+        public ServerStreamTracer newServerStreamTracer(final String fullMethodName, final Metadata headers) {
+            return new MemoryAccount(getBudgets(fullMethodName));
+        }
+
+    };
+
+    /**
+     * Creates a new InboundMemoryLimitingServerInterceptor.
+     *
+     * @param options The options used to configure the budgets.
+     */
+    public InboundMemoryLimitingServerInterceptor(final InboundMemoryBudgetOptions options) {
+        requireNonNull(options, "options");
+        final DataSize maxSize = options.getMaxSize();
+        this.globalBudget = new InboundMemoryBudget(GLOBAL_BUDGET,
+                maxSize == null ? Runtime.getRuntime().maxMemory() / 4 : maxSize.toBytes());
+        final Map<String, InboundMemoryBudget> budgets = new LinkedHashMap<>();
+        for (final Entry<String, DataSize> entry : options.getMethods().entrySet()) {
+            budgets.put(entry.getKey(), new InboundMemoryBudget(entry.getKey(), entry.getValue().toBytes()));
+        }
+        this.configuredBudgets = budgets;
+    }
+
+    /**
+     * Gets the stream tracer factory that tracks the inbound bytes of the calls. It has to be registered at the server
+     * for this interceptor to work.
+     *
+     * @return The stream tracer factory.
+     */
+    public ServerStreamTracer.Factory getStreamTracerFactory() {
+        return this.streamTracerFactory;
+    }
+
+    /**
+     * Gets all budgets used by this interceptor, starting with the server wide one.
+     *
+     * @return The budgets used by this interceptor.
+     */
+    public Collection<InboundMemoryBudget> getBudgets() {
+        final List<InboundMemoryBudget> budgets = new ArrayList<>();
+        budgets.add(this.globalBudget);
+        budgets.addAll(this.configuredBudgets.values());
+        return budgets;
+    }
+
+    @Override
+    public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call, final Metadata headers,
+            final ServerCallHandler<ReqT, RespT> next) {
+        final MemoryAccount account = ACCOUNT_KEY.get();
+        if (account == null) {
+            // The stream tracer factory isn't registered for this server
+            return next.startCall(call, headers);
+        }
+        final InboundMemoryBudget exhausted = account.getExhaustedBudget();
+        if (exhausted != null) {
+            exhausted.recordRejected();
+            log.debug("Rejected call to {}: Inbound memory budget '{}' exhausted",
+                    call.getMethodDescriptor().getFullMethodName(), exhausted.getName());
+            call.close(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Inbound memory budget '" + exhausted.getName() + "' exhausted"),
+                    new Metadata());
+            return new Listener<ReqT>() {};
+        }
+
+        final ServerCall<ReqT, RespT> pausingCall = new SimpleForwardingServerCall<ReqT, RespT>(call) {
+
+            @Override
+            public void request(final int numMessages) {
+                account.runWhenAvailable(() -> super.request(numMessages));
+            }
+
+        };
+        return new SimpleForwardingServerCallListener<ReqT>(next.startCall(pausingCall, headers)) {
+
+            @Override
+            public void onMessage(final ReqT message) {
+                try {
+                    super.onMessage(message);
+                } finally {
+                    account.releaseNext();
+                }
+            }
+
+        };
+    }
+
+    private List<InboundMemoryBudget> getBudgets(final String fullMethodName) {
+        return this.budgetsByMethod.computeIfAbsent(fullMethodName, name -> {
+            InboundMemoryBudget methodBudget = this.configuredBudgets.get(name);
+            if (methodBudget == null) {
+                final int index = name.lastIndexOf('/');
+                methodBudget = index < 0 ? null : this.configuredBudgets.get(name.substring(0, index));
+            }
+            return methodBudget == null
+                    ? Collections.singletonList(this.globalBudget)
+                    : Collections.unmodifiableList(Arrays.asList(this.globalBudget, methodBudget));
+        });
+    }
+
+    /**
+     * Tracks the bytes that one call reserved from the budgets. The sizes of the messages are queued in the order they
+     * are read, because gRPC delivers them in the same order.
+     */
+    private static final class MemoryAccount extends ServerStreamTracer {
+
+        private final List<InboundMemoryBudget> budgets;
+        private final Queue<Long> pending = new ConcurrentLinkedQueue<>();
+
+        MemoryAccount(final List<InboundMemoryBudget> budgets) {
+            this.budgets = budgets;
+        }
+
+        @Override
+        public Context filterContext(final Context context) {
+            return context.withValue(ACCOUNT_KEY, this);
+        }
+
+        @Override
+        public void inboundMessageRead(final int seqNo, final long optionalWireSize,
+                final long optionalUncompressedSize) {
+            // Some transports (e.g. in-process) don't report the size of the messages
+            final long size = Math.max(0, optionalWireSize);
+            for (final InboundMemoryBudget budget : this.budgets) {
+                budget.reserve(size);
+            }
+            this.pending.add(size);
+        }
+
+        @Override
+        public void streamClosed(final Status status) {
+            // Release the messages that haven't been delivered
+            while (releaseNext()) {
+                // Continue
+            }
+        }
+
+        InboundMemoryBudget getExhaustedBudget() {
+            for (final InboundMemoryBudget budget : this.budgets) {
+                if (budget.isExhausted()) {
+                    return budget;
+                }
+            }
+            return null;
+        }
+
+        void runWhenAvailable(final Runnable read) {
+            final InboundMemoryBudget exhausted = getExhaustedBudget();
+            if (exhausted == null) {
+                read.run();
+            } else {
+                // Check the other budgets again, once this one is available
+                exhausted.runWhenAvailable(() -> runWhenAvailable(read));
+            }
+        }
+
+        boolean releaseNext() {
+            final Long size = this.pending.poll();
+            if (size == null) {
+                return false;
+            }
+            for (final InboundMemoryBudget budget : this.budgets) {
+                budget.release(size);
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+/**
+ * An algorithm that adapts the number of permitted concurrent calls based on the observed latency.
+ *
+ * <p>
+ * <b>Note:</b> Implementations have to be thread-safe.
+ * </p>
+ */
+public interface LimitAlgorithm {
+
+    /**
+     * Gets the current number of permitted concurrent calls.
+     *
+     * @return The current limit. Always at least {@code 1}.
+     */
+    int getLimit();
+
+    /**
+     * Updates the limit based on a completed call.
+     *
+     * @param rttNanos The time the call took in nanoseconds.
+     * @param inFlight The number of calls that were in flight when the call completed, including the call itself.
+     * @param dropped Whether the call was dropped, because it timed out or was rejected further downstream.
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Ticker;
+
+import net.devh.boot.grpc.server.config.RateLimiterOptions;
+
+/**
+ * A lock-free token bucket rate limiter. If the limiter is {@link #isPerPrincipal() per principal}, then each principal
+ * gets its own bucket. The number of these buckets is bounded; if the bound is exceeded, then idle buckets are
+ * discarded first, followed by arbitrary ones.
+ */
+public class RateLimiter {
+
+    private static final String ANONYMOUS = "";
+
+    private final String name;
+    private final double permitsPerSecond;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final boolean perPrincipal;
+    private final int maxPrincipals;
+    private final Ticker ticker;
+
+    private final TokenBucket sharedBucket;
+    private final ConcurrentMap<String, TokenBucket> principalBuckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    /**
+     * Creates a new RateLimiter.
+     *
+     * @param name The name of the limiter.
+     * @param permitsPerSecond The number of calls per second that are permitted on average.
+     * @param burst The maximum number of calls that may be permitted at once.
+     * @param perPrincipal Whether each principal gets its own bucket.
+     * @param maxPrincipals The maximum number of principal specific buckets.
+     * @param ticker The ticker used to measure the time.
+     */
+    public RateLimiter(final String name, final double permitsPerSecond, final int burst, final boolean perPrincipal,
+            final int maxPrincipals, final Ticker ticker) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException(
+                    "Rate limiter '" + name + "' requires permitsPerSecond > 0, but was " + permitsPerSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Rate limiter '" + name + "' requires burst >= 1, but was " + burst);
+        }
+        if (maxPrincipals < 1) {
+            throw new IllegalArgumentException(
+                    "Rate limiter '" + name + "' requires maxPrincipals >= 1, but was " + maxPrincipals);
+        }
+        this.name = requireNonNull(name, "name");
+        this.permitsPerSecond = permitsPerSecond;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        this.toleranceNanos = this.intervalNanos * burst;
+        this.perPrincipal = perPrincipal;
+        this.maxPrincipals = maxPrincipals;
+        this.ticker = requireNonNull(ticker, "ticker");
+        this.sharedBucket = perPrincipal ? null : new TokenBucket(ticker.read());
+    }
+
+    /**
+     * Creates a new RateLimiter from the given options.
+     *
+     * @param name The name of the limiter.
+     * @param options The options used to configure the limiter.
+     * @param maxPrincipals The maximum number of principal specific buckets.
+     * @return The newly created rate limiter.
+     */
+    public static RateLimiter of(final String name, final RateLimiterOptions options, final int maxPrincipals) {
+        final double permitsPerSecond = options.getPermitsPerSecond();
+        final Integer burst = options.getBurst();
+        return new RateLimiter(name, permitsPerSecond,
+                burst == null ? (int) Math.max(1, Math.ceil(permitsPerSecond)) : burst,
+                options.isPerPrincipal(), maxPrincipals, Ticker.systemTicker());
+    }
+
+    /**
+     * Tries to acquire a permit for a new call.
+     *
+     * @param principal The principal of the call or null, if the call is anonymous. Ignored, if this limiter isn't
+     *        per principal.
+     * @return Zero, if the call is permitted. Otherwise the number of nanoseconds until the next permit becomes
+     *         available.
+     */
+    public long tryAcquire(@Nullable final String principal) {
+        final long now = this.ticker.read();
+        final long wait = getBucket(principal, now).tryAcquire(now, this.intervalNanos, this.toleranceNanos);
+        if (wait > 0) {
+            this.rejectedCount.increment();
+        }
+        return wait;
+    }
+
+    private TokenBucket getBucket(@Nullable final String principal, final long now) {
+        if (!this.perPrincipal) {
+            return this.sharedBucket;
+        }
+        final String key = principal == null ? ANONYMOUS : principal;
+        TokenBucket bucket = this.principalBuckets.get(key);
+        if (bucket == null) {
+            bucket = this.principalBuckets.computeIfAbsent(key, k -> new TokenBucket(now));
+            if (this.principalBuckets.size() > this.maxPrincipals) {
+                evict(now);
+            }
+        }
+        return bucket;
+    }
+
+    /**
+     * Reduces the number of principal specific buckets below the limit. Only one thread evicts at a time, the others
+     * continue without waiting. Evicts a little more than necessary to amortize the cost of the scan.
+     */
+    private void evict(final long now) {
+        if (!this.evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.principalBuckets.values().removeIf(bucket -> bucket.isIdle(now));
+            final int target = this.maxPrincipals - this.maxPrincipals / 10;
+            final Iterator<TokenBucket> it = this.principalBuckets.values().iterator();
+            while (this.principalBuckets.size() > target && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        } finally {
+            this.evicting.set(false);
+        }
+    }
+
+    /**
+     * Gets the name of this limiter.
+     *
+     * @return The name of the limiter.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Gets the number of calls per second that are permitted on average.
+     *
+     * @return The number of permits per second.
+     */
+    public double getPermitsPerSecond() {
+        return this.permitsPerSecond;
+    }
+
+    /**
+     * Gets whether each principal gets its own bucket.
+     *
+     * @return True, if the limit applies to each principal individually. False otherwise.
+     */
+    public boolean isPerPrincipal() {
+        return this.perPrincipal;
+    }
+
+    /**
+     * Gets the current number of principal specific buckets.
+     *
+     * @return The number of principal specific buckets.
+     */
+    public int getPrincipalCount() {
+        return this.principalBuckets.size();
+    }
+
+    /**
+     * Gets the total number of calls that have been rejected by this limiter.
+     *
+     * @return The number of rejected calls.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.sum();
+    }
+
+}
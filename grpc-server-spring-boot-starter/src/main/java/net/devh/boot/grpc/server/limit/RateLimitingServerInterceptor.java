@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.util.InterceptorOrder;
+import net.devh.boot.grpc.server.config.RateLimitOptions;
+import net.devh.boot.grpc.server.config.RateLimiterOptions;
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+
+/**
+ * A server interceptor that enforces token bucket based rate limits for individual methods or services. Calls that
+ * exceed the limit are rejected immediately with {@link Status#RESOURCE_EXHAUSTED} and a
+ * {@code grpc-retry-pushback-ms} trailer that tells the clients when to retry.
+ *
+ * <p>
+ * <b>Note:</b> This interceptor should be executed after the authentication
+ * ({@link InterceptorOrder#ORDER_RATE_LIMITING ORDER_RATE_LIMITING}), if any of the limits are per principal.
+ * </p>
+ */
+@Slf4j
+public class RateLimitingServerInterceptor implements ServerInterceptor {
+
+    private static final Metadata.Key<String> RETRY_PUSHBACK_KEY =
+            Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final Map<String, RateLimiter> configuredLimiters;
+    private final Map<String, Optional<RateLimiter>> limitersByMethod = new ConcurrentHashMap<>();
+    private final PrincipalResolver principalResolver;
+    private final String retryPushback;
+
+    /**
+     * Creates a new RateLimitingServerInterceptor.
+     *
+     * @param options The options used to configure the limiters.
+     * @param principalResolver The resolver used to determine the principal of per principal limits.
+     */
+    public RateLimitingServerInterceptor(final RateLimitOptions options,
+            final PrincipalResolver principalResolver) {
+        requireNonNull(options, "options");
+        this.principalResolver = requireNonNull(principalResolver, "principalResolver");
+        final Map<String, RateLimiter> limiters = new LinkedHashMap<>();
+        for (final Entry<String, RateLimiterOptions> entry : options.getMethods().entrySet()) {
+            limiters.put(entry.getKey(), RateLimiter.of(entry.getKey(), entry.getValue(), options.getMaxPrincipals()));
+        }
+        this.configuredLimiters = limiters;
+        final Duration pushback = options.getRetryPushback();
+        this.retryPushback = pushback == null ? null : Long.toString(pushback.toMillis());
+    }
+
+    /**
+     * Gets all limiters used by this interceptor.
+     *
+     * @return The limiters used by this interceptor.
+     */
+    public Collection<RateLimiter> getLimiters() {
+        return new ArrayList<>(this.configuredLimiters.values());
+    }
+
+    @Override
+    public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call, final Metadata headers,
+            final ServerCallHandler<ReqT, RespT> next) {
+        final RateLimiter limiter = getLimiter(call.getMethodDescriptor()).orElse(null);
+        if (limiter == null) {
+            return next.startCall(call, headers);
+        }
+        final String principal =
+                limiter.isPerPrincipal() ? this.principalResolver.resolvePrincipal(call, headers) : null;
+        final long wait = limiter.tryAcquire(principal);
+        if (wait == 0) {
+            return next.startCall(call, headers);
+        }
+
+        log.debug("Rejected call to {}: Rate limit '{}' exceeded", call.getMethodDescriptor().getFullMethodName(),
+                limiter.getName());
+        final Metadata trailers = new Metadata();
+        trailers.put(RETRY_PUSHBACK_KEY, this.retryPushback != null ? this.retryPushback
+                : Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait))));
+        call.close(Status.RESOURCE_EXHAUSTED.withDescription("Rate limit '" + limiter.getName() + "' exceeded"),
+                trailers);
+        return new Listener<ReqT>() {};
+    }
+
+    private Optional<RateLimiter> getLimiter(final MethodDescriptor<?, ?> method) {
+        return this.limitersByMethod.computeIfAbsent(method.getFullMethodName(), fullMethodName -> {
+            final RateLimiter methodLimiter = this.configuredLimiters.get(fullMethodName);
+            if (methodLimiter != null) {
+                return Optional.of(methodLimiter);
+            }
+            final String serviceName = method.getServiceName();
+            return Optional.ofNullable(serviceName == null ? null : this.configuredLimiters.get(serviceName));
+        });
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket that is implemented as a generic cell rate algorithm. Instead of the number of available
+ * tokens, it only tracks the theoretical arrival time of the next call, which can be updated using a single CAS
+ * operation.
+ */
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrivalTime;
+
+    /**
+     * Creates a new full TokenBucket.
+     *
+     * @param nowNanos The current time.
+     */
+    TokenBucket(final long nowNanos) {
+        this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Tries to take a token from this bucket.
+     *
+     * @param nowNanos The current time.
+     * @param intervalNanos The time it takes to refill a single token.
+     * @param toleranceNanos The time it takes to refill the entire bucket.
+     * @return Zero, if a token was taken. Otherwise the time until the next token becomes available.
+     */
+    long tryAcquire(final long nowNanos, final long intervalNanos, final long toleranceNanos) {
+        while (true) {
+            final long current = this.theoreticalArrivalTime.get();
+            final long next = Math.max(current, nowNanos) + intervalNanos;
+            final long excess = next - nowNanos - toleranceNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (this.theoreticalArrivalTime.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Checks whether this bucket has been refilled completely and thus can be discarded without any side effects.
+     *
+     * @param nowNanos The current time.
+     * @return True, if the bucket is full. False otherwise.
+     */
+    boolean isIdle(final long nowNanos) {
+        return this.theoreticalArrivalTime.get() - nowNanos <= 0;
+    }
+
+}
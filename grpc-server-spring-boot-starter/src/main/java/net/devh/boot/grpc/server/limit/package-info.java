@@ -0,0 +1,5 @@
+/**
+ * Contains the adaptive concurrency limiter and the rate limiter that protect the server from overload.
+ */
+
+package net.devh.boot.grpc.server.limit;
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.loadreport;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Reports the utilization of a bounded resource, such as the calls in flight or the queue of an executor, as the ratio
+ * of its current usage to its capacity.
+ *
+ * <pre>
+ * <code>@Bean
+ * UtilizationSource queueUtilizationSource(ThreadPoolExecutor executor) {
+ *     return new BoundedUtilizationSource("queue", () -&gt; executor.getQueue().size(), 1000);
+ * }</code>
+ * </pre>
+ */
+public class BoundedUtilizationSource implements UtilizationSource {
+
+    private final String name;
+    private final IntSupplier usage;
+    private final int capacity;
+
+    /**
+     * Creates a new BoundedUtilizationSource.
+     *
+     * @param name The name the utilization is reported as.
+     * @param usage The supplier for the current usage of the resource.
+     * @param capacity The usage at which the resource is fully utilized.
+     */
+    public BoundedUtilizationSource(final String name, final IntSupplier usage, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive, but was " + capacity);
+        }
+        this.name = requireNonNull(name, "name");
+        this.usage = requireNonNull(usage, "usage");
+        this.capacity = capacity;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public double getUtilization() {
+        return Math.min(1.0, (double) this.usage.getAsInt() / this.capacity);
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.loadreport;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+
+/**
+ * Reports the recent CPU load of this process, relative to all available processors. The value is also reported as
+ * the dedicated CPU utilization of the load report.
+ */
+public class CpuUtilizationSource implements UtilizationSource {
+
+    /**
+     * The name the CPU load is reported as.
+     */
+    public static final String NAME = "cpu";
+
+    private final OperatingSystemMXBean operatingSystem = ManagementFactory.getOperatingSystemMXBean();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public double getUtilization() {
+        if (this.operatingSystem instanceof com.sun.management.OperatingSystemMXBean) {
+            return ((com.sun.management.OperatingSystemMXBean) this.operatingSystem).getProcessCpuLoad();
+        }
+        // Not available on this JVM
+        return -1;
+    }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.loadreport;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import com.google.common.collect.ImmutableList;
+
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.SharedResourceHolder;
+import io.grpc.services.MetricRecorder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects the load of the server, that is reported to the clients. The utilization sources are polled periodically
+ * and the rates of calls and errors are calculated from the calls observed by the
+ * {@link LoadReportingServerInterceptor}. The reported application utilization is the highest utilization of all
+ * sources, so that a server is considered loaded as soon as any of its resources is.
+ */
+@Slf4j
+public class LoadReporter implements AutoCloseable {
+
+    /**
+     * The name the calls in flight are reported as.
+     */
+    public static final String IN_FLIGHT = "inflight";
+
+    private final MetricRecorder recorder = MetricRecorder.newInstance();
+    private final List<UtilizationSource> sources;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final ScheduledExecutorService scheduler;
+    private final ScheduledFuture<?> refreshTask;
+    @GuardedBy("this")
+    private long lastRefreshNanos = System.nanoTime();
+    @GuardedBy("this")
+    private long lastCompleted;
+    @GuardedBy("this")
+    private long lastFailed;
+
+    /**
+     * Creates a new LoadReporter and starts polling the given sources.
+     *
+     * @param sources The sources of the reported utilizations.
+     * @param maxInFlightCalls The number of calls in flight that fully utilize the server or {@code 0}, if the calls
+     *        in flight should not be reported as utilization.
+     * @param refreshInterval The interval in which the reported load is updated.
+     */
+    public LoadReporter(final List<UtilizationSource> sources, final int maxInFlightCalls,
+            final Duration refreshInterval) {
+        final ImmutableList.Builder<UtilizationSource> allSources = ImmutableList.builder();
+        allSources.addAll(requireNonNull(sources, "sources"));
+        if (maxInFlightCalls > 0) {
+            allSources.add(new BoundedUtilizationSource(IN_FLIGHT, this.inFlight::get, maxInFlightCalls));
+        }
+        this.sources = allSources.build();
+        final long intervalNanos = refreshInterval.toNanos();
+        this.scheduler = SharedResourceHolder.get(GrpcUtil.TIMER_SERVICE);
+        this.refreshTask = this.scheduler.scheduleWithFixedDelay(this::refresh, intervalNanos, intervalNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the recorder that holds the server wide load, which is attached to the load reports.
+     *
+     * @return The recorder with the current load.
+     */
+    public MetricRecorder getMetricRecorder() {
+        return this.recorder;
+    }
+
+    /**
+     * Gets the shared scheduler used by this reporter. It remains usable until this reporter is closed, so other
+     * components of the load reporting can use it instead of acquiring their own.
+     *
+     * @return The scheduler of this reporter.
+     */
+    public ScheduledExecutorService getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * Gets the number of calls that are currently processed by the server.
+     *
+     * @return The number of calls in flight.
+     */
+    public int getInFlightCount() {
+        return this.inFlight.get();
+    }
+
+    void onCallStarted() {
+        this.inFlight.incrementAndGet();
+    }
+
+    void onCallCompleted(final boolean success) {
+        this.inFlight.decrementAndGet();
+        this.completed.incrementAndGet();
+        if (!success) {
+            this.failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Updates the reported load using the current values of the sources and the calls since the last update. This is
+     * called automatically in the configured interval.
+     */
+    public synchronized void refresh() {
+        try {
+            final long now = System.nanoTime();
+            final double elapsedSeconds = Math.max(now - this.lastRefreshNanos, 1) / 1e9;
+            final long currentCompleted = this.completed.get();
+            final long currentFailed = this.failed.get();
+            this.recorder.setQpsMetric((currentCompleted - this.lastCompleted) / elapsedSeconds);
+            this.recorder.setEpsMetric((currentFailed - this.lastFailed) / elapsedSeconds);
+            this.lastRefreshNanos = now;
+            this.lastCompleted = currentCompleted;
+            this.lastFailed = currentFailed;
+
+            double applicationUtilization = 0;
+            for (final UtilizationSource source : this.sources) {
+                final double utilization = source.getUtilization();
+                if (!(utilization >= 0)) {
+                    this.recorder.removeUtilizationMetric(source.getName());
+                    continue;
+                }
+                if (CpuUtilizationSource.NAME.equals(source.getName())) {
+                    this.recorder.setCpuUtilizationMetric(utilization);
+                }
+                final double bounded = Math.min(utilization, 1.0);
+                this.recorder.putUtilizationMetric(source.getName(), bounded);
+                applicationUtilization = Math.max(applicationUtilization, bounded);
+            }
+            this.recorder.setApplicationUtilizationMetric(applicationUtilization);
+        } catch (final RuntimeException e) {
+            log.warn("Failed to update the load report", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.refreshTask.cancel(false);
+        SharedResourceHolder.release(GrpcUtil.TIMER_SERVICE, this.scheduler);
+    }
+
+}
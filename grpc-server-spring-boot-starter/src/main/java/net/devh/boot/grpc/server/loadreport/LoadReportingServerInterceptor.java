@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.loadreport;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import io.grpc.xds.orca.OrcaMetricReportingServerInterceptor;
+
+/**
+ * Counts the calls for the {@link LoadReporter} and attaches the server's load to the trailers of every call, so that
+ * the clients can use it for load balancing. Applications can add per call costs using the
+ * {@link io.grpc.services.CallMetricRecorder CallMetricRecorder}.
+ */
+public class LoadReportingServerInterceptor implements ServerInterceptor {
+
+    private final LoadReporter reporter;
+    private final OrcaMetricReportingServerInterceptor orcaInterceptor;
+
+    /**
+     * Creates a new LoadReportingServerInterceptor.
+     *
+     * @param reporter The reporter that holds the server's load.
+     */
+    public LoadReportingServerInterceptor(final LoadReporter reporter) {
+        this.reporter = requireNonNull(reporter, "reporter");
+        this.orcaInterceptor = OrcaMetricReportingServerInterceptor.create(reporter.getMetricRecorder());
+    }
+
+    @Override
+    public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call, final Metadata headers,
+            final ServerCallHandler<ReqT, RespT> next) {
+        final AtomicBoolean completed = new AtomicBoolean();
+        this.reporter.onCallStarted();
+        final ServerCall<ReqT, RespT> countingCall = new SimpleForwardingServerCall<ReqT, RespT>(call) {
+
+            @Override
+            public void close(final Status status, final Metadata trailers) {
+                if (completed.compareAndSet(false, true)) {
+                    LoadReportingServerInterceptor.this.reporter.onCallCompleted(status.isOk());
+                }
+                super.close(status, trailers);
+            }
+
+        };
+        final Listener<ReqT> delegate;
+        try {
+            delegate = this.orcaInterceptor.interceptCall(countingCall, headers, next);
+        } catch (final RuntimeException e) {
+            if (completed.compareAndSet(false, true)) {
+                this.reporter.onCallCompleted(false);
+            }
+            throw e;
+        }
+        return new SimpleForwardingServerCallListener<ReqT>(delegate) {
+
+            @Override
+            public void onCancel() {
+                if (completed.compareAndSet(false, true)) {
+                    LoadReportingServerInterceptor.this.reporter.onCallCompleted(false);
+                }
+                super.onCancel();
+            }
+
+        };
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.loadreport;
+
+/**
+ * A source for a utilization of the server, that is reported to the clients. Spring beans of this type are picked up
+ * automatically.
+ */
+public interface UtilizationSource {
+
+    /**
+     * Gets the name the utilization is reported as.
+     *
+     * @return The name of the utilization.
+     */
+    String getName();
+
+    /**
+     * Gets the current utilization of the server. A value of {@code 0} means idle and a value of {@code 1} means fully
+     * utilized. Negative values are not reported.
+     *
+     * @return The current utilization.
+     */
+    double getUtilization();
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains the classes that report the server's load to the clients using the ORCA protocol.
+ */
+
+package net.devh.boot.grpc.server.loadreport;
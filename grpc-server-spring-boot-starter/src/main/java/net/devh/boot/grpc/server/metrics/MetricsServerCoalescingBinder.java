@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.server.cache.RequestCoalescer;
+
+/**
+ * Binds the metrics of the gRPC server's request coalescers to a {@link MeterRegistry}.
+ */
+public class MetricsServerCoalescingBinder implements MeterBinder {
+
+    private final Supplier<Collection<RequestCoalescer>> coalescers;
+
+    /**
+     * Creates a new MetricsServerCoalescingBinder.
+     *
+     * @param coalescers The supplier for the coalescers to monitor.
+     */
+    public MetricsServerCoalescingBinder(final Supplier<Collection<RequestCoalescer>> coalescers) {
+        this.coalescers = requireNonNull(coalescers, "coalescers");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        for (final RequestCoalescer coalescer : this.coalescers.get()) {
+            bindTo(registry, coalescer);
+        }
+    }
+
+    /**
+     * Binds the metrics of the given coalescer to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param coalescer The coalescer to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final RequestCoalescer coalescer) {
+        FunctionCounter.builder("grpc.server.coalescing.calls", coalescer, RequestCoalescer::getExecutedCount)
+                .description("The total number of coalescable calls by result")
+                .baseUnit("calls")
+                .tag("coalescer", coalescer.getName())
+                .tag("result", "executed")
+                .register(registry);
+        FunctionCounter.builder("grpc.server.coalescing.calls", coalescer, RequestCoalescer::getCoalescedCount)
+                .description("The total number of coalescable calls by result")
+                .baseUnit("calls")
+                .tag("coalescer", coalescer.getName())
+                .tag("result", "coalesced")
+                .register(registry);
+        Gauge.builder("grpc.server.coalescing.ratio", coalescer, RequestCoalescer::getCoalescingRatio)
+                .description("The ratio of calls that have been attached to an identical call in flight")
+                .tag("coalescer", coalescer.getName())
+                .register(registry);
+        Gauge.builder("grpc.server.coalescing.inflight", coalescer, RequestCoalescer::getInFlightCount)
+                .description("The number of distinct calls that are currently in flight")
+                .tag("coalescer", coalescer.getName())
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.server.limit.ConcurrencyLimiter;
+
+/**
+ * Binds the metrics of the gRPC server's adaptive concurrency limiters to a {@link MeterRegistry}.
+ */
+public class MetricsServerConcurrencyLimitBinder implements MeterBinder {
+
+    private final Supplier<Collection<ConcurrencyLimiter>> limiters;
+
+    /**
+     * Creates a new MetricsServerConcurrencyLimitBinder.
+     *
+     * @param limiters The supplier for the limiters to monitor.
+     */
+    public MetricsServerConcurrencyLimitBinder(final Supplier<Collection<ConcurrencyLimiter>> limiters) {
+        this.limiters = requireNonNull(limiters, "limiters");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        for (final ConcurrencyLimiter limiter : this.limiters.get()) {
+            bindTo(registry, limiter);
+        }
+    }
+
+    /**
+     * Binds the metrics of the given limiter to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param limiter The limiter to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final ConcurrencyLimiter limiter) {
+        Gauge.builder("grpc.server.concurrency.limit", limiter, ConcurrencyLimiter::getLimit)
+                .description("The current number of concurrent calls permitted by the limiter")
+                .baseUnit("calls")
+                .tag("limiter", limiter.getName())
+                .register(registry);
+        Gauge.builder("grpc.server.concurrency.inflight", limiter, ConcurrencyLimiter::getInFlight)
+                .description("The number of calls that are currently in flight")
+                .baseUnit("calls")
+                .tag("limiter", limiter.getName())
+                .register(registry);
+        FunctionCounter.builder("grpc.server.concurrency.shed", limiter, ConcurrencyLimiter::getShedCount)
+                .description("The total number of calls that have been rejected by the limiter")
+                .baseUnit("calls")
+                .tag("limiter", limiter.getName())
+                .register(registry);
+    }
+
+}
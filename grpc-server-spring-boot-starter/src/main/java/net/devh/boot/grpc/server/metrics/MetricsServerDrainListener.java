@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.ApplicationListener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent.Phase;
+import net.devh.boot.grpc.server.event.GrpcServerLifecycleEvent;
+import net.devh.boot.grpc.server.event.GrpcServerTerminatedEvent;
+
+/**
+ * Records the duration of the individual phases of the server drain in a {@link MeterRegistry}. A phase ends, once the
+ * next phase starts or the server terminates.
+ */
+public class MetricsServerDrainListener implements ApplicationListener<GrpcServerLifecycleEvent> {
+
+    private final MeterRegistry registry;
+
+    private Phase currentPhase;
+    private long currentPhaseStart;
+
+    /**
+     * Creates a new MetricsServerDrainListener.
+     *
+     * @param registry The registry to record the durations in.
+     */
+    public MetricsServerDrainListener(final MeterRegistry registry) {
+        this.registry = requireNonNull(registry, "registry");
+    }
+
+    @Override
+    public synchronized void onApplicationEvent(final GrpcServerLifecycleEvent event) {
+        if (event instanceof GrpcServerDrainEvent) {
+            completePhase();
+            this.currentPhase = ((GrpcServerDrainEvent) event).getPhase();
+            this.currentPhaseStart = System.nanoTime();
+        } else if (event instanceof GrpcServerTerminatedEvent) {
+            completePhase();
+        }
+    }
+
+    private void completePhase() {
+        if (this.currentPhase != null) {
+            Timer.builder("grpc.server.drain.phase")
+                    .description("The time spent in the individual phases of the server drain")
+                    .tag("phase", this.currentPhase.name())
+                    .register(this.registry)
+                    .record(System.nanoTime() - this.currentPhaseStart, TimeUnit.NANOSECONDS);
+            this.currentPhase = null;
+        }
+    }
+
+}
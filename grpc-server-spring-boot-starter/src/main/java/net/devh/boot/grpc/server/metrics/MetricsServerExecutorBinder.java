@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.server.executor.InstrumentedExecutor;
+
+/**
+ * Binds the saturation metrics of the gRPC server executors to a {@link MeterRegistry}.
+ */
+public class MetricsServerExecutorBinder implements MeterBinder {
+
+    private final Supplier<Map<String, InstrumentedExecutor>> executors;
+
+    /**
+     * Creates a new MetricsServerExecutorBinder.
+     *
+     * @param executors The supplier for the executors to monitor, keyed by their name.
+     */
+    public MetricsServerExecutorBinder(final Supplier<Map<String, InstrumentedExecutor>> executors) {
+        this.executors = requireNonNull(executors, "executors");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        this.executors.get().forEach((name, executor) -> bindTo(registry, name, executor));
+    }
+
+    /**
+     * Binds the metrics of the given executor to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param name The name of the executor.
+     * @param executor The executor to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final String name, final InstrumentedExecutor executor) {
+        Gauge.builder("grpc.server.executor.active", executor, InstrumentedExecutor::getActiveCount)
+                .description("The approximate number of threads that are actively executing gRPC calls")
+                .baseUnit("threads")
+                .tag("name", name)
+                .register(registry);
+        Gauge.builder("grpc.server.executor.queued", executor, InstrumentedExecutor::getQueueSize)
+                .description("The approximate number of tasks that wait for a thread")
+                .baseUnit("tasks")
+                .tag("name", name)
+                .register(registry);
+        FunctionCounter.builder("grpc.server.executor.rejected", executor, InstrumentedExecutor::getRejectedCount)
+                .description("The total number of tasks that have been rejected by the executor")
+                .baseUnit("tasks")
+                .tag("name", name)
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.server.limit.InboundMemoryBudget;
+
+/**
+ * Binds the metrics of the gRPC server's inbound memory budgets to a {@link MeterRegistry}.
+ */
+public class MetricsServerInboundMemoryBinder implements MeterBinder {
+
+    private final Supplier<Collection<InboundMemoryBudget>> budgets;
+
+    /**
+     * Creates a new MetricsServerInboundMemoryBinder.
+     *
+     * @param budgets The supplier for the budgets to monitor.
+     */
+    public MetricsServerInboundMemoryBinder(final Supplier<Collection<InboundMemoryBudget>> budgets) {
+        this.budgets = requireNonNull(budgets, "budgets");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        for (final InboundMemoryBudget budget : this.budgets.get()) {
+            bindTo(registry, budget);
+        }
+    }
+
+    /**
+     * Binds the metrics of the given budget to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param budget The budget to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final InboundMemoryBudget budget) {
+        Gauge.builder("grpc.server.inbound.memory.used", budget, InboundMemoryBudget::getUsedBytes)
+                .description("The number of inbound bytes that have been received, but not yet processed")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("budget", budget.getName())
+                .register(registry);
+        Gauge.builder("grpc.server.inbound.memory.max", budget, InboundMemoryBudget::getMaxBytes)
+                .description("The number of inbound bytes that may be buffered")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("budget", budget.getName())
+                .register(registry);
+        Gauge.builder("grpc.server.inbound.memory.paused", budget, InboundMemoryBudget::getPausedCount)
+                .description("The number of reads that are deferred until the budget is available again")
+                .tag("budget", budget.getName())
+                .register(registry);
+        FunctionCounter.builder("grpc.server.inbound.memory.rejected", budget, InboundMemoryBudget::getRejectedCount)
+                .description("The total number of calls that have been rejected, because the budget was exhausted")
+                .baseUnit("calls")
+                .tag("budget", budget.getName())
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.server.cache.ResponseCache;
+
+/**
+ * Binds the metrics of the gRPC server's response caches to a {@link MeterRegistry}.
+ */
+public class MetricsServerResponseCacheBinder implements MeterBinder {
+
+    private final Supplier<Collection<ResponseCache>> caches;
+
+    /**
+     * Creates a new MetricsServerResponseCacheBinder.
+     *
+     * @param caches The supplier for the caches to monitor.
+     */
+    public MetricsServerResponseCacheBinder(final Supplier<Collection<ResponseCache>> caches) {
+        this.caches = requireNonNull(caches, "caches");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        for (final ResponseCache cache : this.caches.get()) {
+            bindTo(registry, cache);
+        }
+    }
+
+    /**
+     * Binds the metrics of the given cache to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param cache The cache to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final ResponseCache cache) {
+        FunctionCounter.builder("grpc.server.cache.requests", cache, ResponseCache::getHitCount)
+                .description("The total number of cacheable calls by result")
+                .baseUnit("calls")
+                .tag("cache", cache.getName())
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("grpc.server.cache.requests", cache, ResponseCache::getMissCount)
+                .description("The total number of cacheable calls by result")
+                .baseUnit("calls")
+                .tag("cache", cache.getName())
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("grpc.server.cache.evictions", cache, ResponseCache::getEvictionCount)
+                .description("The total number of responses that have been evicted from the cache")
+                .tag("cache", cache.getName())
+                .register(registry);
+        Gauge.builder("grpc.server.cache.size", cache, ResponseCache::getSize)
+                .description("The number of responses that are currently cached")
+                .tag("cache", cache.getName())
+                .register(registry);
+        Gauge.builder("grpc.server.cache.weight", cache, ResponseCache::getWeight)
+                .description("The estimated size of the responses that are currently cached")
+                .baseUnit(BaseUnits.BYTES)
+                .tag("cache", cache.getName())
+                .register(registry);
+    }
+
+}
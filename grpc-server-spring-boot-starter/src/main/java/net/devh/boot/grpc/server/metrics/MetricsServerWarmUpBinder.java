@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.metrics;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.devh.boot.grpc.server.warmup.GrpcServerWarmUp;
+
+/**
+ * Binds the metrics of the gRPC server's warm-up to a {@link MeterRegistry}.
+ */
+public class MetricsServerWarmUpBinder implements MeterBinder {
+
+    private final Supplier<GrpcServerWarmUp> warmUp;
+
+    /**
+     * Creates a new MetricsServerWarmUpBinder.
+     *
+     * @param warmUp The supplier for the warm-up to monitor. May return null, if the warm-up is disabled.
+     */
+    public MetricsServerWarmUpBinder(final Supplier<GrpcServerWarmUp> warmUp) {
+        this.warmUp = requireNonNull(warmUp, "warmUp");
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        final GrpcServerWarmUp localWarmUp = this.warmUp.get();
+        if (localWarmUp != null) {
+            bindTo(registry, localWarmUp);
+        }
+    }
+
+    /**
+     * Binds the metrics of the given warm-up to the given registry.
+     *
+     * @param registry The registry to bind the metrics to.
+     * @param warmUp The warm-up to monitor.
+     */
+    public static void bindTo(final MeterRegistry registry, final GrpcServerWarmUp warmUp) {
+        TimeGauge.builder("grpc.server.warmup.duration", warmUp, TimeUnit.NANOSECONDS,
+                w -> w.getDuration().toNanos())
+                .description("The time that has been spent warming up the services")
+                .register(registry);
+        FunctionCounter.builder("grpc.server.warmup.calls", warmUp, GrpcServerWarmUp::getSuccessfulCalls)
+                .description("The total number of calls that have been sent during the warm-up")
+                .baseUnit("calls")
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("grpc.server.warmup.calls", warmUp, GrpcServerWarmUp::getFailedCalls)
+                .description("The total number of calls that have been sent during the warm-up")
+                .baseUnit("calls")
+                .tag("result", "failure")
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,610 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.pipeline;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.grpc.Attributes;
+import io.grpc.BindableService;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.SecurityLevel;
+import io.grpc.ServerCall;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.SerializingExecutor;
+import io.grpc.internal.SharedResourceHolder;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.pipeline.PipelineFrame;
+import net.devh.boot.grpc.common.pipeline.PipelineProtocol;
+import net.devh.boot.grpc.server.executor.BoundedExecutor;
+import net.devh.boot.grpc.server.executor.DispatchingServerInterceptor;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+
+/**
+ * The service that accepts pipeline streams and dispatches the logical unary calls multiplexed over them to the
+ * regular service implementations, including their interceptors. Each logical call has its own deadline, cancellation
+ * and context, which is forked from the root context, so that it doesn't inherit any values of the pipeline stream's
+ * context. Only the deadline and the cancellation of the stream are carried over. If the server uses a
+ * {@link BoundedExecutor}, the logical calls are dispatched to it in the same way as normal calls, so that they are
+ * rejected with {@link Status#RESOURCE_EXHAUSTED} once it is saturated.
+ *
+ * <p>
+ * The number of concurrent logical calls per stream is limited. Surplus calls are queued on the server, while
+ * cancellations are still processed immediately. Only if the queue is full as well, the server stops reading, so that
+ * the stream's flow control slows down clients that send more calls than the server can handle.
+ * </p>
+ */
+@Slf4j
+public class PipelineService implements BindableService, AutoCloseable {
+
+    private final Supplier<Collection<GrpcServiceDefinition>> services;
+    private final Executor executor;
+    private final boolean sharedExecutor;
+    private final ScheduledExecutorService scheduler;
+    @Nullable
+    private final DispatchingServerInterceptor dispatchingInterceptor;
+    private final int maxConcurrentCalls;
+    private volatile Map<String, ServerMethodDefinition<?, ?>> methods;
+
+    /**
+     * Creates a new PipelineService.
+     *
+     * @param services The supplier for the services the logical calls are dispatched to. The supplier is called once,
+     *        when the first pipeline stream is opened.
+     * @param executor The executor used to process the logical calls or null to use a shared cached thread pool. Tasks
+     *        that are rejected by the executor close the affected logical call with {@link Status#RESOURCE_EXHAUSTED}.
+     * @param maxConcurrentCalls The maximum number of concurrent logical calls per stream.
+     */
+    public PipelineService(final Supplier<Collection<GrpcServiceDefinition>> services,
+            @Nullable final Executor executor, final int maxConcurrentCalls) {
+        this.services = requireNonNull(services, "services");
+        this.sharedExecutor = executor == null;
+        if (executor instanceof BoundedExecutor) {
+            // Like the server itself, see AbstractGrpcServerFactory#configureExecutor
+            this.dispatchingInterceptor =
+                    new DispatchingServerInterceptor(((BoundedExecutor) executor).getName(), executor);
+            this.executor = MoreExecutors.directExecutor();
+        } else {
+            this.dispatchingInterceptor = null;
+            this.executor =
+                    this.sharedExecutor ? SharedResourceHolder.get(GrpcUtil.SHARED_CHANNEL_EXECUTOR) : executor;
+        }
+        this.scheduler = SharedResourceHolder.get(GrpcUtil.TIMER_SERVICE);
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive: " + maxConcurrentCalls);
+        }
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    @Override
+    public ServerServiceDefinition bindService() {
+        return ServerServiceDefinition.builder(PipelineProtocol.SERVICE_NAME)
+                .addMethod(PipelineProtocol.EXCHANGE_METHOD, (call, headers) -> {
+                    final PipelineSession session = new PipelineSession(call, headers, Context.current());
+                    call.sendHeaders(new Metadata());
+                    call.request(1);
+                    return session;
+                })
+                .build();
+    }
+
+    /**
+     * Looks up the definition of the method with the given name.
+     *
+     * @param methodName The full name of the method.
+     * @return The method definition or null, if there is no such method.
+     */
+    @Nullable
+    private ServerMethodDefinition<?, ?> lookupMethod(final String methodName) {
+        Map<String, ServerMethodDefinition<?, ?>> current = this.methods;
+        if (current == null) {
+            synchronized (this) {
+                current = this.methods;
+                if (current == null) {
+                    current = new HashMap<>();
+                    for (final GrpcServiceDefinition service : this.services.get()) {
+                        // The definitions already contain the global and the service specific interceptors
+                        ServerServiceDefinition definition = service.getDefinition();
+                        if (PipelineProtocol.SERVICE_NAME.equals(definition.getServiceDescriptor().getName())) {
+                            continue;
+                        }
+                        if (this.dispatchingInterceptor != null) {
+                            definition = ServerInterceptors.intercept(definition, this.dispatchingInterceptor);
+                        }
+                        for (final ServerMethodDefinition<?, ?> method : definition.getMethods()) {
+                            current.put(method.getMethodDescriptor().getFullMethodName(), method);
+                        }
+                    }
+                    this.methods = current;
+                }
+            }
+        }
+        return current.get(methodName);
+    }
+
+    @Override
+    public void close() {
+        SharedResourceHolder.release(GrpcUtil.TIMER_SERVICE, this.scheduler);
+        if (this.sharedExecutor) {
+            SharedResourceHolder.release(GrpcUtil.SHARED_CHANNEL_EXECUTOR, this.executor);
+        }
+    }
+
+    /**
+     * A single pipeline stream and the logical calls that are currently processed for it.
+     */
+    private final class PipelineSession extends ServerCall.Listener<PipelineFrame> {
+
+        private final ServerCall<PipelineFrame, PipelineFrame> stream;
+        private final Metadata streamHeaders;
+        private final Context context;
+        private final Map<Long, LogicalCall<?, ?>> calls = new ConcurrentHashMap<>();
+        @GuardedBy("this")
+        private final Deque<PipelineFrame> outbound = new ArrayDeque<>();
+        @GuardedBy("this")
+        private final Deque<LogicalCall<?, ?>> queued = new ArrayDeque<>();
+        @GuardedBy("this")
+        private int active;
+        @GuardedBy("this")
+        private boolean readPaused;
+        @GuardedBy("this")
+        private boolean halfClosed;
+        @GuardedBy("this")
+        private boolean closed;
+
+        PipelineSession(final ServerCall<PipelineFrame, PipelineFrame> stream, final Metadata streamHeaders,
+                final Context context) {
+            this.stream = stream;
+            this.streamHeaders = streamHeaders;
+            this.context = context;
+        }
+
+        @Override
+        public void onMessage(final PipelineFrame frame) {
+            switch (frame.getType()) {
+                case REQUEST:
+                    startCall(frame);
+                    break;
+                case CANCEL:
+                    cancelCall(frame.getCallId());
+                    break;
+                default:
+                    log.debug("Ignoring unexpected pipeline frame: {}", frame);
+                    break;
+            }
+            synchronized (this) {
+                // Keep reading, so that cancellations aren't stuck behind the queued calls
+                if (this.queued.size() < PipelineService.this.maxConcurrentCalls) {
+                    this.stream.request(1);
+                } else {
+                    this.readPaused = true;
+                }
+            }
+        }
+
+        @Override
+        public void onHalfClose() {
+            synchronized (this) {
+                this.halfClosed = true;
+                closeIfDone();
+            }
+        }
+
+        @Override
+        public void onCancel() {
+            synchronized (this) {
+                this.closed = true;
+                this.outbound.clear();
+                this.queued.clear();
+            }
+            for (final LogicalCall<?, ?> call : this.calls.values()) {
+                call.cancel();
+            }
+        }
+
+        @Override
+        public void onReady() {
+            synchronized (this) {
+                flush();
+            }
+        }
+
+        private void startCall(final PipelineFrame frame) {
+            final ServerMethodDefinition<?, ?> definition = lookupMethod(frame.getMethodName());
+            if (definition == null || definition.getMethodDescriptor().getType() != MethodType.UNARY) {
+                send(PipelineFrame.close(frame.getCallId(), Status.UNIMPLEMENTED
+                        .withDescription("Unknown or non unary method: " + frame.getMethodName()), new Metadata()));
+                return;
+            }
+            final LogicalCall<?, ?> call = new LogicalCall<>(this, frame, definition, mergeHeaders(frame));
+            if (this.calls.putIfAbsent(frame.getCallId(), call) != null) {
+                call.cancel();
+                fail(Status.INVALID_ARGUMENT.withDescription("Duplicate call id: " + frame.getCallId()));
+                return;
+            }
+            synchronized (this) {
+                if (this.active >= PipelineService.this.maxConcurrentCalls) {
+                    // The deadline of the call already applies while it is queued
+                    this.queued.add(call);
+                    return;
+                }
+                this.active++;
+            }
+            call.start();
+        }
+
+        /**
+         * Merges the headers of the pipeline stream with the headers of the given request frame. The headers of the
+         * frame replace the stream's headers with the same name, so that e.g. credentials aren't sent twice.
+         *
+         * @param frame The frame of the logical call.
+         * @return The headers of the logical call.
+         */
+        private Metadata mergeHeaders(final PipelineFrame frame) {
+            final Metadata frameHeaders = frame.getMetadata();
+            final Metadata headers = new Metadata();
+            headers.merge(this.streamHeaders);
+            for (final String name : frameHeaders.keys()) {
+                headers.discardAll(name.endsWith(Metadata.BINARY_HEADER_SUFFIX)
+                        ? Metadata.Key.of(name, Metadata.BINARY_BYTE_MARSHALLER)
+                        : Metadata.Key.of(name, Metadata.ASCII_STRING_MARSHALLER));
+            }
+            headers.merge(frameHeaders);
+            return headers;
+        }
+
+        /**
+         * Closes the pipeline stream because of a protocol violation and cancels all of its logical calls.
+         *
+         * @param status The status to close the stream with.
+         */
+        private void fail(final Status status) {
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                this.closed = true;
+                this.outbound.clear();
+                this.queued.clear();
+                this.stream.close(status, new Metadata());
+            }
+            for (final LogicalCall<?, ?> call : this.calls.values()) {
+                call.cancel();
+            }
+        }
+
+        private void cancelCall(final long callId) {
+            final LogicalCall<?, ?> call = this.calls.get(callId);
+            if (call == null) {
+                return;
+            }
+            final boolean wasQueued;
+            synchronized (this) {
+                wasQueued = this.queued.remove(call);
+            }
+            if (wasQueued) {
+                // The client has already forgotten the call
+                this.calls.remove(callId, call);
+            }
+            call.cancel();
+        }
+
+        boolean isReady() {
+            synchronized (this) {
+                return !this.closed && this.stream.isReady();
+            }
+        }
+
+        void send(final PipelineFrame frame) {
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                this.outbound.add(frame);
+                flush();
+            }
+        }
+
+        void callClosed(final LogicalCall<?, ?> call) {
+            this.calls.remove(call.getId(), call);
+            final List<LogicalCall<?, ?>> next = new ArrayList<>();
+            synchronized (this) {
+                this.active--;
+                while (!this.closed && this.active < PipelineService.this.maxConcurrentCalls
+                        && !this.queued.isEmpty()) {
+                    this.active++;
+                    next.add(this.queued.poll());
+                }
+                if (this.readPaused && this.queued.size() < PipelineService.this.maxConcurrentCalls
+                        && !this.closed) {
+                    this.readPaused = false;
+                    this.stream.request(1);
+                }
+                closeIfDone();
+            }
+            next.forEach(LogicalCall::start);
+        }
+
+        @GuardedBy("this")
+        private void flush() {
+            while (!this.closed && !this.outbound.isEmpty() && this.stream.isReady()) {
+                this.stream.sendMessage(this.outbound.poll());
+            }
+            closeIfDone();
+        }
+
+        @GuardedBy("this")
+        private void closeIfDone() {
+            if (this.halfClosed && !this.closed && this.active == 0 && this.queued.isEmpty()
+                    && this.outbound.isEmpty()) {
+                this.closed = true;
+                this.stream.close(Status.OK, new Metadata());
+            }
+        }
+
+    }
+
+    /**
+     * A logical call that is multiplexed over a pipeline stream. It is passed to the regular call handler of the
+     * method, so that the service and its interceptors can't tell the difference to a normal call.
+     */
+    private final class LogicalCall<ReqT, RespT> extends ServerCall<ReqT, RespT> {
+
+        private final PipelineSession session;
+        private final long id;
+        private final ServerMethodDefinition<ReqT, RespT> definition;
+        private final Metadata headers;
+        private final byte[] request;
+        private final Context.CancellableContext context;
+        private final SerializingExecutor callExecutor = new SerializingExecutor(PipelineService.this.executor);
+        private volatile Listener<ReqT> listener;
+        @GuardedBy("this")
+        private int requested;
+        @GuardedBy("this")
+        private boolean delivered;
+        @GuardedBy("this")
+        private boolean closed;
+        @GuardedBy("this")
+        private boolean cancelled;
+        @GuardedBy("this")
+        private Metadata responseHeaders;
+
+        @SuppressWarnings("unchecked")
+        LogicalCall(final PipelineSession session, final PipelineFrame frame,
+                final ServerMethodDefinition<?, ?> definition, final Metadata headers) {
+            this.session = session;
+            this.id = frame.getCallId();
+            this.definition = (ServerMethodDefinition<ReqT, RespT>) definition;
+            this.headers = headers;
+            this.request = frame.getPayload();
+            // Don't inherit the values of the stream's context (e.g. the ones of the stream's interceptors)
+            Deadline deadline = session.context.getDeadline();
+            if (frame.getTimeoutNanos() > 0) {
+                final Deadline callDeadline = Deadline.after(frame.getTimeoutNanos(), TimeUnit.NANOSECONDS);
+                deadline = deadline == null ? callDeadline : deadline.minimum(callDeadline);
+            }
+            this.context = deadline == null
+                    ? Context.ROOT.withCancellation()
+                    : Context.ROOT.withDeadline(deadline, PipelineService.this.scheduler);
+        }
+
+        long getId() {
+            return this.id;
+        }
+
+        void start() {
+            this.context.addListener(cancelledContext -> onContextCancelled(), MoreExecutors.directExecutor());
+            final boolean accepted = execute(() -> this.context.run(() -> {
+                if (this.context.isCancelled()) {
+                    // E.g. the deadline expired while the call was queued
+                    return;
+                }
+                try {
+                    this.listener = this.definition.getServerCallHandler().startCall(this, this.headers);
+                } catch (final RuntimeException e) {
+                    close(Status.fromThrowable(e), new Metadata());
+                    return;
+                }
+                deliverRequest();
+            }));
+            if (!accepted) {
+                close(Status.RESOURCE_EXHAUSTED.withDescription("The server's executor is saturated"), new Metadata());
+            }
+        }
+
+        /**
+         * Executes the given task on the call executor.
+         *
+         * @param task The task to execute.
+         * @return True, if the task has been accepted. False, if the executor rejected it.
+         */
+        private boolean execute(final Runnable task) {
+            try {
+                this.callExecutor.execute(task);
+                return true;
+            } catch (final RejectedExecutionException e) {
+                log.debug("Rejected logical call to {}", this.definition.getMethodDescriptor().getFullMethodName());
+                return false;
+            }
+        }
+
+        void cancel() {
+            this.context.cancel(Status.CANCELLED.withDescription("Cancelled by the client").asRuntimeException());
+        }
+
+        @Override
+        public void request(final int numMessages) {
+            synchronized (this) {
+                this.requested += numMessages;
+            }
+            if (!execute(this::deliverRequest)) {
+                close(Status.RESOURCE_EXHAUSTED.withDescription("The server's executor is saturated"), new Metadata());
+            }
+        }
+
+        /**
+         * Delivers the request to the listener, once it has been requested. Must be called from the call executor.
+         */
+        private void deliverRequest() {
+            final Listener<ReqT> target = this.listener;
+            synchronized (this) {
+                if (target == null || this.delivered || this.requested <= 0 || this.closed) {
+                    return;
+                }
+                this.delivered = true;
+            }
+            this.context.run(() -> {
+                try {
+                    target.onMessage(PipelineProtocol.fromBytes(
+                            this.definition.getMethodDescriptor().getRequestMarshaller(), this.request));
+                    target.onHalfClose();
+                } catch (final RuntimeException e) {
+                    close(Status.fromThrowable(e), new Metadata());
+                }
+            });
+        }
+
+        @Override
+        public void sendHeaders(final Metadata responseHeaders) {
+            synchronized (this) {
+                this.responseHeaders = responseHeaders;
+            }
+        }
+
+        @Override
+        public void sendMessage(final RespT message) {
+            final Metadata sentHeaders;
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                sentHeaders = this.responseHeaders == null ? new Metadata() : this.responseHeaders;
+            }
+            final byte[] response =
+                    PipelineProtocol.toBytes(this.definition.getMethodDescriptor().getResponseMarshaller(), message);
+            this.session.send(PipelineFrame.response(this.id, sentHeaders, response));
+        }
+
+        @Override
+        public void close(final Status status, final Metadata trailers) {
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                this.closed = true;
+            }
+            this.session.send(PipelineFrame.close(this.id, status, trailers));
+            this.session.callClosed(this);
+            final Listener<ReqT> target = this.listener;
+            if (target != null) {
+                execute(() -> this.context.run(target::onComplete));
+            }
+            // Releases the deadline timer
+            if (!execute(() -> this.context.cancel(null))) {
+                this.context.cancel(null);
+            }
+        }
+
+        private void onContextCancelled() {
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+                this.closed = true;
+                this.cancelled = true;
+            }
+            this.session.send(PipelineFrame.close(this.id, Contexts.statusFromCancelled(this.context),
+                    new Metadata()));
+            this.session.callClosed(this);
+            execute(() -> {
+                final Listener<ReqT> target = this.listener;
+                if (target != null) {
+                    this.context.run(target::onCancel);
+                }
+            });
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        @Override
+        public boolean isReady() {
+            return this.session.isReady();
+        }
+
+        @Override
+        public void setMessageCompression(final boolean enabled) {
+            // The whole stream is compressed instead
+        }
+
+        @Override
+        public void setCompression(final String compressor) {
+            // The whole stream is compressed instead
+        }
+
+        @Override
+        public MethodDescriptor<ReqT, RespT> getMethodDescriptor() {
+            return this.definition.getMethodDescriptor();
+        }
+
+        @Override
+        public Attributes getAttributes() {
+            return this.session.stream.getAttributes();
+        }
+
+        @Override
+        public String getAuthority() {
+            return this.session.stream.getAuthority();
+        }
+
+        @Override
+        public SecurityLevel getSecurityLevel() {
+            return this.session.stream.getSecurityLevel();
+        }
+
+    }
+
+}
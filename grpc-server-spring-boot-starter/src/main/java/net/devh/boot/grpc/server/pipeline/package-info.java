@@ -0,0 +1,6 @@
+/**
+ * Contains the server side of the pipeline protocol, that dispatches many small unary calls multiplexed over a single
+ * bidi stream to the regular service implementations.
+ */
+
+package net.devh.boot.grpc.server.pipeline;
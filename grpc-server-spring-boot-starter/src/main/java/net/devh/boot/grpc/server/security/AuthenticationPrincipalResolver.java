@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.security;
+
+import org.springframework.security.core.Authentication;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+import net.devh.boot.grpc.server.security.interceptors.AuthenticatingServerInterceptor;
+
+/**
+ * A {@link PrincipalResolver} that uses the name of the {@link Authentication} that was set up by the
+ * {@link AuthenticatingServerInterceptor}.
+ */
+public class AuthenticationPrincipalResolver implements PrincipalResolver {
+
+    @Override
+    public String resolvePrincipal(final ServerCall<?, ?> call, final Metadata headers) {
+        final Authentication authentication = AuthenticatingServerInterceptor.AUTHENTICATION_CONTEXT_KEY.get();
+        return authentication == null ? null : authentication.getName();
+    }
+
+}
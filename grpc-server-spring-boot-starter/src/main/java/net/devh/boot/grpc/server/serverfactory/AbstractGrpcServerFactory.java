@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,18 +18,36 @@
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
+import org.springframework.core.io.Resource;
 import org.springframework.util.unit.DataSize;
 
 import com.google.common.collect.Lists;
 
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.ServerServiceDefinition;
 import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.marshaller.ZeroCopyProtoMarshaller;
+import net.devh.boot.grpc.common.security.CertificateReloader;
+import net.devh.boot.grpc.common.security.CertificateReloader.KeyStoreLoader;
+import net.devh.boot.grpc.common.security.CertificateReloaderRegistry;
+import net.devh.boot.grpc.common.security.KeyStoreUtils;
+import net.devh.boot.grpc.server.config.ClientAuth;
+import net.devh.boot.grpc.server.config.ExecutorType;
 import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.config.GrpcServerProperties.Security;
+import net.devh.boot.grpc.server.executor.BoundedExecutor;
+import net.devh.boot.grpc.server.executor.DispatchingServerInterceptor;
 import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
 
 /**
@@ -48,6 +66,11 @@
     protected final GrpcServerProperties properties;
     protected final List<GrpcServerConfigurer> serverConfigurers;
 
+    private final List<Runnable> releaseTasks = new ArrayList<>();
+
+    private Executor executor;
+    private CertificateReloaderRegistry certificateReloaders;
+
     /**
      * Creates a new server factory with the given properties.
      *
@@ -82,8 +105,10 @@ public Server createServer() {
      */
     protected void configure(final T builder) {
         configureServices(builder);
+        configureExecutor(builder);
         configureKeepAlive(builder);
         configureConnectionLimits(builder);
+        configureFlowControl(builder);
         configureSecurity(builder);
         configureLimits(builder);
         for (final GrpcServerConfigurer serverConfigurer : this.serverConfigurers) {
@@ -92,7 +117,9 @@ protected void configure(final T builder) {
     }
 
     /**
-     * Configures the services that should be served by the server.
+     * Configures the services that should be served by the server. If {@link GrpcServerProperties#isZeroCopyEnabled()
+     * zero copy} is enabled, then the protobuf marshallers of the services will be replaced with
+     * {@link ZeroCopyProtoMarshaller}s.
      *
      * @param builder The server builder to configure.
      */
@@ -106,7 +133,36 @@ protected void configureServices(final T builder) {
             }
             log.info("Registered gRPC service: " + serviceName + ", bean: " + service.getBeanName() + ", class: "
                     + service.getBeanClazz().getName());
-            builder.addService(service.getDefinition());
+            final ServerServiceDefinition definition = service.getDefinition();
+            builder.addService(this.properties.isZeroCopyEnabled()
+                    ? ZeroCopyProtoMarshaller.wrap(definition)
+                    : definition);
+        }
+    }
+
+    /**
+     * Configures the executor that should be used to execute the calls. If the {@link ExecutorType#DIRECT DIRECT}
+     * executor is configured, then the calls will be executed on the transport threads. Otherwise the
+     * {@link #setExecutor(Executor) configured executor} will be used, if any.
+     *
+     * <p>
+     * {@link BoundedExecutor}s are used via a {@link DispatchingServerInterceptor}, because gRPC would otherwise reset
+     * the streams of rejected calls, which the clients receive as {@code INTERNAL} errors. The interceptor closes them
+     * with {@code RESOURCE_EXHAUSTED} instead.
+     * </p>
+     *
+     * @param builder The server builder to configure.
+     */
+    protected void configureExecutor(final T builder) {
+        if (this.properties.getExecutor().getType() == ExecutorType.DIRECT) {
+            builder.directExecutor();
+        } else if (this.executor instanceof BoundedExecutor) {
+            builder.directExecutor();
+            // Global interceptors are applied around all services and their interceptors
+            builder.intercept(new DispatchingServerInterceptor(((BoundedExecutor) this.executor).getName(),
+                    this.executor));
+        } else if (this.executor != null) {
+            builder.executor(this.executor);
         }
     }
 
@@ -141,6 +197,16 @@ protected void configureConnectionLimits(final T builder) {
         }
     }
 
+    /**
+     * Configures the HTTP/2 flow control, per connection concurrency and socket buffer options that should be used by
+     * the server. These are only supported by the netty based servers, so this implementation does nothing.
+     *
+     * @param builder The server builder to configure.
+     */
+    protected void configureFlowControl(final T builder) {
+        // Not supported by generic implementations
+    }
+
     /**
      * Configures the security options that should be used by the server.
      *
@@ -168,6 +234,88 @@ protected void configureLimits(final T builder) {
         }
     }
 
+    /**
+     * Gets a reloader for the key and trust material of the given security configuration, that watches the underlying
+     * files. The trust material is only loaded, if client authentication is enabled. If a
+     * {@link #setCertificateReloaderRegistry(CertificateReloaderRegistry) registry} is set, then the servers watching
+     * the same files share the same reloader. The reloader is released, once the server has been shut down.
+     *
+     * @param security The security configuration to use.
+     * @return The certificate reloader.
+     * @see #releaseResources()
+     */
+    protected CertificateReloader acquireCertificateReloader(final Security security) {
+        final List<Resource> resources = new ArrayList<>();
+        final KeyStoreLoader keyStoreLoader;
+        final String keyPassword;
+        final Resource privateKey = security.getPrivateKey();
+        final Resource keyStore = security.getKeyStore();
+        if (privateKey != null) {
+            final Resource certificateChain = requireNonNull(security.getCertificateChain(), "certificateChain");
+            keyPassword = security.getPrivateKeyPassword();
+            keyStoreLoader = () -> KeyStoreUtils.loadPemKeyStore(certificateChain, privateKey, keyPassword);
+            resources.add(certificateChain);
+            resources.add(privateKey);
+        } else if (keyStore != null) {
+            keyPassword = security.getKeyStorePassword();
+            keyStoreLoader = KeyStoreLoader.ofKeyStore(security.getKeyStoreFormat(), keyStore, keyPassword);
+            resources.add(keyStore);
+        } else {
+            throw new IllegalStateException("Neither privateKey nor keyStore configured");
+        }
+
+        KeyStoreLoader trustStoreLoader = null;
+        if (security.getClientAuth() != ClientAuth.NONE) {
+            final Resource trustCertCollection = security.getTrustCertCollection();
+            final Resource trustStore = security.getTrustStore();
+            if (trustCertCollection != null) {
+                trustStoreLoader = () -> KeyStoreUtils.loadPemTrustStore(trustCertCollection);
+                resources.add(trustCertCollection);
+            } else if (trustStore != null) {
+                trustStoreLoader = KeyStoreLoader.ofKeyStore(security.getTrustStoreFormat(), trustStore,
+                        security.getTrustStorePassword());
+                resources.add(trustStore);
+            }
+        }
+
+        final String name = "server:" + getAddress() + ":" + getPort();
+        final List<Path> files = new ArrayList<>(resources.size());
+        try {
+            for (final Resource resource : resources) {
+                files.add(resource.getFile().toPath());
+            }
+        } catch (final IOException e) {
+            throw new IllegalArgumentException("Failed to create reloadable SSLContext for " + name
+                    + " (Reloading requires file based resources)", e);
+        }
+        final KeyStoreLoader localTrustStoreLoader = trustStoreLoader;
+        final Supplier<CertificateReloader> factory = () -> {
+            try {
+                final CertificateReloader reloader =
+                        new CertificateReloader(name, keyStoreLoader, keyPassword, localTrustStoreLoader);
+                reloader.watch(files, security.getReloadDelay());
+                return reloader;
+            } catch (final IOException | GeneralSecurityException e) {
+                throw new IllegalArgumentException("Failed to create reloadable SSLContext for " + name, e);
+            }
+        };
+
+        final CertificateReloaderRegistry registry = this.certificateReloaders;
+        final CertificateReloader reloader = registry == null ? factory.get() : registry.acquire(files, factory);
+        addReleaseTask(() -> {
+            if (registry == null) {
+                try {
+                    reloader.close();
+                } catch (final IOException e) {
+                    log.warn("Failed to close certificate reloader '{}'", reloader.getName(), e);
+                }
+            } else {
+                registry.release(reloader);
+            }
+        });
+        return reloader;
+    }
+
     @Override
     public String getAddress() {
         return this.properties.getAddress();
@@ -178,9 +326,55 @@ public int getPort() {
         return this.properties.getPort();
     }
 
+    /**
+     * Sets the executor that should be used to execute the calls. If not set ({@code null}) then gRPC's default
+     * executor will be used. The lifecycle of the executor is not managed by this factory.
+     *
+     * @param executor The executor to use or null.
+     */
+    public void setExecutor(final Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the registry the certificate reloaders should be registered to, so that they can be monitored and shared
+     * between the servers. If not set ({@code null}), then each server uses its own reloader.
+     *
+     * @param certificateReloaders The registry to use or null.
+     */
+    public void setCertificateReloaderRegistry(final CertificateReloaderRegistry certificateReloaders) {
+        this.certificateReloaders = certificateReloaders;
+    }
+
     @Override
     public void addService(final GrpcServiceDefinition service) {
         this.serviceList.add(service);
     }
 
+    /**
+     * Registers a task that releases a resource of the created servers, once they have been shut down.
+     *
+     * @param releaseTask The task that releases the resource.
+     * @see #releaseResources()
+     */
+    protected synchronized void addReleaseTask(final Runnable releaseTask) {
+        this.releaseTasks.add(requireNonNull(releaseTask, "releaseTask"));
+    }
+
+    @Override
+    public void releaseResources() {
+        final List<Runnable> localReleaseTasks;
+        synchronized (this) {
+            localReleaseTasks = new ArrayList<>(this.releaseTasks);
+            this.releaseTasks.clear();
+        }
+        for (final Runnable releaseTask : localReleaseTasks) {
+            try {
+                releaseTask.run();
+            } catch (final RuntimeException e) {
+                log.warn("Failed to release a resource of the gRPC server", e);
+            }
+        }
+    }
+
 }
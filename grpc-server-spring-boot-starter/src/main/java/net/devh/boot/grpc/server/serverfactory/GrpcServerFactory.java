@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,4 +61,11 @@ public interface GrpcServerFactory {
      */
     void addService(GrpcServiceDefinition service);
 
+    /**
+     * Releases the resources that are shared by the servers created by this factory, such as reference counted ssl
+     * contexts. This should be called after these servers have been shut down. Servers created afterwards will use new
+     * resources.
+     */
+    default void releaseResources() {}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,22 +18,32 @@
 
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.SmartLifecycle;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
 import io.grpc.Server;
 import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent.Phase;
 import net.devh.boot.grpc.server.event.GrpcServerShutdownEvent;
 import net.devh.boot.grpc.server.event.GrpcServerStartedEvent;
 import net.devh.boot.grpc.server.event.GrpcServerTerminatedEvent;
 
 /**
- * Lifecycle bean that automatically starts and stops the grpc server.
+ * Lifecycle bean that automatically starts and stops the grpc server and its additional listeners.
  *
  * @author Michael (yidongnan@gmail.com)
  */
@@ -42,11 +52,19 @@ public class GrpcServerLifecycle implements SmartLifecycle {
 
     private static AtomicInteger serverCounter = new AtomicInteger(-1);
 
-    private final GrpcServerFactory factory;
+    /**
+     * The time reserved for forcefully stopping the servers within the shutdown phase timeout.
+     */
+    private static final long FORCE_STOP_RESERVE_NANOS = SECONDS.toNanos(1);
+
+    private final List<GrpcServerFactory> factories;
     private final Duration shutdownGracePeriod;
+    private final Duration propagationDelay;
     private final ApplicationEventPublisher eventPublisher;
+    private Duration shutdownPhaseTimeout;
+    private Executor drainExecutor = new SimpleAsyncTaskExecutor("grpc-server-drain-");
 
-    private Server server;
+    private List<Server> servers;
 
     /**
      * Creates a new GrpcServerLifecycle
@@ -60,11 +78,80 @@ public GrpcServerLifecycle(
             final Duration shutdownGracePeriod,
             final ApplicationEventPublisher eventPublisher) {
 
-        this.factory = requireNonNull(factory, "factory");
+        this(Collections.singletonList(requireNonNull(factory, "factory")), shutdownGracePeriod, eventPublisher);
+    }
+
+    /**
+     * Creates a new GrpcServerLifecycle that starts and stops the servers of all given factories together.
+     *
+     * @param factories The server factories to use. The first one is the main server.
+     * @param shutdownGracePeriod The time to wait for the servers to gracefully shut down.
+     * @param eventPublisher The event publisher to use.
+     */
+    public GrpcServerLifecycle(
+            final List<? extends GrpcServerFactory> factories,
+            final Duration shutdownGracePeriod,
+            final ApplicationEventPublisher eventPublisher) {
+
+        this(factories, shutdownGracePeriod, Duration.ZERO, eventPublisher);
+    }
+
+    /**
+     * Creates a new GrpcServerLifecycle that starts and stops the servers of all given factories together.
+     *
+     * @param factories The server factories to use. The first one is the main server.
+     * @param shutdownGracePeriod The time to wait for the servers to gracefully shut down.
+     * @param propagationDelay The time to wait for the drain to propagate to the clients, before the servers stop
+     *        accepting new calls.
+     * @param eventPublisher The event publisher to use.
+     */
+    public GrpcServerLifecycle(
+            final List<? extends GrpcServerFactory> factories,
+            final Duration shutdownGracePeriod,
+            final Duration propagationDelay,
+            final ApplicationEventPublisher eventPublisher) {
+
+        requireNonNull(factories, "factories");
+        if (factories.isEmpty()) {
+            throw new IllegalArgumentException("At least one server factory is required");
+        }
+        this.factories = new ArrayList<>(factories);
         this.shutdownGracePeriod = requireNonNull(shutdownGracePeriod, "shutdownGracePeriod");
+        this.propagationDelay = requireNonNull(propagationDelay, "propagationDelay");
         this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Sets the time spring waits for the asynchronous drain to complete
+     * ({@code spring.lifecycle.timeout-per-shutdown-phase}). If the propagation delay and the grace period combined
+     * exceed it, they are shortened during the drain, so that the servers are always stopped before spring gives up on
+     * them. A warning is logged in that case.
+     *
+     * @param shutdownPhaseTimeout The shutdown phase timeout or null, if the drain should not be limited.
+     */
+    public void setShutdownPhaseTimeout(final Duration shutdownPhaseTimeout) {
+        this.shutdownPhaseTimeout = shutdownPhaseTimeout;
+        if (shutdownPhaseTimeout != null) {
+            final boolean unlimited = this.shutdownGracePeriod.isNegative();
+            final Duration required = this.propagationDelay.plus(unlimited ? Duration.ZERO : this.shutdownGracePeriod);
+            if (unlimited || required.toNanos() > drainBudgetNanos(shutdownPhaseTimeout)) {
+                log.warn("The gRPC server drain (propagation-delay: {}, shutdown-grace-period: {}) does not fit into"
+                        + " spring.lifecycle.timeout-per-shutdown-phase ({}) and will be shortened",
+                        this.propagationDelay, this.shutdownGracePeriod, shutdownPhaseTimeout);
+            }
+        }
+    }
+
+    /**
+     * Sets the executor that is used to drain the servers, when spring stops them asynchronously. By default, the drain
+     * runs on a new thread. If the executor rejects the drain, then it runs on spring's shutdown thread instead.
+     *
+     * @param drainExecutor The executor used to drain the servers.
+     */
+    public void setDrainExecutor(final Executor drainExecutor) {
+        this.drainExecutor = requireNonNull(drainExecutor, "drainExecutor");
+    }
+
     @Override
     public void start() {
         try {
@@ -79,15 +166,30 @@ public void stop() {
         stopAndReleaseGrpcServer();
     }
 
+    /**
+     * Drains and stops the servers asynchronously, so that the drain does not block the shutdown of other beans.
+     */
     @Override
     public void stop(final Runnable callback) {
-        stop();
-        callback.run();
+        final Runnable drain = () -> {
+            try {
+                stop();
+            } finally {
+                callback.run();
+            }
+        };
+        try {
+            this.drainExecutor.execute(drain);
+        } catch (final RejectedExecutionException e) {
+            log.debug("Draining the gRPC server synchronously, because the drain executor rejected it", e);
+            drain.run();
+        }
     }
 
     @Override
     public boolean isRunning() {
-        return this.server != null && !this.server.isShutdown();
+        final List<Server> localServers = this.servers;
+        return localServers != null && localServers.stream().anyMatch(server -> !server.isShutdown());
     }
 
     @Override
@@ -101,24 +203,40 @@ public boolean isAutoStartup() {
     }
 
     /**
-     * Creates and starts the grpc server.
+     * Creates and starts the grpc servers. If any of them fails to start, then the already started ones will be stopped
+     * again.
      *
-     * @throws IOException If the server is unable to bind the port.
+     * @throws IOException If a server is unable to bind the port.
      */
     protected void createAndStartGrpcServer() throws IOException {
-        if (this.server == null) {
-            final Server localServer = this.factory.createServer();
-            this.server = localServer;
-            localServer.start();
-            final String address = this.factory.getAddress();
-            final int port = this.factory.getPort();
-            log.info("gRPC Server started, listening on address: {}, port: {}", address, port);
-            this.eventPublisher.publishEvent(new GrpcServerStartedEvent(this, localServer, address, port));
+        if (this.servers == null) {
+            final List<Server> localServers = new ArrayList<>(this.factories.size());
+            this.servers = localServers;
+            try {
+                for (final GrpcServerFactory factory : this.factories) {
+                    final Server localServer = factory.createServer();
+                    localServers.add(localServer);
+                    localServer.start();
+                    final String address = factory.getAddress();
+                    final int port = factory.getPort();
+                    log.info("gRPC Server started, listening on address: {}, port: {}", address, port);
+                    this.eventPublisher.publishEvent(new GrpcServerStartedEvent(this, localServer, address, port));
+                }
+            } catch (final IOException | RuntimeException e) {
+                for (final Server localServer : localServers) {
+                    localServer.shutdownNow();
+                }
+                releaseResources();
+                this.servers = null;
+                throw e;
+            }
 
             // Prevent the JVM from shutting down while the server is running
             final Thread awaitThread = new Thread(() -> {
                 try {
-                    localServer.awaitTermination();
+                    for (final Server localServer : localServers) {
+                        localServer.awaitTermination();
+                    }
                 } catch (final InterruptedException e) {
                     Thread.currentThread().interrupt();
                 }
@@ -130,34 +248,151 @@ protected void createAndStartGrpcServer() throws IOException {
     }
 
     /**
-     * Initiates an orderly shutdown of the grpc server and releases the references to the server. This call waits for
-     * the server to be completely shut down.
+     * Drains the grpc servers and releases the references to the servers. This call waits for the servers to be
+     * completely shut down. All servers share the same grace period. The drain consists of the following phases:
+     *
+     * <ol>
+     * <li>{@link Phase#NOT_SERVING NOT_SERVING}: The health status is set to {@code NOT_SERVING}.</li>
+     * <li>{@link Phase#DEREGISTER DEREGISTER}: The server is deregistered from the discovery service.</li>
+     * <li>{@link Phase#PROPAGATION_DELAY PROPAGATION_DELAY}: Waits for the clients to notice the previous changes.</li>
+     * <li>{@link Phase#GOAWAY GOAWAY}: The servers stop accepting new calls.</li>
+     * <li>{@link Phase#AWAIT_CALLS AWAIT_CALLS}: Waits for the calls in flight to complete.</li>
+     * <li>{@link Phase#FORCE_STOP FORCE_STOP}: Cancels the remaining calls.</li>
+     * </ol>
+     *
+     * <p>
+     * The first two phases are performed by the listeners of the {@link GrpcServerDrainEvent}.
+     * </p>
      */
-    protected void stopAndReleaseGrpcServer() {
-        final Server localServer = this.server;
-        if (localServer != null) {
+    protected synchronized void stopAndReleaseGrpcServer() {
+        final List<Server> localServers = this.servers;
+        if (localServers != null) {
+            final Server mainServer = localServers.get(0);
             final long millis = this.shutdownGracePeriod.toMillis();
+            // The whole drain must complete before spring stops waiting for it
+            final long drainDeadline = this.shutdownPhaseTimeout == null ? Long.MAX_VALUE
+                    : System.nanoTime() + drainBudgetNanos(this.shutdownPhaseTimeout);
             log.debug("Initiating gRPC server shutdown");
-            this.eventPublisher.publishEvent(new GrpcServerShutdownEvent(this, localServer));
-            localServer.shutdown();
-            // Wait for the server to shutdown completely before continuing with destroying the spring context
+
+            // Take the server out of service, while it still accepts calls
+            publishDrainEvent(mainServer, Phase.NOT_SERVING);
+            publishDrainEvent(mainServer, Phase.DEREGISTER);
+            publishDrainEvent(mainServer, Phase.PROPAGATION_DELAY);
+            awaitPropagation(drainDeadline);
+
+            publishDrainEvent(mainServer, Phase.GOAWAY);
+            for (final Server localServer : localServers) {
+                this.eventPublisher.publishEvent(new GrpcServerShutdownEvent(this, localServer));
+                localServer.shutdown();
+            }
+            // Wait for the servers to shutdown completely before continuing with destroying the spring context
+            publishDrainEvent(mainServer, Phase.AWAIT_CALLS);
             try {
                 if (millis > 0) {
-                    localServer.awaitTermination(millis, MILLISECONDS);
+                    final long deadline =
+                            earliest(System.nanoTime() + MILLISECONDS.toNanos(millis), drainDeadline);
+                    awaitTermination(localServers, deadline);
                 } else if (millis == 0) {
                     // Do not wait
+                } else if (drainDeadline != Long.MAX_VALUE) {
+                    // Wait as long as spring does
+                    awaitTermination(localServers, drainDeadline);
                 } else {
                     // Wait infinitely
-                    localServer.awaitTermination();
+                    for (final Server localServer : localServers) {
+                        localServer.awaitTermination();
+                    }
                 }
             } catch (final InterruptedException e) {
                 Thread.currentThread().interrupt();
             } finally {
-                localServer.shutdownNow();
-                this.server = null;
+                publishDrainEvent(mainServer, Phase.FORCE_STOP);
+                for (final Server localServer : localServers) {
+                    localServer.shutdownNow();
+                }
+                releaseResources();
+                this.servers = null;
             }
             log.info("Completed gRPC server shutdown");
-            this.eventPublisher.publishEvent(new GrpcServerTerminatedEvent(this, localServer));
+            for (final Server localServer : localServers) {
+                this.eventPublisher.publishEvent(new GrpcServerTerminatedEvent(this, localServer));
+            }
+        }
+    }
+
+    /**
+     * Releases the resources the factories share between their servers, after the servers have been shut down.
+     */
+    private void releaseResources() {
+        for (final GrpcServerFactory factory : this.factories) {
+            try {
+                factory.releaseResources();
+            } catch (final RuntimeException e) {
+                log.warn("Failed to release the resources of the gRPC server factory for {}:{}",
+                        factory.getAddress(), factory.getPort(), e);
+            }
+        }
+    }
+
+    /**
+     * Waits for the health status and deregistration to propagate to the clients.
+     *
+     * @param drainDeadline The {@link System#nanoTime()} at which the whole drain must be completed.
+     */
+    private void awaitPropagation(final long drainDeadline) {
+        final long millis = Math.min(this.propagationDelay.toMillis(),
+                NANOSECONDS.toMillis(Math.max(0, drainDeadline - System.nanoTime())));
+        if (millis > 0) {
+            log.debug("Waiting {}ms for the drain to propagate", millis);
+            try {
+                Thread.sleep(millis);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Waits for the given servers to terminate until the given {@link System#nanoTime()}.
+     */
+    private static void awaitTermination(final List<Server> servers, final long deadline)
+            throws InterruptedException {
+        for (final Server server : servers) {
+            server.awaitTermination(Math.max(0, deadline - System.nanoTime()), NANOSECONDS);
+        }
+    }
+
+    /**
+     * Gets the time available for the drain, within the given shutdown phase timeout.
+     *
+     * @param shutdownPhaseTimeout The time spring waits for the drain.
+     * @return The time available for the drain in nanoseconds.
+     */
+    private static long drainBudgetNanos(final Duration shutdownPhaseTimeout) {
+        final long timeout = shutdownPhaseTimeout.toNanos();
+        return Math.max(0, timeout - Math.min(FORCE_STOP_RESERVE_NANOS, timeout / 10));
+    }
+
+    /**
+     * Gets the earlier of the two given {@link System#nanoTime()}s.
+     */
+    private static long earliest(final long a, final long b) {
+        return a - b < 0 ? a : b;
+    }
+
+    /**
+     * Publishes the start of the given drain phase. Failing listeners must not prevent the server from shutting down,
+     * so their exceptions are only logged.
+     *
+     * @param server The main server.
+     * @param phase The phase that starts.
+     */
+    private void publishDrainEvent(final Server server, final Phase phase) {
+        log.debug("Draining gRPC server: {}", phase);
+        try {
+            this.eventPublisher.publishEvent(new GrpcServerDrainEvent(this, server, phase));
+        } catch (final RuntimeException e) {
+            log.warn("Failed to execute drain phase {}", phase, e);
         }
     }
 
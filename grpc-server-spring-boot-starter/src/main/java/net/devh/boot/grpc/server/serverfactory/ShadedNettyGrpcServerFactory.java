@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,24 +22,40 @@
 
 import java.io.InputStream;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.security.SecureRandom;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSessionContext;
 import javax.net.ssl.TrustManagerFactory;
 
 import org.springframework.core.io.Resource;
+import org.springframework.util.unit.DataSize;
 
 import com.google.common.net.InetAddresses;
 
 import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.netty.shaded.io.netty.channel.ChannelOption;
+import io.grpc.netty.shaded.io.netty.channel.WriteBufferWaterMark;
 import io.grpc.netty.shaded.io.netty.channel.epoll.EpollEventLoopGroup;
 import io.grpc.netty.shaded.io.netty.channel.epoll.EpollServerDomainSocketChannel;
 import io.grpc.netty.shaded.io.netty.channel.unix.DomainSocketAddress;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSsl;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSslSessionContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
+import io.grpc.netty.shaded.io.netty.util.ReferenceCountUtil;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.security.CertificateReloader;
 import net.devh.boot.grpc.common.security.KeyStoreUtils;
+import net.devh.boot.grpc.common.security.SslProvider;
+import net.devh.boot.grpc.common.transport.ShadedNettyEventLoopGroups;
+import net.devh.boot.grpc.common.transport.WriteBufferWaterMarks;
 import net.devh.boot.grpc.common.util.GrpcUtils;
 import net.devh.boot.grpc.server.config.ClientAuth;
 import net.devh.boot.grpc.server.config.GrpcServerProperties;
@@ -50,9 +66,12 @@
  *
  * @author Michael (yidongnan@gmail.com)
  */
+@Slf4j
 public class ShadedNettyGrpcServerFactory
         extends AbstractGrpcServerFactory<io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder> {
 
+    private ShadedNettyEventLoopGroups eventLoopGroups;
+
     /**
      * Creates a new shaded netty server factory with the given properties.
      *
@@ -64,23 +83,53 @@ public ShadedNettyGrpcServerFactory(final GrpcServerProperties properties,
         super(properties, serverConfigurers);
     }
 
+    /**
+     * Sets the shared event loop groups that should be used by the server. If absent, netty's defaults will be used.
+     *
+     * @param eventLoopGroups The event loop groups to use or null. Their lifecycle is not managed by this factory.
+     */
+    public void setEventLoopGroups(final ShadedNettyEventLoopGroups eventLoopGroups) {
+        this.eventLoopGroups = eventLoopGroups;
+    }
+
     @Override
+    // Keep this in sync with NettyGrpcServerFactory#newServerBuilder
     protected NettyServerBuilder newServerBuilder() {
         final String address = getAddress();
         final int port = getPort();
         if (address.startsWith(DOMAIN_SOCKET_ADDRESS_PREFIX)) {
             final String path = GrpcUtils.extractDomainSocketAddressPath(address);
-            return NettyServerBuilder.forAddress(new DomainSocketAddress(path))
-                    .channelType(EpollServerDomainSocketChannel.class)
+            final NettyServerBuilder builder = NettyServerBuilder.forAddress(new DomainSocketAddress(path));
+            if (this.eventLoopGroups != null) {
+                this.eventLoopGroups.configureDomainSocketServer(builder);
+                return builder;
+            }
+            return builder.channelType(EpollServerDomainSocketChannel.class)
                     .bossEventLoopGroup(new EpollEventLoopGroup(1))
                     .workerEventLoopGroup(new EpollEventLoopGroup());
         } else if (ANY_IP_ADDRESS.equals(address)) {
-            return NettyServerBuilder.forPort(port);
+            return configureTransport(NettyServerBuilder.forPort(port), new InetSocketAddress(port));
         } else {
-            return NettyServerBuilder.forAddress(new InetSocketAddress(InetAddresses.forString(address), port));
+            final InetSocketAddress socketAddress = new InetSocketAddress(InetAddresses.forString(address), port);
+            return configureTransport(NettyServerBuilder.forAddress(socketAddress), socketAddress);
         }
     }
 
+    /**
+     * Configures the shared event loop groups and channel type for the given tcp server builder.
+     *
+     * @param builder The server builder to configure.
+     * @param address The address the server will listen on.
+     * @return The configured server builder.
+     */
+    // Keep this in sync with NettyGrpcServerFactory#configureTransport
+    protected NettyServerBuilder configureTransport(final NettyServerBuilder builder, final SocketAddress address) {
+        if (this.eventLoopGroups != null) {
+            this.eventLoopGroups.configureServer(builder, address);
+        }
+        return builder;
+    }
+
     @Override
     // Keep this in sync with NettyGrpcServerFactory#configureConnectionLimits
     protected void configureConnectionLimits(final NettyServerBuilder builder) {
@@ -106,31 +155,97 @@ protected void configureKeepAlive(final NettyServerBuilder builder) {
                 .permitKeepAliveWithoutCalls(this.properties.isPermitKeepAliveWithoutCalls());
     }
 
+    @Override
+    // Keep this in sync with NettyGrpcServerFactory#configureFlowControl
+    protected void configureFlowControl(final NettyServerBuilder builder) {
+        final DataSize flowControlWindow = this.properties.getFlowControlWindow();
+        if (this.properties.isAutoFlowControl()) {
+            if (flowControlWindow != null) {
+                builder.initialFlowControlWindow((int) flowControlWindow.toBytes());
+            }
+        } else {
+            builder.flowControlWindow(flowControlWindow == null ? NettyServerBuilder.DEFAULT_FLOW_CONTROL_WINDOW
+                    : (int) flowControlWindow.toBytes());
+        }
+        if (this.properties.getMaxConcurrentCallsPerConnection() != null) {
+            builder.maxConcurrentCallsPerConnection(this.properties.getMaxConcurrentCallsPerConnection());
+        }
+        final WriteBufferWaterMark waterMark = WriteBufferWaterMarks.resolve("grpc.server",
+                this.properties.getWriteBufferLowWaterMark(), this.properties.getWriteBufferHighWaterMark(),
+                WriteBufferWaterMark.DEFAULT.low(), WriteBufferWaterMark.DEFAULT.high(), WriteBufferWaterMark::new);
+        if (waterMark != null) {
+            builder.withChildOption(ChannelOption.WRITE_BUFFER_WATER_MARK, waterMark);
+        }
+        if (this.properties.getSendBufferSize() != null) {
+            builder.withChildOption(ChannelOption.SO_SNDBUF, (int) this.properties.getSendBufferSize().toBytes());
+        }
+        if (this.properties.getReceiveBufferSize() != null) {
+            // Set on the server socket as well, so that the TCP window scaling is negotiated accordingly
+            final int receiveBufferSize = (int) this.properties.getReceiveBufferSize().toBytes();
+            builder.withOption(ChannelOption.SO_RCVBUF, receiveBufferSize)
+                    .withChildOption(ChannelOption.SO_RCVBUF, receiveBufferSize);
+        }
+    }
+
     @Override
     // Keep this in sync with NettyGrpcServerFactory#configureSecurity
     protected void configureSecurity(final NettyServerBuilder builder) {
         final Security security = this.properties.getSecurity();
         if (security.isEnabled()) {
+            final SslContext sslContext = newSslContext(security);
+            // Reference counted (OPENSSL_REFCNT) contexts hold native memory until they are released
+            addReleaseTask(() -> ReferenceCountUtil.release(sslContext));
+            builder.sslContext(sslContext);
+        }
+    }
+
+    /**
+     * Creates the ssl context for the server. Reference counted ssl contexts are released after the server has been
+     * shut down.
+     *
+     * @param security The security configuration to use.
+     * @return The newly created ssl context.
+     * @see #releaseResources()
+     */
+    // Keep this in sync with NettyGrpcServerFactory#newSslContext
+    protected SslContext newSslContext(final Security security) {
+        final SslContextBuilder sslContextBuilder;
+        if (security.isReloadEnabled()) {
+            // Reloadable server certificates and accepted client certificates
+            final CertificateReloader reloader = acquireCertificateReloader(security);
+            sslContextBuilder = GrpcSslContexts.configure(SslContextBuilder.forServer(reloader.getKeyManager()));
+            if (security.getClientAuth() != ClientAuth.NONE) {
+                sslContextBuilder.clientAuth(of(security.getClientAuth()));
+                if (reloader.getTrustManager() != null) {
+                    sslContextBuilder.trustManager(reloader.getTrustManager());
+                }
+            }
+        } else {
             // Provided server certificates
-            final SslContextBuilder sslContextBuilder = newServerSslContextBuilder(security);
+            sslContextBuilder = newServerSslContextBuilder(security);
 
             // Accepted client certificates
             configureAcceptedClientCertificates(security, sslContextBuilder);
+        }
 
-            // Other configuration
-            if (security.getCiphers() != null && !security.getCiphers().isEmpty()) {
-                sslContextBuilder.ciphers(security.getCiphers());
-            }
+        // Other configuration
+        configureSslProvider(security.getProvider(), sslContextBuilder);
+        configureSessionResumption(security, sslContextBuilder);
 
-            if (security.getProtocols() != null && security.getProtocols().length > 0) {
-                sslContextBuilder.protocols(security.getProtocols());
-            }
+        if (security.getCiphers() != null && !security.getCiphers().isEmpty()) {
+            sslContextBuilder.ciphers(security.getCiphers());
+        }
 
-            try {
-                builder.sslContext(sslContextBuilder.build());
-            } catch (final SSLException e) {
-                throw new IllegalStateException("Failed to create ssl context for grpc server", e);
-            }
+        if (security.getProtocols() != null && security.getProtocols().length > 0) {
+            sslContextBuilder.protocols(security.getProtocols());
+        }
+
+        try {
+            final SslContext sslContext = sslContextBuilder.build();
+            configureSessionTickets(security, sslContext);
+            return sslContext;
+        } catch (final SSLException e) {
+            throw new IllegalStateException("Failed to create ssl context for grpc server", e);
         }
     }
 
@@ -205,6 +320,93 @@ protected static void configureAcceptedClientCertificates(
         }
     }
 
+    /**
+     * Configures the ssl provider that should be used by the ssl context. This also configures the ciphers and
+     * application protocols required by grpc.
+     *
+     * @param provider The ssl provider to use or null to auto detect it.
+     * @param sslContextBuilder The ssl context builder to configure.
+     */
+    // Keep this in sync with NettyGrpcServerFactory#configureSslProvider
+    protected static void configureSslProvider(final SslProvider provider, final SslContextBuilder sslContextBuilder) {
+        if (provider == null) {
+            return; // Auto detected by GrpcSslContexts
+        }
+        if (provider != SslProvider.JDK && !OpenSsl.isAvailable()) {
+            throw new IllegalStateException("SslProvider " + provider + " requires netty-tcnative",
+                    OpenSsl.unavailabilityCause());
+        }
+        // GrpcSslContexts only knows about the non reference counted variant
+        final SslProvider baseProvider = provider == SslProvider.JDK ? SslProvider.JDK : SslProvider.OPENSSL;
+        GrpcSslContexts.configure(sslContextBuilder, of(baseProvider));
+        sslContextBuilder.sslProvider(of(provider));
+    }
+
+    /**
+     * Configures the session cache used for session resumption.
+     *
+     * @param security The security configuration to use.
+     * @param sslContextBuilder The ssl context builder to configure.
+     */
+    // Keep this in sync with NettyGrpcServerFactory#configureSessionResumption
+    protected static void configureSessionResumption(final Security security,
+            final SslContextBuilder sslContextBuilder) {
+        if (security.getSessionCacheSize() > 0) {
+            sslContextBuilder.sessionCacheSize(security.getSessionCacheSize());
+        }
+        if (security.getSessionTimeout() != null) {
+            sslContextBuilder.sessionTimeout(security.getSessionTimeout().getSeconds());
+        }
+    }
+
+    /**
+     * Enables session tickets on the given ssl context, if configured. The ticket keys are randomly generated and
+     * therefore only valid for this server instance.
+     *
+     * @param security The security configuration to use.
+     * @param sslContext The ssl context to configure.
+     */
+    // Keep this in sync with NettyGrpcServerFactory#configureSessionTickets
+    protected static void configureSessionTickets(final Security security, final SslContext sslContext) {
+        if (!security.isSessionTicketsEnabled()) {
+            return;
+        }
+        final SSLSessionContext sessionContext = sslContext.sessionContext();
+        if (sessionContext instanceof OpenSslSessionContext) {
+            final SecureRandom random = new SecureRandom();
+            final byte[] name = new byte[OpenSslSessionTicketKey.NAME_SIZE];
+            final byte[] hmacKey = new byte[OpenSslSessionTicketKey.HMAC_KEY_SIZE];
+            final byte[] aesKey = new byte[OpenSslSessionTicketKey.AES_KEY_SIZE];
+            random.nextBytes(name);
+            random.nextBytes(hmacKey);
+            random.nextBytes(aesKey);
+            ((OpenSslSessionContext) sessionContext)
+                    .setTicketKeys(new OpenSslSessionTicketKey(name, hmacKey, aesKey));
+        } else {
+            log.warn("Session tickets are only supported by the OpenSSL providers. "
+                    + "The JDK's session tickets are controlled by 'jdk.tls.server.enableSessionTicketExtension'");
+        }
+    }
+
+    /**
+     * Converts the given ssl provider to netty's ssl provider.
+     *
+     * @param provider The ssl provider to convert.
+     * @return The converted ssl provider.
+     */
+    protected static io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider of(final SslProvider provider) {
+        switch (provider) {
+            case JDK:
+                return io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider.JDK;
+            case OPENSSL:
+                return io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider.OPENSSL;
+            case OPENSSL_REFCNT:
+                return io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider.OPENSSL_REFCNT;
+            default:
+                throw new IllegalArgumentException("Unsupported SslProvider: " + provider);
+        }
+    }
+
     /**
      * Converts the given client auth option to netty's client auth.
      *
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.context.ApplicationContext;
@@ -31,6 +32,8 @@
 import io.grpc.ServerInterceptors;
 import io.grpc.ServerServiceDefinition;
 import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.executor.DispatchingServerInterceptor;
+import net.devh.boot.grpc.server.executor.GrpcServiceExecutorRegistry;
 import net.devh.boot.grpc.server.interceptor.GlobalServerInterceptorRegistry;
 
 /**
@@ -58,11 +61,13 @@ public Collection<GrpcServiceDefinition> findGrpcServices() {
                 applicationContext.getBean(GlobalServerInterceptorRegistry.class);
         for (String beanName : beanNames) {
             BindableService bindableService = this.applicationContext.getBean(beanName, BindableService.class);
-            ServerServiceDefinition serviceDefinition = bindableService.bindService();
+            final ServerServiceDefinition rawDefinition = bindableService.bindService();
             GrpcService grpcServiceAnnotation = applicationContext.findAnnotationOnBean(beanName, GrpcService.class);
-            serviceDefinition =
-                    bindInterceptors(serviceDefinition, grpcServiceAnnotation, globalServerInterceptorRegistry);
-            definitions.add(new GrpcServiceDefinition(beanName, bindableService.getClass(), serviceDefinition));
+            ServerServiceDefinition serviceDefinition =
+                    bindInterceptors(rawDefinition, grpcServiceAnnotation, globalServerInterceptorRegistry);
+            serviceDefinition = bindExecutor(serviceDefinition, grpcServiceAnnotation);
+            definitions.add(new GrpcServiceDefinition(beanName, bindableService.getClass(), serviceDefinition,
+                    rawDefinition));
             log.debug("Found gRPC service: " + serviceDefinition.getServiceDescriptor().getName() + ", bean: "
                     + beanName + ", class: " + bindableService.getClass().getName());
         }
@@ -96,4 +101,19 @@ private ServerServiceDefinition bindInterceptors(final ServerServiceDefinition s
         return ServerInterceptors.interceptForward(serviceDefinition, interceptors);
     }
 
+    private ServerServiceDefinition bindExecutor(final ServerServiceDefinition serviceDefinition,
+            final GrpcService grpcServiceAnnotation) {
+        final String executorName = grpcServiceAnnotation.executor();
+        if (executorName.isEmpty()) {
+            return serviceDefinition;
+        }
+        final Executor executor =
+                this.applicationContext.getBean(GrpcServiceExecutorRegistry.class).getExecutor(executorName);
+        log.debug("Using executor '{}' for gRPC service: {}", executorName,
+                serviceDefinition.getServiceDescriptor().getName());
+        // Must be the outermost interceptor, so that the other interceptors run on the executor as well
+        return ServerInterceptors.intercept(serviceDefinition,
+                new DispatchingServerInterceptor(executorName, executor));
+    }
+
 }
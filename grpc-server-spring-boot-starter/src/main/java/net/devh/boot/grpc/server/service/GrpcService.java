@@ -28,6 +28,7 @@
 import io.grpc.BindableService;
 import io.grpc.ServerInterceptor;
 import io.grpc.ServerInterceptors;
+import io.grpc.Status;
 
 /**
  * Annotation that marks gRPC services that should be registered with a gRPC server. If spring-boot's auto configuration
@@ -80,4 +81,19 @@
      */
     boolean sortInterceptors() default false;
 
+    /**
+     * The name of the executor that should be used to execute the calls of only this service. This can either be the
+     * name of an executor configured via {@code grpc.server.executors.<name>} or the name of an
+     * {@link java.util.concurrent.Executor Executor} bean. If empty, the calls will be executed by the server's
+     * executor.
+     *
+     * <p>
+     * <b>Note:</b> Calls that exceed the capacity of the executor will be rejected with
+     * {@link Status#RESOURCE_EXHAUSTED}.
+     * </p>
+     *
+     * @return The name of the executor that should be used or an empty string.
+     */
+    String executor() default "";
+
 }
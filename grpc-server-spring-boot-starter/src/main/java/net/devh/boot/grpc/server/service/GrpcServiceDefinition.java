@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,7 @@ public class GrpcServiceDefinition {
     private final String beanName;
     private final Class<?> beanClazz;
     private final ServerServiceDefinition definition;
+    private final ServerServiceDefinition rawDefinition;
 
     /**
      * Creates a new GrpcServiceDefinition.
@@ -40,9 +41,23 @@ public class GrpcServiceDefinition {
      */
     public GrpcServiceDefinition(final String beanName, final Class<?> beanClazz,
             final ServerServiceDefinition definition) {
+        this(beanName, beanClazz, definition, definition);
+    }
+
+    /**
+     * Creates a new GrpcServiceDefinition.
+     *
+     * @param beanName The name of the grpc service bean in the spring context.
+     * @param beanClazz The class of the grpc service bean.
+     * @param definition The grpc service definition, including the interceptors.
+     * @param rawDefinition The grpc service definition, as bound by the service itself.
+     */
+    public GrpcServiceDefinition(final String beanName, final Class<?> beanClazz,
+            final ServerServiceDefinition definition, final ServerServiceDefinition rawDefinition) {
         this.beanName = beanName;
         this.beanClazz = beanClazz;
         this.definition = definition;
+        this.rawDefinition = rawDefinition;
     }
 
     /**
@@ -72,4 +87,14 @@ public ServerServiceDefinition getDefinition() {
         return this.definition;
     }
 
+    /**
+     * Gets the grpc service definition, as bound by the service itself, without any interceptors or executors. If the
+     * raw definition is unknown, then this is the same as {@link #getDefinition()}.
+     *
+     * @return The raw grpc service definition.
+     */
+    public ServerServiceDefinition getRawDefinition() {
+        return this.rawDefinition;
+    }
+
 }
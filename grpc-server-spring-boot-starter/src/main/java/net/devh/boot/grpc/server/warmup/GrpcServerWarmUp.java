@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.warmup;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import com.google.common.io.ByteStreams;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.Server;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.server.config.WarmUpOptions;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+import net.devh.boot.grpc.server.service.GrpcServiceDiscoverer;
+
+/**
+ * Warms up the gRPC services by replaying sample requests against them through a private in-process server, before
+ * the actual server starts accepting calls. This gives the JIT compiler the chance to optimize the hot paths of the
+ * services and the message (de-)serialization, so that the first clients don't suffer from the increased latencies of
+ * interpreted code.
+ *
+ * <p>
+ * The sample calls are sent to the {@link GrpcServiceDefinition#getRawDefinition() raw service definitions}, so they
+ * bypass all server interceptors. Otherwise they would consume rate limits, fill the response cache, show up in the
+ * metrics and would have to pass the security checks.
+ * </p>
+ *
+ * <p>
+ * The warm-up runs once all singletons have been instantiated, which is before any lifecycle bean is started. Thus
+ * the server neither reports {@code SERVING} nor is registered at the discovery service during the warm-up.
+ * </p>
+ *
+ * <p>
+ * <b>Note:</b> The sample calls are processed by the actual service implementations, so they should not have any side
+ * effects.
+ * </p>
+ */
+@Slf4j
+public class GrpcServerWarmUp implements SmartInitializingSingleton {
+
+    private static final Marshaller<byte[]> BYTES_MARSHALLER = new Marshaller<byte[]>() {
+
+        @Override
+        public InputStream stream(final byte[] value) {
+            return new ByteArrayInputStream(value);
+        }
+
+        @Override
+        public byte[] parse(final InputStream stream) {
+            try {
+                return ByteStreams.toByteArray(stream);
+            } catch (final IOException e) {
+                throw Status.INTERNAL.withDescription("Failed to read message").withCause(e).asRuntimeException();
+            }
+        }
+
+    };
+
+    private final GrpcServiceDiscoverer serviceDiscoverer;
+    private final WarmUpOptions options;
+    private final List<WarmUpRequestSupplier> requestSuppliers;
+
+    private final AtomicLong successfulCalls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+    private volatile Duration duration = Duration.ZERO;
+
+    /**
+     * Creates a new GrpcServerWarmUp.
+     *
+     * @param serviceDiscoverer The discoverer used to find the services to warm up.
+     * @param options The options used to configure the warm-up.
+     * @param requestSuppliers The suppliers for the sample requests.
+     */
+    public GrpcServerWarmUp(final GrpcServiceDiscoverer serviceDiscoverer, final WarmUpOptions options,
+            final List<WarmUpRequestSupplier> requestSuppliers) {
+        this.serviceDiscoverer = requireNonNull(serviceDiscoverer, "serviceDiscoverer");
+        this.options = requireNonNull(options, "options");
+        this.requestSuppliers = new ArrayList<>(requireNonNull(requestSuppliers, "requestSuppliers"));
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        warmUp();
+    }
+
+    /**
+     * Replays the sample requests against the services until either all iterations have been completed or the time
+     * budget has been exhausted.
+     */
+    public void warmUp() {
+        final Collection<GrpcServiceDefinition> services = this.serviceDiscoverer.findGrpcServices();
+        final Map<MethodDescriptor<byte[], byte[]>, List<byte[]>> samples = collectSamples(services);
+        if (samples.isEmpty()) {
+            log.info("Skipping gRPC warm-up, because there are no sample requests");
+            return;
+        }
+
+        final String name = InProcessServerBuilder.generateName();
+        final InProcessServerBuilder serverBuilder = InProcessServerBuilder.forName(name);
+        for (final GrpcServiceDefinition service : services) {
+            serverBuilder.addService(service.getRawDefinition());
+        }
+        final Server server;
+        try {
+            server = serverBuilder.build().start();
+        } catch (final IOException e) {
+            throw new IllegalStateException("Failed to start the gRPC warm-up server", e);
+        }
+        final ManagedChannel channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+
+        log.info("Warming up gRPC services using {} methods", samples.size());
+        final long start = System.nanoTime();
+        try {
+            replay(channel, samples, start + this.options.getTimeBudget().toNanos());
+        } finally {
+            this.duration = Duration.ofNanos(System.nanoTime() - start);
+            channel.shutdownNow();
+            server.shutdownNow();
+        }
+        log.info("Completed gRPC warm-up in {}ms: {} successful and {} failed calls", this.duration.toMillis(),
+                this.successfulCalls.get(), this.failedCalls.get());
+    }
+
+    /**
+     * Collects and serializes the sample requests for all methods of the given services. The method descriptors are
+     * converted to use raw bytes, so that the requests and responses are actually (de-)serialized by the in-process
+     * transport, instead of just passing the message instances through.
+     *
+     * @param services The services to collect the sample requests for.
+     * @return The serialized sample requests by the raw method descriptors.
+     */
+    private Map<MethodDescriptor<byte[], byte[]>, List<byte[]>> collectSamples(
+            final Collection<GrpcServiceDefinition> services) {
+        final Map<MethodDescriptor<byte[], byte[]>, List<byte[]>> samples = new LinkedHashMap<>();
+        for (final GrpcServiceDefinition service : services) {
+            for (final ServerMethodDefinition<?, ?> methodDefinition : service.getRawDefinition().getMethods()) {
+                final MethodDescriptor<?, ?> method = methodDefinition.getMethodDescriptor();
+                final List<byte[]> requests = new ArrayList<>();
+                for (final WarmUpRequestSupplier supplier : this.requestSuppliers) {
+                    for (final Object request : supplier.getRequests(method)) {
+                        requests.add(serialize(method, request));
+                    }
+                }
+                if (!requests.isEmpty()) {
+                    samples.put(method.toBuilder(BYTES_MARSHALLER, BYTES_MARSHALLER).build(), requests);
+                }
+            }
+        }
+        return samples;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static byte[] serialize(final MethodDescriptor<?, ?> method, final Object request) {
+        try (InputStream stream = ((MethodDescriptor<Object, ?>) method).streamRequest(request)) {
+            return ByteStreams.toByteArray(stream);
+        } catch (final IOException | ClassCastException e) {
+            throw new IllegalArgumentException("Invalid warm-up request for " + method.getFullMethodName(), e);
+        }
+    }
+
+    private void replay(final Channel channel, final Map<MethodDescriptor<byte[], byte[]>, List<byte[]>> samples,
+            final long deadline) {
+        for (int i = 0; i < this.options.getIterations(); i++) {
+            for (final Map.Entry<MethodDescriptor<byte[], byte[]>, List<byte[]>> entry : samples.entrySet()) {
+                for (final byte[] request : entry.getValue()) {
+                    final boolean success;
+                    try {
+                        success = call(channel, entry.getKey(), request, deadline);
+                    } catch (final TimeoutException e) {
+                        log.warn("gRPC warm-up time budget of {} exhausted after {} iterations",
+                                this.options.getTimeBudget(), i);
+                        return;
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        log.warn("gRPC warm-up interrupted after {} iterations", i);
+                        return;
+                    }
+                    if (success) {
+                        this.successfulCalls.incrementAndGet();
+                    } else {
+                        this.failedCalls.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the given request as a single call and waits for its completion. All method types are supported, the
+     * responses of streaming calls are consumed and discarded. The call is cancelled, if it does not complete before
+     * the given deadline.
+     *
+     * @param channel The channel used to send the call.
+     * @param method The method to call.
+     * @param request The serialized request to send.
+     * @param deadline The {@link System#nanoTime() time} at which the warm-up has to be completed.
+     * @return True, if the call completed successfully. False otherwise.
+     * @throws TimeoutException If the deadline has been reached.
+     * @throws InterruptedException If the current thread was interrupted while waiting for the call.
+     */
+    private static boolean call(final Channel channel, final MethodDescriptor<byte[], byte[]> method,
+            final byte[] request, final long deadline) throws TimeoutException, InterruptedException {
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new TimeoutException();
+        }
+        final ClientCall<byte[], byte[]> call =
+                channel.newCall(method, CallOptions.DEFAULT.withDeadlineAfter(remaining, NANOSECONDS));
+        final CompletableFuture<Status> result = new CompletableFuture<>();
+        call.start(new ClientCall.Listener<byte[]>() {
+
+            @Override
+            public void onClose(final Status status, final Metadata trailers) {
+                result.complete(status);
+            }
+
+        }, new Metadata());
+        call.request(Integer.MAX_VALUE);
+        call.sendMessage(request);
+        call.halfClose();
+        // Bound the wait as well, in case the call isn't closed in time despite its deadline
+        try {
+            return result.get(deadline - System.nanoTime(), NANOSECONDS).isOk();
+        } catch (final TimeoutException | InterruptedException e) {
+            call.cancel("gRPC warm-up time budget exhausted", e);
+            throw e;
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Unexpected failure of the gRPC warm-up call", e.getCause());
+        }
+    }
+
+    /**
+     * Gets the time that has been spent warming up the services.
+     *
+     * @return The duration of the warm-up or zero, if it did not run (yet).
+     */
+    public Duration getDuration() {
+        return this.duration;
+    }
+
+    /**
+     * Gets the number of warm-up calls that completed successfully.
+     *
+     * @return The number of successful calls.
+     */
+    public long getSuccessfulCalls() {
+        return this.successfulCalls.get();
+    }
+
+    /**
+     * Gets the number of warm-up calls that failed.
+     *
+     * @return The number of failed calls.
+     */
+    public long getFailedCalls() {
+        return this.failedCalls.get();
+    }
+
+}
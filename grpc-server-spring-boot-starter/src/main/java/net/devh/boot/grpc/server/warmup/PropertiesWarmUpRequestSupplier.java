@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.warmup;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.TextFormat;
+
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.MethodDescriptor.PrototypeMarshaller;
+import net.devh.boot.grpc.server.config.WarmUpOptions;
+
+/**
+ * A {@link WarmUpRequestSupplier} that parses the sample requests from the protobuf text format, as configured in the
+ * {@link WarmUpOptions#getRequests() properties}.
+ */
+public class PropertiesWarmUpRequestSupplier implements WarmUpRequestSupplier {
+
+    private final Map<String, List<String>> requests;
+
+    /**
+     * Creates a new PropertiesWarmUpRequestSupplier.
+     *
+     * @param requests The sample requests in the protobuf text format, keyed by the full method name.
+     */
+    public PropertiesWarmUpRequestSupplier(final Map<String, List<String>> requests) {
+        this.requests = requireNonNull(requests, "requests");
+    }
+
+    @Override
+    public List<Message> getRequests(final MethodDescriptor<?, ?> method) {
+        final List<String> texts = this.requests.get(method.getFullMethodName());
+        if (texts == null || texts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final Message prototype = getPrototype(method);
+        final List<Message> messages = new ArrayList<>(texts.size());
+        for (final String text : texts) {
+            final Message.Builder builder = prototype.newBuilderForType();
+            try {
+                TextFormat.merge(text, builder);
+            } catch (final TextFormat.ParseException e) {
+                throw new IllegalArgumentException(
+                        "Invalid warm-up request for " + method.getFullMethodName() + ": " + text, e);
+            }
+            messages.add(builder.build());
+        }
+        return messages;
+    }
+
+    /**
+     * Gets the protobuf prototype of the request message of the given method.
+     *
+     * @param method The method to get the prototype for.
+     * @return The prototype of the request message.
+     * @throws IllegalArgumentException If the method does not use protobuf messages.
+     */
+    private static Message getPrototype(final MethodDescriptor<?, ?> method) {
+        final Marshaller<?> marshaller = method.getRequestMarshaller();
+        if (marshaller instanceof PrototypeMarshaller) {
+            final Object prototype = ((PrototypeMarshaller<?>) marshaller).getMessagePrototype();
+            if (prototype instanceof Message) {
+                return (Message) prototype;
+            }
+        }
+        throw new IllegalArgumentException(
+                "Cannot configure warm-up requests for non-protobuf method: " + method.getFullMethodName());
+    }
+
+}
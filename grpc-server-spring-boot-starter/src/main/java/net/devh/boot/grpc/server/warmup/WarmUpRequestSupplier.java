@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.warmup;
+
+import java.util.Collection;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * Supplies the sample requests that are used to warm up the individual gRPC methods. Implementations can be registered
+ * as beans to provide generated or recorded requests in addition to the configured ones.
+ *
+ * @see GrpcServerWarmUp
+ */
+@FunctionalInterface
+public interface WarmUpRequestSupplier {
+
+    /**
+     * Gets the sample requests for the given method. Every request will be sent as a separate call. The requests must
+     * be compatible with the {@link MethodDescriptor#getRequestMarshaller() request marshaller} of the method.
+     *
+     * @param method The method to get the sample requests for.
+     * @return The sample requests for the given method or an empty collection, if the method should not be warmed up.
+     */
+    Collection<?> getRequests(MethodDescriptor<?, ?> method);
+
+}
@@ -0,0 +1,5 @@
+/**
+ * Contains the warm-up that replays sample calls against the services, before the server starts accepting calls.
+ */
+
+package net.devh.boot.grpc.server.warmup;
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import net.devh.boot.grpc.server.config.CoalescingMethodOptions;
+import net.devh.boot.grpc.server.config.CoalescingOptions;
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+
+/**
+ * Tests for {@link CoalescingServerInterceptor} and {@link RequestCoalescer}.
+ */
+class CoalescingServerInterceptorTest {
+
+    private static final MethodDescriptor<StringValue, StringValue> GET_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Lookup", "Get"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setSafe(true)
+                    .build();
+
+    private static final StringValue FIRST = StringValue.of("first");
+    private static final StringValue SECOND = StringValue.of("second");
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger invocations = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private Server server;
+    private ManagedChannel channel;
+    private CoalescingServerInterceptor interceptor;
+    private RequestCoalescer coalescer;
+
+    @AfterEach
+    void afterEach() {
+        this.release.countDown();
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+        if (this.interceptor != null) {
+            this.interceptor.close();
+        }
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void testIdenticalCallsAreCoalesced() throws Exception {
+        start();
+
+        final ListenableFuture<StringValue> leader = call(FIRST, CallOptions.DEFAULT);
+        awaitUntil(() -> this.invocations.get() == 1);
+        final ListenableFuture<StringValue> follower1 = call(FIRST, CallOptions.DEFAULT);
+        final ListenableFuture<StringValue> follower2 = call(FIRST, CallOptions.DEFAULT);
+        final ListenableFuture<StringValue> other = call(SECOND, CallOptions.DEFAULT);
+        awaitUntil(() -> this.coalescer.getCoalescedCount() == 2 && this.invocations.get() == 2);
+
+        this.release.countDown();
+        assertEquals("first:1", get(leader));
+        assertEquals("first:1", get(follower1));
+        assertEquals("first:1", get(follower2));
+        assertEquals("second:2", get(other));
+
+        assertEquals(2, this.invocations.get());
+        assertEquals(2, this.coalescer.getExecutedCount());
+        assertEquals(0.5, this.coalescer.getCoalescingRatio(), 0.001);
+        assertEquals(0, this.coalescer.getInFlightCount());
+    }
+
+    @Test
+    void testFollowerDeadlineDoesNotAffectOthers() throws Exception {
+        start();
+
+        final ListenableFuture<StringValue> leader = call(FIRST, CallOptions.DEFAULT);
+        awaitUntil(() -> this.invocations.get() == 1);
+        final ListenableFuture<StringValue> follower =
+                call(FIRST, CallOptions.DEFAULT.withDeadlineAfter(50, TimeUnit.MILLISECONDS));
+
+        final ExecutionException error = assertThrows(ExecutionException.class, () -> get(follower));
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, Status.fromThrowable(error.getCause()).getCode());
+
+        this.release.countDown();
+        assertEquals("first:1", get(leader));
+        assertEquals(1, this.invocations.get());
+    }
+
+    @Test
+    void testFollowerTakesOverIfLeaderIsCancelled() throws Exception {
+        start();
+
+        final ListenableFuture<StringValue> leader = call(FIRST, CallOptions.DEFAULT);
+        awaitUntil(() -> this.invocations.get() == 1);
+        final ListenableFuture<StringValue> follower1 = call(FIRST, CallOptions.DEFAULT);
+        final ListenableFuture<StringValue> follower2 = call(FIRST, CallOptions.DEFAULT);
+        awaitUntil(() -> this.coalescer.getCoalescedCount() == 2);
+
+        leader.cancel(true);
+        // Only one of the followers invokes the service, the other one keeps waiting for it
+        awaitUntil(() -> this.invocations.get() == 2);
+        awaitUntil(() -> this.coalescer.getExecutedCount() == 2);
+        this.release.countDown();
+        assertEquals("first:2", get(follower1));
+        assertEquals("first:2", get(follower2));
+        assertTrue(leader.isCancelled());
+        assertEquals(2, this.invocations.get());
+        assertEquals(1, this.coalescer.getCoalescedCount());
+        assertEquals(0, this.coalescer.getInFlightCount());
+    }
+
+    @Test
+    void testPerPrincipalDefaults() {
+        final CoalescingOptions options = new CoalescingOptions();
+        options.getMethods().put("test.Lookup", new CoalescingMethodOptions());
+        final PrincipalResolver resolver = (call, headers) -> "user";
+
+        // Without a principal resolver, the calls of all principals are coalesced
+        try (CoalescingServerInterceptor anonymous =
+                new CoalescingServerInterceptor(options, PrincipalResolver.ANONYMOUS)) {
+            assertFalse(anonymous.getCoalescers().iterator().next().isPerPrincipal());
+        }
+        // Otherwise, only calls of the same principal
+        try (CoalescingServerInterceptor authenticated = new CoalescingServerInterceptor(options, resolver)) {
+            assertTrue(authenticated.getCoalescers().iterator().next().isPerPrincipal());
+        }
+        // Unless configured otherwise
+        options.getMethods().get("test.Lookup").setPerPrincipal(false);
+        try (CoalescingServerInterceptor shared = new CoalescingServerInterceptor(options, resolver)) {
+            assertFalse(shared.getCoalescers().iterator().next().isPerPrincipal());
+        }
+    }
+
+    private void start() throws IOException {
+        final CoalescingOptions options = new CoalescingOptions();
+        options.getMethods().put("test.Lookup", new CoalescingMethodOptions());
+        this.interceptor =
+                new CoalescingServerInterceptor(options, PrincipalResolver.ANONYMOUS, this.executor);
+        this.coalescer = this.interceptor.getCoalescers().iterator().next();
+
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("test.Lookup")
+                .addMethod(GET_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    final int count = this.invocations.incrementAndGet();
+                    try {
+                        this.release.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    responseObserver.onNext(StringValue.of(request.getValue() + ":" + count));
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final String name = InProcessServerBuilder.generateName();
+        this.server = InProcessServerBuilder.forName(name)
+                .executor(this.executor)
+                .addService(ServerInterceptors.intercept(service, this.interceptor))
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    private ListenableFuture<StringValue> call(final StringValue request, final CallOptions callOptions) {
+        return ClientCalls.futureUnaryCall(this.channel.newCall(GET_METHOD, callOptions), request);
+    }
+
+    private static String get(final ListenableFuture<StringValue> future)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return future.get(5, TimeUnit.SECONDS).getValue();
+    }
+
+    private static void awaitUntil(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.grpc.ForwardingServerCall.SimpleForwardingServerCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.health.v1.HealthGrpc.HealthBlockingStub;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import io.grpc.stub.MetadataUtils;
+import net.devh.boot.grpc.server.config.ResponseCacheMethodOptions;
+import net.devh.boot.grpc.server.config.ResponseCacheOptions;
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+
+/**
+ * Tests for {@link ResponseCachingServerInterceptor} and {@link ResponseCache}.
+ */
+class ResponseCachingServerInterceptorTest {
+
+    private static final HealthCheckRequest FIRST = HealthCheckRequest.newBuilder().setService("first").build();
+    private static final HealthCheckRequest SECOND = HealthCheckRequest.newBuilder().setService("second").build();
+    private static final Metadata.Key<String> HEADER_KEY =
+            Metadata.Key.of("x-header", Metadata.ASCII_STRING_MARSHALLER);
+    private static final Metadata.Key<String> TRAILER_KEY =
+            Metadata.Key.of("x-trailer", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final HealthStatusManager health = new HealthStatusManager();
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void afterEach() {
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCachedResponsesBypassService() throws IOException {
+        final ResponseCachingServerInterceptor interceptor = newInterceptor(HealthGrpc.getCheckMethod()
+                .getFullMethodName());
+        final HealthBlockingStub stub = start(interceptor);
+
+        this.health.setStatus("first", ServingStatus.SERVING);
+        assertEquals(ServingStatus.SERVING, stub.check(FIRST).getStatus());
+
+        // The service would answer differently now, but the cached response is used
+        this.health.setStatus("first", ServingStatus.NOT_SERVING);
+        assertEquals(ServingStatus.SERVING, stub.check(FIRST).getStatus());
+
+        // Different requests use different entries
+        this.health.setStatus("second", ServingStatus.NOT_SERVING);
+        assertEquals(ServingStatus.NOT_SERVING, stub.check(SECOND).getStatus());
+
+        final ResponseCache cache = interceptor.getCaches().iterator().next();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    void testInvalidation() throws IOException {
+        final ResponseCachingServerInterceptor interceptor = newInterceptor(HealthGrpc.SERVICE_NAME);
+        final HealthBlockingStub stub = start(interceptor);
+
+        this.health.setStatus("first", ServingStatus.SERVING);
+        this.health.setStatus("second", ServingStatus.SERVING);
+        assertEquals(ServingStatus.SERVING, stub.check(FIRST).getStatus());
+        assertEquals(ServingStatus.SERVING, stub.check(SECOND).getStatus());
+
+        this.health.setStatus("first", ServingStatus.NOT_SERVING);
+        this.health.setStatus("second", ServingStatus.NOT_SERVING);
+        interceptor.invalidate(HealthGrpc.getCheckMethod(), FIRST);
+        assertEquals(ServingStatus.NOT_SERVING, stub.check(FIRST).getStatus());
+        assertEquals(ServingStatus.SERVING, stub.check(SECOND).getStatus());
+
+        interceptor.invalidate(HealthGrpc.getCheckMethod().getFullMethodName());
+        assertEquals(ServingStatus.NOT_SERVING, stub.check(SECOND).getStatus());
+    }
+
+    @Test
+    void testErrorsAreNotCached() throws IOException {
+        final ResponseCachingServerInterceptor interceptor = newInterceptor(HealthGrpc.SERVICE_NAME);
+        final HealthBlockingStub stub = start(interceptor);
+
+        final StatusRuntimeException error = assertThrows(StatusRuntimeException.class, () -> stub.check(FIRST));
+        assertEquals(Status.Code.NOT_FOUND, error.getStatus().getCode());
+        this.health.setStatus("first", ServingStatus.SERVING);
+        assertEquals(ServingStatus.SERVING, stub.check(FIRST).getStatus());
+        assertEquals(1, interceptor.getCaches().iterator().next().getSize());
+    }
+
+    @Test
+    void testCachedResponsesKeepHeadersAndTrailers() throws IOException {
+        final ResponseCachingServerInterceptor interceptor = newInterceptor(HealthGrpc.SERVICE_NAME);
+        final AtomicInteger invocations = new AtomicInteger();
+        final ServerInterceptor metadataAdder = new ServerInterceptor() {
+
+            @Override
+            public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                    final Metadata headers, final ServerCallHandler<ReqT, RespT> next) {
+                final int invocation = invocations.incrementAndGet();
+                return next.startCall(new SimpleForwardingServerCall<ReqT, RespT>(call) {
+
+                    @Override
+                    public void sendHeaders(final Metadata responseHeaders) {
+                        responseHeaders.put(HEADER_KEY, "header-" + invocation);
+                        super.sendHeaders(responseHeaders);
+                    }
+
+                    @Override
+                    public void close(final Status status, final Metadata trailers) {
+                        trailers.put(TRAILER_KEY, "trailer-" + invocation);
+                        super.close(status, trailers);
+                    }
+
+                }, headers);
+            }
+
+        };
+        final HealthBlockingStub stub = start(metadataAdder, interceptor);
+        this.health.setStatus("first", ServingStatus.SERVING);
+
+        for (int i = 0; i < 2; i++) {
+            final AtomicReference<Metadata> headers = new AtomicReference<>();
+            final AtomicReference<Metadata> trailers = new AtomicReference<>();
+            assertEquals(ServingStatus.SERVING, stub
+                    .withInterceptors(MetadataUtils.newCaptureMetadataInterceptor(headers, trailers))
+                    .check(FIRST)
+                    .getStatus());
+            assertEquals("header-1", headers.get().get(HEADER_KEY));
+            assertEquals("trailer-1", trailers.get().get(TRAILER_KEY));
+        }
+        // The second call was served from the cache
+        assertEquals(1, invocations.get());
+    }
+
+    @Test
+    void testPerPrincipalDefaults() {
+        final PrincipalResolver resolver = (call, headers) -> "user";
+
+        // Without a principal resolver, the entries are shared
+        assertFalse(newInterceptor(HealthGrpc.SERVICE_NAME).getCaches().iterator().next().isPerPrincipal());
+        // Otherwise, each principal gets its own entries
+        final ResponseCacheOptions options = new ResponseCacheOptions();
+        options.getMethods().put(HealthGrpc.SERVICE_NAME, new ResponseCacheMethodOptions());
+        assertTrue(new ResponseCachingServerInterceptor(options, resolver).getCaches().iterator().next()
+                .isPerPrincipal());
+        // Unless configured otherwise
+        options.getMethods().get(HealthGrpc.SERVICE_NAME).setPerPrincipal(false);
+        assertFalse(new ResponseCachingServerInterceptor(options, resolver).getCaches().iterator().next()
+                .isPerPrincipal());
+    }
+
+    private static ResponseCachingServerInterceptor newInterceptor(final String name) {
+        final ResponseCacheOptions options = new ResponseCacheOptions();
+        options.getMethods().put(name, new ResponseCacheMethodOptions());
+        return new ResponseCachingServerInterceptor(options, PrincipalResolver.ANONYMOUS);
+    }
+
+    private HealthBlockingStub start(final ServerInterceptor... interceptors) throws IOException {
+        final String name = InProcessServerBuilder.generateName();
+        this.server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(this.health.getHealthService(), interceptors))
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        return HealthGrpc.newBlockingStub(this.channel);
+    }
+
+}
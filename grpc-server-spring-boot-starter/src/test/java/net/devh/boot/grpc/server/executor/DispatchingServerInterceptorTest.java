@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.executor;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.grpc.ForwardingServerCallListener.SimpleForwardingServerCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.health.v1.HealthGrpc.HealthBlockingStub;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+
+/**
+ * Tests for {@link DispatchingServerInterceptor}.
+ */
+class DispatchingServerInterceptorTest {
+
+    private final BoundedExecutor executor = new BoundedExecutor("test", 1, 1, 0, Duration.ofSeconds(60));
+    private final AtomicReference<String> threadName = new AtomicReference<>();
+    private Server server;
+    private ManagedChannel channel;
+
+    private HealthBlockingStub start() throws IOException {
+        return start(new ServerInterceptor() {
+
+            @Override
+            public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                    final Metadata headers, final ServerCallHandler<ReqT, RespT> next) {
+                return next.startCall(call, headers);
+            }
+
+        });
+    }
+
+    private HealthBlockingStub start(final ServerInterceptor inner) throws IOException {
+        return start(inner, this.executor);
+    }
+
+    private HealthBlockingStub start(final ServerInterceptor inner, final Executor dispatchExecutor)
+            throws IOException {
+        final String name = InProcessServerBuilder.generateName();
+        final ServerInterceptor threadNameCapturer = new ServerInterceptor() {
+
+            @Override
+            public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                    final Metadata headers, final ServerCallHandler<ReqT, RespT> next) {
+                DispatchingServerInterceptorTest.this.threadName.set(Thread.currentThread().getName());
+                return next.startCall(call, headers);
+            }
+
+        };
+        // The last interceptor is called first
+        this.server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(new HealthStatusManager().getHealthService(),
+                        inner, threadNameCapturer, new DispatchingServerInterceptor("test", dispatchExecutor)))
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        return HealthGrpc.newBlockingStub(this.channel);
+    }
+
+    @AfterEach
+    void afterEach() {
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void testDispatch() throws IOException {
+        final HealthBlockingStub stub = start();
+        assertEquals(ServingStatus.SERVING, stub.check(HealthCheckRequest.getDefaultInstance()).getStatus());
+        assertThat(this.threadName.get()).startsWith("test-");
+    }
+
+    @Test
+    void testRejectsWhenSaturated() throws IOException {
+        final HealthBlockingStub stub = start();
+        final CountDownLatch latch = new CountDownLatch(1);
+        // Occupy the only thread
+        this.executor.execute(() -> awaitUninterruptibly(latch));
+        try {
+            final StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                    () -> stub.check(HealthCheckRequest.getDefaultInstance()));
+            assertEquals(Status.Code.RESOURCE_EXHAUSTED, error.getStatus().getCode());
+            assertEquals(1, this.executor.getRejectedCount());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    void testClosesCallIfListenerFails() throws IOException {
+        final HealthBlockingStub stub = start(new ServerInterceptor() {
+
+            @Override
+            public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                    final Metadata headers, final ServerCallHandler<ReqT, RespT> next) {
+                return new SimpleForwardingServerCallListener<ReqT>(next.startCall(call, headers)) {
+
+                    @Override
+                    public void onHalfClose() {
+                        throw new IllegalStateException("Expected");
+                    }
+
+                };
+            }
+
+        });
+        final StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                () -> stub.check(HealthCheckRequest.getDefaultInstance()));
+        assertEquals(Status.Code.UNKNOWN, error.getStatus().getCode());
+    }
+
+    @Test
+    void testRejectsEventsWhenSaturated() throws IOException {
+        final AtomicInteger submitted = new AtomicInteger();
+        final AtomicInteger halfCloses = new AtomicInteger();
+        // Starts the call inline, but rejects all later events
+        final Executor saturatingExecutor = task -> {
+            if (submitted.getAndIncrement() > 0) {
+                throw new RejectedExecutionException();
+            }
+            task.run();
+        };
+        final HealthBlockingStub stub = start(new ServerInterceptor() {
+
+            @Override
+            public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                    final Metadata headers, final ServerCallHandler<ReqT, RespT> next) {
+                return new SimpleForwardingServerCallListener<ReqT>(next.startCall(call, headers)) {
+
+                    @Override
+                    public void onHalfClose() {
+                        halfCloses.incrementAndGet();
+                        super.onHalfClose();
+                    }
+
+                };
+            }
+
+        }, saturatingExecutor);
+        final StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                () -> stub.check(HealthCheckRequest.getDefaultInstance()));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, error.getStatus().getCode());
+        // The rejected events must not be executed on the transport thread
+        assertEquals(0, halfCloses.get());
+    }
+
+}
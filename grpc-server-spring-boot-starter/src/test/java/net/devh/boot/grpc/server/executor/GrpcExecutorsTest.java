@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.executor;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Test;
+
+import net.devh.boot.grpc.server.config.ExecutorOptions;
+import net.devh.boot.grpc.server.config.ExecutorType;
+
+/**
+ * Tests for {@link GrpcExecutors}.
+ */
+class GrpcExecutorsTest {
+
+    @Test
+    void testDefaultExecutors() {
+        final ExecutorOptions options = new ExecutorOptions();
+        assertNull(GrpcExecutors.newExecutor("test", options, false));
+        options.setType(ExecutorType.CACHED);
+        assertNull(GrpcExecutors.newExecutor("test", options, true));
+        options.setType(ExecutorType.DIRECT);
+        assertNull(GrpcExecutors.newExecutor("test", options, true));
+    }
+
+    @Test
+    void testInvalidBoundedExecutor() {
+        final ExecutorOptions options = new ExecutorOptions();
+        options.setType(ExecutorType.BOUNDED);
+        options.setCorePoolSize(2);
+        options.setMaxPoolSize(1);
+        assertThrows(IllegalArgumentException.class, () -> GrpcExecutors.newExecutor("test", options, false));
+    }
+
+    @Test
+    void testBoundedExecutorRejects() {
+        final ExecutorOptions options = new ExecutorOptions();
+        options.setType(ExecutorType.BOUNDED);
+        options.setCorePoolSize(1);
+        options.setMaxPoolSize(1);
+        options.setQueueCapacity(1);
+
+        final BoundedExecutor executor =
+                assertInstanceOf(BoundedExecutor.class, GrpcExecutors.newExecutor("test", options, false));
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            executor.execute(() -> awaitUninterruptibly(latch));
+            executor.execute(() -> {
+            });
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+            }));
+
+            assertEquals(1, executor.getQueueSize());
+            assertEquals(1, executor.getRejectedCount());
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+
+}
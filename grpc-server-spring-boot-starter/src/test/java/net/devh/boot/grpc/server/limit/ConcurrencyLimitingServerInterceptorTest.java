@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import io.grpc.Context;
+import io.grpc.Context.CancellableContext;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import io.grpc.stub.StreamObserver;
+import net.devh.boot.grpc.server.config.ConcurrencyLimitAlgorithm;
+import net.devh.boot.grpc.server.config.ConcurrencyLimitOptions;
+import net.devh.boot.grpc.server.config.ConcurrencyLimiterOptions;
+
+/**
+ * Tests for {@link ConcurrencyLimitingServerInterceptor} and the {@link LimitAlgorithm}s.
+ */
+class ConcurrencyLimitingServerInterceptorTest {
+
+    private static final HealthCheckRequest REQUEST = HealthCheckRequest.getDefaultInstance();
+    private static final Metadata.Key<String> RETRY_PUSHBACK_KEY =
+            Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private Server server;
+    private ManagedChannel channel;
+
+    private ConcurrencyLimitingServerInterceptor start(final ConcurrencyLimitOptions options) throws IOException {
+        final String name = InProcessServerBuilder.generateName();
+        final ConcurrencyLimitingServerInterceptor interceptor = new ConcurrencyLimitingServerInterceptor(options);
+        this.server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(new HealthStatusManager().getHealthService(), interceptor))
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        return interceptor;
+    }
+
+    @AfterEach
+    void afterEach() {
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectsWithRetryPushback() throws IOException {
+        final ConcurrencyLimitOptions options = new ConcurrencyLimitOptions();
+        options.setInitialLimit(1);
+        options.setMinLimit(1);
+        options.setMaxLimit(1);
+        options.setRetryPushback(Duration.ofMillis(250));
+        final ConcurrencyLimitingServerInterceptor interceptor = start(options);
+        final ConcurrencyLimiter limiter = interceptor.getLimiters().iterator().next();
+
+        // Occupy the only permit with a long running call
+        final CancellableContext context = Context.current().withCancellation();
+        context.run(() -> HealthGrpc.newStub(this.channel).watch(REQUEST, new NoopObserver()));
+        assertEquals(1, limiter.getInFlight());
+
+        try {
+            final StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                    () -> HealthGrpc.newBlockingStub(this.channel).check(REQUEST));
+            assertEquals(Status.Code.RESOURCE_EXHAUSTED, error.getStatus().getCode());
+            assertEquals("250", error.getTrailers().get(RETRY_PUSHBACK_KEY));
+            assertEquals(1, limiter.getShedCount());
+        } finally {
+            context.cancel(null);
+        }
+
+        // The cancelled call released its permit
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(ServingStatus.SERVING, HealthGrpc.newBlockingStub(this.channel).check(REQUEST).getStatus());
+    }
+
+    @Test
+    void testMethodSpecificLimiter() throws IOException {
+        final ConcurrencyLimitOptions options = new ConcurrencyLimitOptions();
+        options.getMethods().put(HealthGrpc.getCheckMethod().getFullMethodName(), new ConcurrencyLimiterOptions());
+        final ConcurrencyLimitingServerInterceptor interceptor = start(options);
+
+        assertEquals(ServingStatus.SERVING, HealthGrpc.newBlockingStub(this.channel).check(REQUEST).getStatus());
+        assertThat(interceptor.getLimiters())
+                .extracting(ConcurrencyLimiter::getName)
+                .containsExactly(ConcurrencyLimitingServerInterceptor.GLOBAL_LIMITER_NAME,
+                        HealthGrpc.getCheckMethod().getFullMethodName());
+    }
+
+    @Test
+    void testInvalidLimits() {
+        final ConcurrencyLimitOptions options = new ConcurrencyLimitOptions();
+        options.setAlgorithm(ConcurrencyLimitAlgorithm.AIMD);
+        options.setMinLimit(10);
+        options.setInitialLimit(5);
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrencyLimitingServerInterceptor(options));
+    }
+
+    @Test
+    void testAimdLimit() {
+        final AimdLimit limit = new AimdLimit(10, 1, 20, Duration.ofMillis(100), 0.5);
+        // Grows while utilized
+        limit.onSample(Duration.ofMillis(10).toNanos(), 10, false);
+        assertEquals(11, limit.getLimit());
+        // Doesn't grow while underutilized
+        limit.onSample(Duration.ofMillis(10).toNanos(), 1, false);
+        assertEquals(11, limit.getLimit());
+        // Shrinks if too slow or dropped
+        limit.onSample(Duration.ofMillis(200).toNanos(), 11, false);
+        assertEquals(5, limit.getLimit());
+        limit.onSample(Duration.ofMillis(10).toNanos(), 5, true);
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    void testGradientLimit() {
+        final GradientLimit limit = new GradientLimit(20, 1, 100, 1.5, 1.0);
+        // Stable latency grows the limit
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(Duration.ofMillis(10).toNanos(), limit.getLimit(), false);
+        }
+        final int grownLimit = limit.getLimit();
+        assertThat(grownLimit).isGreaterThan(20);
+        // Increased latency shrinks the limit
+        limit.onSample(Duration.ofMillis(100).toNanos(), grownLimit, false);
+        assertThat(limit.getLimit()).isLessThan(grownLimit);
+    }
+
+    private static final class NoopObserver implements StreamObserver<HealthCheckResponse> {
+
+        @Override
+        public void onNext(final HealthCheckResponse value) {}
+
+        @Override
+        public void onError(final Throwable t) {}
+
+        @Override
+        public void onCompleted() {}
+
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import net.devh.boot.grpc.server.config.InboundMemoryBudgetOptions;
+
+/**
+ * Tests for {@link InboundMemoryLimitingServerInterceptor} and {@link InboundMemoryBudget}.
+ */
+class InboundMemoryLimitingServerInterceptorTest {
+
+    private static final HealthCheckRequest REQUEST = HealthCheckRequest.getDefaultInstance();
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void afterEach() {
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectsWhileExhausted() throws IOException {
+        final InboundMemoryBudgetOptions options = new InboundMemoryBudgetOptions();
+        options.setMaxSize(DataSize.ofKilobytes(1));
+        final InboundMemoryLimitingServerInterceptor interceptor = new InboundMemoryLimitingServerInterceptor(options);
+        final HealthGrpc.HealthBlockingStub stub = startServer(interceptor);
+        final InboundMemoryBudget global = interceptor.getBudgets().iterator().next();
+        assertEquals(InboundMemoryLimitingServerInterceptor.GLOBAL_BUDGET, global.getName());
+
+        assertEquals(ServingStatus.SERVING, stub.check(REQUEST).getStatus());
+
+        global.reserve(1024);
+        final StatusRuntimeException error = assertThrows(StatusRuntimeException.class, () -> stub.check(REQUEST));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, error.getStatus().getCode());
+        assertEquals(1, global.getRejectedCount());
+
+        global.release(1024);
+        assertEquals(ServingStatus.SERVING, stub.check(REQUEST).getStatus());
+        assertEquals(0, global.getUsedBytes());
+    }
+
+    @Test
+    void testServiceBudget() throws IOException {
+        final InboundMemoryBudgetOptions options = new InboundMemoryBudgetOptions();
+        options.getMethods().put(HealthGrpc.SERVICE_NAME, DataSize.ofBytes(100));
+        final InboundMemoryLimitingServerInterceptor interceptor = new InboundMemoryLimitingServerInterceptor(options);
+        final HealthGrpc.HealthBlockingStub stub = startServer(interceptor);
+
+        final Iterator<InboundMemoryBudget> budgets = interceptor.getBudgets().iterator();
+        final InboundMemoryBudget global = budgets.next();
+        final InboundMemoryBudget service = budgets.next();
+        assertEquals(HealthGrpc.SERVICE_NAME, service.getName());
+        assertThat(global.getMaxBytes()).isPositive();
+
+        service.reserve(100);
+        final StatusRuntimeException error = assertThrows(StatusRuntimeException.class, () -> stub.check(REQUEST));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, error.getStatus().getCode());
+        assertThat(error.getStatus().getDescription()).contains(HealthGrpc.SERVICE_NAME);
+        assertEquals(1, service.getRejectedCount());
+        assertEquals(0, global.getRejectedCount());
+    }
+
+    @Test
+    void testDefersReadsWhileExhausted() {
+        final InboundMemoryBudget budget = new InboundMemoryBudget("test", 10);
+        final AtomicInteger reads = new AtomicInteger();
+
+        budget.runWhenAvailable(reads::incrementAndGet);
+        assertEquals(1, reads.get());
+
+        budget.reserve(10);
+        assertThat(budget.isExhausted()).isTrue();
+        budget.runWhenAvailable(reads::incrementAndGet);
+        budget.runWhenAvailable(reads::incrementAndGet);
+        assertEquals(1, reads.get());
+        assertEquals(2, budget.getPausedCount());
+
+        budget.release(5);
+        assertEquals(3, reads.get());
+        assertEquals(0, budget.getPausedCount());
+    }
+
+    private HealthGrpc.HealthBlockingStub startServer(final InboundMemoryLimitingServerInterceptor interceptor)
+            throws IOException {
+        final String name = InProcessServerBuilder.generateName();
+        this.server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addStreamTracerFactory(interceptor.getStreamTracerFactory())
+                .addService(ServerInterceptors.intercept(new HealthStatusManager().getHealthService(), interceptor))
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        return HealthGrpc.newBlockingStub(this.channel);
+    }
+
+}
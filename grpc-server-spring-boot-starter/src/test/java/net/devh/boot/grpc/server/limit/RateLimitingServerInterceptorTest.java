@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Ticker;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse.ServingStatus;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import net.devh.boot.grpc.server.config.RateLimitOptions;
+import net.devh.boot.grpc.server.config.RateLimiterOptions;
+import net.devh.boot.grpc.server.interceptor.PrincipalResolver;
+
+/**
+ * Tests for {@link RateLimitingServerInterceptor} and {@link RateLimiter}.
+ */
+class RateLimitingServerInterceptorTest {
+
+    private static final HealthCheckRequest REQUEST = HealthCheckRequest.getDefaultInstance();
+    private static final Metadata.Key<String> RETRY_PUSHBACK_KEY =
+            Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private final FakeTicker ticker = new FakeTicker();
+
+    private Server server;
+    private ManagedChannel channel;
+
+    @AfterEach
+    void afterEach() {
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+    }
+
+    @Test
+    void testRejectsWithRetryPushback() throws IOException {
+        final RateLimiterOptions limit = new RateLimiterOptions();
+        limit.setPermitsPerSecond(0.5);
+        final RateLimitOptions options = new RateLimitOptions();
+        options.getMethods().put(HealthGrpc.SERVICE_NAME, limit);
+        final RateLimitingServerInterceptor interceptor =
+                new RateLimitingServerInterceptor(options, PrincipalResolver.ANONYMOUS);
+
+        final String name = InProcessServerBuilder.generateName();
+        this.server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(ServerInterceptors.intercept(new HealthStatusManager().getHealthService(), interceptor))
+                .build()
+                .start();
+        this.channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        final HealthGrpc.HealthBlockingStub stub = HealthGrpc.newBlockingStub(this.channel);
+
+        assertEquals(ServingStatus.SERVING, stub.check(REQUEST).getStatus());
+        final StatusRuntimeException error = assertThrows(StatusRuntimeException.class, () -> stub.check(REQUEST));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, error.getStatus().getCode());
+        assertThat(Long.parseLong(error.getTrailers().get(RETRY_PUSHBACK_KEY))).isBetween(1L, 2000L);
+        assertEquals(1, interceptor.getLimiters().iterator().next().getRejectedCount());
+    }
+
+    @Test
+    void testBurstAndRefill() {
+        final RateLimiter limiter = new RateLimiter("test", 10, 3, false, 1, this.ticker);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(null));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire(null));
+
+        this.ticker.advance(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, limiter.tryAcquire(null));
+        assertThat(limiter.tryAcquire(null)).isPositive();
+
+        // Doesn't exceed the burst size after a long idle period
+        this.ticker.advance(TimeUnit.SECONDS.toNanos(10));
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire(null));
+        }
+        assertThat(limiter.tryAcquire(null)).isPositive();
+        assertEquals(2, limiter.getRejectedCount());
+    }
+
+    @Test
+    void testPerPrincipal() {
+        final RateLimiter limiter = new RateLimiter("test", 1, 1, true, 100, this.ticker);
+        assertEquals(0, limiter.tryAcquire("alice"));
+        assertThat(limiter.tryAcquire("alice")).isPositive();
+        assertEquals(0, limiter.tryAcquire("bob"));
+        assertEquals(0, limiter.tryAcquire(null));
+        assertThat(limiter.tryAcquire(null)).isPositive();
+        assertEquals(3, limiter.getPrincipalCount());
+    }
+
+    @Test
+    void testPrincipalsAreBounded() {
+        final RateLimiter limiter = new RateLimiter("test", 1, 1, true, 100, this.ticker);
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("principal-" + i);
+            assertThat(limiter.getPrincipalCount()).isLessThanOrEqualTo(100);
+        }
+
+        // Idle buckets are discarded first
+        this.ticker.advance(TimeUnit.SECONDS.toNanos(1));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, limiter.tryAcquire("other-" + i));
+        }
+        assertEquals(100, limiter.getPrincipalCount());
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire("other-" + i)).isPositive();
+        }
+    }
+
+    @Test
+    void testInvalidOptions() {
+        final RateLimitOptions options = new RateLimitOptions();
+        options.getMethods().put(HealthGrpc.SERVICE_NAME, new RateLimiterOptions());
+        assertThrows(IllegalArgumentException.class,
+                () -> new RateLimitingServerInterceptor(options, PrincipalResolver.ANONYMOUS));
+    }
+
+    private static final class FakeTicker extends Ticker {
+
+        private final AtomicLong nanos = new AtomicLong();
+
+        void advance(final long duration) {
+            this.nanos.addAndGet(duration);
+        }
+
+        @Override
+        public long read() {
+            return this.nanos.get();
+        }
+
+    }
+
+}
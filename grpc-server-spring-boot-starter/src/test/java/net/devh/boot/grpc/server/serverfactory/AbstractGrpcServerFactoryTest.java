@@ -16,17 +16,33 @@
 
 package net.devh.boot.grpc.server.serverfactory;
 
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
 import org.junit.jupiter.api.Test;
 
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
 import io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
 import io.grpc.protobuf.services.ProtoReflectionService;
 import io.grpc.reflection.v1alpha.ServerReflectionGrpc;
+import net.devh.boot.grpc.server.config.ExecutorType;
 import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.executor.BoundedExecutor;
 import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
 
 /**
@@ -56,4 +72,37 @@ void testConfigureServices() {
                         .getMessage());
     }
 
+    /**
+     * Tests that {@link AbstractGrpcServerFactory#configureExecutor(ServerBuilder)} rejects calls with
+     * {@code RESOURCE_EXHAUSTED} if the {@link BoundedExecutor} is saturated.
+     */
+    @Test
+    void testConfigureExecutorRejectsWithResourceExhausted() throws IOException {
+        final GrpcServerProperties properties = new GrpcServerProperties();
+        properties.getExecutor().setType(ExecutorType.BOUNDED);
+        final BoundedExecutor executor = new BoundedExecutor("test", 1, 1, 0, Duration.ofSeconds(60));
+        final String name = InProcessServerBuilder.generateName();
+
+        final InProcessGrpcServerFactory serverFactory = new InProcessGrpcServerFactory(name, properties);
+        serverFactory.setExecutor(executor);
+        serverFactory.addService(new GrpcServiceDefinition("health", HealthStatusManager.class,
+                new HealthStatusManager().getHealthService().bindService()));
+
+        final Server server = serverFactory.createServer().start();
+        final ManagedChannel channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            // Occupy the only thread
+            executor.execute(() -> awaitUninterruptibly(latch));
+            final StatusRuntimeException error = assertThrows(StatusRuntimeException.class,
+                    () -> HealthGrpc.newBlockingStub(channel).check(HealthCheckRequest.getDefaultInstance()));
+            assertEquals(Status.Code.RESOURCE_EXHAUSTED, error.getStatus().getCode());
+        } finally {
+            latch.countDown();
+            channel.shutdownNow();
+            server.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
 }
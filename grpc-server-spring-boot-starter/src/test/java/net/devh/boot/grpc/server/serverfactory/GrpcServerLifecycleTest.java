@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2023 The gRPC-Spring Authors
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,21 +17,34 @@
 package net.devh.boot.grpc.server.serverfactory;
 
 import static java.time.Duration.ZERO;
+import static java.time.Duration.ofHours;
 import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofMinutes;
 import static java.time.Duration.ofSeconds;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTimeout;
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -40,6 +53,8 @@
 import org.springframework.context.ApplicationEventPublisher;
 
 import io.grpc.Server;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent;
+import net.devh.boot.grpc.server.event.GrpcServerDrainEvent.Phase;
 import net.devh.boot.grpc.server.event.GrpcServerShutdownEvent;
 import net.devh.boot.grpc.server.event.GrpcServerStartedEvent;
 import net.devh.boot.grpc.server.event.GrpcServerTerminatedEvent;
@@ -61,8 +76,8 @@ void beforeEach() {
 
     @Test
     void testNoGraceShutdown() {
-        // The server takes 5s seconds to shutdown
-        final TestServer server = new TestServer(5000);
+        // The server does not terminate on its own
+        final ControlledServer server = new ControlledServer(false);
         when(this.factory.createServer()).thenReturn(server);
 
         // But we won't wait
@@ -74,11 +89,12 @@ void testNoGraceShutdown() {
         assertFalse(server.isShutdown());
         assertFalse(server.isTerminated());
 
-        // So the shutdown should complete near instantly
-        assertTimeoutPreemptively(ofMillis(100), (Executable) lifecycle::stop);
+        // So the server should be stopped without awaiting its termination
+        lifecycle.stop();
         verify(this.eventPublisher).publishEvent(ArgumentMatchers.any(GrpcServerShutdownEvent.class));
         verify(this.eventPublisher).publishEvent(ArgumentMatchers.any(GrpcServerTerminatedEvent.class));
 
+        assertThat(server.getAwaitedNanos()).isEmpty();
         assertTrue(server.isShutdown());
         assertTrue(server.isTerminated());
     }
@@ -134,11 +150,144 @@ void testAwaitShutdown() {
 
         final long duration = System.currentTimeMillis() - start;
         // We waited for the entire duration
-        assertThat(duration).isBetween(5000L, 5100L);
+        assertThat(duration).isGreaterThanOrEqualTo(5000L);
+
+        assertTrue(server.isShutdown());
+        assertTrue(server.isTerminated());
+
+    }
+
+    @Test
+    void testDrainIsLimitedByShutdownPhaseTimeout() {
+        // The server does not terminate on its own
+        final ControlledServer server = new ControlledServer(false);
+        when(this.factory.createServer()).thenReturn(server);
+
+        // And we would wait for it infinitely after an hour, but spring only waits 200ms for the drain
+        final GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(Collections.singletonList(this.factory),
+                ofSeconds(-1), ofHours(1), this.eventPublisher);
+        lifecycle.setShutdownPhaseTimeout(ofMillis(200));
+
+        lifecycle.start();
+        // The propagation delay has been shortened to fit (the timeout only guards against an hour long wait)
+        assertTimeoutPreemptively(ofMinutes(1), (Executable) lifecycle::stop);
+        verify(this.eventPublisher).publishEvent(ArgumentMatchers.any(GrpcServerTerminatedEvent.class));
 
+        // And so has the grace period, leaving some time to forcefully stop the server
+        assertThat(server.getAwaitedNanos()).singleElement()
+                .satisfies(nanos -> assertThat(nanos).isLessThan(ofMillis(200).toNanos()));
         assertTrue(server.isShutdown());
         assertTrue(server.isTerminated());
+    }
+
+    @Test
+    void testMultipleServersShareGracePeriod() {
+        // Neither server terminates on its own
+        final ControlledServer server = new ControlledServer(false);
+        final ControlledServer listener = new ControlledServer(false);
+        when(this.factory.createServer()).thenReturn(server, listener);
+
+        final GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(Arrays.asList(this.factory, this.factory),
+                ofMillis(5000), this.eventPublisher);
+
+        lifecycle.start();
+        verify(this.eventPublisher, times(2)).publishEvent(ArgumentMatchers.any(GrpcServerStartedEvent.class));
+        assertTrue(lifecycle.isRunning());
+
+        lifecycle.stop();
+        verify(this.eventPublisher, times(2)).publishEvent(ArgumentMatchers.any(GrpcServerTerminatedEvent.class));
+
+        // The listener is only awaited for the remainder of the grace period
+        final long serverNanos = server.getAwaitedNanos().get(0);
+        final long listenerNanos = listener.getAwaitedNanos().get(0);
+        assertThat(serverNanos).isLessThanOrEqualTo(ofMillis(5000).toNanos());
+        assertThat(listenerNanos).isLessThanOrEqualTo(serverNanos);
+
+        assertFalse(lifecycle.isRunning());
+        assertTrue(server.isTerminated());
+        assertTrue(listener.isTerminated());
+    }
+
+    @Test
+    void testFailedListenerStopsOtherServers() {
+        final TestServer server = new TestServer(5000);
+        final GrpcServerFactory brokenFactory = mock(GrpcServerFactory.class);
+        when(this.factory.createServer()).thenReturn(server);
+        when(brokenFactory.createServer()).thenThrow(new IllegalStateException("Broken listener"));
+
+        final GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(Arrays.asList(this.factory, brokenFactory),
+                ZERO, this.eventPublisher);
+
+        assertThrows(IllegalStateException.class, lifecycle::start);
+        assertTrue(server.isTerminated());
+        assertFalse(lifecycle.isRunning());
+    }
 
+    @Test
+    void testDrainPhases() {
+        final ControlledServer server = new ControlledServer(true);
+        when(this.factory.createServer()).thenReturn(server);
+        final List<Object> events = new CopyOnWriteArrayList<>();
+
+        final GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(Collections.singletonList(this.factory),
+                ofMillis(5000), ofMillis(500), events::add);
+        lifecycle.start();
+
+        final long start = System.currentTimeMillis();
+        lifecycle.stop();
+        // We waited for the propagation delay
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(500L);
+
+        final List<Phase> phases = events.stream()
+                .filter(GrpcServerDrainEvent.class::isInstance)
+                .map(event -> ((GrpcServerDrainEvent) event).getPhase())
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(Phase.values()), phases);
+        assertTrue(server.isTerminated());
+    }
+
+    @Test
+    void testAsyncStop() {
+        final ControlledServer server = new ControlledServer(true);
+        when(this.factory.createServer()).thenReturn(server);
+        final List<Runnable> drains = new ArrayList<>();
+
+        final GrpcServerLifecycle lifecycle =
+                new GrpcServerLifecycle(this.factory, ofMillis(5000), this.eventPublisher);
+        lifecycle.setDrainExecutor(drains::add);
+        lifecycle.start();
+
+        // The drain is handed to the executor instead of blocking the caller
+        final AtomicBoolean stopped = new AtomicBoolean();
+        lifecycle.stop(() -> stopped.set(true));
+        assertFalse(stopped.get());
+        assertTrue(lifecycle.isRunning());
+
+        assertThat(drains).hasSize(1);
+        drains.get(0).run();
+        assertTrue(stopped.get());
+        assertTrue(server.isTerminated());
+        assertFalse(lifecycle.isRunning());
+    }
+
+    @Test
+    void testRejectedAsyncStop() {
+        final ControlledServer server = new ControlledServer(true);
+        when(this.factory.createServer()).thenReturn(server);
+
+        final GrpcServerLifecycle lifecycle =
+                new GrpcServerLifecycle(this.factory, ofMillis(5000), this.eventPublisher);
+        lifecycle.setDrainExecutor(drain -> {
+            throw new RejectedExecutionException("Shut down");
+        });
+        lifecycle.start();
+
+        // The drain runs on the caller instead
+        final AtomicBoolean stopped = new AtomicBoolean();
+        lifecycle.stop(() -> stopped.set(true));
+        assertTrue(stopped.get());
+        assertTrue(server.isTerminated());
+        assertFalse(lifecycle.isRunning());
     }
 
     public class TestServer extends Server {
@@ -209,4 +358,70 @@ public void awaitTermination() throws InterruptedException {
 
     }
 
+    /**
+     * A server that terminates only once it is {@link #shutdownNow() forcefully stopped} or, if enabled, once it is
+     * shut down. It does not actually wait for a timeout, but records it and immediately reports the timeout elapsed,
+     * so that the tests don't depend on the wall clock.
+     */
+    public class ControlledServer extends Server {
+
+        private final boolean terminateOnShutdown;
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private final List<Long> awaitedNanos = new CopyOnWriteArrayList<>();
+
+        private volatile boolean isShutdown = true;
+
+        public ControlledServer(final boolean terminateOnShutdown) {
+            this.terminateOnShutdown = terminateOnShutdown;
+        }
+
+        @Override
+        public Server start() throws IOException {
+            this.isShutdown = false;
+            return this;
+        }
+
+        @Override
+        public Server shutdown() {
+            this.isShutdown = true;
+            if (this.terminateOnShutdown) {
+                this.terminated.countDown();
+            }
+            return this;
+        }
+
+        @Override
+        public Server shutdownNow() {
+            this.isShutdown = true;
+            this.terminated.countDown();
+            return this;
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return this.isShutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return this.terminated.getCount() == 0;
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) {
+            this.awaitedNanos.add(unit.toNanos(timeout));
+            return isTerminated();
+        }
+
+        @Override
+        public void awaitTermination() throws InterruptedException {
+            this.terminated.await();
+        }
+
+        public List<Long> getAwaitedNanos() {
+            return this.awaitedNanos;
+        }
+
+    }
+
 }
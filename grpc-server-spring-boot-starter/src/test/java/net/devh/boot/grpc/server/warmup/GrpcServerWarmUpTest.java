@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.server.warmup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCall.Listener;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.protobuf.services.HealthStatusManager;
+import net.devh.boot.grpc.server.config.WarmUpOptions;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+import net.devh.boot.grpc.server.service.GrpcServiceDiscoverer;
+
+/**
+ * Tests for {@link GrpcServerWarmUp} and {@link PropertiesWarmUpRequestSupplier}.
+ */
+class GrpcServerWarmUpTest {
+
+    private static final String CHECK_METHOD = HealthGrpc.getCheckMethod().getFullMethodName();
+
+    private final HealthStatusManager healthStatusManager = new HealthStatusManager();
+    private final GrpcServiceDiscoverer discoverer = () -> Collections.singletonList(
+            new GrpcServiceDefinition("health", HealthGrpc.HealthImplBase.class,
+                    this.healthStatusManager.getHealthService().bindService()));
+
+    @Test
+    void testReplaysConfiguredRequests() {
+        final WarmUpOptions options = new WarmUpOptions();
+        options.setIterations(10);
+        options.getRequests().put(CHECK_METHOD, Arrays.asList("service: \"\"", "service: \"unknown\""));
+
+        final GrpcServerWarmUp warmUp = newWarmUp(options);
+        warmUp.warmUp();
+
+        assertEquals(10, warmUp.getSuccessfulCalls());
+        // Unknown services are answered with NOT_FOUND
+        assertEquals(10, warmUp.getFailedCalls());
+        assertThat(warmUp.getDuration()).isPositive();
+    }
+
+    @Test
+    void testReplaysSuppliedRequests() {
+        final WarmUpOptions options = new WarmUpOptions();
+        options.setIterations(5);
+        final WarmUpRequestSupplier supplier = method -> method.getFullMethodName().equals(CHECK_METHOD)
+                ? Collections.singletonList(HealthCheckRequest.getDefaultInstance())
+                : Collections.emptyList();
+
+        final GrpcServerWarmUp warmUp = new GrpcServerWarmUp(this.discoverer, options,
+                Arrays.asList(new PropertiesWarmUpRequestSupplier(options.getRequests()), supplier));
+        warmUp.afterSingletonsInstantiated();
+
+        assertEquals(5, warmUp.getSuccessfulCalls());
+        assertEquals(0, warmUp.getFailedCalls());
+    }
+
+    @Test
+    void testStopsAfterTimeBudget() {
+        final WarmUpOptions options = new WarmUpOptions();
+        options.setIterations(Integer.MAX_VALUE);
+        options.setTimeBudget(Duration.ofMillis(200));
+        options.getRequests().put(CHECK_METHOD, Collections.singletonList(""));
+
+        final GrpcServerWarmUp warmUp = newWarmUp(options);
+        warmUp.warmUp();
+
+        assertThat(warmUp.getSuccessfulCalls()).isPositive();
+        assertThat(warmUp.getDuration()).isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testCancelsCallsAfterTimeBudget() {
+        final WarmUpOptions options = new WarmUpOptions();
+        options.setTimeBudget(Duration.ofMillis(200));
+        // Watch calls never complete on their own
+        options.getRequests().put(HealthGrpc.getWatchMethod().getFullMethodName(), Collections.singletonList(""));
+
+        final GrpcServerWarmUp warmUp = newWarmUp(options);
+        warmUp.warmUp();
+
+        assertEquals(0, warmUp.getSuccessfulCalls());
+        assertThat(warmUp.getDuration()).isLessThan(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void testBypassesInterceptors() {
+        final AtomicInteger intercepted = new AtomicInteger();
+        final ServerInterceptor interceptor = new ServerInterceptor() {
+
+            @Override
+            public <ReqT, RespT> Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                    final Metadata headers, final ServerCallHandler<ReqT, RespT> next) {
+                intercepted.incrementAndGet();
+                call.close(Status.UNAUTHENTICATED, new Metadata());
+                return new Listener<ReqT>() {};
+            }
+
+        };
+        final ServerServiceDefinition rawDefinition = this.healthStatusManager.getHealthService().bindService();
+        final GrpcServiceDiscoverer interceptedDiscoverer = () -> Collections.singletonList(
+                new GrpcServiceDefinition("health", HealthGrpc.HealthImplBase.class,
+                        ServerInterceptors.intercept(rawDefinition, interceptor), rawDefinition));
+        final WarmUpOptions options = new WarmUpOptions();
+        options.setIterations(5);
+        options.getRequests().put(CHECK_METHOD, Collections.singletonList(""));
+
+        final GrpcServerWarmUp warmUp = new GrpcServerWarmUp(interceptedDiscoverer, options,
+                Collections.singletonList(new PropertiesWarmUpRequestSupplier(options.getRequests())));
+        warmUp.warmUp();
+
+        assertEquals(5, warmUp.getSuccessfulCalls());
+        assertEquals(0, intercepted.get());
+    }
+
+    @Test
+    void testSkipsWithoutRequests() {
+        final GrpcServerWarmUp warmUp = newWarmUp(new WarmUpOptions());
+        warmUp.warmUp();
+
+        assertEquals(0, warmUp.getSuccessfulCalls());
+        assertEquals(Duration.ZERO, warmUp.getDuration());
+    }
+
+    @Test
+    void testRejectsInvalidRequests() {
+        final WarmUpOptions options = new WarmUpOptions();
+        options.getRequests().put(CHECK_METHOD, Collections.singletonList("unknown_field: 1"));
+
+        final GrpcServerWarmUp warmUp = newWarmUp(options);
+        assertThrows(IllegalArgumentException.class, warmUp::warmUp);
+    }
+
+    private GrpcServerWarmUp newWarmUp(final WarmUpOptions options) {
+        final List<WarmUpRequestSupplier> suppliers =
+                Collections.singletonList(new PropertiesWarmUpRequestSupplier(options.getRequests()));
+        return new GrpcServerWarmUp(this.discoverer, options, suppliers);
+    }
+
+}
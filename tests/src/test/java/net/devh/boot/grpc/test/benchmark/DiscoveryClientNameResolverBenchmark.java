@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryClient;
+import org.springframework.cloud.client.discovery.simple.SimpleDiscoveryProperties;
+
+import io.grpc.NameResolver;
+import io.grpc.Status;
+import io.grpc.SynchronizationContext;
+import io.grpc.internal.AutoConfiguredLoadBalancerFactory;
+import io.grpc.internal.GrpcUtil;
+import io.grpc.internal.ScParser;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.nameresolver.DiscoveryClientNameResolver;
+import net.devh.boot.grpc.common.util.GrpcUtils;
+
+/**
+ * Measures the time the {@link DiscoveryClientNameResolver} needs to process a refresh of a service with many
+ * instances, both if nothing has changed (e.g. a heartbeat) and if a single instance has changed. The resolver runs on
+ * the calling thread, so the times include the lookup in the {@link SimpleDiscoveryClient}, the change detection, the
+ * creation of the addresses and the service config handling.
+ *
+ * <p>
+ * Run using: {@code ./gradlew :tests:test --tests '*DiscoveryClientNameResolverBenchmark' -Dbenchmark=true}
+ * </p>
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DiscoveryClientNameResolverBenchmark {
+
+    private static final String SERVICE_NAME = "benchmark";
+    private static final String SERVICE_CONFIG = "{\"loadBalancingConfig\": [{\"round_robin\": {}}],"
+            + " \"methodConfig\": [{\"name\": [{}], \"timeout\": \"5s\"}]}";
+    private static final int WARMUP_REFRESHES = 200;
+    private static final int MEASUREMENT_REFRESHES = 1000;
+
+    @ParameterizedTest(name = "{0} instances")
+    @ValueSource(ints = {100, 2000, 10000})
+    void benchmarkRefresh(final int instanceCount) {
+        final List<DefaultServiceInstance> instances = newInstances(instanceCount, 0);
+        final List<DefaultServiceInstance> changedInstances = newInstances(instanceCount, 1);
+        final SimpleDiscoveryProperties properties = new SimpleDiscoveryProperties();
+        properties.setInstances(Map.of(SERVICE_NAME, instances));
+
+        final NameResolver.Args args = NameResolver.Args.newBuilder()
+                .setDefaultPort(9090)
+                .setProxyDetector(GrpcUtil.DEFAULT_PROXY_DETECTOR)
+                .setSynchronizationContext(new SynchronizationContext((t, e) -> {
+                    throw new AssertionError(e);
+                }))
+                .setServiceConfigParser(new ScParser(true, 5, 5, new AutoConfiguredLoadBalancerFactory("round_robin")))
+                .setOffloadExecutor(Runnable::run)
+                .build();
+        final DiscoveryClientNameResolver resolver = new DiscoveryClientNameResolver(SERVICE_NAME,
+                new SimpleDiscoveryClient(properties), args, null, null);
+        final AtomicInteger results = new AtomicInteger();
+        resolver.start(new NameResolver.Listener2() {
+
+            @Override
+            public void onResult(final NameResolver.ResolutionResult resolutionResult) {
+                results.incrementAndGet();
+            }
+
+            @Override
+            public void onError(final Status error) {
+                throw new AssertionError("Unexpected error: " + error);
+            }
+
+        });
+        try {
+            // Unchanged
+            run(resolver, properties, instances, instances, WARMUP_REFRESHES);
+            final long unchangedStart = System.nanoTime();
+            run(resolver, properties, instances, instances, MEASUREMENT_REFRESHES);
+            final long unchanged = System.nanoTime() - unchangedStart;
+
+            // A single instance changes with every refresh
+            final int resultsBefore = results.get();
+            run(resolver, properties, changedInstances, instances, WARMUP_REFRESHES);
+            final long changedStart = System.nanoTime();
+            run(resolver, properties, changedInstances, instances, MEASUREMENT_REFRESHES);
+            final long changed = System.nanoTime() - changedStart;
+
+            if (results.get() - resultsBefore != WARMUP_REFRESHES + MEASUREMENT_REFRESHES) {
+                throw new AssertionError("Expected every changed refresh to publish a result");
+            }
+            log.info("{} instances: {} us per unchanged refresh, {} us per changed refresh", instanceCount,
+                    TimeUnit.NANOSECONDS.toMicros(unchanged / MEASUREMENT_REFRESHES),
+                    TimeUnit.NANOSECONDS.toMicros(changed / MEASUREMENT_REFRESHES));
+        } finally {
+            resolver.shutdown();
+        }
+    }
+
+    /**
+     * Alternates the instances of the discovery client and refreshes the resolver after each change.
+     */
+    private static void run(final DiscoveryClientNameResolver resolver, final SimpleDiscoveryProperties properties,
+            final List<DefaultServiceInstance> first, final List<DefaultServiceInstance> second, final int refreshes) {
+        for (int i = 0; i < refreshes; i++) {
+            properties.setInstances(Map.of(SERVICE_NAME, i % 2 == 0 ? first : second));
+            resolver.refresh();
+        }
+    }
+
+    /**
+     * Creates the given number of instances. The first instance uses a different port depending on the variant.
+     */
+    private static List<DefaultServiceInstance> newInstances(final int count, final int variant) {
+        final List<DefaultServiceInstance> instances = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String host = "10." + (i >> 16 & 0xFF) + "." + (i >> 8 & 0xFF) + "." + (i & 0xFF);
+            final DefaultServiceInstance instance =
+                    new DefaultServiceInstance(SERVICE_NAME + "-" + i, SERVICE_NAME, host, 8080, false);
+            final int port = i == 0 ? 9090 + variant : 9090;
+            instance.getMetadata().put(GrpcUtils.CLOUD_DISCOVERY_METADATA_PORT, Integer.toString(port));
+            instance.getMetadata().put(GrpcUtils.CLOUD_DISCOVERY_METADATA_SERVICE_CONFIG, SERVICE_CONFIG);
+            instance.getMetadata().put(GrpcUtils.CLOUD_DISCOVERY_METADATA_ZONE, "zone-" + i % 3);
+            instances.add(instance);
+        }
+        return instances;
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.LoadBalancerRegistry;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.loadbalancer.LeastRequestLoadBalancerProvider;
+import net.devh.boot.grpc.client.loadbalancer.PeakEwmaLoadBalancerProvider;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.serverfactory.ShadedNettyGrpcServerFactory;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+
+/**
+ * Measures the latency percentiles of unary calls over the loopback interface, if one of three backends is much
+ * slower than the others, for the {@code round_robin}, {@code least_request} and {@code peak_ewma} load balancing
+ * policies. The backend latencies are simulated by delaying the responses.
+ *
+ * <p>
+ * Run using: {@code ./gradlew :tests:test --tests '*LoadBalancingLatencyBenchmark' -Dbenchmark=true}
+ * </p>
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoadBalancingLatencyBenchmark {
+
+    private static final int CONCURRENCY = 32;
+    private static final int WARMUP_CALLS = 5_000;
+    private static final int MEASUREMENT_CALLS = 20_000;
+    private static final long[] BACKEND_DELAYS_MILLIS = {1, 1, 20};
+
+    private static final MethodDescriptor<StringValue, StringValue> ECHO_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("benchmark.Echo", "echo"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .build();
+
+    private final LeastRequestLoadBalancerProvider leastRequest = new LeastRequestLoadBalancerProvider();
+    private final PeakEwmaLoadBalancerProvider peakEwma = new PeakEwmaLoadBalancerProvider();
+
+    @BeforeEach
+    void beforeEach() {
+        LoadBalancerRegistry.getDefaultRegistry().register(this.leastRequest);
+        LoadBalancerRegistry.getDefaultRegistry().register(this.peakEwma);
+    }
+
+    @AfterEach
+    void afterEach() {
+        LoadBalancerRegistry.getDefaultRegistry().deregister(this.leastRequest);
+        LoadBalancerRegistry.getDefaultRegistry().deregister(this.peakEwma);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {"round_robin", "least_request", "peak_ewma"})
+    void benchmarkLatency(final String policy) throws Exception {
+        final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        final List<Server> servers = new ArrayList<>();
+        ManagedChannel channel = null;
+        try {
+            final List<String> addresses = new ArrayList<>();
+            for (final long delay : BACKEND_DELAYS_MILLIS) {
+                final Server server = startServer(scheduler, delay);
+                servers.add(server);
+                addresses.add("127.0.0.1:" + server.getPort());
+            }
+            channel = NettyChannelBuilder.forTarget("static://" + String.join(",", addresses))
+                    .defaultLoadBalancingPolicy(policy)
+                    .usePlaintext()
+                    .build();
+
+            run(channel, WARMUP_CALLS);
+            final long[] latencies = run(channel, MEASUREMENT_CALLS);
+            Arrays.sort(latencies);
+            log.info("{}: p50={} us, p90={} us, p99={} us (backend delays: {} ms)", policy,
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                    Arrays.stream(BACKEND_DELAYS_MILLIS).mapToObj(Long::toString).collect(Collectors.joining(", ")));
+        } finally {
+            if (channel != null) {
+                channel.shutdownNow();
+            }
+            for (final Server server : servers) {
+                server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            }
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static Server startServer(final ScheduledExecutorService scheduler, final long delayMillis)
+            throws Exception {
+        final GrpcServerProperties properties = new GrpcServerProperties();
+        properties.setAddress("127.0.0.1");
+        properties.setPort(0);
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("benchmark.Echo")
+                .addMethod(ECHO_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> scheduler.schedule(
+                        () -> {
+                            responseObserver.onNext(request);
+                            responseObserver.onCompleted();
+                        }, delayMillis, TimeUnit.MILLISECONDS)))
+                .build();
+        final ShadedNettyGrpcServerFactory factory =
+                new ShadedNettyGrpcServerFactory(properties, Collections.emptyList());
+        factory.addService(new GrpcServiceDefinition("echoService", Object.class, service));
+        return factory.createServer().start();
+    }
+
+    /**
+     * Sends the given number of calls, while keeping a constant number of calls in flight.
+     *
+     * @param channel The channel to send the calls with.
+     * @param calls The total number of calls.
+     * @return The latency of each call in microseconds.
+     * @throws Exception If any of the calls failed.
+     */
+    private static long[] run(final ManagedChannel channel, final int calls) throws Exception {
+        final long[] latencies = new long[calls];
+        final Semaphore permits = new Semaphore(CONCURRENCY);
+        final CountDownLatch done = new CountDownLatch(calls);
+        final AtomicInteger index = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final StringValue request = StringValue.of("ping");
+        for (int i = 0; i < calls && failure.get() == null; i++) {
+            permits.acquire();
+            final long start = System.nanoTime();
+            Futures.addCallback(
+                    ClientCalls.futureUnaryCall(channel.newCall(ECHO_METHOD, CallOptions.DEFAULT), request),
+                    new FutureCallback<StringValue>() {
+
+                        @Override
+                        public void onSuccess(final StringValue result) {
+                            latencies[index.getAndIncrement()] =
+                                    TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+                            permits.release();
+                            done.countDown();
+                        }
+
+                        @Override
+                        public void onFailure(final Throwable t) {
+                            failure.compareAndSet(null, t);
+                            permits.release();
+                            done.countDown();
+                        }
+
+                    }, MoreExecutors.directExecutor());
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("Call failed", failure.get());
+        }
+        if (!done.await(60, TimeUnit.SECONDS)) {
+            throw new AssertionError("Calls did not complete in time");
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("Call failed", failure.get());
+        }
+        return latencies;
+    }
+
+    private static long percentile(final long[] sorted, final double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.unit.DataSize;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.BytesValue;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.interceptor.ZeroCopyClientInterceptor;
+import net.devh.boot.grpc.common.marshaller.ZeroCopyProtoMarshaller;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.serverfactory.ShadedNettyGrpcServerFactory;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+
+/**
+ * Measures the heap allocations per call of a unary echo call with large payloads, using the default marshaller as the
+ * baseline and the {@link ZeroCopyProtoMarshaller} side by side. The allocations are summed up across all threads of
+ * the JVM, so they include both the client and the server side.
+ *
+ * <p>
+ * Run using: {@code ./gradlew :tests:test --tests '*MarshallingAllocationBenchmark' -Dbenchmark=true}
+ * </p>
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MarshallingAllocationBenchmark {
+
+    private static final int WARMUP_CALLS = 200;
+    private static final int MEASUREMENT_CALLS = 500;
+
+    private static final MethodDescriptor<BytesValue, BytesValue> ECHO_METHOD =
+            MethodDescriptor.<BytesValue, BytesValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("benchmark.Echo", "echo"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(BytesValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(BytesValue.getDefaultInstance()))
+                    .build();
+
+    @ParameterizedTest(name = "{0}MB")
+    @ValueSource(ints = {1, 4, 8})
+    void benchmarkAllocations(final int payloadMegabytes) throws Exception {
+        final long baseline = measureAllocationsPerCall(payloadMegabytes, false);
+        final long zeroCopy = measureAllocationsPerCall(payloadMegabytes, true);
+        log.info("{}MB: {} KB allocated per call by the default marshaller, {} KB by the zero copy marshaller ({}%)",
+                payloadMegabytes, baseline / 1024, zeroCopy / 1024,
+                String.format("%+.1f", 100.0 * (zeroCopy - baseline) / baseline));
+        assertTrue(zeroCopy < baseline, () -> "The zero copy marshaller allocated " + zeroCopy
+                + " bytes per call, the default marshaller only " + baseline);
+    }
+
+    /**
+     * Measures the bytes allocated per echo call using a fresh server and channel.
+     *
+     * @param payloadMegabytes The size of the request and response payloads.
+     * @param zeroCopy Whether the zero copy marshaller should be used on both sides.
+     * @return The number of bytes allocated per call.
+     * @throws Exception If the server fails to start or stop.
+     */
+    private static long measureAllocationsPerCall(final int payloadMegabytes, final boolean zeroCopy)
+            throws Exception {
+        final GrpcServerProperties properties = new GrpcServerProperties();
+        properties.setAddress("127.0.0.1");
+        properties.setPort(0);
+        properties.setMaxInboundMessageSize(DataSize.ofMegabytes(16));
+        properties.setZeroCopyEnabled(zeroCopy);
+
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("benchmark.Echo")
+                .addMethod(ECHO_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    responseObserver.onNext(request);
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final ShadedNettyGrpcServerFactory factory =
+                new ShadedNettyGrpcServerFactory(properties, Collections.emptyList());
+        factory.addService(new GrpcServiceDefinition("echoService", Object.class, service));
+        final Server server = factory.createServer().start();
+        final ManagedChannel managedChannel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort())
+                .usePlaintext()
+                .maxInboundMessageSize(16 * 1024 * 1024)
+                .build();
+        try {
+            final Channel channel = zeroCopy
+                    ? ClientInterceptors.intercept(managedChannel, new ZeroCopyClientInterceptor())
+                    : managedChannel;
+            final BytesValue request = BytesValue.newBuilder()
+                    .setValue(ByteString.copyFrom(new byte[payloadMegabytes * 1024 * 1024]))
+                    .build();
+
+            run(channel, request, WARMUP_CALLS);
+            final long before = allocatedBytes();
+            run(channel, request, MEASUREMENT_CALLS);
+            return (allocatedBytes() - before) / MEASUREMENT_CALLS;
+        } finally {
+            managedChannel.shutdownNow();
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static void run(final Channel channel, final BytesValue request, final int calls) {
+        for (int i = 0; i < calls; i++) {
+            ClientCalls.blockingUnaryCall(channel, ECHO_METHOD, CallOptions.DEFAULT, request);
+        }
+    }
+
+    /**
+     * Gets the number of bytes that have been allocated by the live threads of the JVM.
+     *
+     * @return The number of allocated bytes.
+     */
+    private static long allocatedBytes() {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (final long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (allocated > 0) {
+                total += allocated;
+            }
+        }
+        return total;
+    }
+
+}
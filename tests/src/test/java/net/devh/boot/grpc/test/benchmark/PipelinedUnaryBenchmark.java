@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.pipeline.ClientPipeline;
+import net.devh.boot.grpc.client.pipeline.PipelineClientInterceptor;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.pipeline.PipelineService;
+import net.devh.boot.grpc.server.serverfactory.ShadedNettyGrpcServerFactory;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+
+/**
+ * Measures the throughput of tiny unary calls over the loopback interface, once sent as individual calls and once
+ * multiplexed over a single pipeline stream, for different numbers of concurrent calls.
+ *
+ * <p>
+ * Run using: {@code ./gradlew :tests:test --tests '*PipelinedUnaryBenchmark' -Dbenchmark=true}
+ * </p>
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PipelinedUnaryBenchmark {
+
+    private static final int WARMUP_CALLS = 20_000;
+    private static final int MEASUREMENT_CALLS = 100_000;
+
+    private static final MethodDescriptor<StringValue, StringValue> ECHO_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("benchmark.Echo", "echo"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .build();
+
+    static Stream<Arguments> parameters() {
+        final List<Arguments> arguments = new ArrayList<>();
+        for (final int concurrency : new int[] {1, 16, 128}) {
+            arguments.add(Arguments.of(concurrency, false));
+            arguments.add(Arguments.of(concurrency, true));
+        }
+        return arguments.stream();
+    }
+
+    @ParameterizedTest(name = "{0} concurrent calls (pipelined={1})")
+    @MethodSource("parameters")
+    void benchmarkThroughput(final int concurrency, final boolean pipelined) throws Exception {
+        final GrpcServerProperties properties = new GrpcServerProperties();
+        properties.setAddress("127.0.0.1");
+        properties.setPort(0);
+
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("benchmark.Echo")
+                .addMethod(ECHO_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    responseObserver.onNext(request);
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final List<GrpcServiceDefinition> services =
+                Collections.singletonList(new GrpcServiceDefinition("echoService", Object.class, service));
+        final PipelineService pipelineService = new PipelineService(() -> services, null, 1000);
+        final ShadedNettyGrpcServerFactory factory =
+                new ShadedNettyGrpcServerFactory(properties, Collections.emptyList());
+        factory.addService(services.get(0));
+        factory.addService(new GrpcServiceDefinition("pipelineService", PipelineService.class,
+                pipelineService.bindService()));
+        final Server server = factory.createServer().start();
+        final ManagedChannel managedChannel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort())
+                .usePlaintext()
+                .build();
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            final Channel channel;
+            if (pipelined) {
+                final GrpcChannelProperties.Pipeline options = new GrpcChannelProperties.Pipeline();
+                options.setEnabled(true);
+                options.setMethods(Collections.singletonList("benchmark.Echo"));
+                options.setMaxConcurrentCalls(1000);
+                channel = ClientInterceptors.intercept(managedChannel,
+                        new PipelineClientInterceptor(new ClientPipeline("benchmark", options, scheduler)));
+            } else {
+                channel = managedChannel;
+            }
+            final StringValue request = StringValue.of("ping");
+
+            run(channel, request, concurrency, WARMUP_CALLS);
+            final long start = System.nanoTime();
+            run(channel, request, concurrency, MEASUREMENT_CALLS);
+            final long elapsed = System.nanoTime() - start;
+            log.info("{} concurrent calls (pipelined={}): {} calls/s, {} us per call", concurrency, pipelined,
+                    MEASUREMENT_CALLS * TimeUnit.SECONDS.toNanos(1) / elapsed,
+                    TimeUnit.NANOSECONDS.toMicros(elapsed * concurrency / MEASUREMENT_CALLS));
+        } finally {
+            managedChannel.shutdownNow();
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            pipelineService.close();
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Sends the given number of calls in batches of concurrent calls.
+     *
+     * @param channel The channel to send the calls with.
+     * @param request The request to send.
+     * @param concurrency The number of calls per batch.
+     * @param calls The total number of calls.
+     * @throws Exception If any of the calls failed.
+     */
+    private static void run(final Channel channel, final StringValue request, final int concurrency,
+            final int calls) throws Exception {
+        final List<ListenableFuture<StringValue>> batch = new ArrayList<>(concurrency);
+        for (int sent = 0; sent < calls; sent += concurrency) {
+            batch.clear();
+            for (int i = 0; i < concurrency; i++) {
+                batch.add(ClientCalls.futureUnaryCall(channel.newCall(ECHO_METHOD, CallOptions.DEFAULT), request));
+            }
+            Futures.allAsList(batch).get(10, TimeUnit.SECONDS);
+        }
+    }
+
+}
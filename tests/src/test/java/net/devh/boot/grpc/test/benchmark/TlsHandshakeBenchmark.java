@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.benchmark;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.ClassPathResource;
+
+import com.google.protobuf.Empty;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSsl;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.common.security.SslProvider;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.config.GrpcServerProperties.Security;
+import net.devh.boot.grpc.server.serverfactory.ShadedNettyGrpcServerFactory;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+import net.devh.boot.grpc.test.proto.TestServiceGrpc;
+import net.devh.boot.grpc.test.server.TestServiceImpl;
+
+/**
+ * Measures the number of TLS handshakes per second on loopback for the different server side {@link SslProvider}s with
+ * and without session resumption. Every iteration opens a new connection, performs a single call and closes the
+ * connection again, simulating many short-lived clients.
+ *
+ * <p>
+ * Run using: {@code ./gradlew :tests:test --tests '*TlsHandshakeBenchmark' -Dbenchmark=true}
+ * </p>
+ */
+@Slf4j
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TlsHandshakeBenchmark {
+
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+
+    static Stream<Arguments> parameters() {
+        final List<Arguments> arguments = new ArrayList<>();
+        for (final SslProvider provider : SslProvider.values()) {
+            arguments.add(Arguments.of(provider, false));
+            arguments.add(Arguments.of(provider, true));
+        }
+        return arguments.stream();
+    }
+
+    @ParameterizedTest(name = "{0} (resumption={1})")
+    @MethodSource("parameters")
+    void benchmarkHandshakes(final SslProvider provider, final boolean resumption) throws Exception {
+        assumeTrue(provider == SslProvider.JDK || OpenSsl.isAvailable(), "netty-tcnative is not available");
+
+        final GrpcServerProperties properties = new GrpcServerProperties();
+        properties.setAddress("127.0.0.1");
+        properties.setPort(0);
+        final Security security = properties.getSecurity();
+        security.setEnabled(true);
+        security.setCertificateChain(new ClassPathResource("certificates/server.crt"));
+        security.setPrivateKey(new ClassPathResource("certificates/server.key"));
+        security.setProvider(provider);
+        security.setSessionTicketsEnabled(resumption);
+
+        final ShadedNettyGrpcServerFactory factory =
+                new ShadedNettyGrpcServerFactory(properties, Collections.emptyList());
+        factory.addService(new GrpcServiceDefinition("testService", TestServiceImpl.class,
+                new TestServiceImpl().bindService()));
+        final Server server = factory.createServer().start();
+        try {
+            // The client uses the same implementation family as the server
+            final SslContextBuilder clientContextBuilder = SslContextBuilder.forClient()
+                    .trustManager(new ClassPathResource("certificates/trusted-servers-collection").getInputStream());
+            GrpcSslContexts.configure(clientContextBuilder, provider == SslProvider.JDK
+                    ? io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider.JDK
+                    : io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider.OPENSSL);
+            final SslContext clientContext = clientContextBuilder.build();
+
+            run(WARMUP, server.getPort(), clientContext, resumption);
+            final long handshakes = run(MEASUREMENT, server.getPort(), clientContext, resumption);
+            log.info("{} (resumption={}): {} handshakes/s", provider, resumption,
+                    handshakes / MEASUREMENT.getSeconds());
+        } finally {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private static long run(final Duration duration, final int port, final SslContext clientContext,
+            final boolean resumption) {
+        final long end = System.nanoTime() + duration.toNanos();
+        long count = 0;
+        while (System.nanoTime() < end) {
+            final ManagedChannel channel = NettyChannelBuilder.forAddress("localhost", port)
+                    .sslContext(clientContext)
+                    .build();
+            try {
+                TestServiceGrpc.newBlockingStub(channel).normal(Empty.getDefaultInstance());
+            } finally {
+                channel.shutdownNow();
+            }
+            if (!resumption) {
+                invalidateSessions(clientContext.sessionContext());
+            }
+            count++;
+        }
+        return count;
+    }
+
+    private static void invalidateSessions(final SSLSessionContext sessionContext) {
+        for (final byte[] id : Collections.list(sessionContext.getIds())) {
+            final SSLSession session = sessionContext.getSession(id);
+            if (session != null) {
+                session.invalidate();
+            }
+        }
+    }
+
+}
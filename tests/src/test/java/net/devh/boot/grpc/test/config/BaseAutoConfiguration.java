@@ -22,14 +22,16 @@
 import net.devh.boot.grpc.client.autoconfigure.GrpcClientAutoConfiguration;
 import net.devh.boot.grpc.client.autoconfigure.GrpcClientDefaultRequestTimeoutAutoConfiguration;
 import net.devh.boot.grpc.common.autoconfigure.GrpcCommonCodecAutoConfiguration;
+import net.devh.boot.grpc.common.autoconfigure.GrpcCommonTransportAutoConfiguration;
 import net.devh.boot.grpc.server.autoconfigure.GrpcServerAutoConfiguration;
 import net.devh.boot.grpc.server.autoconfigure.GrpcServerFactoryAutoConfiguration;
 import net.devh.boot.grpc.server.autoconfigure.GrpcServerSecurityAutoConfiguration;
 
 @Configuration
-@ImportAutoConfiguration({GrpcCommonCodecAutoConfiguration.class, GrpcServerAutoConfiguration.class,
-        GrpcServerFactoryAutoConfiguration.class, GrpcServerSecurityAutoConfiguration.class,
-        GrpcClientAutoConfiguration.class, GrpcClientDefaultRequestTimeoutAutoConfiguration.class})
+@ImportAutoConfiguration({GrpcCommonCodecAutoConfiguration.class, GrpcCommonTransportAutoConfiguration.class,
+        GrpcServerAutoConfiguration.class, GrpcServerFactoryAutoConfiguration.class,
+        GrpcServerSecurityAutoConfiguration.class, GrpcClientAutoConfiguration.class,
+        GrpcClientDefaultRequestTimeoutAutoConfiguration.class})
 public class BaseAutoConfiguration {
 
 }
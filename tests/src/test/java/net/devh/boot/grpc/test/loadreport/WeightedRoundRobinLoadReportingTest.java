@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.loadreport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.ServerCalls;
+import io.grpc.xds.orca.OrcaServiceImpl;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.serviceconfig.ServiceConfigs;
+import net.devh.boot.grpc.server.loadreport.LoadReporter;
+import net.devh.boot.grpc.server.loadreport.LoadReportingServerInterceptor;
+import net.devh.boot.grpc.server.loadreport.UtilizationSource;
+
+/**
+ * Tests that the load reported by the {@link LoadReporter} skews the traffic of the {@code weighted_round_robin} policy
+ * towards the less loaded server.
+ */
+class WeightedRoundRobinLoadReportingTest {
+
+    private static final MethodDescriptor<StringValue, StringValue> GET_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Lookup", "Get"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .build();
+
+    private final AtomicInteger busyCalls = new AtomicInteger();
+    private final AtomicInteger idleCalls = new AtomicInteger();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<Server> servers = new ArrayList<>();
+    private final List<LoadReporter> reporters = new ArrayList<>();
+
+    private ManagedChannel channel;
+
+    @AfterEach
+    void afterEach() {
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        for (final Server server : this.servers) {
+            server.shutdownNow();
+        }
+        for (final LoadReporter reporter : this.reporters) {
+            reporter.close();
+        }
+        this.scheduler.shutdownNow();
+    }
+
+    @ParameterizedTest(name = "outOfBand={0}")
+    @ValueSource(booleans = {false, true})
+    void testTrafficSkewsTowardsLessLoadedServer(final boolean outOfBand) throws Exception {
+        final Server busy = startServer(this.busyCalls, 0.8);
+        final Server idle = startServer(this.idleCalls, 0.2);
+
+        final GrpcChannelProperties properties = new GrpcChannelProperties();
+        properties.setDefaultLoadBalancingPolicy("weighted_round_robin");
+        properties.getWeightedRoundRobin().setEnableOobLoadReport(outOfBand);
+        properties.getWeightedRoundRobin().setOobReportingPeriod(Duration.ofMillis(50));
+        properties.getWeightedRoundRobin().setBlackoutPeriod(Duration.ZERO);
+        properties.getWeightedRoundRobin().setWeightUpdatePeriod(Duration.ofMillis(100));
+        this.channel = NettyChannelBuilder
+                .forTarget("static://127.0.0.1:" + busy.getPort() + ",127.0.0.1:" + idle.getPort())
+                .defaultLoadBalancingPolicy(properties.getDefaultLoadBalancingPolicy())
+                .defaultServiceConfig(ServiceConfigs.fromProperties(properties))
+                .usePlaintext()
+                .build();
+
+        // Wait until both servers reported their load and the weights have been updated
+        call(200);
+        Thread.sleep(500);
+        this.busyCalls.set(0);
+        this.idleCalls.set(0);
+
+        call(400);
+        assertEquals(400, this.busyCalls.get() + this.idleCalls.get());
+        // round_robin would have sent the same number of calls to both servers
+        assertTrue(this.idleCalls.get() > 2 * this.busyCalls.get(),
+                "busy=" + this.busyCalls.get() + ", idle=" + this.idleCalls.get());
+    }
+
+    private Server startServer(final AtomicInteger counter, final double utilization) throws IOException {
+        final LoadReporter reporter = new LoadReporter(List.of(new FixedUtilizationSource(utilization)), 0,
+                Duration.ofMillis(50));
+        this.reporters.add(reporter);
+        final ServerServiceDefinition service = ServerServiceDefinition.builder("test.Lookup")
+                .addMethod(GET_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    counter.incrementAndGet();
+                    responseObserver.onNext(request);
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final Server server = NettyServerBuilder.forPort(0)
+                .addService(ServerInterceptors.intercept(service, new LoadReportingServerInterceptor(reporter)))
+                .addService(OrcaServiceImpl.createService(this.scheduler, reporter.getMetricRecorder(), 50,
+                        TimeUnit.MILLISECONDS))
+                .build()
+                .start();
+        this.servers.add(server);
+        return server;
+    }
+
+    private void call(final int count) {
+        for (int i = 0; i < count; i++) {
+            ClientCalls.blockingUnaryCall(this.channel, GET_METHOD, CallOptions.DEFAULT.withDeadlineAfter(5,
+                    TimeUnit.SECONDS), StringValue.of("request"));
+        }
+    }
+
+    /**
+     * Reports a fixed utilization, as if the server was busy with other work.
+     */
+    private static final class FixedUtilizationSource implements UtilizationSource {
+
+        private final double utilization;
+
+        FixedUtilizationSource(final double utilization) {
+            this.utilization = utilization;
+        }
+
+        @Override
+        public String getName() {
+            return "fixed";
+        }
+
+        @Override
+        public double getUtilization() {
+            return this.utilization;
+        }
+
+    }
+
+}
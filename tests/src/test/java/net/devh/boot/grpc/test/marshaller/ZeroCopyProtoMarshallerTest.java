@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.marshaller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.common.base.Strings;
+import com.google.protobuf.Empty;
+
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.Marshaller;
+import io.grpc.Server;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.internal.CompositeReadableBuffer;
+import io.grpc.internal.ReadableBuffers;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import net.devh.boot.grpc.client.interceptor.ZeroCopyClientInterceptor;
+import net.devh.boot.grpc.common.marshaller.ZeroCopyProtoMarshaller;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.serverfactory.ShadedNettyGrpcServerFactory;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+import net.devh.boot.grpc.test.proto.SomeType;
+import net.devh.boot.grpc.test.proto.TestServiceGrpc;
+import net.devh.boot.grpc.test.server.TestServiceImpl;
+
+/**
+ * Tests for {@link ZeroCopyProtoMarshaller} and {@link ZeroCopyClientInterceptor}.
+ */
+class ZeroCopyProtoMarshallerTest {
+
+    private static final SomeType MESSAGE = SomeType.newBuilder().setVersion(Strings.repeat("payload", 10000)).build();
+
+    private final Marshaller<SomeType> marshaller =
+            ZeroCopyProtoMarshaller.wrap(TestServiceGrpc.getNormalMethod().getResponseMarshaller());
+
+    @Test
+    void testParsesFromBuffer() {
+        assertThat(this.marshaller).isInstanceOf(ZeroCopyProtoMarshaller.class);
+        final InputStream stream =
+                ReadableBuffers.openStream(ReadableBuffers.wrap(ByteBuffer.wrap(MESSAGE.toByteArray())), true);
+
+        assertEquals(MESSAGE, this.marshaller.parse(stream));
+    }
+
+    @Test
+    void testParsesFromCompositeBuffer() {
+        final byte[] bytes = MESSAGE.toByteArray();
+        final CompositeReadableBuffer buffer = new CompositeReadableBuffer();
+        final int chunk = bytes.length / 3;
+        buffer.addBuffer(ReadableBuffers.wrap(ByteBuffer.wrap(bytes, 0, chunk).slice()));
+        buffer.addBuffer(ReadableBuffers.wrap(ByteBuffer.wrap(bytes, chunk, chunk).slice()));
+        buffer.addBuffer(ReadableBuffers.wrap(ByteBuffer.wrap(bytes, 2 * chunk, bytes.length - 2 * chunk).slice()));
+
+        assertEquals(MESSAGE, this.marshaller.parse(ReadableBuffers.openStream(buffer, true)));
+    }
+
+    @Test
+    void testFallsBackForOtherStreams() {
+        assertEquals(MESSAGE, this.marshaller.parse(new ByteArrayInputStream(MESSAGE.toByteArray())));
+    }
+
+    @Test
+    void testWrapsServiceDefinition() {
+        final ServerServiceDefinition original = new TestServiceImpl().bindService();
+        final ServerServiceDefinition wrapped = ZeroCopyProtoMarshaller.wrap(original);
+
+        assertSame(original.getServiceDescriptor().getSchemaDescriptor(),
+                wrapped.getServiceDescriptor().getSchemaDescriptor());
+        assertEquals(original.getMethods().size(), wrapped.getMethods().size());
+        for (final ServerMethodDefinition<?, ?> method : wrapped.getMethods()) {
+            final MethodDescriptor<?, ?> descriptor = method.getMethodDescriptor();
+            assertThat(descriptor.getRequestMarshaller()).isInstanceOf(ZeroCopyProtoMarshaller.class);
+            assertThat(descriptor.getResponseMarshaller()).isInstanceOf(ZeroCopyProtoMarshaller.class);
+        }
+    }
+
+    @Test
+    void testRoundTrip() throws Exception {
+        final GrpcServerProperties properties = new GrpcServerProperties();
+        properties.setAddress("127.0.0.1");
+        properties.setPort(0);
+        properties.setZeroCopyEnabled(true);
+        final ShadedNettyGrpcServerFactory factory =
+                new ShadedNettyGrpcServerFactory(properties, Collections.emptyList());
+        factory.addService(new GrpcServiceDefinition("testService", TestServiceImpl.class,
+                new TestServiceImpl().bindService()));
+        final Server server = factory.createServer().start();
+        final ManagedChannel channel = NettyChannelBuilder.forAddress("127.0.0.1", server.getPort())
+                .usePlaintext()
+                .build();
+        try {
+            final TestServiceGrpc.TestServiceBlockingStub stub = TestServiceGrpc.newBlockingStub(
+                    ClientInterceptors.intercept(channel, new ZeroCopyClientInterceptor()));
+            assertThat(stub.normal(Empty.getDefaultInstance()).getVersion()).isNotEmpty();
+        } finally {
+            channel.shutdownNow();
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+}
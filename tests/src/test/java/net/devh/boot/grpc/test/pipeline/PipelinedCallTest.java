@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.pipeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.protobuf.StringValue;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptors;
+import io.grpc.Context;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.MethodDescriptor.MethodType;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.ServerServiceDefinition;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.ProtoUtils;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.ServerCalls;
+import io.grpc.stub.StreamObserver;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.pipeline.ClientPipeline;
+import net.devh.boot.grpc.client.pipeline.PipelineClientInterceptor;
+import net.devh.boot.grpc.common.pipeline.PipelineFrame;
+import net.devh.boot.grpc.common.pipeline.PipelineProtocol;
+import net.devh.boot.grpc.server.pipeline.PipelineService;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+import net.devh.boot.grpc.test.util.AwaitableStreamObserver;
+
+/**
+ * Tests for the {@link PipelineService} and the {@link PipelineClientInterceptor}.
+ */
+class PipelinedCallTest {
+
+    private static final MethodDescriptor<StringValue, StringValue> GET_METHOD =
+            MethodDescriptor.<StringValue, StringValue>newBuilder()
+                    .setType(MethodType.UNARY)
+                    .setFullMethodName(MethodDescriptor.generateFullMethodName("test.Lookup", "Get"))
+                    .setRequestMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .setResponseMarshaller(ProtoUtils.marshaller(StringValue.getDefaultInstance()))
+                    .build();
+
+    private static final Metadata.Key<String> TENANT_KEY =
+            Metadata.Key.of("x-tenant", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final String SLOW = "slow";
+
+    private final AtomicInteger serverCalls = new AtomicInteger();
+    private final AtomicBoolean saturated = new AtomicBoolean();
+    private final List<Iterable<String>> tenants = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, AtomicInteger> streams = new ConcurrentHashMap<>();
+    private final CountDownLatch cancelled = new CountDownLatch(1);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService serverExecutor = Executors.newCachedThreadPool();
+
+    private Server server;
+    private ManagedChannel channel;
+    private PipelineService pipelineService;
+    private int serverMaxConcurrentCalls = 10;
+    private Duration retryUnsupportedAfter;
+
+    @AfterEach
+    void afterEach() {
+        if (this.channel != null) {
+            this.channel.shutdownNow();
+        }
+        if (this.server != null) {
+            this.server.shutdownNow();
+        }
+        if (this.pipelineService != null) {
+            this.pipelineService.close();
+        }
+        this.scheduler.shutdownNow();
+        this.serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void testCallsShareOnePipelineStream() throws Exception {
+        final ClientPipeline pipeline = newPipeline(2);
+        final Channel pipelinedChannel = start(pipeline, true);
+
+        final List<ListenableFuture<StringValue>> calls = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            calls.add(call(pipelinedChannel, "request-" + i, CallOptions.DEFAULT));
+        }
+        for (int i = 0; i < calls.size(); i++) {
+            assertEquals("request-" + i, calls.get(i).get(5, TimeUnit.SECONDS).getValue());
+        }
+
+        assertEquals(20, this.serverCalls.get());
+        assertEquals(1, streamCount(PipelineProtocol.EXCHANGE_METHOD.getFullMethodName()));
+        assertEquals(0, streamCount(GET_METHOD.getFullMethodName()));
+        assertTrue(pipeline.isSupported());
+        assertEquals(0, pipeline.getInFlightCount());
+    }
+
+    @Test
+    void testDeadlineIsKeptPerCall() throws Exception {
+        final ClientPipeline pipeline = newPipeline(10);
+        final Channel pipelinedChannel = start(pipeline, true);
+
+        final ListenableFuture<StringValue> slow = call(pipelinedChannel, SLOW,
+                CallOptions.DEFAULT.withDeadlineAfter(100, TimeUnit.MILLISECONDS));
+        final ListenableFuture<StringValue> fast = call(pipelinedChannel, "fast", CallOptions.DEFAULT);
+
+        final ExecutionException error = assertThrows(ExecutionException.class, () -> slow.get(5, TimeUnit.SECONDS));
+        assertEquals(Status.Code.DEADLINE_EXCEEDED, Status.fromThrowable(error.getCause()).getCode());
+        assertEquals("fast", fast.get(5, TimeUnit.SECONDS).getValue());
+        // The server side deadline of the logical call expired as well
+        assertTrue(this.cancelled.await(5, TimeUnit.SECONDS));
+        assertEquals(1, streamCount(PipelineProtocol.EXCHANGE_METHOD.getFullMethodName()));
+    }
+
+    @Test
+    void testCancellationReachesServer() throws Exception {
+        final ClientPipeline pipeline = newPipeline(10);
+        final Channel pipelinedChannel = start(pipeline, true);
+
+        final ListenableFuture<StringValue> slow = call(pipelinedChannel, SLOW, CallOptions.DEFAULT);
+        awaitServerCalls(1);
+        slow.cancel(true);
+
+        assertTrue(this.cancelled.await(5, TimeUnit.SECONDS));
+        assertEquals("after", call(pipelinedChannel, "after", CallOptions.DEFAULT)
+                .get(5, TimeUnit.SECONDS).getValue());
+        assertEquals(1, streamCount(PipelineProtocol.EXCHANGE_METHOD.getFullMethodName()));
+    }
+
+    @Test
+    void testCancellationIsReadWhileServerIsSaturated() throws Exception {
+        this.serverMaxConcurrentCalls = 1;
+        final ClientPipeline pipeline = newPipeline(10);
+        final Channel pipelinedChannel = start(pipeline, true);
+
+        final ListenableFuture<StringValue> slow = call(pipelinedChannel, SLOW, CallOptions.DEFAULT);
+        awaitServerCalls(1);
+        // Queued on the server until the slow call is done
+        final ListenableFuture<StringValue> queued = call(pipelinedChannel, "queued", CallOptions.DEFAULT);
+        slow.cancel(true);
+
+        assertTrue(this.cancelled.await(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS).getValue());
+        assertEquals(2, this.serverCalls.get());
+        assertEquals(1, streamCount(PipelineProtocol.EXCHANGE_METHOD.getFullMethodName()));
+    }
+
+    @Test
+    void testSaturatedExecutorRejectsOnlyTheLogicalCall() throws Exception {
+        final ClientPipeline pipeline = newPipeline(10);
+        final Channel pipelinedChannel = start(pipeline, true);
+
+        this.saturated.set(true);
+        final ExecutionException error = assertThrows(ExecutionException.class,
+                () -> call(pipelinedChannel, "rejected", CallOptions.DEFAULT).get(5, TimeUnit.SECONDS));
+        assertEquals(Status.Code.RESOURCE_EXHAUSTED, Status.fromThrowable(error.getCause()).getCode());
+
+        this.saturated.set(false);
+        assertEquals("after", call(pipelinedChannel, "after", CallOptions.DEFAULT)
+                .get(5, TimeUnit.SECONDS).getValue());
+        assertEquals(1, streamCount(PipelineProtocol.EXCHANGE_METHOD.getFullMethodName()));
+    }
+
+    @Test
+    void testFrameHeadersReplaceStreamHeaders() throws Exception {
+        start(newPipeline(10), true);
+
+        final Metadata streamHeaders = new Metadata();
+        streamHeaders.put(TENANT_KEY, "stream");
+        final Metadata frameHeaders = new Metadata();
+        frameHeaders.put(TENANT_KEY, "frame");
+
+        final AwaitableStreamObserver<PipelineFrame> responses = new AwaitableStreamObserver<>();
+        final StreamObserver<PipelineFrame> requests = openExchange(streamHeaders, responses);
+        requests.onNext(requestFrame(1, frameHeaders, "fast"));
+        requests.onCompleted();
+
+        assertEquals(2, responses.getAll().size());
+        assertEquals(1, this.tenants.size());
+        assertEquals(Collections.singletonList("frame"), toList(this.tenants.get(0)));
+    }
+
+    @Test
+    void testDuplicateCallIdFailsStream() throws Exception {
+        start(newPipeline(10), true);
+
+        final AwaitableStreamObserver<PipelineFrame> responses = new AwaitableStreamObserver<>();
+        final StreamObserver<PipelineFrame> requests = openExchange(new Metadata(), responses);
+        requests.onNext(requestFrame(1, new Metadata(), SLOW));
+        requests.onNext(requestFrame(1, new Metadata(), SLOW));
+
+        assertEquals(Status.Code.INVALID_ARGUMENT, Status.fromThrowable(responses.getError()).getCode());
+        // The first call does not linger
+        assertTrue(this.cancelled.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFallbackWithoutPipelineService() throws Exception {
+        final ClientPipeline pipeline = newPipeline(10);
+        final Channel pipelinedChannel = start(pipeline, false);
+
+        assertEquals("first", call(pipelinedChannel, "first", CallOptions.DEFAULT).get(5, TimeUnit.SECONDS).getValue());
+        assertEquals("second", call(pipelinedChannel, "second", CallOptions.DEFAULT)
+                .get(5, TimeUnit.SECONDS).getValue());
+
+        assertFalse(pipeline.isSupported());
+        assertEquals(2, streamCount(GET_METHOD.getFullMethodName()));
+    }
+
+    @Test
+    void testPipelineIsRetriedAfterFallback() throws Exception {
+        this.retryUnsupportedAfter = Duration.ofMillis(100);
+        final ClientPipeline pipeline = newPipeline(10);
+        final Channel pipelinedChannel = start(pipeline, false);
+
+        assertEquals("first", call(pipelinedChannel, "first", CallOptions.DEFAULT).get(5, TimeUnit.SECONDS).getValue());
+        assertFalse(pipeline.isSupported());
+
+        Thread.sleep(200);
+        assertTrue(pipeline.isSupported());
+        assertEquals("second", call(pipelinedChannel, "second", CallOptions.DEFAULT)
+                .get(5, TimeUnit.SECONDS).getValue());
+        // The server has been asked again and rejected the pipeline again
+        assertFalse(pipeline.isSupported());
+        assertEquals(2, streamCount(GET_METHOD.getFullMethodName()));
+    }
+
+    private ClientPipeline newPipeline(final int maxConcurrentCalls) {
+        final GrpcChannelProperties.Pipeline options = new GrpcChannelProperties.Pipeline();
+        options.setEnabled(true);
+        options.setMethods(Collections.singletonList("test.Lookup"));
+        options.setMaxConcurrentCalls(maxConcurrentCalls);
+        options.setRetryUnsupportedAfter(this.retryUnsupportedAfter);
+        return new ClientPipeline("test", options, this.scheduler);
+    }
+
+    private Channel start(final ClientPipeline pipeline, final boolean withPipelineService) throws IOException {
+        final ServerServiceDefinition rawService = ServerServiceDefinition.builder("test.Lookup")
+                .addMethod(GET_METHOD, ServerCalls.asyncUnaryCall((request, responseObserver) -> {
+                    this.serverCalls.incrementAndGet();
+                    if (SLOW.equals(request.getValue())) {
+                        Context.current().addListener(context -> this.cancelled.countDown(),
+                                MoreExecutors.directExecutor());
+                        return;
+                    }
+                    responseObserver.onNext(request);
+                    responseObserver.onCompleted();
+                }))
+                .build();
+        final ServerServiceDefinition service = ServerInterceptors.intercept(rawService, new TenantRecorder());
+        final String name = InProcessServerBuilder.generateName();
+        final InProcessServerBuilder builder = InProcessServerBuilder.forName(name)
+                .executor(this.serverExecutor)
+                .addService(ServerInterceptors.intercept(service, new StreamCounter()));
+        if (withPipelineService) {
+            final List<GrpcServiceDefinition> services =
+                    Collections.singletonList(new GrpcServiceDefinition("lookup", Object.class, service));
+            final Executor pipelineExecutor = task -> {
+                if (this.saturated.get()) {
+                    throw new RejectedExecutionException("Saturated");
+                }
+                this.serverExecutor.execute(task);
+            };
+            this.pipelineService = new PipelineService(() -> services, pipelineExecutor,
+                    this.serverMaxConcurrentCalls);
+            builder.addService(ServerInterceptors.intercept(this.pipelineService, new StreamCounter()));
+        }
+        this.server = builder.build().start();
+        this.channel = InProcessChannelBuilder.forName(name).build();
+        return ClientInterceptors.intercept(this.channel, new PipelineClientInterceptor(pipeline));
+    }
+
+    private int streamCount(final String fullMethodName) {
+        final AtomicInteger count = this.streams.get(fullMethodName);
+        return count == null ? 0 : count.get();
+    }
+
+    private void awaitServerCalls(final int expected) throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (this.serverCalls.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, this.serverCalls.get());
+    }
+
+    private StreamObserver<PipelineFrame> openExchange(final Metadata headers,
+            final StreamObserver<PipelineFrame> responses) {
+        final Channel exchangeChannel =
+                ClientInterceptors.intercept(this.channel, MetadataUtils.newAttachHeadersInterceptor(headers));
+        return ClientCalls.asyncBidiStreamingCall(
+                exchangeChannel.newCall(PipelineProtocol.EXCHANGE_METHOD, CallOptions.DEFAULT), responses);
+    }
+
+    private static PipelineFrame requestFrame(final long callId, final Metadata headers, final String request) {
+        return PipelineFrame.request(callId, GET_METHOD.getFullMethodName(), 0, headers,
+                PipelineProtocol.toBytes(GET_METHOD.getRequestMarshaller(), StringValue.of(request)));
+    }
+
+    private static List<String> toList(final Iterable<String> values) {
+        final List<String> list = new ArrayList<>();
+        if (values != null) {
+            values.forEach(list::add);
+        }
+        return list;
+    }
+
+    private static ListenableFuture<StringValue> call(final Channel channel, final String request,
+            final CallOptions callOptions) {
+        return ClientCalls.futureUnaryCall(channel.newCall(GET_METHOD, callOptions), StringValue.of(request));
+    }
+
+    /**
+     * Records the tenant headers of every call, as seen by the service.
+     */
+    private final class TenantRecorder implements ServerInterceptor {
+
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                final Metadata headers, final ServerCallHandler<ReqT, RespT> next) {
+            PipelinedCallTest.this.tenants.add(headers.getAll(TENANT_KEY));
+            return next.startCall(call, headers);
+        }
+
+    }
+
+    /**
+     * Counts the streams per method, as seen by the transport.
+     */
+    private final class StreamCounter implements ServerInterceptor {
+
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(final ServerCall<ReqT, RespT> call,
+                final Metadata headers, final ServerCallHandler<ReqT, RespT> next) {
+            PipelinedCallTest.this.streams
+                    .computeIfAbsent(call.getMethodDescriptor().getFullMethodName(), key -> new AtomicInteger())
+                    .incrementAndGet();
+            return next.startCall(call, headers);
+        }
+
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+
+import net.devh.boot.grpc.common.security.CertificateReloader;
+import net.devh.boot.grpc.common.security.CertificateReloaderRegistry;
+import net.devh.boot.grpc.common.security.KeyStoreUtils;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.config.GrpcServerProperties.Security;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerLifecycle;
+import net.devh.boot.grpc.server.serverfactory.ShadedNettyGrpcServerFactory;
+
+/**
+ * Tests for {@link CertificateReloader}.
+ */
+class CertificateReloaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testReload() throws IOException, GeneralSecurityException {
+        final Path certificateChain = copy("server.crt", "tls.crt");
+        final Path privateKey = copy("server.key", "tls.key");
+
+        try (CertificateReloader reloader = newReloader(certificateChain, privateKey)) {
+            final X509Certificate initial = currentCertificate(reloader);
+            assertNotNull(initial);
+            assertNotNull(reloader.getExpiry());
+            assertNull(reloader.getTrustManager());
+
+            copy("client1.crt", "tls.crt");
+            copy("client1.key", "tls.key");
+            reloader.reload();
+
+            final X509Certificate reloaded = currentCertificate(reloader);
+            assertNotEquals(initial, reloaded);
+            assertEquals(reloaded.getNotAfter().toInstant(), reloader.getExpiry());
+            assertEquals(1, reloader.getReloadCount());
+        }
+    }
+
+    @Test
+    void testReloadKeepsMaterialOnFailure() throws IOException, GeneralSecurityException {
+        final Path certificateChain = copy("server.crt", "tls.crt");
+        final Path privateKey = copy("server.key", "tls.key");
+
+        try (CertificateReloader reloader = newReloader(certificateChain, privateKey)) {
+            final X509Certificate initial = currentCertificate(reloader);
+
+            Files.write(privateKey, "invalid".getBytes(StandardCharsets.UTF_8));
+            assertThrows(Exception.class, reloader::reload);
+
+            assertEquals(initial, currentCertificate(reloader));
+            assertEquals(0, reloader.getReloadCount());
+        }
+    }
+
+    @Test
+    void testWatch() throws Exception {
+        final Path certificateChain = copy("server.crt", "tls.crt");
+        final Path privateKey = copy("server.key", "tls.key");
+
+        try (CertificateReloader reloader = newReloader(certificateChain, privateKey)) {
+            final X509Certificate initial = currentCertificate(reloader);
+            reloader.watch(Arrays.asList(certificateChain, privateKey), Duration.ofMillis(50));
+
+            copy("client1.crt", "tls.crt");
+            copy("client1.key", "tls.key");
+
+            final long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+            while (reloader.getReloadCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(reloader.getReloadCount() > 0, "Certificate was not reloaded");
+            assertNotEquals(initial, currentCertificate(reloader));
+        }
+    }
+
+    @Test
+    void testRegistrySharesReloaders() throws IOException, GeneralSecurityException {
+        final Path certificateChain = copy("server.crt", "tls.crt");
+        final Path privateKey = copy("server.key", "tls.key");
+        final CertificateReloader reloader = newReloader(certificateChain, privateKey);
+
+        try (CertificateReloaderRegistry registry = new CertificateReloaderRegistry()) {
+            final Object key = Arrays.asList(certificateChain, privateKey);
+            assertSame(reloader, registry.acquire(key, () -> reloader));
+            assertSame(reloader, registry.acquire(key, () -> {
+                throw new AssertionError("Reloader must be shared");
+            }));
+            assertEquals(1, registry.getReloaders().size());
+
+            registry.release(reloader);
+            assertEquals(1, registry.getReloaders().size());
+            registry.release(reloader);
+            assertTrue(registry.getReloaders().isEmpty());
+        }
+    }
+
+    @Test
+    void testServersShareAndReleaseReloader() throws IOException {
+        final Path certificateChain = copy("server.crt", "tls.crt");
+        final Path privateKey = copy("server.key", "tls.key");
+
+        try (CertificateReloaderRegistry registry = new CertificateReloaderRegistry()) {
+            final ShadedNettyGrpcServerFactory main = newReloadingServerFactory(certificateChain, privateKey, registry);
+            final ShadedNettyGrpcServerFactory listener =
+                    newReloadingServerFactory(certificateChain, privateKey, registry);
+            final GrpcServerLifecycle lifecycle = new GrpcServerLifecycle(Arrays.asList(main, listener),
+                    Duration.ZERO, mock(ApplicationEventPublisher.class));
+
+            lifecycle.start();
+            try {
+                assertEquals(1, registry.getReloaders().size());
+            } finally {
+                lifecycle.stop();
+            }
+            assertTrue(registry.getReloaders().isEmpty());
+        }
+    }
+
+    private static ShadedNettyGrpcServerFactory newReloadingServerFactory(final Path certificateChain,
+            final Path privateKey, final CertificateReloaderRegistry registry) {
+        final GrpcServerProperties properties = new GrpcServerProperties();
+        properties.setAddress("127.0.0.1");
+        properties.setPort(0);
+        final Security security = properties.getSecurity();
+        security.setEnabled(true);
+        security.setCertificateChain(new FileSystemResource(certificateChain));
+        security.setPrivateKey(new FileSystemResource(privateKey));
+        security.setReloadEnabled(true);
+        final ShadedNettyGrpcServerFactory factory =
+                new ShadedNettyGrpcServerFactory(properties, Collections.emptyList());
+        factory.setCertificateReloaderRegistry(registry);
+        return factory;
+    }
+
+    private CertificateReloader newReloader(final Path certificateChain, final Path privateKey)
+            throws IOException, GeneralSecurityException {
+        return new CertificateReloader("test",
+                () -> KeyStoreUtils.loadPemKeyStore(new FileSystemResource(certificateChain),
+                        new FileSystemResource(privateKey), null),
+                null, null);
+    }
+
+    private static X509Certificate currentCertificate(final CertificateReloader reloader) {
+        return reloader.getKeyManager().getCertificateChain(KeyStoreUtils.PEM_KEY_ALIAS)[0];
+    }
+
+    private Path copy(final String source, final String target) throws IOException {
+        final Path path = this.tempDir.resolve(target);
+        Files.copy(new ClassPathResource("certificates/" + source).getInputStream(), path,
+                StandardCopyOption.REPLACE_EXISTING);
+        return path;
+    }
+
+}
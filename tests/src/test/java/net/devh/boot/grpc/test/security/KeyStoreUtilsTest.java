@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package net.devh.boot.grpc.test.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyStore;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.core.io.ClassPathResource;
+
+import net.devh.boot.grpc.common.security.KeyStoreUtils;
+
+/**
+ * Tests that {@link KeyStoreUtils} loads the common PEM encoded private key formats.
+ */
+class KeyStoreUtilsTest {
+
+    @ParameterizedTest(name = "{1}")
+    @CsvSource({
+            "server.crt, server.key, , RSA",
+            "server.crt, server-pkcs1.key, , RSA",
+            "server.crt, server-encrypted.key, secret, RSA",
+            "server-ec.crt, server-ec-sec1.key, , EC"})
+    void testLoadPemKeyStore(final String certificateChain, final String privateKey, final String password,
+            final String algorithm) throws Exception {
+        final KeyStore keyStore = KeyStoreUtils.loadPemKeyStore(certificate(certificateChain), certificate(privateKey),
+                password);
+
+        assertTrue(keyStore.isKeyEntry(KeyStoreUtils.PEM_KEY_ALIAS));
+        final Key key = keyStore.getKey(KeyStoreUtils.PEM_KEY_ALIAS, password == null ? new char[0]
+                : password.toCharArray());
+        assertEquals(algorithm, key.getAlgorithm());
+        assertEquals(1, keyStore.getCertificateChain(KeyStoreUtils.PEM_KEY_ALIAS).length);
+    }
+
+    @Test
+    void testLoadPemKeyStoreWithoutKey() {
+        assertThrows(GeneralSecurityException.class, () -> KeyStoreUtils
+                .loadPemKeyStore(certificate("server.crt"), certificate("server.crt"), null));
+    }
+
+    @Test
+    void testLoadPemTrustStore() throws Exception {
+        final KeyStore trustStore = KeyStoreUtils.loadPemTrustStore(certificate("trusted-clients-collection"));
+        assertEquals(2, trustStore.size());
+    }
+
+    private static ClassPathResource certificate(final String name) {
+        return new ClassPathResource("certificates/" + name);
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package net.devh.boot.grpc.test.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.ClassPathResource;
+
+import io.grpc.netty.shaded.io.netty.handler.ssl.JdkSslContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSsl;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSslContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSslSessionContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.OpenSslSessionTicketKey;
+import io.grpc.netty.shaded.io.netty.handler.ssl.ReferenceCountedOpenSslContext;
+import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
+import io.grpc.netty.shaded.io.netty.util.ReferenceCounted;
+import net.devh.boot.grpc.client.channelfactory.ShadedNettyChannelFactory;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
+import net.devh.boot.grpc.client.config.NegotiationType;
+import net.devh.boot.grpc.client.interceptor.GlobalClientInterceptorRegistry;
+import net.devh.boot.grpc.common.security.SslProvider;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.config.GrpcServerProperties.Security;
+import net.devh.boot.grpc.server.serverfactory.GrpcServerLifecycle;
+import net.devh.boot.grpc.server.serverfactory.ShadedNettyGrpcServerFactory;
+
+/**
+ * Tests that the (shaded) netty server and channel factories select the configured ssl provider, configure the session
+ * resumption and release reference counted ssl contexts.
+ */
+class SslContextConfigurationTest {
+
+    @Test
+    void testJdkProvider() {
+        final SslContext sslContext = newServerFactory(SslProvider.JDK).newSslContext();
+        assertInstanceOf(JdkSslContext.class, sslContext);
+        assertFalse(sslContext instanceof ReferenceCounted);
+    }
+
+    @Test
+    void testOpenSslProvider() {
+        assumeTrue(OpenSsl.isAvailable(), "Requires netty-tcnative");
+        final SslContext sslContext = newServerFactory(SslProvider.OPENSSL).newSslContext();
+        // Released by a finalizer
+        assertInstanceOf(OpenSslContext.class, sslContext);
+    }
+
+    @Test
+    void testReferenceCountedOpenSslProvider() {
+        assumeTrue(OpenSsl.isAvailable(), "Requires netty-tcnative");
+        final SslContext sslContext = newServerFactory(SslProvider.OPENSSL_REFCNT).newSslContext();
+        final ReferenceCountedOpenSslContext refCntContext =
+                assertInstanceOf(ReferenceCountedOpenSslContext.class, sslContext);
+        assertFalse(sslContext instanceof OpenSslContext);
+        assertEquals(1, refCntContext.refCnt());
+        refCntContext.release();
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = SslProvider.class, names = {"JDK", "OPENSSL"})
+    void testSessionCache(final SslProvider provider) {
+        assumeTrue(provider == SslProvider.JDK || OpenSsl.isAvailable(), "Requires netty-tcnative");
+        final TestServerFactory factory = newServerFactory(provider);
+        factory.security().setSessionCacheSize(123);
+        factory.security().setSessionTimeout(Duration.ofMinutes(5));
+
+        final SslContext sslContext = factory.newSslContext();
+        assertEquals(123, sslContext.sessionCacheSize());
+        assertEquals(300, sslContext.sessionTimeout());
+    }
+
+    @Test
+    void testSessionTickets() {
+        final Security security = new Security();
+        security.setSessionTicketsEnabled(true);
+        final OpenSslSessionContext sessionContext = mock(OpenSslSessionContext.class);
+        final SslContext sslContext = mock(SslContext.class);
+        when(sslContext.sessionContext()).thenReturn(sessionContext);
+
+        TestServerFactory.configureTickets(security, sslContext);
+        verify(sessionContext).setTicketKeys(any(OpenSslSessionTicketKey.class));
+    }
+
+    @Test
+    void testSessionTicketsDisabled() {
+        final SslContext sslContext = mock(SslContext.class);
+        TestServerFactory.configureTickets(new Security(), sslContext);
+        verifyNoInteractions(sslContext);
+    }
+
+    @Test
+    void testServerReleasesReferenceCountedContext() {
+        assumeTrue(OpenSsl.isAvailable(), "Requires netty-tcnative");
+        final TestServerFactory factory = newServerFactory(SslProvider.OPENSSL_REFCNT);
+        final GrpcServerLifecycle lifecycle =
+                new GrpcServerLifecycle(factory, Duration.ZERO, mock(ApplicationEventPublisher.class));
+
+        lifecycle.start();
+        final ReferenceCounted sslContext = (ReferenceCounted) factory.lastSslContext;
+        assertNotNull(sslContext);
+        assertEquals(1, sslContext.refCnt());
+
+        lifecycle.stop();
+        assertEquals(0, sslContext.refCnt());
+    }
+
+    @Test
+    void testChannelFactoryReleasesReferenceCountedContext() {
+        assumeTrue(OpenSsl.isAvailable(), "Requires netty-tcnative");
+        final GrpcChannelsProperties properties = new GrpcChannelsProperties();
+        final GrpcChannelProperties channel = properties.getChannel("test");
+        channel.setAddress("static://127.0.0.1:9");
+        channel.setNegotiationType(NegotiationType.TLS);
+        channel.getSecurity().setTrustCertCollection(new ClassPathResource("certificates/trusted-servers-collection"));
+        channel.getSecurity().setProvider(SslProvider.OPENSSL_REFCNT);
+
+        final TestChannelFactory factory = new TestChannelFactory(properties);
+        ReferenceCounted sslContext;
+        try {
+            factory.createChannel("test");
+            sslContext = (ReferenceCounted) factory.lastSslContext;
+            assertNotNull(sslContext);
+            assertEquals(1, sslContext.refCnt());
+        } finally {
+            factory.close();
+        }
+        assertEquals(0, sslContext.refCnt());
+    }
+
+    private static TestServerFactory newServerFactory(final SslProvider provider) {
+        final GrpcServerProperties properties = new GrpcServerProperties();
+        properties.setAddress("127.0.0.1");
+        properties.setPort(0);
+        final Security security = properties.getSecurity();
+        security.setEnabled(true);
+        security.setCertificateChain(new ClassPathResource("certificates/server.crt"));
+        security.setPrivateKey(new ClassPathResource("certificates/server.key"));
+        security.setProvider(provider);
+        return new TestServerFactory(properties);
+    }
+
+    /**
+     * Exposes and records the ssl contexts of the server factory.
+     */
+    private static final class TestServerFactory extends ShadedNettyGrpcServerFactory {
+
+        private SslContext lastSslContext;
+
+        TestServerFactory(final GrpcServerProperties properties) {
+            super(properties, Collections.emptyList());
+        }
+
+        Security security() {
+            return this.properties.getSecurity();
+        }
+
+        SslContext newSslContext() {
+            return newSslContext(security());
+        }
+
+        @Override
+        protected SslContext newSslContext(final Security security) {
+            this.lastSslContext = super.newSslContext(security);
+            return this.lastSslContext;
+        }
+
+        static void configureTickets(final Security security, final SslContext sslContext) {
+            ShadedNettyGrpcServerFactory.configureSessionTickets(security, sslContext);
+        }
+
+    }
+
+    /**
+     * Records the ssl contexts of the channel factory.
+     */
+    private static final class TestChannelFactory extends ShadedNettyChannelFactory {
+
+        private SslContext lastSslContext;
+
+        TestChannelFactory(final GrpcChannelsProperties properties) {
+            super(properties, mock(GlobalClientInterceptorRegistry.class), Collections.emptyList());
+        }
+
+        @Override
+        protected SslContext newSslContext(final String name, final GrpcChannelProperties.Security security) {
+            this.lastSslContext = super.newSslContext(name, security);
+            return this.lastSslContext;
+        }
+
+    }
+
+}
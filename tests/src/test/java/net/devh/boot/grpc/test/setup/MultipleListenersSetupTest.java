@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.setup;
+
+import static net.devh.boot.grpc.test.proto.TestServiceGrpc.newBlockingStub;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import com.google.protobuf.Empty;
+
+import io.grpc.Channel;
+import lombok.extern.slf4j.Slf4j;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import net.devh.boot.grpc.test.config.BaseAutoConfiguration;
+import net.devh.boot.grpc.test.config.ServiceConfiguration;
+
+/**
+ * Tests whether a server with a secured tcp port and additional plaintext domain socket and in-process listeners
+ * serves the same services on all of them.
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "grpc.server.port=9190",
+        "grpc.server.security.enabled=true",
+        "grpc.server.security.certificateChain=file:src/test/resources/certificates/server.crt",
+        "grpc.server.security.privateKey=file:src/test/resources/certificates/server.key",
+        "grpc.server.listeners.sidecar.address=unix:multi-listener-test",
+        "grpc.server.listeners.local.address=in-process:multi-listener-test",
+        "grpc.client.tcp.address=localhost:9190",
+        "grpc.client.tcp.security.authorityOverride=localhost",
+        "grpc.client.tcp.security.trustCertCollection=file:src/test/resources/certificates/trusted-servers-collection",
+        "grpc.client.unix.address=unix:multi-listener-test",
+        "grpc.client.unix.negotiationType=PLAINTEXT",
+        "grpc.client.inProcess.address=in-process:multi-listener-test"
+})
+@SpringJUnitConfig(classes = {ServiceConfiguration.class, BaseAutoConfiguration.class})
+@DirtiesContext
+@EnabledOnOs(OS.LINUX)
+class MultipleListenersSetupTest {
+
+    private static final Empty EMPTY = Empty.getDefaultInstance();
+
+    @GrpcClient("tcp")
+    private Channel tcpChannel;
+    @GrpcClient("unix")
+    private Channel unixChannel;
+    @GrpcClient("inProcess")
+    private Channel inProcessChannel;
+
+    MultipleListenersSetupTest() {
+        log.info("--- MultipleListenersSetupTest ---");
+    }
+
+    @Test
+    void testAllListenersServeTheSameServices() {
+        assertEquals("1.2.3", newBlockingStub(this.tcpChannel).normal(EMPTY).getVersion());
+        assertEquals("1.2.3", newBlockingStub(this.unixChannel).normal(EMPTY).getVersion());
+        assertEquals("1.2.3", newBlockingStub(this.inProcessChannel).normal(EMPTY).getVersion());
+    }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.devh.boot.grpc.test.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.unit.DataSize;
+
+import com.google.common.base.Strings;
+
+import io.grpc.Channel;
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import io.grpc.stub.StreamObserver;
+import net.devh.boot.grpc.client.channelfactory.ShadedNettyChannelFactory;
+import net.devh.boot.grpc.client.config.GrpcChannelProperties;
+import net.devh.boot.grpc.client.config.GrpcChannelsProperties;
+import net.devh.boot.grpc.client.config.NegotiationType;
+import net.devh.boot.grpc.client.interceptor.GlobalClientInterceptorRegistry;
+import net.devh.boot.grpc.server.config.GrpcServerProperties;
+import net.devh.boot.grpc.server.serverfactory.ShadedNettyGrpcServerFactory;
+import net.devh.boot.grpc.server.service.GrpcServiceDefinition;
+import net.devh.boot.grpc.test.proto.SomeType;
+import net.devh.boot.grpc.test.proto.TestServiceGrpc;
+import net.devh.boot.grpc.test.server.TestServiceImpl;
+import net.devh.boot.grpc.test.util.AwaitableStreamObserver;
+
+/**
+ * Tests that the (shaded) netty server and channel factories apply either the BDP based auto-tuned or the fixed flow
+ * control windows, and that large messages pass through a loopback connection in both modes.
+ */
+class FlowControlWindowTest {
+
+    private static final DataSize INITIAL_WINDOW = DataSize.ofKilobytes(64);
+    private static final int WINDOW_BYTES = (int) INITIAL_WINDOW.toBytes();
+    private static final int MESSAGE_SIZE = 1024 * 1024;
+    private static final int MESSAGE_COUNT = 8;
+    private static final SomeType MESSAGE = SomeType.newBuilder()
+            .setVersion(Strings.repeat("x", MESSAGE_SIZE))
+            .build();
+
+    @Test
+    void testAutoTunedFlowControlWindow() {
+        final NettyServerBuilder serverBuilder = mock(NettyServerBuilder.class, RETURNS_SELF);
+        new TestServerFactory(serverProperties(INITIAL_WINDOW, true)).configureFlowControl(serverBuilder);
+        // Only the initial window, BDP ping based auto-tuning stays enabled
+        verify(serverBuilder).initialFlowControlWindow(WINDOW_BYTES);
+        verify(serverBuilder, never()).flowControlWindow(anyInt());
+
+        final NettyChannelBuilder channelBuilder = mock(NettyChannelBuilder.class, RETURNS_SELF);
+        try (TestChannelFactory channelFactory = new TestChannelFactory(channelProperties(INITIAL_WINDOW, true))) {
+            channelFactory.configureFlowControl(channelBuilder, "test");
+        }
+        verify(channelBuilder).initialFlowControlWindow(WINDOW_BYTES);
+        verify(channelBuilder, never()).flowControlWindow(anyInt());
+    }
+
+    @Test
+    void testFixedFlowControlWindow() {
+        final NettyServerBuilder serverBuilder = mock(NettyServerBuilder.class, RETURNS_SELF);
+        new TestServerFactory(serverProperties(INITIAL_WINDOW, false)).configureFlowControl(serverBuilder);
+        // A fixed window disables the auto-tuning
+        verify(serverBuilder).flowControlWindow(WINDOW_BYTES);
+        verify(serverBuilder, never()).initialFlowControlWindow(anyInt());
+
+        final NettyChannelBuilder channelBuilder = mock(NettyChannelBuilder.class, RETURNS_SELF);
+        try (TestChannelFactory channelFactory = new TestChannelFactory(channelProperties(INITIAL_WINDOW, false))) {
+            channelFactory.configureFlowControl(channelBuilder, "test");
+        }
+        verify(channelBuilder).flowControlWindow(WINDOW_BYTES);
+        verify(channelBuilder, never()).initialFlowControlWindow(anyInt());
+    }
+
+    @Test
+    void testFixedDefaultFlowControlWindow() {
+        final NettyServerBuilder serverBuilder = mock(NettyServerBuilder.class, RETURNS_SELF);
+        new TestServerFactory(serverProperties(null, false)).configureFlowControl(serverBuilder);
+        verify(serverBuilder).flowControlWindow(NettyServerBuilder.DEFAULT_FLOW_CONTROL_WINDOW);
+
+        final NettyChannelBuilder channelBuilder = mock(NettyChannelBuilder.class, RETURNS_SELF);
+        try (TestChannelFactory channelFactory = new TestChannelFactory(channelProperties(null, false))) {
+            channelFactory.configureFlowControl(channelBuilder, "test");
+        }
+        verify(channelBuilder).flowControlWindow(NettyChannelBuilder.DEFAULT_FLOW_CONTROL_WINDOW);
+    }
+
+    @ParameterizedTest(name = "autoFlowControl={0}")
+    @ValueSource(booleans = {true, false})
+    void testLargeMessagesPassThrough(final boolean autoFlowControl) throws IOException {
+        final GrpcServerProperties serverProperties = serverProperties(INITIAL_WINDOW, autoFlowControl);
+        serverProperties.setAddress("127.0.0.1");
+        serverProperties.setPort(0);
+        final ShadedNettyGrpcServerFactory serverFactory =
+                new ShadedNettyGrpcServerFactory(serverProperties, Collections.emptyList());
+        serverFactory.addService(new GrpcServiceDefinition("test", TestServiceImpl.class,
+                new TestServiceImpl().bindService()));
+        final Server server = serverFactory.createServer().start();
+
+        final GrpcChannelsProperties channelsProperties = channelProperties(INITIAL_WINDOW, autoFlowControl);
+        channelsProperties.getChannel("test").setAddress("static://127.0.0.1:" + server.getPort());
+        final ShadedNettyChannelFactory channelFactory = new ShadedNettyChannelFactory(channelsProperties,
+                mock(GlobalClientInterceptorRegistry.class), Collections.emptyList());
+
+        try {
+            final Channel channel = channelFactory.createChannel("test");
+            // Messages much larger than the initial window are split into several window updates
+            final List<SomeType> responses = echo(channel, MESSAGE_COUNT);
+            assertEquals(MESSAGE_COUNT, responses.size());
+            for (final SomeType response : responses) {
+                assertEquals(MESSAGE_SIZE, response.getVersion().length());
+            }
+        } finally {
+            channelFactory.close();
+            server.shutdownNow();
+        }
+    }
+
+    private static GrpcServerProperties serverProperties(final DataSize window, final boolean autoFlowControl) {
+        final GrpcServerProperties properties = new GrpcServerProperties();
+        properties.setFlowControlWindow(window);
+        properties.setAutoFlowControl(autoFlowControl);
+        return properties;
+    }
+
+    private static GrpcChannelsProperties channelProperties(final DataSize window, final boolean autoFlowControl) {
+        final GrpcChannelsProperties channelsProperties = new GrpcChannelsProperties();
+        final GrpcChannelProperties properties = channelsProperties.getChannel("test");
+        properties.setNegotiationType(NegotiationType.PLAINTEXT);
+        properties.setFlowControlWindow(window);
+        properties.setAutoFlowControl(autoFlowControl);
+        return channelsProperties;
+    }
+
+    private List<SomeType> echo(final Channel channel, final int count) {
+        final AwaitableStreamObserver<SomeType> responseObserver = new AwaitableStreamObserver<>();
+        final StreamObserver<SomeType> requestObserver = TestServiceGrpc.newStub(channel).echo(responseObserver);
+        for (int i = 0; i < count; i++) {
+            requestObserver.onNext(MESSAGE);
+        }
+        requestObserver.onCompleted();
+        try {
+            return responseObserver.getAll();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the responses", e);
+        }
+    }
+
+    /**
+     * Exposes the flow control configuration of the server factory.
+     */
+    private static final class TestServerFactory extends ShadedNettyGrpcServerFactory {
+
+        TestServerFactory(final GrpcServerProperties properties) {
+            super(properties, Collections.emptyList());
+        }
+
+        @Override
+        protected void configureFlowControl(final NettyServerBuilder builder) {
+            super.configureFlowControl(builder);
+        }
+
+    }
+
+    /**
+     * Exposes the flow control configuration of the channel factory.
+     */
+    private static final class TestChannelFactory extends ShadedNettyChannelFactory {
+
+        TestChannelFactory(final GrpcChannelsProperties properties) {
+            super(properties, mock(GlobalClientInterceptorRegistry.class), Collections.emptyList());
+        }
+
+        @Override
+        protected void configureFlowControl(final NettyChannelBuilder builder, final String name) {
+            super.configureFlowControl(builder, name);
+        }
+
+    }
+
+}
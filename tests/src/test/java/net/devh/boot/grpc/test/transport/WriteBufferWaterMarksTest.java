@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016-2024 The gRPC-Spring Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package net.devh.boot.grpc.test.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import io.grpc.netty.shaded.io.netty.channel.WriteBufferWaterMark;
+import net.devh.boot.grpc.common.transport.WriteBufferWaterMarks;
+
+/**
+ * Tests that {@link WriteBufferWaterMarks} only creates water marks that netty accepts.
+ */
+class WriteBufferWaterMarksTest {
+
+    private static final int DEFAULT_LOW = WriteBufferWaterMark.DEFAULT.low();
+    private static final int DEFAULT_HIGH = WriteBufferWaterMark.DEFAULT.high();
+
+    @Test
+    void testNothingConfigured() {
+        assertNull(resolve(null, null));
+    }
+
+    @Test
+    void testBothConfigured() {
+        final WriteBufferWaterMark waterMark = resolve(DataSize.ofKilobytes(256), DataSize.ofMegabytes(1));
+        assertEquals(256 * 1024, waterMark.low());
+        assertEquals(1024 * 1024, waterMark.high());
+    }
+
+    @Test
+    void testOnlyLowConfigured() {
+        assertEquals(DEFAULT_HIGH, resolve(DataSize.ofKilobytes(16), null).high());
+
+        // Above netty's default high water mark
+        final WriteBufferWaterMark waterMark = resolve(DataSize.ofKilobytes(128), null);
+        assertEquals(128 * 1024, waterMark.low());
+        assertEquals(128 * 1024, waterMark.high());
+    }
+
+    @Test
+    void testOnlyHighConfigured() {
+        assertEquals(DEFAULT_LOW, resolve(null, DataSize.ofMegabytes(1)).low());
+
+        // Below netty's default low water mark
+        final WriteBufferWaterMark waterMark = resolve(null, DataSize.ofKilobytes(16));
+        assertEquals(16 * 1024, waterMark.low());
+        assertEquals(16 * 1024, waterMark.high());
+    }
+
+    @Test
+    void testConflictingWaterMarks() {
+        final IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> resolve(DataSize.ofMegabytes(1), DataSize.ofKilobytes(256)));
+        assertEquals("grpc.server.write-buffer-low-water-mark (1048576B) must not exceed "
+                + "grpc.server.write-buffer-high-water-mark (262144B)", error.getMessage());
+    }
+
+    private static WriteBufferWaterMark resolve(final DataSize low, final DataSize high) {
+        return WriteBufferWaterMarks.resolve("grpc.server", low, high, DEFAULT_LOW, DEFAULT_HIGH,
+                WriteBufferWaterMark::new);
+    }
+
+}
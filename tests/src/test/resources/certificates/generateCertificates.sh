@@ -5,6 +5,13 @@ openssl req -x509 -nodes -subj "//CN=localhost" -newkey rsa:4096 -sha256 -keyout
 openssl req -x509 -nodes -subj "//CN=client1" -newkey rsa:4096 -sha256 -keyout client1.key -out client1.crt -days 3650
 openssl req -x509 -nodes -subj "//CN=client2" -newkey rsa:4096 -sha256 -keyout client2.key -out client2.crt -days 3650
 
+echo "Generating the server key in other PEM formats"
+openssl rsa -in server.key -traditional -out server-pkcs1.key
+openssl pkcs8 -topk8 -in server.key -v2 aes-256-cbc -passout 'pass:secret' -out server-encrypted.key
+openssl req -x509 -nodes -subj "//CN=localhost" -newkey ec -pkeyopt ec_paramgen_curve:prime256v1 -sha256 -keyout server-ec.key -out server-ec.crt -days 3650
+openssl ec -in server-ec.key -out server-ec-sec1.key
+rm server-ec.key
+
 echo "Generating trustCertCollection"
 cat server.crt > trusted-servers-collection
 cat client1.crt client2.crt > trusted-clients-collection